@@ -226,6 +226,7 @@ public class CmsGroupUsersList extends A_CmsGroupUsersList {
 
         CmsListState state = getListState();
         CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setLoadAdditionalInfos(false);
         String searchFilter = state.getFilter();
         params.setSearchFilter(searchFilter);
         if (!hasOuDetail()) {
@@ -388,6 +388,7 @@ public class CmsUserTransferList extends A_CmsListDialog {
 
         CmsListState state = getListState();
         CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setLoadAdditionalInfos(false);
         String searchFilter = state.getFilter();
         params.setSearchFilter(searchFilter);
         params.setFilterCore(true);
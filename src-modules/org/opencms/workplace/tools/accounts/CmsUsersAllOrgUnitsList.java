@@ -220,6 +220,7 @@ public class CmsUsersAllOrgUnitsList extends A_CmsUsersList {
         CmsListState state = getListState();
         List<CmsOrganizationalUnit> ous = OpenCms.getRoleManager().getManageableOrgUnits(getCms(), "", true, false);
         CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setLoadAdditionalInfos(false);
         params.setAllowedOus(ous);
         String searchFilter = state.getFilter();
         params.addSearch(SearchKey.email);
@@ -33,7 +33,7 @@ import org.opencms.jsp.CmsJspActionElement;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.main.OpenCms;
-import org.opencms.report.CmsHtmlReport;
+import org.opencms.report.CmsRingBufferReport;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.workplace.CmsReport;
@@ -193,7 +193,7 @@ public class CmsPublishProjectReport extends CmsReport {
         try {
             OpenCms.getPublishManager().publishProject(
                 getCms(),
-                new CmsHtmlReport(getLocale(), getCms().getRequestContext().getSiteRoot()),
+                new CmsRingBufferReport(getLocale(), getCms().getRequestContext().getSiteRoot()),
                 publishList);
         } catch (CmsException e) {
             throw new CmsRuntimeException(e.getMessageContainer());
@@ -73,6 +73,7 @@ public class CmsUpdateDBNewTables extends A_CmsUpdateDBPart {
 
         List<String> elements = new ArrayList<String>();
         elements.add("CMS_LOG");
+        elements.add("CMS_CLUSTER_EVENTS");
 
         for (Iterator<String> it = elements.iterator(); it.hasNext();) {
             String table = it.next();
@@ -34,6 +34,7 @@ import org.opencms.ade.detailpage.CmsDetailPageConfigurationWriter;
 import org.opencms.ade.detailpage.CmsDetailPageInfo;
 import org.opencms.ade.detailpage.CmsSitemapDetailPageFinder;
 import org.opencms.ade.detailpage.I_CmsDetailPageFinder;
+import org.opencms.ade.sitemap.CmsSitemapTreeCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.file.CmsFile;
@@ -53,8 +54,10 @@ import org.opencms.jsp.CmsJspNavBuilder;
 import org.opencms.jsp.CmsJspNavElement;
 import org.opencms.jsp.CmsJspTagLink;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
+import org.opencms.main.CmsEvent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.util.CmsRequestUtil;
@@ -79,6 +82,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
@@ -168,6 +176,25 @@ public class CmsADEManager {
     /** User additional info key constant. */
     protected static final String ADDINFO_ADE_RECENT_LIST = "ADE_RECENT_LIST";
 
+    /** The events which invalidate the rendered element contents cached in the editor sessions. */
+    private static final int[] ELEMENT_CONTENT_EVENTS = {
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+        I_CmsEventListener.EVENT_GROUP_MODIFIED,
+        I_CmsEventListener.EVENT_OU_MODIFIED,
+        I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_COPIED,
+        I_CmsEventListener.EVENT_RESOURCE_CREATED,
+        I_CmsEventListener.EVENT_RESOURCE_DELETED,
+        I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_MOVED,
+        I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+        I_CmsEventListener.EVENT_USER_MODIFIED};
+
     /** The logger instance for this class. */
     private static final Log LOG = CmsLog.getLog(CmsADEManager.class);
 
@@ -180,6 +207,15 @@ public class CmsADEManager {
     /** The detail page finder. */
     private I_CmsDetailPageFinder m_detailPageFinder = new CmsSitemapDetailPageFinder();
 
+    /** The version of the rendered element contents, increased whenever a resource or a principal is changed. */
+    private final AtomicLong m_elementContentVersion = new AtomicLong();
+
+    /** The executor for rendering container elements in the page editor, <code>null</code> for sequential rendering. */
+    private ExecutorService m_elementRenderExecutor;
+
+    /** The maximum number of rendered element contents cached per editor session. */
+    private int m_elementSessionCacheSize;
+
     /** The initialization status. */
     private Status m_initStatus = Status.notInitialized;
 
@@ -204,6 +240,9 @@ public class CmsADEManager {
     /** The online inherited container configuration cache. */
     private CmsContainerConfigurationCache m_onlineContainerConfigurationCache;
 
+    /** The cache for the sitemap editor tree. */
+    private CmsSitemapTreeCache m_sitemapTreeCache;
+
     /**
      * Creates a new ADE manager.<p>
      *
@@ -220,6 +259,23 @@ public class CmsADEManager {
         }
         m_onlineCms = adminCms;
         m_cache = new CmsADECache(memoryMonitor, cacheSettings);
+        m_elementSessionCacheSize = cacheSettings.getElementSessionCacheSize();
+        m_sitemapTreeCache = new CmsSitemapTreeCache(memoryMonitor);
+        if (cacheSettings.getElementRenderThreads() > 0) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            m_elementRenderExecutor = Executors.newFixedThreadPool(
+                cacheSettings.getElementRenderThreads(),
+                new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "OpenCms: ADE element rendering "
+                            + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        }
 
         // further initialization is done by the initialize() method. We don't do that in the constructor,
         // because during the setup the configuration resource types don't exist yet.
@@ -367,6 +423,39 @@ public class CmsADEManager {
         return cache.getDetailPageTypes();
     }
 
+    /**
+     * Returns the version of the rendered element contents.<p>
+     * 
+     * The version is increased for every change of a resource, a lock, a permission or a principal, 
+     * so element contents cached with an older version are no longer used.<p>
+     * 
+     * @return the version of the rendered element contents
+     */
+    public long getElementContentVersion() {
+
+        return m_elementContentVersion.get();
+    }
+
+    /**
+     * Returns the executor for rendering container elements in the page editor.<p>
+     * 
+     * @return the executor, or <code>null</code> if the elements should be rendered sequentially
+     */
+    public ExecutorService getElementRenderExecutor() {
+
+        return m_elementRenderExecutor;
+    }
+
+    /**
+     * Returns the maximum number of rendered element contents cached per editor session.<p>
+     * 
+     * @return the maximum number of cached element contents, <code>0</code> if the cache is disabled
+     */
+    public int getElementSessionCacheSize() {
+
+        return m_elementSessionCacheSize;
+    }
+
     /**
      * Returns the element settings for a given resource.<p>
      * 
@@ -552,6 +641,16 @@ public class CmsADEManager {
         return maxElems.intValue();
     }
 
+    /**
+     * Returns the cache for the sitemap editor tree.<p>
+     * 
+     * @return the sitemap tree cache
+     */
+    public CmsSitemapTreeCache getSitemapTreeCache() {
+
+        return m_sitemapTreeCache;
+    }
+
     /**
      * Tries to get the subsite root for a given resource root path.<p>
      * 
@@ -667,6 +766,15 @@ public class CmsADEManager {
                     m_onlineContainerConfigurationCache,
                     "Inherited container cache");
                 OpenCms.getEventManager().addCmsEventListener(handler);
+                if (m_elementSessionCacheSize > 0) {
+                    OpenCms.getEventManager().addCmsEventListener(new I_CmsEventListener() {
+
+                        public void cmsEvent(CmsEvent event) {
+
+                            m_elementContentVersion.incrementAndGet();
+                        }
+                    }, ELEMENT_CONTENT_EVENTS);
+                }
                 m_initStatus = Status.initialized;
             } catch (CmsException e) {
                 m_initStatus = Status.notInitialized;
@@ -836,7 +944,9 @@ public class CmsADEManager {
      */
     public void shutdown() {
 
-        // do nothing 
+        if (m_elementRenderExecutor != null) {
+            m_elementRenderExecutor.shutdownNow();
+        }
     }
 
     /**
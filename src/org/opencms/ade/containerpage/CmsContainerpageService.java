@@ -1009,39 +1009,41 @@ public class CmsContainerpageService extends CmsGwtService implements I_CmsConta
 
         CmsObject cms = getCmsObject();
         CmsElementUtil elemUtil = new CmsElementUtil(cms, uriParam, getRequest(), getResponse(), locale);
-        Map<String, CmsContainerElementData> result = new HashMap<String, CmsContainerElementData>();
         Set<String> ids = new HashSet<String>();
+        List<CmsContainerElementBean> elements = new ArrayList<CmsContainerElementBean>();
         Iterator<String> it = clientIds.iterator();
         while (it.hasNext()) {
             String elemId = it.next();
             if (ids.contains(elemId)) {
                 continue;
             }
-            CmsContainerElementBean element = getCachedElement(elemId);
-            CmsContainerElementData elementData = elemUtil.getElementData(element, containers);
-            result.put(element.editorHash(), elementData);
-            if (elementData.isGroupContainer() || elementData.isInheritContainer()) {
+            elements.add(getCachedElement(elemId));
+            ids.add(elemId);
+        }
+        // the element contents are rendered together, so they can be rendered in parallel
+        Map<String, CmsContainerElementData> result = new HashMap<String, CmsContainerElementData>(
+            elemUtil.getElementsData(elements, containers));
+        List<CmsContainerElementBean> subElements = new ArrayList<CmsContainerElementBean>();
+        for (CmsContainerElementBean element : elements) {
+            CmsContainerElementData elementData = result.get(element.editorHash());
+            if ((elementData != null) && (elementData.isGroupContainer() || elementData.isInheritContainer())) {
                 // this is a group-container 
                 CmsResource elementRes = cms.readResource(element.getId());
-                List<CmsContainerElementBean> subElements = elementData.isGroupContainer() ? getGroupContainerElements(
-                    elementRes,
-                    locale) : getInheritedElements(elementRes, locale, uriParam);
+                List<CmsContainerElementBean> groupElements = elementData.isGroupContainer()
+                ? getGroupContainerElements(elementRes, locale)
+                : getInheritedElements(elementRes, locale, uriParam);
                 // adding all sub-items to the elements data
-                for (CmsContainerElementBean subElement : subElements) {
+                for (CmsContainerElementBean subElement : groupElements) {
                     getSessionCache().setCacheContainerElement(subElement.editorHash(), subElement);
-                    if (!ids.contains(subElement.getId())) {
-                        String subId = subElement.editorHash();
-                        if (ids.contains(subId)) {
-                            continue;
-                        }
-                        CmsContainerElementData subItemData = elemUtil.getElementData(subElement, containers);
+                    String subId = subElement.editorHash();
+                    if (!ids.contains(subId)) {
                         ids.add(subId);
-                        result.put(subId, subItemData);
+                        subElements.add(subElement);
                     }
                 }
             }
-            ids.add(elemId);
         }
+        result.putAll(elemUtil.getElementsData(subElements, containers));
         return result;
     }
 
@@ -0,0 +1,156 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.containerpage;
+
+import org.opencms.flex.CmsFlexController;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsRequestUtil;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Request wrapper used for rendering a container element in a separate thread.<p>
+ * 
+ * The attributes and parameters of the original request are copied when the wrapper is created,
+ * so rendering elements in parallel does not change the attributes of the original request or of
+ * other rendering requests. The Flex controller of the original request is not copied.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsElementRenderRequest extends HttpServletRequestWrapper {
+
+    /** The request attributes. */
+    private Map<String, Object> m_attributes;
+
+    /** The request parameters. */
+    private Map<String, String[]> m_parameters;
+
+    /**
+     * Creates a new render request wrapper.<p>
+     * 
+     * This must be called in the thread handling the original request.<p>
+     * 
+     * @param req the original request
+     */
+    public CmsElementRenderRequest(HttpServletRequest req) {
+
+        super(req);
+        m_attributes = Collections.synchronizedMap(new HashMap<String, Object>(CmsRequestUtil.getAtrributeMap(req)));
+        m_attributes.remove(CmsFlexController.ATTRIBUTE_NAME);
+        Map<String, String[]> parameters = CmsCollectionsGenericWrapper.map(req.getParameterMap());
+        m_parameters = new HashMap<String, String[]>(parameters);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getAttribute(java.lang.String)
+     */
+    @Override
+    public Object getAttribute(String name) {
+
+        return m_attributes.get(name);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getAttributeNames()
+     */
+    @Override
+    public Enumeration<String> getAttributeNames() {
+
+        synchronized (m_attributes) {
+            return Collections.enumeration(new HashMap<String, Object>(m_attributes).keySet());
+        }
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameter(java.lang.String)
+     */
+    @Override
+    public String getParameter(String name) {
+
+        String[] values = m_parameters.get(name);
+        if ((values != null) && (values.length > 0)) {
+            return values[0];
+        }
+        return null;
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterMap()
+     */
+    @Override
+    public Map<String, String[]> getParameterMap() {
+
+        return Collections.unmodifiableMap(m_parameters);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterNames()
+     */
+    @Override
+    public Enumeration<String> getParameterNames() {
+
+        return Collections.enumeration(m_parameters.keySet());
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#getParameterValues(java.lang.String)
+     */
+    @Override
+    public String[] getParameterValues(String name) {
+
+        return m_parameters.get(name);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#removeAttribute(java.lang.String)
+     */
+    @Override
+    public void removeAttribute(String name) {
+
+        m_attributes.remove(name);
+    }
+
+    /**
+     * @see javax.servlet.ServletRequest#setAttribute(java.lang.String, java.lang.Object)
+     */
+    @Override
+    public void setAttribute(String name, Object value) {
+
+        if (value == null) {
+            m_attributes.remove(name);
+        } else {
+            m_attributes.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.containerpage;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response wrapper used for rendering a container element in a separate thread.<p>
+ * 
+ * The element content is rendered into the buffer of a Flex response, so the cookies, headers and the status
+ * set while rendering are ignored instead of being written concurrently to the original response.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsElementRenderResponse extends HttpServletResponseWrapper {
+
+    /**
+     * Creates a new render response wrapper.<p>
+     * 
+     * @param res the original response
+     */
+    public CmsElementRenderResponse(HttpServletResponse res) {
+
+        super(res);
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addCookie(javax.servlet.http.Cookie)
+     */
+    @Override
+    public void addCookie(Cookie cookie) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addDateHeader(java.lang.String, long)
+     */
+    @Override
+    public void addDateHeader(String name, long date) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addHeader(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void addHeader(String name, String value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#addIntHeader(java.lang.String, int)
+     */
+    @Override
+    public void addIntHeader(String name, int value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#flushBuffer()
+     */
+    @Override
+    public void flushBuffer() {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#reset()
+     */
+    @Override
+    public void reset() {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#resetBuffer()
+     */
+    @Override
+    public void resetBuffer() {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setContentLength(int)
+     */
+    @Override
+    public void setContentLength(int len) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.ServletResponse#setContentType(java.lang.String)
+     */
+    @Override
+    public void setContentType(String type) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setDateHeader(java.lang.String, long)
+     */
+    @Override
+    public void setDateHeader(String name, long date) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setHeader(java.lang.String, java.lang.String)
+     */
+    @Override
+    public void setHeader(String name, String value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setIntHeader(java.lang.String, int)
+     */
+    @Override
+    public void setIntHeader(String name, int value) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setStatus(int)
+     */
+    @Override
+    public void setStatus(int sc) {
+
+        // ignore
+    }
+
+    /**
+     * @see javax.servlet.http.HttpServletResponse#setStatus(int, java.lang.String)
+     */
+    @Deprecated
+    @Override
+    public void setStatus(int sc, String sm) {
+
+        // ignore
+    }
+}
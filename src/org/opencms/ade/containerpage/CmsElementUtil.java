@@ -88,6 +88,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -104,6 +108,119 @@ import org.apache.commons.logging.Log;
  */
 public class CmsElementUtil {
 
+    /**
+     * The rendering of an element with the formatter for a container.<p>
+     */
+    private class ElementContentJob implements Callable<String> {
+
+        /** The cache key, <code>null</code> if the content should not be cached. */
+        String m_cacheKey;
+
+        /** The cms context used for rendering. */
+        CmsObject m_cmsContext;
+
+        /** The container. */
+        CmsContainer m_container;
+
+        /** The map to store the content in, by container name. */
+        Map<String, String> m_contents;
+
+        /** The element. */
+        CmsContainerElementBean m_element;
+
+        /** The formatter. */
+        CmsResource m_formatter;
+
+        /** Indicates if the element resource needs to be initialized before rendering. */
+        boolean m_initResource;
+
+        /** The request used for rendering. */
+        HttpServletRequest m_request;
+
+        /** The response used for rendering. */
+        HttpServletResponse m_response;
+
+        /** The standard context bean used for rendering. */
+        CmsJspStandardContextBean m_standardContextBean;
+
+        /** The template bean. */
+        TemplateBean m_templateBean;
+
+        /**
+         * Creates a new job which renders with the context of the element util.<p>
+         * 
+         * @param element the element
+         * @param formatter the formatter
+         * @param container the container
+         * @param contents the map to store the content in
+         */
+        ElementContentJob(
+            CmsContainerElementBean element,
+            CmsResource formatter,
+            CmsContainer container,
+            Map<String, String> contents) {
+
+            m_element = element;
+            m_formatter = formatter;
+            m_container = container;
+            m_contents = contents;
+            m_cmsContext = m_cms;
+            m_request = m_req;
+            m_response = m_res;
+            m_standardContextBean = m_standardContext;
+            m_initResource = true;
+        }
+
+        /**
+         * Renders the element content.<p>
+         * 
+         * @see java.util.concurrent.Callable#call()
+         */
+        public String call() throws Exception {
+
+            return getElementContent(this);
+        }
+
+        /**
+         * Switches this job to an isolated context, so it can be rendered in a separate thread.<p>
+         * 
+         * This must be called in the thread handling the original request.<p>
+         * 
+         * @throws CmsException if something goes wrong
+         */
+        void isolate() throws CmsException {
+
+            m_cmsContext = OpenCms.initCmsObject(m_cms);
+            m_cmsContext.getRequestContext().setLocale(m_locale);
+            m_request = new CmsElementRenderRequest(m_req);
+            m_request.setAttribute(CmsJspStandardContextBean.ATTRIBUTE_CMS_OBJECT, m_cmsContext);
+            m_request.removeAttribute(CmsJspStandardContextBean.ATTRIBUTE_NAME);
+            m_response = new CmsElementRenderResponse(m_res);
+            m_standardContextBean = CmsJspStandardContextBean.getInstance(m_request);
+            // the container beans are changed during rendering, so every job needs its own copy of the page
+            m_standardContextBean.setPage(copyPage(m_standardContext.getPage()));
+            // the element resource has already been initialized, don't change the shared element bean
+            m_initResource = false;
+        }
+
+        /**
+         * Stores the rendered content.<p>
+         * 
+         * @param content the rendered content, may be <code>null</code>
+         * @param cache the session cache
+         */
+        void setContent(String content, CmsADESessionCache cache) {
+
+            if (content != null) {
+                content = removeScriptTags(content);
+                if (m_cacheKey != null) {
+                    cache.setCacheElementContent(m_cacheKey, content);
+                }
+                m_contents.put(m_container.getName(), content);
+            }
+        }
+    }
+
     /** Static reference to the log. */
     private static final Log LOG = CmsLog.getLog(org.opencms.ade.containerpage.CmsElementUtil.class);
 
@@ -202,42 +319,328 @@ public class CmsElementUtil {
         CmsContainerElementBean element,
         Collection<CmsContainer> containers) {
 
+        Map<String, String> result = new HashMap<String, String>();
+        List<ElementContentJob> jobs = new ArrayList<ElementContentJob>();
+        addContentJobs(element, containers, result, jobs);
+        renderContents(jobs);
+        return result;
+    }
+
+    /**
+     * Returns the data for an element.<p>
+     * 
+     * @param element the resource
+     * @param containers the containers on the current container page 
+     * 
+     * @return the data for an element
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public CmsContainerElementData getElementData(CmsContainerElementBean element, Collection<CmsContainer> containers)
+    throws CmsException {
+
+        List<ElementContentJob> jobs = new ArrayList<ElementContentJob>();
+        CmsContainerElementData elementData = getElementData(element, containers, jobs);
+        renderContents(jobs);
+        return elementData;
+    }
+
+    /**
+     * Returns the data for the given elements.<p>
+     * 
+     * The element contents are rendered after the data of all elements has been read, in parallel
+     * if an element render executor is configured for the ADE manager.<p>
+     * 
+     * @param elements the elements
+     * @param containers the containers on the current container page 
+     * 
+     * @return the data for the elements, by the editor hash of the element
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public Map<String, CmsContainerElementData> getElementsData(
+        Collection<CmsContainerElementBean> elements,
+        Collection<CmsContainer> containers) throws CmsException {
+
+        Map<String, CmsContainerElementData> result = new LinkedHashMap<String, CmsContainerElementData>();
+        List<ElementContentJob> jobs = new ArrayList<ElementContentJob>();
+        for (CmsContainerElementBean element : elements) {
+            result.put(element.editorHash(), getElementData(element, containers, jobs));
+        }
+        renderContents(jobs);
+        return result;
+    }
+
+    /**
+     * Sets the data to the given container element.<p>
+     * 
+     * @param elementBean the element bean
+     * @param result the container element to set the data to
+     * 
+     * @return the container element
+     *  
+     * @throws CmsException if something goes wrong
+     */
+    public CmsContainerElement setElementInfo(CmsContainerElementBean elementBean, CmsContainerElement result)
+    throws CmsException {
+
+        Locale wpLocale = OpenCms.getWorkplaceManager().getWorkplaceLocale(m_cms);
+        String noEditReason = "";
+        // reinitializing resource to avoid caching issues
+        elementBean.initResource(m_cms);
+        boolean newEditorDisabled = !CmsWorkplaceEditorManager.checkAcaciaEditorAvailable(
+            m_cms,
+            elementBean.getResource());
+        result.setNewEditorDisabled(newEditorDisabled);
+        if (!elementBean.isInMemoryOnly()) {
+            if (CmsResourceTypeXmlContent.isXmlContent(elementBean.getResource())) {
+                result.setWritePermission(m_cms.hasPermissions(
+                    elementBean.getResource(),
+                    CmsPermissionSet.ACCESS_WRITE,
+                    false,
+                    CmsResourceFilter.IGNORE_EXPIRATION));
+                noEditReason = new CmsResourceUtil(m_cms, elementBean.getResource()).getNoEditReason(wpLocale, true);
+                if (CmsStringUtil.isEmptyOrWhitespaceOnly(noEditReason) && elementBean.isInheritedContainer(m_cms)) {
+                    String requestUri = m_cms.getRequestContext().getUri();
+                    String folderPath = CmsResource.getFolderPath(requestUri);
+                    String configPath = CmsStringUtil.joinPaths(
+                        folderPath,
+                        CmsContainerConfigurationCache.INHERITANCE_CONFIG_FILE_NAME);
+                    if (m_cms.existsResource(configPath)) {
+                        noEditReason = new CmsResourceUtil(m_cms, m_cms.readResource(configPath)).getNoEditReason(
+                            wpLocale,
+                            true);
+                    } else {
+                        if (!m_cms.getLock(folderPath).isLockableBy(m_cms.getRequestContext().getCurrentUser())) {
+                            noEditReason = org.opencms.workplace.explorer.Messages.get().getBundle(wpLocale).key(
+                                org.opencms.workplace.explorer.Messages.GUI_NO_EDIT_REASON_LOCK_1,
+                                new CmsResourceUtil(m_cms, m_cms.readResource(folderPath)).getLockedByName());
+                        }
+                    }
+                } else {
+                    noEditReason = new CmsResourceUtil(m_cms, elementBean.getResource()).getNoEditReason(wpLocale, true);
+                }
+            } else {
+                noEditReason = Messages.get().getBundle().key(Messages.GUI_ELEMENT_RESOURCE_CAN_NOT_BE_EDITED_0);
+            }
+        }
+        result.setClientId(elementBean.editorHash());
+        result.setSitePath(elementBean.getSitePath());
+        String typeName = OpenCms.getResourceManager().getResourceType(elementBean.getResource().getTypeId()).getTypeName();
+        result.setResourceType(typeName);
+        result.setNew(elementBean.isCreateNew());
+        if (elementBean.isCreateNew()) {
+            CmsResourceTypeConfig typeConfig = OpenCms.getADEManager().lookupConfiguration(
+                m_cms,
+                m_cms.addSiteRoot(m_currentPageUri)).getResourceType(typeName);
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(noEditReason)
+                && ((typeConfig == null) || !typeConfig.checkCreatable(m_cms))) {
+                String niceName = CmsWorkplaceMessages.getResourceTypeName(wpLocale, typeName);
+                noEditReason = Messages.get().getBundle().key(Messages.GUI_CONTAINERPAGE_TYPE_NOT_CREATABLE_1, niceName);
+            }
+        }
+        result.setHasSettings(hasSettings(m_cms, elementBean.getResource()));
+        CmsExplorerTypeSettings settings = OpenCms.getWorkplaceManager().getExplorerTypeSetting(typeName);
+        result.setViewPermission(elementBean.isInMemoryOnly()
+            || (m_cms.hasPermissions(
+                elementBean.getResource(),
+                CmsPermissionSet.ACCESS_VIEW,
+                false,
+                CmsResourceFilter.IGNORE_EXPIRATION) && settings.getAccess().getPermissions(
+                m_cms,
+                elementBean.getResource()).requiresViewPermission()));
+
+        result.setReleasedAndNotExpired(elementBean.isReleasedAndNotExpired());
+        result.setNoEditReason(noEditReason);
+        return result;
+    }
+
+    /**
+     * Adds the jobs for rendering the element with the formatters for the given containers.<p>
+     * 
+     * Contents found in the session cache are added directly to the contents map.<p>
+     * 
+     * @param element the element to render
+     * @param containers the containers the element appears in
+     * @param contents the map to add the rendered contents to, by container name
+     * @param jobs the list to add the jobs to
+     */
+    private void addContentJobs(
+        CmsContainerElementBean element,
+        Collection<CmsContainer> containers,
+        Map<String, String> contents,
+        List<ElementContentJob> jobs) {
+
         CmsADEConfigData adeConfig = OpenCms.getADEManager().lookupConfiguration(
             m_cms,
             m_cms.addSiteRoot(m_currentPageUri));
         CmsFormatterConfiguration configs = adeConfig.getFormatters(m_cms, element.getResource());
-        Map<String, String> result = new HashMap<String, String>();
+        CmsADESessionCache sessionCache = CmsADESessionCache.getCache(m_req, m_cms);
+        TemplateBean templateBean = sessionCache.getTemplateBean(m_cms.addSiteRoot(m_currentPageUri), true);
         for (CmsContainer container : containers) {
-            String name = container.getName();
-            CmsFormatterBean formatter = configs.getFormatter(container.getType(), container.getWidth());
-            if (formatter != null) {
-                String content = null;
+            CmsFormatterBean formatterBean = configs.getFormatter(container.getType(), container.getWidth());
+            if (formatterBean != null) {
+                CmsResource formatter;
                 try {
-                    content = getElementContent(element, m_cms.readResource(formatter.getJspStructureId()), container);
+                    formatter = m_cms.readResource(formatterBean.getJspStructureId());
                 } catch (Exception e) {
                     LOG.error(e.getLocalizedMessage(), e);
+                    continue;
                 }
+                String cacheKey = getContentCacheKey(element, formatter, container);
+                String content = (cacheKey != null) ? sessionCache.getCacheElementContent(cacheKey) : null;
                 if (content != null) {
-                    content = removeScriptTags(content);
-                    result.put(name, content);
+                    contents.put(container.getName(), content);
+                } else {
+                    ElementContentJob job = new ElementContentJob(element, formatter, container, contents);
+                    job.m_cacheKey = cacheKey;
+                    job.m_templateBean = templateBean;
+                    jobs.add(job);
                 }
             }
         }
-        return result;
     }
 
     /**
-     * Returns the data for an element.<p>
+     * Returns a copy of a container page bean with copies of all container beans.<p>
+     * 
+     * @param page the page to copy, may be <code>null</code>
+     * 
+     * @return the copy, or <code>null</code> if the page is <code>null</code>
+     */
+    private CmsContainerPageBean copyPage(CmsContainerPageBean page) {
+
+        if (page == null) {
+            return null;
+        }
+        List<CmsContainerBean> containers = new ArrayList<CmsContainerBean>(page.getContainers().size());
+        for (CmsContainerBean container : page.getContainers().values()) {
+            CmsContainerBean copy = new CmsContainerBean(
+                container.getName(),
+                container.getType(),
+                container.getMaxElements(),
+                container.getElements());
+            copy.setWidth(container.getWidth());
+            containers.add(copy);
+        }
+        return new CmsContainerPageBean(page.getLocale(), containers);
+    }
+
+    /**
+     * Returns the key used for caching the rendered element content in the session cache.<p>
+     * 
+     * The key contains the version of the element contents of the ADE manager, which changes whenever a resource,
+     * a lock, a permission or a principal is changed, because formatters may render other resources and 
+     * the edit points depend on the lock state and the permissions.<p>
+     * 
+     * @param element the element
+     * @param formatter the formatter
+     * @param container the container
+     * 
+     * @return the cache key, or <code>null</code> if the content should not be cached
+     */
+    private String getContentCacheKey(CmsContainerElementBean element, CmsResource formatter, CmsContainer container) {
+
+        if (element.isInMemoryOnly() || (element.getResource() == null)) {
+            return null;
+        }
+        StringBuffer key = new StringBuffer(256);
+        key.append(OpenCms.getADEManager().getElementContentVersion()).append('|');
+        key.append(m_cms.getRequestContext().getCurrentUser().getId()).append('|');
+        key.append(m_cms.getRequestContext().getCurrentProject().getUuid()).append('|');
+        key.append(m_cms.addSiteRoot(m_currentPageUri)).append('|');
+        key.append(m_locale).append('|');
+        key.append(element.getResource().getStructureId()).append(':');
+        key.append(element.getResource().getDateLastModified()).append('|');
+        key.append(element.getIndividualSettings()).append('|');
+        key.append(formatter.getStructureId()).append(':');
+        key.append(formatter.getDateLastModified()).append('|');
+        key.append(container.getName()).append(':');
+        key.append(container.getType()).append(':');
+        key.append(container.getWidth()).append(':');
+        key.append(container.getMaxElements());
+        return key.toString();
+    }
+
+    /**
+     * Returns the content of an element when rendered with the formatter of the given job.<p> 
+     * 
+     * @param job the job with the element, the formatter, the container and the context to use for rendering
+     * 
+     * @return generated html code
+     * 
+     * @throws CmsException if an cms related error occurs
+     * @throws ServletException if a jsp related error occurs
+     * 
+     * @throws IOException if a jsp related error occurs
+     */
+    private String getElementContent(ElementContentJob job) throws CmsException, ServletException, IOException {
+
+        CmsObject cms = job.m_cmsContext;
+        CmsJspStandardContextBean standardContext = job.m_standardContextBean;
+        HttpServletRequest req = job.m_request;
+        CmsContainerElementBean element = job.m_element;
+        CmsContainer container = job.m_container;
+        if (job.m_initResource) {
+            element.initResource(cms);
+        }
+        CmsTemplateLoaderFacade loaderFacade = new CmsTemplateLoaderFacade(OpenCms.getResourceManager().getLoader(
+            job.m_formatter), element.getResource(), job.m_formatter);
+        CmsResource loaderRes = loaderFacade.getLoaderStartResource();
+        String oldUri = cms.getRequestContext().getUri();
+        try {
+            cms.getRequestContext().setUri(m_currentPageUri);
+            CmsContainerBean containerBean = null;
+            if ((standardContext.getPage() != null)
+                && standardContext.getPage().getContainers().containsKey(container.getName())) {
+                containerBean = standardContext.getPage().getContainers().get(container.getName());
+            } else {
+                containerBean = new CmsContainerBean(
+                    container.getName(),
+                    container.getType(),
+                    container.getMaxElements(),
+                    Collections.<CmsContainerElementBean> emptyList());
+            }
+            if (containerBean.getWidth() == null) {
+                containerBean.setWidth(String.valueOf(container.getWidth()));
+            }
+            standardContext.setContainer(containerBean);
+            standardContext.setElement(element);
+            standardContext.setEdited(true);
+            // to enable 'old' direct edit features for content-collector-elements, 
+            // set the direct-edit-provider-attribute in the request
+            I_CmsDirectEditProvider eb = new CmsAdvancedDirectEditProvider();
+            eb.init(cms, CmsDirectEditMode.TRUE, element.getSitePath());
+            req.setAttribute(I_CmsDirectEditProvider.ATTRIBUTE_DIRECT_EDIT_PROVIDER, eb);
+            req.setAttribute(CmsTemplateContextManager.ATTR_TEMPLATE_BEAN, job.m_templateBean);
+            String encoding = job.m_response.getCharacterEncoding();
+            return (new String(loaderFacade.getLoader().dump(
+                cms,
+                loaderRes,
+                null,
+                m_locale,
+                req,
+                job.m_response), encoding)).trim();
+        } finally {
+            cms.getRequestContext().setUri(oldUri);
+        }
+    }
+
+    /**
+     * Returns the data for an element, without rendering the element contents.<p>
      * 
      * @param element the resource
      * @param containers the containers on the current container page 
+     * @param jobs the list to add the jobs for rendering the element contents to
      * 
      * @return the data for an element
      * 
      * @throws CmsException if something goes wrong
      */
-    public CmsContainerElementData getElementData(CmsContainerElementBean element, Collection<CmsContainer> containers)
-    throws CmsException {
+    private CmsContainerElementData getElementData(
+        CmsContainerElementBean element,
+        Collection<CmsContainer> containers,
+        List<ElementContentJob> jobs) throws CmsException {
 
         Locale requestLocale = m_cms.getRequestContext().getLocale();
         m_cms.getRequestContext().setLocale(m_locale);
@@ -347,156 +750,14 @@ public class CmsElementUtil {
             elementData.setInheritanceInfos(inheritanceInfos);
             elementData.setInheritanceName(name);
         } else {
-            // get the formatter configuration
-            Map<String, String> contentsByName = getContentsByContainerName(element, containers);
-            contents = contentsByName;
+            // the contents are added when the jobs are rendered
+            addContentJobs(element, containers, contents, jobs);
         }
         elementData.setContents(contents);
         m_cms.getRequestContext().setLocale(requestLocale);
         return elementData;
     }
 
-    /**
-     * Sets the data to the given container element.<p>
-     * 
-     * @param elementBean the element bean
-     * @param result the container element to set the data to
-     * 
-     * @return the container element
-     *  
-     * @throws CmsException if something goes wrong
-     */
-    public CmsContainerElement setElementInfo(CmsContainerElementBean elementBean, CmsContainerElement result)
-    throws CmsException {
-
-        Locale wpLocale = OpenCms.getWorkplaceManager().getWorkplaceLocale(m_cms);
-        String noEditReason = "";
-        // reinitializing resource to avoid caching issues
-        elementBean.initResource(m_cms);
-        boolean newEditorDisabled = !CmsWorkplaceEditorManager.checkAcaciaEditorAvailable(
-            m_cms,
-            elementBean.getResource());
-        result.setNewEditorDisabled(newEditorDisabled);
-        if (!elementBean.isInMemoryOnly()) {
-            if (CmsResourceTypeXmlContent.isXmlContent(elementBean.getResource())) {
-                result.setWritePermission(m_cms.hasPermissions(
-                    elementBean.getResource(),
-                    CmsPermissionSet.ACCESS_WRITE,
-                    false,
-                    CmsResourceFilter.IGNORE_EXPIRATION));
-                noEditReason = new CmsResourceUtil(m_cms, elementBean.getResource()).getNoEditReason(wpLocale, true);
-                if (CmsStringUtil.isEmptyOrWhitespaceOnly(noEditReason) && elementBean.isInheritedContainer(m_cms)) {
-                    String requestUri = m_cms.getRequestContext().getUri();
-                    String folderPath = CmsResource.getFolderPath(requestUri);
-                    String configPath = CmsStringUtil.joinPaths(
-                        folderPath,
-                        CmsContainerConfigurationCache.INHERITANCE_CONFIG_FILE_NAME);
-                    if (m_cms.existsResource(configPath)) {
-                        noEditReason = new CmsResourceUtil(m_cms, m_cms.readResource(configPath)).getNoEditReason(
-                            wpLocale,
-                            true);
-                    } else {
-                        if (!m_cms.getLock(folderPath).isLockableBy(m_cms.getRequestContext().getCurrentUser())) {
-                            noEditReason = org.opencms.workplace.explorer.Messages.get().getBundle(wpLocale).key(
-                                org.opencms.workplace.explorer.Messages.GUI_NO_EDIT_REASON_LOCK_1,
-                                new CmsResourceUtil(m_cms, m_cms.readResource(folderPath)).getLockedByName());
-                        }
-                    }
-                } else {
-                    noEditReason = new CmsResourceUtil(m_cms, elementBean.getResource()).getNoEditReason(wpLocale, true);
-                }
-            } else {
-                noEditReason = Messages.get().getBundle().key(Messages.GUI_ELEMENT_RESOURCE_CAN_NOT_BE_EDITED_0);
-            }
-        }
-        result.setClientId(elementBean.editorHash());
-        result.setSitePath(elementBean.getSitePath());
-        String typeName = OpenCms.getResourceManager().getResourceType(elementBean.getResource().getTypeId()).getTypeName();
-        result.setResourceType(typeName);
-        result.setNew(elementBean.isCreateNew());
-        if (elementBean.isCreateNew()) {
-            CmsResourceTypeConfig typeConfig = OpenCms.getADEManager().lookupConfiguration(
-                m_cms,
-                m_cms.addSiteRoot(m_currentPageUri)).getResourceType(typeName);
-            if (CmsStringUtil.isEmptyOrWhitespaceOnly(noEditReason)
-                && ((typeConfig == null) || !typeConfig.checkCreatable(m_cms))) {
-                String niceName = CmsWorkplaceMessages.getResourceTypeName(wpLocale, typeName);
-                noEditReason = Messages.get().getBundle().key(Messages.GUI_CONTAINERPAGE_TYPE_NOT_CREATABLE_1, niceName);
-            }
-        }
-        result.setHasSettings(hasSettings(m_cms, elementBean.getResource()));
-        CmsExplorerTypeSettings settings = OpenCms.getWorkplaceManager().getExplorerTypeSetting(typeName);
-        result.setViewPermission(elementBean.isInMemoryOnly()
-            || (m_cms.hasPermissions(
-                elementBean.getResource(),
-                CmsPermissionSet.ACCESS_VIEW,
-                false,
-                CmsResourceFilter.IGNORE_EXPIRATION) && settings.getAccess().getPermissions(
-                m_cms,
-                elementBean.getResource()).requiresViewPermission()));
-
-        result.setReleasedAndNotExpired(elementBean.isReleasedAndNotExpired());
-        result.setNoEditReason(noEditReason);
-        return result;
-    }
-
-    /**
-     * Returns the content of an element when rendered with the given formatter.<p> 
-     * 
-     * @param element the element bean
-     * @param formatter the formatter uri
-     * @param container the container for which the element content should be retrieved 
-     * 
-     * @return generated html code
-     * 
-     * @throws CmsException if an cms related error occurs
-     * @throws ServletException if a jsp related error occurs
-     * 
-     * @throws IOException if a jsp related error occurs
-     */
-    private String getElementContent(CmsContainerElementBean element, CmsResource formatter, CmsContainer container)
-    throws CmsException, ServletException, IOException {
-
-        element.initResource(m_cms);
-        CmsTemplateLoaderFacade loaderFacade = new CmsTemplateLoaderFacade(OpenCms.getResourceManager().getLoader(
-            formatter), element.getResource(), formatter);
-        CmsResource loaderRes = loaderFacade.getLoaderStartResource();
-        TemplateBean templateBean = CmsADESessionCache.getCache(m_req, m_cms).getTemplateBean(
-            m_cms.addSiteRoot(m_currentPageUri),
-            true);
-        String oldUri = m_cms.getRequestContext().getUri();
-        try {
-            m_cms.getRequestContext().setUri(m_currentPageUri);
-            CmsContainerBean containerBean = null;
-            if ((m_standardContext.getPage() != null)
-                && m_standardContext.getPage().getContainers().containsKey(container.getName())) {
-                containerBean = m_standardContext.getPage().getContainers().get(container.getName());
-            } else {
-                containerBean = new CmsContainerBean(
-                    container.getName(),
-                    container.getType(),
-                    container.getMaxElements(),
-                    Collections.<CmsContainerElementBean> emptyList());
-            }
-            if (containerBean.getWidth() == null) {
-                containerBean.setWidth(String.valueOf(container.getWidth()));
-            }
-            m_standardContext.setContainer(containerBean);
-            m_standardContext.setElement(element);
-            m_standardContext.setEdited(true);
-            // to enable 'old' direct edit features for content-collector-elements, 
-            // set the direct-edit-provider-attribute in the request
-            I_CmsDirectEditProvider eb = new CmsAdvancedDirectEditProvider();
-            eb.init(m_cms, CmsDirectEditMode.TRUE, element.getSitePath());
-            m_req.setAttribute(I_CmsDirectEditProvider.ATTRIBUTE_DIRECT_EDIT_PROVIDER, eb);
-            m_req.setAttribute(CmsTemplateContextManager.ATTR_TEMPLATE_BEAN, templateBean);
-            String encoding = m_res.getCharacterEncoding();
-            return (new String(loaderFacade.getLoader().dump(m_cms, loaderRes, null, m_locale, m_req, m_res), encoding)).trim();
-        } finally {
-            m_cms.getRequestContext().setUri(oldUri);
-        }
-    }
-
     /**
      * Helper method for checking whether there are properties defined for a given content element.<p>
      * 
@@ -562,4 +823,70 @@ public class CmsElementUtil {
         Matcher match = removePattern.matcher(input);
         return match.replaceAll("");
     }
+
+    /**
+     * Renders the element contents of the given jobs.<p>
+     * 
+     * If an element render executor is configured for the ADE manager, the jobs are rendered in parallel,
+     * each with its own copy of the cms context, the request attributes and the standard context bean.
+     * Errors are logged and the content of the failed job is omitted, like for sequential rendering.<p>
+     * 
+     * @param jobs the jobs to render
+     */
+    private void renderContents(List<ElementContentJob> jobs) {
+
+        if (jobs.isEmpty()) {
+            return;
+        }
+        CmsADESessionCache sessionCache = CmsADESessionCache.getCache(m_req, m_cms);
+        ExecutorService executor = OpenCms.getADEManager().getElementRenderExecutor();
+        List<Future<String>> futures = null;
+        if ((executor != null) && (jobs.size() > 1)) {
+            futures = new ArrayList<Future<String>>(jobs.size());
+            try {
+                for (ElementContentJob job : jobs) {
+                    job.isolate();
+                    futures.add(executor.submit(job));
+                }
+            } catch (Exception e) {
+                // fall back to sequential rendering
+                LOG.error(e.getLocalizedMessage(), e);
+                for (Future<String> future : futures) {
+                    future.cancel(true);
+                }
+                futures = null;
+            }
+        }
+        if (futures != null) {
+            for (int i = 0; i < jobs.size(); i++) {
+                String content = null;
+                try {
+                    content = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    LOG.error(e.getCause().getLocalizedMessage(), e.getCause());
+                } catch (InterruptedException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                jobs.get(i).setContent(content, sessionCache);
+            }
+            return;
+        }
+        Locale requestLocale = m_cms.getRequestContext().getLocale();
+        m_cms.getRequestContext().setLocale(m_locale);
+        try {
+            for (ElementContentJob job : jobs) {
+                String content = null;
+                try {
+                    content = job.call();
+                } catch (Exception e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+                job.setContent(content, sessionCache);
+            }
+        } finally {
+            m_cms.getRequestContext().setLocale(requestLocale);
+        }
+    }
 }
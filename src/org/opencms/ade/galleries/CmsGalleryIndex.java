@@ -0,0 +1,530 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.galleries;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Index of the gallery folders and the folder tree used by the {@link CmsGalleryService}.<p>
+ *
+ * The index holds the gallery folders of the whole VFS by gallery type, the sub folders of the 
+ * folders shown in the VFS tree and the titles of these folders, separately for the online 
+ * and the offline projects, as read with an administrator context. The permissions and the 
+ * resource filter are checked for every request against the indexed resources.<p>
+ *
+ * The index is maintained from the resource and publish events: only the changed folders, 
+ * the sub folder lists of their parent folders and the gallery lists containing them are removed 
+ * and read again when needed. Moving or deleting a folder removes the whole sub tree.<p>
+ *
+ * @since 8.5.2
+ */
+public final class CmsGalleryIndex implements I_CmsEventListener {
+
+    /**
+     * The indexed folders of either the online or the offline projects.<p>
+     */
+    private static final class CmsProjectIndex {
+
+        /** The gallery folders of the whole VFS by gallery type id. */
+        protected final Map<Integer, List<CmsResource>> m_galleries;
+
+        /** The sub folders by folder root path. */
+        protected final Map<String, List<CmsResource>> m_subFolders;
+
+        /** The titles by folder root path, the empty String if the folder has no title. */
+        protected final Map<String, String> m_titles;
+
+        /**
+         * Creates a new project index.<p>
+         * 
+         * @param name the name used to register the cache maps with the memory monitor
+         */
+        protected CmsProjectIndex(String name) {
+
+            m_galleries = new ConcurrentHashMap<Integer, List<CmsResource>>();
+            Map<String, List<CmsResource>> subFolders = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+            Map<String, String> titles = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+            if (OpenCms.getMemoryMonitor() != null) {
+                // maps must be of type "LRUMap" so that memory monitor can access all information
+                OpenCms.getMemoryMonitor().register(
+                    CmsGalleryIndex.class.getName() + "." + name + ".subfolders",
+                    subFolders);
+                OpenCms.getMemoryMonitor().register(CmsGalleryIndex.class.getName() + "." + name + ".titles", titles);
+            }
+            m_subFolders = Collections.synchronizedMap(subFolders);
+            m_titles = Collections.synchronizedMap(titles);
+        }
+
+        /**
+         * Clears the index.<p>
+         */
+        protected void clear() {
+
+            m_galleries.clear();
+            m_subFolders.clear();
+            m_titles.clear();
+        }
+
+        /**
+         * Removes a changed folder from the index.<p>
+         * 
+         * @param rootPath the root path of the folder
+         * @param structureId the structure id of the folder
+         * @param typeId the type id of the folder
+         * @param subTree <code>true</code> if the folder has been moved or deleted, 
+         *      so the whole sub tree has to be removed
+         */
+        protected void uncache(String rootPath, CmsUUID structureId, int typeId, boolean subTree) {
+
+            String key = getKey(rootPath);
+            m_titles.remove(key);
+            m_subFolders.remove(key);
+            String parentFolder = CmsResource.getParentFolder(rootPath);
+            if (parentFolder != null) {
+                m_subFolders.remove(getKey(parentFolder));
+            }
+            if (subTree) {
+                // the sub tree may contain gallery folders of any type
+                m_galleries.clear();
+                String prefix = CmsFileUtil.addTrailingSeparator(rootPath);
+                removePrefix(m_subFolders, prefix);
+                removePrefix(m_titles, prefix);
+                return;
+            }
+            m_galleries.remove(Integer.valueOf(typeId));
+            // the type of the folder may have changed
+            Iterator<List<CmsResource>> it = m_galleries.values().iterator();
+            while (it.hasNext()) {
+                for (CmsResource gallery : it.next()) {
+                    if (gallery.getStructureId().equals(structureId)) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /** The maximum number of cached sub folder lists and titles. */
+    public static final int CACHE_SIZE = 8192;
+
+    /** The singleton instance, <code>null</code> if not initialized. */
+    private static CmsGalleryIndex m_instance;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsGalleryIndex.class);
+
+    /** The administrator context used for reading. */
+    private CmsObject m_adminCms;
+
+    /** The index for the offline projects. */
+    private CmsProjectIndex m_offline;
+
+    /** The index for the online project. */
+    private CmsProjectIndex m_online;
+
+    /**
+     * Hidden constructor.<p>
+     *
+     * @param adminCms the administrator context used for reading
+     */
+    private CmsGalleryIndex(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+        m_online = new CmsProjectIndex("online");
+        m_offline = new CmsProjectIndex("offline");
+    }
+
+    /**
+     * Returns the gallery index.<p>
+     *
+     * @return the gallery index, or <code>null</code> if the index was not initialized
+     */
+    public static CmsGalleryIndex getInstance() {
+
+        return m_instance;
+    }
+
+    /**
+     * Initializes the gallery index.<p>
+     *
+     * @param adminCms an initialized OpenCms user context with "Administrator" role permissions
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public static void initialize(CmsObject adminCms) throws CmsException {
+
+        CmsObject cms = OpenCms.initCmsObject(adminCms);
+        cms.getRequestContext().setSiteRoot("");
+        CmsGalleryIndex index = new CmsGalleryIndex(cms);
+        OpenCms.addCmsEventListener(index, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+        m_instance = index;
+    }
+
+    /**
+     * Returns the index key for the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the index key
+     */
+    protected static String getKey(String rootPath) {
+
+        return CmsFileUtil.removeTrailingSeparator(rootPath);
+    }
+
+    /**
+     * Removes all entries with a key starting with the given prefix.<p>
+     *
+     * @param map the synchronized map
+     * @param prefix the prefix
+     */
+    protected static void removePrefix(Map<String, ?> map, String prefix) {
+
+        synchronized (map) {
+            Iterator<String> it = map.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().startsWith(prefix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the index.<p>
+     */
+    public void clear() {
+
+        m_online.clear();
+        m_offline.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES:
+                m_offline.clear();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                m_online.clear();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishIdStr == null) {
+                    clear();
+                    break;
+                }
+                try {
+                    List<CmsPublishedResource> publishedResources = m_adminCms.readPublishedResources(new CmsUUID(
+                        publishIdStr));
+                    if (publishedResources.isEmpty()) {
+                        // not a normal publish process, so clear the whole index to be on the safe side
+                        clear();
+                    }
+                    for (CmsPublishedResource res : publishedResources) {
+                        if (res.isFolder()) {
+                            // the state of the offline folders changes as well
+                            boolean subTree = res.isMoved() || res.getState().isDeleted();
+                            uncache(res.getRootPath(), res.getStructureId(), res.getType(), subTree);
+                        }
+                    }
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                    clear();
+                }
+                break;
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+                if (resource instanceof CmsResource) {
+                    uncache((CmsResource)resource, false);
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                boolean subTree = (event.getType() == I_CmsEventListener.EVENT_RESOURCE_DELETED)
+                    || (event.getType() == I_CmsEventListener.EVENT_RESOURCE_MOVED);
+                List<CmsResource> resources = CmsCollectionsGenericWrapper.list(event.getData().get(
+                    I_CmsEventListener.KEY_RESOURCES));
+                if (resources != null) {
+                    for (CmsResource res : resources) {
+                        uncache(res, subTree);
+                    }
+                }
+                break;
+            default:
+                // noop
+                break;
+        }
+    }
+
+    /**
+     * Returns the gallery folders of the given type below the given folder, 
+     * filtered for the user of the given context.<p>
+     * 
+     * The result is the same as reading the resources of the folder sub tree with the filter 
+     * {@link CmsResourceFilter#ONLY_VISIBLE_NO_DELETED} and the gallery type required.<p>
+     * 
+     * @param cms the current users context
+     * @param galleryTypeId the type id of the galleries
+     * @param folder the site path of the folder to read the galleries from
+     * 
+     * @return the gallery folders
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getGalleries(CmsObject cms, int galleryTypeId, String folder) throws CmsException {
+
+        CmsProjectIndex index = getIndex(cms);
+        List<CmsResource> galleries = index.m_galleries.get(Integer.valueOf(galleryTypeId));
+        if (galleries == null) {
+            CmsObject adminCms = getAdminCms(cms);
+            galleries = Collections.unmodifiableList(adminCms.readResources(
+                "/",
+                CmsResourceFilter.ALL.addRequireType(galleryTypeId)));
+            cacheTitles(adminCms, index, galleries);
+            index.m_galleries.put(Integer.valueOf(galleryTypeId), galleries);
+        }
+        // make sure the folder exists and can be read by the user
+        CmsResource parent = cms.readResource(folder, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+        String prefix = CmsFileUtil.addTrailingSeparator(parent.getRootPath());
+        return filter(cms, galleries, prefix, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+    }
+
+    /**
+     * Returns the sub folders of the given folder, filtered for the user of the given context.<p>
+     * 
+     * @param cms the current users context
+     * @param folder the folder
+     * @param filter the resource filter
+     * 
+     * @return the sub folders
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getSubFolders(CmsObject cms, CmsResource folder, CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsProjectIndex index = getIndex(cms);
+        String key = getKey(folder.getRootPath());
+        List<CmsResource> subFolders = index.m_subFolders.get(key);
+        if (subFolders == null) {
+            CmsObject adminCms = getAdminCms(cms);
+            subFolders = Collections.unmodifiableList(new ArrayList<CmsResource>(adminCms.getSubFolders(
+                folder.getRootPath(),
+                CmsResourceFilter.ALL)));
+            cacheTitles(adminCms, index, subFolders);
+            index.m_subFolders.put(key, subFolders);
+        }
+        return filter(cms, subFolders, null, filter);
+    }
+
+    /**
+     * Returns the title of the given folder, not searching the parent folders.<p>
+     * 
+     * @param cms the current users context
+     * @param folder the folder
+     * 
+     * @return the title, or <code>null</code> if the folder has no title
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public String getTitle(CmsObject cms, CmsResource folder) throws CmsException {
+
+        CmsProjectIndex index = getIndex(cms);
+        String key = getKey(folder.getRootPath());
+        String title = index.m_titles.get(key);
+        if (title == null) {
+            title = getAdminCms(cms).readPropertyObject(folder, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue(
+                "");
+            index.m_titles.put(key, title);
+        }
+        return (title.length() > 0) ? title : null;
+    }
+
+    /**
+     * Reads and caches the titles of the given folders.<p>
+     * 
+     * @param adminCms the administrator context to read the titles with
+     * @param index the index to cache the titles in
+     * @param folders the folders
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private void cacheTitles(CmsObject adminCms, CmsProjectIndex index, List<CmsResource> folders)
+    throws CmsException {
+
+        if (folders.isEmpty()) {
+            return;
+        }
+        Map<CmsUUID, List<CmsProperty>> properties = adminCms.readPropertyObjects(folders);
+        for (CmsResource folder : folders) {
+            List<CmsProperty> folderProperties = properties.get(folder.getStructureId());
+            String title = "";
+            if (folderProperties != null) {
+                title = CmsProperty.get(CmsPropertyDefinition.PROPERTY_TITLE, folderProperties).getValue("");
+            }
+            index.m_titles.put(getKey(folder.getRootPath()), title);
+        }
+    }
+
+    /**
+     * Filters the given indexed resources for the user of the given context.<p>
+     * 
+     * @param cms the current users context
+     * @param resources the indexed resources
+     * @param prefix the root path prefix of the resources to return, or <code>null</code> for all resources
+     * @param filter the resource filter
+     * 
+     * @return the filtered resources
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsResource> filter(
+        CmsObject cms,
+        List<CmsResource> resources,
+        String prefix,
+        CmsResourceFilter filter) throws CmsException {
+
+        CmsRequestContext context = cms.getRequestContext();
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            if (((prefix == null) || resource.getRootPath().startsWith(prefix))
+                && filter.isValid(context, resource)
+                && cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, filter)) {
+                result.add(resource);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an administrator context in the project of the given context and the root site.<p>
+     * 
+     * @param cms the current users context
+     * 
+     * @return the administrator context
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private CmsObject getAdminCms(CmsObject cms) throws CmsException {
+
+        CmsObject adminCms = OpenCms.initCmsObject(m_adminCms);
+        adminCms.getRequestContext().setCurrentProject(cms.getRequestContext().getCurrentProject());
+        adminCms.getRequestContext().setSiteRoot("");
+        return adminCms;
+    }
+
+    /**
+     * Returns the index for the project of the given context.<p>
+     * 
+     * @param cms the current users context
+     * 
+     * @return the index for the project
+     */
+    private CmsProjectIndex getIndex(CmsObject cms) {
+
+        CmsProject project = cms.getRequestContext().getCurrentProject();
+        return project.isOnlineProject() ? m_online : m_offline;
+    }
+
+    /**
+     * Removes a changed resource from the index.<p>
+     * 
+     * @param resource the changed resource
+     * @param subTree <code>true</code> if the resource has been moved or deleted
+     */
+    private void uncache(CmsResource resource, boolean subTree) {
+
+        if (resource.isFolder()) {
+            uncache(resource.getRootPath(), resource.getStructureId(), resource.getTypeId(), subTree);
+        }
+    }
+
+    /**
+     * Removes a changed folder from the online and the offline index.<p>
+     * 
+     * @param rootPath the root path of the folder
+     * @param structureId the structure id of the folder
+     * @param typeId the type id of the folder
+     * @param subTree <code>true</code> if the folder has been moved or deleted
+     */
+    private void uncache(String rootPath, CmsUUID structureId, int typeId, boolean subTree) {
+
+        m_online.uncache(rootPath, structureId, typeId, subTree);
+        m_offline.uncache(rootPath, structureId, typeId, subTree);
+    }
+}
@@ -745,11 +745,15 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
             List<CmsVfsEntryBean> result = new ArrayList<CmsVfsEntryBean>();
             if (cms.existsResource(rootPath, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED)) {
                 CmsResource resource = cms.readResource(rootPath, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
-                List<CmsResource> resources = cms.getSubFolders(
+                CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+                List<CmsResource> resources = (index != null) ? index.getSubFolders(
+                    cms,
+                    resource,
+                    CmsResourceFilter.ONLY_VISIBLE_NO_DELETED) : cms.getSubFolders(
                     resource.getRootPath(),
                     CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
                 for (CmsResource res : resources) {
-                    String title = cms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue();
+                    String title = readTitle(cms, res);
                     result.add(internalCreateVfsEntryBean(
                         res.getRootPath(),
                         res.getStructureId(),
@@ -1144,8 +1148,10 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
                 String title = "";
                 try {
                     // read the gallery title
-                    title = getCmsObject().readPropertyObject(sitePath, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue(
-                        "");
+                    title = readTitle(getCmsObject(), res);
+                    if (title == null) {
+                        title = "";
+                    }
                 } catch (CmsException e) {
                     // error reading title property
                     logError(e);
@@ -1288,13 +1294,16 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
                 CmsListInfoBean.CSS_CLASS_MULTI_LINE);
         }
         if (type instanceof CmsResourceTypeImage) {
-            CmsProperty imageDimensionProp = cms.readPropertyObject(
-                resultResource,
-                CmsPropertyDefinition.PROPERTY_IMAGE_SIZE,
-                false);
-            if (!imageDimensionProp.isNullProperty()) {
-                String dimensions = imageDimensionProp.getValue();
-                dimensions = dimensions.substring(2).replace(",h:", " x ");
+            // the image size is stored in the gallery index, only indexes created with older versions don't have it
+            String imageSize = sResult.getAdditonalInfo();
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(imageSize) || !imageSize.startsWith("w:")) {
+                imageSize = cms.readPropertyObject(
+                    resultResource,
+                    CmsPropertyDefinition.PROPERTY_IMAGE_SIZE,
+                    false).getValue();
+            }
+            if (imageSize != null) {
+                String dimensions = imageSize.substring(2).replace(",h:", " x ");
                 bean.setDimension(dimensions);
                 bean.addAdditionalInfo(
                     Messages.get().getBundle(getWorkplaceLocale()).key(Messages.GUI_RESULT_LABEL_DIMENSION_0),
@@ -1560,18 +1569,14 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
     private List<CmsResource> getGalleriesByType(int galleryTypeId) throws CmsException {
 
         List<CmsResource> galleries = new ArrayList<CmsResource>();
-        galleries = getCmsObject().readResources(
-            "/",
-            CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
+        galleries = readGalleries("/", galleryTypeId);
 
         String siteRoot = getCmsObject().getRequestContext().getSiteRoot();
         // if the current site is NOT the root site - add all other galleries from the system path
         if (!siteRoot.equals("")) {
             List<CmsResource> systemGalleries = null;
             // get the galleries in the /system/ folder
-            systemGalleries = getCmsObject().readResources(
-                CmsWorkplace.VFS_PATH_SYSTEM,
-                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
+            systemGalleries = readGalleries(CmsWorkplace.VFS_PATH_SYSTEM, galleryTypeId);
             if (systemGalleries != null) {
                 // add the found system galleries to the result
                 galleries.addAll(systemGalleries);
@@ -1580,9 +1585,7 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
 
         if (!OpenCms.getSiteManager().isSharedFolder(siteRoot)) {
             String shared = OpenCms.getSiteManager().getSharedFolder();
-            List<CmsResource> sharedGalleries = getCmsObject().readResources(
-                shared,
-                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
+            List<CmsResource> sharedGalleries = readGalleries(shared, galleryTypeId);
             if (sharedGalleries != null) {
                 galleries.addAll(sharedGalleries);
             }
@@ -1944,6 +1947,27 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
         return result;
     }
 
+    /**
+     * Reads the visible gallery folders of the given type below the given folder.<p>
+     * 
+     * @param folder the site path of the folder to read the galleries from
+     * @param galleryTypeId the type id of the galleries
+     * 
+     * @return the gallery folders
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsResource> readGalleries(String folder, int galleryTypeId) throws CmsException {
+
+        CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+        if (index != null) {
+            return index.getGalleries(getCmsObject(), galleryTypeId, folder);
+        }
+        return getCmsObject().readResources(
+            folder,
+            CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
+    }
+
     /**
      * Returns a map with gallery type names associated with the list of available galleries for this type.<p>
      * 
@@ -2009,6 +2033,25 @@ public class CmsGalleryService extends CmsGwtService implements I_CmsGalleryServ
         return result;
     }
 
+    /**
+     * Reads the title of a folder, not searching the parent folders.<p>
+     * 
+     * @param cms the current CMS context
+     * @param folder the folder
+     * 
+     * @return the title, or <code>null</code> if the folder has no title
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private String readTitle(CmsObject cms, CmsResource folder) throws CmsException {
+
+        CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+        if (index != null) {
+            return index.getTitle(cms, folder);
+        }
+        return cms.readPropertyObject(folder, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue();
+    }
+
     /**
      * Returns the gallery search object containing the results for the current parameter.<p>
      * 
@@ -50,7 +50,7 @@ import org.opencms.relations.CmsRelation;
 import org.opencms.relations.CmsRelationFilter;
 import org.opencms.relations.CmsRelationPublishValidator;
 import org.opencms.relations.CmsRelationValidatorInfoEntry;
-import org.opencms.report.CmsHtmlReport;
+import org.opencms.report.CmsRingBufferReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsPermissionSet;
@@ -454,7 +454,7 @@ public class CmsPublish {
     public void publishResources(List<CmsResource> resources) throws CmsException {
 
         CmsObject cms = m_cms;
-        I_CmsReport report = new CmsHtmlReport(
+        I_CmsReport report = new CmsRingBufferReport(
             cms.getRequestContext().getLocale(),
             cms.getRequestContext().getSiteRoot());
         CmsPublishManager publishManager = OpenCms.getPublishManager();
@@ -0,0 +1,351 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.sitemap;
+
+import org.opencms.ade.sitemap.shared.CmsClientSitemapEntry;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.jsp.CmsJspNavElement;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsFileUtil;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Cache for the sitemap entries of the folders shown in the sitemap editor.<p>
+ *
+ * A cached level holds the navigation elements of a folder together with the default files of the
+ * child folders, and the client entries of the children once they have been created. Levels are cached
+ * per offline project, user and locale, and are removed when a resource in the folder, a default file
+ * of a child folder, or the folder itself is changed. Everything is removed after a publish.<p>
+ *
+ * The lock state and the aliases of the entries are not cached, since these change without events.<p>
+ *
+ * @since 8.5.2
+ */
+public final class CmsSitemapTreeCache implements I_CmsEventListener {
+
+    /**
+     * A cached sitemap level.<p>
+     */
+    public static class Level {
+
+        /** The default files of the child folders, <code>null</code> for files or folders without default file. */
+        private final CmsResource[] m_defaultFiles;
+
+        /** The client entries of the children, <code>null</code> if not yet created. */
+        private final CmsClientSitemapEntry[] m_entries;
+
+        /** The navigation elements of the children. */
+        private final List<CmsJspNavElement> m_navElements;
+
+        /** The default file of the folder itself. */
+        private final CmsResource m_ownDefaultFile;
+
+        /**
+         * Creates a new level.<p>
+         *
+         * @param navElements the navigation elements of the children
+         * @param defaultFiles the default files of the child folders
+         * @param ownDefaultFile the default file of the folder itself, may be <code>null</code>
+         */
+        public Level(List<CmsJspNavElement> navElements, CmsResource[] defaultFiles, CmsResource ownDefaultFile) {
+
+            m_navElements = navElements;
+            m_defaultFiles = defaultFiles;
+            m_ownDefaultFile = ownDefaultFile;
+            m_entries = new CmsClientSitemapEntry[navElements.size()];
+        }
+
+        /**
+         * Returns the default file of the child at the given position.<p>
+         *
+         * @param index the position of the child
+         *
+         * @return the default file, or <code>null</code>
+         */
+        public CmsResource getDefaultFile(int index) {
+
+            return m_defaultFiles[index];
+        }
+
+        /**
+         * Returns a copy of the cached client entry of the child at the given position.<p>
+         *
+         * @param index the position of the child
+         *
+         * @return the client entry, or <code>null</code> if not yet created
+         */
+        public synchronized CmsClientSitemapEntry getEntry(int index) {
+
+            CmsClientSitemapEntry entry = m_entries[index];
+            return (entry != null) ? new CmsClientSitemapEntry(entry) : null;
+        }
+
+        /**
+         * Returns the navigation element of the child at the given position.<p>
+         *
+         * @param index the position of the child
+         *
+         * @return the navigation element
+         */
+        public CmsJspNavElement getNavElement(int index) {
+
+            return m_navElements.get(index);
+        }
+
+        /**
+         * Returns the default file of the folder itself.<p>
+         *
+         * @return the default file, or <code>null</code>
+         */
+        public CmsResource getOwnDefaultFile() {
+
+            return m_ownDefaultFile;
+        }
+
+        /**
+         * Stores a copy of the client entry of the child at the given position.<p>
+         *
+         * @param index the position of the child
+         * @param entry the client entry
+         */
+        public synchronized void setEntry(int index, CmsClientSitemapEntry entry) {
+
+            m_entries[index] = new CmsClientSitemapEntry(entry);
+        }
+
+        /**
+         * Returns the number of children.<p>
+         *
+         * @return the number of children
+         */
+        public int size() {
+
+            return m_navElements.size();
+        }
+    }
+
+    /** The maximum number of cached levels. */
+    public static final int CACHE_SIZE = 1024;
+
+    /** Separates the folder path from the rest of the cache key. */
+    private static final char KEY_SEPARATOR = '|';
+
+    /** The cached levels by key. */
+    private Map<String, Level> m_levels;
+
+    /**
+     * Creates a new sitemap tree cache.<p>
+     *
+     * @param memMonitor the memory monitor instance, may be <code>null</code>
+     */
+    public CmsSitemapTreeCache(CmsMemoryMonitor memMonitor) {
+
+        Map<String, Level> levels = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+        if (memMonitor != null) {
+            // map must be of type "LRUMap" so that memory monitor can access all information
+            memMonitor.register(CmsSitemapTreeCache.class.getName() + ".levels", levels);
+        }
+        m_levels = Collections.synchronizedMap(levels);
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+    }
+
+    /**
+     * Returns the cache key for the given folder and context.<p>
+     *
+     * @param cms the current CMS context
+     * @param folderRootPath the root path of the folder
+     * @param workplaceLocale the workplace locale
+     *
+     * @return the cache key
+     */
+    private static String getKey(CmsObject cms, String folderRootPath, Locale workplaceLocale) {
+
+        CmsRequestContext context = cms.getRequestContext();
+        StringBuffer key = new StringBuffer(128);
+        key.append(CmsFileUtil.addTrailingSeparator(folderRootPath));
+        key.append(KEY_SEPARATOR).append(context.getCurrentProject().getUuid());
+        key.append(KEY_SEPARATOR).append(context.getCurrentUser().getId());
+        key.append(KEY_SEPARATOR).append(workplaceLocale);
+        key.append(KEY_SEPARATOR).append(context.getLocale());
+        return key.toString();
+    }
+
+    /**
+     * Removes all cached levels.<p>
+     */
+    public void clear() {
+
+        m_levels.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+                if (resource instanceof CmsResource) {
+                    uncache((CmsResource)resource);
+                } else {
+                    clear();
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                List<CmsResource> resources = CmsCollectionsGenericWrapper.list(event.getData().get(
+                    I_CmsEventListener.KEY_RESOURCES));
+                if (resources != null) {
+                    for (CmsResource res : resources) {
+                        uncache(res);
+                    }
+                } else {
+                    clear();
+                }
+                break;
+            default:
+                // clear caches and publish events, publishing changes the state of the resources
+                clear();
+                break;
+        }
+    }
+
+    /**
+     * Returns the cached level for the given folder, or <code>null</code> if the level is not cached.<p>
+     *
+     * @param cms the current CMS context
+     * @param folderRootPath the root path of the folder
+     * @param workplaceLocale the workplace locale
+     *
+     * @return the cached level, or <code>null</code>
+     */
+    public Level getLevel(CmsObject cms, String folderRootPath, Locale workplaceLocale) {
+
+        if (!isCacheable(cms)) {
+            return null;
+        }
+        return m_levels.get(getKey(cms, folderRootPath, workplaceLocale));
+    }
+
+    /**
+     * Checks if levels are cached for the given context.<p>
+     *
+     * @param cms the current CMS context
+     *
+     * @return <code>true</code> if levels are cached for the given context
+     */
+    public boolean isCacheable(CmsObject cms) {
+
+        return !cms.getRequestContext().getCurrentProject().isOnlineProject();
+    }
+
+    /**
+     * Caches the level for the given folder.<p>
+     *
+     * @param cms the current CMS context
+     * @param folderRootPath the root path of the folder
+     * @param workplaceLocale the workplace locale
+     * @param level the level to cache
+     */
+    public void putLevel(CmsObject cms, String folderRootPath, Locale workplaceLocale, Level level) {
+
+        if (isCacheable(cms)) {
+            m_levels.put(getKey(cms, folderRootPath, workplaceLocale), level);
+        }
+    }
+
+    /**
+     * Removes all cached levels whose key starts with the given prefix.<p>
+     *
+     * @param prefix the prefix
+     */
+    private void removePrefix(String prefix) {
+
+        synchronized (m_levels) {
+            Iterator<String> it = m_levels.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().startsWith(prefix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the levels affected by a change of the given resource.<p>
+     *
+     * These are the levels of the parent folder, which contains the entry of the resource, of the
+     * grand parent folder, which contains the entry of the parent folder if the resource is its
+     * default file, and all levels in the sub tree of a folder.<p>
+     *
+     * @param resource the changed resource
+     */
+    private void uncache(CmsResource resource) {
+
+        String rootPath = resource.getRootPath();
+        String parentFolder = CmsResource.getParentFolder(rootPath);
+        if (parentFolder != null) {
+            removePrefix(parentFolder + KEY_SEPARATOR);
+            String grandParentFolder = CmsResource.getParentFolder(parentFolder);
+            if (grandParentFolder != null) {
+                removePrefix(grandParentFolder + KEY_SEPARATOR);
+            }
+        }
+        if (resource.isFolder()) {
+            removePrefix(CmsFileUtil.addTrailingSeparator(rootPath));
+        }
+    }
+}
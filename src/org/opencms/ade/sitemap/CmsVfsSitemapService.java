@@ -376,6 +376,38 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return entry;
     }
 
+    /**
+     * @see org.opencms.ade.sitemap.shared.rpc.I_CmsSitemapService#getChildrenWindow(java.lang.String, org.opencms.util.CmsUUID, int, int)
+     */
+    public CmsClientSitemapEntry getChildrenWindow(String entryPointUri, CmsUUID entryId, int start, int count)
+    throws CmsRpcException {
+
+        CmsClientSitemapEntry entry = null;
+
+        try {
+            CmsObject cms = getCmsObject();
+            CmsResource rootRes = cms.readResource(entryId, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            String root = cms.getSitePath(rootRes);
+            CmsJspNavElement navElement = getNavBuilder().getNavigationForResource(
+                root,
+                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            boolean isRoot = root.equals(entryPointUri);
+            entry = toClientEntry(navElement, isRoot);
+            if (isRoot || (rootRes.isFolder() && (!isSubSitemap(navElement)))) {
+                CmsSitemapTreeCache.Level level = getLevel(root);
+                int end = Math.min(level.size(), Math.max(0, start) + Math.max(0, count));
+                List<CmsClientSitemapEntry> children = getLevelEntries(level, start, end, getSiteAliases());
+                for (CmsClientSitemapEntry child : children) {
+                    child.setChildrenLoadedInitially(false);
+                }
+                entry.setSubEntries(children, null);
+            }
+        } catch (Throwable e) {
+            error(e);
+        }
+        return entry;
+    }
+
     /**
      * @see org.opencms.ade.sitemap.shared.rpc.I_CmsSitemapService#mergeSubSitemap(java.lang.String, org.opencms.util.CmsUUID)
      */
@@ -1587,26 +1619,44 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
      */
     private List<CmsClientSitemapEntry> getChildren(String root, int levels, String targetPath) throws CmsException {
 
-        List<CmsClientSitemapEntry> children = new ArrayList<CmsClientSitemapEntry>();
-        int i = 0;
-        for (CmsJspNavElement navElement : getNavBuilder().getNavigationForFolder(
-            root,
-            Visibility.all,
-            CmsResourceFilter.ONLY_VISIBLE_NO_DELETED)) {
-            CmsClientSitemapEntry child = toClientEntry(navElement, false);
-            if (child != null) {
-                child.setPosition(i);
-                children.add(child);
-                int nextLevels = levels;
-                if ((nextLevels == 2) && (targetPath != null) && targetPath.startsWith(child.getSitePath())) {
-                    nextLevels = 3;
-                }
-                if (child.isFolderType() && ((nextLevels > 1) || (nextLevels == -1)) && !isSubSitemap(navElement)) {
+        return getChildren(root, levels, targetPath, getSiteAliases());
+    }
 
-                    child.setSubEntries(getChildren(child.getSitePath(), nextLevels - 1, targetPath), null);
-                    child.setChildrenLoadedInitially(true);
-                }
-                i++;
+    /**
+     * Returns the sitemap children for the given path with all descendants up to the given level or to the given target path.<p>
+     *
+     * The resources, default files and client entries of every level are read at once and cached
+     * until a resource of the level is changed.<p>
+     *
+     * @param root the site relative root
+     * @param levels the levels to recurse
+     * @param targetPath the target path
+     * @param aliases the alias paths of the site by structure id
+     *
+     * @return the sitemap children
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsClientSitemapEntry> getChildren(
+        String root,
+        int levels,
+        String targetPath,
+        Map<CmsUUID, List<String>> aliases) throws CmsException {
+
+        CmsSitemapTreeCache.Level level = getLevel(root);
+        List<CmsClientSitemapEntry> children = getLevelEntries(level, 0, level.size(), aliases);
+        for (int i = 0; i < children.size(); i++) {
+            CmsClientSitemapEntry child = children.get(i);
+            int nextLevels = levels;
+            if ((nextLevels == 2) && (targetPath != null) && targetPath.startsWith(child.getSitePath())) {
+                nextLevels = 3;
+            }
+            if (child.isFolderType()
+                && ((nextLevels > 1) || (nextLevels == -1))
+                && !isSubSitemap(level.getNavElement(i))) {
+
+                child.setSubEntries(getChildren(child.getSitePath(), nextLevels - 1, targetPath, aliases), null);
+                child.setChildrenLoadedInitially(true);
             }
         }
         return children;
@@ -1707,6 +1757,81 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         }
     }
 
+    /**
+     * Returns the sitemap level of the given folder, from the cache if possible.<p>
+     *
+     * @param folderSitePath the site path of the folder
+     *
+     * @return the sitemap level
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private CmsSitemapTreeCache.Level getLevel(String folderSitePath) throws CmsException {
+
+        CmsObject cms = getCmsObject();
+        CmsSitemapTreeCache cache = OpenCms.getADEManager().getSitemapTreeCache();
+        String folderRootPath = cms.getRequestContext().addSiteRoot(folderSitePath);
+        Locale workplaceLocale = getWorkplaceLocale();
+        CmsSitemapTreeCache.Level level = cache.getLevel(cms, folderRootPath, workplaceLocale);
+        if (level == null) {
+            List<CmsJspNavElement> navElements = getNavBuilder().getNavigationForFolder(
+                folderSitePath,
+                Visibility.all,
+                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            CmsResource[] defaultFiles = new CmsResource[navElements.size()];
+            for (int i = 0; i < defaultFiles.length; i++) {
+                CmsJspNavElement navElement = navElements.get(i);
+                CmsResource resource = navElement.getResource();
+                if (resource.isFolder() && !navElement.isNavigationLevel()) {
+                    defaultFiles[i] = cms.readDefaultFile(resource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+                }
+            }
+            CmsResource folder = cms.readResource(folderSitePath, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            CmsResource ownDefaultFile = cms.readDefaultFile(folder, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+            level = new CmsSitemapTreeCache.Level(navElements, defaultFiles, ownDefaultFile);
+            cache.putLevel(cms, folderRootPath, workplaceLocale, level);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the client entries for the children of a sitemap level in the given range.<p>
+     *
+     * The client entries are created only once per cached level, while the lock state and the aliases
+     * are always updated.<p>
+     *
+     * @param level the sitemap level
+     * @param start the position of the first child
+     * @param end the position after the last child
+     * @param aliases the alias paths of the site by structure id
+     *
+     * @return the client entries
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsClientSitemapEntry> getLevelEntries(
+        CmsSitemapTreeCache.Level level,
+        int start,
+        int end,
+        Map<CmsUUID, List<String>> aliases) throws CmsException {
+
+        List<CmsClientSitemapEntry> entries = new ArrayList<CmsClientSitemapEntry>();
+        for (int i = Math.max(0, start); i < end; i++) {
+            CmsJspNavElement navElement = level.getNavElement(i);
+            CmsResource resource = navElement.getResource();
+            CmsClientSitemapEntry entry = level.getEntry(i);
+            if (entry == null) {
+                boolean isDefault = resource.isFile() && resource.equals(level.getOwnDefaultFile());
+                entry = toClientEntry(navElement, false, level.getDefaultFile(i), isDefault);
+                level.setEntry(i, entry);
+            }
+            updateLockAndAliases(entry, resource, level.getDefaultFile(i), aliases);
+            entry.setPosition(i);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
     /**
      * Returns the modified list from the current user.<p>
      *
@@ -1906,6 +2031,33 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return result;
     }
 
+    /**
+     * Reads the aliases of the current site.<p>
+     *
+     * @return the sorted alias paths by structure id
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private Map<CmsUUID, List<String>> getSiteAliases() throws CmsException {
+
+        CmsObject cms = getCmsObject();
+        Map<CmsUUID, List<String>> result = new HashMap<CmsUUID, List<String>>();
+        for (CmsAlias alias : OpenCms.getAliasManager().getAliasesForSite(
+            cms,
+            cms.getRequestContext().getSiteRoot())) {
+            List<String> aliasPaths = result.get(alias.getStructureId());
+            if (aliasPaths == null) {
+                aliasPaths = new ArrayList<String>();
+                result.put(alias.getStructureId(), aliasPaths);
+            }
+            aliasPaths.add(alias.getAliasPath());
+        }
+        for (List<String> aliasPaths : result.values()) {
+            Collections.sort(aliasPaths);
+        }
+        return result;
+    }
+
     /**
      * Returns the sitemap info for the given base path.<p>
      *
@@ -2350,6 +2502,39 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
      */
     private CmsClientSitemapEntry toClientEntry(CmsJspNavElement navElement, boolean isRoot) throws CmsException {
 
+        CmsResource ownResource = navElement.getResource();
+        CmsResource defaultFileResource = null;
+        if (ownResource.isFolder() && !navElement.isNavigationLevel()) {
+            defaultFileResource = getCmsObject().readDefaultFile(
+                ownResource,
+                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+        }
+        CmsClientSitemapEntry clientEntry = toClientEntry(
+            navElement,
+            isRoot,
+            defaultFileResource,
+            isDefaultFile(ownResource));
+        updateLockAndAliases(clientEntry, ownResource, defaultFileResource, null);
+        return clientEntry;
+    }
+
+    /**
+     * Converts a jsp navigation element into a client sitemap entry, without the lock state and the aliases.<p>
+     *
+     * @param navElement the jsp navigation element
+     * @param isRoot true if the entry is a root entry
+     * @param defaultFileResource the default file of the folder, or <code>null</code>
+     * @param isDefault true if the resource is the default file of its parent folder
+     *
+     * @return the client sitemap entry
+     * @throws CmsException if something goes wrong
+     */
+    private CmsClientSitemapEntry toClientEntry(
+        CmsJspNavElement navElement,
+        boolean isRoot,
+        CmsResource defaultFileResource,
+        boolean isDefault) throws CmsException {
+
         CmsResource entryPage = null;
         CmsObject cms = getCmsObject();
         CmsClientSitemapEntry clientEntry = new CmsClientSitemapEntry();
@@ -2357,10 +2542,6 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
 
         CmsResource ownResource = navElement.getResource();
         clientEntry.setResourceState(ownResource.getState());
-        CmsResource defaultFileResource = null;
-        if (ownResource.isFolder() && !navElement.isNavigationLevel()) {
-            defaultFileResource = cms.readDefaultFile(ownResource, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
-        }
 
         Map<String, CmsClientProperty> ownProps = getClientProperties(cms, ownResource, false);
 
@@ -2372,7 +2553,6 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         } else {
             defaultFileProps = new HashMap<String, CmsClientProperty>();
         }
-        boolean isDefault = isDefaultFile(ownResource);
         clientEntry.setId(ownResource.getStructureId());
         clientEntry.setFolderDefaultPage(isDefault);
         if (navElement.getResource().isFolder()) {
@@ -2388,13 +2568,6 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
             } else if (navElement.isNavigationLevel()) {
                 clientEntry.setEntryType(EntryType.navigationLevel);
             }
-            CmsLock folderLock = cms.getLock(entryFolder);
-            clientEntry.setHasForeignFolderLock(!folderLock.isUnlocked()
-                && !folderLock.isOwnedBy(cms.getRequestContext().getCurrentUser()));
-            if (!cms.getRequestContext().getCurrentProject().isOnlineProject()) {
-                List<CmsResource> blockingChildren = cms.getBlockingLockedResources(entryFolder);
-                clientEntry.setBlockingLockedChildren((blockingChildren != null) && !blockingChildren.isEmpty());
-            }
         } else {
             entryPage = navElement.getResource();
             clientEntry.setName(entryPage.getName());
@@ -2412,19 +2585,6 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
                 clientEntry.setEntryType(EntryType.leaf);
             }
         }
-        if (entryPage.isFile()) {
-            List<CmsAlias> aliases = OpenCms.getAliasManager().getAliasesForStructureId(
-                getCmsObject(),
-                entryPage.getStructureId());
-            if (!aliases.isEmpty()) {
-                List<String> aliasList = new ArrayList<String>();
-                for (CmsAlias alias : aliases) {
-                    String aliasPath = alias.getAliasPath();
-                    aliasList.add(aliasPath);
-                }
-                clientEntry.setAliases(aliasList);
-            }
-        }
         long dateExpired = navElement.getResource().getDateExpired();
         if (dateExpired != CmsResource.DATE_EXPIRED_DEFAULT) {
             clientEntry.setDateExpired(CmsDateUtil.getDate(
@@ -2446,7 +2606,6 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         clientEntry.setOwnProperties(ownProps);
         clientEntry.setDefaultFileProperties(defaultFileProps);
         clientEntry.setSitePath(entryFolder != null ? cms.getSitePath(entryFolder) : path);
-        clientEntry.setLock(generateClientLock(entryPage));
         clientEntry.setInNavigation(isRoot || navElement.isInNavigation());
         String type = OpenCms.getResourceManager().getResourceType(ownResource).getTypeName();
         clientEntry.setResourceTypeName(type);
@@ -2483,6 +2642,56 @@ public class CmsVfsSitemapService extends CmsGwtService implements I_CmsSitemapS
         return change;
     }
 
+    /**
+     * Sets the lock state and the aliases of a client sitemap entry.<p>
+     *
+     * @param clientEntry the client sitemap entry
+     * @param ownResource the resource of the entry
+     * @param defaultFileResource the default file of the folder, or <code>null</code>
+     * @param aliases the alias paths of the site by structure id, or <code>null</code> to read the aliases of the entry
+     *
+     * @throws CmsException if something goes wrong
+     */
+    private void updateLockAndAliases(
+        CmsClientSitemapEntry clientEntry,
+        CmsResource ownResource,
+        CmsResource defaultFileResource,
+        Map<CmsUUID, List<String>> aliases) throws CmsException {
+
+        CmsObject cms = getCmsObject();
+        CmsResource entryPage = ownResource;
+        if (ownResource.isFolder()) {
+            if (defaultFileResource != null) {
+                entryPage = defaultFileResource;
+            }
+            CmsLock folderLock = cms.getLock(ownResource);
+            clientEntry.setHasForeignFolderLock(!folderLock.isUnlocked()
+                && !folderLock.isOwnedBy(cms.getRequestContext().getCurrentUser()));
+            if (!cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+                List<CmsResource> blockingChildren = cms.getBlockingLockedResources(ownResource);
+                clientEntry.setBlockingLockedChildren((blockingChildren != null) && !blockingChildren.isEmpty());
+            }
+        }
+        if (entryPage.isFile()) {
+            List<String> aliasList = null;
+            if (aliases != null) {
+                aliasList = aliases.get(entryPage.getStructureId());
+            } else {
+                List<CmsAlias> entryAliases = OpenCms.getAliasManager().getAliasesForStructureId(
+                    cms,
+                    entryPage.getStructureId());
+                if (!entryAliases.isEmpty()) {
+                    aliasList = new ArrayList<String>();
+                    for (CmsAlias alias : entryAliases) {
+                        aliasList.add(alias.getAliasPath());
+                    }
+                }
+            }
+            clientEntry.setAliases(aliasList != null ? new ArrayList<String>(aliasList) : null);
+        }
+        clientEntry.setLock(generateClientLock(entryPage));
+    }
+
     /**
      * Updates the navigation position for a resource.<p>
      *
@@ -1057,10 +1057,11 @@ public class CmsClientSitemapEntry implements IsSerializable {
             // are not displayed correctly in the sitemap editor.
             setDetailpageTypeName(source.getDetailpageTypeName());
         }
+        // the entry type must be set first, since the site path of folder types ends with a slash
+        setEntryType(source.getEntryType());
         setSitePath(source.getSitePath());
         setVfsPath(source.getVfsPath());
         setLock(source.getLock());
-        setEntryType(source.getEntryType());
         setInNavigation(source.isInNavigation());
         setHasForeignFolderLock(source.hasForeignFolderLock());
         setBlockingLockedChildren(source.hasBlockingLockedChildren());
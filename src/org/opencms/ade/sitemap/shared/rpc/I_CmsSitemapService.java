@@ -99,6 +99,24 @@ public interface I_CmsSitemapService extends RemoteService {
      */
     CmsClientSitemapEntry getChildren(String entryPointUri, CmsUUID entryId, int levels) throws CmsRpcException;
 
+    /**
+     * Returns the given entry with a window of its direct children.<p>
+     * 
+     * The children of the returned children are not loaded. If less than <code>count</code> 
+     * children are returned, there are no further children.<p>
+     * 
+     * @param entryPointUri the URI of the sitemap entry point
+     * @param entryId the entry id
+     * @param start the position of the first child to return
+     * @param count the maximal number of children to return
+     *  
+     * @return the entry with the window of its children
+     * 
+     * @throws CmsRpcException if something goes wrong 
+     */
+    CmsClientSitemapEntry getChildrenWindow(String entryPointUri, CmsUUID entryId, int start, int count)
+    throws CmsRpcException;
+
     /**
      * Merges a sub-sitemap into it's parent sitemap.<p>
      * 
@@ -88,6 +88,22 @@ public interface I_CmsSitemapServiceAsync {
      */
     void getChildren(String entryPointUri, CmsUUID entryId, int levels, AsyncCallback<CmsClientSitemapEntry> callback);
 
+    /**
+     * Returns the given entry with a window of its direct children.<p>
+     * 
+     * @param entryPointUri the URI of the sitemap entry point
+     * @param entryId the entry id
+     * @param start the position of the first child to return
+     * @param count the maximal number of children to return
+     * @param callback the async callback
+     */
+    void getChildrenWindow(
+        String entryPointUri,
+        CmsUUID entryId,
+        int start,
+        int count,
+        AsyncCallback<CmsClientSitemapEntry> callback);
+
     /**
      * Merges a sub-sitemap into it's parent sitemap.<p>
      * 
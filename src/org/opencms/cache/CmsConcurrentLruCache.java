@@ -0,0 +1,297 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cache;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A striped LRU cache which can be used concurrently by many threads.<p>
+ * 
+ * The cached objects are distributed over a number of stripes by their identity hash code.
+ * Each stripe is an ordinary {@link CmsLruCache} with its own lock and its own share of the 
+ * maximum and average cache costs, so adding, removing and touching objects only 
+ * synchronizes on the stripe of the object, and the cost limits are enforced per stripe.<p>
+ * 
+ * Cache hits reported with {@link #recordHit(I_CmsLruCacheObject)} do not take any lock. 
+ * They are recorded in a small buffer per stripe which is drained into the LRU order of the
+ * stripe once it is full, by the first thread that finds the stripe not already being drained. 
+ * Hits that arrive while a buffer is full are dropped, so the LRU order is only approximated
+ * under heavy load.<p>
+ * 
+ * @since 8.5.2
+ * 
+ * @see org.opencms.flex.CmsFlexCache
+ */
+public class CmsConcurrentLruCache extends CmsLruCache {
+
+    /**
+     * A stripe of the concurrent LRU cache, with the buffer for the recorded hits.<p>
+     */
+    private static class CmsLruCacheStripe extends CmsLruCache {
+
+        /** Flag which indicates that the hit buffer is being drained. */
+        AtomicBoolean m_draining;
+
+        /** The number of hits recorded in the buffer. */
+        AtomicInteger m_hitCount;
+
+        /** The buffer for the recorded hits. */
+        AtomicReferenceArray<I_CmsLruCacheObject> m_hits;
+
+        /**
+         * Creates a new stripe.<p>
+         * 
+         * @param maxCacheCosts the maximum cache costs of the stripe
+         * @param avgCacheCosts the average cache costs of the stripe
+         * @param maxObjectCosts the maximum allowed cache costs per object
+         */
+        CmsLruCacheStripe(long maxCacheCosts, long avgCacheCosts, int maxObjectCosts) {
+
+            super(maxCacheCosts, avgCacheCosts, maxObjectCosts);
+            m_draining = new AtomicBoolean();
+            m_hitCount = new AtomicInteger();
+            m_hits = new AtomicReferenceArray<I_CmsLruCacheObject>(HIT_BUFFER_SIZE);
+        }
+
+        /**
+         * Applies the recorded hits to the LRU order of this stripe.<p>
+         * 
+         * Must be called while holding the lock of this stripe.<p>
+         */
+        void drainHits() {
+
+            int count = Math.min(m_hitCount.getAndSet(0), HIT_BUFFER_SIZE);
+            for (int i = 0; i < count; i++) {
+                I_CmsLruCacheObject hit = m_hits.getAndSet(i, null);
+                if (hit != null) {
+                    // objects removed in the meantime are ignored by touch
+                    touch(hit);
+                }
+            }
+        }
+    }
+
+    /** The default number of stripes. */
+    public static final int DEFAULT_STRIPES = 16;
+
+    /** The number of hits buffered per stripe. */
+    static final int HIT_BUFFER_SIZE = 32;
+
+    /** The bit mask to select a stripe. */
+    private int m_mask;
+
+    /** The stripes of this cache. */
+    private CmsLruCacheStripe[] m_stripes;
+
+    /**
+     * Creates a new concurrent LRU cache with the default number of stripes.<p>
+     *
+     * @param maxCacheCosts the maximum cache costs of all cached objects
+     * @param avgCacheCosts the average cache costs of all cached objects
+     * @param maxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     */
+    public CmsConcurrentLruCache(long maxCacheCosts, long avgCacheCosts, int maxObjectCosts) {
+
+        this(maxCacheCosts, avgCacheCosts, maxObjectCosts, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new concurrent LRU cache.<p>
+     * 
+     * The number of stripes is rounded up to the next power of two.<p>
+     *
+     * @param maxCacheCosts the maximum cache costs of all cached objects
+     * @param avgCacheCosts the average cache costs of all cached objects
+     * @param maxObjectCosts the maximum allowed cache costs per object, or -1 for no limit
+     * @param stripes the number of stripes
+     */
+    public CmsConcurrentLruCache(long maxCacheCosts, long avgCacheCosts, int maxObjectCosts, int stripes) {
+
+        super(maxCacheCosts, avgCacheCosts, maxObjectCosts);
+        int count = 1;
+        while (count < stripes) {
+            count <<= 1;
+        }
+        m_mask = count - 1;
+        m_stripes = new CmsLruCacheStripe[count];
+        for (int i = 0; i < count; i++) {
+            m_stripes[i] = new CmsLruCacheStripe(maxCacheCosts / count, avgCacheCosts / count, maxObjectCosts);
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#add(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        return getStripe(theCacheObject).add(theCacheObject);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#clear()
+     */
+    @Override
+    public void clear() {
+
+        for (CmsLruCacheStripe stripe : m_stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+                stripe.m_hitCount.set(0);
+                for (int i = 0; i < HIT_BUFFER_SIZE; i++) {
+                    stripe.m_hits.set(i, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#getObjectCosts()
+     */
+    @Override
+    public int getObjectCosts() {
+
+        int costs = 0;
+        for (CmsLruCacheStripe stripe : m_stripes) {
+            costs += stripe.getObjectCosts();
+        }
+        return costs;
+    }
+
+    /**
+     * Returns the number of stripes of this cache.<p>
+     * 
+     * @return the number of stripes of this cache
+     */
+    public int getStripeCount() {
+
+        return m_stripes.length;
+    }
+
+    /**
+     * Records a cache hit without taking a lock.<p>
+     * 
+     * The hit is applied to the LRU order later, when the buffer of the stripe is drained.<p>
+     * 
+     * @see org.opencms.cache.CmsLruCache#recordHit(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public void recordHit(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return;
+        }
+        CmsLruCacheStripe stripe = getStripe(theCacheObject);
+        int index = stripe.m_hitCount.get();
+        if (index < HIT_BUFFER_SIZE) {
+            index = stripe.m_hitCount.getAndIncrement();
+            if (index < HIT_BUFFER_SIZE) {
+                stripe.m_hits.lazySet(index, theCacheObject);
+            }
+        }
+        // if the buffer is full and another thread is draining it, the hit is dropped
+        if ((index >= (HIT_BUFFER_SIZE - 1)) && stripe.m_draining.compareAndSet(false, true)) {
+            try {
+                synchronized (stripe) {
+                    stripe.drainHits();
+                }
+            } finally {
+                stripe.m_draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#remove(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return null;
+        }
+        return getStripe(theCacheObject).remove(theCacheObject);
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#size()
+     */
+    @Override
+    public int size() {
+
+        int size = 0;
+        for (CmsLruCacheStripe stripe : m_stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer buf = new StringBuffer(super.toString());
+        buf.append(", stripes: " + m_stripes.length);
+        return buf.toString();
+    }
+
+    /**
+     * @see org.opencms.cache.CmsLruCache#touch(org.opencms.cache.I_CmsLruCacheObject)
+     */
+    @Override
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return false;
+        }
+        return getStripe(theCacheObject).touch(theCacheObject);
+    }
+
+    /**
+     * Returns the stripe for the given cache object.<p>
+     * 
+     * @param theCacheObject the cache object
+     * 
+     * @return the stripe for the given cache object
+     */
+    private CmsLruCacheStripe getStripe(I_CmsLruCacheObject theCacheObject) {
+
+        int hash = System.identityHashCode(theCacheObject);
+        // spread the higher bits, since identity hash codes are often aligned 
+        hash ^= (hash >>> 16);
+        hash ^= (hash >>> 7);
+        return m_stripes[hash & m_mask];
+    }
+}
@@ -193,6 +193,21 @@ public class CmsLruCache extends java.lang.Object {
         return m_objectCosts;
     }
 
+    /**
+     * Records a cache hit for the given object.<p>
+     * 
+     * This implementation does nothing, since updating the LRU order on every hit would
+     * make all threads reading from the cache synchronize on it. Subclasses which can update 
+     * the LRU order without blocking, like {@link CmsConcurrentLruCache}, may use this to 
+     * keep frequently read objects in the cache.<p>
+     * 
+     * @param theCacheObject the object which was read from the cache
+     */
+    public void recordHit(I_CmsLruCacheObject theCacheObject) {
+
+        // the LRU order is only updated when objects are added or touched
+    }
+
     /**
      * Removes an object from the list of all cached objects in this cache,
      * no matter what position it has inside the list.<p>
@@ -264,8 +279,8 @@ public class CmsLruCache extends java.lang.Object {
         buf.append("max. costs: " + m_maxCacheCosts).append(", ");
         buf.append("avg. costs: " + m_avgCacheCosts).append(", ");
         buf.append("max. costs/object: " + m_maxObjectCosts).append(", ");
-        buf.append("costs: " + m_objectCosts).append(", ");
-        buf.append("count: " + m_objectCount);
+        buf.append("costs: " + getObjectCosts()).append(", ");
+        buf.append("count: " + size());
         return buf.toString();
     }
 
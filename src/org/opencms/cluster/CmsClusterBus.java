@@ -0,0 +1,492 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsDbContext;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventManager;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsAsyncEventListener;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.report.CmsLogReport;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Forwards the cache relevant events of this node to the other nodes of a cluster, and fires the events
+ * received from the other nodes locally.<p>
+ *
+ * Publish events, cache clear events and resource modification events are forwarded with the configured
+ * {@link I_CmsClusterTransport}. Every message contains the id of the originating node and a sequence number,
+ * so messages received more than once are ignored. Publish events are also ignored if an event with the same
+ * publish tag has already been received.<p>
+ *
+ * The messages are sent by a separate thread of this bus, in the order of their sequence numbers, so firing an event
+ * never waits for the transport. If more than {@link #MAX_QUEUED_MESSAGES} messages are waiting to be sent,
+ * further events are not forwarded.<p>
+ *
+ * Events received from another node are fired with the additional data key {@link #KEY_CLUSTER_NODE},
+ * so they are not forwarded again. Received publish events also contain the list of published resources
+ * under the key {@link #KEY_PUBLISHED_RESOURCES}.<p>
+ *
+ * Publish events with more than {@link #MAX_PUBLISHED_RESOURCES} published resources, or which are too large
+ * for the transport, are sent without the list of published resources. The receiving nodes fire these publish events
+ * with the additional data key {@link #KEY_PUBLISHED_RESOURCES_OMITTED}, followed by an event to clear all caches.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsClusterBus implements I_CmsAsyncEventListener {
+
+    /** The event types forwarded to the other nodes. */
+    public static final int[] EVENT_TYPES = {
+        I_CmsEventListener.EVENT_CLEAR_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_OFFLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+        I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES,
+        I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR,
+        I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
+        I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+        I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_COPIED,
+        I_CmsEventListener.EVENT_RESOURCE_CREATED,
+        I_CmsEventListener.EVENT_RESOURCE_DELETED,
+        I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCE_MOVED,
+        I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+        I_CmsEventListener.EVENT_RESOURCES_MODIFIED};
+
+    /** Key for the id of the originating node in the data of events received from another node. */
+    public static final String KEY_CLUSTER_NODE = "clusterNode";
+
+    /** Key for the list of published resources in the data of publish events received from another node. */
+    public static final String KEY_PUBLISHED_RESOURCES = "publishedResources";
+
+    /** Key for the flag set in the data of publish events sent without the list of published resources. */
+    public static final String KEY_PUBLISHED_RESOURCES_OMITTED = "publishedResourcesOmitted";
+
+    /** The maximum number of nodes for which the last sequence number is remembered. */
+    public static final int MAX_NODES = 256;
+
+    /** The maximum number of published resources sent with a publish event. */
+    public static final int MAX_PUBLISHED_RESOURCES = 2000;
+
+    /** The maximum number of messages waiting to be sent. */
+    public static final int MAX_QUEUED_MESSAGES = 10000;
+
+    /** The maximum number of remembered publish tags. */
+    public static final int MAX_PUBLISH_TAGS = 1024;
+
+    /** The transport parameter for the name of the local node. */
+    public static final String PARAM_NODE = "node";
+
+    /** The transport parameter for the secret shared by all nodes, used to authenticate the messages. */
+    public static final String PARAM_SECRET = "secret";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterBus.class);
+
+    /** The maximum time in milliseconds to wait for the queued messages to be sent on shut down. */
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+
+    /** The admin context used to read the published resources, may be <code>null</code>. */
+    private final CmsObject m_cms;
+
+    /** The number of messages which were not sent because the send queue was full. */
+    private final AtomicLong m_droppedCount = new AtomicLong();
+
+    /** The number of ignored duplicate messages. */
+    private final AtomicLong m_duplicateCount = new AtomicLong();
+
+    /** The event manager of this node. */
+    private final CmsEventManager m_eventManager;
+
+    /** The last sequence number received from each node. */
+    private final Map<String, Long> m_lastSequences;
+
+    /** The id of this node. */
+    private final String m_nodeId;
+
+    /** The publish tags of the publish events already received. */
+    private final Map<Integer, Boolean> m_publishTags;
+
+    /** The number of received messages. */
+    private final AtomicLong m_receivedCount = new AtomicLong();
+
+    /** Flag to indicate if this bus is started. */
+    private volatile boolean m_running;
+
+    /** The thread sending the queued messages, <code>null</code> if not started. */
+    private Thread m_sender;
+
+    /** Lock to make sure the messages are queued in the order of their sequence numbers. */
+    private final Object m_sendLock = new Object();
+
+    /** The messages waiting to be sent. */
+    private final BlockingQueue<CmsClusterMessage> m_sendQueue;
+
+    /** The number of sent messages. */
+    private final AtomicLong m_sentCount = new AtomicLong();
+
+    /** The last sequence number used by this node. */
+    private long m_sequence;
+
+    /** The transport. */
+    private final I_CmsClusterTransport m_transport;
+
+    /**
+     * Creates a new cluster bus.<p>
+     *
+     * The id of this node is the configured node name, or the host name, followed by the time this bus was created,
+     * so a restarted node always uses a new id and starts with new sequence numbers.<p>
+     *
+     * @param eventManager the event manager of this node
+     * @param transport the transport for the messages
+     * @param cms an admin context used to read the published resources, may be <code>null</code>
+     */
+    public CmsClusterBus(CmsEventManager eventManager, I_CmsClusterTransport transport, CmsObject cms) {
+
+        m_eventManager = eventManager;
+        m_transport = transport;
+        m_cms = cms;
+        m_sendQueue = new LinkedBlockingQueue<CmsClusterMessage>(MAX_QUEUED_MESSAGES);
+        m_lastSequences = Collections.synchronizedMap(CmsCollectionsGenericWrapper.<String, Long> createLRUMap(
+            MAX_NODES));
+        m_publishTags = Collections.synchronizedMap(CmsCollectionsGenericWrapper.<Integer, Boolean> createLRUMap(
+            MAX_PUBLISH_TAGS));
+        String node = null;
+        CmsParameterConfiguration config = transport.getConfiguration();
+        if (config != null) {
+            node = config.getString(PARAM_NODE, null);
+        }
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(node)) {
+            try {
+                node = InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                node = "opencms";
+            }
+        }
+        m_nodeId = node.trim() + "@" + System.currentTimeMillis();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        Map<String, Object> data = event.getData();
+        if (data.containsKey(KEY_CLUSTER_NODE)) {
+            // received from another node, do not forward again
+            return;
+        }
+        Object change = data.get(I_CmsEventListener.KEY_CHANGE);
+        if ((change != null) && change.equals(new Integer(CmsDriverManager.NOTHING_CHANGED))) {
+            // lock and unlock are not relevant for the caches
+            return;
+        }
+        synchronized (m_sendLock) {
+            m_sequence++;
+            CmsClusterMessage message = new CmsClusterMessage(m_nodeId, m_sequence, event.getType(), data);
+            if (!m_sendQueue.offer(message)) {
+                m_droppedCount.incrementAndGet();
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLUSTER_SEND_QUEUE_FULL_1, message));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of messages which were not sent because the send queue was full.<p>
+     *
+     * @return the number of dropped messages
+     */
+    public long getDroppedCount() {
+
+        return m_droppedCount.get();
+    }
+
+    /**
+     * Returns the number of received messages which were ignored because they had already been received.<p>
+     *
+     * @return the number of ignored duplicate messages
+     */
+    public long getDuplicateCount() {
+
+        return m_duplicateCount.get();
+    }
+
+    /**
+     * Returns the id of this node.<p>
+     *
+     * @return the id of this node
+     */
+    public String getNodeId() {
+
+        return m_nodeId;
+    }
+
+    /**
+     * Returns the number of received messages, including the ignored duplicates.<p>
+     *
+     * @return the number of received messages
+     */
+    public long getReceivedCount() {
+
+        return m_receivedCount.get();
+    }
+
+    /**
+     * Returns the number of sent messages.<p>
+     *
+     * @return the number of sent messages
+     */
+    public long getSentCount() {
+
+        return m_sentCount.get();
+    }
+
+    /**
+     * Returns the transport.<p>
+     *
+     * @return the transport
+     */
+    public I_CmsClusterTransport getTransport() {
+
+        return m_transport;
+    }
+
+    /**
+     * Fires the event contained in a message received from another node.<p>
+     *
+     * Messages sent by this node, messages with a sequence number not higher than the last sequence
+     * number received from the same node, and publish events with an already received publish tag
+     * are ignored. If the published resources of a publish event were omitted, all caches are cleared
+     * after the publish event has been fired.<p>
+     *
+     * @param message the received message
+     */
+    public void receive(CmsClusterMessage message) {
+
+        if (m_nodeId.equals(message.getNode())) {
+            return;
+        }
+        m_receivedCount.incrementAndGet();
+        if (isDuplicate(message)) {
+            m_duplicateCount.incrementAndGet();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_CLUSTER_DUPLICATE_1, message));
+            }
+            return;
+        }
+        Map<String, Object> data = new HashMap<String, Object>(message.getData());
+        data.put(KEY_CLUSTER_NODE, message.getNode());
+        CmsDbContext dbc = null;
+        if (message.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+            data.put(KEY_PUBLISHED_RESOURCES, message.getPublishedResources());
+            data.put(I_CmsEventListener.KEY_REPORT, new CmsLogReport(Locale.ENGLISH, CmsClusterBus.class));
+            if (m_cms != null) {
+                dbc = new CmsDbContext(m_cms.getRequestContext());
+                data.put(I_CmsEventListener.KEY_DBCONTEXT, dbc);
+            }
+        }
+        try {
+            m_eventManager.fireEvent(new CmsEvent(message.getType(), data));
+            if (message.isPublishedResourcesOmitted()) {
+                Map<String, Object> clearData = new HashMap<String, Object>();
+                clearData.put(KEY_CLUSTER_NODE, message.getNode());
+                m_eventManager.fireEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, clearData));
+            }
+        } catch (Throwable t) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_RECEIVE_FAILED_1, message), t);
+        } finally {
+            if (dbc != null) {
+                dbc.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops forwarding events, waits for the queued messages to be sent and shuts down the transport.<p>
+     */
+    public void shutDown() {
+
+        m_eventManager.removeCmsEventListener(this);
+        m_running = false;
+        Thread sender = m_sender;
+        m_sender = null;
+        if (sender != null) {
+            try {
+                sender.join(SHUTDOWN_TIMEOUT);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+        }
+        if (!m_sendQueue.isEmpty()) {
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_CLUSTER_QUEUE_DISCARDED_1,
+                String.valueOf(m_sendQueue.size())));
+            m_sendQueue.clear();
+        }
+        m_transport.shutDown();
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_CLUSTER_SHUTDOWN_3,
+                m_nodeId,
+                String.valueOf(m_sentCount.get()),
+                String.valueOf(m_receivedCount.get())));
+        }
+    }
+
+    /**
+     * Starts the transport and starts forwarding the events of this node.<p>
+     *
+     * @throws Exception if the transport could not be started
+     */
+    public void start() throws Exception {
+
+        m_transport.start(this);
+        m_running = true;
+        m_sender = new Thread(new Runnable() {
+
+            public void run() {
+
+                sendMessages();
+            }
+        }, "OpenCms: cluster sender");
+        m_sender.setDaemon(true);
+        m_sender.start();
+        m_eventManager.addCmsEventListener(this, EVENT_TYPES);
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_CLUSTER_STARTED_2,
+                m_nodeId,
+                m_transport.getClass().getName()));
+        }
+    }
+
+    /**
+     * Sends the queued messages until this bus is shut down and all queued messages have been sent.<p>
+     */
+    protected void sendMessages() {
+
+        while (true) {
+            CmsClusterMessage message;
+            try {
+                message = m_sendQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (message == null) {
+                if (!m_running) {
+                    return;
+                }
+                continue;
+            }
+            if (message.getType() == I_CmsEventListener.EVENT_PUBLISH_PROJECT) {
+                readPublishedResources(message);
+            }
+            try {
+                m_transport.send(message);
+                m_sentCount.incrementAndGet();
+            } catch (Throwable t) {
+                LOG.error(Messages.get().getBundle().key(
+                    Messages.LOG_CLUSTER_SEND_FAILED_2,
+                    message,
+                    m_transport.getClass().getName()), t);
+            }
+        }
+    }
+
+    /**
+     * Checks if a message has already been received and remembers it otherwise.<p>
+     *
+     * @param message the message to check
+     *
+     * @return <code>true</code> if the message has already been received
+     */
+    private boolean isDuplicate(CmsClusterMessage message) {
+
+        synchronized (m_lastSequences) {
+            Long last = m_lastSequences.get(message.getNode());
+            if ((last != null) && (last.longValue() >= message.getSequence())) {
+                return true;
+            }
+            m_lastSequences.put(message.getNode(), new Long(message.getSequence()));
+        }
+        if (message.getPublishTag() >= 0) {
+            return m_publishTags.put(new Integer(message.getPublishTag()), Boolean.TRUE) != null;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the published resources of a publish event to the given message.<p>
+     *
+     * If more than {@link #MAX_PUBLISHED_RESOURCES} resources were published, only the publish tag is added
+     * and the published resources are omitted.<p>
+     *
+     * @param message the message for a publish event
+     */
+    private void readPublishedResources(CmsClusterMessage message) {
+
+        Object publishId = message.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+        if ((m_cms == null) || (publishId == null)) {
+            return;
+        }
+        try {
+            List<CmsPublishedResource> resources = m_cms.readPublishedResources(new CmsUUID(publishId.toString()));
+            message.setPublishedResources(resources);
+            if (resources.size() > MAX_PUBLISHED_RESOURCES) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_CLUSTER_RESOURCES_OMITTED_2,
+                    message,
+                    String.valueOf(resources.size())));
+                message.omitPublishedResources();
+            }
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_READ_PUBLISHED_FAILED_1, publishId), e);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsDbPool;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsStringUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cluster transport which writes the messages to a table in the shared OpenCms database,
+ * and periodically reads the messages written by the other nodes.<p>
+ *
+ * This transport needs no additional infrastructure. The table <code>CMS_CLUSTER_EVENTS</code> is created
+ * by the database setup and update scripts, if it is missing in the configured database pool it is created
+ * when the transport is started. Messages are split into parts of at most {@link #PART_SIZE} characters,
+ * so the table only uses portable column types.<p>
+ *
+ * The parameters are <code>pool</code>, the database pool (default is the default pool),
+ * <code>interval</code>, the polling interval in milliseconds, <code>overlap</code>, the time in milliseconds
+ * the polling reads back to tolerate delayed commits and clock differences between the nodes, and
+ * <code>retention</code>, the time in milliseconds after which the messages are deleted.
+ * Messages read more than once are ignored by the cluster bus.<p>
+ *
+ * The parameter <code>secret</code> is required, it is shared by all nodes and used to authenticate the messages,
+ * so messages written to the table by other database users are ignored.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsClusterDbTransport implements I_CmsClusterTransport {
+
+    /** The default polling interval in milliseconds. */
+    public static final int DEFAULT_INTERVAL = 2000;
+
+    /** The default overlap of two polls in milliseconds. */
+    public static final int DEFAULT_OVERLAP = 60000;
+
+    /** The default retention time of the messages in milliseconds. */
+    public static final int DEFAULT_RETENTION = 3600000;
+
+    /** The parameter for the polling interval. */
+    public static final String PARAM_INTERVAL = "interval";
+
+    /** The parameter for the overlap of two polls. */
+    public static final String PARAM_OVERLAP = "overlap";
+
+    /** The parameter for the database pool. */
+    public static final String PARAM_POOL = "pool";
+
+    /** The parameter for the retention time of the messages. */
+    public static final String PARAM_RETENTION = "retention";
+
+    /** The maximum length of a message part. */
+    public static final int PART_SIZE = 2000;
+
+    /** The name of the table. */
+    public static final String TABLE_NAME = "CMS_CLUSTER_EVENTS";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterDbTransport.class);
+
+    /** The query to create the table, if it has not been created by the setup or update scripts. */
+    private static final String SQL_CREATE = "CREATE TABLE "
+        + TABLE_NAME
+        + " (EVENT_NODE VARCHAR(128) NOT NULL, EVENT_SEQUENCE NUMERIC(19) NOT NULL, EVENT_PART INTEGER NOT NULL,"
+        + " EVENT_DATE NUMERIC(19) NOT NULL, EVENT_DATA VARCHAR("
+        + PART_SIZE
+        + ") NOT NULL, PRIMARY KEY (EVENT_NODE, EVENT_SEQUENCE, EVENT_PART))";
+
+    /** The query to delete the expired messages. */
+    private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE EVENT_DATE < ?";
+
+    /** The query to check if the table exists. */
+    private static final String SQL_EXISTS = "SELECT MAX(EVENT_DATE) FROM " + TABLE_NAME;
+
+    /** The query to write a message part. */
+    private static final String SQL_INSERT = "INSERT INTO "
+        + TABLE_NAME
+        + " (EVENT_NODE, EVENT_SEQUENCE, EVENT_PART, EVENT_DATE, EVENT_DATA) VALUES (?, ?, ?, ?, ?)";
+
+    /** The query to read the messages. */
+    private static final String SQL_READ = "SELECT EVENT_NODE, EVENT_SEQUENCE, EVENT_DATE, EVENT_DATA FROM "
+        + TABLE_NAME
+        + " WHERE EVENT_DATE > ? ORDER BY EVENT_DATE, EVENT_NODE, EVENT_SEQUENCE, EVENT_PART";
+
+    /** The cluster bus receiving the messages. */
+    private CmsClusterBus m_bus;
+
+    /** The configuration of this transport. */
+    private CmsParameterConfiguration m_configuration;
+
+    /** The executor for polling the table. */
+    private ScheduledExecutorService m_executor;
+
+    /** The polling interval in milliseconds. */
+    private int m_interval;
+
+    /** The time of the last deletion of expired messages. */
+    private long m_lastCleanup;
+
+    /** The latest message date read from the table. */
+    private long m_lastDate;
+
+    /** The last sequence number read for each node. */
+    private Map<String, Long> m_lastSequences;
+
+    /** The overlap of two polls in milliseconds. */
+    private int m_overlap;
+
+    /** The database pool. */
+    private String m_pool;
+
+    /** The retention time of the messages in milliseconds. */
+    private int m_retention;
+
+    /** The secret used to authenticate the messages. */
+    private String m_secret;
+
+    /**
+     * Creates a new database transport.<p>
+     */
+    public CmsClusterDbTransport() {
+
+        m_configuration = new CmsParameterConfiguration();
+        m_pool = CmsDbPool.getDefaultDbPoolName();
+        m_interval = DEFAULT_INTERVAL;
+        m_overlap = DEFAULT_OVERLAP;
+        m_retention = DEFAULT_RETENTION;
+        m_lastSequences = CmsCollectionsGenericWrapper.createLRUMap(CmsClusterBus.MAX_NODES);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        m_secret = m_configuration.getString(CmsClusterBus.PARAM_SECRET, null);
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(m_secret)) {
+            throw new CmsConfigurationException(Messages.get().container(
+                Messages.ERR_CLUSTER_PARAM_MISSING_2,
+                CmsClusterBus.PARAM_SECRET,
+                getClass().getName()));
+        }
+        m_pool = m_configuration.getString(PARAM_POOL, CmsDbPool.getDefaultDbPoolName());
+        m_interval = Math.max(100, m_configuration.getInteger(PARAM_INTERVAL, DEFAULT_INTERVAL));
+        m_overlap = Math.max(0, m_configuration.getInteger(PARAM_OVERLAP, DEFAULT_OVERLAP));
+        m_retention = Math.max(m_overlap + m_interval, m_configuration.getInteger(
+            PARAM_RETENTION,
+            DEFAULT_RETENTION));
+    }
+
+    /**
+     * Reads the messages written since the last poll and passes them to the cluster bus.<p>
+     *
+     * Messages written by this node and messages already read in a previous poll are skipped.
+     * Also deletes the expired messages from time to time.<p>
+     */
+    public synchronized void poll() {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(SQL_READ);
+            stmt.setLong(1, m_lastDate - m_overlap);
+            res = stmt.executeQuery();
+            String node = null;
+            long sequence = -1;
+            StringBuffer data = new StringBuffer();
+            while (res.next()) {
+                String rowNode = res.getString(1);
+                long rowSequence = res.getLong(2);
+                m_lastDate = Math.max(m_lastDate, res.getLong(3));
+                if ((node != null) && ((sequence != rowSequence) || !node.equals(rowNode))) {
+                    receive(node, sequence, data.toString());
+                    data.setLength(0);
+                    node = null;
+                }
+                Long lastSequence = m_lastSequences.get(rowNode);
+                if (rowNode.equals(m_bus.getNodeId())
+                    || ((lastSequence != null) && (lastSequence.longValue() >= rowSequence))) {
+                    continue;
+                }
+                node = rowNode;
+                sequence = rowSequence;
+                data.append(res.getString(4));
+            }
+            if (node != null) {
+                receive(node, sequence, data.toString());
+            }
+            res.close();
+            res = null;
+            stmt.close();
+            stmt = null;
+            long now = System.currentTimeMillis();
+            if ((now - m_lastCleanup) > (m_retention / 10)) {
+                m_lastCleanup = now;
+                stmt = conn.prepareStatement(SQL_DELETE);
+                stmt.setLong(1, now - m_retention);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_CLUSTER_POLL_FAILED_1, m_pool), e);
+        } finally {
+            closeAll(conn, stmt, res);
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#send(org.opencms.cluster.CmsClusterMessage)
+     */
+    public void send(CmsClusterMessage message) throws IOException, SQLException {
+
+        String data = message.encode(m_secret);
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = getConnection();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                stmt = conn.prepareStatement(SQL_INSERT);
+                for (int part = 0; (part * PART_SIZE) < data.length(); part++) {
+                    stmt.setString(1, message.getNode());
+                    stmt.setLong(2, message.getSequence());
+                    stmt.setInt(3, part);
+                    stmt.setLong(4, message.getDate());
+                    stmt.setString(5, data.substring(
+                        part * PART_SIZE,
+                        Math.min(data.length(), (part + 1) * PART_SIZE)));
+                    stmt.executeUpdate();
+                }
+                // commit all parts at once, so the other nodes never read an incomplete message
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } finally {
+            closeAll(conn, stmt, null);
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#shutDown()
+     */
+    public void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdown();
+            try {
+                m_executor.awaitTermination(m_interval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // ignore
+            }
+            m_executor = null;
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#start(org.opencms.cluster.CmsClusterBus)
+     */
+    public void start(CmsClusterBus bus) throws SQLException {
+
+        m_bus = bus;
+        m_lastDate = readLastDate();
+        m_executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: cluster poll");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        m_executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                poll();
+            }
+        }, m_interval, m_interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a connection from the configured database pool.<p>
+     *
+     * @return a connection
+     *
+     * @throws SQLException if no connection is available
+     */
+    protected Connection getConnection() throws SQLException {
+
+        return OpenCms.getSqlManager().getConnection(m_pool);
+    }
+
+    /**
+     * Returns the date from which on the messages are read when this transport is started.<p>
+     *
+     * As a fallback, the table is created here if it has not been created by the setup or update scripts.<p>
+     *
+     * @return the latest message date in the table, or the current time if it is later
+     *
+     * @throws SQLException if the table does not exist and could not be created
+     */
+    protected long readLastDate() throws SQLException {
+
+        long now = System.currentTimeMillis();
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet res = null;
+        try {
+            conn = getConnection();
+            stmt = conn.createStatement();
+            try {
+                res = stmt.executeQuery(SQL_EXISTS);
+                long lastDate = res.next() ? res.getLong(1) : 0;
+                // the first poll only reads back the overlap before this date,
+                // older messages were written before this node was started
+                return Math.max(lastDate, now);
+            } catch (SQLException e) {
+                // the table does not exist
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+            closeAll(null, stmt, res);
+            res = null;
+            stmt = conn.createStatement();
+            stmt.executeUpdate(SQL_CREATE);
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLUSTER_TABLE_CREATED_2, TABLE_NAME, m_pool));
+            return now;
+        } finally {
+            closeAll(conn, stmt, res);
+        }
+    }
+
+    /**
+     * Closes the given JDBC objects and ignores all errors.<p>
+     *
+     * @param conn the connection, may be <code>null</code>
+     * @param stmt the statement, may be <code>null</code>
+     * @param res the result set, may be <code>null</code>
+     */
+    private void closeAll(Connection conn, Statement stmt, ResultSet res) {
+
+        try {
+            if (res != null) {
+                res.close();
+            }
+        } catch (SQLException e) {
+            // ignore
+        }
+        try {
+            if (stmt != null) {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            // ignore
+        }
+        try {
+            if (conn != null) {
+                conn.close();
+            }
+        } catch (SQLException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Decodes a message read from the table and passes it to the cluster bus.<p>
+     *
+     * @param node the id of the node which wrote the message
+     * @param sequence the sequence number of the message
+     * @param data the encoded message
+     */
+    private void receive(String node, long sequence, String data) {
+
+        m_lastSequences.put(node, new Long(sequence));
+        try {
+            m_bus.receive(CmsClusterMessage.decode(data, m_secret));
+        } catch (IOException e) {
+            LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLUSTER_INVALID_MESSAGE_1, m_pool), e);
+        }
+    }
+}
@@ -0,0 +1,842 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.db.CmsResourceState;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * An event forwarded from one OpenCms node to the other nodes of a cluster.<p>
+ *
+ * A message contains the type of the forwarded event and the event data which can be transferred
+ * to another node. Only strings, numbers, booleans, UUIDs, resources and lists of these values are transferred.
+ * Database contexts, reports and publish lists are never transferred, and files are
+ * transferred without their content. For publish events, the message also contains the list of published
+ * resources and the publish tag.<p>
+ *
+ * Messages are encoded as a single line of text, so they can be written to a socket or a database table.
+ * The line starts with a HMAC of the message, calculated with the shared secret of the cluster nodes,
+ * followed by the message fields as plain text tokens. No Java objects are deserialized when decoding a message.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsClusterMessage {
+
+    /** The data keys which are never transferred. */
+    private static final List<String> EXCLUDED_KEYS = Collections.unmodifiableList(Arrays.asList(
+        new String[] {
+            I_CmsEventListener.KEY_DBCONTEXT,
+            I_CmsEventListener.KEY_PUBLISHLIST,
+            I_CmsEventListener.KEY_REPORT}));
+
+    /** The version of the message format. */
+    private static final String FORMAT_VERSION = "1";
+
+    /** The algorithm used to authenticate the messages. */
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    /** The token for a <code>null</code> string. */
+    private static final String NULL_TOKEN = "-";
+
+    /** The prefix of a string token. */
+    private static final String STRING_PREFIX = "=";
+
+    /** The type tag of a boolean value. */
+    private static final String TYPE_BOOLEAN = "b";
+
+    /** The type tag of an integer value. */
+    private static final String TYPE_INTEGER = "i";
+
+    /** The type tag of a list value. */
+    private static final String TYPE_LIST = "a";
+
+    /** The type tag of a long value. */
+    private static final String TYPE_LONG = "l";
+
+    /** The type tag of a resource value. */
+    private static final String TYPE_RESOURCE = "r";
+
+    /** The type tag of a string value. */
+    private static final String TYPE_STRING = "s";
+
+    /** The type tag of a UUID value. */
+    private static final String TYPE_UUID = "u";
+
+    /** The encoding of the string tokens. */
+    private static final String UTF8 = "UTF-8";
+
+    /** The transferable event data. */
+    private Map<String, Object> m_data;
+
+    /** The time the event was fired on the originating node. */
+    private long m_date;
+
+    /** The id of the originating node. */
+    private String m_node;
+
+    /** The published resources, only set for publish events. */
+    private List<CmsPublishedResource> m_publishedResources;
+
+    /** The publish tag, only set for publish events. */
+    private int m_publishTag;
+
+    /** The sequence number of the message on the originating node. */
+    private long m_sequence;
+
+    /** The event type. */
+    private int m_type;
+
+    /**
+     * Creates a new cluster message.<p>
+     *
+     * @param node the id of the originating node
+     * @param sequence the sequence number of the message on the originating node
+     * @param type the event type
+     * @param data the event data, values which can not be transferred are skipped
+     */
+    public CmsClusterMessage(String node, long sequence, int type, Map<String, Object> data) {
+
+        m_node = node;
+        m_sequence = sequence;
+        m_type = type;
+        m_date = System.currentTimeMillis();
+        m_publishTag = -1;
+        m_data = new HashMap<String, Object>();
+        if (data != null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                if (EXCLUDED_KEYS.contains(entry.getKey())) {
+                    continue;
+                }
+                Object value = toTransferable(entry.getValue(), true);
+                if (value != null) {
+                    m_data.put(entry.getKey(), value);
+                }
+            }
+        }
+        m_publishedResources = Collections.emptyList();
+    }
+
+    /**
+     * Decodes a message encoded with {@link #encode(String)}.<p>
+     *
+     * The message is only decoded if it has been authenticated with the same secret.<p>
+     *
+     * @param value the encoded message
+     * @param secret the shared secret of the cluster nodes
+     *
+     * @return the decoded message
+     *
+     * @throws IOException if the value is not a valid message or was not authenticated with the given secret
+     */
+    public static CmsClusterMessage decode(String value, String secret) throws IOException {
+
+        int pos = value.indexOf(' ');
+        if (pos < 0) {
+            throw new IOException(value);
+        }
+        String payload = value.substring(pos + 1);
+        byte[] mac = value.substring(0, pos).getBytes(UTF8);
+        if (!MessageDigest.isEqual(mac, createMac(payload, secret).getBytes(UTF8))) {
+            throw new IOException(Messages.get().getBundle().key(Messages.ERR_CLUSTER_MESSAGE_NOT_AUTHENTIC_0));
+        }
+        CmsTokenReader reader = new CmsTokenReader(payload);
+        try {
+            if (!FORMAT_VERSION.equals(reader.next())) {
+                throw new IOException(value);
+            }
+            String node = reader.nextString();
+            long sequence = reader.nextLong();
+            int type = reader.nextInt();
+            CmsClusterMessage result = new CmsClusterMessage(node, sequence, type, null);
+            result.m_date = reader.nextLong();
+            result.m_publishTag = reader.nextInt();
+            int dataCount = reader.nextCount();
+            for (int i = 0; i < dataCount; i++) {
+                String key = reader.nextString();
+                result.m_data.put(key, reader.nextValue(true));
+            }
+            int resourceCount = reader.nextCount();
+            List<CmsPublishedResource> resources = new ArrayList<CmsPublishedResource>(resourceCount);
+            for (int i = 0; i < resourceCount; i++) {
+                resources.add(reader.nextPublishedResource());
+            }
+            result.m_publishedResources = resources;
+            if (reader.hasNext()) {
+                throw new IOException(value);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            // invalid numbers or ids
+            IOException ioe = new IOException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    /**
+     * Encodes this message as a single line of text, authenticated with the given secret.<p>
+     *
+     * @param secret the shared secret of the cluster nodes
+     *
+     * @return the encoded message
+     *
+     * @throws IOException if the message can not be encoded
+     */
+    public String encode(String secret) throws IOException {
+
+        CmsTokenWriter writer = new CmsTokenWriter();
+        writer.write(FORMAT_VERSION);
+        writer.writeString(m_node);
+        writer.write(String.valueOf(m_sequence));
+        writer.write(String.valueOf(m_type));
+        writer.write(String.valueOf(m_date));
+        writer.write(String.valueOf(m_publishTag));
+        writer.write(String.valueOf(m_data.size()));
+        for (Map.Entry<String, Object> entry : m_data.entrySet()) {
+            writer.writeString(entry.getKey());
+            writer.writeValue(entry.getValue());
+        }
+        writer.write(String.valueOf(m_publishedResources.size()));
+        for (CmsPublishedResource resource : m_publishedResources) {
+            writer.writePublishedResource(resource);
+        }
+        String payload = writer.toString();
+        return createMac(payload, secret) + " " + payload;
+    }
+
+    /**
+     * Returns the transferable event data.<p>
+     *
+     * @return the transferable event data
+     */
+    public Map<String, Object> getData() {
+
+        return m_data;
+    }
+
+    /**
+     * Returns the time the event was fired on the originating node.<p>
+     *
+     * @return the time the event was fired on the originating node
+     */
+    public long getDate() {
+
+        return m_date;
+    }
+
+    /**
+     * Returns the id of the originating node.<p>
+     *
+     * @return the id of the originating node
+     */
+    public String getNode() {
+
+        return m_node;
+    }
+
+    /**
+     * Returns the published resources, or an empty list if this is not a publish event.<p>
+     *
+     * @return the published resources
+     */
+    public List<CmsPublishedResource> getPublishedResources() {
+
+        return m_publishedResources;
+    }
+
+    /**
+     * Returns the publish tag, or <code>-1</code> if this is not a publish event.<p>
+     *
+     * @return the publish tag
+     */
+    public int getPublishTag() {
+
+        return m_publishTag;
+    }
+
+    /**
+     * Returns the sequence number of the message on the originating node.<p>
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+
+        return m_sequence;
+    }
+
+    /**
+     * Returns the event type.<p>
+     *
+     * @return the event type
+     */
+    public int getType() {
+
+        return m_type;
+    }
+
+    /**
+     * Returns if the published resources of this publish event were omitted to keep the message small.<p>
+     *
+     * @return <code>true</code> if the published resources were omitted
+     *
+     * @see #omitPublishedResources()
+     */
+    public boolean isPublishedResourcesOmitted() {
+
+        return Boolean.TRUE.equals(m_data.get(CmsClusterBus.KEY_PUBLISHED_RESOURCES_OMITTED));
+    }
+
+    /**
+     * Removes the published resources from this publish event, to keep the message small.<p>
+     *
+     * The publish tag is kept, and the event data is marked with {@link CmsClusterBus#KEY_PUBLISHED_RESOURCES_OMITTED},
+     * so the receiving nodes know that the list of published resources is not complete.<p>
+     */
+    public void omitPublishedResources() {
+
+        m_publishedResources = Collections.emptyList();
+        m_data.put(CmsClusterBus.KEY_PUBLISHED_RESOURCES_OMITTED, Boolean.TRUE);
+    }
+
+    /**
+     * Sets the published resources of a publish event.<p>
+     *
+     * The publish tag is taken from the published resources.<p>
+     *
+     * @param publishedResources the published resources
+     */
+    public void setPublishedResources(List<CmsPublishedResource> publishedResources) {
+
+        m_publishedResources = new ArrayList<CmsPublishedResource>(publishedResources);
+        for (CmsPublishedResource resource : m_publishedResources) {
+            m_publishTag = Math.max(m_publishTag, resource.getPublishTag());
+        }
+    }
+
+    /**
+     * Sets the publish tag.<p>
+     *
+     * @param publishTag the publish tag
+     */
+    public void setPublishTag(int publishTag) {
+
+        m_publishTag = publishTag;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(64);
+        result.append(m_node).append('#').append(m_sequence);
+        result.append(" type=").append(m_type);
+        if (m_publishTag >= 0) {
+            result.append(" publishTag=").append(m_publishTag);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns a copy of the given resource without file content, or the value itself
+     * if it can be transferred as it is.<p>
+     *
+     * Lists are copied with all their elements converted, values of other types
+     * are replaced by <code>null</code>.<p>
+     *
+     * @param value the value to convert
+     * @param allowList if lists are allowed, lists are not allowed as elements of lists
+     *
+     * @return the transferable value, or <code>null</code> if the value can not be transferred
+     */
+    protected static Object toTransferable(Object value, boolean allowList) {
+
+        if (value instanceof CmsFile) {
+            CmsResource file = (CmsResource)value;
+            return new CmsResource(
+                file.getStructureId(),
+                file.getResourceId(),
+                file.getRootPath(),
+                file.getTypeId(),
+                file.isFolder(),
+                file.getFlags(),
+                file.getProjectLastModified(),
+                file.getState(),
+                file.getDateCreated(),
+                file.getUserCreated(),
+                file.getDateLastModified(),
+                file.getUserLastModified(),
+                file.getDateReleased(),
+                file.getDateExpired(),
+                file.getSiblingCount(),
+                file.getLength(),
+                file.getDateContent(),
+                file.getVersion());
+        }
+        if (allowList && (value instanceof List<?>)) {
+            List<Object> result = new ArrayList<Object>(((List<?>)value).size());
+            Iterator<?> it = ((List<?>)value).iterator();
+            while (it.hasNext()) {
+                Object element = toTransferable(it.next(), false);
+                if (element == null) {
+                    return null;
+                }
+                result.add(element);
+            }
+            return result;
+        }
+        if ((value instanceof String)
+            || (value instanceof Integer)
+            || (value instanceof Long)
+            || (value instanceof Boolean)
+            || (value instanceof CmsUUID)
+            || (value instanceof CmsResource)) {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the HMAC of a message, calculated with the given secret.<p>
+     *
+     * @param payload the encoded message fields
+     * @param secret the shared secret of the cluster nodes
+     *
+     * @return the HMAC as hex string
+     *
+     * @throws IOException if the HMAC can not be calculated
+     */
+    private static String createMac(String payload, String secret) throws IOException {
+
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(UTF8), MAC_ALGORITHM));
+            return new String(Hex.encodeHex(mac.doFinal(payload.getBytes(UTF8))));
+        } catch (GeneralSecurityException e) {
+            IOException ioe = new IOException(e.getMessage());
+            ioe.initCause(e);
+            throw ioe;
+        }
+    }
+
+    /**
+     * Reads the tokens of an encoded message.<p>
+     */
+    private static class CmsTokenReader {
+
+        /** The position of the next token. */
+        private int m_pos;
+
+        /** The tokens. */
+        private final String[] m_tokens;
+
+        /**
+         * Creates a new reader.<p>
+         *
+         * @param payload the encoded message fields
+         */
+        CmsTokenReader(String payload) {
+
+            m_tokens = payload.split(" ", -1);
+        }
+
+        /**
+         * Returns if there are tokens left.<p>
+         *
+         * @return <code>true</code> if there are tokens left
+         */
+        boolean hasNext() {
+
+            return m_pos < m_tokens.length;
+        }
+
+        /**
+         * Returns the next token.<p>
+         *
+         * @return the next token
+         *
+         * @throws IOException if there are no tokens left
+         */
+        String next() throws IOException {
+
+            if (m_pos >= m_tokens.length) {
+                throw new IOException(Messages.get().getBundle().key(Messages.ERR_CLUSTER_MESSAGE_TRUNCATED_0));
+            }
+            return m_tokens[m_pos++];
+        }
+
+        /**
+         * Returns the next token as boolean.<p>
+         *
+         * @return the boolean value
+         *
+         * @throws IOException if there are no tokens left
+         */
+        boolean nextBoolean() throws IOException {
+
+            return Boolean.valueOf(next()).booleanValue();
+        }
+
+        /**
+         * Returns the next token as number of elements, which can not exceed the number of remaining tokens.<p>
+         *
+         * @return the number of elements
+         *
+         * @throws IOException if the number is not valid
+         */
+        int nextCount() throws IOException {
+
+            int count = nextInt();
+            if ((count < 0) || (count > (m_tokens.length - m_pos))) {
+                throw new IOException(Messages.get().getBundle().key(Messages.ERR_CLUSTER_MESSAGE_TRUNCATED_0));
+            }
+            return count;
+        }
+
+        /**
+         * Returns the next token as int.<p>
+         *
+         * @return the int value
+         *
+         * @throws IOException if there are no tokens left
+         */
+        int nextInt() throws IOException {
+
+            return Integer.parseInt(next());
+        }
+
+        /**
+         * Returns the next token as long.<p>
+         *
+         * @return the long value
+         *
+         * @throws IOException if there are no tokens left
+         */
+        long nextLong() throws IOException {
+
+            return Long.parseLong(next());
+        }
+
+        /**
+         * Returns the next published resource.<p>
+         *
+         * @return the published resource
+         *
+         * @throws IOException if the tokens are not valid
+         */
+        CmsPublishedResource nextPublishedResource() throws IOException {
+
+            CmsUUID structureId = nextUUID();
+            CmsUUID resourceId = nextUUID();
+            int publishTag = nextInt();
+            String rootPath = nextString();
+            int type = nextInt();
+            boolean folder = nextBoolean();
+            int state = nextInt();
+            int siblingCount = nextInt();
+            CmsResourceState resourceState;
+            if (state == CmsPublishedResource.STATE_MOVED_SOURCE.getState()) {
+                resourceState = CmsPublishedResource.STATE_MOVED_SOURCE;
+            } else if (state == CmsPublishedResource.STATE_MOVED_DESTINATION.getState()) {
+                resourceState = CmsPublishedResource.STATE_MOVED_DESTINATION;
+            } else {
+                resourceState = CmsResourceState.valueOf(state);
+            }
+            return new CmsPublishedResource(
+                structureId,
+                resourceId,
+                publishTag,
+                rootPath,
+                type,
+                folder,
+                resourceState,
+                siblingCount);
+        }
+
+        /**
+         * Returns the next resource.<p>
+         *
+         * @return the resource
+         *
+         * @throws IOException if the tokens are not valid
+         */
+        CmsResource nextResource() throws IOException {
+
+            return new CmsResource(
+                nextUUID(),
+                nextUUID(),
+                nextString(),
+                nextInt(),
+                nextBoolean(),
+                nextInt(),
+                nextUUID(),
+                CmsResourceState.valueOf(nextInt()),
+                nextLong(),
+                nextUUID(),
+                nextLong(),
+                nextUUID(),
+                nextLong(),
+                nextLong(),
+                nextInt(),
+                nextInt(),
+                nextLong(),
+                nextInt());
+        }
+
+        /**
+         * Returns the next string token.<p>
+         *
+         * @return the string, may be <code>null</code>
+         *
+         * @throws IOException if the token is not a string token
+         */
+        String nextString() throws IOException {
+
+            String token = next();
+            if (NULL_TOKEN.equals(token)) {
+                return null;
+            }
+            if (!token.startsWith(STRING_PREFIX)) {
+                throw new IOException(token);
+            }
+            return URLDecoder.decode(token.substring(STRING_PREFIX.length()), UTF8);
+        }
+
+        /**
+         * Returns the next UUID.<p>
+         *
+         * @return the UUID, may be <code>null</code>
+         *
+         * @throws IOException if the token is not a valid UUID
+         */
+        CmsUUID nextUUID() throws IOException {
+
+            String value = nextString();
+            return (value != null) ? new CmsUUID(value) : null;
+        }
+
+        /**
+         * Returns the next value with its type tag.<p>
+         *
+         * @param allowList if a list is allowed as value
+         *
+         * @return the value
+         *
+         * @throws IOException if the tokens are not valid
+         */
+        Object nextValue(boolean allowList) throws IOException {
+
+            String type = next();
+            if (TYPE_STRING.equals(type)) {
+                return nextString();
+            } else if (TYPE_INTEGER.equals(type)) {
+                return new Integer(nextInt());
+            } else if (TYPE_LONG.equals(type)) {
+                return new Long(nextLong());
+            } else if (TYPE_BOOLEAN.equals(type)) {
+                return Boolean.valueOf(nextBoolean());
+            } else if (TYPE_UUID.equals(type)) {
+                return nextUUID();
+            } else if (TYPE_RESOURCE.equals(type)) {
+                return nextResource();
+            } else if (allowList && TYPE_LIST.equals(type)) {
+                int count = nextCount();
+                List<Object> result = new ArrayList<Object>(count);
+                for (int i = 0; i < count; i++) {
+                    result.add(nextValue(false));
+                }
+                return result;
+            }
+            throw new IOException(type);
+        }
+    }
+
+    /**
+     * Writes the tokens of an encoded message.<p>
+     */
+    private static class CmsTokenWriter {
+
+        /** The encoded tokens. */
+        private final StringBuffer m_buffer = new StringBuffer(256);
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+
+            return m_buffer.toString();
+        }
+
+        /**
+         * Writes a token which contains no spaces.<p>
+         *
+         * @param token the token
+         */
+        void write(String token) {
+
+            if (m_buffer.length() > 0) {
+                m_buffer.append(' ');
+            }
+            m_buffer.append(token);
+        }
+
+        /**
+         * Writes a published resource.<p>
+         *
+         * @param resource the published resource
+         *
+         * @throws UnsupportedEncodingException if UTF-8 is not supported
+         */
+        void writePublishedResource(CmsPublishedResource resource) throws UnsupportedEncodingException {
+
+            writeUUID(resource.getStructureId());
+            writeUUID(resource.getResourceId());
+            write(String.valueOf(resource.getPublishTag()));
+            writeString(resource.getRootPath());
+            write(String.valueOf(resource.getType()));
+            write(String.valueOf(resource.isFolder()));
+            write(String.valueOf(resource.getMovedState().getState()));
+            write(String.valueOf(resource.getSiblingCount()));
+        }
+
+        /**
+         * Writes a resource.<p>
+         *
+         * @param resource the resource
+         *
+         * @throws UnsupportedEncodingException if UTF-8 is not supported
+         */
+        void writeResource(CmsResource resource) throws UnsupportedEncodingException {
+
+            writeUUID(resource.getStructureId());
+            writeUUID(resource.getResourceId());
+            writeString(resource.getRootPath());
+            write(String.valueOf(resource.getTypeId()));
+            write(String.valueOf(resource.isFolder()));
+            write(String.valueOf(resource.getFlags()));
+            writeUUID(resource.getProjectLastModified());
+            write(String.valueOf(resource.getState().getState()));
+            write(String.valueOf(resource.getDateCreated()));
+            writeUUID(resource.getUserCreated());
+            write(String.valueOf(resource.getDateLastModified()));
+            writeUUID(resource.getUserLastModified());
+            write(String.valueOf(resource.getDateReleased()));
+            write(String.valueOf(resource.getDateExpired()));
+            write(String.valueOf(resource.getSiblingCount()));
+            write(String.valueOf(resource.getLength()));
+            write(String.valueOf(resource.getDateContent()));
+            write(String.valueOf(resource.getVersion()));
+        }
+
+        /**
+         * Writes a string, which may contain any characters.<p>
+         *
+         * @param value the string, may be <code>null</code>
+         *
+         * @throws UnsupportedEncodingException if UTF-8 is not supported
+         */
+        void writeString(String value) throws UnsupportedEncodingException {
+
+            write((value == null) ? NULL_TOKEN : STRING_PREFIX + URLEncoder.encode(value, UTF8));
+        }
+
+        /**
+         * Writes a UUID.<p>
+         *
+         * @param value the UUID, may be <code>null</code>
+         *
+         * @throws UnsupportedEncodingException if UTF-8 is not supported
+         */
+        void writeUUID(CmsUUID value) throws UnsupportedEncodingException {
+
+            writeString((value == null) ? null : value.toString());
+        }
+
+        /**
+         * Writes a value with its type tag.<p>
+         *
+         * @param value a value converted with {@link CmsClusterMessage#toTransferable(Object, boolean)}
+         *
+         * @throws UnsupportedEncodingException if UTF-8 is not supported
+         */
+        void writeValue(Object value) throws UnsupportedEncodingException {
+
+            if (value instanceof String) {
+                write(TYPE_STRING);
+                writeString((String)value);
+            } else if (value instanceof Integer) {
+                write(TYPE_INTEGER);
+                write(value.toString());
+            } else if (value instanceof Long) {
+                write(TYPE_LONG);
+                write(value.toString());
+            } else if (value instanceof Boolean) {
+                write(TYPE_BOOLEAN);
+                write(value.toString());
+            } else if (value instanceof CmsUUID) {
+                write(TYPE_UUID);
+                writeUUID((CmsUUID)value);
+            } else if (value instanceof CmsResource) {
+                write(TYPE_RESOURCE);
+                writeResource((CmsResource)value);
+            } else {
+                List<?> list = (List<?>)value;
+                write(TYPE_LIST);
+                write(String.valueOf(list.size()));
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cluster transport which sends the messages over TCP connections to a configured list of peer nodes.<p>
+ *
+ * Every node listens on the configured <code>host</code> and <code>port</code> and keeps one connection
+ * to each node configured in <code>peers</code>, as a comma separated list of <code>host:port</code> entries.
+ * The messages are written as one line of text each, so the messages of a node are received in the order
+ * they were sent. If a peer is not reachable, the message is dropped for that peer and the connection is opened
+ * again for the next message.<p>
+ *
+ * All messages are authenticated with the <code>secret</code> shared by the nodes. A connection which sends
+ * a message that is not authentic, or a line longer than {@link #MAX_MESSAGE_LENGTH}, is closed.
+ * Publish events which would be longer are sent without the list of published resources.
+ * The listen address must be configured explicitly, so the port is not opened on all interfaces by accident.<p>
+ *
+ * The optional parameter <code>timeout</code> is the connect timeout in milliseconds, and
+ * <code>maxconnections</code> is the maximum number of open incoming connections. Further connections are
+ * closed immediately.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsClusterSocketTransport implements I_CmsClusterTransport {
+
+    /** The default maximum number of open incoming connections. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+
+    /** The default connect timeout in milliseconds. */
+    public static final int DEFAULT_TIMEOUT = 5000;
+
+    /** The maximum length of a sent or received message in bytes. */
+    public static final int MAX_MESSAGE_LENGTH = 1024 * 1024;
+
+    /** The parameter for the address to listen on. */
+    public static final String PARAM_HOST = "host";
+
+    /** The parameter for the maximum number of open incoming connections. */
+    public static final String PARAM_MAXCONNECTIONS = "maxconnections";
+
+    /** The parameter for the peer nodes. */
+    public static final String PARAM_PEERS = "peers";
+
+    /** The parameter for the port to listen on. */
+    public static final String PARAM_PORT = "port";
+
+    /** The parameter for the connect timeout. */
+    public static final String PARAM_TIMEOUT = "timeout";
+
+    /** The encoding of the messages. */
+    private static final String ENCODING = "US-ASCII";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsClusterSocketTransport.class);
+
+    /** The cluster bus receiving the messages. */
+    private CmsClusterBus m_bus;
+
+    /** The configuration of this transport. */
+    private CmsParameterConfiguration m_configuration;
+
+    /** The open incoming connections. */
+    private final Set<Socket> m_connections = Collections.synchronizedSet(new HashSet<Socket>());
+
+    /** The maximum number of open incoming connections. */
+    private int m_maxConnections;
+
+    /** The peer nodes. */
+    private List<CmsClusterPeer> m_peers;
+
+    /** The secret used to authenticate the messages. */
+    private String m_secret;
+
+    /** The server socket, <code>null</code> if not started. */
+    private volatile ServerSocket m_serverSocket;
+
+    /** The connect timeout in milliseconds. */
+    private int m_timeout;
+
+    /**
+     * Creates a new socket transport.<p>
+     */
+    public CmsClusterSocketTransport() {
+
+        m_configuration = new CmsParameterConfiguration();
+        m_peers = Collections.emptyList();
+        m_timeout = DEFAULT_TIMEOUT;
+        m_maxConnections = DEFAULT_MAX_CONNECTIONS;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+     */
+    public void addConfigurationParameter(String paramName, String paramValue) {
+
+        m_configuration.add(paramName, paramValue);
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+     */
+    public CmsParameterConfiguration getConfiguration() {
+
+        return m_configuration;
+    }
+
+    /**
+     * Returns the port this transport listens on, or <code>-1</code> if it has not been started.<p>
+     *
+     * @return the port this transport listens on
+     */
+    public int getLocalPort() {
+
+        ServerSocket serverSocket = m_serverSocket;
+        return (serverSocket != null) ? serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+     */
+    public void initConfiguration() throws CmsConfigurationException {
+
+        for (String param : new String[] {PARAM_HOST, PARAM_PORT, CmsClusterBus.PARAM_SECRET}) {
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(m_configuration.getString(param, null))) {
+                throw new CmsConfigurationException(Messages.get().container(
+                    Messages.ERR_CLUSTER_PARAM_MISSING_2,
+                    param,
+                    getClass().getName()));
+            }
+        }
+        m_secret = m_configuration.getString(CmsClusterBus.PARAM_SECRET, null);
+        m_timeout = m_configuration.getInteger(PARAM_TIMEOUT, DEFAULT_TIMEOUT);
+        m_maxConnections = Math.max(1, m_configuration.getInteger(PARAM_MAXCONNECTIONS, DEFAULT_MAX_CONNECTIONS));
+        List<CmsClusterPeer> peers = new ArrayList<CmsClusterPeer>();
+        for (String peer : m_configuration.getList(PARAM_PEERS, Collections.<String> emptyList())) {
+            int pos = peer.lastIndexOf(':');
+            if (pos <= 0) {
+                throw new CmsConfigurationException(Messages.get().container(
+                    Messages.ERR_CLUSTER_INVALID_PEER_1,
+                    peer));
+            }
+            try {
+                peers.add(new CmsClusterPeer(
+                    peer.substring(0, pos).trim(),
+                    Integer.parseInt(peer.substring(pos + 1).trim())));
+            } catch (NumberFormatException e) {
+                throw new CmsConfigurationException(Messages.get().container(
+                    Messages.ERR_CLUSTER_INVALID_PEER_1,
+                    peer), e);
+            }
+        }
+        m_peers = peers;
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#send(org.opencms.cluster.CmsClusterMessage)
+     */
+    public void send(CmsClusterMessage message) throws IOException {
+
+        String line = message.encode(m_secret);
+        if ((line.length() > MAX_MESSAGE_LENGTH) && !message.getPublishedResources().isEmpty()) {
+            // the other nodes would close the connection, so send the publish event without the resources
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_CLUSTER_RESOURCES_OMITTED_2,
+                message,
+                String.valueOf(message.getPublishedResources().size())));
+            message.omitPublishedResources();
+            line = message.encode(m_secret);
+        }
+        if (line.length() > MAX_MESSAGE_LENGTH) {
+            throw new IOException(Messages.get().getBundle().key(
+                Messages.ERR_CLUSTER_MESSAGE_TOO_LONG_1,
+                String.valueOf(MAX_MESSAGE_LENGTH)));
+        }
+        for (CmsClusterPeer peer : m_peers) {
+            peer.send(line, m_timeout);
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#shutDown()
+     */
+    public void shutDown() {
+
+        ServerSocket serverSocket = m_serverSocket;
+        m_serverSocket = null;
+        if (serverSocket != null) {
+            closeQuietly(serverSocket);
+        }
+        synchronized (m_connections) {
+            for (Socket socket : m_connections) {
+                closeQuietly(socket);
+            }
+            m_connections.clear();
+        }
+        for (CmsClusterPeer peer : m_peers) {
+            peer.close();
+        }
+    }
+
+    /**
+     * @see org.opencms.cluster.I_CmsClusterTransport#start(org.opencms.cluster.CmsClusterBus)
+     */
+    public void start(CmsClusterBus bus) throws IOException {
+
+        m_bus = bus;
+        String host = m_configuration.getString(PARAM_HOST, null).trim();
+        ServerSocket serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(
+            InetAddress.getByName(host),
+            m_configuration.getInteger(PARAM_PORT, 0)));
+        m_serverSocket = serverSocket;
+        Thread thread = new Thread(new Runnable() {
+
+            public void run() {
+
+                acceptConnections();
+            }
+        }, "OpenCms: cluster listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Accepts the incoming connections until this transport is shut down.<p>
+     *
+     * Connections exceeding the maximum number of open connections are closed immediately.<p>
+     */
+    protected void acceptConnections() {
+
+        while (m_serverSocket != null) {
+            try {
+                final Socket socket = m_serverSocket.accept();
+                if (m_connections.size() >= m_maxConnections) {
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_CLUSTER_CONNECTION_REJECTED_2,
+                        socket.getRemoteSocketAddress(),
+                        String.valueOf(m_maxConnections)));
+                    closeQuietly(socket);
+                    continue;
+                }
+                m_connections.add(socket);
+                Thread thread = new Thread(new Runnable() {
+
+                    public void run() {
+
+                        readMessages(socket);
+                    }
+                }, "OpenCms: cluster connection " + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (Exception e) {
+                if (m_serverSocket != null) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the messages from an incoming connection until the connection is closed.<p>
+     *
+     * @param socket the incoming connection
+     */
+    protected void readMessages(Socket socket) {
+
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String line;
+            while ((line = readLine(in)) != null) {
+                CmsClusterMessage message;
+                try {
+                    message = CmsClusterMessage.decode(line, m_secret);
+                } catch (IOException e) {
+                    // the peer is not a cluster node with the same secret, do not read any further
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_CLUSTER_INVALID_MESSAGE_1,
+                        socket.getRemoteSocketAddress()), e);
+                    break;
+                }
+                m_bus.receive(message);
+            }
+        } catch (CmsMessageTooLongException e) {
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_CLUSTER_MESSAGE_TOO_LONG_2,
+                socket.getRemoteSocketAddress(),
+                String.valueOf(MAX_MESSAGE_LENGTH)), e);
+        } catch (IOException e) {
+            // connection closed by the peer or by shut down
+            LOG.debug(e.getLocalizedMessage(), e);
+        } finally {
+            m_connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Closes a socket and ignores all errors.<p>
+     *
+     * @param socket the socket to close
+     */
+    private static void closeQuietly(Object socket) {
+
+        try {
+            if (socket instanceof Socket) {
+                ((Socket)socket).close();
+            } else if (socket instanceof ServerSocket) {
+                ((ServerSocket)socket).close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * Reads a line of text, which may not be longer than {@link #MAX_MESSAGE_LENGTH}.<p>
+     *
+     * @param in the input stream to read from
+     *
+     * @return the line without line terminator, or <code>null</code> if the end of the stream has been reached
+     *
+     * @throws IOException if reading fails
+     * @throws CmsMessageTooLongException if the line is too long
+     */
+    private static String readLine(InputStream in) throws IOException {
+
+        StringBuffer result = new StringBuffer(256);
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                return result.toString();
+            }
+            if (result.length() >= MAX_MESSAGE_LENGTH) {
+                throw new CmsMessageTooLongException();
+            }
+            if (c != '\r') {
+                result.append((char)c);
+            }
+        }
+        return (result.length() > 0) ? result.toString() : null;
+    }
+
+    /**
+     * A peer node with the connection used to send messages to it.<p>
+     */
+    private static class CmsClusterPeer {
+
+        /** The host name of the peer. */
+        private final String m_host;
+
+        /** The port of the peer. */
+        private final int m_port;
+
+        /** The connection, <code>null</code> if not connected. */
+        private Socket m_socket;
+
+        /** The writer for the connection. */
+        private Writer m_writer;
+
+        /**
+         * Creates a new peer.<p>
+         *
+         * @param host the host name of the peer
+         * @param port the port of the peer
+         */
+        CmsClusterPeer(String host, int port) {
+
+            m_host = host;
+            m_port = port;
+        }
+
+        /**
+         * Closes the connection to the peer.<p>
+         */
+        synchronized void close() {
+
+            closeQuietly(m_socket);
+            m_socket = null;
+            m_writer = null;
+        }
+
+        /**
+         * Sends a line of text to the peer, opening the connection if necessary.<p>
+         *
+         * If writing to an existing connection fails, the connection is opened again once.<p>
+         *
+         * @param line the line to send
+         * @param timeout the connect timeout in milliseconds
+         */
+        synchronized void send(String line, int timeout) {
+
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    if (m_socket == null) {
+                        Socket socket = new Socket();
+                        socket.connect(new InetSocketAddress(m_host, m_port), timeout);
+                        socket.setTcpNoDelay(true);
+                        m_writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), ENCODING));
+                        m_socket = socket;
+                    }
+                    m_writer.write(line);
+                    m_writer.write('\n');
+                    m_writer.flush();
+                    return;
+                } catch (IOException e) {
+                    close();
+                    if (attempt > 0) {
+                        LOG.warn(Messages.get().getBundle().key(
+                            Messages.LOG_CLUSTER_PEER_UNREACHABLE_2,
+                            m_host,
+                            String.valueOf(m_port)), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Signals that a received line is longer than {@link CmsClusterSocketTransport#MAX_MESSAGE_LENGTH}.<p>
+     */
+    private static class CmsMessageTooLongException extends IOException {
+
+        /** Serial version UID required for safe serialization. */
+        private static final long serialVersionUID = -4466206187263531712L;
+
+        /**
+         * Creates a new exception.<p>
+         */
+        CmsMessageTooLongException() {
+
+            super(Messages.get().getBundle().key(
+                Messages.ERR_CLUSTER_MESSAGE_TOO_LONG_1,
+                String.valueOf(MAX_MESSAGE_LENGTH)));
+        }
+    }
+}
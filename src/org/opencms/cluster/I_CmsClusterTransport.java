@@ -0,0 +1,68 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.I_CmsConfigurationParameterHandler;
+
+/**
+ * Transports the events forwarded by the {@link CmsClusterBus} between the nodes of a cluster.<p>
+ *
+ * A transport does not need to guarantee that every message is delivered exactly once, since the cluster bus
+ * ignores repeated messages. It should deliver the messages of one node in the order they were sent.<p>
+ *
+ * The parameter <code>node</code> is read by the cluster bus and configures the name of the local node.<p>
+ *
+ * @since 8.5.2
+ */
+public interface I_CmsClusterTransport extends I_CmsConfigurationParameterHandler {
+
+    /**
+     * Sends a message to all other nodes of the cluster.<p>
+     *
+     * @param message the message to send
+     *
+     * @throws Exception if the message could not be sent
+     */
+    void send(CmsClusterMessage message) throws Exception;
+
+    /**
+     * Stops receiving messages and releases all resources of this transport.<p>
+     */
+    void shutDown();
+
+    /**
+     * Starts receiving messages from the other nodes of the cluster.<p>
+     *
+     * Received messages are passed to {@link CmsClusterBus#receive(CmsClusterMessage)}.<p>
+     *
+     * @param bus the cluster bus receiving the messages
+     *
+     * @throws Exception if the transport could not be started
+     */
+    void start(CmsClusterBus bus) throws Exception;
+}
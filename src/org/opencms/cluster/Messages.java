@@ -0,0 +1,133 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.i18n.A_CmsMessageBundle;
+import org.opencms.i18n.I_CmsMessageBundle;
+
+/**
+ * Convenience class to access the localized messages of this OpenCms package.<p> 
+ * 
+ * @since 8.5.2
+ */
+public final class Messages extends A_CmsMessageBundle {
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_INVALID_PEER_1 = "ERR_CLUSTER_INVALID_PEER_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_MESSAGE_NOT_AUTHENTIC_0 = "ERR_CLUSTER_MESSAGE_NOT_AUTHENTIC_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_MESSAGE_TOO_LONG_1 = "ERR_CLUSTER_MESSAGE_TOO_LONG_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_MESSAGE_TRUNCATED_0 = "ERR_CLUSTER_MESSAGE_TRUNCATED_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_CLUSTER_PARAM_MISSING_2 = "ERR_CLUSTER_PARAM_MISSING_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CLUSTER_SHUTDOWN_3 = "INIT_CLUSTER_SHUTDOWN_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CLUSTER_STARTED_2 = "INIT_CLUSTER_STARTED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_CONNECTION_REJECTED_2 = "LOG_CLUSTER_CONNECTION_REJECTED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_DUPLICATE_1 = "LOG_CLUSTER_DUPLICATE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_INVALID_MESSAGE_1 = "LOG_CLUSTER_INVALID_MESSAGE_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_MESSAGE_TOO_LONG_2 = "LOG_CLUSTER_MESSAGE_TOO_LONG_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_PEER_UNREACHABLE_2 = "LOG_CLUSTER_PEER_UNREACHABLE_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_POLL_FAILED_1 = "LOG_CLUSTER_POLL_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_QUEUE_DISCARDED_1 = "LOG_CLUSTER_QUEUE_DISCARDED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_READ_PUBLISHED_FAILED_1 = "LOG_CLUSTER_READ_PUBLISHED_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_RECEIVE_FAILED_1 = "LOG_CLUSTER_RECEIVE_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_RESOURCES_OMITTED_2 = "LOG_CLUSTER_RESOURCES_OMITTED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_SEND_FAILED_2 = "LOG_CLUSTER_SEND_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_SEND_QUEUE_FULL_1 = "LOG_CLUSTER_SEND_QUEUE_FULL_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_CLUSTER_TABLE_CREATED_2 = "LOG_CLUSTER_TABLE_CREATED_2";
+
+    /** Name of the used resource bundle. */
+    private static final String BUNDLE_NAME = "org.opencms.cluster.messages";
+
+    /** Static instance member. */
+    private static final I_CmsMessageBundle INSTANCE = new Messages();
+
+    /**
+     * Hides the public constructor for this utility class.<p>
+     */
+    private Messages() {
+
+        // hide the constructor
+    }
+
+    /**
+     * Returns an instance of this localized message accessor.<p>
+     * 
+     * @return an instance of this localized message accessor
+     */
+    public static I_CmsMessageBundle get() {
+
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the bundle name for this OpenCms package.<p>
+     * 
+     * @return the bundle name for this OpenCms package
+     */
+    public String getBundleName() {
+
+        return BUNDLE_NAME;
+    }
+}
@@ -27,6 +27,7 @@
 
 package org.opencms.configuration;
 
+import org.opencms.cluster.I_CmsClusterTransport;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDefaultUsers;
 import org.opencms.db.CmsLoginManager;
@@ -114,9 +115,24 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The "poolname" attribute. */
     public static final String A_POOLNAME = "poolname";
 
+    /** The "queuesize" attribute. */
+    public static final String A_QUEUESIZE = "queuesize";
+
     /** The "server" attribute. */
     public static final String A_SERVER = "server";
 
+    /** The "session" attribute. */
+    public static final String A_SESSION = "session";
+
+    /** The "threads" attribute. */
+    public static final String A_THREADS = "threads";
+
+    /** The "visitflushinterval" attribute. */
+    public static final String A_VISITFLUSHINTERVAL = "visitflushinterval";
+
+    /** The "visitqueue" attribute. */
+    public static final String A_VISITQUEUE = "visitqueue";
+
     /** The name of the DTD for this configuration. */
     public static final String CONFIGURATION_DTD_NAME = "opencms-system.dtd";
 
@@ -153,6 +169,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for a job class. */
     public static final String N_CLASS = "class";
 
+    /** The node name for the cluster transport node. */
+    public static final String N_CLUSTERTRANSPORT = "clustertransport";
+
     /** The configuration node name. */
     public static final String N_CONFIGURATION = "configuration";
 
@@ -189,6 +208,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the sitemap cache for documents. */
     public static final String N_DOCUMENTS = "documents";
 
+    /** The node name for the ADE element contents settings. */
+    public static final String N_ELEMENTCONTENTS = "elementcontents";
+
     /** The node name for the email-interval node. */
     public static final String N_EMAIL_INTERVAL = "email-interval";
 
@@ -273,6 +295,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the login message. */
     public static final String N_LOGINMESSAGE = "loginmessage";
 
+    /** The node name for the flex cache LRU stripes node. */
+    public static final String N_LRU_STRIPES = "lru-stripes";
+
     /** The node name for the mail configuration. */
     public static final String N_MAIL = "mail";
 
@@ -285,6 +310,12 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the login manager bad attempt count. */
     public static final String N_MAXBADATTEMPTS = "maxBadAttempts";
 
+    /** The node name for the max bad attempts per remote address node. */
+    public static final String N_MAXBADATTEMPTSADDRESS = "maxBadAttemptsAddress";
+
+    /** The node name for the max bad attempts per user node. */
+    public static final String N_MAXBADATTEMPTSUSER = "maxBadAttemptsUser";
+
     /** The node name for the maxcachebytes node. */
     public static final String N_MAXCACHEBYTES = "maxcachebytes";
 
@@ -294,6 +325,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The node name for the maxkeys node. */
     public static final String N_MAXKEYS = "maxkeys";
 
+    /** The node name for the max storage size node of the login manager. */
+    public static final String N_MAXSTORAGESIZE = "maxStorageSize";
+
     /** The node name for the maxusagepercent node. */
     public static final String N_MAXUSAGE_PERCENT = "maxusagepercent";
 
@@ -408,6 +442,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for ACLS. */
     public static final String N_SIZE_ACLS = "size-accesscontrollists";
 
+    /** The maximum size of each of the memory monitor's caches in bytes. */
+    public static final String N_SIZE_BYTES = "size-bytes";
+
     /** The node name for the workflow configuration. */
     public static final String N_WORKFLOW = "workflow";
 
@@ -417,6 +454,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The size of the memory monitor's cache for online container pages. */
     public static final String N_SIZE_CONTAINERPAGE_ONLINE = "size-containerpage-online";
 
+    /** The size of the memory monitor's cache for XML content definitions. */
+    public static final String N_SIZE_CONTENTDEFINITIONS = "size-contentdefinitions";
+
     /** The size of the memory monitor's cache for groups. */
     public static final String N_SIZE_GROUPS = "size-groups";
 
@@ -510,6 +550,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
     /** The settings of the memory monitor. */
     private CmsCacheSettings m_cacheSettings;
 
+    /** The configured cluster transport, <code>null</code> if events are not forwarded to other nodes. */
+    private I_CmsClusterTransport m_clusterTransport;
+
     /** The configured OpenCms default users and groups. */
     private CmsDefaultUsers m_cmsDefaultUsers;
 
@@ -630,6 +673,39 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
     }
 
+    /**
+     * Adds the event manager class with the settings for asynchronous event dispatch.<p>
+     * 
+     * @param clazz the class name of event manager class  to instantiate and add
+     * @param threads the number of threads for asynchronous event listeners, 
+     *      <code>null</code> or 0 to disable asynchronous event dispatch
+     * @param queueSize the maximum number of queued events per asynchronous event listener, may be <code>null</code>
+     */
+    public void addEventManager(String clazz, String threads, String queueSize) {
+
+        addEventManager(clazz);
+        if ((m_eventManager == null) || CmsStringUtil.isEmptyOrWhitespaceOnly(threads)) {
+            return;
+        }
+        int threadCount = 0;
+        int size = 0;
+        try {
+            threadCount = Integer.parseInt(threads.trim());
+            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(queueSize)) {
+                size = Integer.parseInt(queueSize.trim());
+            }
+        } catch (NumberFormatException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        m_eventManager.setAsyncDispatch(threadCount, size);
+        if ((threadCount > 0) && CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_EVENTMANAGER_ASYNC_2,
+                String.valueOf(m_eventManager.getAsyncThreads()),
+                String.valueOf(m_eventManager.getAsyncQueueSize())));
+        }
+    }
+
     /**
      * Adds a new job description for the scheduler.<p>
      * 
@@ -860,8 +936,20 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + I_CmsXmlConfiguration.N_PARAM, 1);
 
         // add event classes
-        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 1);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, "addEventManager", 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 0, A_CLASS);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 1, A_THREADS);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_EVENTMANAGER, 2, A_QUEUESIZE);
+
+        // add cluster transport creation rules
+        digester.addObjectCreate(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_CLUSTERTRANSPORT,
+            A_CLASS,
+            CmsConfigurationException.class);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_CLUSTERTRANSPORT,
+            I_CmsConfigurationParameterHandler.INIT_CONFIGURATION_METHOD);
+        digester.addSetNext("*/" + N_SYSTEM + "/" + N_EVENTS + "/" + N_CLUSTERTRANSPORT, "setClusterTransport");
 
         // add resource init classes
         digester.addCallMethod(
@@ -893,10 +981,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VALIDATIONHANDLER, 0, A_CLASS);
 
         // add login manager creation rules
-        digester.addCallMethod("*/" + N_LOGINMANAGER, "setLoginManager", 3);
+        digester.addCallMethod("*/" + N_LOGINMANAGER, "setLoginManager", 6);
         digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_DISABLEMINUTES, 0);
         digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_MAXBADATTEMPTS, 1);
         digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_ENABLESCURITY, 2);
+        digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_MAXBADATTEMPTSUSER, 3);
+        digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_MAXBADATTEMPTSADDRESS, 4);
+        digester.addCallParam("*/" + N_LOGINMANAGER + "/" + N_MAXSTORAGESIZE, 5);
 
         // add login message creation rules
         digester.addObjectCreate("*/" + N_LOGINMESSAGE, CmsLoginMessage.class);
@@ -996,6 +1087,8 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "setDeviceSelectorConfiguration",
             1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_DEVICESELECTOR, 0, A_CLASS);
+        // add flexcache LRU stripes
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_LRU_STRIPES, "setLruStripes", 0);
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -1049,6 +1142,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_PERMISSIONS,
             "setPermissionCacheSize",
             0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTENTDEFINITIONS,
+            "setContentDefinitionCacheSize",
+            0);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_BYTES, "setMaxCacheBytes", 0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_RESULTCACHE + "/" + N_SIZE_CONTAINERPAGE_OFFLINE,
             "setContainerPageOfflineSize",
@@ -1130,6 +1228,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_OFFLINE);
         digester.addCallMethod(adeCachePath + "/" + N_GROUPCONTAINERS, "setGroupContainerOnlineSize", 1);
         digester.addCallParam(adeCachePath + "/" + N_GROUPCONTAINERS, 0, A_ONLINE);
+        // element contents
+        digester.addCallMethod(adeCachePath + "/" + N_ELEMENTCONTENTS, "setElementSessionCacheSize", 1);
+        digester.addCallParam(adeCachePath + "/" + N_ELEMENTCONTENTS, 0, A_SESSION);
+        digester.addCallMethod(adeCachePath + "/" + N_ELEMENTCONTENTS, "setElementRenderThreads", 1);
+        digester.addCallParam(adeCachePath + "/" + N_ELEMENTCONTENTS, 0, A_THREADS);
         // set the settings
         digester.addSetNext(adeCachePath, "setAdeCacheSettings");
 
@@ -1141,6 +1244,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, 0, A_POOLNAME);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, "setMaxVisitedCount", 1);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, 0, A_MAXVISITED);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, "setVisitQueueSize", 1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, 0, A_VISITQUEUE);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, "setVisitFlushInterval", 1);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, 0, A_VISITFLUSHINTERVAL);
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_SUBSCRIPTIONMANAGER, "setSubscriptionManager");
 
         String workflowXpath = "*/" + N_SYSTEM + "/" + N_WORKFLOW;
@@ -1241,6 +1348,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         Element eventsElement = systemElement.addElement(N_EVENTS);
         Element eventManagerElement = eventsElement.addElement(N_EVENTMANAGER);
         eventManagerElement.addAttribute(A_CLASS, m_eventManager.getClass().getName());
+        if (m_eventManager.getAsyncThreads() > 0) {
+            eventManagerElement.addAttribute(A_THREADS, String.valueOf(m_eventManager.getAsyncThreads()));
+            eventManagerElement.addAttribute(A_QUEUESIZE, String.valueOf(m_eventManager.getAsyncQueueSize()));
+        }
+        if (m_clusterTransport != null) {
+            Element clusterTransportElement = eventsElement.addElement(N_CLUSTERTRANSPORT);
+            clusterTransportElement.addAttribute(A_CLASS, m_clusterTransport.getClass().getName());
+            CmsParameterConfiguration transportParameters = m_clusterTransport.getConfiguration();
+            if (transportParameters != null) {
+                transportParameters.appendToXml(clusterTransportElement);
+            }
+        }
 
         // version history
         Element historyElement = systemElement.addElement(N_VERSIONHISTORY);
@@ -1289,6 +1408,19 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             managerElement.addElement(N_DISABLEMINUTES).addText(String.valueOf(m_loginManager.getDisableMinutes()));
             managerElement.addElement(N_MAXBADATTEMPTS).addText(String.valueOf(m_loginManager.getMaxBadAttempts()));
             managerElement.addElement(N_ENABLESCURITY).addText(String.valueOf(m_loginManager.isEnableSecurity()));
+            if (m_loginManager.getMaxBadAttemptsUser() > 0) {
+                managerElement.addElement(N_MAXBADATTEMPTSUSER).addText(
+                    String.valueOf(m_loginManager.getMaxBadAttemptsUser()));
+            }
+            if (m_loginManager.getMaxBadAttemptsAddress() > 0) {
+                managerElement.addElement(N_MAXBADATTEMPTSADDRESS).addText(
+                    String.valueOf(m_loginManager.getMaxBadAttemptsAddress()));
+            }
+            if ((m_loginManager.getMaxStorageSize() > 0)
+                && (m_loginManager.getMaxStorageSize() != CmsLoginManager.MAX_STORAGE_SIZE_DEFAULT)) {
+                managerElement.addElement(N_MAXSTORAGESIZE).addText(
+                    String.valueOf(m_loginManager.getMaxStorageSize()));
+            }
         }
 
         // login message
@@ -1437,6 +1569,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 A_CLASS,
                 m_cmsFlexCacheConfiguration.getDeviceSelectorConfiguration());
         }
+        if (m_cmsFlexCacheConfiguration.getLruStripes() > 0) {
+            flexcacheElement.addElement(N_LRU_STRIPES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getLruStripes()));
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1476,6 +1612,13 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         }
         cacheElement.addElement(N_SIZE_ACLS).setText(Integer.toString(m_cacheSettings.getAclCacheSize()));
         cacheElement.addElement(N_SIZE_PERMISSIONS).setText(Integer.toString(m_cacheSettings.getPermissionCacheSize()));
+        if (m_cacheSettings.getConfiguredContentDefinitionCacheSize() > -1) {
+            cacheElement.addElement(N_SIZE_CONTENTDEFINITIONS).setText(
+                Integer.toString(m_cacheSettings.getConfiguredContentDefinitionCacheSize()));
+        }
+        if (m_cacheSettings.getMaxCacheBytes() > 0) {
+            cacheElement.addElement(N_SIZE_BYTES).setText(Long.toString(m_cacheSettings.getMaxCacheBytes()));
+        }
 
         // content notification settings
         if ((m_notificationTime != null) || (m_notificationProject != null)) {
@@ -1552,6 +1695,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
                 groupContainerCacheElem.addAttribute(A_OFFLINE, ""
                     + getAdeCacheSettings().getGroupContainerOfflineSize());
                 groupContainerCacheElem.addAttribute(A_ONLINE, "" + getAdeCacheSettings().getGroupContainerOnlineSize());
+                // element contents
+                if ((getAdeCacheSettings().getElementSessionCacheSize() > 0)
+                    || (getAdeCacheSettings().getElementRenderThreads() > 0)) {
+                    Element elementContentsElem = cacheElem.addElement(N_ELEMENTCONTENTS);
+                    elementContentsElem.addAttribute(A_SESSION, ""
+                        + getAdeCacheSettings().getElementSessionCacheSize());
+                    elementContentsElem.addAttribute(A_THREADS, "" + getAdeCacheSettings().getElementRenderThreads());
+                }
             }
         }
 
@@ -1561,6 +1712,14 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             subscrManElem.addAttribute(A_ENABLED, Boolean.toString(getSubscriptionManager().isEnabled()));
             subscrManElem.addAttribute(A_POOLNAME, getSubscriptionManager().getPoolName());
             subscrManElem.addAttribute(A_MAXVISITED, String.valueOf(getSubscriptionManager().getMaxVisitedCount()));
+            if (getSubscriptionManager().getVisitQueueSize() > 0) {
+                subscrManElem.addAttribute(
+                    A_VISITQUEUE,
+                    String.valueOf(getSubscriptionManager().getVisitQueueSize()));
+                subscrManElem.addAttribute(
+                    A_VISITFLUSHINTERVAL,
+                    String.valueOf(getSubscriptionManager().getVisitFlushInterval()));
+            }
         }
 
         I_CmsWorkflowManager workflowMan = getWorkflowManager();
@@ -1639,6 +1798,16 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         return m_cacheSettings;
     }
 
+    /**
+     * Returns the configured cluster transport.<p>
+     *
+     * @return the cluster transport, or <code>null</code> if events are not forwarded to other nodes
+     */
+    public I_CmsClusterTransport getClusterTransport() {
+
+        return m_clusterTransport;
+    }
+
     /**
      * Returns the default users.<p>
      *
@@ -2050,6 +2219,21 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
         m_cacheSettings = settings;
     }
 
+    /**
+     * Sets the cluster transport used to forward events to the other nodes of a cluster.<p>
+     *
+     * @param clusterTransport the cluster transport
+     */
+    public void setClusterTransport(I_CmsClusterTransport clusterTransport) {
+
+        m_clusterTransport = clusterTransport;
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_CLUSTER_TRANSPORT_1,
+                clusterTransport.getClass().getName()));
+        }
+    }
+
     /**
      * Sets the CmsDefaultUsers.<p>
      * 
@@ -2198,6 +2382,27 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
      */
     public void setLoginManager(String disableMinutesStr, String maxBadAttemptsStr, String enableSecurityStr) {
 
+        setLoginManager(disableMinutesStr, maxBadAttemptsStr, enableSecurityStr, null, null, null);
+    }
+
+    /**
+     * Sets the configured login manager, with the optional limits for bad logins per user and per remote IP.<p>
+     *
+     * @param maxBadAttemptsStr the number of allowed bad login attempts
+     * @param disableMinutesStr the time an account gets locked if to many bad logins are attempted
+     * @param enableSecurityStr flag to determine if the security option should be enabled on the login dialog
+     * @param maxBadAttemptsUserStr the number of allowed bad login attempts per user for all remote IPs
+     * @param maxBadAttemptsAddressStr the number of allowed bad login attempts per remote IP for all users
+     * @param maxStorageSizeStr the maximum number of entries stored for each kind of limit
+     */
+    public void setLoginManager(
+        String disableMinutesStr,
+        String maxBadAttemptsStr,
+        String enableSecurityStr,
+        String maxBadAttemptsUserStr,
+        String maxBadAttemptsAddressStr,
+        String maxStorageSizeStr) {
+
         int disableMinutes;
         try {
             disableMinutes = Integer.valueOf(disableMinutesStr).intValue();
@@ -2211,13 +2416,32 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration {
             maxBadAttempts = CmsLoginManager.MAX_BAD_ATTEMPTS_DEFAULT;
         }
         boolean enableSecurity = Boolean.valueOf(enableSecurityStr).booleanValue();
-        m_loginManager = new CmsLoginManager(disableMinutes, maxBadAttempts, enableSecurity);
+        int maxBadAttemptsUser = CmsStringUtil.getIntValue(maxBadAttemptsUserStr, -1, N_MAXBADATTEMPTSUSER);
+        int maxBadAttemptsAddress = CmsStringUtil.getIntValue(maxBadAttemptsAddressStr, -1, N_MAXBADATTEMPTSADDRESS);
+        int maxStorageSize = CmsStringUtil.getIntValue(
+            maxStorageSizeStr,
+            CmsLoginManager.MAX_STORAGE_SIZE_DEFAULT,
+            N_MAXSTORAGESIZE);
+        m_loginManager = new CmsLoginManager(
+            disableMinutes,
+            maxBadAttempts,
+            enableSecurity,
+            maxBadAttemptsUser,
+            maxBadAttemptsAddress,
+            maxStorageSize);
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOGINMANAGER_3,
                 new Integer(disableMinutes),
                 new Integer(maxBadAttempts),
                 new Boolean(enableSecurity)));
+            if ((m_loginManager.getMaxBadAttemptsUser() > 0) || (m_loginManager.getMaxBadAttemptsAddress() > 0)) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_LOGINMANAGER_LIMITS_3,
+                    new Integer(m_loginManager.getMaxBadAttemptsUser()),
+                    new Integer(m_loginManager.getMaxBadAttemptsAddress()),
+                    new Integer(m_loginManager.getMaxStorageSize())));
+            }
         }
     }
 
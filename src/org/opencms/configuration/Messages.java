@@ -64,6 +64,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_CHECKING_DEFAULT_USER_NAMES_0 = "INIT_CHECKING_DEFAULT_USER_NAMES_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_CLUSTER_TRANSPORT_1 = "INIT_CLUSTER_TRANSPORT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_CONFIG_I18N_FINISHED_0 = "INIT_CONFIG_I18N_FINISHED_0";
 
@@ -73,6 +76,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_DELETED_RESOURCE_USER_1 = "INIT_DELETED_RESOURCE_USER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EVENTMANAGER_ASYNC_2 = "INIT_EVENTMANAGER_ASYNC_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_EVENTMANAGER_CLASS_INVALID_1 = "INIT_EVENTMANAGER_CLASS_INVALID_1";
 
@@ -103,6 +109,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LOGINMANAGER_3 = "INIT_LOGINMANAGER_3";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_LOGINMANAGER_LIMITS_3 = "INIT_LOGINMANAGER_LIMITS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LOGINMESSAGE_3 = "INIT_LOGINMESSAGE_3";
 
@@ -27,6 +27,8 @@
 
 package org.opencms.db;
 
+import org.opencms.xml.CmsXmlEntityResolver;
+
 /**
  * The settings of the OpenCms memory monitor.<p>
  * 
@@ -40,9 +42,15 @@ public class CmsCacheSettings {
     /** The name of the class to generate cache keys. */
     private String m_cacheKeyGenerator;
 
+    /** The size of the memory monitor's cache for XML content definitions. */
+    private int m_contentDefinitionCacheSize = -1; // this configuration entry is optional
+
     /** The size of the memory monitor's cache for groups. */
     private int m_groupCacheSize;
 
+    /** The maximum size of each of the memory monitor's caches in bytes, 0 for no limit. */
+    private long m_maxCacheBytes; // this configuration entry is optional
+
     /** The size of the memory monitor's cache for organizational units. */
     private int m_orgUnitCacheSize = -1; // this configuration entry is optional 
 
@@ -104,6 +112,18 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the size of the memory monitor's cache for XML content definitions.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the size of the memory monitor's cache for XML content definitions
+     */
+    public int getConfiguredContentDefinitionCacheSize() {
+
+        return m_contentDefinitionCacheSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      *
@@ -152,6 +172,19 @@ public class CmsCacheSettings {
         return m_rolesCacheSize;
     }
 
+    /**
+     * Returns the size of the memory monitor's cache for XML content definitions.<p>
+     *
+     * @return the size of the memory monitor's cache for XML content definitions
+     */
+    public int getContentDefinitionCacheSize() {
+
+        if (m_contentDefinitionCacheSize < 0) {
+            return CmsXmlEntityResolver.CONTENT_DEFINITION_CACHE_SIZE;
+        }
+        return m_contentDefinitionCacheSize;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for groups.<p>
      *
@@ -162,6 +195,16 @@ public class CmsCacheSettings {
         return m_groupCacheSize;
     }
 
+    /**
+     * Returns the maximum size of each of the memory monitor's caches in bytes.<p>
+     * 
+     * @return the maximum size of each of the memory monitor's caches in bytes, or 0 for no limit
+     */
+    public long getMaxCacheBytes() {
+
+        return m_maxCacheBytes;
+    }
+
     /**
      * Returns the size of the memory monitor's cache for organizational units.<p>
      * 
@@ -304,6 +347,16 @@ public class CmsCacheSettings {
         m_cacheKeyGenerator = classname;
     }
 
+    /**
+     * Sets the size of the memory monitor's cache for XML content definitions.<p>
+     *
+     * @param size the size of the memory monitor's cache for XML content definitions
+     */
+    public void setContentDefinitionCacheSize(String size) {
+
+        m_contentDefinitionCacheSize = getIntValue(size, CmsXmlEntityResolver.CONTENT_DEFINITION_CACHE_SIZE);
+    }
+
     /**
      * Sets the size of the memory monitor's cache for groups.<p>
      *
@@ -314,6 +367,22 @@ public class CmsCacheSettings {
         m_groupCacheSize = getIntValue(size, 64);
     }
 
+    /**
+     * Sets the maximum size of each of the memory monitor's caches in bytes.<p>
+     * 
+     * Values that are not positive numbers disable the limit.<p>
+     *
+     * @param size the maximum size of each of the memory monitor's caches in bytes
+     */
+    public void setMaxCacheBytes(String size) {
+
+        try {
+            m_maxCacheBytes = Math.max(0, Long.parseLong(size.trim()));
+        } catch (NumberFormatException e) {
+            m_maxCacheBytes = 0;
+        }
+    }
+
     /**
      * Sets the size of the memory monitor's cache for organizational units.<p>
      *
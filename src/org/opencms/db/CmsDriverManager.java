@@ -114,6 +114,7 @@ import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.workplace.commons.CmsProgressThread;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -223,6 +224,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** "driver.project" string in the configuration-file. */
     public static final String CONFIGURATION_PROJECT = "driver.project";
 
+    /** "relations.validation" string in the configuration-file. */
+    public static final String CONFIGURATION_RELATION_VALIDATION = "relations.validation";
+
     /** "subscription.vfs" string in the configuration file. */
     public static final String CONFIGURATION_SUBSCRIPTION = "driver.subscription";
 
@@ -361,6 +365,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The subscription driver. */
     private I_CmsSubscriptionDriver m_subscriptionDriver;
 
+    /** The cached user counts of organizational units and groups. */
+    private CmsUserCountCache m_userCountCache;
+
     /** The user driver. */
     private I_CmsUserDriver m_userDriver;
 
@@ -698,6 +705,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         //add this user to the group
         getUserDriver(dbc).createUserInGroup(dbc, user.getId(), group.getId());
+        m_userCountCache.userAddedToGroup(user, group);
 
         // flush the cache
         if (readRoles) {
@@ -983,9 +991,14 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 m_monitor.clearCache();
+                m_userCountCache.clear();
                 break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
+                m_monitor.clearPrincipalsCache();
+                m_userCountCache.clear();
+                break;
             case I_CmsEventListener.EVENT_USER_MODIFIED:
+                // the user counts are adjusted directly by the methods which modify users
                 m_monitor.clearPrincipalsCache();
                 break;
             default:
@@ -2155,6 +2168,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             I_CmsPrincipal.FLAG_ENABLED + flags,
             0,
             info);
+        m_userCountCache.userCreated(user);
 
         if (!dbc.getProjectId().isNullUUID()) {
             // user modified event is not needed
@@ -2327,6 +2341,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             onlineProject,
             group.getId());
         getUserDriver(dbc).deleteGroup(dbc, group.getName());
+        m_userCountCache.groupDeleted(group);
         // backup the group
         getHistoryDriver(dbc).writePrincipal(dbc, group);
         if (OpenCms.getSubscriptionManager().isEnabled()) {
@@ -2590,6 +2605,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // remove the organizational unit itself
         getUserDriver(dbc).deleteOrganizationalUnit(dbc, organizationalUnit);
+        m_userCountCache.clear();
 
         // write the publish history entry
         getProjectDriver(dbc).writePublishHistory(
@@ -3167,6 +3183,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getUserDriver(dbc).removeAccessControlEntriesForPrincipal(dbc, project, onlineProject, user.getId());
         getHistoryDriver(dbc).writePrincipal(dbc, user);
         getUserDriver(dbc).deleteUser(dbc, username);
+        m_userCountCache.userDeleted(user);
         // delete user from cache
         m_monitor.clearUserCache(user);
 
@@ -3242,6 +3259,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
             m_monitor.clearCache();
 
             m_lockManager = null;
+            if (m_htmlLinkValidator != null) {
+                m_htmlLinkValidator.shutDown();
+            }
             m_htmlLinkValidator = null;
         } catch (Throwable t) {
             // ignore
@@ -3285,115 +3305,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public void fillPublishList(CmsDbContext dbc, CmsPublishList publishList) throws CmsException {
 
-        if (!publishList.isDirectPublish()) {
-            // when publishing a project
-            // all modified resources with the last change done in the current project are candidates if unlocked
-            List<CmsResource> folderList = getVfsDriver(dbc).readResourceTree(
-                dbc,
-                dbc.currentProject().getUuid(),
-                CmsDriverManager.READ_IGNORE_PARENT,
-                CmsDriverManager.READ_IGNORE_TYPE,
-                CmsResource.STATE_UNCHANGED,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READMODE_INCLUDE_TREE
-                    | CmsDriverManager.READMODE_INCLUDE_PROJECT
-                    | CmsDriverManager.READMODE_EXCLUDE_STATE
-                    | CmsDriverManager.READMODE_ONLY_FOLDERS);
-
-            publishList.addAll(filterResources(dbc, null, folderList), true);
-
-            List<CmsResource> fileList = getVfsDriver(dbc).readResourceTree(
-                dbc,
-                dbc.currentProject().getUuid(),
-                CmsDriverManager.READ_IGNORE_PARENT,
-                CmsDriverManager.READ_IGNORE_TYPE,
-                CmsResource.STATE_UNCHANGED,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READ_IGNORE_TIME,
-                CmsDriverManager.READMODE_INCLUDE_TREE
-                    | CmsDriverManager.READMODE_INCLUDE_PROJECT
-                    | CmsDriverManager.READMODE_EXCLUDE_STATE
-                    | CmsDriverManager.READMODE_ONLY_FILES);
-
-            publishList.addAll(filterResources(dbc, publishList, fileList), true);
-        } else {
-            // this is a direct publish
-            Iterator<CmsResource> it = publishList.getDirectPublishResources().iterator();
-            while (it.hasNext()) {
-                // iterate all resources in the direct publish list
-                CmsResource directPublishResource = it.next();
-                if (directPublishResource.isFolder()) {
-                    // when publishing a folder directly,
-                    // the folder and all modified resources within the tree below this folder
-                    // and with the last change done in the current project are candidates if lockable
-                    CmsLock lock = getLock(dbc, directPublishResource);
-                    if (!directPublishResource.getState().isUnchanged() && lock.isLockableBy(dbc.currentUser())) {
-
-                        try {
-                            m_securityManager.checkPermissions(
-                                dbc,
-                                directPublishResource,
-                                CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                                false,
-                                CmsResourceFilter.ALL);
-                            publishList.add(directPublishResource, true);
-                        } catch (CmsException e) {
-                            // skip if not enough permissions
-                        }
-                    }
-                    boolean shouldPublishDeletedSubResources = publishList.isUserPublishList()
-                        && directPublishResource.getState().isDeleted();
-                    if (publishList.isPublishSubResources() || shouldPublishDeletedSubResources) {
-                        addSubResources(dbc, publishList, directPublishResource);
-                    }
-                } else if (directPublishResource.isFile() && !directPublishResource.getState().isUnchanged()) {
-
-                    // when publishing a file directly this file is the only candidate
-                    // if it is modified and lockable
-                    CmsLock lock = getLock(dbc, directPublishResource);
-                    if (lock.isLockableBy(dbc.currentUser())) {
-                        // check permissions
-                        try {
-                            m_securityManager.checkPermissions(
-                                dbc,
-                                directPublishResource,
-                                CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                                false,
-                                CmsResourceFilter.ALL);
-                            publishList.add(directPublishResource, true);
-                        } catch (CmsException e) {
-                            // skip if not enough permissions
-                        }
-                    }
-                }
-            }
-        }
-
-        // Step 2: if desired, extend the list of files to publish with related siblings
-        if (publishList.isPublishSiblings()) {
-            List<CmsResource> publishFiles = publishList.getFileList();
-            int size = publishFiles.size();
-
-            // Improved: first calculate closure of all siblings, then filter and add them
-            Set<CmsResource> siblingsClosure = new HashSet<CmsResource>(publishFiles);
-            for (int i = 0; i < size; i++) {
-                CmsResource currentFile = publishFiles.get(i);
-                if (currentFile.getSiblingCount() > 1) {
-                    siblingsClosure.addAll(readSiblings(dbc, currentFile, CmsResourceFilter.ALL_MODIFIED));
-                }
-            }
-            publishList.addAll(filterSiblings(dbc, publishList, siblingsClosure), true);
-        }
-        publishList.initialize();
+        new CmsPublishListBuilder(this, dbc, publishList).fill();
     }
 
     /**
@@ -5056,6 +4968,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             flags,
             dateCreated,
             additionalInfos);
+        m_userCountCache.userCreated(newUser);
         return newUser;
     }
 
@@ -5092,6 +5005,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
         // store local reference to the memory monitor to avoid multiple lookups through the OpenCms singelton
         m_monitor = OpenCms.getMemoryMonitor();
+        m_userCountCache = new CmsUserCountCache(m_monitor);
 
         CmsSystemConfiguration systemConfiguation = (CmsSystemConfiguration)configurationManager.getConfiguration(CmsSystemConfiguration.class);
         CmsCacheSettings settings = systemConfiguation.getCacheSettings();
@@ -5101,6 +5015,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // initialize the HTML link validator
         m_htmlLinkValidator = new CmsRelationSystemValidator(this);
+        m_htmlLinkValidator.setDbContextFactory(dbContextFactory);
+        if (m_propertyConfiguration != null) {
+            m_htmlLinkValidator.setBulkValidation(m_propertyConfiguration.getBoolean(
+                CONFIGURATION_RELATION_VALIDATION + ".bulk",
+                false));
+            m_htmlLinkValidator.setThreads(m_propertyConfiguration.getInteger(
+                CONFIGURATION_RELATION_VALIDATION + ".threads",
+                1));
+        }
 
         // fills the defaults if needed
         CmsDbContext dbc1 = dbContextFactory.getDbContext();
@@ -5586,6 +5509,21 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getSubscriptionDriver().markResourceAsVisitedBy(dbc, poolName, resource, user);
     }
 
+    /**
+     * Writes the given visits, replacing the existing visits of the same users to the same resources.<p>
+     *
+     * @param dbc the database context
+     * @param poolName the name of the database pool to use
+     * @param visits the visits to write
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void markResourcesAsVisited(CmsDbContext dbc, String poolName, List<CmsVisitEntry> visits)
+    throws CmsException {
+
+        getSubscriptionDriver().markResourcesAsVisited(dbc, poolName, visits);
+    }
+
     /**
      * Moves a resource.<p>
      *
@@ -6680,6 +6618,51 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return file;
     }
 
+    /**
+     * Reads several file resources (including their binary content) from the VFS.<p>
+     *
+     * The contents of the files are read with as few database queries as possible.
+     * Historical resources and resources which content can not be read in bulk are read
+     * one by one with {@link #readFile(CmsDbContext, CmsResource)}.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the base file resources (without content)
+     *
+     * @return the files read from the VFS, in the order of the given resources
+     *
+     * @throws CmsException if operation was not successful
+     */
+    public List<CmsFile> readFiles(CmsDbContext dbc, List<CmsResource> resources) throws CmsException {
+
+        List<CmsUUID> resourceIds = new ArrayList<CmsUUID>(resources.size());
+        for (CmsResource resource : resources) {
+            if (resource.isFile() && !(resource instanceof I_CmsHistoryResource)) {
+                resourceIds.add(resource.getResourceId());
+            }
+        }
+        Map<CmsUUID, byte[]> contents = Collections.emptyMap();
+        if (!resourceIds.isEmpty()) {
+            contents = getVfsDriver(dbc).readContents(dbc, dbc.currentProject().getUuid(), resourceIds);
+        }
+
+        List<CmsFile> result = new ArrayList<CmsFile>(resources.size());
+        for (CmsResource resource : resources) {
+            byte[] content = null;
+            if (!(resource instanceof I_CmsHistoryResource)) {
+                content = contents.get(resource.getResourceId());
+            }
+            if (content != null) {
+                CmsFile file = new CmsFile(resource);
+                file.setContents(content);
+                result.add(file);
+            } else {
+                // this will read the historical content or throw the appropriate exception
+                result.add(readFile(dbc, resource));
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads a folder from the VFS,
      * using the specified resource filter.<p>
@@ -7312,6 +7295,67 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return new ArrayList<CmsProperty>(properties);
     }
 
+    /**
+     * Reads all property objects directly mapped to several resources.<p>
+     *
+     * The properties of the resources which are not already cached are read with as few
+     * database queries as possible, and are cached the same way as by
+     * {@link #readPropertyObjects(CmsDbContext, CmsResource, boolean)} without searching the parent folders.<p>
+     *
+     * All properties in the result lists will be in frozen (read only) state.<p>
+     *
+     * @param dbc the current database context
+     * @param resources the resources where the properties are read from
+     *
+     * @return the lists of properties, by structure id of the resources
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsDbContext dbc, List<CmsResource> resources)
+    throws CmsException {
+
+        CmsUUID projectId = getProjectIdForContext(dbc);
+        boolean useCache = dbc.getProjectId().isNullUUID();
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        List<CmsResource> missing = new ArrayList<CmsResource>();
+        for (CmsResource resource : resources) {
+            List<CmsProperty> properties = null;
+            if (useCache) {
+                properties = m_monitor.getCachedPropertyList(getCacheKey(
+                    CACHE_ALL_PROPERTIES,
+                    false,
+                    projectId,
+                    resource.getRootPath()));
+            }
+            if (properties != null) {
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            } else {
+                missing.add(resource);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<CmsUUID, List<CmsProperty>> read = getVfsDriver(dbc).readPropertyObjects(
+                dbc,
+                dbc.currentProject(),
+                missing);
+            for (CmsResource resource : missing) {
+                List<CmsProperty> properties = read.get(resource.getStructureId());
+                if (properties == null) {
+                    properties = new ArrayList<CmsProperty>();
+                }
+                CmsProperty.setFrozen(properties);
+                if (useCache) {
+                    m_monitor.cachePropertyList(
+                        getCacheKey(CACHE_ALL_PROPERTIES, false, projectId, resource.getRootPath()),
+                        properties);
+                }
+                result.put(resource.getStructureId(), new ArrayList<CmsProperty>(properties));
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -7390,7 +7434,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     public byte[] readPublishReportContents(CmsDbContext dbc, CmsUUID publishHistoryId) throws CmsException {
 
-        return getProjectDriver(dbc).readPublishReportContents(dbc, publishHistoryId);
+        byte[] contents = getProjectDriver(dbc).readPublishReportContents(dbc, publishHistoryId);
+        try {
+            // publish reports are stored compressed
+            return CmsPublishReport.uncompress(contents);
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(
+                Messages.ERR_READ_PUBLISH_REPORT_1,
+                publishHistoryId.toString()), e);
+        }
     }
 
     /**
@@ -7716,6 +7768,35 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return updateContextDates(dbc, siblings, filter);
     }
 
+    /**
+     * Returns all siblings of the resources with the given resource ids.<p>
+     *
+     * All siblings are read with a single set based query, which is a lot faster than calling
+     * {@link #readSiblings(CmsDbContext, CmsResource, CmsResourceFilter)} for each resource.<p>
+     *
+     * @param dbc the current database context
+     * @param resourceIds the resource ids to read the siblings for
+     * @param filter a filter object
+     *
+     * @return a list of <code>{@link CmsResource}</code> objects sorted by root path
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> readSiblingsForResources(
+        CmsDbContext dbc,
+        Collection<CmsUUID> resourceIds,
+        CmsResourceFilter filter) throws CmsException {
+
+        List<CmsResource> siblings = getVfsDriver(dbc).readSiblingsForResources(
+            dbc,
+            dbc.currentProject().getUuid(),
+            resourceIds,
+            filter.includeDeleted());
+
+        // no permission check here, see #readSiblings(CmsDbContext, CmsResource, CmsResourceFilter)
+        return updateContextDates(dbc, siblings, filter);
+    }
+
     /**
      * Returns the parameters of a resource in the table of all published template resources.<p>
      *
@@ -8116,6 +8197,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         }
         getUserDriver(dbc).deleteUserInGroup(dbc, user.getId(), group.getId());
+        m_userCountCache.userRemovedFromGroup(user, group);
 
         // flush relevant caches
         if (readRoles) {
@@ -8785,6 +8867,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         getUserDriver(dbc).setUsersOrganizationalUnit(dbc, orgUnit, user);
         // remove the principal from cache
         m_monitor.clearUserCache(user);
+        m_userCountCache.userMoved(user, readUser(dbc, user.getId()));
 
         if (!dbc.getProjectId().isNullUUID()) {
             // user modified event is not needed
@@ -9803,7 +9886,19 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsPublishReport report = (CmsPublishReport)publishJob.removePublishReport();
 
         if (report != null) {
-            getProjectDriver(dbc).writePublishReport(dbc, publishJob.getPublishHistoryId(), report.getContents());
+            try {
+                // the compressed report is much smaller than the report itself
+                getProjectDriver(dbc).writePublishReport(
+                    dbc,
+                    publishJob.getPublishHistoryId(),
+                    report.getCompressedContents());
+            } catch (IOException e) {
+                throw new CmsDbIoException(Messages.get().container(
+                    Messages.ERR_WRITE_PUBLISH_REPORT_1,
+                    publishJob.getPublishHistoryId().toString()), e);
+            } finally {
+                report.dispose();
+            }
         }
     }
 
@@ -9908,6 +10003,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         CmsUser oldUser = readUser(dbc, user.getId());
         m_monitor.clearUserCache(oldUser);
         getUserDriver(dbc).writeUser(dbc, user);
+        m_userCountCache.userChanged(oldUser, user);
         m_monitor.flushCache(CmsMemoryMonitor.CacheType.USERGROUPS, CmsMemoryMonitor.CacheType.USER_LIST);
 
         if (!dbc.getProjectId().isNullUUID()) {
@@ -10042,10 +10138,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     throws CmsException {
 
         List<CmsResource> topMovedFolders = pubList.getTopMovedFolders(cms);
-        Iterator<CmsResource> folderIt = topMovedFolders.iterator();
-        while (folderIt.hasNext()) {
-            CmsResource folder = folderIt.next();
-            addSubResources(dbc, pubList, folder);
+        CmsPublishListBuilder builder = new CmsPublishListBuilder(this, dbc, pubList);
+        for (CmsResource folder : topMovedFolders) {
+            builder.addSubResources(folder);
         }
         List<CmsResource> missingSubResources = pubList.getMissingSubResources(cms, topMovedFolders);
         if (missingSubResources.isEmpty()) {
@@ -10178,101 +10273,13 @@ public final class CmsDriverManager implements I_CmsEventListener {
      */
     long countUsers(CmsDbContext dbc, CmsUserSearchParameters searchParams) throws CmsDataAccessException {
 
-        return getUserDriver(dbc).countUsers(dbc, searchParams);
-    }
-
-    /**
-     * Adds all sub-resources of the given resource to the publish list.<p>
-     *
-     * @param dbc the database context
-     * @param publishList the publish list
-     * @param directPublishResource the resource to get the sub-resources for
-     *
-     * @throws CmsDataAccessException if something goes wrong accessing the database
-     */
-    private void addSubResources(CmsDbContext dbc, CmsPublishList publishList, CmsResource directPublishResource)
-    throws CmsDataAccessException {
-
-        int flags = CmsDriverManager.READMODE_INCLUDE_TREE | CmsDriverManager.READMODE_EXCLUDE_STATE;
-        if (!directPublishResource.getState().isDeleted()) {
-            // fix for org.opencms.file.TestPublishIssues#testPublishFolderWithDeletedFileFromOtherProject
-            flags = flags | CmsDriverManager.READMODE_INCLUDE_PROJECT;
-        }
-
-        // add all sub resources of the folder
-        List<CmsResource> folderList = getVfsDriver(dbc).readResourceTree(
-            dbc,
-            dbc.currentProject().getUuid(),
-            directPublishResource.getRootPath(),
-            CmsDriverManager.READ_IGNORE_TYPE,
-            CmsResource.STATE_UNCHANGED,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            flags | CmsDriverManager.READMODE_ONLY_FOLDERS);
-
-        publishList.addAll(filterResources(dbc, publishList, folderList), true);
-
-        List<CmsResource> fileList = getVfsDriver(dbc).readResourceTree(
-            dbc,
-            dbc.currentProject().getUuid(),
-            directPublishResource.getRootPath(),
-            CmsDriverManager.READ_IGNORE_TYPE,
-            CmsResource.STATE_UNCHANGED,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            CmsDriverManager.READ_IGNORE_TIME,
-            flags | CmsDriverManager.READMODE_ONLY_FILES);
-
-        publishList.addAll(filterResources(dbc, publishList, fileList), true);
-    }
-
-    /**
-     * Checks the parent of a resource during publishing.<p>
-     *
-     * @param dbc the current database context
-     * @param deletedFolders a list of deleted folders
-     * @param res a resource to check the parent for
-     *
-     * @return <code>true</code> if the parent resource will be deleted during publishing
-     */
-    private boolean checkDeletedParentFolder(CmsDbContext dbc, List<CmsResource> deletedFolders, CmsResource res) {
-
-        String parentPath = CmsResource.getParentFolder(res.getRootPath());
-
-        if (parentPath == null) {
-            // resource has no parent
-            return false;
-        }
-
-        CmsResource parent;
-        try {
-            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
-        } catch (Exception e) {
-            // failure: if we cannot read the parent, we should not publish the resource
-            return false;
-        }
-
-        if (!parent.getState().isDeleted()) {
-            // parent is not deleted
-            return false;
-        }
-
-        for (int j = 0; j < deletedFolders.size(); j++) {
-            if ((deletedFolders.get(j)).getStructureId().equals(parent.getStructureId())) {
-                // parent is deleted, and it will get published
-                return true;
-            }
+        Long count = m_userCountCache.getCount(searchParams);
+        if (count == null) {
+            long version = m_userCountCache.getVersion();
+            count = new Long(getUserDriver(dbc).countUsers(dbc, searchParams));
+            m_userCountCache.putCount(searchParams, count.longValue(), version);
         }
-
-        // parent is new, but it will not get published
-        return false;
+        return count.longValue();
     }
 
     /**
@@ -10317,48 +10324,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
-    /**
-     * Checks the parent of a resource during publishing.<p>
-     *
-     * @param dbc the current database context
-     * @param folderList a list of folders
-     * @param res a resource to check the parent for
-     *
-     * @return true if the resource should be published
-     */
-    private boolean checkParentResource(CmsDbContext dbc, List<CmsResource> folderList, CmsResource res) {
-
-        String parentPath = CmsResource.getParentFolder(res.getRootPath());
-
-        if (parentPath == null) {
-            // resource has no parent
-            return true;
-        }
-
-        CmsResource parent;
-        try {
-            parent = readResource(dbc, parentPath, CmsResourceFilter.ALL);
-        } catch (Exception e) {
-            // failure: if we cannot read the parent, we should not publish the resource
-            return false;
-        }
-
-        if (!parent.getState().isNew()) {
-            // parent is already published
-            return true;
-        }
-
-        for (int j = 0; j < folderList.size(); j++) {
-            if (folderList.get(j).getStructureId().equals(parent.getStructureId())) {
-                // parent is new, but it will get published
-                return true;
-            }
-        }
-
-        // parent is new, but it will not get published
-        return false;
-    }
-
     /**
      * Copies all relations from the source resource to the target resource.<p>
      *
@@ -10426,144 +10391,6 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
-    /**
-     * Returns a filtered list of resources for publishing.<p>
-     * Contains all resources, which are not locked
-     * and which have a parent folder that is already published or will be published, too.<p>
-     *
-     * @param dbc the current database context
-     * @param publishList the filling publish list
-     * @param resourceList the list of resources to filter
-     *
-     * @return a filtered list of resources
-     */
-    private List<CmsResource> filterResources(
-        CmsDbContext dbc,
-        CmsPublishList publishList,
-        List<CmsResource> resourceList) {
-
-        List<CmsResource> result = new ArrayList<CmsResource>();
-
-        // local folder list for adding new publishing subfolders
-        // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioD} problem.
-        List<CmsResource> newFolderList = new ArrayList<CmsResource>(publishList == null
-        ? resourceList
-        : publishList.getFolderList());
-
-        for (int i = 0; i < resourceList.size(); i++) {
-            CmsResource res = resourceList.get(i);
-            try {
-                CmsLock lock = getLock(dbc, res);
-                if (lock.isPublish()) {
-                    // if already enqueued
-                    continue;
-                }
-                if (!lock.isLockableBy(dbc.currentUser())) {
-                    // checks if there is a shared lock and if the resource is deleted
-                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
-                    if (lock.isShared() && (publishList != null)) {
-                        if (!res.getState().isDeleted()
-                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
-                            continue;
-                        }
-                    } else {
-                        // don't add locked resources
-                        continue;
-                    }
-                }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, newFolderList, res)) {
-                    continue;
-                }
-                // check permissions
-                try {
-                    m_securityManager.checkPermissions(
-                        dbc,
-                        res,
-                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                        false,
-                        CmsResourceFilter.ALL);
-                } catch (CmsException e) {
-                    // skip if not enough permissions
-                    continue;
-                }
-                if (res.isFolder()) {
-                    newFolderList.add(res);
-                }
-                result.add(res);
-            } catch (Exception e) {
-                // should never happen
-                LOG.error(e.getLocalizedMessage(), e);
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Returns a filtered list of sibling resources for publishing.<p>
-     *
-     * Contains all siblings of the given resources, which are not locked
-     * and which have a parent folder that is already published or will be published, too.<p>
-     *
-     * @param dbc the current database context
-     * @param publishList the unfinished publish list
-     * @param resourceList the list of siblings to filter
-     *
-     * @return a filtered list of sibling resources for publishing
-     */
-    private List<CmsResource> filterSiblings(
-        CmsDbContext dbc,
-        CmsPublishList publishList,
-        Collection<CmsResource> resourceList) {
-
-        List<CmsResource> result = new ArrayList<CmsResource>();
-
-        // removed internal extendible folder list, since iterated (sibling) resources are files in any case, never folders
-
-        for (CmsResource res : resourceList) {
-            try {
-                CmsLock lock = getLock(dbc, res);
-                if (lock.isPublish()) {
-                    // if already enqueued
-                    continue;
-                }
-                if (!lock.isLockableBy(dbc.currentUser())) {
-                    // checks if there is a shared lock and if the resource is deleted
-                    // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
-                    if (lock.isShared() && (publishList != null)) {
-                        if (!res.getState().isDeleted()
-                            || !checkDeletedParentFolder(dbc, publishList.getDeletedFolderList(), res)) {
-                            continue;
-                        }
-                    } else {
-                        // don't add locked resources
-                        continue;
-                    }
-                }
-                if (!"/".equals(res.getRootPath()) && !checkParentResource(dbc, publishList.getFolderList(), res)) {
-                    // don't add resources that have no parent in the online project
-                    continue;
-                }
-                // check permissions
-                try {
-                    m_securityManager.checkPermissions(
-                        dbc,
-                        res,
-                        CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
-                        false,
-                        CmsResourceFilter.ALL);
-                } catch (CmsException e) {
-                    // skip if not enough permissions
-                    continue;
-                }
-                result.add(res);
-            } catch (Exception e) {
-                // should never happen
-                LOG.error(e.getLocalizedMessage(), e);
-            }
-        }
-        return result;
-    }
-
     /**
      * Returns the access control list of a given resource.<p>
      *
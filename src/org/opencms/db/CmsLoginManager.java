@@ -28,6 +28,7 @@
 package org.opencms.db;
 
 import org.opencms.file.CmsObject;
+import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
@@ -36,8 +37,15 @@ import org.opencms.security.CmsUserDisabledException;
 import org.opencms.security.Messages;
 
 import java.util.Date;
-import java.util.Hashtable;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
 
 /**
  * Provides functions used to check the validity of a user login.<p>
@@ -49,22 +57,134 @@ import java.util.Map;
  * user type. This means that a user can be disabled for one remote IP, but still be enabled for
  * another remote IP.<p>
  * 
+ * Optionally, the invalid login attempts are also limited per user name for all remote IPs, and per 
+ * remote IP for all user names. If more than the configured number of invalid logins happened in the 
+ * last disable minutes, further logins of this user, or from this IP, are refused until the oldest of 
+ * these invalid logins is older than the disable minutes.<p>
+ * 
+ * The stored invalid logins expire after the disable minutes, and the storage is bounded: if it is full, 
+ * expired entries are removed first, then entries which do not currently block a login. Entries which 
+ * block a login are never removed, so the storage may exceed its size while many logins are blocked.<p>
+ * 
  * Also allows to temporarily disallow logins (for example in case of maintenance work on the system).<p>
  * 
  * @since 6.0.0
  */
 public class CmsLoginManager {
 
+    /**
+     * Base class for the entries of the invalid login storages.<p>
+     */
+    private abstract static class A_CmsLoginEntry {
+
+        /**
+         * Returns <code>true</code> if this entry can be removed from the storage.<p>
+         * 
+         * @param now the current time
+         * 
+         * @return <code>true</code> if this entry can be removed from the storage
+         */
+        protected abstract boolean isExpired(long now);
+
+        /**
+         * Returns <code>true</code> if this entry currently blocks logins.<p>
+         * 
+         * @param now the current time
+         * 
+         * @return <code>true</code> if this entry currently blocks logins
+         */
+        protected abstract boolean isBlocking(long now);
+    }
+
+    /**
+     * The invalid logins of a user name or a remote IP in a sliding time window.<p>
+     */
+    private class CmsLoginWindow extends A_CmsLoginEntry {
+
+        /** The number of stored invalid logins. */
+        private int m_count;
+
+        /** The position of the oldest stored invalid login. */
+        private int m_oldest;
+
+        /** The times of the last invalid logins, at most as many as allowed in the window. */
+        private final long[] m_times;
+
+        /**
+         * Creates a new window.<p>
+         * 
+         * @param maxAttempts the number of invalid logins allowed in the window
+         */
+        protected CmsLoginWindow(int maxAttempts) {
+
+            m_times = new long[maxAttempts];
+        }
+
+        /**
+         * Adds an invalid login.<p>
+         * 
+         * @param now the time of the invalid login
+         */
+        protected synchronized void add(long now) {
+
+            if (m_count < m_times.length) {
+                m_times[(m_oldest + m_count) % m_times.length] = now;
+                m_count++;
+            } else {
+                // replace the oldest invalid login
+                m_times[m_oldest] = now;
+                m_oldest = (m_oldest + 1) % m_times.length;
+            }
+        }
+
+        /**
+         * Returns the time logins are allowed again, or <code>0</code> if logins are allowed.<p>
+         * 
+         * @param now the current time
+         * 
+         * @return the time logins are allowed again, or <code>0</code> if logins are allowed
+         */
+        protected synchronized long getReleaseTime(long now) {
+
+            if ((m_count < m_times.length) || ((now - m_times[m_oldest]) > m_disableMillis)) {
+                return 0;
+            }
+            return m_times[m_oldest] + m_disableMillis + 1;
+        }
+
+        /**
+         * @see org.opencms.db.CmsLoginManager.A_CmsLoginEntry#isBlocking(long)
+         */
+        @Override
+        protected boolean isBlocking(long now) {
+
+            return getReleaseTime(now) > 0;
+        }
+
+        /**
+         * @see org.opencms.db.CmsLoginManager.A_CmsLoginEntry#isExpired(long)
+         */
+        @Override
+        protected synchronized boolean isExpired(long now) {
+
+            return (m_count == 0)
+                || ((now - m_times[(m_oldest + m_count - 1) % m_times.length]) > m_disableMillis);
+        }
+    }
+
     /**
      * Contains the data stored for each user in the storage for invalid login attempts.<p>
      */
-    private class CmsUserData {
+    private class CmsUserData extends A_CmsLoginEntry {
 
         /** The start time this account was disabled. */
-        private long m_disableTimeStart;
+        private final AtomicLong m_disableTimeStart = new AtomicLong();
 
         /** The count of the failed attempts. */
-        private int m_invalidLoginCount;
+        private final AtomicInteger m_invalidLoginCount;
+
+        /** The time of the last failed attempt. */
+        private volatile long m_lastInvalidLogin;
 
         /**
          * Creates a new user data instance.<p>
@@ -72,7 +192,8 @@ public class CmsLoginManager {
         protected CmsUserData() {
 
             // a new instance is creted only if there already was one failed attempt
-            m_invalidLoginCount = 1;
+            m_invalidLoginCount = new AtomicInteger(1);
+            m_lastInvalidLogin = System.currentTimeMillis();
         }
 
         /**
@@ -82,7 +203,7 @@ public class CmsLoginManager {
          */
         protected Integer getInvalidLoginCount() {
 
-            return new Integer(m_invalidLoginCount);
+            return new Integer(m_invalidLoginCount.get());
         }
 
         /**
@@ -92,7 +213,7 @@ public class CmsLoginManager {
          */
         protected Date getReleaseDate() {
 
-            return new Date(m_disableTimeStart + m_disableMillis + 1);
+            return new Date(m_disableTimeStart.get() + m_disableMillis + 1);
         }
 
         /**
@@ -101,16 +222,24 @@ public class CmsLoginManager {
          */
         protected void increaseInvalidLoginCount() {
 
-            m_invalidLoginCount++;
-            if (m_invalidLoginCount >= m_maxBadAttempts) {
+            long now = System.currentTimeMillis();
+            m_lastInvalidLogin = now;
+            if (m_invalidLoginCount.incrementAndGet() >= m_maxBadAttempts) {
                 // threshold for bad login attempts has been reached for this user
-                if (m_disableTimeStart == 0) {
-                    // only disable in case this user has not already been disabled
-                    m_disableTimeStart = System.currentTimeMillis();
-                }
+                // only disable in case this user has not already been disabled
+                m_disableTimeStart.compareAndSet(0, now);
             }
         }
 
+        /**
+         * @see org.opencms.db.CmsLoginManager.A_CmsLoginEntry#isBlocking(long)
+         */
+        @Override
+        protected boolean isBlocking(long now) {
+
+            return isDisabled();
+        }
+
         /**
          * Returns <code>true</code> in case this user has been temporarily disabled.<p>
          * 
@@ -118,15 +247,27 @@ public class CmsLoginManager {
          */
         protected boolean isDisabled() {
 
-            if (m_disableTimeStart > 0) {
+            long disableTimeStart = m_disableTimeStart.get();
+            if (disableTimeStart > 0) {
                 // check if the disable time is already over
                 long currentTime = System.currentTimeMillis();
-                if ((currentTime - m_disableTimeStart) > m_disableMillis) {
+                if ((currentTime - disableTimeStart) > m_disableMillis) {
                     // disable time is over
-                    m_disableTimeStart = 0;
+                    m_disableTimeStart.compareAndSet(disableTimeStart, 0);
+                    return false;
                 }
+                return true;
             }
-            return m_disableTimeStart > 0;
+            return false;
+        }
+
+        /**
+         * @see org.opencms.db.CmsLoginManager.A_CmsLoginEntry#isExpired(long)
+         */
+        @Override
+        protected boolean isExpired(long now) {
+
+            return !isDisabled() && ((now - m_lastInvalidLogin) > m_disableMillis);
         }
     }
 
@@ -139,6 +280,21 @@ public class CmsLoginManager {
     /** Default for bad login attempts. */
     public static final int MAX_BAD_ATTEMPTS_DEFAULT = 3;
 
+    /** Default for the maximum number of entries in each invalid login storage. */
+    public static final int MAX_STORAGE_SIZE_DEFAULT = 10000;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsLoginManager.class);
+
+    /** The number of logins refused because of the invalid logins from all remote IPs for a user. */
+    protected final AtomicLong m_blockedByUser = new AtomicLong();
+
+    /** The number of logins refused because of the invalid logins from a remote IP for all users. */
+    protected final AtomicLong m_blockedByAddress = new AtomicLong();
+
+    /** The number of logins refused because of the invalid logins for a user from a remote IP. */
+    protected final AtomicLong m_blockedByUserAndAddress = new AtomicLong();
+
     /** The milliseconds to disable an account if the threshold is reached. */
     protected int m_disableMillis;
 
@@ -148,15 +304,33 @@ public class CmsLoginManager {
     /** The flag to determine if the security option ahould be enabled on the login dialog. */
     protected boolean m_enableSecurity;
 
+    /** The storage for the bad login attempts by remote IP. */
+    protected ConcurrentMap<String, CmsLoginWindow> m_addressStorage;
+
     /** The number of bad login attempts allowed before an account is temporarily disabled. */
     protected int m_maxBadAttempts;
 
+    /** The number of bad login attempts allowed from a remote IP in the disable time, or -1 for no limit. */
+    protected int m_maxBadAttemptsAddress;
+
+    /** The number of bad login attempts allowed for a user in the disable time, or -1 for no limit. */
+    protected int m_maxBadAttemptsUser;
+
+    /** The maximum number of entries in each invalid login storage. */
+    protected int m_maxStorageSize;
+
     /** The storage for the bad login attempts. */
-    protected Map<String, CmsUserData> m_storage;
+    protected ConcurrentMap<String, CmsUserData> m_storage;
+
+    /** The storage for the bad login attempts by user name. */
+    protected ConcurrentMap<String, CmsLoginWindow> m_userStorage;
 
     /** The login message, setting this may also disable logins for non-Admin users. */
     private CmsLoginMessage m_loginMessage;
 
+    /** Flag to make sure only one thread cleans up the storages at a time. */
+    private final AtomicBoolean m_purging = new AtomicBoolean();
+
     /**
      * Creates a new storage for invalid logins.<p>
      * 
@@ -166,12 +340,43 @@ public class CmsLoginManager {
      */
     public CmsLoginManager(int disableMinutes, int maxBadAttempts, boolean enableSecurity) {
 
+        this(disableMinutes, maxBadAttempts, enableSecurity, -1, -1, MAX_STORAGE_SIZE_DEFAULT);
+    }
+
+    /**
+     * Creates a new storage for invalid logins, with limits for the invalid logins per user and per remote IP.<p>
+     * 
+     * @param disableMinutes the minutes to disable an account if the threshold is reached
+     * @param maxBadAttempts the number of bad login attempts allowed before an account is temporarily disabled
+     * @param enableSecurity flag to determine if the security option should be enabled on the login dialog
+     * @param maxBadAttemptsUser the number of bad login attempts allowed for a user from all remote IPs 
+     *      in the disable time, or -1 for no limit
+     * @param maxBadAttemptsAddress the number of bad login attempts allowed from a remote IP for all users 
+     *      in the disable time, or -1 for no limit
+     * @param maxStorageSize the maximum number of entries in each invalid login storage
+     */
+    public CmsLoginManager(
+        int disableMinutes,
+        int maxBadAttempts,
+        boolean enableSecurity,
+        int maxBadAttemptsUser,
+        int maxBadAttemptsAddress,
+        int maxStorageSize) {
+
         m_maxBadAttempts = maxBadAttempts;
         if (m_maxBadAttempts >= 0) {
             // otherwise the invalid login storage is sisabled
             m_disableMinutes = disableMinutes;
             m_disableMillis = disableMinutes * 60 * 1000;
-            m_storage = new Hashtable<String, CmsUserData>();
+            m_maxBadAttemptsUser = (maxBadAttemptsUser > 0) ? maxBadAttemptsUser : -1;
+            m_maxBadAttemptsAddress = (maxBadAttemptsAddress > 0) ? maxBadAttemptsAddress : -1;
+            m_maxStorageSize = (maxStorageSize > 0) ? maxStorageSize : MAX_STORAGE_SIZE_DEFAULT;
+            m_storage = new ConcurrentHashMap<String, CmsUserData>();
+            m_userStorage = new ConcurrentHashMap<String, CmsLoginWindow>();
+            m_addressStorage = new ConcurrentHashMap<String, CmsLoginWindow>();
+        } else {
+            m_maxBadAttemptsUser = -1;
+            m_maxBadAttemptsAddress = -1;
         }
         m_enableSecurity = enableSecurity;
     }
@@ -186,11 +391,52 @@ public class CmsLoginManager {
      */
     private static String createStorageKey(String userName, String remoteAddress) {
 
-        StringBuffer result = new StringBuffer();
-        result.append(userName);
-        result.append('_');
-        result.append(remoteAddress);
-        return result.toString();
+        return userName + '_' + remoteAddress;
+    }
+
+    /**
+     * Removes entries from the given storage if it exceeds the given size.<p>
+     * 
+     * First the expired entries are removed, then the entries which do not currently block logins, 
+     * until the storage is reduced to three quarters of the given size. Entries which block logins 
+     * are never removed, if they alone exceed the given size a warning is logged.<p>
+     * 
+     * The entry with the given key is kept, so that the invalid login just added is not lost
+     * when the storage is full of entries which block logins.<p>
+     * 
+     * @param storage the storage to clean up
+     * @param maxSize the maximum size of the storage
+     * @param now the current time
+     * @param currentKey the key of the entry of the current invalid login
+     */
+    private static void purgeStorage(
+        Map<String, ? extends A_CmsLoginEntry> storage,
+        int maxSize,
+        long now,
+        String currentKey) {
+
+        if (storage.size() <= maxSize) {
+            return;
+        }
+        int targetSize = (maxSize * 3) / 4;
+        for (int pass = 0; (pass < 2) && (storage.size() > targetSize); pass++) {
+            Iterator<? extends Map.Entry<String, ? extends A_CmsLoginEntry>> it = storage.entrySet().iterator();
+            while (it.hasNext() && (storage.size() > targetSize)) {
+                Map.Entry<String, ? extends A_CmsLoginEntry> entry = it.next();
+                A_CmsLoginEntry loginEntry = entry.getValue();
+                if (((pass == 1) && !loginEntry.isBlocking(now) && !entry.getKey().equals(currentKey))
+                    || loginEntry.isExpired(now)) {
+                    it.remove();
+                }
+            }
+        }
+        int size = storage.size();
+        if ((size > maxSize) && LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_LOGIN_STORAGE_FULL_2,
+                new Integer(size),
+                new Integer(maxSize)));
+        }
     }
 
     /**
@@ -215,10 +461,38 @@ public class CmsLoginManager {
         CmsUserData userData = m_storage.get(key);
         if ((userData != null) && (userData.isDisabled())) {
             // threshold of invalid logins is reached
+            m_blockedByUserAndAddress.incrementAndGet();
             throw new CmsUserDisabledException(Messages.get().container(
                 Messages.ERR_LOGIN_FAILED_TEMP_DISABLED_4,
                 new Object[] {userName, remoteAddress, userData.getReleaseDate(), userData.getInvalidLoginCount()}));
         }
+        long now = System.currentTimeMillis();
+        if (m_maxBadAttemptsUser > 0) {
+            CmsLoginWindow window = m_userStorage.get(userName);
+            long releaseTime = (window != null) ? window.getReleaseTime(now) : 0;
+            if (releaseTime > 0) {
+                // too many invalid logins for this user from all remote IPs
+                m_blockedByUser.incrementAndGet();
+                throw new CmsUserDisabledException(Messages.get().container(
+                    Messages.ERR_LOGIN_FAILED_LIMIT_USER_3,
+                    userName,
+                    remoteAddress,
+                    new Date(releaseTime)));
+            }
+        }
+        if (m_maxBadAttemptsAddress > 0) {
+            CmsLoginWindow window = m_addressStorage.get(remoteAddress);
+            long releaseTime = (window != null) ? window.getReleaseTime(now) : 0;
+            if (releaseTime > 0) {
+                // too many invalid logins from this remote IP for all users
+                m_blockedByAddress.incrementAndGet();
+                throw new CmsUserDisabledException(Messages.get().container(
+                    Messages.ERR_LOGIN_FAILED_LIMIT_ADDRESS_3,
+                    userName,
+                    remoteAddress,
+                    new Date(releaseTime)));
+            }
+        }
     }
 
     /**
@@ -238,6 +512,36 @@ public class CmsLoginManager {
         }
     }
 
+    /**
+     * Returns the number of logins refused because of too many invalid logins from the same remote IP.<p>
+     * 
+     * @return the number of logins refused because of too many invalid logins from the same remote IP
+     */
+    public long getBlockedByAddressCount() {
+
+        return m_blockedByAddress.get();
+    }
+
+    /**
+     * Returns the number of logins refused because the user has been temporarily disabled for the remote IP.<p>
+     * 
+     * @return the number of logins refused because the user has been temporarily disabled for the remote IP
+     */
+    public long getBlockedByUserAndAddressCount() {
+
+        return m_blockedByUserAndAddress.get();
+    }
+
+    /**
+     * Returns the number of logins refused because of too many invalid logins for the same user.<p>
+     * 
+     * @return the number of logins refused because of too many invalid logins for the same user
+     */
+    public long getBlockedByUserCount() {
+
+        return m_blockedByUser.get();
+    }
+
     /**
      * Returns the minutes an account gets disabled after too many failed login attempts.<p>
      *
@@ -280,6 +584,46 @@ public class CmsLoginManager {
         return m_maxBadAttempts;
     }
 
+    /**
+     * Returns the number of bad login attempts allowed from a remote IP for all users in the disable time.<p>
+     *
+     * @return the number of bad login attempts allowed from a remote IP, or -1 if there is no limit
+     */
+    public int getMaxBadAttemptsAddress() {
+
+        return m_maxBadAttemptsAddress;
+    }
+
+    /**
+     * Returns the number of bad login attempts allowed for a user from all remote IPs in the disable time.<p>
+     *
+     * @return the number of bad login attempts allowed for a user, or -1 if there is no limit
+     */
+    public int getMaxBadAttemptsUser() {
+
+        return m_maxBadAttemptsUser;
+    }
+
+    /**
+     * Returns the maximum number of entries in each invalid login storage.<p>
+     *
+     * @return the maximum number of entries in each invalid login storage
+     */
+    public int getMaxStorageSize() {
+
+        return m_maxStorageSize;
+    }
+
+    /**
+     * Returns the number of entries in the storage for invalid logins per user and remote IP.<p>
+     * 
+     * @return the number of entries in the storage for invalid logins
+     */
+    public int getStorageSize() {
+
+        return (m_storage != null) ? m_storage.size() : 0;
+    }
+
     /**
      * Removes the current login message.<p>
      * 
@@ -333,15 +677,32 @@ public class CmsLoginManager {
         }
 
         String key = createStorageKey(userName, remoteAddress);
+        long now = System.currentTimeMillis();
         // look up the user in the storage
         CmsUserData userData = m_storage.get(key);
+        if ((userData != null) && userData.isExpired(now)) {
+            // the last invalid login is older than the disable time, start again
+            m_storage.remove(key, userData);
+            userData = null;
+        }
+        if (userData == null) {
+            // create an new data object for this user, unless another thread has done this in the meantime
+            userData = m_storage.putIfAbsent(key, new CmsUserData());
+        }
         if (userData != null) {
             // user data already contained in storage
             userData.increaseInvalidLoginCount();
-        } else {
-            // create an new data object for this user
-            userData = new CmsUserData();
-            m_storage.put(key, userData);
+        }
+        if (m_maxBadAttemptsUser > 0) {
+            addToWindow(m_userStorage, userName, m_maxBadAttemptsUser, now);
+        }
+        if (m_maxBadAttemptsAddress > 0) {
+            addToWindow(m_addressStorage, remoteAddress, m_maxBadAttemptsAddress, now);
+        }
+        if ((m_storage.size() > m_maxStorageSize)
+            || (m_userStorage.size() > m_maxStorageSize)
+            || (m_addressStorage.size() > m_maxStorageSize)) {
+            purgeStorages(now, key, userName, remoteAddress);
         }
     }
 
@@ -362,4 +723,48 @@ public class CmsLoginManager {
         // just remove the user from the storage
         m_storage.remove(key);
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds an invalid login to the window with the given key.<p>
+     * 
+     * @param storage the storage of the windows
+     * @param key the key of the window
+     * @param maxAttempts the number of invalid logins allowed in the window
+     * @param now the time of the invalid login
+     */
+    private void addToWindow(ConcurrentMap<String, CmsLoginWindow> storage, String key, int maxAttempts, long now) {
+
+        CmsLoginWindow window = storage.get(key);
+        if (window == null) {
+            window = new CmsLoginWindow(maxAttempts);
+            CmsLoginWindow existing = storage.putIfAbsent(key, window);
+            if (existing != null) {
+                window = existing;
+            }
+        }
+        window.add(now);
+    }
+
+    /**
+     * Removes entries from the invalid login storages which exceed the maximum size.<p>
+     * 
+     * @param now the current time
+     * @param key the storage key of the current invalid login
+     * @param userName the user name of the current invalid login
+     * @param remoteAddress the remote address (IP) of the current invalid login
+     */
+    private void purgeStorages(long now, String key, String userName, String remoteAddress) {
+
+        if (!m_purging.compareAndSet(false, true)) {
+            // another thread is already cleaning up
+            return;
+        }
+        try {
+            purgeStorage(m_storage, m_maxStorageSize, now, key);
+            purgeStorage(m_userStorage, m_maxStorageSize, now, userName);
+            purgeStorage(m_addressStorage, m_maxStorageSize, now, remoteAddress);
+        } finally {
+            m_purging.set(false);
+        }
+    }
+}
@@ -38,6 +38,7 @@ import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsUUID;
+import org.opencms.util.CmsUUIDSet;
 
 import java.io.Externalizable;
 import java.io.IOException;
@@ -121,6 +122,9 @@ public class CmsPublishList implements Externalizable {
     /** The publish history ID.<p> */
     private CmsUUID m_publishHistoryId;
 
+    /** The structure ids of all resources in the internal resource lists, to avoid duplicates. */
+    private CmsUUIDSet m_resourceIds;
+
     /** Indicates if siblings of the resources in the list should also be published. */
     private boolean m_publishSiblings;
 
@@ -421,6 +425,7 @@ public class CmsPublishList implements Externalizable {
             if (m_deletedFolderUUIDs != null) {
                 m_deletedFolderList = internalReadResourceList(cms, m_deletedFolderUUIDs);
             }
+            m_resourceIds = null;
             m_needsRevive = false;
         }
     }
@@ -539,24 +544,19 @@ public class CmsPublishList implements Externalizable {
                     resource.getRootPath()));
             }
         }
+        // only add resources not already contained in the lists,
+        // this is required to make sure no siblings are duplicated
+        if (!getResourceIds().add(resource.getStructureId())) {
+            return;
+        }
         if (resource.isFolder()) {
             if (resource.getState().isDeleted()) {
-                if (!m_deletedFolderList.contains(resource)) {
-                    // only add files not already contained in the list
-                    m_deletedFolderList.add(resource);
-                }
+                m_deletedFolderList.add(resource);
             } else {
-                if (!m_folderList.contains(resource)) {
-                    // only add files not already contained in the list
-                    m_folderList.add(resource);
-                }
+                m_folderList.add(resource);
             }
         } else {
-            if (!m_fileList.contains(resource)) {
-                // only add files not already contained in the list
-                // this is required to make sure no siblings are duplicated
-                m_fileList.add(resource);
-            }
+            m_fileList.add(resource);
         }
     }
 
@@ -606,7 +606,7 @@ public class CmsPublishList implements Externalizable {
      */
     protected boolean containsResource(CmsResource res) {
 
-        return m_deletedFolderList.contains(res) || m_folderList.contains(res) || m_fileList.contains(res);
+        return getResourceIds().contains(res.getStructureId());
     }
 
     /**
@@ -750,10 +750,37 @@ public class CmsPublishList implements Externalizable {
     protected boolean remove(CmsResource resource) {
 
         // it is essential that this method is only visible within the db package!
-        boolean ret = m_fileList.remove(resource);
-        ret |= m_folderList.remove(resource);
-        ret |= m_deletedFolderList.remove(resource);
-        return ret;
+        if (!getResourceIds().remove(resource.getStructureId())) {
+            return false;
+        }
+        m_fileList.remove(resource);
+        m_folderList.remove(resource);
+        m_deletedFolderList.remove(resource);
+        return true;
+    }
+
+    /**
+     * Returns the set of structure ids of all resources in this publish list.<p>
+     * 
+     * The set is rebuilt from the internal resource lists if required.<p>
+     * 
+     * @return the set of structure ids of all resources in this publish list
+     */
+    private CmsUUIDSet getResourceIds() {
+
+        if (m_resourceIds == null) {
+            m_resourceIds = new CmsUUIDSet(m_fileList.size() + m_folderList.size() + m_deletedFolderList.size());
+            for (CmsResource resource : m_fileList) {
+                m_resourceIds.add(resource.getStructureId());
+            }
+            for (CmsResource resource : m_folderList) {
+                m_resourceIds.add(resource.getStructureId());
+            }
+            for (CmsResource resource : m_deletedFolderList) {
+                m_resourceIds.add(resource.getStructureId());
+            }
+        }
+        return m_resourceIds;
     }
 
     /**
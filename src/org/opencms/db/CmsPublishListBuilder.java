@@ -0,0 +1,502 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.lock.CmsLock;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+import org.opencms.util.CmsUUIDSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Fills a publish list with the VFS resources that actually get published.<p>
+ * 
+ * The resources are read set based: the changed resources of a whole sub tree are read with
+ * one query for the folders and one for the files, and the siblings of all files are read
+ * together. Parent folders are read only once per folder, and all membership checks use
+ * structure id sets instead of scanning resource lists. 
+ * The time spent in each phase is logged with level INFO.<p>
+ * 
+ * A builder instance is only valid for one database context and publish list.<p>
+ * 
+ * @since 8.5.2
+ * 
+ * @see CmsDriverManager#fillPublishList(CmsDbContext, CmsPublishList)
+ */
+/* default */final class CmsPublishListBuilder {
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPublishListBuilder.class);
+
+    /** The current database context. */
+    private final CmsDbContext m_dbc;
+
+    /** The driver manager. */
+    private final CmsDriverManager m_driverManager;
+
+    /** Time spent filtering resources by lock state, permissions and parent folders. */
+    private long m_filterTime;
+
+    /** The parent folders read so far, by root path, <code>null</code> values for parents that could not be read. */
+    private final Map<String, CmsResource> m_parentFolders;
+
+    /** The publish list to fill. */
+    private final CmsPublishList m_publishList;
+
+    /** Time spent reading the resource trees. */
+    private long m_readTime;
+
+    /** Time spent reading and filtering siblings. */
+    private long m_siblingsTime;
+
+    /**
+     * Creates a new publish list builder.<p>
+     * 
+     * @param driverManager the driver manager
+     * @param dbc the current database context
+     * @param publishList the publish list to fill
+     */
+    /* default */CmsPublishListBuilder(CmsDriverManager driverManager, CmsDbContext dbc, CmsPublishList publishList) {
+
+        m_driverManager = driverManager;
+        m_dbc = dbc;
+        m_publishList = publishList;
+        m_parentFolders = new HashMap<String, CmsResource>();
+    }
+
+    /**
+     * Adds all changed sub-resources of the given folder to the publish list.<p>
+     * 
+     * @param directPublishResource the folder to add the sub-resources for
+     * 
+     * @throws CmsDataAccessException if something goes wrong accessing the database
+     */
+    /* default */void addSubResources(CmsResource directPublishResource) throws CmsDataAccessException {
+
+        int flags = CmsDriverManager.READMODE_INCLUDE_TREE | CmsDriverManager.READMODE_EXCLUDE_STATE;
+        if (!directPublishResource.getState().isDeleted()) {
+            // fix for org.opencms.file.TestPublishIssues#testPublishFolderWithDeletedFileFromOtherProject
+            flags = flags | CmsDriverManager.READMODE_INCLUDE_PROJECT;
+        }
+
+        // add all sub resources of the folder
+        List<CmsResource> folderList = readResourceTree(
+            directPublishResource.getRootPath(),
+            flags | CmsDriverManager.READMODE_ONLY_FOLDERS);
+        m_publishList.addAll(filterResources(m_publishList, folderList), true);
+
+        List<CmsResource> fileList = readResourceTree(
+            directPublishResource.getRootPath(),
+            flags | CmsDriverManager.READMODE_ONLY_FILES);
+        m_publishList.addAll(filterResources(m_publishList, fileList), true);
+    }
+
+    /**
+     * Fills the publish list with the VFS resources that actually get published.<p>
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    /* default */void fill() throws CmsException {
+
+        long start = System.currentTimeMillis();
+        if (!m_publishList.isDirectPublish()) {
+            // when publishing a project
+            // all modified resources with the last change done in the current project are candidates if unlocked
+            int flags = CmsDriverManager.READMODE_INCLUDE_TREE
+                | CmsDriverManager.READMODE_INCLUDE_PROJECT
+                | CmsDriverManager.READMODE_EXCLUDE_STATE;
+            List<CmsResource> folderList = readResourceTree(
+                CmsDriverManager.READ_IGNORE_PARENT,
+                flags | CmsDriverManager.READMODE_ONLY_FOLDERS);
+            m_publishList.addAll(filterResources(null, folderList), true);
+
+            List<CmsResource> fileList = readResourceTree(
+                CmsDriverManager.READ_IGNORE_PARENT,
+                flags | CmsDriverManager.READMODE_ONLY_FILES);
+            m_publishList.addAll(filterResources(m_publishList, fileList), true);
+        } else {
+            // this is a direct publish
+            for (CmsResource directPublishResource : m_publishList.getDirectPublishResources()) {
+                // iterate all resources in the direct publish list
+                if (directPublishResource.isFolder()) {
+                    // when publishing a folder directly,
+                    // the folder and all modified resources within the tree below this folder
+                    // and with the last change done in the current project are candidates if lockable
+                    CmsLock lock = m_driverManager.getLock(m_dbc, directPublishResource);
+                    if (!directPublishResource.getState().isUnchanged()
+                        && lock.isLockableBy(m_dbc.currentUser())
+                        && hasDirectPublishPermissions(directPublishResource)) {
+                        m_publishList.add(directPublishResource, true);
+                    }
+                    boolean shouldPublishDeletedSubResources = m_publishList.isUserPublishList()
+                        && directPublishResource.getState().isDeleted();
+                    if (m_publishList.isPublishSubResources() || shouldPublishDeletedSubResources) {
+                        addSubResources(directPublishResource);
+                    }
+                } else if (directPublishResource.isFile() && !directPublishResource.getState().isUnchanged()) {
+                    // when publishing a file directly this file is the only candidate
+                    // if it is modified and lockable
+                    CmsLock lock = m_driverManager.getLock(m_dbc, directPublishResource);
+                    if (lock.isLockableBy(m_dbc.currentUser()) && hasDirectPublishPermissions(directPublishResource)) {
+                        m_publishList.add(directPublishResource, true);
+                    }
+                }
+            }
+        }
+
+        // Step 2: if desired, extend the list of files to publish with related siblings
+        if (m_publishList.isPublishSiblings()) {
+            addSiblings();
+        }
+
+        long sortStart = System.currentTimeMillis();
+        m_publishList.initialize();
+        long end = System.currentTimeMillis();
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_PUBLISH_LIST_BUILT_6,
+                new Object[] {
+                    new Integer(m_publishList.size()),
+                    new Long(end - start),
+                    new Long(m_readTime),
+                    new Long(m_filterTime),
+                    new Long(m_siblingsTime),
+                    new Long(end - sortStart)}));
+        }
+    }
+
+    /**
+     * Returns the time spent filtering resources by lock state, permissions and parent folders.<p>
+     * 
+     * @return the time spent filtering resources in milliseconds
+     */
+    /* default */long getFilterTime() {
+
+        return m_filterTime;
+    }
+
+    /**
+     * Returns the time spent reading the resource trees.<p>
+     * 
+     * @return the time spent reading the resource trees in milliseconds
+     */
+    /* default */long getReadTime() {
+
+        return m_readTime;
+    }
+
+    /**
+     * Returns the time spent reading and filtering siblings.<p>
+     * 
+     * @return the time spent reading and filtering siblings in milliseconds
+     */
+    /* default */long getSiblingsTime() {
+
+        return m_siblingsTime;
+    }
+
+    /**
+     * Adds the siblings of all files in the publish list to the publish list.<p>
+     * 
+     * The siblings of all files are read with a single set based query.<p>
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private void addSiblings() throws CmsException {
+
+        long start = System.currentTimeMillis();
+        List<CmsResource> publishFiles = m_publishList.getFileList();
+        // first calculate closure of all siblings, then filter and add them
+        Set<CmsResource> siblingsClosure = new LinkedHashSet<CmsResource>(publishFiles);
+        CmsUUIDSet resourceIds = new CmsUUIDSet(publishFiles.size());
+        List<CmsUUID> siblingResourceIds = new ArrayList<CmsUUID>();
+        for (CmsResource currentFile : publishFiles) {
+            if ((currentFile.getSiblingCount() > 1) && resourceIds.add(currentFile.getResourceId())) {
+                siblingResourceIds.add(currentFile.getResourceId());
+            }
+        }
+        if (!siblingResourceIds.isEmpty()) {
+            siblingsClosure.addAll(m_driverManager.readSiblingsForResources(
+                m_dbc,
+                siblingResourceIds,
+                CmsResourceFilter.ALL_MODIFIED));
+        }
+        m_publishList.addAll(filterSiblings(siblingsClosure), true);
+        m_siblingsTime += System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Checks the parent of a resource during publishing.<p>
+     *
+     * @param res a resource to check the parent for
+     *
+     * @return <code>true</code> if the parent resource will be deleted during publishing
+     */
+    private boolean checkDeletedParentFolder(CmsResource res) {
+
+        CmsResource parent = readParentFolder(res);
+        if ((parent == null) || !parent.getState().isDeleted()) {
+            // no parent or parent is not deleted
+            return false;
+        }
+        // check if the deleted parent will get published
+        return m_publishList.containsResource(parent);
+    }
+
+    /**
+     * Checks the parent of a resource during publishing.<p>
+     *
+     * @param folderIds the structure ids of the folders which are published
+     * @param res a resource to check the parent for
+     *
+     * @return true if the resource should be published
+     */
+    private boolean checkParentResource(CmsUUIDSet folderIds, CmsResource res) {
+
+        if (CmsResource.getParentFolder(res.getRootPath()) == null) {
+            // resource has no parent
+            return true;
+        }
+        CmsResource parent = readParentFolder(res);
+        if (parent == null) {
+            // failure: if we cannot read the parent, we should not publish the resource
+            return false;
+        }
+        if (!parent.getState().isNew()) {
+            // parent is already published
+            return true;
+        }
+        // parent is new, publish the resource only if the parent will get published
+        return folderIds.contains(parent.getStructureId());
+    }
+
+    /**
+     * Returns a filtered list of resources for publishing.<p>
+     * 
+     * Contains all resources, which are not locked
+     * and which have a parent folder that is already published or will be published, too.<p>
+     *
+     * @param publishList the filling publish list, or <code>null</code> 
+     *      if all the given resources may be used as published parent folders 
+     * @param resourceList the list of resources to filter
+     *
+     * @return a filtered list of resources
+     */
+    private List<CmsResource> filterResources(CmsPublishList publishList, List<CmsResource> resourceList) {
+
+        long start = System.currentTimeMillis();
+        List<CmsResource> result = new ArrayList<CmsResource>();
+
+        // local folder set for adding new publishing subfolders
+        // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioD} problem.
+        List<CmsResource> folders = (publishList == null) ? resourceList : publishList.getFolderList();
+        CmsUUIDSet newFolderIds = new CmsUUIDSet(folders.size());
+        for (CmsResource folder : folders) {
+            newFolderIds.add(folder.getStructureId());
+        }
+
+        for (CmsResource res : resourceList) {
+            if (!isPublishable(res, publishList, newFolderIds)) {
+                continue;
+            }
+            if (res.isFolder()) {
+                newFolderIds.add(res.getStructureId());
+            }
+            result.add(res);
+        }
+        m_filterTime += System.currentTimeMillis() - start;
+        return result;
+    }
+
+    /**
+     * Returns a filtered list of sibling resources for publishing.<p>
+     *
+     * Contains all siblings of the given resources, which are not locked
+     * and which have a parent folder that is already published or will be published, too.<p>
+     *
+     * @param resourceList the list of siblings to filter
+     *
+     * @return a filtered list of sibling resources for publishing
+     */
+    private List<CmsResource> filterSiblings(Collection<CmsResource> resourceList) {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        // iterated (sibling) resources are files in any case, never folders
+        List<CmsResource> folders = m_publishList.getFolderList();
+        CmsUUIDSet folderIds = new CmsUUIDSet(folders.size());
+        for (CmsResource folder : folders) {
+            folderIds.add(folder.getStructureId());
+        }
+        for (CmsResource res : resourceList) {
+            if (isPublishable(res, m_publishList, folderIds)) {
+                result.add(res);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the current user has the permissions to directly publish the given resource.<p>
+     * 
+     * @param resource the resource to check
+     * 
+     * @return <code>true</code> if the current user has the permissions to directly publish the given resource
+     */
+    private boolean hasDirectPublishPermissions(CmsResource resource) {
+
+        try {
+            m_driverManager.getSecurityManager().checkPermissions(
+                m_dbc,
+                resource,
+                CmsPermissionSet.ACCESS_DIRECT_PUBLISH,
+                false,
+                CmsResourceFilter.ALL);
+            return true;
+        } catch (CmsException e) {
+            // skip if not enough permissions
+            return false;
+        }
+    }
+
+    /**
+     * Checks if the given resource can be published.<p>
+     * 
+     * A resource can be published if it is not locked by another user, 
+     * if it has a parent folder that is already published or will be published, too, 
+     * and if the current user has the permissions to directly publish it.<p>
+     * 
+     * @param res the resource to check
+     * @param publishList the filling publish list, may be <code>null</code>
+     * @param folderIds the structure ids of the folders which are published
+     * 
+     * @return <code>true</code> if the resource can be published
+     */
+    private boolean isPublishable(CmsResource res, CmsPublishList publishList, CmsUUIDSet folderIds) {
+
+        try {
+            CmsLock lock = m_driverManager.getLock(m_dbc, res);
+            if (lock.isPublish()) {
+                // if already enqueued
+                return false;
+            }
+            if (!lock.isLockableBy(m_dbc.currentUser())) {
+                // checks if there is a shared lock and if the resource is deleted
+                // this solves the {@link org.opencms.file.TestPublishIssues#testPublishScenarioE} problem.
+                if (!lock.isShared() || (publishList == null)) {
+                    // don't add locked resources
+                    return false;
+                }
+                if (!res.getState().isDeleted() || !checkDeletedParentFolder(res)) {
+                    return false;
+                }
+            }
+            if (!"/".equals(res.getRootPath()) && !checkParentResource(folderIds, res)) {
+                // don't add resources that have no parent in the online project
+                return false;
+            }
+            return hasDirectPublishPermissions(res);
+        } catch (Exception e) {
+            // should never happen
+            LOG.error(e.getLocalizedMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the parent folder of the given resource.<p>
+     * 
+     * Every parent folder is read only once per publish list.<p>
+     * 
+     * @param res the resource to read the parent folder for
+     * 
+     * @return the parent folder, or <code>null</code> if the resource has no parent or the parent could not be read
+     */
+    private CmsResource readParentFolder(CmsResource res) {
+
+        String parentPath = CmsResource.getParentFolder(res.getRootPath());
+        if (parentPath == null) {
+            return null;
+        }
+        if (m_parentFolders.containsKey(parentPath)) {
+            return m_parentFolders.get(parentPath);
+        }
+        CmsResource parent = null;
+        try {
+            parent = m_driverManager.readResource(m_dbc, parentPath, CmsResourceFilter.ALL);
+        } catch (Exception e) {
+            // failure: the parent can not be read
+            LOG.debug(e.getLocalizedMessage(), e);
+        }
+        m_parentFolders.put(parentPath, parent);
+        return parent;
+    }
+
+    /**
+     * Reads all changed resources in a tree of the current project.<p>
+     * 
+     * @param parentPath the root path of the tree, or {@link CmsDriverManager#READ_IGNORE_PARENT}
+     * @param mode the read mode flags
+     * 
+     * @return the changed resources
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private List<CmsResource> readResourceTree(String parentPath, int mode) throws CmsDataAccessException {
+
+        long start = System.currentTimeMillis();
+        List<CmsResource> result = m_driverManager.getVfsDriver(m_dbc).readResourceTree(
+            m_dbc,
+            m_dbc.currentProject().getUuid(),
+            parentPath,
+            CmsDriverManager.READ_IGNORE_TYPE,
+            CmsResource.STATE_UNCHANGED,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            CmsDriverManager.READ_IGNORE_TIME,
+            mode);
+        m_readTime += System.currentTimeMillis() - start;
+        return result;
+    }
+}
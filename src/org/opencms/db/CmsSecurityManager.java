@@ -3528,6 +3528,31 @@ public final class CmsSecurityManager {
         }
     }
 
+    /**
+     * Writes the given visits, replacing the existing visits of the same users to the same resources.<p>
+     *
+     * @param context the request context
+     * @param poolName the name of the database pool to use
+     * @param visits the visits to write
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void markResourcesAsVisited(CmsRequestContext context, String poolName, List<CmsVisitEntry> visits)
+    throws CmsException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            m_driverManager.markResourcesAsVisited(dbc, poolName, visits);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_MARK_RESOURCES_AS_VISITED_1, String.valueOf(visits.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Returns a new publish list that contains all resources of both given publish lists.<p>
      *
@@ -4128,6 +4153,32 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads several file resources (including their binary content) from the VFS.<p>
+     *
+     * @param context the current request context
+     * @param resources the resources to be read
+     *
+     * @return the files read from the VFS, in the order of the given resources
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsDriverManager#readFiles(CmsDbContext, List)
+     */
+    public List<CmsFile> readFiles(CmsRequestContext context, List<CmsResource> resources) throws CmsException {
+
+        List<CmsFile> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readFiles(dbc, resources);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_READ_FILES_1, new Integer(resources.size())), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the specified resource filter.<p>
@@ -4727,6 +4778,36 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Reads all property objects directly mapped to several resources.<p>
+     *
+     * @param context the context of the current request
+     * @param resources the resources where the properties are mapped to
+     *
+     * @return the lists of properties, by structure id of the resources
+     *
+     * @throws CmsException if something goes wrong
+     *
+     * @see CmsDriverManager#readPropertyObjects(CmsDbContext, List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(CmsRequestContext context, List<CmsResource> resources)
+    throws CmsException {
+
+        Map<CmsUUID, List<CmsProperty>> result = null;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            result = m_driverManager.readPropertyObjects(dbc, resources);
+        } catch (Exception e) {
+            dbc.report(
+                null,
+                Messages.get().container(Messages.ERR_READ_PROPS_FOR_RESOURCES_1, new Integer(resources.size())),
+                e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      *
@@ -50,6 +50,9 @@ import java.util.List;
  */
 public class CmsSubscriptionManager {
 
+    /** The default interval in milliseconds between two writes of the queued visits. */
+    private static final long DEFAULT_VISIT_FLUSH_INTERVAL = 5000;
+
     /** The default maximum number of visited resources to store per user. */
     private static final int DEFAULT_MAX_VISITEDCOUNT = 1000;
 
@@ -68,6 +71,15 @@ public class CmsSubscriptionManager {
     /** The name of the database pool to use. */
     private String m_poolName;
 
+    /** The interval in milliseconds between two writes of the queued visits. */
+    private long m_visitFlushInterval = DEFAULT_VISIT_FLUSH_INTERVAL;
+
+    /** The queue for writing the visits in the background, <code>null</code> if visits are written immediately. */
+    private CmsVisitQueue m_visitQueue;
+
+    /** The maximum number of queued visits, if <code>0</code> visits are written immediately. */
+    private int m_visitQueueSize;
+
     /**
      * Initializes a new CmsSubscriptionManager, called from the configuration.<p>
      */
@@ -89,6 +101,12 @@ public class CmsSubscriptionManager {
      */
     public long getDateLastVisitedBy(CmsObject cms, CmsUser user, CmsResource resource) throws CmsException {
 
+        if (m_visitQueue != null) {
+            long queuedDate = m_visitQueue.getQueuedDate(user.getId(), resource.getStructureId());
+            if (queuedDate != -1) {
+                return queuedDate;
+            }
+        }
         return m_securityManager.getDateLastVisitedBy(cms.getRequestContext(), getPoolName(), user, resource);
     }
 
@@ -106,7 +124,7 @@ public class CmsSubscriptionManager {
     public long getDateLastVisitedBy(CmsObject cms, CmsUser user, String resourcePath) throws CmsException {
 
         CmsResource resource = cms.readResource(resourcePath, CmsResourceFilter.ALL);
-        return m_securityManager.getDateLastVisitedBy(cms.getRequestContext(), getPoolName(), user, resource);
+        return getDateLastVisitedBy(cms, user, resource);
     }
 
     /**
@@ -136,6 +154,38 @@ public class CmsSubscriptionManager {
         return m_poolName;
     }
 
+    /**
+     * Returns the interval in milliseconds between two writes of the queued visits.<p>
+     * 
+     * @return the interval between two writes of the queued visits
+     */
+    public long getVisitFlushInterval() {
+
+        return m_visitFlushInterval;
+    }
+
+    /**
+     * Returns the queue for writing the visits in the background.<p>
+     * 
+     * The queue provides the number of queued visits and the duration of the writes.<p>
+     * 
+     * @return the visit queue, or <code>null</code> if visits are written immediately
+     */
+    public CmsVisitQueue getVisitQueue() {
+
+        return m_visitQueue;
+    }
+
+    /**
+     * Returns the maximum number of queued visits.<p>
+     * 
+     * @return the maximum number of queued visits, <code>0</code> if visits are written immediately
+     */
+    public int getVisitQueueSize() {
+
+        return m_visitQueueSize;
+    }
+
     /**
      * Initializes this subscription manager with the OpenCms system configuration.<p>
      * 
@@ -147,6 +197,10 @@ public class CmsSubscriptionManager {
 
         OpenCms.getRoleManager().checkRole(cms, CmsRole.ROOT_ADMIN);
         m_frozen = true;
+        if (m_visitQueueSize > 0) {
+            m_visitQueue = new CmsVisitQueue(this, cms, m_visitQueueSize);
+            m_visitQueue.start(m_visitFlushInterval);
+        }
     }
 
     /**
@@ -173,6 +227,11 @@ public class CmsSubscriptionManager {
         if (!isEnabled()) {
             throw new CmsRuntimeException(Messages.get().container(Messages.ERR_SUBSCRIPTION_MANAGER_DISABLED_0));
         }
+        if (m_visitQueue != null) {
+            // written in the background
+            m_visitQueue.add(new CmsVisitEntry(user.getId(), System.currentTimeMillis(), resource.getStructureId()));
+            return;
+        }
         m_securityManager.markResourceAsVisitedBy(cms.getRequestContext(), getPoolName(), resource, user);
     }
 
@@ -218,6 +277,7 @@ public class CmsSubscriptionManager {
      */
     public List<CmsResource> readResourcesVisitedBy(CmsObject cms, CmsVisitedByFilter filter) throws CmsException {
 
+        flushVisits();
         return m_securityManager.readResourcesVisitedBy(cms.getRequestContext(), getPoolName(), filter);
     }
 
@@ -277,6 +337,7 @@ public class CmsSubscriptionManager {
      */
     public List<CmsResource> readSubscribedResources(CmsObject cms, CmsSubscriptionFilter filter) throws CmsException {
 
+        flushVisits();
         return m_securityManager.readSubscribedResources(cms.getRequestContext(), getPoolName(), filter);
     }
 
@@ -367,6 +428,55 @@ public class CmsSubscriptionManager {
         m_securityManager.setSubscribedResourceAsDeleted(cms.getRequestContext(), getPoolName(), resource);
     }
 
+    /**
+     * Sets the interval in milliseconds between two writes of the queued visits.<p>
+     * 
+     * @param visitFlushInterval the interval between two writes of the queued visits
+     */
+    public void setVisitFlushInterval(String visitFlushInterval) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_SUBSCRIPTIONMANAGER_FROZEN_0));
+        }
+        try {
+            long longValue = Long.parseLong(visitFlushInterval);
+            m_visitFlushInterval = (longValue > 0) ? longValue : DEFAULT_VISIT_FLUSH_INTERVAL;
+        } catch (NumberFormatException e) {
+            // use default value
+            m_visitFlushInterval = DEFAULT_VISIT_FLUSH_INTERVAL;
+        }
+    }
+
+    /**
+     * Sets the maximum number of queued visits.<p>
+     * 
+     * If the size is <code>0</code>, the visits are written immediately.<p>
+     * 
+     * @param visitQueueSize the maximum number of queued visits
+     */
+    public void setVisitQueueSize(String visitQueueSize) {
+
+        if (m_frozen) {
+            throw new CmsRuntimeException(Messages.get().container(Messages.ERR_CONFIG_SUBSCRIPTIONMANAGER_FROZEN_0));
+        }
+        try {
+            m_visitQueueSize = Math.max(0, Integer.parseInt(visitQueueSize));
+        } catch (NumberFormatException e) {
+            // write the visits immediately
+            m_visitQueueSize = 0;
+        }
+    }
+
+    /**
+     * Writes the remaining queued visits and stops the background thread.<p>
+     */
+    public void shutDown() {
+
+        if (m_visitQueue != null) {
+            m_visitQueue.stop();
+        }
+    }
+
     /**
      * Subscribes the user or group to the resource.<p>
      * 
@@ -493,4 +603,13 @@ public class CmsSubscriptionManager {
         unsubscribeResourceForAll(cms, resource);
     }
 
+    /**
+     * Writes the queued visits, so they are considered when reading the visited resources.<p>
+     */
+    private void flushVisits() {
+
+        if ((m_visitQueue != null) && (m_visitQueue.size() > 0)) {
+            m_visitQueue.flush();
+        }
+    }
 }
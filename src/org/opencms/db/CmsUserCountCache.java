@@ -0,0 +1,431 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.file.CmsUserSearchParameters;
+import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.security.CmsOrganizationalUnit;
+import org.opencms.security.I_CmsPrincipal;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Cache for the number of users of organizational units and groups.<p>
+ *
+ * Only the counts of simple user searches are cached, i.e. searches which select the users of an
+ * organizational unit or a group, without search term and flag filter. The driver manager adjusts the cached
+ * counts when users are created, deleted, moved to another organizational unit, or added to or removed from
+ * a group, so the counts of large organizational units do not have to be read from the database again after
+ * each change.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsUserCountCache {
+
+    /**
+     * The key of a cached count.<p>
+     */
+    private static final class Key {
+
+        /** The "filter core users" flag. */
+        final boolean m_filterCore;
+
+        /** The "filter by group OU" flag. */
+        final boolean m_filterByGroupOu;
+
+        /** The group id, or <code>null</code>. */
+        final CmsUUID m_groupId;
+
+        /** The group OU as stored in the database, or <code>null</code>. */
+        final String m_groupOu;
+
+        /** The OU as stored in the database, or <code>null</code>. */
+        final String m_ou;
+
+        /** The "recursive" flag. */
+        final boolean m_recursive;
+
+        /** The "web user OU" flag. */
+        final boolean m_webuser;
+
+        /**
+         * Creates a new key.<p>
+         *
+         * @param params the user search parameters
+         */
+        Key(CmsUserSearchParameters params) {
+
+            CmsOrganizationalUnit ou = params.getOrganizationalUnit();
+            CmsGroup group = params.getGroup();
+            m_ou = (ou != null) ? CmsOrganizationalUnit.SEPARATOR + ou.getName() : null;
+            m_recursive = (ou != null) && params.recursiveOrgUnits();
+            m_webuser = (ou != null) && ou.hasFlagWebuser();
+            m_groupId = (group != null) ? group.getId() : null;
+            m_filterByGroupOu = (group != null) && params.isFilterByGroupOu();
+            m_groupOu = m_filterByGroupOu ? CmsOrganizationalUnit.SEPARATOR + group.getOuFqn() : null;
+            m_filterCore = params.isFilterCore();
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)obj;
+            return (m_filterCore == other.m_filterCore)
+                && (m_filterByGroupOu == other.m_filterByGroupOu)
+                && (m_recursive == other.m_recursive)
+                && (m_webuser == other.m_webuser)
+                && equal(m_groupId, other.m_groupId)
+                && equal(m_groupOu, other.m_groupOu)
+                && equal(m_ou, other.m_ou);
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+
+            int result = (m_ou != null) ? m_ou.hashCode() : 0;
+            result = (31 * result) + ((m_groupId != null) ? m_groupId.hashCode() : 0);
+            result = (31 * result) + (m_recursive ? 1 : 0);
+            result = (31 * result) + (m_filterCore ? 2 : 0);
+            result = (31 * result) + (m_filterByGroupOu ? 4 : 0);
+            return result;
+        }
+
+        /**
+         * Checks if the given user matches all conditions of this key except the group membership.<p>
+         *
+         * This mirrors the conditions of the user query.<p>
+         *
+         * @param user the user
+         *
+         * @return true if the user matches
+         */
+        boolean matches(CmsUser user) {
+
+            String userOu = CmsOrganizationalUnit.SEPARATOR + user.getOuFqn();
+            int flags = user.getFlags();
+            if (m_ou != null) {
+                if (m_recursive ? !userOu.startsWith(m_ou) : !userOu.equals(m_ou)) {
+                    return false;
+                }
+                boolean webuser = (flags >= I_CmsPrincipal.FLAG_USER_WEBUSER)
+                    && (flags < I_CmsPrincipal.FLAG_CORE_LIMIT);
+                if (webuser != m_webuser) {
+                    return false;
+                }
+            }
+            if (m_filterCore && (flags > I_CmsPrincipal.FLAG_CORE_LIMIT)) {
+                return false;
+            }
+            return !m_filterByGroupOu || userOu.equals(m_groupOu);
+        }
+
+        /**
+         * Null-safe equality check.<p>
+         *
+         * @param a the first object
+         * @param b the second object
+         *
+         * @return true if both objects are equal
+         */
+        private static boolean equal(Object a, Object b) {
+
+            return (a == null) ? (b == null) : a.equals(b);
+        }
+    }
+
+    /** The maximum number of cached counts. */
+    public static final int CACHE_SIZE = 1024;
+
+    /** The cached counts. */
+    private Map<Key, Long> m_counts;
+
+    /** Counter which is increased on every change, to detect changes while a count is read from the database. */
+    private long m_version;
+
+    /**
+     * Creates a new user count cache.<p>
+     *
+     * @param memMonitor the memory monitor instance, may be <code>null</code>
+     */
+    public CmsUserCountCache(CmsMemoryMonitor memMonitor) {
+
+        Map<Key, Long> counts = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+        if (memMonitor != null) {
+            // map must be of type "LRUMap" so that memory monitor can access all information
+            memMonitor.register(CmsUserCountCache.class.getName() + ".counts", counts);
+        }
+        m_counts = counts;
+    }
+
+    /**
+     * Returns the key for the given search parameters, or <code>null</code> if the count can not be cached.<p>
+     *
+     * @param params the user search parameters
+     *
+     * @return the key, or <code>null</code>
+     */
+    private static Key getKey(CmsUserSearchParameters params) {
+
+        if (((params.getOrganizationalUnit() == null) && (params.getGroup() == null))
+            || !CmsStringUtil.isEmptyOrWhitespaceOnly(params.getSearchFilter())
+            || (params.getFlags() != 0)
+            || (params.getNotGroup() != null)
+            || ((params.getAllowedOus() != null) && !params.getAllowedOus().isEmpty())
+            || ((params.getAnyGroups() != null) && !params.getAnyGroups().isEmpty())
+            || ((params.getNotAnyGroups() != null) && !params.getNotAnyGroups().isEmpty())) {
+            return null;
+        }
+        return new Key(params);
+    }
+
+    /**
+     * Removes all cached counts.<p>
+     */
+    public synchronized void clear() {
+
+        m_counts.clear();
+        m_version++;
+    }
+
+    /**
+     * Returns the cached count for the given search parameters.<p>
+     *
+     * @param params the user search parameters
+     *
+     * @return the cached count, or <code>null</code> if not cached
+     */
+    public synchronized Long getCount(CmsUserSearchParameters params) {
+
+        Key key = getKey(params);
+        return (key != null) ? m_counts.get(key) : null;
+    }
+
+    /**
+     * Returns the current version, which must be passed to {@link #putCount(CmsUserSearchParameters, long, long)}.<p>
+     *
+     * @return the current version
+     */
+    public synchronized long getVersion() {
+
+        return m_version;
+    }
+
+    /**
+     * Removes the cached counts of a deleted group.<p>
+     *
+     * @param group the deleted group
+     */
+    public synchronized void groupDeleted(CmsGroup group) {
+
+        Iterator<Key> it = m_counts.keySet().iterator();
+        while (it.hasNext()) {
+            if (group.getId().equals(it.next().m_groupId)) {
+                it.remove();
+            }
+        }
+        m_version++;
+    }
+
+    /**
+     * Caches the count for the given search parameters.<p>
+     *
+     * The count is only cached if there was no change since the given version was read.<p>
+     *
+     * @param params the user search parameters
+     * @param count the number of users
+     * @param version the version read before the count was read from the database
+     */
+    public synchronized void putCount(CmsUserSearchParameters params, long count, long version) {
+
+        Key key = getKey(params);
+        if ((key != null) && (version == m_version)) {
+            m_counts.put(key, new Long(count));
+        }
+    }
+
+    /**
+     * Adjusts the cached counts after a user was added to a group.<p>
+     *
+     * @param user the user
+     * @param group the group
+     */
+    public synchronized void userAddedToGroup(CmsUser user, CmsGroup group) {
+
+        adjustGroup(user, group, 1);
+    }
+
+    /**
+     * Adjusts the cached counts after the flags of a user have changed.<p>
+     *
+     * @param oldUser the user before the change
+     * @param newUser the user after the change
+     */
+    public synchronized void userChanged(CmsUser oldUser, CmsUser newUser) {
+
+        if (oldUser.getFlags() == newUser.getFlags()) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Long>> it = m_counts.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Long> entry = it.next();
+            Key key = entry.getKey();
+            boolean before = key.matches(oldUser);
+            boolean after = key.matches(newUser);
+            if (before == after) {
+                continue;
+            }
+            if (key.m_groupId != null) {
+                // the group membership is not known here
+                it.remove();
+            } else {
+                entry.setValue(new Long(entry.getValue().longValue() + (after ? 1 : -1)));
+            }
+        }
+        m_version++;
+    }
+
+    /**
+     * Adjusts the cached counts after a user was created.<p>
+     *
+     * @param user the new user
+     */
+    public synchronized void userCreated(CmsUser user) {
+
+        adjustOu(user, 1);
+    }
+
+    /**
+     * Adjusts the cached counts after a user was deleted.<p>
+     *
+     * The counts of the groups are adjusted when the user is removed from the groups before,
+     * the group counts which could still include the user are removed.<p>
+     *
+     * @param user the deleted user
+     */
+    public synchronized void userDeleted(CmsUser user) {
+
+        adjustOu(user, -1);
+        // to be safe, forget the group counts which might still include the user
+        Iterator<Key> it = m_counts.keySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if ((key.m_groupId != null) && key.matches(user)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Adjusts the cached counts after a user was moved to another organizational unit.<p>
+     *
+     * The group counts which depend on the organizational unit of the user are removed,
+     * since the group membership is not known here.<p>
+     *
+     * @param oldUser the user before the move
+     * @param newUser the user after the move
+     */
+    public synchronized void userMoved(CmsUser oldUser, CmsUser newUser) {
+
+        adjustOu(oldUser, -1);
+        adjustOu(newUser, 1);
+        Iterator<Key> it = m_counts.keySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next();
+            if ((key.m_groupId != null) && (key.matches(oldUser) != key.matches(newUser))) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Adjusts the cached counts after a user was removed from a group.<p>
+     *
+     * @param user the user
+     * @param group the group
+     */
+    public synchronized void userRemovedFromGroup(CmsUser user, CmsGroup group) {
+
+        adjustGroup(user, group, -1);
+    }
+
+    /**
+     * Adds the given delta to the cached counts of the given group which match the user.<p>
+     *
+     * @param user the user
+     * @param group the group
+     * @param delta the delta
+     */
+    private void adjustGroup(CmsUser user, CmsGroup group, int delta) {
+
+        for (Map.Entry<Key, Long> entry : m_counts.entrySet()) {
+            Key key = entry.getKey();
+            if (group.getId().equals(key.m_groupId) && key.matches(user)) {
+                entry.setValue(new Long(entry.getValue().longValue() + delta));
+            }
+        }
+        m_version++;
+    }
+
+    /**
+     * Adds the given delta to the cached counts without group which match the user.<p>
+     *
+     * Users without group membership do not change the counts of groups.<p>
+     *
+     * @param user the user
+     * @param delta the delta
+     */
+    private void adjustOu(CmsUser user, int delta) {
+
+        for (Map.Entry<Key, Long> entry : m_counts.entrySet()) {
+            Key key = entry.getKey();
+            if ((key.m_groupId == null) && key.matches(user)) {
+                entry.setValue(new Long(entry.getValue().longValue() + delta));
+            }
+        }
+        m_version++;
+    }
+}
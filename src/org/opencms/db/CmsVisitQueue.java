@@ -0,0 +1,344 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsPair;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Write-behind queue for the visits tracked by the subscription manager.<p>
+ *
+ * Repeated visits of a user to the same resource are merged into a single entry with the latest date.
+ * The queued visits are written with one call to the subscription driver, either periodically
+ * or when the number of queued visits reaches the flush threshold. If the queue is full, the oldest
+ * queued visits are dropped.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsVisitQueue {
+
+    /** The maximum number of visits written with one database call. */
+    public static final int MAX_BATCH_SIZE = 500;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsVisitQueue.class);
+
+    /** The maximum number of queued visits. */
+    private final int m_capacity;
+
+    /** The admin context used for writing the visits. */
+    private final CmsObject m_cms;
+
+    /** The number of visits dropped since the last flush. */
+    private long m_dropped;
+
+    /** The total number of dropped visits. */
+    private long m_droppedTotal;
+
+    /** The executor for writing the visits in the background. */
+    private volatile ScheduledExecutorService m_executor;
+
+    /** The total number of flushes. */
+    private long m_flushCount;
+
+    /** Lock to make sure only one flush is running at a time. */
+    private final Object m_flushLock = new Object();
+
+    /** Indicates if a flush is already scheduled. */
+    private final AtomicBoolean m_flushScheduled = new AtomicBoolean();
+
+    /** The number of queued visits which triggers a flush. */
+    private final int m_flushThreshold;
+
+    /** The duration of the last flush in milliseconds. */
+    private volatile long m_lastFlushDuration;
+
+    /** The subscription manager. */
+    private final CmsSubscriptionManager m_manager;
+
+    /** The maximum duration of a flush in milliseconds. */
+    private volatile long m_maxFlushDuration;
+
+    /** The queued visits, by user and structure id, in the order of their last visit. */
+    private final Map<CmsPair<CmsUUID, CmsUUID>, CmsVisitEntry> m_visits;
+
+    /**
+     * Creates a new visit queue.<p>
+     *
+     * @param manager the subscription manager
+     * @param cms the admin context used for writing the visits
+     * @param capacity the maximum number of queued visits
+     */
+    public CmsVisitQueue(CmsSubscriptionManager manager, CmsObject cms, int capacity) {
+
+        m_manager = manager;
+        m_cms = cms;
+        m_capacity = Math.max(1, capacity);
+        m_flushThreshold = Math.min(MAX_BATCH_SIZE, Math.max(1, m_capacity / 2));
+        m_visits = new LinkedHashMap<CmsPair<CmsUUID, CmsUUID>, CmsVisitEntry>();
+    }
+
+    /**
+     * Adds a visit to the queue.<p>
+     *
+     * @param visit the visit to add
+     */
+    public void add(CmsVisitEntry visit) {
+
+        CmsPair<CmsUUID, CmsUUID> key = CmsPair.create(visit.getUserId(), visit.getStructureId());
+        int size;
+        synchronized (m_visits) {
+            // remove first, so the visit moves to the end of the queue
+            if ((m_visits.remove(key) == null) && (m_visits.size() >= m_capacity)) {
+                Iterator<CmsVisitEntry> it = m_visits.values().iterator();
+                it.next();
+                it.remove();
+                m_dropped++;
+                m_droppedTotal++;
+            }
+            m_visits.put(key, visit);
+            size = m_visits.size();
+        }
+        // read the executor only once, it may be cleared concurrently by stop()
+        ScheduledExecutorService executor = m_executor;
+        if ((size >= m_flushThreshold) && (executor != null) && m_flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(new Runnable() {
+
+                    public void run() {
+
+                        m_flushScheduled.set(false);
+                        flush();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the queue is being stopped, the remaining visits are written by stop()
+                m_flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes all queued visits.<p>
+     */
+    public void flush() {
+
+        synchronized (m_flushLock) {
+            List<CmsVisitEntry> visits;
+            long dropped;
+            synchronized (m_visits) {
+                if (m_visits.isEmpty()) {
+                    return;
+                }
+                visits = new ArrayList<CmsVisitEntry>(m_visits.values());
+                m_visits.clear();
+                dropped = m_dropped;
+                m_dropped = 0;
+            }
+            if ((dropped > 0) && LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_VISIT_QUEUE_FULL_1, String.valueOf(dropped)));
+            }
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < visits.size(); i += MAX_BATCH_SIZE) {
+                List<CmsVisitEntry> batch = visits.subList(i, Math.min(visits.size(), i + MAX_BATCH_SIZE));
+                try {
+                    writeVisits(batch);
+                } catch (Throwable t) {
+                    LOG.error(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_VISIT_QUEUE_FLUSH_FAILED_1,
+                            String.valueOf(batch.size())),
+                        t);
+                }
+            }
+            long duration = System.currentTimeMillis() - start;
+            m_lastFlushDuration = duration;
+            if (duration > m_maxFlushDuration) {
+                m_maxFlushDuration = duration;
+            }
+            m_flushCount++;
+        }
+    }
+
+    /**
+     * Returns the maximum number of queued visits.<p>
+     *
+     * @return the maximum number of queued visits
+     */
+    public int getCapacity() {
+
+        return m_capacity;
+    }
+
+    /**
+     * Returns the total number of visits dropped because the queue was full.<p>
+     *
+     * @return the total number of dropped visits
+     */
+    public long getDroppedCount() {
+
+        synchronized (m_visits) {
+            return m_droppedTotal;
+        }
+    }
+
+    /**
+     * Returns the total number of flushes.<p>
+     *
+     * @return the total number of flushes
+     */
+    public long getFlushCount() {
+
+        synchronized (m_flushLock) {
+            return m_flushCount;
+        }
+    }
+
+    /**
+     * Returns the duration of the last flush in milliseconds.<p>
+     *
+     * @return the duration of the last flush
+     */
+    public long getLastFlushDuration() {
+
+        return m_lastFlushDuration;
+    }
+
+    /**
+     * Returns the maximum duration of a flush in milliseconds.<p>
+     *
+     * @return the maximum duration of a flush
+     */
+    public long getMaxFlushDuration() {
+
+        return m_maxFlushDuration;
+    }
+
+    /**
+     * Returns the date of the queued visit of the given user to the given resource.<p>
+     *
+     * @param userId the user id
+     * @param structureId the structure id of the resource
+     *
+     * @return the date of the queued visit, or <code>-1</code> if there is no queued visit
+     */
+    public long getQueuedDate(CmsUUID userId, CmsUUID structureId) {
+
+        CmsVisitEntry visit;
+        synchronized (m_visits) {
+            visit = m_visits.get(CmsPair.create(userId, structureId));
+        }
+        return (visit != null) ? visit.getDate() : -1;
+    }
+
+    /**
+     * Returns the number of queued visits.<p>
+     *
+     * @return the number of queued visits
+     */
+    public int size() {
+
+        synchronized (m_visits) {
+            return m_visits.size();
+        }
+    }
+
+    /**
+     * Starts writing the queued visits periodically in a background thread.<p>
+     *
+     * @param flushInterval the interval between two flushes in milliseconds
+     */
+    public synchronized void start(long flushInterval) {
+
+        if (m_executor != null) {
+            return;
+        }
+        m_executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            public Thread newThread(Runnable r) {
+
+                Thread thread = new Thread(r, "OpenCms: visit queue");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        m_executor.scheduleWithFixedDelay(new Runnable() {
+
+            public void run() {
+
+                flush();
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread and writes the remaining queued visits.<p>
+     */
+    public synchronized void stop() {
+
+        if (m_executor != null) {
+            m_executor.shutdown();
+            try {
+                m_executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                // ignore, flush anyway
+            }
+            m_executor = null;
+        }
+        flush();
+    }
+
+    /**
+     * Writes the given visits to the database.<p>
+     *
+     * @param visits the visits to write
+     *
+     * @throws CmsException if something goes wrong
+     */
+    protected void writeVisits(List<CmsVisitEntry> visits) throws CmsException {
+
+        m_manager.m_securityManager.markResourcesAsVisited(m_cms.getRequestContext(), m_manager.getPoolName(), visits);
+    }
+}
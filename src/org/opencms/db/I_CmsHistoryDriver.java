@@ -38,6 +38,7 @@ import org.opencms.security.I_CmsPrincipal;
 import org.opencms.util.CmsUUID;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Definitions of all required history driver methods.<p>
@@ -141,6 +142,24 @@ public interface I_CmsHistoryDriver {
      */
     CmsSqlManager initSqlManager(String classname);
 
+    /**
+     * Deletes the historical versions of the given resources which exceed the number of versions to keep.<p>
+     * 
+     * This is used to clean up the history of all resources of a publish job at once.
+     * Implementations may do this asynchronously, in this case they must not use the
+     * given database context after returning.<p>
+     * 
+     * @param dbc the current database context
+     * @param versionsToKeep the historical resources to delete versions for, 
+     *      with the number of versions to keep for each of them
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     * 
+     * @see #deleteEntries(CmsDbContext, I_CmsHistoryResource, int, long)
+     */
+    void pruneEntries(CmsDbContext dbc, Map<I_CmsHistoryResource, Integer> versionsToKeep)
+    throws CmsDataAccessException;
+
     /**
      * Reads all file headers of the resource with the given structure id.<p>
      * 
@@ -105,6 +105,20 @@ public interface I_CmsSubscriptionDriver {
     void markResourceAsVisitedBy(CmsDbContext dbc, String poolName, CmsResource resource, CmsUser user)
     throws CmsDataAccessException;
 
+    /**
+     * Writes the given visits, replacing the existing visits of the same users to the same resources.<p>
+     * 
+     * The list must not contain more than one visit of a user to the same resource.<p>
+     * 
+     * @param dbc the database context
+     * @param poolName the name of the database pool to use
+     * @param visits the visits to write
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void markResourcesAsVisited(CmsDbContext dbc, String poolName, List<CmsVisitEntry> visits)
+    throws CmsDataAccessException;
+
     /**
      * Returns all resources subscribed by the given user or group.<p>
      * 
@@ -46,6 +46,7 @@ import java.sql.SQLException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Definitions of all required VFS driver methods.<p>
@@ -464,6 +465,22 @@ public interface I_CmsVfsDriver {
      */
     byte[] readContent(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId) throws CmsDataAccessException;
 
+    /**
+     * Reads the contents of several files specified by their resource IDs.<p>
+     *
+     * Resource IDs for which no content exists are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of the current project
+     * @param resourceIds the ids of the resources
+     *
+     * @return the file contents, by resource id
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, byte[]> readContents(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> resourceIds)
+    throws CmsDataAccessException;
+
     /**
      * Reads a folder specified by it's structure ID.<p>
      *
@@ -570,6 +587,27 @@ public interface I_CmsVfsDriver {
     List<CmsProperty> readPropertyObjects(CmsDbContext dbc, CmsProject project, CmsResource resource)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all properties of several resources.<p>
+     *
+     * The result contains an entry for every given resource, which is an empty list if the
+     * resource has no properties at all.<p>
+     *
+     * @param dbc the current database context
+     * @param project the current project
+     * @param resources the resources to read the properties for
+     *
+     * @return the lists of properties, by structure id of the resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     *
+     * @see #readPropertyObjects(CmsDbContext, CmsProject, CmsResource)
+     */
+    Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException;
+
     /**
      * Reads all relations with the given filter for the given resource.<p>
      *
@@ -585,6 +623,27 @@ public interface I_CmsVfsDriver {
     List<CmsRelation> readRelations(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, CmsRelationFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all relations with the given filter for a set of resources in a single pass.<p>
+     *
+     * This is the set based counterpart of {@link #readRelations(CmsDbContext, CmsUUID, CmsResource, CmsRelationFilter)},
+     * only the source/target direction and the relation types of the filter are evaluated.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to execute the query in
+     * @param structureIds the structure ids of the resources to read the relations for
+     * @param filter the filter to restrict the relations to retrieve
+     *
+     * @return the read relations
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsRelation> readRelationsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        CmsRelationFilter filter) throws CmsDataAccessException;
+
     /**
      * Reads a resource specified by it's structure ID.<p>
      *
@@ -745,6 +804,22 @@ public interface I_CmsVfsDriver {
     List<CmsRewriteAlias> readRewriteAliases(CmsDbContext dbc, CmsRewriteAliasFilter filter)
     throws CmsDataAccessException;
 
+    /**
+     * Reads the root paths of the resources with the given structure ids.<p>
+     *
+     * Structure ids which do not exist in the given project are not contained in the result.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the project to execute the query in
+     * @param structureIds the structure ids to look up
+     *
+     * @return a map from structure id to root path of the existing resources
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Map<CmsUUID, String> readRootPaths(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException;
+
     /**
      * Reads all siblings that point to the resource record of a specified resource.<p>
      *
@@ -762,6 +837,26 @@ public interface I_CmsVfsDriver {
     List<CmsResource> readSiblings(CmsDbContext dbc, CmsUUID projectId, CmsResource resource, boolean includeDeleted)
     throws CmsDataAccessException;
 
+    /**
+     * Reads all siblings that point to one of the given resource records in a single pass.<p>
+     *
+     * This is the set based counterpart of {@link #readSiblings(CmsDbContext, CmsUUID, CmsResource, boolean)}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the id of the current project
+     * @param resourceIds the resource ids of the resource records to read the siblings for
+     * @param includeDeleted <code>true</code> if deleted siblings should be included in the result list
+     *
+     * @return a list of <code>{@link CmsResource}</code>s, sorted by root path
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    List<CmsResource> readSiblingsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> resourceIds,
+        boolean includeDeleted) throws CmsDataAccessException;
+
     /**
      * Reads the URL name mapping entries which match a given filter.<p>
      *
@@ -888,6 +983,20 @@ public interface I_CmsVfsDriver {
     boolean validateResourceIdExists(CmsDbContext dbc, CmsUUID projectId, CmsUUID resourceId)
     throws CmsDataAccessException;
 
+    /**
+     * Validates which of the given root paths exist in the tables of the specified project {offline|online}.<p>
+     *
+     * @param dbc the current database context
+     * @param projectId the ID of current project
+     * @param rootPaths the root paths to check
+     *
+     * @return the subset of the given root paths which exist in the specified project
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    Set<String> validateRootPathsExist(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException;
+
     /**
      * Validates if the specified structure ID in the tables of the specified project {offline|online} exists.<p>
      *
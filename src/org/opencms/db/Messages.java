@@ -354,6 +354,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_MARK_RESOURCE_AS_VISITED_2 = "ERR_MARK_RESOURCE_AS_VISITED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_MARK_RESOURCES_AS_VISITED_1 = "ERR_MARK_RESOURCES_AS_VISITED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_MERGING_PUBLISH_LISTS_0 = "ERR_MERGING_PUBLISH_LISTS_0";
 
@@ -444,6 +447,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_FILE_HISTORY_2 = "ERR_READ_FILE_HISTORY_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_FILES_1 = "ERR_READ_FILES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_FOLDER_2 = "ERR_READ_FOLDER_2";
 
@@ -513,9 +519,15 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PROPS_FOR_RESOURCE_1 = "ERR_READ_PROPS_FOR_RESOURCE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PROPS_FOR_RESOURCES_1 = "ERR_READ_PROPS_FOR_RESOURCES_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1 = "ERR_READ_PUBLISHED_RESOURCES_FOR_ID_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_READ_PUBLISH_REPORT_1 = "ERR_READ_PUBLISH_REPORT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_READ_RELATIONS_1 = "ERR_READ_RELATIONS_1";
 
@@ -768,6 +780,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITE_PROPS_1 = "ERR_WRITE_PROPS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_WRITE_PUBLISH_REPORT_1 = "ERR_WRITE_PUBLISH_REPORT_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_WRITE_RESOURCE_1 = "ERR_WRITE_RESOURCE_1";
 
@@ -873,9 +888,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PUBLISH_LIST_BUILT_6 = "LOG_PUBLISH_LIST_BUILT_6";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_VISIT_QUEUE_FLUSH_FAILED_1 = "LOG_VISIT_QUEUE_FLUSH_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_VISIT_QUEUE_FULL_1 = "LOG_VISIT_QUEUE_FULL_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_WRITE_EXPORT_POINT_1 = "LOG_WRITE_EXPORT_POINT_1";
 
@@ -63,11 +63,18 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 
@@ -78,15 +85,30 @@ import org.apache.commons.logging.Log;
  */
 public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
+    /** The configuration key to enable the asynchronous clean up of old historical versions. */
+    public static final String CONFIGURATION_PRUNE_ASYNC = "db.history.prune.async";
+
+    /** The maximum number of items in a JDBC batch. */
+    protected static final int BATCH_MAX_SIZE = 500;
+
+    /** The maximum number of parameters used in a single SQL <code>IN</code> condition. */
+    protected static final int IN_CONDITION_MAX_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.generic.CmsHistoryDriver.class);
 
+    /** Seconds to wait for pending clean up jobs on shutdown. */
+    private static final long PRUNE_SHUTDOWN_TIMEOUT = 60;
+
     /** The driver manager instance. */
     protected CmsDriverManager m_driverManager;
 
     /** The SQL manager instance. */
     protected CmsSqlManager m_sqlManager;
 
+    /** The executor for cleaning up old historical versions in the background, <code>null</code> if disabled. */
+    private ExecutorService m_pruneExecutor;
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#createPropertyDefinition(org.opencms.db.CmsDbContext, java.lang.String, org.opencms.file.CmsPropertyDefinition.CmsPropertyType)
      */
@@ -310,6 +332,12 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
      */
     public void destroy() throws Throwable {
 
+        if (m_pruneExecutor != null) {
+            // let the pending clean up jobs finish
+            m_pruneExecutor.shutdown();
+            m_pruneExecutor.awaitTermination(PRUNE_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+            m_pruneExecutor = null;
+        }
         m_sqlManager = null;
         m_driverManager = null;
 
@@ -429,6 +457,18 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
         m_driverManager = driverManager;
 
+        if (configuration.getBoolean(CONFIGURATION_PRUNE_ASYNC, false)) {
+            m_pruneExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: history clean up");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_ASSIGNED_POOL_1, poolUrl));
         }
@@ -450,6 +490,45 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         return CmsSqlManager.getInstance(classname);
     }
 
+    /**
+     * Deletes the exceeding historical versions of the given resources.<p>
+     * 
+     * If the asynchronous clean up is enabled with {@link #CONFIGURATION_PRUNE_ASYNC},
+     * the versions are deleted in a background thread with its own database context.<p>
+     * 
+     * @see org.opencms.db.I_CmsHistoryDriver#pruneEntries(org.opencms.db.CmsDbContext, java.util.Map)
+     */
+    public void pruneEntries(CmsDbContext dbc, Map<I_CmsHistoryResource, Integer> versionsToKeep)
+    throws CmsDataAccessException {
+
+        if (versionsToKeep.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = m_pruneExecutor;
+        if (executor == null) {
+            internalPruneEntries(dbc, versionsToKeep);
+            return;
+        }
+        final Map<I_CmsHistoryResource, Integer> entries = new LinkedHashMap<I_CmsHistoryResource, Integer>(
+            versionsToKeep);
+        executor.execute(new Runnable() {
+
+            public void run() {
+
+                CmsDbContext pruneDbc = new CmsDbContext();
+                try {
+                    internalPruneEntries(pruneDbc, entries);
+                } catch (Throwable t) {
+                    LOG.error(
+                        Messages.get().getBundle().key(Messages.LOG_HISTORY_PRUNE_FAILED_1, new Integer(entries.size())),
+                        t);
+                } finally {
+                    pruneDbc.clear();
+                }
+            }
+        });
+    }
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#readAllAvailableVersions(CmsDbContext, CmsUUID)
      */
@@ -1371,6 +1450,9 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
 
         try {
             conn = m_sqlManager.getConnection(dbc);
+            // write all values of the resource with one batch
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
+            int batchSize = 0;
             for (Map.Entry<CmsProperty, CmsPropertyDefinition> entry : propDefs.entrySet()) {
 
                 for (int i = 0; i < 2; i++) {
@@ -1395,19 +1477,23 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
                         }
                     }
 
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_CREATE");
-
                     stmt.setString(1, resource.getStructureId().toString());
                     stmt.setString(2, entry.getValue().getId().toString());
                     stmt.setString(3, id.toString());
                     stmt.setInt(4, mappingType);
                     stmt.setString(5, m_sqlManager.validateEmpty(value));
                     stmt.setInt(6, publishTag);
-
-                    stmt.executeUpdate();
-                    m_sqlManager.closeAll(dbc, null, stmt, null);
+                    stmt.addBatch();
+                    batchSize++;
+                    if (batchSize == BATCH_MAX_SIZE) {
+                        stmt.executeBatch();
+                        batchSize = 0;
+                    }
                 }
             }
+            if (batchSize > 0) {
+                stmt.executeBatch();
+            }
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
                 Messages.ERR_GENERIC_SQL_1,
@@ -1879,6 +1965,92 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Deletes the exceeding historical versions of the given resources.<p>
+     * 
+     * The current maximum versions of all resources are read set based first, so 
+     * {@link #deleteEntries(CmsDbContext, I_CmsHistoryResource, int, long)} is only
+     * called for resources which actually have versions to delete.<p>
+     * 
+     * @param dbc the current database context
+     * @param versionsToKeep the historical resources, with the number of versions to keep for each of them
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalPruneEntries(CmsDbContext dbc, Map<I_CmsHistoryResource, Integer> versionsToKeep)
+    throws CmsDataAccessException {
+
+        Set<CmsUUID> structureIds = new HashSet<CmsUUID>();
+        for (I_CmsHistoryResource resource : versionsToKeep.keySet()) {
+            structureIds.add(resource.getStructureId());
+        }
+        Map<CmsUUID, Integer> maxVersions = internalReadMaxVersions(dbc, structureIds);
+        for (Map.Entry<I_CmsHistoryResource, Integer> entry : versionsToKeep.entrySet()) {
+            I_CmsHistoryResource resource = entry.getKey();
+            int keep = entry.getValue().intValue();
+            Integer maxVersion = maxVersions.get(resource.getStructureId());
+            if ((maxVersion != null) && (maxVersion.intValue() > 0) && ((maxVersion.intValue() - keep) <= 0)) {
+                // nothing to delete, and since versions are left there is nothing to clean up either
+                continue;
+            }
+            deleteEntries(dbc, resource, keep, -1);
+        }
+    }
+
+    /**
+     * Reads the maximum historical structure versions of the given resources.<p>
+     * 
+     * @param dbc the current database context
+     * @param structureIds the structure ids of the resources
+     * 
+     * @return the maximum versions by structure id, resources without historical versions are not contained
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected Map<CmsUUID, Integer> internalReadMaxVersions(CmsDbContext dbc, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, Integer> result = new HashMap<CmsUUID, Integer>();
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(structureIds);
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                StringBuffer query = new StringBuffer(
+                    m_sqlManager.readQuery("C_STRUCTURE_HISTORY_READ_MAX_VERSIONS_FOR_IDS"));
+                query.append(BEGIN_CONDITION);
+                for (int j = 0; j < chunk.size(); j++) {
+                    query.append((j > 0) ? ", ?" : "?");
+                }
+                query.append(END_CONDITION);
+                query.append(m_sqlManager.readQuery("C_STRUCTURE_HISTORY_GROUP_BY_STRUCTURE_ID"));
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.put(new CmsUUID(res.getString(1)), Integer.valueOf(res.getInt(2)));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * Tests if a history resource does exist.<p>
      * 
@@ -43,7 +43,6 @@ import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsResourceState;
 import org.opencms.db.CmsVisitEntryFilter;
 import org.opencms.db.I_CmsDriver;
-import org.opencms.db.I_CmsHistoryDriver;
 import org.opencms.db.I_CmsPreparedStatementParameter;
 import org.opencms.db.I_CmsProjectDriver;
 import org.opencms.db.I_CmsVfsDriver;
@@ -63,6 +62,7 @@ import org.opencms.file.CmsUser;
 import org.opencms.file.CmsVfsResourceAlreadyExistsException;
 import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.history.CmsHistoryFile;
+import org.opencms.file.history.I_CmsHistoryResource;
 import org.opencms.file.types.CmsResourceTypeFolder;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.lock.CmsLock;
@@ -92,11 +92,14 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -185,6 +188,12 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
     }
 
+    /** Attribute name for comparing the content of a changed file with its online content when publishing it. */
+    public static final String DBC_ATTR_COMPARE_CONTENT = "DBC_ATTR_COMPARE_CONTENT";
+
+    /** Attribute name for collecting the historical resources to clean up at the end of a publish. */
+    public static final String DBC_ATTR_PRUNE_HISTORY = "DBC_ATTR_PRUNE_HISTORY";
+
     /** Attribute name for reading the project of a resource. */
     public static final String DBC_ATTR_READ_PROJECT_FOR_RESOURCE = "DBC_ATTR_READ_PROJECT_FOR_RESOURCE";
 
@@ -1160,11 +1169,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                 dbc.pop();
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                    -1);
+                internalDeleteHistoricalEntries(dbc, offlineResource, OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1195,11 +1200,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                 dbc.pop();
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                internalDeleteHistoricalEntries(dbc, offlineResource, OpenCms.getSystemInfo().getHistoryVersions());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1223,11 +1224,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                 dbc.pop();
                 // delete old historical entries
-                m_driverManager.getHistoryDriver(dbc).deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                internalDeleteHistoricalEntries(dbc, offlineResource, OpenCms.getSystemInfo().getHistoryVersions());
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1328,6 +1325,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             // only update the content if it was not updated before
             boolean alreadyPublished = publishedResourceIds.contains(offlineResource.getResourceId());
             needToUpdateContent &= !alreadyPublished;
+            if (needToUpdateContent && Boolean.TRUE.equals(dbc.getAttribute(DBC_ATTR_COMPARE_CONTENT))) {
+                // avoid a new historical content version if only the date of the content changed
+                needToUpdateContent = !internalIsContentUnchanged(dbc, offlineResource.getResourceId(), offlineContent);
+            }
 
             if (createSibling) {
                 if (!alreadyPublished) {
@@ -1591,6 +1592,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         int publishedFileCount = 0;
         Set<CmsUUID> publishedContentIds = new HashSet<CmsUUID>();
         Set<CmsUUID> publishedIds = new HashSet<CmsUUID>();
+        // collect the historical entries to delete, they are cleaned up set based after publishing
+        Map<I_CmsHistoryResource, Integer> historyToPrune = new LinkedHashMap<I_CmsHistoryResource, Integer>();
+        dbc.setAttribute(DBC_ATTR_PRUNE_HISTORY, historyToPrune);
 
         try {
 
@@ -1632,7 +1636,6 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
             Iterator<CmsResource> itFolders = publishList.getFolderList().iterator();
             I_CmsProjectDriver projectDriver = m_driverManager.getProjectDriver(dbc);
-            I_CmsHistoryDriver historyDriver = m_driverManager.getHistoryDriver(dbc);
             while (itFolders.hasNext()) {
                 CmsResource currentFolder = itFolders.next();
                 try {
@@ -1662,11 +1665,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             new String[] {currentFolder.getRootPath()}), true);
 
                         // delete old historical entries
-                        historyDriver.deleteEntries(
+                        internalDeleteHistoricalEntries(
                             dbc,
-                            new CmsHistoryFile(currentFolder),
-                            OpenCms.getSystemInfo().getHistoryVersions(),
-                            -1);
+                            currentFolder,
+                            OpenCms.getSystemInfo().getHistoryVersions());
 
                         // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
                         internalResetResourceState(dbc, currentFolder);
@@ -1814,11 +1816,10 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
                     dbc.pop();
                     // delete old historical entries
-                    m_driverManager.getHistoryDriver(dbc).deleteEntries(
+                    internalDeleteHistoricalEntries(
                         dbc,
-                        new CmsHistoryFile(currentFolder),
-                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                        -1);
+                        currentFolder,
+                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion());
 
                     publishedIds.add(currentFolder.getStructureId());
                     // unlock it
@@ -1856,6 +1857,19 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             }
             throw new CmsDataAccessException(message, o);
         } finally {
+            dbc.removeAttribute(DBC_ATTR_PRUNE_HISTORY);
+            try {
+                // delete old historical entries
+                m_driverManager.getHistoryDriver(dbc).pruneEntries(dbc, historyToPrune);
+                dbc.pop();
+            } catch (Throwable t) {
+                dbc.report(
+                    report,
+                    Messages.get().container(
+                        Messages.LOG_HISTORY_PRUNE_FAILED_1,
+                        String.valueOf(historyToPrune.size())),
+                    t);
+            }
             // reset vfs driver internal info after publishing
             m_driverManager.getVfsDriver(dbc).publishVersions(dbc, null, false);
             Object[] msgArgs = new Object[] {
@@ -3053,6 +3067,31 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
             CmsProject.CmsProjectType.valueOf(res.getInt(m_sqlManager.readQuery("C_PROJECTS_PROJECT_TYPE_0"))));
     }
 
+    /**
+     * Deletes the exceeding historical versions of a published resource.<p>
+     * 
+     * During a project publish the resource is only collected, and all collected
+     * resources are cleaned up together after publishing.<p>
+     * 
+     * @param dbc the current database context
+     * @param resource the published resource
+     * @param versionsToKeep the number of versions to keep
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    @SuppressWarnings("unchecked")
+    protected void internalDeleteHistoricalEntries(CmsDbContext dbc, CmsResource resource, int versionsToKeep)
+    throws CmsDataAccessException {
+
+        Map<I_CmsHistoryResource, Integer> historyToPrune = (Map<I_CmsHistoryResource, Integer>)dbc.getAttribute(
+            DBC_ATTR_PRUNE_HISTORY);
+        if (historyToPrune != null) {
+            historyToPrune.put(new CmsHistoryFile(resource), Integer.valueOf(versionsToKeep));
+        } else {
+            m_driverManager.getHistoryDriver(dbc).deleteEntries(dbc, new CmsHistoryFile(resource), versionsToKeep, -1);
+        }
+    }
+
     /**
      * Builds a publish list from serialized data.<p>
      *
@@ -3069,6 +3108,31 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
         return (CmsPublishList)oin.readObject();
     }
 
+    /**
+     * Checks if the offline content of a changed file is equal to its online content.<p>
+     * 
+     * This is only checked for files with the same online and offline length, 
+     * and only the online content has to be read, since the offline content is 
+     * already read for publishing.<p>
+     * 
+     * @param dbc the current database context
+     * @param resourceId the resource id of the file
+     * @param offlineContent the offline content of the file
+     * 
+     * @return <code>true</code> if the content is unchanged
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected boolean internalIsContentUnchanged(CmsDbContext dbc, CmsUUID resourceId, byte[] offlineContent)
+    throws CmsDataAccessException {
+
+        byte[] onlineContent = m_driverManager.getVfsDriver(dbc).readContent(
+            dbc,
+            CmsProject.ONLINE_PROJECT_ID,
+            resourceId);
+        return Arrays.equals(onlineContent, offlineContent);
+    }
+
     /**
      * Creates a new {@link CmsLogEntry} object from the given result set entry.<p>
      *
@@ -3312,6 +3376,7 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         CmsResource onlineResource = null;
         boolean needToUpdateContent = true;
+        boolean compareContent = false;
         boolean existsOnline = m_driverManager.getVfsDriver(dbc).validateStructureIdExists(
             dbc,
             CmsProject.ONLINE_PROJECT_ID,
@@ -3336,6 +3401,13 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     offlineResource.getStructureId(),
                     false);
                 needToUpdateContent = (onlineResource.getDateContent() < offlineResource.getDateContent());
+                // a content with the same length may be unchanged, it is compared when publishing the content
+                CmsUUID projectId = dbc.getProjectId();
+                compareContent = needToUpdateContent
+                    && OpenCms.getSystemInfo().isHistoryEnabled()
+                    && ((projectId == null) || projectId.isNullUUID())
+                    && onlineResource.getResourceId().equals(offlineResource.getResourceId())
+                    && (onlineResource.getLength() == offlineResource.getLength());
                 // delete the properties online
                 m_driverManager.getVfsDriver(dbc).deletePropertyObjects(
                     dbc,
@@ -3379,6 +3451,9 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
 
         CmsFile newFile;
         try {
+            if (compareContent) {
+                dbc.setAttribute(DBC_ATTR_COMPARE_CONTENT, Boolean.TRUE);
+            }
             // publish the file content
             newFile = m_driverManager.getProjectDriver(dbc).publishFileContent(
                 dbc,
@@ -3396,6 +3471,8 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     e);
             }
             throw e;
+        } finally {
+            dbc.removeAttribute(DBC_ATTR_COMPARE_CONTENT);
         }
 
         List<CmsProperty> offlineProperties;
@@ -210,63 +210,60 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
 
         if (!entryExists) {
             // new entry, check if maximum number of stored visited resources is exceeded
-            PreparedStatement stmt = null;
-            Connection conn = null;
-            ResultSet res = null;
-            int count = 0;
-
-            List<Long> dates = new ArrayList<Long>();
+            internalTrimVisits(dbc, poolName, user.getId());
+        }
+    }
 
-            try {
-                conn = m_sqlManager.getConnection(poolName);
-                stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_VISITED_USER_COUNT_1");
+    /**
+     * @see org.opencms.db.I_CmsSubscriptionDriver#markResourcesAsVisited(org.opencms.db.CmsDbContext, java.lang.String, java.util.List)
+     */
+    public void markResourcesAsVisited(CmsDbContext dbc, String poolName, List<CmsVisitEntry> visits)
+    throws CmsDataAccessException {
 
-                stmt.setString(1, user.getId().toString());
-                res = stmt.executeQuery();
+        if (visits.isEmpty()) {
+            return;
+        }
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        Set<CmsUUID> userIds = new HashSet<CmsUUID>();
 
-                if (res.next()) {
-                    count = res.getInt(1);
-                    while (res.next()) {
-                        // do nothing only move through all rows because of mssql odbc driver
-                    }
-                } else {
-                    throw new CmsDbConsistencyException(Messages.get().container(
-                        Messages.ERR_COUNTING_VISITED_RESOURCES_1,
-                        user.getName()));
-                }
+        try {
+            if (CmsStringUtil.isNotEmpty(poolName)) {
+                conn = m_sqlManager.getConnection(poolName);
+            } else {
+                conn = m_sqlManager.getConnection(dbc);
+            }
+            // delete the existing visits with one batch
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_VISIT_DELETE_ENTRY_2");
+            for (CmsVisitEntry visit : visits) {
+                stmt.setString(1, visit.getUserId().toString());
+                stmt.setString(2, visit.getStructureId().toString());
+                stmt.addBatch();
+                userIds.add(visit.getUserId());
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
 
-                int maxCount = OpenCms.getSubscriptionManager().getMaxVisitedCount();
-                if (count > maxCount) {
-                    // delete old visited entries
-                    m_sqlManager.closeAll(dbc, null, stmt, res);
-                    stmt = m_sqlManager.getPreparedStatement(
-                        conn,
-                        dbc.currentProject(),
-                        "C_VISITED_USER_DELETE_GETDATE_2");
-
-                    stmt.setString(1, user.getId().toString());
-                    stmt.setInt(2, count - maxCount);
-                    res = stmt.executeQuery();
-                    while (res.next()) {
-                        // get last date of result set
-                        dates.add(Long.valueOf(res.getLong(1)));
-                    }
-                }
-            } catch (SQLException e) {
-                throw new CmsDbSqlException(Messages.get().container(
-                    Messages.ERR_GENERIC_SQL_1,
-                    CmsDbSqlException.getErrorQuery(stmt)), e);
-            } finally {
-                m_sqlManager.closeAll(dbc, conn, stmt, res);
-            }
-            long deleteDate = 0;
-            for (Long date : dates) {
-                deleteDate = date.longValue();
-                if (deleteDate > 0) {
-                    filter = CmsVisitEntryFilter.ALL.filterUser(user.getId()).filterTo(deleteDate);
-                    deleteVisits(dbc, OpenCms.getSubscriptionManager().getPoolName(), filter);
-                }
+            // write the new visits with one batch
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_VISIT_CREATE_3");
+            for (CmsVisitEntry visit : visits) {
+                stmt.setString(1, visit.getUserId().toString());
+                stmt.setLong(2, visit.getDate());
+                stmt.setString(3, visit.getStructureId().toString());
+                stmt.addBatch();
             }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+
+        // check if the maximum number of stored visited resources is exceeded, once per user
+        for (CmsUUID userId : userIds) {
+            internalTrimVisits(dbc, poolName, userId);
         }
     }
 
@@ -943,6 +940,74 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
         return new CmsVisitEntry(userId, date, structureId);
     }
 
+    /**
+     * Deletes the oldest visits of the given user if the maximum number of stored visited resources is exceeded.<p>
+     * 
+     * @param dbc the database context to use 
+     * @param poolName the name of the database pool to use 
+     * @param userId the id of the user
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalTrimVisits(CmsDbContext dbc, String poolName, CmsUUID userId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        ResultSet res = null;
+        int count = 0;
+
+        List<Long> dates = new ArrayList<Long>();
+
+        try {
+            conn = m_sqlManager.getConnection(poolName);
+            stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_VISITED_USER_COUNT_1");
+
+            stmt.setString(1, userId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                count = res.getInt(1);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            } else {
+                throw new CmsDbConsistencyException(Messages.get().container(
+                    Messages.ERR_COUNTING_VISITED_RESOURCES_1,
+                    userId.toString()));
+            }
+
+            int maxCount = OpenCms.getSubscriptionManager().getMaxVisitedCount();
+            if (count > maxCount) {
+                // delete old visited entries
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_VISITED_USER_DELETE_GETDATE_2");
+
+                stmt.setString(1, userId.toString());
+                stmt.setInt(2, count - maxCount);
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    // get last date of result set
+                    dates.add(Long.valueOf(res.getLong(1)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        long deleteDate = 0;
+        for (Long date : dates) {
+            deleteDate = date.longValue();
+            if (deleteDate > 0) {
+                CmsVisitEntryFilter filter = CmsVisitEntryFilter.ALL.filterUser(userId).filterTo(deleteDate);
+                deleteVisits(dbc, OpenCms.getSubscriptionManager().getPoolName(), filter);
+            }
+        }
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given visit entry filter.<p>
      * 
@@ -132,6 +132,9 @@ public class CmsUserDriver implements I_CmsUserDriver {
     /** Property for the organizational unit default project id. */
     private static final String ORGUNIT_PROPERTY_PROJECTID = CmsPropertyDefinition.PROPERTY_KEYWORDS;
 
+    /** The maximum number of users whose additional infos are read with one query. */
+    private static final int USER_INFO_BATCH_SIZE = 100;
+
     /** A digest to encrypt the passwords. */
     protected MessageDigest m_digest;
 
@@ -1483,38 +1486,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
             res = stmt.executeQuery();
             // read the infos
             while (res.next()) {
-                String key = res.getString(m_sqlManager.readQuery("C_USERDATA_KEY_0"));
-                String type = res.getString(m_sqlManager.readQuery("C_USERDATA_TYPE_0"));
-                byte[] value = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_USERDATA_VALUE_0"));
-                // deserialize
-                Object data = null;
-                try {
-
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_READUSERINFO_2, key, type));
-                        if (value != null) {
-                            try {
-                                LOG.debug(Messages.get().getBundle().key(
-                                    Messages.LOG_DBG_READUSERINFO_VALUE_1,
-                                    new String(value)));
-                            } catch (Exception e) {
-                                // noop
-                            }
-                        } else {
-                            LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_READUSERINFO_VALUE_1, null));
-                        }
-                    }
-
-                    data = CmsDataTypeUtil.dataDeserialize(value, type);
-
-                } catch (Exception e) {
-                    LOG.error(
-                        Messages.get().container(Messages.ERR_READING_ADDITIONAL_INFO_1, userId.toString()).key(),
-                        e);
-                }
-                if ((key != null) && (data != null)) {
-                    infos.put(key, data);
-                }
+                internalReadUserInfo(res, userId, infos);
             }
         } catch (SQLException e) {
             throw new CmsDbSqlException(Messages.get().container(
@@ -1563,10 +1535,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
 
-        for (CmsUser user : users) {
-            Map<String, Object> info = readUserInfos(dbc, user.getId());
-            user.setAdditionalInfo(info);
-        }
+        internalReadUserInfos(dbc, users);
         return users;
     }
 
@@ -1760,9 +1729,8 @@ public class CmsUserDriver implements I_CmsUserDriver {
         } finally {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
-        for (CmsUser user : users) {
-            Map<String, Object> info = readUserInfos(dbc, user.getId());
-            user.setAdditionalInfo(info);
+        if (searchParams.isLoadAdditionalInfos()) {
+            internalReadUserInfos(dbc, users);
         }
         return users;
     }
@@ -2658,10 +2626,7 @@ public class CmsUserDriver implements I_CmsUserDriver {
             m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
         if (readAdditionalInfos) {
-            for (CmsUser user : users) {
-                Map<String, Object> info = readUserInfos(dbc, user.getId());
-                user.setAdditionalInfo(info);
-            }
+            internalReadUserInfos(dbc, users);
         }
         return users;
 
@@ -2688,6 +2653,106 @@ public class CmsUserDriver implements I_CmsUserDriver {
         }
     }
 
+    /**
+     * Reads a single additional info entry from the current row of a result set.<p>
+     *
+     * @param res the result set
+     * @param userId the id of the user the entry belongs to
+     * @param infos the map to which the entry should be added
+     *
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalReadUserInfo(ResultSet res, CmsUUID userId, Map<String, Object> infos)
+    throws SQLException {
+
+        String key = res.getString(m_sqlManager.readQuery("C_USERDATA_KEY_0"));
+        String type = res.getString(m_sqlManager.readQuery("C_USERDATA_TYPE_0"));
+        byte[] value = m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_USERDATA_VALUE_0"));
+        // deserialize
+        Object data = null;
+        try {
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_READUSERINFO_2, key, type));
+                if (value != null) {
+                    try {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DBG_READUSERINFO_VALUE_1,
+                            new String(value)));
+                    } catch (Exception e) {
+                        // noop
+                    }
+                } else {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_DBG_READUSERINFO_VALUE_1, null));
+                }
+            }
+
+            data = CmsDataTypeUtil.dataDeserialize(value, type);
+
+        } catch (Exception e) {
+            LOG.error(
+                Messages.get().container(Messages.ERR_READING_ADDITIONAL_INFO_1, userId.toString()).key(),
+                e);
+        }
+        if ((key != null) && (data != null)) {
+            infos.put(key, data);
+        }
+    }
+
+    /**
+     * Reads the additional infos of the given users and sets them on the user objects.<p>
+     *
+     * The infos are read with one query for several users instead of one query per user.<p>
+     *
+     * @param dbc the current database context
+     * @param users the users whose additional infos should be read
+     *
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalReadUserInfos(CmsDbContext dbc, List<CmsUser> users) throws CmsDataAccessException {
+
+        for (int i = 0; i < users.size(); i += USER_INFO_BATCH_SIZE) {
+            List<CmsUser> batch = users.subList(i, Math.min(users.size(), i + USER_INFO_BATCH_SIZE));
+            Map<CmsUUID, Map<String, Object>> infos = new HashMap<CmsUUID, Map<String, Object>>();
+            StringBuffer params = new StringBuffer(batch.size() * 3);
+            for (CmsUser user : batch) {
+                infos.put(user.getId(), new HashMap<String, Object>());
+                if (params.length() > 0) {
+                    params.append(", ");
+                }
+                params.append("?");
+            }
+
+            ResultSet res = null;
+            PreparedStatement stmt = null;
+            Connection conn = null;
+            try {
+                conn = m_sqlManager.getConnection(dbc);
+                String query = m_sqlManager.readQuery("C_USERDATA_READ_USERS");
+                query = CmsStringUtil.substitute(query, "%(USER_IDS)", params.toString());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                int index = 1;
+                for (CmsUser user : batch) {
+                    stmt.setString(index++, user.getId().toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    CmsUUID userId = new CmsUUID(res.getString(m_sqlManager.readQuery("C_USERS_USER_ID_0")));
+                    internalReadUserInfo(res, userId, infos.get(userId));
+                }
+            } catch (SQLException e) {
+                throw new CmsDbSqlException(Messages.get().container(
+                    Messages.ERR_GENERIC_SQL_1,
+                    CmsDbSqlException.getErrorQuery(stmt)), e);
+            } finally {
+                m_sqlManager.closeAll(dbc, conn, stmt, res);
+            }
+            for (CmsUser user : batch) {
+                user.setAdditionalInfo(infos.get(user.getId()));
+            }
+        }
+    }
+
     /**
      * Returns the list of root paths associated to the organizational unit represented by the given resource.<p>
      * 
@@ -110,6 +110,7 @@ public class CmsUserQueryBuilder {
             select.visit(builder);
             return CmsPair.create(builder.getQuery(), builder.getParameters());
         } else {
+            addKeysetCondition(select, users, searchParams);
             addSorting(select, users, searchParams);
             return makePaged(select, searchParams);
         }
@@ -247,6 +248,51 @@ public class CmsUserQueryBuilder {
         }
     }
 
+    /**
+     * Adds the keyset paging condition to an SQL query.<p>
+     *
+     * Only users which come after the last user of the previous page in the sort order are selected.
+     * The sort value of the last user is read with a subquery, and the user id is used as a tie breaker.<p>
+     *
+     * @param select the query
+     * @param users the user table alias
+     * @param searchParams the user search criteria
+     */
+    protected void addKeysetCondition(
+        CmsSelectQuery select,
+        TableAlias users,
+        CmsUserSearchParameters searchParams) {
+
+        CmsUUID lastUserId = searchParams.getKeysetUserId();
+        if (lastUserId == null) {
+            return;
+        }
+        String operator = searchParams.isAscending() ? " > " : " < ";
+        String idColumn = users.column(colId());
+        String ordering = getSortExpression(users, searchParams);
+        I_CmsQueryFragment idCondition = new CmsSimpleQueryFragment(
+            idColumn + operator + "?",
+            lastUserId.toString());
+        if (ordering.equals(idColumn)) {
+            select.addCondition(idCondition);
+            return;
+        }
+        CmsSelectQuery lastValue = new CmsSelectQuery();
+        TableAlias lastUser = lastValue.addTable(tabUsers(), "lastusr");
+        lastValue.addColumn(getSortExpression(lastUser, searchParams));
+        lastValue.addCondition(lastUser.column(colId()) + " = ?", lastUserId.toString());
+
+        CmsCompositeQueryFragment after = new CmsCompositeQueryFragment();
+        after.setPrefix(ordering + operator + "(");
+        after.setSuffix(")");
+        after.add(lastValue);
+        CmsCompositeQueryFragment same = new CmsCompositeQueryFragment();
+        same.setPrefix(ordering + " = (");
+        same.setSuffix(")");
+        same.add(lastValue);
+        select.addCondition(CmsSqlBooleanClause.makeOr(after, CmsSqlBooleanClause.makeAnd(same, idCondition)));
+    }
+
     /**
      * Adds a check for an OU to an SQL query.<p>
      * 
@@ -341,12 +387,17 @@ public class CmsUserQueryBuilder {
 
         boolean ascending = searchParams.isAscending();
         String ordering = getSortExpression(users, searchParams);
+        String direction;
         if (ascending) {
-            ordering += " ASC";
+            direction = " ASC";
         } else {
-            ordering += " DESC";
+            direction = " DESC";
+        }
+        ordering += direction;
+        if (!ordering.startsWith(users.column(colId()) + " ")) {
+            // use the id as a tie breaker, so the order is stable across pages
+            ordering += ", " + users.column(colId()) + direction;
         }
-
         select.setOrdering(ordering);
     }
 
@@ -361,7 +412,7 @@ public class CmsUserQueryBuilder {
 
         String webuserConditionTemplate;
         if (orgUnit.hasFlagWebuser()) {
-            webuserConditionTemplate = "( %1$ >= 32768 AND %1$s < 65536 )";
+            webuserConditionTemplate = "( %1$s >= 32768 AND %1$s < 65536 )";
         } else {
             webuserConditionTemplate = "( %1$s < 32768 OR %1$s >= 65536 )";
         }
@@ -103,6 +103,9 @@ import org.apache.commons.logging.Log;
  */
 public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
+    /** The maximum number of parameters used in a single SQL <code>IN</code> condition. */
+    protected static final int IN_CONDITION_MAX_SIZE = 500;
+
     /** Contains the macro replacement value for the offline project. */
     protected static final String OFFLINE = "OFFLINE";
 
@@ -1838,6 +1841,51 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContents(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, byte[]> readContents(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> resourceIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, byte[]> result = new HashMap<CmsUUID, byte[]>();
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(new HashSet<CmsUUID>(resourceIds));
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            String queryKey = projectId.equals(CmsProject.ONLINE_PROJECT_ID)
+            ? "C_ONLINE_FILES_CONTENT_LIST"
+            : "C_OFFLINE_FILES_CONTENT_LIST";
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, queryKey) + prepareInCondition(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.put(
+                        new CmsUUID(res.getString(1)),
+                        m_sqlManager.getBytes(res, m_sqlManager.readQuery("C_RESOURCES_FILE_CONTENT")));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2160,6 +2208,103 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        CmsUUID projectId = ((dbc.getProjectId() == null) || dbc.getProjectId().isNullUUID())
+        ? project.getUuid()
+        : dbc.getProjectId();
+
+        // a property row is mapped to either the structure id or the resource id of a resource,
+        // the resource id may be shared by several siblings in the given list
+        Map<CmsUUID, List<CmsResource>> resourcesByMappingId = new HashMap<CmsUUID, List<CmsResource>>();
+        Map<CmsUUID, Map<String, CmsProperty>> propertyMaps = new HashMap<CmsUUID, Map<String, CmsProperty>>();
+        for (CmsResource resource : resources) {
+            if (propertyMaps.containsKey(resource.getStructureId())) {
+                continue;
+            }
+            propertyMaps.put(resource.getStructureId(), new HashMap<String, CmsProperty>());
+            CmsUUID[] mappingIds = new CmsUUID[] {resource.getStructureId(), resource.getResourceId()};
+            for (CmsUUID mappingId : mappingIds) {
+                List<CmsResource> mapped = resourcesByMappingId.get(mappingId);
+                if (mapped == null) {
+                    mapped = new ArrayList<CmsResource>(1);
+                    resourcesByMappingId.put(mappingId, mapped);
+                }
+                mapped.add(resource);
+            }
+        }
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(resourcesByMappingId.keySet());
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, "C_PROPERTIES_READALL_LIST")
+                    + prepareInCondition(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    String propertyKey = res.getString(1);
+                    String propertyValue = res.getString(2);
+                    int mappingType = res.getInt(3);
+                    CmsUUID mappingId = new CmsUUID(res.getString(4));
+                    for (CmsResource resource : resourcesByMappingId.get(mappingId)) {
+                        Map<String, CmsProperty> propertyMap = propertyMaps.get(resource.getStructureId());
+                        CmsProperty property = propertyMap.get(propertyKey);
+                        if (property == null) {
+                            // there doesn't exist a property object for this key yet
+                            property = new CmsProperty();
+                            property.setName(propertyKey);
+                            propertyMap.put(propertyKey, property);
+                        }
+                        if (mappingType == CmsProperty.STRUCTURE_RECORD_MAPPING) {
+                            // this property value is mapped to a structure record
+                            property.setStructureValue(propertyValue);
+                        } else if (mappingType == CmsProperty.RESOURCE_RECORD_MAPPING) {
+                            // this property value is mapped to a resource record
+                            property.setResourceValue(propertyValue);
+                        } else {
+                            throw new CmsDbConsistencyException(Messages.get().container(
+                                Messages.ERR_UNKNOWN_PROPERTY_VALUE_MAPPING_3,
+                                resource.getRootPath(),
+                                new Integer(mappingType),
+                                propertyKey));
+                        }
+                        property.setOrigin(resource.getRootPath());
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (Map.Entry<CmsUUID, Map<String, CmsProperty>> entry : propertyMaps.entrySet()) {
+            result.put(entry.getKey(), new ArrayList<CmsProperty>(entry.getValue().values()));
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2239,6 +2384,93 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRelationsForResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, org.opencms.relations.CmsRelationFilter)
+     */
+    public List<CmsRelation> readRelationsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        CmsRelationFilter filter) throws CmsDataAccessException {
+
+        Set<CmsRelation> relations = new HashSet<CmsRelation>();
+        List<String> ids = new ArrayList<String>(structureIds.size());
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<String> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                for (int direction = 0; direction < 2; direction++) {
+                    String idCondition;
+                    if (direction == 0) {
+                        if (!filter.isSource()) {
+                            continue;
+                        }
+                        // the sources of the given resources are the relations targeting them
+                        idCondition = "C_RELATION_FILTER_TARGET_IDS";
+                    } else {
+                        if (!filter.isTarget()) {
+                            continue;
+                        }
+                        idCondition = "C_RELATION_FILTER_SOURCE_IDS";
+                    }
+                    List<Object> params = new ArrayList<Object>(chunk);
+                    StringBuffer queryBuf = new StringBuffer(256 + (chunk.size() * 3));
+                    queryBuf.append(m_sqlManager.readQuery(projectId, "C_READ_RELATIONS"));
+                    queryBuf.append(BEGIN_CONDITION);
+                    queryBuf.append(m_sqlManager.readQuery(projectId, idCondition));
+                    queryBuf.append(prepareInCondition(chunk.size()));
+                    queryBuf.append(END_CONDITION);
+                    if (!filter.getTypes().isEmpty()) {
+                        queryBuf.append(BEGIN_INCLUDE_CONDITION);
+                        queryBuf.append(m_sqlManager.readQuery(projectId, "C_RELATION_FILTER_TYPE"));
+                        queryBuf.append(prepareInCondition(filter.getTypes().size()));
+                        queryBuf.append(END_CONDITION);
+                        for (CmsRelationType type : filter.getTypes()) {
+                            params.add(new Integer(type.getId()));
+                        }
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(queryBuf.toString());
+                    }
+
+                    stmt = m_sqlManager.getPreparedStatementForSql(conn, queryBuf.toString());
+                    for (int j = 0; j < params.size(); j++) {
+                        if (params.get(j) instanceof Integer) {
+                            stmt.setInt(j + 1, ((Integer)params.get(j)).intValue());
+                        } else {
+                            stmt.setString(j + 1, (String)params.get(j));
+                        }
+                    }
+                    res = stmt.executeQuery();
+                    while (res.next()) {
+                        relations.add(internalReadRelation(res));
+                    }
+                    m_sqlManager.closeAll(dbc, null, stmt, res);
+                    stmt = null;
+                    res = null;
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+
+        List<CmsRelation> result = new ArrayList<CmsRelation>(relations);
+        Collections.sort(result, CmsRelation.COMPARATOR);
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID, boolean)
      */
@@ -2635,6 +2867,47 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
 
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRootPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, String> readRootPaths(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, String> result = new HashMap<CmsUUID, String>();
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(structureIds);
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, "C_STRUCTURE_READ_ROOT_PATHS")
+                    + prepareInCondition(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.put(new CmsUUID(res.getString(1)), res.getString(2));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readSiblings(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, boolean)
      */
@@ -2677,6 +2950,54 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return vfsLinks;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readSiblingsForResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readSiblingsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> resourceIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        List<CmsResource> result = new ArrayList<CmsResource>();
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(resourceIds);
+        String queryKey = includeDeleted
+        ? "C_SELECT_VFS_SIBLINGS_FOR_RESOURCES"
+        : "C_SELECT_NONDELETED_VFS_SIBLINGS_FOR_RESOURCES";
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, queryKey) + prepareInCondition(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j).toString());
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    result.add(createFile(res, projectId, false));
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        // the chunks are ordered independently, so sort the complete result
+        Collections.sort(result, I_CmsResource.COMPARE_ROOT_PATH);
+        return result;
+    }
+
     /**
      * Reads the URL name mapping entries which match a given filter.<p>
      *
@@ -3058,6 +3379,61 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return exists;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#validateRootPathsExist(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Set<String> validateRootPathsExist(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException {
+
+        // paths are stored without trailing slash, but may be requested with one 
+        Map<String, List<String>> requestedPaths = new HashMap<String, List<String>>();
+        for (String rootPath : rootPaths) {
+            String path = CmsFileUtil.removeTrailingSeparator(rootPath);
+            List<String> originals = requestedPaths.get(path);
+            if (originals == null) {
+                originals = new ArrayList<String>(1);
+                requestedPaths.put(path, originals);
+            }
+            originals.add(rootPath);
+        }
+        List<String> paths = new ArrayList<String>(requestedPaths.keySet());
+        Set<String> result = new HashSet<String>();
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            for (int i = 0; i < paths.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<String> chunk = paths.subList(i, Math.min(paths.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, "C_STRUCTURE_SELECT_ROOT_PATHS")
+                    + prepareInCondition(chunk.size());
+                stmt = m_sqlManager.getPreparedStatementForSql(conn, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    stmt.setString(j + 1, chunk.get(j));
+                }
+                res = stmt.executeQuery();
+                while (res.next()) {
+                    List<String> originals = requestedPaths.get(res.getString(1));
+                    if (originals != null) {
+                        result.addAll(originals);
+                    }
+                }
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = null;
+                res = null;
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#validateStructureIdExists(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -4093,6 +4469,27 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns a parameter list for an SQL <code>IN</code> condition with the given number of place holders.<p>
+     *
+     * @param count the number of parameters
+     *
+     * @return the parameter list, like <code> (?, ?, ?) </code>
+     */
+    protected String prepareInCondition(int count) {
+
+        StringBuffer conditions = new StringBuffer(4 + (count * 3));
+        conditions.append(BEGIN_CONDITION);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                conditions.append(", ");
+            }
+            conditions.append("?");
+        }
+        conditions.append(END_CONDITION);
+        return conditions.toString();
+    }
+
     /**
      * Appends the appropriate selection criteria related with the parentPath.<p>
      *
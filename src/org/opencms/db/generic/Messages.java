@@ -364,6 +364,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_RESETTING_RESOURCE_STATE_1 = "LOG_ERROR_RESETTING_RESOURCE_STATE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_HISTORY_PRUNE_FAILED_1 = "LOG_HISTORY_PRUNE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_LOAD_QUERY_PROP_FILE_FAILED_1 = "LOG_LOAD_QUERY_PROP_FILE_FAILED_1";
 
@@ -505,6 +505,17 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         return CmsSqlManager.getInstance(classname);
     }
 
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#pruneEntries(org.opencms.db.CmsDbContext, java.util.Map)
+     */
+    public void pruneEntries(CmsDbContext dbc, Map<I_CmsHistoryResource, Integer> versionsToKeep)
+    throws CmsDataAccessException {
+
+        for (Map.Entry<I_CmsHistoryResource, Integer> entry : versionsToKeep.entrySet()) {
+            deleteEntries(dbc, entry.getKey(), entry.getValue().intValue(), -1);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#readAllAvailableVersions(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID)
      */
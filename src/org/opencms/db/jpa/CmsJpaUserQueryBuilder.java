@@ -84,6 +84,7 @@ public class CmsJpaUserQueryBuilder extends CmsUserQueryBuilder {
         addSearchFilterCondition(select, users, searchParams);
         addGroupCondition(select, users, searchParams);
         if (!countOnly) {
+            addKeysetCondition(select, users, searchParams);
             addSorting(select, users, searchParams);
         }
         CmsStatementBuilder builder = new CmsStatementBuilder();
@@ -110,7 +111,8 @@ public class CmsJpaUserQueryBuilder extends CmsUserQueryBuilder {
             direction = " DESC";
         }
         select.addColumn(ordering + " as sortvalue");
-        select.setOrdering("sortvalue " + direction);
+        // use the id as a tie breaker, so the order is stable across pages
+        select.setOrdering("sortvalue " + direction + ", " + users.column(colId()) + direction);
     }
 
     /**
@@ -279,38 +279,27 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
 
         if (!entryExists) {
             // new entry, check if maximum number of stored visited resources is exceeded
-            int count = 0;
-
-            try {
-                Query q = m_sqlManager.createQuery(dbc, dbc.currentProject(), C_VISITED_USER_COUNT_1);
-
-                q.setParameter(1, user.getId().toString());
-                count = ((Number)q.getSingleResult()).intValue();
-
-                int maxCount = OpenCms.getSubscriptionManager().getMaxVisitedCount();
-                if (count > maxCount) {
-                    // delete old visited entries
-                    q = m_sqlManager.createQuery(dbc, dbc.currentProject(), C_VISITED_USER_DELETE_GETDATE_2);
-
-                    q.setParameter(1, user.getId().toString());
-                    q.setMaxResults(count - maxCount);
-                    @SuppressWarnings("unchecked")
-                    List<Number> res = q.getResultList();
-                    long deleteDate = 0;
-                    for (Number n : res) {
-                        // get last date of result set
-                        deleteDate = n.longValue();
-                    }
-                    if (deleteDate > 0) {
-                        filter = CmsVisitEntryFilter.ALL.filterUser(user.getId()).filterTo(deleteDate);
-                        deleteVisits(dbc, OpenCms.getSubscriptionManager().getPoolName(), filter);
-                    }
-                }
-            } catch (PersistenceException e) {
-                throw new CmsDbSqlException(Messages.get().container(
-                    Messages.ERR_GENERIC_SQL_1,
-                    C_VISITED_USER_DELETE_GETDATE_2), e);
-            }
+            internalTrimVisits(dbc, poolName, user.getId());
+        }
+    }
+
+    /**
+     * @see org.opencms.db.I_CmsSubscriptionDriver#markResourcesAsVisited(org.opencms.db.CmsDbContext, java.lang.String, java.util.List)
+     */
+    public void markResourcesAsVisited(CmsDbContext dbc, String poolName, List<CmsVisitEntry> visits)
+    throws CmsDataAccessException {
+
+        Set<CmsUUID> userIds = new HashSet<CmsUUID>();
+        for (CmsVisitEntry visit : visits) {
+            CmsVisitEntryFilter filter = CmsVisitEntryFilter.ALL.filterResource(visit.getStructureId()).filterUser(
+                visit.getUserId());
+            deleteVisits(dbc, poolName, filter);
+            addVisit(dbc, poolName, visit);
+            userIds.add(visit.getUserId());
+        }
+        // check if the maximum number of stored visited resources is exceeded, once per user
+        for (CmsUUID userId : userIds) {
+            internalTrimVisits(dbc, poolName, userId);
         }
     }
 
@@ -905,6 +894,50 @@ public class CmsSubscriptionDriver implements I_CmsDriver, I_CmsSubscriptionDriv
         return new CmsVisitEntry(userId, date, structureId);
     }
 
+    /**
+     * Deletes the oldest visits of the given user if the maximum number of stored visited resources is exceeded.<p>
+     * 
+     * @param dbc the database context to use 
+     * @param poolName the name of the database pool to use 
+     * @param userId the id of the user
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalTrimVisits(CmsDbContext dbc, String poolName, CmsUUID userId)
+    throws CmsDataAccessException {
+
+        try {
+            Query q = m_sqlManager.createQuery(dbc, dbc.currentProject(), C_VISITED_USER_COUNT_1);
+
+            q.setParameter(1, userId.toString());
+            int count = ((Number)q.getSingleResult()).intValue();
+
+            int maxCount = OpenCms.getSubscriptionManager().getMaxVisitedCount();
+            if (count > maxCount) {
+                // delete old visited entries
+                q = m_sqlManager.createQuery(dbc, dbc.currentProject(), C_VISITED_USER_DELETE_GETDATE_2);
+
+                q.setParameter(1, userId.toString());
+                q.setMaxResults(count - maxCount);
+                @SuppressWarnings("unchecked")
+                List<Number> res = q.getResultList();
+                long deleteDate = 0;
+                for (Number n : res) {
+                    // get last date of result set
+                    deleteDate = n.longValue();
+                }
+                if (deleteDate > 0) {
+                    CmsVisitEntryFilter filter = CmsVisitEntryFilter.ALL.filterUser(userId).filterTo(deleteDate);
+                    deleteVisits(dbc, OpenCms.getSubscriptionManager().getPoolName(), filter);
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                C_VISITED_USER_DELETE_GETDATE_2), e);
+        }
+    }
+
     /**
      * Build the whole WHERE SQL statement part for the given visit entry filter.<p>
      * 
@@ -211,9 +211,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_RELATION_FILTER_SOURCE_PATH = "C_RELATION_FILTER_SOURCE_PATH";
 
+    /** Query key. */
+    private static final String C_RELATION_FILTER_SOURCE_IDS = "C_RELATION_FILTER_SOURCE_IDS";
+
     /** Query key. */
     private static final String C_RELATION_FILTER_TARGET_ID = "C_RELATION_FILTER_TARGET_ID";
 
+    /** Query key. */
+    private static final String C_RELATION_FILTER_TARGET_IDS = "C_RELATION_FILTER_TARGET_IDS";
+
     /** Query key. */
     private static final String C_RELATION_FILTER_TARGET_PATH = "C_RELATION_FILTER_TARGET_PATH";
 
@@ -367,6 +373,9 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_SELECT_NONDELETED_VFS_SIBLINGS = "C_SELECT_NONDELETED_VFS_SIBLINGS";
 
+    /** Query key. */
+    private static final String C_SELECT_NONDELETED_VFS_SIBLINGS_FOR_RESOURCES = "C_SELECT_NONDELETED_VFS_SIBLINGS_FOR_RESOURCES";
+
     /** Query key. */
     private static final String C_SELECT_RESOURCES_FOR_PRINCIPAL_ACE = "C_SELECT_RESOURCES_FOR_PRINCIPAL_ACE";
 
@@ -379,9 +388,15 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_SELECT_VFS_SIBLINGS = "C_SELECT_VFS_SIBLINGS";
 
+    /** Query key. */
+    private static final String C_SELECT_VFS_SIBLINGS_FOR_RESOURCES = "C_SELECT_VFS_SIBLINGS_FOR_RESOURCES";
+
     /** Query key. */
     private static final String C_STRUCTURE_DELETE_BY_STRUCTUREID = "C_STRUCTURE_DELETE_BY_STRUCTUREID";
 
+    /** Query key. */
+    private static final String C_STRUCTURE_READ_ROOT_PATHS = "C_STRUCTURE_READ_ROOT_PATHS";
+
     /** Query key. */
     private static final String C_STRUCTURE_SELECT_BY_DATE_EXPIRED_AFTER = "C_STRUCTURE_SELECT_BY_DATE_EXPIRED_AFTER";
 
@@ -394,6 +409,12 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
     /** Query key. */
     private static final String C_STRUCTURE_SELECT_BY_DATE_RELEASED_BEFORE = "C_STRUCTURE_SELECT_BY_DATE_RELEASED_BEFORE";
 
+    /** Query key. */
+    private static final String C_STRUCTURE_SELECT_ROOT_PATHS = "C_STRUCTURE_SELECT_ROOT_PATHS";
+
+    /** The maximum number of parameters used in a single JPQL <code>IN</code> condition. */
+    private static final int IN_CONDITION_MAX_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(org.opencms.db.jpa.CmsVfsDriver.class);
 
@@ -1976,6 +1997,26 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return byteRes == null ? EMPTY_BLOB : byteRes;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readContents(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, byte[]> readContents(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> resourceIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, byte[]> result = new HashMap<CmsUUID, byte[]>();
+        for (CmsUUID resourceId : resourceIds) {
+            if (result.containsKey(resourceId)) {
+                continue;
+            }
+            try {
+                result.put(resourceId, readContent(dbc, projectId, resourceId));
+            } catch (CmsVfsResourceNotFoundException e) {
+                // no content available, skip this resource
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readFolder(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -2236,6 +2277,23 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return new ArrayList<CmsProperty>(propertyMap.values());
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readPropertyObjects(org.opencms.db.CmsDbContext, org.opencms.file.CmsProject, java.util.List)
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(
+        CmsDbContext dbc,
+        CmsProject project,
+        List<CmsResource> resources) throws CmsDataAccessException {
+
+        Map<CmsUUID, List<CmsProperty>> result = new HashMap<CmsUUID, List<CmsProperty>>();
+        for (CmsResource resource : resources) {
+            if (!result.containsKey(resource.getStructureId())) {
+                result.put(resource.getStructureId(), readPropertyObjects(dbc, project, resource));
+            }
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readRelations(org.opencms.db.CmsDbContext, CmsUUID, CmsResource, org.opencms.relations.CmsRelationFilter)
      */
@@ -2298,6 +2356,78 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return result;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRelationsForResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, org.opencms.relations.CmsRelationFilter)
+     */
+    public List<CmsRelation> readRelationsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> structureIds,
+        CmsRelationFilter filter) throws CmsDataAccessException {
+
+        Set<CmsRelation> relations = new HashSet<CmsRelation>();
+        List<String> ids = new ArrayList<String>(structureIds.size());
+        for (CmsUUID structureId : structureIds) {
+            ids.add(structureId.toString());
+        }
+
+        try {
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<String> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                for (int direction = 0; direction < 2; direction++) {
+                    String idCondition;
+                    if (direction == 0) {
+                        if (!filter.isSource()) {
+                            continue;
+                        }
+                        // the sources of the given resources are the relations targeting them
+                        idCondition = C_RELATION_FILTER_TARGET_IDS;
+                    } else {
+                        if (!filter.isTarget()) {
+                            continue;
+                        }
+                        idCondition = C_RELATION_FILTER_SOURCE_IDS;
+                    }
+                    List<Object> params = new ArrayList<Object>(chunk);
+                    StringBuffer queryBuf = new StringBuffer(256 + (chunk.size() * 3));
+                    queryBuf.append(m_sqlManager.readQuery(projectId, C_READ_RELATIONS));
+                    queryBuf.append(BEGIN_CONDITION);
+                    queryBuf.append(m_sqlManager.readQuery(projectId, idCondition));
+                    queryBuf.append(prepareInCondition(chunk.size()));
+                    queryBuf.append(END_CONDITION);
+                    if (!filter.getTypes().isEmpty()) {
+                        queryBuf.append(BEGIN_INCLUDE_CONDITION);
+                        queryBuf.append(m_sqlManager.readQuery(projectId, C_RELATION_FILTER_TYPE));
+                        queryBuf.append(prepareInCondition(filter.getTypes().size()));
+                        queryBuf.append(END_CONDITION);
+                        for (CmsRelationType type : filter.getTypes()) {
+                            params.add(Integer.valueOf(type.getId()));
+                        }
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug(queryBuf.toString());
+                    }
+
+                    Query q = m_sqlManager.createQueryFromJPQL(dbc, queryBuf.toString());
+                    for (int j = 0; j < params.size(); j++) {
+                        q.setParameter(j + 1, params.get(j));
+                    }
+                    @SuppressWarnings("unchecked")
+                    List<I_CmsDAOResourceRelations> res = q.getResultList();
+                    for (I_CmsDAOResourceRelations rr : res) {
+                        relations.add(internalReadRelation(rr));
+                    }
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        List<CmsRelation> result = new ArrayList<CmsRelation>(relations);
+        Collections.sort(result, CmsRelation.COMPARATOR);
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readResource(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID, boolean)
      */
@@ -2610,6 +2740,36 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readRootPaths(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Map<CmsUUID, String> readRootPaths(CmsDbContext dbc, CmsUUID projectId, Collection<CmsUUID> structureIds)
+    throws CmsDataAccessException {
+
+        Map<CmsUUID, String> result = new HashMap<CmsUUID, String>();
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(structureIds);
+
+        try {
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, C_STRUCTURE_READ_ROOT_PATHS)
+                    + prepareInCondition(chunk.size());
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    q.setParameter(j + 1, chunk.get(j).toString());
+                }
+                @SuppressWarnings("unchecked")
+                List<Object[]> res = q.getResultList();
+                for (Object[] row : res) {
+                    result.put(new CmsUUID((String)row[0]), (String)row[1]);
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readSiblings(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.file.CmsResource, boolean)
      */
@@ -2645,6 +2805,42 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return vfsLinks;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#readSiblingsForResources(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection, boolean)
+     */
+    public List<CmsResource> readSiblingsForResources(
+        CmsDbContext dbc,
+        CmsUUID projectId,
+        Collection<CmsUUID> resourceIds,
+        boolean includeDeleted) throws CmsDataAccessException {
+
+        List<CmsUUID> ids = new ArrayList<CmsUUID>(resourceIds);
+        List<CmsResource> vfsLinks = new ArrayList<CmsResource>();
+
+        try {
+            for (int i = 0; i < ids.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<CmsUUID> chunk = ids.subList(i, Math.min(ids.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, includeDeleted
+                ? C_SELECT_VFS_SIBLINGS_FOR_RESOURCES
+                : C_SELECT_NONDELETED_VFS_SIBLINGS_FOR_RESOURCES) + prepareInCondition(chunk.size());
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    q.setParameter(j + 1, chunk.get(j).toString());
+                }
+                @SuppressWarnings("unchecked")
+                List<Object[]> res = q.getResultList();
+                for (Object[] o : res) {
+                    vfsLinks.add(createFile(o, projectId, false));
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+
+        Collections.sort(vfsLinks, I_CmsResource.COMPARE_ROOT_PATH);
+        return vfsLinks;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#readUrlNameMappingEntries(org.opencms.db.CmsDbContext, boolean, org.opencms.db.urlname.CmsUrlNameMappingFilter)
      */
@@ -3001,6 +3197,50 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         return exists;
     }
 
+    /**
+     * @see org.opencms.db.I_CmsVfsDriver#validateRootPathsExist(org.opencms.db.CmsDbContext, org.opencms.util.CmsUUID, java.util.Collection)
+     */
+    public Set<String> validateRootPathsExist(CmsDbContext dbc, CmsUUID projectId, Collection<String> rootPaths)
+    throws CmsDataAccessException {
+
+        // paths are stored without trailing slash, but may be requested with one 
+        Map<String, List<String>> requestedPaths = new HashMap<String, List<String>>();
+        for (String rootPath : rootPaths) {
+            String path = CmsFileUtil.removeTrailingSeparator(rootPath);
+            List<String> originals = requestedPaths.get(path);
+            if (originals == null) {
+                originals = new ArrayList<String>(1);
+                requestedPaths.put(path, originals);
+            }
+            originals.add(rootPath);
+        }
+        List<String> paths = new ArrayList<String>(requestedPaths.keySet());
+        Set<String> result = new HashSet<String>();
+
+        try {
+            for (int i = 0; i < paths.size(); i += IN_CONDITION_MAX_SIZE) {
+                List<String> chunk = paths.subList(i, Math.min(paths.size(), i + IN_CONDITION_MAX_SIZE));
+                String query = m_sqlManager.readQuery(projectId, C_STRUCTURE_SELECT_ROOT_PATHS)
+                    + prepareInCondition(chunk.size());
+                Query q = m_sqlManager.createQueryFromJPQL(dbc, query);
+                for (int j = 0; j < chunk.size(); j++) {
+                    q.setParameter(j + 1, chunk.get(j));
+                }
+                @SuppressWarnings("unchecked")
+                List<String> res = q.getResultList();
+                for (String path : res) {
+                    List<String> originals = requestedPaths.get(path);
+                    if (originals != null) {
+                        result.addAll(originals);
+                    }
+                }
+            }
+        } catch (PersistenceException e) {
+            throw new CmsDataAccessException(Messages.get().container(Messages.ERR_JPA_PERSITENCE_1, e), e);
+        }
+        return result;
+    }
+
     /**
      * @see org.opencms.db.I_CmsVfsDriver#validateStructureIdExists(org.opencms.db.CmsDbContext, CmsUUID, org.opencms.util.CmsUUID)
      */
@@ -3900,6 +4140,27 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         }
     }
 
+    /**
+     * Returns a parameter list for a JPQL <code>IN</code> condition with the given number of place holders.<p>
+     *
+     * @param count the number of parameters
+     *
+     * @return the parameter list, like <code> (?, ?, ?) </code>
+     */
+    protected String prepareInCondition(int count) {
+
+        StringBuffer conditions = new StringBuffer(4 + (count * 3));
+        conditions.append(BEGIN_CONDITION);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                conditions.append(", ");
+            }
+            conditions.append("?");
+        }
+        conditions.append(END_CONDITION);
+        return conditions.toString();
+    }
+
     /**
      * Appends the appropriate selection criteria related with the parentPath.<p>
      *
@@ -38,6 +38,7 @@ import org.opencms.file.CmsDataAccessException;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
 import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -128,4 +129,53 @@ public class CmsSubscriptionDriver extends org.opencms.db.generic.CmsSubscriptio
         }
     }
 
+    /**
+     * @see org.opencms.db.generic.CmsSubscriptionDriver#internalTrimVisits(org.opencms.db.CmsDbContext, java.lang.String, org.opencms.util.CmsUUID)
+     */
+    @Override
+    protected void internalTrimVisits(CmsDbContext dbc, String poolName, CmsUUID userId)
+    throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        Connection conn = null;
+        ResultSet res = null;
+        int count = 0;
+
+        try {
+            conn = m_sqlManager.getConnection(poolName);
+            stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_VISITED_USER_COUNT_1");
+
+            stmt.setString(1, userId.toString());
+            res = stmt.executeQuery();
+
+            if (res.next()) {
+                count = res.getInt(1);
+                while (res.next()) {
+                    // do nothing only move through all rows because of mssql odbc driver
+                }
+            } else {
+                throw new CmsDbConsistencyException(Messages.get().container(
+                    Messages.ERR_COUNTING_VISITED_RESOURCES_1,
+                    userId.toString()));
+            }
+
+            int maxCount = OpenCms.getSubscriptionManager().getMaxVisitedCount();
+            if (count > maxCount) {
+                // delete old visited log entries
+                m_sqlManager.closeAll(dbc, null, stmt, res);
+                stmt = m_sqlManager.getPreparedStatement(conn, dbc.currentProject(), "C_MYSQL_VISITED_USER_DELETE_2");
+
+                stmt.setString(1, userId.toString());
+                stmt.setInt(2, count - maxCount);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
+        }
+    }
+
 }
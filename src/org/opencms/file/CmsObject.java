@@ -2358,6 +2358,48 @@ public final class CmsObject {
         return readFile(resource);
     }
 
+    /**
+     * Reads several file resources (including their binary content) from the VFS.<p>
+     * 
+     * This has the same result as calling {@link #readFile(CmsResource)} for every resource,
+     * but the contents of the files are read from the database with as few queries as possible.
+     * Use this when the contents of a whole list of resources, e.g. a page of collector results, are required.<p>
+     * 
+     * @param resources the resources to read
+     * 
+     * @return the file resources that were read, in the order of the given resources
+     * 
+     * @throws CmsException if one of the file resources could not be read for any reason
+     * 
+     * @see #readFile(CmsResource)
+     */
+    public List<CmsFile> readFiles(List<CmsResource> resources) throws CmsException {
+
+        List<CmsResource> missing = new ArrayList<CmsResource>(resources.size());
+        for (CmsResource resource : resources) {
+            if (!(resource instanceof CmsFile) || (((CmsFile)resource).getContents() == null)
+                || (((CmsFile)resource).getContents().length == 0)) {
+                missing.add(resource);
+            }
+        }
+        List<CmsFile> read = Collections.emptyList();
+        if (!missing.isEmpty()) {
+            read = m_securityManager.readFiles(m_context, missing);
+        }
+        List<CmsFile> result = new ArrayList<CmsFile>(resources.size());
+        int next = 0;
+        for (CmsResource resource : resources) {
+            if ((next < missing.size()) && (resource == missing.get(next))) {
+                result.add(read.get(next));
+                next++;
+            } else {
+                // file has the contents already available
+                result.add((CmsFile)resource);
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads a folder resource from the VFS,
      * using the <code>{@link CmsResourceFilter#DEFAULT}</code> filter.<p> 
@@ -2759,6 +2801,28 @@ public final class CmsObject {
         return m_securityManager.readPropertyObjects(m_context, resource, search);
     }
 
+    /**
+     * Reads all property objects directly mapped to several resources.<p>
+     * 
+     * This has the same result as calling {@link #readPropertyObjects(CmsResource, boolean)} without 
+     * searching the parent folders for every resource, but the properties are read from the database
+     * with as few queries as possible. The read properties are cached, so following calls of 
+     * {@link #readPropertyObjects(CmsResource, boolean)} or {@link #readPropertyObject(CmsResource, String, boolean)}
+     * for one of the resources without searching the parent folders do not access the database again.<p>
+     * 
+     * All properties in the result lists will be in frozen (read only) state, so you can't change the values.<p>
+     * 
+     * @param resources the resources where the properties are mapped to
+     * 
+     * @return the lists of <code>{@link CmsProperty}</code> objects, by structure id of the resources
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    public Map<CmsUUID, List<CmsProperty>> readPropertyObjects(List<CmsResource> resources) throws CmsException {
+
+        return m_securityManager.readPropertyObjects(m_context, resources);
+    }
+
     /**
      * Reads the resources that were published in a publish task for a given publish history ID.<p>
      * 
@@ -28,6 +28,7 @@
 package org.opencms.file;
 
 import org.opencms.security.CmsOrganizationalUnit;
+import org.opencms.util.CmsUUID;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -96,6 +97,12 @@ public class CmsUserSearchParameters {
     /** If true, core users will not be filtered out if filtering by flags. */
     private boolean m_keepCoreUsers;
 
+    /** The id of the last user of the previous page, for keyset paging. */
+    private CmsUUID m_keysetUserId;
+
+    /** Indicates whether the additional infos of the resulting users should be loaded. */
+    private boolean m_loadAdditionalInfos = true;
+
     /** A collection of groups such that returned users must be in none of them. */
     private Collection<CmsGroup> m_notAnyGroups;
 
@@ -176,6 +183,16 @@ public class CmsUserSearchParameters {
         return m_group;
     }
 
+    /**
+     * Returns the id of the last user of the previous page if keyset paging is used.<p>
+     *
+     * @return the id of the last user of the previous page, or <code>null</code>
+     */
+    public CmsUUID getKeysetUserId() {
+
+        return m_keysetUserId;
+    }
+
     /**
      * Returns the groups whose users may not appear in the search results.<p>
      * 
@@ -308,6 +325,18 @@ public class CmsUserSearchParameters {
         return m_filterCore;
     }
 
+    /**
+     * Returns true if the additional infos of the resulting users should be loaded.<p>
+     *
+     * The default value is <code>true</code>.<p>
+     *
+     * @return true if the additional infos of the resulting users should be loaded
+     */
+    public boolean isLoadAdditionalInfos() {
+
+        return m_loadAdditionalInfos;
+    }
+
     /**
      * Return true if core users should not be filtered out if filtering by flag.<p>
      * 
@@ -410,6 +439,36 @@ public class CmsUserSearchParameters {
         m_keepCoreUsers = keepCoreUsers;
     }
 
+    /**
+     * Sets the paging parameters for keyset paging.<p>
+     *
+     * Instead of skipping the results of the previous pages, the page starts after the given user
+     * in the current sort order. This is much faster than using a page index for the last pages of a
+     * large result. If the given user does not exist anymore, the result is empty.<p>
+     *
+     * @param pageSize the maximum page size
+     * @param lastUserId the id of the last user of the previous page, or <code>null</code> for the first page
+     */
+    public void setKeysetPaging(int pageSize, CmsUUID lastUserId) {
+
+        m_pageSize = pageSize;
+        m_page = 1;
+        m_keysetUserId = lastUserId;
+    }
+
+    /**
+     * Enables or disables loading the additional infos of the resulting users.<p>
+     *
+     * If disabled, the resulting users have no additional infos. Lists which only display the
+     * basic user data should disable this and read single users again if they need more.<p>
+     *
+     * @param loadAdditionalInfos if true, the additional infos will be loaded
+     */
+    public void setLoadAdditionalInfos(boolean loadAdditionalInfos) {
+
+        m_loadAdditionalInfos = loadAdditionalInfos;
+    }
+
     /**
      * Sets the groups whose users may not appear in the search results.<p>
      * 
@@ -450,6 +509,7 @@ public class CmsUserSearchParameters {
 
         m_pageSize = pageSize;
         m_page = page;
+        m_keysetUserId = null;
     }
 
     /** 
@@ -27,6 +27,7 @@
 
 package org.opencms.flex;
 
+import org.opencms.cache.CmsConcurrentLruCache;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.file.CmsObject;
@@ -38,13 +39,11 @@ import org.opencms.main.OpenCms;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsFileUtil;
-import org.opencms.util.CmsStringUtil;
 
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -120,7 +119,33 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            m_map = new CmsFlexCacheVariationMap<I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+        }
+
+        /**
+         * Looks up the cached entry for the variation of a request key.<p>
+         *
+         * @param requestKey the request key
+         *
+         * @return the cached entry for the variation of the request key, or <code>null</code> if not found
+         */
+        @SuppressWarnings("unchecked")
+        I_CmsLruCacheObject lookup(CmsFlexRequestKey requestKey) {
+
+            CmsFlexCacheKey key = m_key;
+            Map<String, I_CmsLruCacheObject> map = m_map;
+            if ((key == null) || (map == null)) {
+                return null;
+            }
+            if (map instanceof CmsFlexCacheVariationMap) {
+                // compare the request with the cached variations without building the variation String
+                return CmsFlexCacheKeyMatcher.lookup(
+                    key,
+                    requestKey,
+                    (CmsFlexCacheVariationMap<I_CmsLruCacheObject>)map);
+            }
+            String variation = key.matchRequestKey(requestKey);
+            return (variation != null) ? map.get(variation) : null;
         }
     }
 
@@ -256,8 +281,13 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         long avgCacheBytes = configuration.getAvgCacheBytes();
         int maxEntryBytes = configuration.getMaxEntryBytes();
         int maxKeys = configuration.getMaxKeys();
+        int lruStripes = configuration.getLruStripes();
 
-        m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        if (lruStripes > 0) {
+            m_variationCache = new CmsConcurrentLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes, lruStripes);
+        } else {
+            m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+        }
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
@@ -509,15 +539,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (o != null) {
             // found a matching key in the cache
             CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
-            String variation = v.m_key.matchRequestKey(key);
-
-            if (CmsStringUtil.isEmpty(variation)) {
-                // requested resource is not cacheable
-                return null;
-            }
-            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
+            CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.lookup(key);
             if (entry == null) {
-                // no cache entry available for variation
+                // requested resource is not cacheable or no cache entry available for variation
                 return null;
             }
             if (entry.getDateExpires() < System.currentTimeMillis()) {
@@ -525,7 +549,8 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 m_variationCache.remove(entry);
                 return null;
             }
-            // return the found cache entry
+            // record the hit for the LRU order and return the found cache entry
+            m_variationCache.recordHit(entry);
             return entry;
         } else {
             return null;
@@ -702,7 +727,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                         allEntries.remove();
                         m_variationCache.remove(nextObject);
                     }
-                    v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+                    v.m_map = new CmsFlexCacheVariationMap<I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
                 } else {
                     // Clear key and entry
                     m_size -= v.m_map.size();
@@ -754,7 +779,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                 allEntries.remove();
                 m_variationCache.remove(nextObject);
             }
-            v.m_map = new Hashtable<String, I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
+            v.m_map = new CmsFlexCacheVariationMap<I_CmsLruCacheObject>(INITIAL_CAPACITY_VARIATIONS);
         }
         m_size = 0;
     }
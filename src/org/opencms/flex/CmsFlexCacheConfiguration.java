@@ -58,6 +58,9 @@ public class CmsFlexCacheConfiguration {
     /** The device selector configuration. */
     private String m_deviceSelectorConfiguration;
 
+    /** The number of stripes of the LRU cache, 0 for the non striped LRU cache. */
+    private int m_lruStripes;
+
     /** 
      * Sizing parameters for the cached "entries" (ie. pages) in the FlexCache.<p>
      *  
@@ -115,6 +118,19 @@ public class CmsFlexCacheConfiguration {
         return m_deviceSelectorConfiguration;
     }
 
+    /**
+     * Returns the number of stripes of the LRU cache for the cache entries.<p>
+     * 
+     * If this is 0, the cache entries are organized in one synchronized {@link org.opencms.cache.CmsLruCache},
+     * otherwise a {@link org.opencms.cache.CmsConcurrentLruCache} with this number of stripes is used.<p>
+     *
+     * @return the number of stripes of the LRU cache
+     */
+    public int getLruStripes() {
+
+        return m_lruStripes;
+    }
+
     /**
      * Returns the maxCacheBytes.<p>
      *
@@ -256,6 +272,18 @@ public class CmsFlexCacheConfiguration {
         }
     }
 
+    /**
+     * Sets the number of stripes of the LRU cache for the cache entries.<p>
+     *
+     * @param lruStripes the number of stripes to set
+     * 
+     * @see #getLruStripes()
+     */
+    public void setLruStripes(String lruStripes) {
+
+        m_lruStripes = Math.max(0, Integer.parseInt(lruStripes.trim()));
+    }
+
     /**
      * Sets the maxCacheBytes.<p>
      *
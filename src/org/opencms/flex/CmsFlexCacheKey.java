@@ -257,6 +257,25 @@ public class CmsFlexCacheKey {
         return resourcename.concat(online ? CmsFlexCache.CACHE_ONLINESUFFIX : CmsFlexCache.CACHE_OFFLINESUFFIX);
     }
 
+    /**
+     * Appends a flex cache key value to the given variation.<p> 
+     *  
+     * @param variation the variation to append to
+     * @param key the key to append
+     * @param value the value to append
+     */
+    private static void appendKeyValue(CmsFlexCacheKeyMatcher variation, String key, String value) {
+
+        variation.append(key);
+        if (value == IS_USED) {
+            variation.append(';');
+        } else {
+            variation.append("=(");
+            variation.append(value);
+            variation.append(");");
+        }
+    }
+
     /**
      * Appends a flex cache key value to the given buffer.<p> 
      *  
@@ -308,225 +327,10 @@ public class CmsFlexCacheKey {
     public String matchRequestKey(CmsFlexRequestKey key) {
 
         StringBuffer str = new StringBuffer(100);
-        if (m_always < 0) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
-            }
-            return null;
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
-        }
-        if ((m_noparams != null) && (key.getParams() != null)) {
-            if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getParams().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noparams.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
-        }
-        if ((m_noattrs != null) && (key.getAttributes() != null)) {
-            if ((m_noattrs.size() == 0) && (key.getAttributes().size() > 0)) {
-                return null;
-            }
-            Iterator<String> i = key.getAttributes().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noattrs.contains(i.next())) {
-                    return null;
-                }
-            }
-        }
-
-        if (m_always > 0) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
-            }
-            str.append(CACHE_00_ALWAYS);
-            return str.toString();
-        }
-
-        if (m_uri != null) {
-            appendKeyValue(str, CACHE_02_URI, key.getUri());
-        }
-
-        if (m_site != null) {
-            appendKeyValue(str, CACHE_17_SITE, key.getSite());
-        }
-
-        if (m_element != null) {
-            appendKeyValue(str, CACHE_14_ELEMENT, key.getElement());
-        }
-
-        if (m_device != null) {
-            appendKeyValue(str, CACHE_20_DEVICE, key.getDevice());
-        }
-
-        if (m_containerElement != null) {
-            appendKeyValue(str, CACHE_22_CONTAINER_ELEMENT, key.getContainerElement());
-        }
-
-        if (m_locale != null) {
-            appendKeyValue(str, CACHE_15_LOCALE, key.getLocale());
-        }
-
-        if (m_encoding != null) {
-            appendKeyValue(str, CACHE_16_ENCODING, key.getEncoding());
-        }
-
-        if (m_ip != null) {
-            appendKeyValue(str, CACHE_13_IP, key.getIp());
-        }
-
-        if (m_user != null) {
-            appendKeyValue(str, CACHE_03_USER, key.getUser());
-        }
-
-        if (m_params != null) {
-            str.append(CACHE_04_PARAMS);
-            str.append("=(");
-            Map<String, String[]> keyParams = key.getParams();
-            if (keyParams != null) {
-                if (m_params.size() > 0) {
-                    // match only params listed in cache directives
-                    Iterator<String> i = m_params.iterator();
-                    while (i.hasNext()) {
-                        Object o = i.next();
-                        if (keyParams.containsKey(o)) {
-                            str.append(o);
-                            str.append("=");
-                            // TODO: handle multiple occurrences of the same parameter value
-                            String[] values = keyParams.get(o);
-                            str.append(values[0]);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request params
-                    Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, String[]> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        // TODO: handle multiple occurrences of the same parameter value
-                        String[] values = entry.getValue();
-                        str.append(values[0]);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_attrs != null) {
-            str.append(CACHE_18_ATTRS);
-            str.append("=(");
-            Map<String, Object> keyAttrs = key.getAttributes();
-            if (keyAttrs != null) {
-                if (m_attrs.size() > 0) {
-                    // match only attributes listed in cache directives
-                    Iterator<String> i = m_attrs.iterator();
-                    while (i.hasNext()) {
-                        String s = i.next();
-                        if (keyAttrs.containsKey(s)) {
-                            str.append(s);
-                            str.append("=");
-                            Object value = keyAttrs.get(s);
-                            str.append(value.toString());
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request attributes
-                    Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry<String, Object> entry = i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        Object value = entry.getValue();
-                        str.append(value.toString());
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
-                }
-            }
-            str.append(");");
-        }
-
-        if (m_session != null) {
-            StringBuffer buf = new StringBuffer(32);
-            boolean found = false;
-            buf.append(CACHE_07_SESSION);
-            buf.append("=(");
-            HttpSession keySession = key.getSession();
-            if (keySession != null) {
-                // match only session attributes listed in cache directives
-                Iterator<String> i = m_session.iterator();
-                while (i.hasNext()) {
-                    String name = i.next();
-                    Object val = keySession.getAttribute(name);
-                    if (val != null) {
-                        found = true;
-                        buf.append(name);
-                        buf.append("=");
-                        buf.append(val);
-                        if (i.hasNext()) {
-                            buf.append(",");
-                        }
-                    }
-                }
-            }
-            if (found) {
-                buf.append(");");
-                str.append(buf);
-            }
-        }
-
-        if (m_schemes != null) {
-            String s = key.getScheme();
-            if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
-                return null;
-            }
-            appendKeyValue(str, CACHE_08_SCHEMES, s);
-        }
-
-        if (m_ports != null) {
-            Integer i = key.getPort();
-            if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
-                return null;
-            }
-            str.append(CACHE_09_PORTS);
-            str.append("=(");
-            str.append(i);
-            str.append(");");
-        }
-
-        if (m_timeout > 0) {
-            str.append(CACHE_06_TIMEOUT);
-            str.append("=(");
-            str.append(m_timeout);
-            str.append(");");
-        }
-
-        if (str.length() > 0) {
-            return str.toString();
-        } else {
+        if (!appendVariation(key, new CmsFlexCacheKeyMatcher(str)) || (str.length() == 0)) {
             return null;
         }
+        return str.toString();
     }
 
     /** 
@@ -766,6 +570,239 @@ public class CmsFlexCacheKey {
         m_variation = variation;
     }
 
+    /**
+     * Appends the variation of the given request key to the given variation matcher.<p>
+     *
+     * This is used by {@link #matchRequestKey(CmsFlexRequestKey)} to build the variation String,
+     * and by the {@link CmsFlexCacheKeyMatcher} to look up the variation without building the String.<p>
+     *
+     * @param key the request key to match this key with
+     * @param variation the variation matcher to append the variation to
+     *
+     * @return <code>false</code> if the request is not cachable
+     */
+    boolean appendVariation(CmsFlexRequestKey key, CmsFlexCacheKeyMatcher variation) {
+
+        if (m_always < 0) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
+            }
+            return false;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
+        }
+        Map<String, String[]> noParams = (m_noparams != null) ? key.getParams() : null;
+        if (noParams != null) {
+            if ((m_noparams.size() == 0) && (noParams.size() > 0)) {
+                return false;
+            }
+            Iterator<String> i = noParams.keySet().iterator();
+            while (i.hasNext()) {
+                if (m_noparams.contains(i.next())) {
+                    return false;
+                }
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_ATTRS_0));
+        }
+        Map<String, Object> noAttrs = (m_noattrs != null) ? key.getAttributes() : null;
+        if (noAttrs != null) {
+            if ((m_noattrs.size() == 0) && (noAttrs.size() > 0)) {
+                return false;
+            }
+            Iterator<String> i = noAttrs.keySet().iterator();
+            while (i.hasNext()) {
+                if (m_noattrs.contains(i.next())) {
+                    return false;
+                }
+            }
+        }
+
+        if (m_always > 0) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
+            }
+            variation.append(CACHE_00_ALWAYS);
+            return true;
+        }
+
+        if (m_uri != null) {
+            appendKeyValue(variation, CACHE_02_URI, key.getUri());
+        }
+
+        if (m_site != null) {
+            appendKeyValue(variation, CACHE_17_SITE, key.getSite());
+        }
+
+        if (m_element != null) {
+            appendKeyValue(variation, CACHE_14_ELEMENT, key.getElement());
+        }
+
+        if (m_device != null) {
+            appendKeyValue(variation, CACHE_20_DEVICE, key.getDevice());
+        }
+
+        if (m_containerElement != null) {
+            appendKeyValue(variation, CACHE_22_CONTAINER_ELEMENT, key.getContainerElement());
+        }
+
+        if (m_locale != null) {
+            appendKeyValue(variation, CACHE_15_LOCALE, key.getLocale());
+        }
+
+        if (m_encoding != null) {
+            appendKeyValue(variation, CACHE_16_ENCODING, key.getEncoding());
+        }
+
+        if (m_ip != null) {
+            appendKeyValue(variation, CACHE_13_IP, key.getIp());
+        }
+
+        if (m_user != null) {
+            appendKeyValue(variation, CACHE_03_USER, key.getUser());
+        }
+
+        if (m_params != null) {
+            variation.append(CACHE_04_PARAMS);
+            variation.append("=(");
+            Map<String, String[]> keyParams = key.getParams();
+            if (keyParams != null) {
+                if (m_params.size() > 0) {
+                    // match only params listed in cache directives
+                    Iterator<String> i = m_params.iterator();
+                    while (i.hasNext()) {
+                        Object o = i.next();
+                        if (keyParams.containsKey(o)) {
+                            variation.append(o);
+                            variation.append("=");
+                            // TODO: handle multiple occurrences of the same parameter value
+                            String[] values = keyParams.get(o);
+                            variation.append(values[0]);
+                            if (i.hasNext()) {
+                                variation.append(",");
+                            }
+                        }
+                    }
+                } else {
+                    // match all request params
+                    Iterator<Map.Entry<String, String[]>> i = keyParams.entrySet().iterator();
+                    while (i.hasNext()) {
+                        Map.Entry<String, String[]> entry = i.next();
+                        variation.append(entry.getKey());
+                        variation.append("=");
+                        // TODO: handle multiple occurrences of the same parameter value
+                        String[] values = entry.getValue();
+                        variation.append(values[0]);
+                        if (i.hasNext()) {
+                            variation.append(",");
+                        }
+                    }
+                }
+            }
+            variation.append(");");
+        }
+
+        if (m_attrs != null) {
+            variation.append(CACHE_18_ATTRS);
+            variation.append("=(");
+            Map<String, Object> keyAttrs = key.getAttributes();
+            if (keyAttrs != null) {
+                if (m_attrs.size() > 0) {
+                    // match only attributes listed in cache directives
+                    Iterator<String> i = m_attrs.iterator();
+                    while (i.hasNext()) {
+                        String s = i.next();
+                        if (keyAttrs.containsKey(s)) {
+                            variation.append(s);
+                            variation.append("=");
+                            Object value = keyAttrs.get(s);
+                            variation.append(value.toString());
+                            if (i.hasNext()) {
+                                variation.append(",");
+                            }
+                        }
+                    }
+                } else {
+                    // match all request attributes
+                    Iterator<Map.Entry<String, Object>> i = keyAttrs.entrySet().iterator();
+                    while (i.hasNext()) {
+                        Map.Entry<String, Object> entry = i.next();
+                        variation.append(entry.getKey());
+                        variation.append("=");
+                        Object value = entry.getValue();
+                        variation.append(value.toString());
+                        if (i.hasNext()) {
+                            variation.append(",");
+                        }
+                    }
+                }
+            }
+            variation.append(");");
+        }
+
+        if (m_session != null) {
+            HttpSession keySession = key.getSession();
+            if (keySession != null) {
+                // match only session attributes listed in cache directives
+                boolean found = false;
+                Iterator<String> i = m_session.iterator();
+                while (!found && i.hasNext()) {
+                    found = keySession.getAttribute(i.next()) != null;
+                }
+                if (found) {
+                    variation.append(CACHE_07_SESSION);
+                    variation.append("=(");
+                    i = m_session.iterator();
+                    while (i.hasNext()) {
+                        String name = i.next();
+                        Object val = keySession.getAttribute(name);
+                        if (val != null) {
+                            variation.append(name);
+                            variation.append("=");
+                            variation.append(val);
+                            if (i.hasNext()) {
+                                variation.append(",");
+                            }
+                        }
+                    }
+                    variation.append(");");
+                }
+            }
+        }
+
+        if (m_schemes != null) {
+            String s = key.getScheme();
+            if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
+                return false;
+            }
+            appendKeyValue(variation, CACHE_08_SCHEMES, s);
+        }
+
+        if (m_ports != null) {
+            Integer i = key.getPort();
+            if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
+                return false;
+            }
+            variation.append(CACHE_09_PORTS);
+            variation.append("=(");
+            variation.append(i);
+            variation.append(");");
+        }
+
+        if (m_timeout > 0) {
+            variation.append(CACHE_06_TIMEOUT);
+            variation.append("=(");
+            variation.append(m_timeout);
+            variation.append(");");
+        }
+
+        return true;
+    }
+
     /**
      * Parse a String in the Flex cache language and construct 
      * the key data structure from this.<p>
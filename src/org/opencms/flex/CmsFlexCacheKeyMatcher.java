@@ -0,0 +1,260 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import java.util.Arrays;
+
+/**
+ * Matches the variation of a request against the variation Strings stored in the Flex cache
+ * without constructing the variation String.<p>
+ *
+ * The components of the request key are passed to this matcher in the same order in which
+ * {@link CmsFlexCacheKey#matchRequestKey(CmsFlexRequestKey)} appends them to the variation String.
+ * A matcher created with a buffer appends the components to the buffer. Otherwise the matcher calculates
+ * the hash code the variation String would have and keeps references to the components, so that
+ * they can be compared with the variation Strings stored in the cache.<p>
+ *
+ * An initialized matcher is used to look up a variation in a {@link CmsFlexCacheVariationMap}, which only
+ * compares it with the variation Strings that have the hash code of the String that would be built for
+ * the request. The matchers are reused per thread, so the matching itself does not create any objects.<p>
+ *
+ * @since 8.5.2
+ */
+final class CmsFlexCacheKeyMatcher {
+
+    /** The Strings used for the single characters appended to a variation. */
+    private static final String[] CHARS = new String[128];
+
+    /** The matchers reused by the current thread. */
+    private static final ThreadLocal<CmsFlexCacheKeyMatcher> MATCHERS = new ThreadLocal<CmsFlexCacheKeyMatcher>() {
+
+        /**
+         * @see java.lang.ThreadLocal#initialValue()
+         */
+        @Override
+        protected CmsFlexCacheKeyMatcher initialValue() {
+
+            return new CmsFlexCacheKeyMatcher(null);
+        }
+    };
+
+    /** The buffer the components are appended to, <code>null</code> if not building a variation String. */
+    private StringBuffer m_buffer;
+
+    /** The number of components of the variation. */
+    private int m_count;
+
+    /** The hash code of the variation String. */
+    private int m_hash;
+
+    /** Signals that this matcher is used for a lookup. */
+    private boolean m_inUse;
+
+    /** The length of the variation String. */
+    private int m_length;
+
+    /** The components of the variation. */
+    private String[] m_segments;
+
+    static {
+        for (int i = 0; i < CHARS.length; i++) {
+            CHARS[i] = String.valueOf((char)i).intern();
+        }
+    }
+
+    /**
+     * Creates a new matcher.<p>
+     *
+     * @param buffer the buffer to append the components to, 
+     *      or <code>null</code> for a matcher that is used to look up variations
+     */
+    CmsFlexCacheKeyMatcher(StringBuffer buffer) {
+
+        m_buffer = buffer;
+        if (buffer == null) {
+            m_segments = new String[32];
+        }
+    }
+
+    /**
+     * Looks up the value stored for the variation of a request key.<p>
+     *
+     * The result is the same as <code>variations.get(cacheKey.matchRequestKey(requestKey))</code>,
+     * except that <code>null</code> is returned if the request is not cacheable.<p>
+     *
+     * @param <T> the type of the values
+     * @param cacheKey the cache key of the resource
+     * @param requestKey the request key to match
+     * @param variations the values stored for the variations of the resource
+     *
+     * @return the value stored for the variation of the request key, or <code>null</code> if not found
+     */
+    static <T> T lookup(
+        CmsFlexCacheKey cacheKey,
+        CmsFlexRequestKey requestKey,
+        CmsFlexCacheVariationMap<T> variations) {
+
+        CmsFlexCacheKeyMatcher matcher = MATCHERS.get();
+        if (matcher.m_inUse) {
+            // the matcher of this thread is in use
+            matcher = new CmsFlexCacheKeyMatcher(null);
+        }
+        matcher.m_inUse = true;
+        matcher.m_count = 0;
+        matcher.m_hash = 0;
+        matcher.m_length = 0;
+        try {
+            if (!cacheKey.appendVariation(requestKey, matcher) || (matcher.m_length == 0)) {
+                // requested resource is not cacheable
+                return null;
+            }
+            return variations.get(matcher);
+        } finally {
+            // release the components of the request
+            Arrays.fill(matcher.m_segments, 0, matcher.m_count, null);
+            matcher.m_inUse = false;
+        }
+    }
+
+    /**
+     * Appends a character to the variation.<p>
+     *
+     * @param c the character to append
+     */
+    void append(char c) {
+
+        if (m_buffer != null) {
+            m_buffer.append(c);
+        } else {
+            append((c < CHARS.length) ? CHARS[c] : String.valueOf(c));
+        }
+    }
+
+    /**
+     * Appends the decimal representation of a number to the variation.<p>
+     *
+     * @param value the number to append
+     */
+    void append(long value) {
+
+        if ((m_buffer != null) || (value == Long.MIN_VALUE)) {
+            append(String.valueOf(value));
+            return;
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while ((value / divisor) >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            append((char)('0' + ((value / divisor) % 10)));
+            divisor /= 10;
+        }
+    }
+
+    /**
+     * Appends the String representation of an object to the variation.<p>
+     *
+     * @param value the object to append
+     */
+    void append(Object value) {
+
+        if (value instanceof Integer) {
+            append(((Integer)value).longValue());
+        } else if (value instanceof Long) {
+            append(((Long)value).longValue());
+        } else {
+            append(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Appends a String to the variation.<p>
+     *
+     * <code>null</code> is appended as "null", like a String buffer does.<p>
+     *
+     * @param value the String to append
+     */
+    void append(String value) {
+
+        if (value == null) {
+            value = "null";
+        }
+        if (m_buffer != null) {
+            m_buffer.append(value);
+            return;
+        }
+        int hash = m_hash;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            hash = (31 * hash) + value.charAt(i);
+        }
+        m_hash = hash;
+        m_length += value.length();
+        if (m_count == m_segments.length) {
+            m_segments = Arrays.copyOf(m_segments, m_count * 2);
+        }
+        m_segments[m_count++] = value;
+    }
+
+    /**
+     * Returns the hash code of the variation String of the request key.<p>
+     *
+     * @return the hash code of the variation String of the request key
+     */
+    int getHash() {
+
+        return m_hash;
+    }
+
+    /**
+     * Compares the components of the request key with a variation String.<p>
+     *
+     * @param variation the variation String to compare with
+     *
+     * @return <code>true</code> if the variation of the request key is equal to the given String
+     */
+    boolean matches(String variation) {
+
+        if (!m_inUse || (variation.length() != m_length)) {
+            return false;
+        }
+        int position = 0;
+        for (int i = 0; i < m_count; i++) {
+            String segment = m_segments[i];
+            if (!variation.regionMatches(position, segment, 0, segment.length())) {
+                return false;
+            }
+            position += segment.length();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The map from the variation Strings of a resource to the cached entries, which can also be
+ * searched with a {@link CmsFlexCacheKeyMatcher}.<p>
+ *
+ * Besides the entries, the map keeps an index of the variation Strings, in buckets selected by their hash code.
+ * A lookup with a matcher only compares the matcher with the variations in the bucket of the hash code
+ * the variation String of the request would have, so the variation String does not have to be built.<p>
+ *
+ * Reading is not synchronized, the modifications are synchronized on the map. The index is replaced
+ * bucket by bucket, so a lookup always sees a consistent bucket.<p>
+ *
+ * @param <V> the type of the cached entries
+ *
+ * @since 8.5.2
+ */
+final class CmsFlexCacheVariationMap<V> extends AbstractMap<String, V> {
+
+    /** The initial number of buckets, must be a power of 2. */
+    private static final int INITIAL_BUCKETS = 8;
+
+    /** The entries by variation. */
+    private final Map<String, V> m_entries;
+
+    /** The variations, in the buckets selected by their hash code. */
+    private volatile AtomicReferenceArray<String[]> m_index;
+
+    /** The number of variations in the index. */
+    private int m_indexSize;
+
+    /**
+     * Creates a new variation map.<p>
+     *
+     * @param initialCapacity the initial capacity of the map
+     */
+    CmsFlexCacheVariationMap(int initialCapacity) {
+
+        m_entries = new ConcurrentHashMap<String, V>(initialCapacity);
+        m_index = new AtomicReferenceArray<String[]>(INITIAL_BUCKETS);
+    }
+
+    /**
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public synchronized void clear() {
+
+        m_entries.clear();
+        m_index = new AtomicReferenceArray<String[]>(INITIAL_BUCKETS);
+        m_indexSize = 0;
+    }
+
+    /**
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+
+        return m_entries.containsKey(key);
+    }
+
+    /**
+     * Returns the entries of this map.<p>
+     *
+     * Removing an entry with the iterator also removes the variation from the index.<p>
+     *
+     * @see java.util.AbstractMap#entrySet()
+     */
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+
+        return new AbstractSet<Map.Entry<String, V>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+
+                final Iterator<Map.Entry<String, V>> entries = m_entries.entrySet().iterator();
+                return new Iterator<Map.Entry<String, V>>() {
+
+                    /** The last returned entry. */
+                    private Map.Entry<String, V> m_last;
+
+                    public boolean hasNext() {
+
+                        return entries.hasNext();
+                    }
+
+                    public Map.Entry<String, V> next() {
+
+                        m_last = entries.next();
+                        return m_last;
+                    }
+
+                    public void remove() {
+
+                        if (m_last == null) {
+                            throw new IllegalStateException();
+                        }
+                        CmsFlexCacheVariationMap.this.remove(m_last.getKey());
+                        m_last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+
+                return m_entries.size();
+            }
+        };
+    }
+
+    /**
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public V get(Object key) {
+
+        return m_entries.get(key);
+    }
+
+    /**
+     * @see java.util.AbstractMap#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+
+        return m_entries.isEmpty();
+    }
+
+    /**
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public synchronized V put(String key, V value) {
+
+        V result = m_entries.put(key, value);
+        if (result == null) {
+            addToIndex(key);
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public synchronized V remove(Object key) {
+
+        V result = m_entries.remove(key);
+        if (result != null) {
+            removeFromIndex((String)key);
+        }
+        return result;
+    }
+
+    /**
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Returns the entry stored for the variation the given matcher has been initialized with.<p>
+     *
+     * @param matcher the initialized matcher
+     *
+     * @return the entry stored for the variation, or <code>null</code> if not found
+     */
+    V get(CmsFlexCacheKeyMatcher matcher) {
+
+        int hash = matcher.getHash();
+        AtomicReferenceArray<String[]> index = m_index;
+        String[] bucket = index.get(getBucket(hash, index.length()));
+        if (bucket != null) {
+            for (String variation : bucket) {
+                if ((variation.hashCode() == hash) && matcher.matches(variation)) {
+                    return m_entries.get(variation);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a variation to its bucket in the given index.<p>
+     *
+     * @param index the index
+     * @param variation the variation to add
+     */
+    private void addToBucket(AtomicReferenceArray<String[]> index, String variation) {
+
+        int i = getBucket(variation.hashCode(), index.length());
+        String[] bucket = index.get(i);
+        if (bucket == null) {
+            index.set(i, new String[] {variation});
+        } else {
+            String[] newBucket = Arrays.copyOf(bucket, bucket.length + 1);
+            newBucket[bucket.length] = variation;
+            index.set(i, newBucket);
+        }
+    }
+
+    /**
+     * Adds a variation to the index.<p>
+     *
+     * @param variation the variation to add
+     */
+    private void addToIndex(String variation) {
+
+        AtomicReferenceArray<String[]> index = m_index;
+        if (m_indexSize >= ((index.length() / 4) * 3)) {
+            // double the number of buckets
+            AtomicReferenceArray<String[]> newIndex = new AtomicReferenceArray<String[]>(index.length() * 2);
+            for (int i = 0; i < index.length(); i++) {
+                String[] bucket = index.get(i);
+                if (bucket != null) {
+                    for (String indexed : bucket) {
+                        addToBucket(newIndex, indexed);
+                    }
+                }
+            }
+            m_index = newIndex;
+            index = newIndex;
+        }
+        addToBucket(index, variation);
+        m_indexSize++;
+    }
+
+    /**
+     * Returns the bucket of a hash code.<p>
+     *
+     * @param hash the hash code
+     * @param buckets the number of buckets, a power of 2
+     *
+     * @return the bucket of the hash code
+     */
+    private int getBucket(int hash, int buckets) {
+
+        return (hash ^ (hash >>> 16)) & (buckets - 1);
+    }
+
+    /**
+     * Removes a variation from the index.<p>
+     *
+     * @param variation the variation to remove
+     */
+    private void removeFromIndex(String variation) {
+
+        AtomicReferenceArray<String[]> index = m_index;
+        int i = getBucket(variation.hashCode(), index.length());
+        String[] bucket = index.get(i);
+        if (bucket == null) {
+            return;
+        }
+        for (int j = 0; j < bucket.length; j++) {
+            if (bucket[j].equals(variation)) {
+                if (bucket.length == 1) {
+                    index.set(i, null);
+                } else {
+                    String[] newBucket = new String[bucket.length - 1];
+                    System.arraycopy(bucket, 0, newBucket, 0, j);
+                    System.arraycopy(bucket, j + 1, newBucket, j, newBucket.length - j);
+                    index.set(i, newBucket);
+                }
+                m_indexSize--;
+                return;
+            }
+        }
+    }
+}
@@ -31,11 +31,13 @@ import org.opencms.file.CmsObject;
 import org.opencms.file.CmsRequestContext;
 import org.opencms.jsp.util.CmsJspStandardContextBean;
 import org.opencms.jsp.util.CmsJspStandardContextBean.TemplateBean;
+import org.opencms.jsp.util.I_CmsJspDeviceSelector;
 import org.opencms.loader.CmsTemplateContextManager;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsLog;
 import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
 import java.util.Map;
@@ -64,7 +66,7 @@ public class CmsFlexRequestKey {
     /** The current detail view id. */
     private CmsUUID m_detailViewId;
 
-    /** Stores the device this request was made with. */
+    /** Stores the device this request was made with, calculated when first needed. */
     private String m_device;
 
     /** The (Flex) Http request this key was constructed for. */
@@ -99,9 +101,6 @@ public class CmsFlexRequestKey {
         // calculate the resource name
         m_resource = CmsFlexCacheKey.getKeyName(m_context.addSiteRoot(target), online);
 
-        // calculate the device
-        m_device = CmsFlexController.getController(req).getCmsCache().getDeviceSelector().getDeviceType(req);
-
         CmsJspStandardContextBean standardContext = CmsJspStandardContextBean.getInstance(req);
         // get the current container element
         String templateContextKey = "";
@@ -145,11 +144,26 @@ public class CmsFlexRequestKey {
 
     /**
      * Returns the device.<p>
+     * 
+     * The device is only detected if it is required by a cache directive. It is shared with 
+     * the <code>&lt;cms:device&gt;</code> tag through a request attribute of the top request.<p>
      *
      * @return the device
      */
     public String getDevice() {
 
+        if (m_device == null) {
+            CmsFlexController controller = CmsFlexController.getController(m_request);
+            HttpServletRequest topRequest = controller.getTopRequest();
+            String device = (String)topRequest.getAttribute(I_CmsJspDeviceSelector.REQUEST_ATTRIBUTE_DEVICE);
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(device)) {
+                device = controller.getCmsCache().getDeviceSelector().getDeviceType(m_request);
+                if (CmsStringUtil.isNotEmpty(device)) {
+                    topRequest.setAttribute(I_CmsJspDeviceSelector.REQUEST_ATTRIBUTE_DEVICE, device);
+                }
+            }
+            m_device = device;
+        }
         return m_device;
     }
 
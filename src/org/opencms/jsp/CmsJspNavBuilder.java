@@ -425,7 +425,7 @@ public class CmsJspNavBuilder {
         List<CmsResource> resources = null;
         try {
 
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = readResourcesInFolder(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
@@ -635,7 +635,7 @@ public class CmsJspNavBuilder {
 
         List<CmsResource> resources;
         try {
-            resources = m_cms.getResourcesInFolder(folder, resourceFilter);
+            resources = readResourcesInFolder(folder, resourceFilter);
         } catch (Exception e) {
             // should never happen
             LOG.error(e.getLocalizedMessage(), e);
@@ -671,9 +671,15 @@ public class CmsJspNavBuilder {
             level--;
         }
         try {
-            resource = m_cms.readResource(sitePath, resourceFilter);
-            List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
-            propertiesMap = CmsProperty.toMap(properties);
+            CmsJspNavCache cache = CmsJspNavCache.getInstance();
+            if ((cache != null) && cache.isCacheable(m_cms)) {
+                resource = cache.readResource(m_cms, sitePath, resourceFilter);
+                propertiesMap = cache.getProperties(resource);
+            } else {
+                resource = m_cms.readResource(sitePath, resourceFilter);
+                List<CmsProperty> properties = m_cms.readPropertyObjects(resource, false);
+                propertiesMap = CmsProperty.toMap(properties);
+            }
             if (resource.isFolder()) {
                 if (!sitePath.endsWith("/")) {
                     sitePath = sitePath + "/";
@@ -697,4 +703,24 @@ public class CmsJspNavBuilder {
 
         return new CmsJspNavElement(sitePath, resource, propertiesMap, level);
     }
+
+    /**
+     * Reads the resources in the given folder, using the navigation cache in the online project.<p>
+     * 
+     * @param folder the site path of the folder
+     * @param resourceFilter the filter to use reading the resources
+     * 
+     * @return the resources in the folder
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    private List<CmsResource> readResourcesInFolder(String folder, CmsResourceFilter resourceFilter)
+    throws CmsException {
+
+        CmsJspNavCache cache = CmsJspNavCache.getInstance();
+        if ((cache != null) && cache.isCacheable(m_cms)) {
+            return cache.getResourcesInFolder(m_cms, folder, resourceFilter);
+        }
+        return m_cms.getResourcesInFolder(folder, resourceFilter);
+    }
 }
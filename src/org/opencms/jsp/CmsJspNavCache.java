@@ -0,0 +1,416 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.flex.CmsFlexRequestContextInfo;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsCollectionsGenericWrapper;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsRequestUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Cache for the online resources and properties read by the {@link CmsJspNavBuilder}.<p>
+ *
+ * The cache holds the child resources of the navigation folders and the properties of the navigation
+ * resources, as read with an administrator context. The permissions, the resource filter and the
+ * release and expiration dates are checked for every request against the cached resources.<p>
+ *
+ * After a publish, only the published resources, their parent folders and the sub trees of
+ * published folders are removed from the cache.<p>
+ *
+ * @since 8.5.2
+ */
+public final class CmsJspNavCache implements I_CmsEventListener {
+
+    /** The maximum number of cached folders and resources. */
+    public static final int CACHE_SIZE = 8192;
+
+    /** The singleton instance, <code>null</code> if not initialized. */
+    private static CmsJspNavCache m_instance;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspNavCache.class);
+
+    /** The child resources by folder root path. */
+    private Map<String, List<CmsResource>> m_children;
+
+    /** The online administrator context used for reading. */
+    private CmsObject m_onlineCms;
+
+    /** The properties by resource root path. */
+    private Map<String, Map<String, String>> m_properties;
+
+    /** The resources by root path. */
+    private Map<String, CmsResource> m_resources;
+
+    /**
+     * Hidden constructor.<p>
+     *
+     * @param onlineCms the online administrator context used for reading
+     */
+    private CmsJspNavCache(CmsObject onlineCms) {
+
+        m_onlineCms = onlineCms;
+        Map<String, List<CmsResource>> children = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+        Map<String, Map<String, String>> properties = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+        Map<String, CmsResource> resources = CmsCollectionsGenericWrapper.createLRUMap(CACHE_SIZE);
+        if (OpenCms.getMemoryMonitor() != null) {
+            // maps must be of type "LRUMap" so that memory monitor can access all information
+            OpenCms.getMemoryMonitor().register(CmsJspNavCache.class.getName() + ".children", children);
+            OpenCms.getMemoryMonitor().register(CmsJspNavCache.class.getName() + ".properties", properties);
+            OpenCms.getMemoryMonitor().register(CmsJspNavCache.class.getName() + ".resources", resources);
+        }
+        m_children = Collections.synchronizedMap(children);
+        m_properties = Collections.synchronizedMap(properties);
+        m_resources = Collections.synchronizedMap(resources);
+    }
+
+    /**
+     * Returns the navigation cache.<p>
+     *
+     * @return the navigation cache, or <code>null</code> if the cache was not initialized
+     */
+    public static CmsJspNavCache getInstance() {
+
+        return m_instance;
+    }
+
+    /**
+     * Initializes the navigation cache.<p>
+     *
+     * @param adminCms an initialized OpenCms user context with "Administrator" role permissions
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public static void initialize(CmsObject adminCms) throws CmsException {
+
+        CmsObject onlineCms = OpenCms.initCmsObject(adminCms);
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        onlineCms.getRequestContext().setSiteRoot("");
+        CmsJspNavCache cache = new CmsJspNavCache(onlineCms);
+        OpenCms.addCmsEventListener(cache, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+        m_instance = cache;
+    }
+
+    /**
+     * Returns the cache key for the given root path.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the cache key
+     */
+    private static String getKey(String rootPath) {
+
+        return CmsFileUtil.removeTrailingSeparator(rootPath);
+    }
+
+    /**
+     * Clears the cache.<p>
+     */
+    public void clear() {
+
+        m_children.clear();
+        m_properties.clear();
+        m_resources.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+            case I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishIdStr = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishIdStr == null) {
+                    clear();
+                    break;
+                }
+                try {
+                    List<CmsPublishedResource> publishedResources = m_onlineCms.readPublishedResources(new CmsUUID(
+                        publishIdStr));
+                    if (publishedResources.isEmpty()) {
+                        // not a normal publish process, so clear the whole cache to be on the safe side
+                        clear();
+                    }
+                    for (CmsPublishedResource res : publishedResources) {
+                        if (res.isFile() && (res.getSiblingCount() > 1)) {
+                            // the shared resource record of all siblings may have changed
+                            clear();
+                            break;
+                        }
+                        uncache(res.getRootPath(), res.isFolder());
+                    }
+                } catch (CmsException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                    clear();
+                }
+                break;
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+                // changes made directly in the online project
+                Object resource = event.getData().get(I_CmsEventListener.KEY_RESOURCE);
+                if (resource instanceof CmsResource) {
+                    uncache(((CmsResource)resource).getRootPath(), ((CmsResource)resource).isFolder());
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+                List<CmsResource> resources = CmsCollectionsGenericWrapper.list(event.getData().get(
+                    I_CmsEventListener.KEY_RESOURCES));
+                if (resources != null) {
+                    for (CmsResource res : resources) {
+                        uncache(res.getRootPath(), res.isFolder());
+                    }
+                }
+                break;
+            default:
+                // noop
+                break;
+        }
+    }
+
+    /**
+     * Returns the properties of the given online resource, not including the inherited properties.<p>
+     *
+     * @param resource the resource
+     *
+     * @return the properties as an unmodifiable map
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public Map<String, String> getProperties(CmsResource resource) throws CmsException {
+
+        String key = getKey(resource.getRootPath());
+        Map<String, String> properties = m_properties.get(key);
+        if (properties == null) {
+            List<CmsProperty> propertyList = m_onlineCms.readPropertyObjects(resource.getRootPath(), false);
+            properties = Collections.unmodifiableMap(CmsProperty.toMap(propertyList));
+            m_properties.put(key, properties);
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the resources in the given folder, filtered for the user of the given context.<p>
+     *
+     * @param cms the current users context, must be in the online project
+     * @param folder the site path of the folder
+     * @param filter the resource filter
+     *
+     * @return the resources in the folder
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public List<CmsResource> getResourcesInFolder(CmsObject cms, String folder, CmsResourceFilter filter)
+    throws CmsException {
+
+        CmsRequestContext context = cms.getRequestContext();
+        String rootPath = context.addSiteRoot(folder);
+        CmsResource parent = readCachedResource(rootPath);
+        if ((parent == null) || !cms.hasPermissions(parent, CmsPermissionSet.ACCESS_READ, false, CmsResourceFilter.ALL)) {
+            // let the VFS generate the right error
+            return cms.getResourcesInFolder(folder, filter);
+        }
+        String key = getKey(rootPath);
+        List<CmsResource> children = m_children.get(key);
+        if (children == null) {
+            children = Collections.unmodifiableList(new ArrayList<CmsResource>(m_onlineCms.getResourcesInFolder(
+                parent.getRootPath(),
+                CmsResourceFilter.ALL)));
+            m_children.put(key, children);
+        }
+
+        // the time range is checked together with the update of the context dates
+        CmsResourceFilter permissionFilter = filter.requireTimerange() ? filter.addExcludeTimerange() : filter;
+        CmsFlexRequestContextInfo info = (CmsFlexRequestContextInfo)context.getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        List<CmsResource> result = new ArrayList<CmsResource>(children.size());
+        for (CmsResource child : children) {
+            if (!cms.hasPermissions(child, CmsPermissionSet.ACCESS_READ, false, permissionFilter)) {
+                continue;
+            }
+            if (filter.isValid(context, child)) {
+                // the cached instances are shared, callers may modify the returned resources
+                result.add((CmsResource)child.clone());
+            }
+            if (info != null) {
+                // must also include "invalid" resources, since a resource may be invalid because of the release date
+                info.updateFromResource(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the cache can be used for the given context.<p>
+     *
+     * @param cms the current users context
+     *
+     * @return <code>true</code> if the given context is in the online project
+     */
+    public boolean isCacheable(CmsObject cms) {
+
+        return cms.getRequestContext().getCurrentProject().isOnlineProject();
+    }
+
+    /**
+     * Reads a resource for the user of the given context.<p>
+     *
+     * @param cms the current users context, must be in the online project
+     * @param sitePath the site path of the resource
+     * @param filter the resource filter
+     *
+     * @return the resource
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public CmsResource readResource(CmsObject cms, String sitePath, CmsResourceFilter filter) throws CmsException {
+
+        CmsRequestContext context = cms.getRequestContext();
+        CmsResource resource = readCachedResource(context.addSiteRoot(sitePath));
+        if ((resource == null)
+            || !filter.isValid(context, resource)
+            || !cms.hasPermissions(resource, CmsPermissionSet.ACCESS_READ, false, filter)) {
+            // let the VFS generate the right error
+            return cms.readResource(sitePath, filter);
+        }
+        CmsFlexRequestContextInfo info = (CmsFlexRequestContextInfo)context.getAttribute(CmsRequestUtil.HEADER_LAST_MODIFIED);
+        if (info != null) {
+            info.updateFromResource(resource);
+        }
+        // the cached instance is shared, callers may modify the returned resource
+        return (CmsResource)resource.clone();
+    }
+
+    /**
+     * Returns the cached online resource with the given root path, reading it if required.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource, or <code>null</code> if the resource does not exist
+     */
+    private CmsResource readCachedResource(String rootPath) {
+
+        String key = getKey(rootPath);
+        CmsResource resource = m_resources.get(key);
+        if (resource == null) {
+            if (!m_onlineCms.existsResource(rootPath, CmsResourceFilter.ALL)) {
+                return null;
+            }
+            try {
+                resource = m_onlineCms.readResource(rootPath, CmsResourceFilter.ALL);
+            } catch (CmsException e) {
+                return null;
+            }
+            m_resources.put(key, resource);
+        }
+        return resource;
+    }
+
+    /**
+     * Removes a resource and the child resources of its parent folder from the cache.<p>
+     *
+     * @param rootPath the root path of the resource
+     * @param isFolder if the resource is a folder, then the whole sub tree is removed
+     */
+    private void uncache(String rootPath, boolean isFolder) {
+
+        String key = getKey(rootPath);
+        m_resources.remove(key);
+        m_properties.remove(key);
+        m_children.remove(key);
+        String parentFolder = CmsResource.getParentFolder(rootPath);
+        if (parentFolder != null) {
+            m_children.remove(getKey(parentFolder));
+        }
+        if (isFolder) {
+            String prefix = CmsFileUtil.addTrailingSeparator(rootPath);
+            removePrefix(m_children, prefix);
+            removePrefix(m_properties, prefix);
+            removePrefix(m_resources, prefix);
+        }
+    }
+
+    /**
+     * Removes all entries with a key starting with the given prefix.<p>
+     *
+     * @param map the synchronized map
+     * @param prefix the prefix
+     */
+    private void removePrefix(Map<String, ?> map, String prefix) {
+
+        synchronized (map) {
+            Iterator<String> it = map.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().startsWith(prefix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.opencms.flex.CmsFlexController;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.jsp.util.CmsJspContentLoadBean;
+import org.opencms.jsp.util.CmsJspContentPrefetch;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.OpenCms;
@@ -42,11 +43,13 @@ import org.opencms.workplace.editors.directedit.CmsDirectEditButtonSelection;
 import org.opencms.workplace.editors.directedit.CmsDirectEditMode;
 import org.opencms.workplace.editors.directedit.CmsDirectEditParams;
 import org.opencms.xml.I_CmsXmlDocument;
+import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
 
 import java.util.Iterator;
 import java.util.Locale;
 
+import javax.servlet.ServletRequest;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.PageContext;
 import javax.servlet.jsp.tagext.Tag;
@@ -99,6 +102,9 @@ public class CmsJspTagContentLoad extends CmsJspTagResourceLoad implements I_Cms
     /** Reference to the currently selected locale. */
     private Locale m_locale;
 
+    /** The prefetch for the contents of the current page of results. */
+    private transient CmsJspContentPrefetch m_prefetch;
+
     /**
      * Empty constructor, required for JSP tags.<p> 
      */
@@ -361,6 +367,7 @@ public class CmsJspTagContentLoad extends CmsJspTagResourceLoad implements I_Cms
         m_directEditMode = null;
         m_isFirstLoop = false;
         m_locale = null;
+        m_prefetch = null;
         super.release();
     }
 
@@ -402,13 +409,26 @@ public class CmsJspTagContentLoad extends CmsJspTagResourceLoad implements I_Cms
             return;
         }
 
-        // upgrade the resource to a file
-        CmsFile file = m_cms.readFile(m_resource);
+        ServletRequest req = pageContext.getRequest();
+        I_CmsXmlDocument prefetched = null;
+        if ((m_prefetch != null) && (req.getAttribute(m_resource.getRootPath()) == null)) {
+            // the content has not been cached in the request, use the content prefetched for the current page
+            prefetched = m_prefetch.getContent(m_resource);
+        }
 
-        // unmarshal the XML content from the resource, don't use unmarshal(CmsObject, CmsResource) 
-        // as no support for getting the historic version that has been cached by a CmsHistoryResourceHandler 
-        // will come from there!
-        m_content = CmsXmlContentFactory.unmarshal(m_cms, file, pageContext.getRequest());
+        if (prefetched instanceof CmsXmlContent) {
+            m_content = prefetched;
+            // store the content as request attribute, like the XML content factory does
+            req.setAttribute(m_resource.getRootPath(), prefetched);
+        } else {
+            // upgrade the resource to a file
+            CmsFile file = m_cms.readFile(m_resource);
+
+            // unmarshal the XML content from the resource, don't use unmarshal(CmsObject, CmsResource) 
+            // as no support for getting the historic version that has been cached by a CmsHistoryResourceHandler 
+            // will come from there!
+            m_content = CmsXmlContentFactory.unmarshal(m_cms, file, req);
+        }
 
         // check if locale is available
         m_contentLocale = m_locale;
@@ -527,6 +547,8 @@ public class CmsJspTagContentLoad extends CmsJspTagResourceLoad implements I_Cms
                 // not required when only preloading 
                 m_collectorResult = CmsJspTagResourceLoad.limitCollectorResult(m_contentInfoBean, m_collectorResult);
                 m_contentInfoBean.initPageNavIndexes();
+                // the contents of the current page are read in bulk when the first content is loaded
+                m_prefetch = new CmsJspContentPrefetch(m_cms, m_collectorResult);
 
                 String createParam = collector.getCreateParam(m_cms, m_collectorName, m_collectorParam);
                 if (createParam != null) {
@@ -402,6 +402,9 @@ public class CmsJspContentAccessBean {
     /** The lazy initialized with the locale value lists. */
     private Map<String, Map<String, List<CmsJspContentAccessValueWrapper>>> m_localeValueList;
 
+    /** The prefetch the XML content is read from, if available. */
+    private CmsJspContentPrefetch m_prefetch;
+
     /** Resource the XML content is created from. */
     private CmsResource m_resource;
 
@@ -441,6 +444,27 @@ public class CmsJspContentAccessBean {
         init(cms, locale, null, resource);
     }
 
+    /**
+     * Creates a content access bean based on a Resource, reading the XML content from the given prefetch.<p>
+     * 
+     * If the prefetch does not provide the content of the resource, the content is read 
+     * from the resource when it is accessed for the first time.<p>
+     * 
+     * @param cms the OpenCms context of the current user
+     * @param locale the Locale to use when accessing the content
+     * @param resource the resource to create the content from
+     * @param prefetch the prefetch to read the content from
+     */
+    public CmsJspContentAccessBean(
+        CmsObject cms,
+        Locale locale,
+        CmsResource resource,
+        CmsJspContentPrefetch prefetch) {
+
+        init(cms, locale, null, resource);
+        m_prefetch = prefetch;
+    }
+
     /**
      * Creates a content access bean based on an XML content object.<p>
      * 
@@ -767,6 +791,11 @@ public class CmsJspContentAccessBean {
      */
     public I_CmsXmlDocument getRawContent() {
 
+        if ((m_content == null) && (m_prefetch != null)) {
+            // use the content prefetched together with the other resources of the list
+            m_content = m_prefetch.getContent(m_resource);
+            m_prefetch = null;
+        }
         if (m_content == null) {
             // content has not been provided, must unmarshal XML first
             CmsFile file;
@@ -911,5 +940,6 @@ public class CmsJspContentAccessBean {
         m_requestedLocale = locale;
         m_content = content;
         m_resource = resource;
+        m_prefetch = null;
     }
 }
\ No newline at end of file
@@ -109,6 +109,9 @@ public class CmsJspContentLoadBean {
      * Converts a list of {@link CmsResource} objects to a list of {@link CmsJspContentAccessBean} objects,
      * using the given locale.<p> 
      * 
+     * The XML contents of the resources are prefetched in batches with a {@link CmsJspContentPrefetch}
+     * when the first content of a batch is accessed.<p>
+     * 
      * @param cms the current OpenCms user context
      * @param locale the default locale to use when accessing the content
      * @param resources a list of of {@link CmsResource} objects that should be converted
@@ -121,9 +124,10 @@ public class CmsJspContentLoadBean {
         List<CmsResource> resources) {
 
         List<CmsJspContentAccessBean> result = new ArrayList<CmsJspContentAccessBean>(resources.size());
+        CmsJspContentPrefetch prefetch = new CmsJspContentPrefetch(cms, resources);
         for (int i = 0, size = resources.size(); i < size; i++) {
             CmsResource res = resources.get(i);
-            result.add(new CmsJspContentAccessBean(cms, locale, res));
+            result.add(new CmsJspContentAccessBean(cms, locale, res, prefetch));
         }
         return result;
     }
@@ -0,0 +1,351 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.jsp.util;
+
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.file.history.I_CmsHistoryResource;
+import org.opencms.file.types.CmsResourceTypeXmlContent;
+import org.opencms.file.types.CmsResourceTypeXmlPage;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.I_CmsXmlDocument;
+import org.opencms.xml.content.CmsXmlContentFactory;
+import org.opencms.xml.page.CmsXmlPageFactory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Prefetches the XML contents of a list of resources, e.g. the current page of collector results.<p>
+ * 
+ * The contents are loaded in batches when the first content of a batch is requested.
+ * The files and the properties of all resources of a batch are read with as few database queries as possible,
+ * then the XML contents are unmarshalled. If the runtime property <code>contentload.prefetch.threads</code> 
+ * is set to a value greater than 1, the contents of a batch are unmarshalled in parallel with 
+ * the given number of threads. The threads are started with {@link #initialize(int)} during the system startup 
+ * and stopped with {@link #shutDown()} during the system shutdown.<p>
+ * 
+ * If a content can not be prefetched, {@link #getContent(CmsResource)} returns <code>null</code>
+ * and the caller must read the content itself.<p>
+ * 
+ * @since 8.5.2 
+ * 
+ * @see CmsJspContentLoadBean
+ * @see org.opencms.jsp.CmsJspTagContentLoad
+ */
+public class CmsJspContentPrefetch {
+
+    /** The default number of resources prefetched together. */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** The runtime property for the number of threads used to unmarshal the prefetched contents. */
+    public static final String PARAM_THREADS = "contentload.prefetch.threads";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsJspContentPrefetch.class);
+
+    /** The shared executor for unmarshalling the contents in parallel, <code>null</code> if not initialized. */
+    private static ExecutorService m_executor;
+
+    /** The number of resources prefetched together. */
+    private int m_batchSize;
+
+    /** The OpenCms context of the current user. */
+    private CmsObject m_cms;
+
+    /** The prefetched contents, by structure id. */
+    private Map<CmsUUID, I_CmsXmlDocument> m_contents;
+
+    /** The indexes of the batches which have already been loaded. */
+    private BitSet m_loadedBatches;
+
+    /** The positions of the resources in the list, by structure id. */
+    private Map<CmsUUID, Integer> m_positions;
+
+    /** The resources to prefetch the contents for. */
+    private List<CmsResource> m_resources;
+
+    /**
+     * Creates a new prefetch for the given resources, using the default batch size.<p>
+     * 
+     * @param cms the OpenCms context of the current user
+     * @param resources the resources to prefetch the contents for
+     */
+    public CmsJspContentPrefetch(CmsObject cms, List<CmsResource> resources) {
+
+        this(cms, resources, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new prefetch for the given resources.<p>
+     * 
+     * @param cms the OpenCms context of the current user
+     * @param resources the resources to prefetch the contents for
+     * @param batchSize the number of resources prefetched together
+     */
+    public CmsJspContentPrefetch(CmsObject cms, List<CmsResource> resources, int batchSize) {
+
+        m_cms = cms;
+        m_resources = new ArrayList<CmsResource>(resources);
+        m_batchSize = Math.max(1, batchSize);
+        m_contents = new HashMap<CmsUUID, I_CmsXmlDocument>();
+        m_loadedBatches = new BitSet();
+        m_positions = new HashMap<CmsUUID, Integer>();
+        for (int i = m_resources.size() - 1; i >= 0; i--) {
+            m_positions.put(m_resources.get(i).getStructureId(), new Integer(i));
+        }
+    }
+
+    /**
+     * Returns the prefetched content of the given resource.<p>
+     * 
+     * If the content of the resource has not been prefetched yet, the batch of resources 
+     * containing the given resource is loaded.<p>
+     * 
+     * @param resource the resource to get the content for
+     * 
+     * @return the prefetched content, or <code>null</code> if the content could not be prefetched
+     */
+    public synchronized I_CmsXmlDocument getContent(CmsResource resource) {
+
+        if (resource instanceof I_CmsHistoryResource) {
+            // historical versions are never prefetched
+            return null;
+        }
+        Integer position = m_positions.get(resource.getStructureId());
+        if (position == null) {
+            return null;
+        }
+        int batch = position.intValue() / m_batchSize;
+        if (!m_loadedBatches.get(batch)) {
+            m_loadedBatches.set(batch);
+            int start = batch * m_batchSize;
+            loadBatch(m_resources.subList(start, Math.min(m_resources.size(), start + m_batchSize)));
+        }
+        return m_contents.get(resource.getStructureId());
+    }
+
+    /**
+     * Starts the threads used to unmarshal the prefetched contents in parallel.<p>
+     * 
+     * If the given number of threads is not greater than 1, the contents are unmarshalled sequentially.<p>
+     * 
+     * @param threads the number of threads used to unmarshal the prefetched contents
+     */
+    public static synchronized void initialize(int threads) {
+
+        shutDown();
+        if (threads > 1) {
+            m_executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+                private AtomicInteger m_count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: content prefetch " + m_count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the threads used to unmarshal the prefetched contents in parallel.<p>
+     * 
+     * Afterwards, the contents are unmarshalled sequentially.<p>
+     */
+    public static synchronized void shutDown() {
+
+        if (m_executor != null) {
+            m_executor.shutdownNow();
+            m_executor = null;
+        }
+    }
+
+    /**
+     * Returns the resources to prefetch the contents for.<p>
+     * 
+     * @return the resources to prefetch the contents for
+     */
+    public List<CmsResource> getResources() {
+
+        return Collections.unmodifiableList(m_resources);
+    }
+
+    /**
+     * Loads the contents of the given batch of resources.<p>
+     * 
+     * @param batch the resources to load the contents for
+     */
+    protected void loadBatch(List<CmsResource> batch) {
+
+        List<CmsResource> resources = new ArrayList<CmsResource>(batch.size());
+        for (CmsResource resource : batch) {
+            if (resource.isFile()
+                && !(resource instanceof I_CmsHistoryResource)
+                && (CmsResourceTypeXmlPage.isXmlPage(resource) || CmsResourceTypeXmlContent.isXmlContent(resource))) {
+                resources.add(resource);
+            }
+        }
+        if (resources.isEmpty()) {
+            return;
+        }
+        List<CmsFile> files;
+        try {
+            // the properties are cached, so the unmarshalling does not need to read them one by one
+            m_cms.readPropertyObjects(resources);
+            files = m_cms.readFiles(resources);
+        } catch (CmsException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(
+                    Messages.get().getBundle().key(
+                        Messages.LOG_PREFETCH_CONTENTS_FAILED_1,
+                        String.valueOf(resources.size())),
+                    e);
+            }
+            return;
+        }
+        ExecutorService executor = getExecutor();
+        if ((executor != null) && (files.size() > 1)) {
+            unmarshalParallel(files, executor);
+        } else {
+            for (CmsFile file : files) {
+                try {
+                    m_contents.put(file.getStructureId(), unmarshal(m_cms, file));
+                } catch (CmsException e) {
+                    logUnmarshalError(file, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Unmarshals the XML content of the given file.<p>
+     * 
+     * @param cms the OpenCms context to use
+     * @param file the file to unmarshal
+     * 
+     * @return the unmarshalled XML content
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected I_CmsXmlDocument unmarshal(CmsObject cms, CmsFile file) throws CmsException {
+
+        if (CmsResourceTypeXmlPage.isXmlPage(file)) {
+            return CmsXmlPageFactory.unmarshal(cms, file);
+        }
+        return CmsXmlContentFactory.unmarshal(cms, file);
+    }
+
+    /**
+     * Returns the shared executor for unmarshalling the contents in parallel.<p>
+     * 
+     * @return the shared executor, or <code>null</code> if the contents are unmarshalled sequentially
+     */
+    private static synchronized ExecutorService getExecutor() {
+
+        return m_executor;
+    }
+
+    /**
+     * Logs an error which occurred while unmarshalling a prefetched file.<p>
+     * 
+     * @param file the file which could not be unmarshalled
+     * @param t the error 
+     */
+    private void logUnmarshalError(CmsFile file, Throwable t) {
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_PREFETCH_UNMARSHAL_FAILED_1, file.getRootPath()), t);
+        }
+    }
+
+    /**
+     * Unmarshals the XML contents of the given files in parallel.<p>
+     * 
+     * Every thread uses its own copy of the OpenCms context of the current user.<p>
+     * 
+     * @param files the files to unmarshal
+     * @param executor the executor to use
+     */
+    private void unmarshalParallel(List<CmsFile> files, ExecutorService executor) {
+
+        List<Future<I_CmsXmlDocument>> futures = new ArrayList<Future<I_CmsXmlDocument>>(files.size());
+        try {
+            for (final CmsFile file : files) {
+                futures.add(executor.submit(new Callable<I_CmsXmlDocument>() {
+
+                    public I_CmsXmlDocument call() throws CmsException {
+
+                        return unmarshal(OpenCms.initCmsObject(m_cms), file);
+                    }
+                }));
+            }
+        } catch (RejectedExecutionException e) {
+            // the system is shutting down, the contents will be read one by one
+            for (Future<I_CmsXmlDocument> future : futures) {
+                future.cancel(true);
+            }
+            return;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            CmsFile file = files.get(i);
+            try {
+                m_contents.put(file.getStructureId(), futures.get(i).get());
+            } catch (ExecutionException e) {
+                logUnmarshalError(file, e.getCause());
+            } catch (InterruptedException e) {
+                // the remaining contents will be read one by one
+                for (int j = i; j < futures.size(); j++) {
+                    futures.get(j).cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
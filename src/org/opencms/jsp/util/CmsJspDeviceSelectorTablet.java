@@ -58,6 +58,9 @@ public class CmsJspDeviceSelectorTablet implements I_CmsJspDeviceSelector {
     /** The list of types supported by this device selector implementation. */
     public static final List<String> TYPES = Arrays.asList(new String[] {C_MOBILE, C_DESKTOP});
 
+    /** The cached device types by user agent. */
+    private CmsUserAgentCache m_userAgentCache = new CmsUserAgentCache();
+
     /** The user agent info. */
     private UAgentInfo m_userAgentInfo;
 
@@ -66,13 +69,15 @@ public class CmsJspDeviceSelectorTablet implements I_CmsJspDeviceSelector {
      */
     public String getDeviceType(HttpServletRequest req) {
 
-        m_userAgentInfo = new UAgentInfo(
-            req.getHeader(CmsRequestUtil.HEADER_USER_AGENT),
-            req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
-        if (m_userAgentInfo.detectMobileQuick() || m_userAgentInfo.getIsTierTablet()) {
-            return C_MOBILE;
+        String userAgent = req.getHeader(CmsRequestUtil.HEADER_USER_AGENT);
+        String accept = req.getHeader(CmsRequestUtil.HEADER_ACCEPT);
+        String result = m_userAgentCache.get(userAgent, accept);
+        if (result == null) {
+            m_userAgentInfo = new UAgentInfo(userAgent, accept);
+            result = (m_userAgentInfo.detectMobileQuick() || m_userAgentInfo.getIsTierTablet()) ? C_MOBILE : C_DESKTOP;
+            m_userAgentCache.put(userAgent, accept, result);
         }
-        return C_DESKTOP;
+        return result;
     }
 
     /**
@@ -83,9 +88,22 @@ public class CmsJspDeviceSelectorTablet implements I_CmsJspDeviceSelector {
         return TYPES;
     }
 
+    /**
+     * Returns the cache of the device types detected by this selector.<p>
+     * 
+     * @return the cache of the device types detected by this selector
+     */
+    public CmsUserAgentCache getUserAgentCache() {
+
+        return m_userAgentCache;
+    }
+
     /**
      * Returns the User Agent info.<p>
      * 
+     * Since the device types are cached, this is the information about the last user agent 
+     * that was not found in the cache.<p>
+     * 
      * @return the information about the user agent
      */
     public UAgentInfo getUserAgentInfo() {
@@ -0,0 +1,222 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache for the device types detected by a device selector.<p>
+ * 
+ * The device type is stored by the User-Agent and Accept headers of the request, which are normalized 
+ * to lower case like in {@link UAgentInfo}. Since the number of different user agents is usually small 
+ * compared to the number of requests, most requests can be classified without running the detection.<p>
+ * 
+ * The cache can be used concurrently. If the maximum size is reached, the cache is cleared, 
+ * and the user agents that are still in use are added again. Very long headers are not cached.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsUserAgentCache {
+
+    /** The default maximum number of cached user agents. */
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    /** The maximum length of the cached headers. */
+    public static final int MAX_HEADER_LENGTH = 1024;
+
+    /** The cached device types by the normalized headers. */
+    private final Map<String, String> m_cache;
+
+    /** The number of lookups which found a device type. */
+    private final AtomicLong m_hits;
+
+    /** The maximum number of cached user agents. */
+    private final int m_maxSize;
+
+    /** The number of lookups which did not find a device type. */
+    private final AtomicLong m_misses;
+
+    /**
+     * Creates a new cache with the default maximum size.<p>
+     */
+    public CmsUserAgentCache() {
+
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a new cache.<p>
+     * 
+     * @param maxSize the maximum number of cached user agents
+     */
+    public CmsUserAgentCache(int maxSize) {
+
+        m_maxSize = maxSize;
+        m_cache = new ConcurrentHashMap<String, String>();
+        m_hits = new AtomicLong();
+        m_misses = new AtomicLong();
+    }
+
+    /**
+     * Removes all cached device types and resets the statistics.<p>
+     */
+    public void clear() {
+
+        m_cache.clear();
+        m_hits.set(0);
+        m_misses.set(0);
+    }
+
+    /**
+     * Returns the cached device type for the given headers.<p>
+     * 
+     * @param userAgent the User-Agent header, may be <code>null</code>
+     * @param accept the Accept header, may be <code>null</code>
+     * 
+     * @return the cached device type, or <code>null</code> if the headers are not cached
+     */
+    public String get(String userAgent, String accept) {
+
+        String key = getKey(userAgent, accept);
+        String result = (key != null) ? m_cache.get(key) : null;
+        if (result != null) {
+            m_hits.incrementAndGet();
+        } else {
+            m_misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups which found a device type.<p>
+     * 
+     * @return the number of lookups which found a device type
+     */
+    public long getHits() {
+
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the percentage of lookups which found a device type.<p>
+     * 
+     * @return the percentage of lookups which found a device type, or 0 if there were no lookups
+     */
+    public int getHitRate() {
+
+        long hits = m_hits.get();
+        long lookups = hits + m_misses.get();
+        return (lookups > 0) ? (int)((hits * 100) / lookups) : 0;
+    }
+
+    /**
+     * Returns the maximum number of cached user agents.<p>
+     * 
+     * @return the maximum number of cached user agents
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the number of lookups which did not find a device type.<p>
+     * 
+     * @return the number of lookups which did not find a device type
+     */
+    public long getMisses() {
+
+        return m_misses.get();
+    }
+
+    /**
+     * Returns the number of cached user agents.<p>
+     * 
+     * @return the number of cached user agents
+     */
+    public int getSize() {
+
+        return m_cache.size();
+    }
+
+    /**
+     * Caches the device type for the given headers.<p>
+     * 
+     * @param userAgent the User-Agent header, may be <code>null</code>
+     * @param accept the Accept header, may be <code>null</code>
+     * @param deviceType the detected device type
+     */
+    public void put(String userAgent, String accept, String deviceType) {
+
+        String key = getKey(userAgent, accept);
+        if (key == null) {
+            return;
+        }
+        if (m_cache.size() >= m_maxSize) {
+            m_cache.clear();
+        }
+        m_cache.put(key, deviceType);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return "[size=" + getSize() + ", hits=" + getHits() + ", misses=" + getMisses() + "]";
+    }
+
+    /**
+     * Returns the cache key for the given headers.<p>
+     * 
+     * @param userAgent the User-Agent header, may be <code>null</code>
+     * @param accept the Accept header, may be <code>null</code>
+     * 
+     * @return the cache key, or <code>null</code> if the headers are too long to be cached
+     */
+    private static String getKey(String userAgent, String accept) {
+
+        int length = ((userAgent != null) ? userAgent.length() : 0) + ((accept != null) ? accept.length() : 0);
+        if (length > MAX_HEADER_LENGTH) {
+            return null;
+        }
+        StringBuffer result = new StringBuffer(length + 1);
+        if (userAgent != null) {
+            result.append(userAgent.trim().toLowerCase());
+        }
+        result.append('\n');
+        if (accept != null) {
+            result.append(accept.trim().toLowerCase());
+        }
+        return result.toString();
+    }
+}
@@ -58,6 +58,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String GUI_REASON_0 = "GUI_REASON_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PREFETCH_CONTENTS_FAILED_1 = "LOG_PREFETCH_CONTENTS_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_PREFETCH_UNMARSHAL_FAILED_1 = "LOG_PREFETCH_UNMARSHAL_FAILED_1";
+
     /** Name of the used resource bundle. */
     private static final String BUNDLE_NAME = "org.opencms.jsp.util.messages";
 
@@ -0,0 +1,287 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and queue metrics of an event listener registered with the {@link CmsEventManager}.<p>
+ * 
+ * For asynchronous listeners, the waiting time of the events in the queue of the listener
+ * is recorded in addition to the processing time.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsEventListenerMetrics {
+
+    /** Indicates if the listener is called asynchronously. */
+    private final boolean m_async;
+
+    /** The number of events merged into an already queued event. */
+    private final AtomicLong m_coalescedCount = new AtomicLong();
+
+    /** The number of delivered events. */
+    private final AtomicLong m_eventCount = new AtomicLong();
+
+    /** The number of events for which the listener threw an exception. */
+    private final AtomicLong m_failedCount = new AtomicLong();
+
+    /** The name of the listener. */
+    private final String m_listenerName;
+
+    /** The maximum processing time of an event in nanoseconds. */
+    private final AtomicLong m_maxTime = new AtomicLong();
+
+    /** The maximum waiting time of an event in the queue in nanoseconds. */
+    private final AtomicLong m_maxWaitTime = new AtomicLong();
+
+    /** The number of events queued although the queue was full. */
+    private final AtomicLong m_overflowCount = new AtomicLong();
+
+    /** The current number of queued events. */
+    private final AtomicInteger m_queueSize = new AtomicInteger();
+
+    /** The total processing time of all events in nanoseconds. */
+    private final AtomicLong m_totalTime = new AtomicLong();
+
+    /** The total waiting time of all events in the queue in nanoseconds. */
+    private final AtomicLong m_totalWaitTime = new AtomicLong();
+
+    /**
+     * Creates new metrics for the given listener.<p>
+     * 
+     * @param listener the listener
+     * @param async <code>true</code> if the listener is called asynchronously
+     */
+    public CmsEventListenerMetrics(I_CmsEventListener listener, boolean async) {
+
+        m_listenerName = listener.getClass().getName();
+        m_async = async;
+    }
+
+    /**
+     * Returns the average processing time of an event in milliseconds.<p>
+     * 
+     * @return the average processing time of an event
+     */
+    public double getAverageTime() {
+
+        long count = m_eventCount.get();
+        return (count == 0) ? 0 : (m_totalTime.get() / (count * 1000000.0));
+    }
+
+    /**
+     * Returns the average waiting time of an event in the queue in milliseconds.<p>
+     * 
+     * @return the average waiting time of an event in the queue
+     */
+    public double getAverageWaitTime() {
+
+        long count = m_eventCount.get();
+        return (count == 0) ? 0 : (m_totalWaitTime.get() / (count * 1000000.0));
+    }
+
+    /**
+     * Returns the number of events merged into an already queued event.<p>
+     * 
+     * @return the number of coalesced events
+     */
+    public long getCoalescedCount() {
+
+        return m_coalescedCount.get();
+    }
+
+    /**
+     * Returns the number of events delivered to the listener.<p>
+     * 
+     * @return the number of delivered events
+     */
+    public long getEventCount() {
+
+        return m_eventCount.get();
+    }
+
+    /**
+     * Returns the number of events for which the listener threw an exception.<p>
+     * 
+     * @return the number of failed events
+     */
+    public long getFailedCount() {
+
+        return m_failedCount.get();
+    }
+
+    /**
+     * Returns the class name of the listener.<p>
+     * 
+     * @return the class name of the listener
+     */
+    public String getListenerName() {
+
+        return m_listenerName;
+    }
+
+    /**
+     * Returns the maximum processing time of an event in milliseconds.<p>
+     * 
+     * @return the maximum processing time of an event
+     */
+    public double getMaxTime() {
+
+        return m_maxTime.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the maximum waiting time of an event in the queue in milliseconds.<p>
+     * 
+     * @return the maximum waiting time of an event in the queue
+     */
+    public double getMaxWaitTime() {
+
+        return m_maxWaitTime.get() / 1000000.0;
+    }
+
+    /**
+     * Returns the number of events queued although the queue of the listener was full.<p>
+     * 
+     * This happens if the queue did not accept the event within the back pressure timeout,
+     * or if the event was fired while processing an event of the same listener.<p>
+     * 
+     * @return the number of events queued although the queue was full
+     */
+    public long getOverflowCount() {
+
+        return m_overflowCount.get();
+    }
+
+    /**
+     * Returns the current number of queued events.<p>
+     * 
+     * @return the current number of queued events
+     */
+    public int getQueueSize() {
+
+        return m_queueSize.get();
+    }
+
+    /**
+     * Returns if the listener is called asynchronously.<p>
+     * 
+     * @return <code>true</code> if the listener is called asynchronously
+     */
+    public boolean isAsync() {
+
+        return m_async;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(128);
+        result.append(m_listenerName);
+        result.append(m_async ? " [async]" : " [sync]");
+        result.append(" events: ").append(getEventCount());
+        result.append(", avg: ").append(getAverageTime()).append(" ms");
+        result.append(", max: ").append(getMaxTime()).append(" ms");
+        if (m_async) {
+            result.append(", avg wait: ").append(getAverageWaitTime()).append(" ms");
+            result.append(", max wait: ").append(getMaxWaitTime()).append(" ms");
+            result.append(", queued: ").append(getQueueSize());
+            result.append(", coalesced: ").append(getCoalescedCount());
+            result.append(", overflow: ").append(getOverflowCount());
+        }
+        result.append(", failed: ").append(getFailedCount());
+        return result.toString();
+    }
+
+    /**
+     * Records an event merged into an already queued event.<p>
+     */
+    protected void addCoalesced() {
+
+        m_coalescedCount.incrementAndGet();
+    }
+
+    /**
+     * Records a delivered event.<p>
+     * 
+     * @param waitTime the waiting time of the event in the queue in nanoseconds
+     * @param time the processing time of the event in nanoseconds
+     * @param failed <code>true</code> if the listener threw an exception
+     */
+    protected void addEvent(long waitTime, long time, boolean failed) {
+
+        m_eventCount.incrementAndGet();
+        m_totalTime.addAndGet(time);
+        updateMax(m_maxTime, time);
+        if (waitTime > 0) {
+            m_totalWaitTime.addAndGet(waitTime);
+            updateMax(m_maxWaitTime, waitTime);
+        }
+        if (failed) {
+            m_failedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records an event queued although the queue was full.<p>
+     */
+    protected void addOverflow() {
+
+        m_overflowCount.incrementAndGet();
+    }
+
+    /**
+     * Sets the current number of queued events.<p>
+     * 
+     * @param size the current number of queued events
+     */
+    protected void setQueueSize(int size) {
+
+        m_queueSize.set(size);
+    }
+
+    /**
+     * Updates the maximum value with the given value.<p>
+     * 
+     * @param max the maximum value
+     * @param value the value
+     */
+    private static void updateMax(AtomicLong max, long value) {
+
+        long current = max.get();
+        while ((value > current) && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+}
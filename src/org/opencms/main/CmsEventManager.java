@@ -27,11 +27,25 @@
 
 package org.opencms.main;
 
+import org.opencms.file.CmsResource;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 
@@ -44,6 +58,15 @@ import org.apache.commons.logging.Log;
  * Events can be used in OpenCms to notify custom event listeners that certain system events have happened.
  * Event listeners have to implement the interface {@link org.opencms.main.I_CmsEventListener}.<p>
  * 
+ * If asynchronous event dispatch is enabled, listeners implementing {@link I_CmsAsyncEventListener} 
+ * are called in background threads after all synchronous listeners have been called. Every asynchronous listener
+ * has its own queue, so it gets the events in the order they were fired, and all queues share one thread pool.
+ * If the queue of a listener is full, the firing thread waits until the listener has caught up (back pressure).
+ * Repeated modification events for the same resource which are still queued are merged into one event.<p>
+ * 
+ * The number of events and the processing times are recorded for every listener, 
+ * see {@link #getListenerMetrics()}.<p>
+ * 
  * @since 7.0.0
  * 
  * @see org.opencms.main.CmsEvent
@@ -51,21 +74,277 @@ import org.apache.commons.logging.Log;
  */
 public class CmsEventManager {
 
+    /**
+     * The queue of the events for an asynchronous listener.<p>
+     */
+    private final class CmsEventQueue implements Runnable {
+
+        /** The queued events which may be merged with later events, by coalescing key. */
+        private final Map<String, CmsQueuedEvent> m_coalescable = new HashMap<String, CmsQueuedEvent>();
+
+        /** The queued events. */
+        private final LinkedList<CmsQueuedEvent> m_events = new LinkedList<CmsQueuedEvent>();
+
+        /** The listener. */
+        private final I_CmsEventListener m_listener;
+
+        /** The metrics of the listener. */
+        private final CmsEventListenerMetrics m_metrics;
+
+        /** Indicates if the queue is scheduled for processing. */
+        private boolean m_scheduled;
+
+        /** The thread currently processing an event of this queue. */
+        private Thread m_thread;
+
+        /**
+         * Creates a new event queue.<p>
+         * 
+         * @param listener the listener
+         * @param metrics the metrics of the listener
+         */
+        protected CmsEventQueue(I_CmsEventListener listener, CmsEventListenerMetrics metrics) {
+
+            m_listener = listener;
+            m_metrics = metrics;
+        }
+
+        /**
+         * Processes the queued events.<p>
+         * 
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            int count = 0;
+            while (true) {
+                CmsQueuedEvent queued;
+                synchronized (this) {
+                    if (m_events.isEmpty()) {
+                        m_scheduled = false;
+                        m_thread = null;
+                        return;
+                    }
+                    if ((count >= MAX_EVENTS_PER_RUN) && (m_executor != null)) {
+                        // give the thread to the other queues
+                        m_thread = null;
+                        break;
+                    }
+                    queued = m_events.removeFirst();
+                    if (queued.m_key != null) {
+                        m_coalescable.remove(queued.m_key);
+                    }
+                    m_metrics.setQueueSize(m_events.size());
+                    m_thread = Thread.currentThread();
+                    notifyAll();
+                }
+                try {
+                    dispatch(m_listener, queued.m_event, m_metrics, System.nanoTime() - queued.m_time);
+                } catch (Throwable t) {
+                    LOG.error(Messages.get().getBundle().key(
+                        Messages.LOG_ASYNC_EVENT_LISTENER_FAILED_2,
+                        m_listener.getClass().getName(),
+                        queued.m_event.toString()), t);
+                }
+                count++;
+            }
+            schedule();
+        }
+
+        /**
+         * Adds an event to the queue.<p>
+         * 
+         * If the queue is full, waits until the listener has processed some events,
+         * but at most for {@link CmsEventManager#BACK_PRESSURE_TIMEOUT} milliseconds.<p>
+         * 
+         * @param event the event to add
+         */
+        protected void add(CmsEvent event) {
+
+            String key = getCoalescingKey(event);
+            synchronized (this) {
+                if (key != null) {
+                    CmsQueuedEvent queued = m_coalescable.get(key);
+                    if (queued != null) {
+                        queued.m_event = coalesce(queued.m_event, event);
+                        m_metrics.addCoalesced();
+                        return;
+                    }
+                }
+                if ((m_events.size() >= m_asyncQueueSize) && (Thread.currentThread() != m_thread)) {
+                    // back pressure: wait until the listener has caught up
+                    long end = System.currentTimeMillis() + BACK_PRESSURE_TIMEOUT;
+                    long wait = BACK_PRESSURE_TIMEOUT;
+                    while ((m_events.size() >= m_asyncQueueSize) && (wait > 0)) {
+                        try {
+                            wait(wait);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        wait = end - System.currentTimeMillis();
+                    }
+                }
+                if (m_events.size() >= m_asyncQueueSize) {
+                    // the listener did not catch up in time, or the event was fired by the listener itself
+                    m_metrics.addOverflow();
+                    if (LOG.isWarnEnabled()) {
+                        LOG.warn(Messages.get().getBundle().key(
+                            Messages.LOG_ASYNC_EVENT_QUEUE_FULL_2,
+                            m_listener.getClass().getName(),
+                            event.toString()));
+                    }
+                }
+                CmsQueuedEvent queued = new CmsQueuedEvent(event, key);
+                m_events.add(queued);
+                if (key != null) {
+                    m_coalescable.put(key, queued);
+                }
+                m_metrics.setQueueSize(m_events.size());
+                if (m_scheduled) {
+                    return;
+                }
+                m_scheduled = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Schedules the processing of the queued events.<p>
+         * 
+         * If the thread pool has been shut down, the events are processed in the current thread.<p> 
+         */
+        private void schedule() {
+
+            ExecutorService executor = m_executor;
+            if (executor != null) {
+                try {
+                    executor.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the thread pool has been shut down
+                }
+            }
+            run();
+        }
+    }
+
+    /**
+     * An event in the queue of an asynchronous listener.<p>
+     */
+    private static final class CmsQueuedEvent {
+
+        /** The event. */
+        protected CmsEvent m_event;
+
+        /** The coalescing key of the event, <code>null</code> if the event can not be merged. */
+        protected final String m_key;
+
+        /** The time the event was queued in nanoseconds. */
+        protected final long m_time;
+
+        /**
+         * Creates a new queued event.<p>
+         * 
+         * @param event the event
+         * @param key the coalescing key of the event
+         */
+        protected CmsQueuedEvent(CmsEvent event, String key) {
+
+            m_event = event;
+            m_key = key;
+            m_time = System.nanoTime();
+        }
+    }
+
+    /** The maximum time in milliseconds a firing thread waits if the queue of an asynchronous listener is full. */
+    public static final long BACK_PRESSURE_TIMEOUT = 10000;
+
+    /** The default maximum number of queued events per asynchronous listener. */
+    public static final int DEFAULT_ASYNC_QUEUE_SIZE = 1000;
+
+    /** The maximum time in milliseconds to wait for the asynchronous listeners on shutdown. */
+    public static final long SHUTDOWN_TIMEOUT = 30000;
+
     /** Required as template for event list generation. */
     protected static final I_CmsEventListener[] EVENT_LIST = new I_CmsEventListener[0];
 
+    /** The types of the events which are merged if they are still queued for an asynchronous listener. */
+    private static final Set<Integer> COALESCED_EVENT_TYPES = new HashSet<Integer>(Arrays.asList(new Integer[] {
+        Integer.valueOf(I_CmsEventListener.EVENT_RESOURCE_MODIFIED),
+        Integer.valueOf(I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED),
+        Integer.valueOf(I_CmsEventListener.EVENT_PROPERTY_MODIFIED)}));
+
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsEventManager.class);
 
+    /** The maximum number of events processed for one asynchronous listener before the thread is released. */
+    private static final int MAX_EVENTS_PER_RUN = 100;
+
+    /** The maximum number of queued events per asynchronous listener. */
+    private int m_asyncQueueSize = DEFAULT_ASYNC_QUEUE_SIZE;
+
+    /** The number of threads for the asynchronous listeners, 0 if asynchronous event dispatch is disabled. */
+    private int m_asyncThreads;
+
     /** Stores the active event listeners. */
     private Map<Integer, List<I_CmsEventListener>> m_eventListeners;
 
+    /** The thread pool for the asynchronous listeners, <code>null</code> if not started or shut down. */
+    private volatile ExecutorService m_executor;
+
+    /** The metrics of the listeners. */
+    private final ConcurrentMap<I_CmsEventListener, CmsEventListenerMetrics> m_metrics;
+
+    /** The event queues of the asynchronous listeners. */
+    private final ConcurrentMap<I_CmsEventListener, CmsEventQueue> m_queues;
+
+    /** Indicates if this event manager has been shut down. */
+    private volatile boolean m_shutDown;
+
     /**
      * Create a new instance of an OpenCms event manager.<p>
      */
     public CmsEventManager() {
 
         m_eventListeners = new HashMap<Integer, List<I_CmsEventListener>>();
+        m_metrics = new ConcurrentHashMap<I_CmsEventListener, CmsEventListenerMetrics>();
+        m_queues = new ConcurrentHashMap<I_CmsEventListener, CmsEventQueue>();
+    }
+
+    /**
+     * Returns the key for merging the given event with other queued events of the same listener.<p>
+     * 
+     * Only modification events for a single resource are merged, 
+     * if the events do not contain other data than the resource and the change flags.<p>
+     * 
+     * @param event the event
+     * 
+     * @return the coalescing key, or <code>null</code> if the event can not be merged
+     */
+    protected static String getCoalescingKey(CmsEvent event) {
+
+        if (!COALESCED_EVENT_TYPES.contains(event.getTypeInteger())) {
+            return null;
+        }
+        Map<String, Object> data = event.getData();
+        if ((data == null) || !(data.get(I_CmsEventListener.KEY_RESOURCE) instanceof CmsResource)) {
+            return null;
+        }
+        for (String key : data.keySet()) {
+            if (!I_CmsEventListener.KEY_RESOURCE.equals(key) && !I_CmsEventListener.KEY_CHANGE.equals(key)) {
+                return null;
+            }
+        }
+        CmsResource resource = (CmsResource)data.get(I_CmsEventListener.KEY_RESOURCE);
+        Object change = data.get(I_CmsEventListener.KEY_CHANGE);
+        if ((change != null) && !(change instanceof Integer)) {
+            return null;
+        }
+        StringBuffer key = new StringBuffer(128);
+        key.append(event.getType()).append(change != null ? ":c:" : ":-:");
+        key.append(resource.getStructureId()).append(':').append(resource.getRootPath());
+        return key.toString();
     }
 
     /**
@@ -139,6 +418,46 @@ public class CmsEventManager {
         fireEvent(new CmsEvent(type, data));
     }
 
+    /**
+     * Returns the maximum number of queued events per asynchronous listener.<p>
+     * 
+     * @return the maximum number of queued events per asynchronous listener
+     */
+    public int getAsyncQueueSize() {
+
+        return m_asyncQueueSize;
+    }
+
+    /**
+     * Returns the number of threads for the asynchronous listeners.<p>
+     * 
+     * @return the number of threads for the asynchronous listeners, 0 if asynchronous event dispatch is disabled
+     */
+    public int getAsyncThreads() {
+
+        return m_asyncThreads;
+    }
+
+    /**
+     * Returns the metrics of all listeners which have received events.<p>
+     * 
+     * @return the metrics of all listeners which have received events
+     */
+    public List<CmsEventListenerMetrics> getListenerMetrics() {
+
+        return new ArrayList<CmsEventListenerMetrics>(m_metrics.values());
+    }
+
+    /**
+     * Returns if asynchronous event dispatch is enabled.<p>
+     * 
+     * @return <code>true</code> if asynchronous event dispatch is enabled
+     */
+    public boolean isAsyncDispatch() {
+
+        return (m_asyncThreads > 0) && !m_shutDown;
+    }
+
     /**
      * Removes a cms event listener.<p>
      *
@@ -153,6 +472,64 @@ public class CmsEventManager {
                 listeners.remove(listener);
             }
         }
+        // already queued events are still delivered
+        m_queues.remove(listener);
+        m_metrics.remove(listener);
+    }
+
+    /**
+     * Enables or disables asynchronous event dispatch.<p>
+     * 
+     * @param threads the number of threads for the asynchronous listeners, 0 to disable asynchronous event dispatch
+     * @param queueSize the maximum number of queued events per asynchronous listener
+     * 
+     * @see I_CmsAsyncEventListener
+     */
+    public synchronized void setAsyncDispatch(int threads, int queueSize) {
+
+        if (m_executor != null) {
+            // the thread pool has already been started, the settings can not be changed anymore
+            return;
+        }
+        m_asyncThreads = Math.max(0, threads);
+        m_asyncQueueSize = (queueSize > 0) ? queueSize : DEFAULT_ASYNC_QUEUE_SIZE;
+    }
+
+    /**
+     * Shuts down the asynchronous event dispatch, waiting until the queued events have been processed.<p>
+     * 
+     * Events fired after the shutdown are delivered to all listeners synchronously.<p>
+     */
+    public void shutDown() {
+
+        ExecutorService executor;
+        synchronized (this) {
+            m_shutDown = true;
+            executor = m_executor;
+        }
+        if (executor == null) {
+            return;
+        }
+        try {
+            // wait for the queued events
+            long end = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+            for (CmsEventQueue queue : m_queues.values()) {
+                synchronized (queue) {
+                    long wait = end - System.currentTimeMillis();
+                    while (queue.m_scheduled && (wait > 0)) {
+                        queue.wait(Math.min(wait, 100));
+                        wait = end - System.currentTimeMillis();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        m_executor = null;
+        executor.shutdown();
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_EVENT_MANAGER_SHUTDOWN_0));
+        }
     }
 
     /**
@@ -188,10 +565,23 @@ public class CmsEventManager {
             if ((listeners != null) && (listeners.size() > 0)) {
                 // handle all event listeners that listen to this event type
                 I_CmsEventListener[] list = listeners.toArray(EVENT_LIST);
+                boolean async = false;
                 // loop through all registered event listeners
                 for (int i = 0; i < list.length; i++) {
-                    // fire the event
-                    list[i].cmsEvent(event);
+                    if (isAsync(list[i])) {
+                        async = true;
+                    } else {
+                        // fire the event
+                        dispatch(list[i], event, getMetrics(list[i], false), 0);
+                    }
+                }
+                if (async) {
+                    // queue the event for the asynchronous listeners after all synchronous listeners are done
+                    for (int i = 0; i < list.length; i++) {
+                        if (isAsync(list[i])) {
+                            getQueue(list[i]).add(event);
+                        }
+                    }
                 }
             }
         } else {
@@ -226,23 +616,150 @@ public class CmsEventManager {
                 }
                 // loop through all registered event listeners
                 for (int i = 0; i < list.length; i++) {
+                    if (isAsync(list[i])) {
+                        continue;
+                    }
                     LOG.debug(Messages.get().getBundle().key(
                         Messages.LOG_DEBUG_EVENT_START_LISTENER_3,
                         list[i],
                         new Integer(i),
                         event.toString()));
                     // fire the event
-                    list[i].cmsEvent(event);
+                    dispatch(list[i], event, getMetrics(list[i], false), 0);
                     LOG.debug(Messages.get().getBundle().key(
                         Messages.LOG_DEBUG_EVENT_END_LISTENER_3,
                         list[i],
                         new Integer(i),
                         event.toString()));
                 }
+                // queue the event for the asynchronous listeners after all synchronous listeners are done
+                for (int i = 0; i < list.length; i++) {
+                    if (isAsync(list[i])) {
+                        LOG.debug(Messages.get().getBundle().key(
+                            Messages.LOG_DEBUG_EVENT_QUEUE_LISTENER_3,
+                            list[i],
+                            new Integer(i),
+                            event.toString()));
+                        getQueue(list[i]).add(event);
+                    }
+                }
             } else {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_EVENT_NO_LISTENER_1, event.toString()));
             }
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_DEBUG_EVENT_COMPLETE_1, event.toString()));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Merges a queued event with a later event with the same coalescing key.<p>
+     * 
+     * The merged event contains the resource of the later event and the change flags of both events.<p>
+     * 
+     * @param queued the queued event
+     * @param event the later event
+     * 
+     * @return the merged event
+     */
+    private static CmsEvent coalesce(CmsEvent queued, CmsEvent event) {
+
+        Map<String, Object> data = new HashMap<String, Object>(event.getData());
+        Object queuedChange = queued.getData().get(I_CmsEventListener.KEY_CHANGE);
+        Object change = data.get(I_CmsEventListener.KEY_CHANGE);
+        if ((queuedChange instanceof Integer) && (change instanceof Integer)) {
+            int flags = ((Integer)queuedChange).intValue() | ((Integer)change).intValue();
+            data.put(I_CmsEventListener.KEY_CHANGE, Integer.valueOf(flags));
+        }
+        return new CmsEvent(event.getType(), data);
+    }
+
+    /**
+     * Delivers an event to a listener and records the processing time.<p>
+     * 
+     * @param listener the listener
+     * @param event the event
+     * @param metrics the metrics of the listener
+     * @param waitTime the waiting time of the event in the queue in nanoseconds
+     */
+    private void dispatch(I_CmsEventListener listener, CmsEvent event, CmsEventListenerMetrics metrics, long waitTime) {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            listener.cmsEvent(event);
+            failed = false;
+        } finally {
+            metrics.addEvent(waitTime, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Returns the metrics of the given listener, creating them if required.<p>
+     * 
+     * @param listener the listener
+     * @param async <code>true</code> if the listener is called asynchronously
+     * 
+     * @return the metrics of the given listener
+     */
+    private CmsEventListenerMetrics getMetrics(I_CmsEventListener listener, boolean async) {
+
+        CmsEventListenerMetrics metrics = m_metrics.get(listener);
+        if (metrics == null) {
+            metrics = new CmsEventListenerMetrics(listener, async);
+            CmsEventListenerMetrics existing = m_metrics.putIfAbsent(listener, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the event queue of the given asynchronous listener, creating it if required.<p>
+     * 
+     * The thread pool is started when the first queue is created.<p>
+     * 
+     * @param listener the listener
+     * 
+     * @return the event queue of the given listener
+     */
+    private CmsEventQueue getQueue(I_CmsEventListener listener) {
+
+        CmsEventQueue queue = m_queues.get(listener);
+        if (queue == null) {
+            synchronized (this) {
+                queue = m_queues.get(listener);
+                if (queue == null) {
+                    if ((m_executor == null) && !m_shutDown) {
+                        m_executor = Executors.newFixedThreadPool(m_asyncThreads, new ThreadFactory() {
+
+                            /** The number of created threads. */
+                            private final AtomicInteger m_count = new AtomicInteger();
+
+                            public Thread newThread(Runnable r) {
+
+                                Thread thread = new Thread(r, "OpenCms: event dispatch " + m_count.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                    }
+                    queue = new CmsEventQueue(listener, getMetrics(listener, true));
+                    m_queues.put(listener, queue);
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Checks if the given listener is called asynchronously.<p>
+     * 
+     * @param listener the listener
+     * 
+     * @return <code>true</code> if the given listener is called asynchronously
+     */
+    private boolean isAsync(I_CmsEventListener listener) {
+
+        return (listener instanceof I_CmsAsyncEventListener) && isAsyncDispatch();
+    }
+}
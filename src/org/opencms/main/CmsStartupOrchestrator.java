@@ -0,0 +1,467 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Runs the initialization steps of the OpenCms managers.<p>
+ *
+ * Every step declares the steps it depends on, which must have been added before. Steps are started
+ * as soon as all their dependencies have finished, so independent steps run concurrently if more than
+ * one thread is configured. With a single thread, the steps run in the order they have been added.<p>
+ *
+ * Background steps are run one after another in a separate thread after the other steps have finished,
+ * so the managers initialized by them warm up while OpenCms already accepts requests. Code that needs
+ * such a manager must call {@link #waitFor(String)} before using it.<p>
+ *
+ * The finish time and the duration of every step are written to the startup log.<p>
+ *
+ * @since 8.5.2
+ */
+public class CmsStartupOrchestrator {
+
+    /**
+     * An initialization step.<p>
+     */
+    private static class Step {
+
+        /** Indicates if this is a background step. */
+        final boolean m_background;
+
+        /** The names of the steps this step depends on. */
+        final String[] m_dependencies;
+
+        /** Released when the step has finished. */
+        final CountDownLatch m_done = new CountDownLatch(1);
+
+        /** The finish time relative to the start of the startup. */
+        volatile long m_end;
+
+        /** The error of the step, <code>null</code> if the step was successful. */
+        volatile Throwable m_error;
+
+        /** The name of the step. */
+        final String m_name;
+
+        /** The start time relative to the start of the startup. */
+        volatile long m_start;
+
+        /** The task to run. */
+        final Callable<?> m_task;
+
+        /** The name of the thread which ran the step. */
+        volatile String m_thread;
+
+        /**
+         * Creates a new step.<p>
+         *
+         * @param name the name of the step
+         * @param dependencies the names of the steps this step depends on
+         * @param task the task to run
+         * @param background if this is a background step
+         */
+        Step(String name, String[] dependencies, Callable<?> task, boolean background) {
+
+            m_name = name;
+            m_dependencies = (dependencies != null) ? dependencies : new String[0];
+            m_task = task;
+            m_background = background;
+        }
+
+        /**
+         * Checks if the step has finished.<p>
+         *
+         * @return <code>true</code> if the step has finished
+         */
+        boolean isFinished() {
+
+            return m_done.getCount() == 0;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsStartupOrchestrator.class);
+
+    /** The thread running the background steps. */
+    private volatile Thread m_backgroundThread;
+
+    /** Indicates that all steps, including the background steps, have finished. */
+    private volatile boolean m_finished;
+
+    /** The start time of the startup. */
+    private final long m_startTime;
+
+    /** The steps by name, in the order they have been added. */
+    private final Map<String, Step> m_steps;
+
+    /** The number of threads for running the steps. */
+    private final int m_threads;
+
+    /**
+     * Creates a new startup orchestrator.<p>
+     *
+     * @param threads the number of threads for running the steps which are not background steps
+     */
+    public CmsStartupOrchestrator(int threads) {
+
+        m_threads = Math.max(1, threads);
+        m_steps = new LinkedHashMap<String, Step>();
+        m_startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds a background step.<p>
+     *
+     * @param name the name of the step
+     * @param dependencies the names of the steps this step depends on, must have been added before
+     * @param task the task to run
+     */
+    public void addBackgroundStep(String name, String[] dependencies, Callable<?> task) {
+
+        addStep(new Step(name, dependencies, task, true));
+    }
+
+    /**
+     * Adds a step.<p>
+     *
+     * @param name the name of the step
+     * @param dependencies the names of the steps this step depends on, must have been added before
+     *      and must not be background steps
+     * @param task the task to run
+     */
+    public void addStep(String name, String[] dependencies, Callable<?> task) {
+
+        addStep(new Step(name, dependencies, task, false));
+    }
+
+    /**
+     * Returns the number of threads for running the steps.<p>
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+
+        return m_threads;
+    }
+
+    /**
+     * Checks if all steps, including the background steps, have finished.<p>
+     *
+     * @return <code>true</code> if all steps have finished
+     */
+    public boolean isFinished() {
+
+        return m_finished;
+    }
+
+    /**
+     * Checks if the given step has finished.<p>
+     *
+     * @param name the name of the step
+     *
+     * @return <code>true</code> if the step has finished, or if there is no step with the given name
+     */
+    public boolean isFinished(String name) {
+
+        Step step = m_steps.get(name);
+        return (step == null) || step.isFinished();
+    }
+
+    /**
+     * Runs all steps which are not background steps and waits until they have finished.<p>
+     *
+     * If a step fails, no further steps are started and the error of the step is thrown
+     * after the running steps have finished.<p>
+     *
+     * @throws CmsException if a step failed with a {@link CmsException}
+     */
+    public void run() throws CmsException {
+
+        List<Step> pending = new ArrayList<Step>();
+        for (Step step : m_steps.values()) {
+            if (!step.m_background) {
+                pending.add(step);
+            }
+        }
+        Step failed = null;
+        if (m_threads == 1) {
+            for (Step step : pending) {
+                execute(step);
+                if (step.m_error != null) {
+                    failed = step;
+                    break;
+                }
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(m_threads, new ThreadFactory() {
+
+                private AtomicInteger m_count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: startup " + m_count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            CompletionService<Step> completion = new ExecutorCompletionService<Step>(executor);
+            int running = 0;
+            try {
+                while ((failed == null) && (!pending.isEmpty() || (running > 0))) {
+                    Iterator<Step> it = pending.iterator();
+                    while (it.hasNext()) {
+                        final Step step = it.next();
+                        if (isReady(step)) {
+                            it.remove();
+                            completion.submit(new Callable<Step>() {
+
+                                public Step call() {
+
+                                    execute(step);
+                                    return step;
+                                }
+                            });
+                            running++;
+                        }
+                    }
+                    Step finished = completion.take().get();
+                    running--;
+                    if (finished.m_error != null) {
+                        failed = finished;
+                    }
+                }
+            } catch (Exception e) {
+                // the steps catch all errors, so this can only be an interrupt
+                throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
+            } finally {
+                executor.shutdown();
+                try {
+                    // let the running steps finish before reporting an error
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        if (failed != null) {
+            throwError(failed);
+        }
+        if (!hasBackgroundSteps()) {
+            m_finished = true;
+        }
+    }
+
+    /**
+     * Starts a thread which runs the background steps one after another.<p>
+     *
+     * Must be called after {@link #run()}.<p>
+     */
+    public synchronized void startBackgroundSteps() {
+
+        if ((m_backgroundThread != null) || m_finished) {
+            return;
+        }
+        final List<Step> steps = new ArrayList<Step>();
+        for (Step step : m_steps.values()) {
+            if (step.m_background) {
+                steps.add(step);
+            }
+        }
+        m_backgroundThread = new Thread(new Runnable() {
+
+            public void run() {
+
+                for (Step step : steps) {
+                    if (isReady(step)) {
+                        execute(step);
+                    } else {
+                        // a dependency failed
+                        step.m_error = new CmsInitException(Messages.get().container(
+                            Messages.ERR_STARTUP_STEP_FAILED_1,
+                            step.m_name));
+                        step.m_done.countDown();
+                    }
+                    if ((step.m_error != null) && LOG.isErrorEnabled()) {
+                        LOG.error(
+                            Messages.get().getBundle().key(Messages.LOG_STARTUP_BACKGROUND_STEP_FAILED_1, step.m_name),
+                            step.m_error);
+                    }
+                }
+                m_finished = true;
+            }
+        }, "OpenCms: background startup");
+        m_backgroundThread.setDaemon(true);
+        m_backgroundThread.start();
+    }
+
+    /**
+     * Waits until the given background step has finished.<p>
+     *
+     * Returns immediately for the other steps, since these have finished when {@link #run()} returns,
+     * and if called from the thread running the background steps, so the background steps
+     * may use the managers of the steps that are still running.<p>
+     *
+     * @param name the name of the step
+     *
+     * @return <code>true</code> if the step has finished successfully, or if there is no step with the given name
+     */
+    public boolean waitFor(String name) {
+
+        Step step = m_steps.get(name);
+        if (step == null) {
+            return true;
+        }
+        if (step.m_background && !step.isFinished() && (Thread.currentThread() != m_backgroundThread)) {
+            try {
+                step.m_done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return step.isFinished() && (step.m_error == null);
+    }
+
+    /**
+     * Adds a step after checking its dependencies.<p>
+     *
+     * @param step the step to add
+     */
+    private void addStep(Step step) {
+
+        for (String dependency : step.m_dependencies) {
+            Step dependencyStep = m_steps.get(dependency);
+            if ((dependencyStep == null) || (dependencyStep.m_background && !step.m_background)) {
+                throw new CmsIllegalArgumentException(Messages.get().container(
+                    Messages.ERR_STARTUP_STEP_UNKNOWN_DEPENDENCY_2,
+                    step.m_name,
+                    dependency));
+            }
+        }
+        m_steps.put(step.m_name, step);
+    }
+
+    /**
+     * Runs a step and writes it to the startup log.<p>
+     *
+     * @param step the step to run
+     */
+    private void execute(Step step) {
+
+        step.m_thread = Thread.currentThread().getName();
+        step.m_start = System.currentTimeMillis() - m_startTime;
+        try {
+            step.m_task.call();
+        } catch (Throwable t) {
+            step.m_error = t;
+        } finally {
+            step.m_end = System.currentTimeMillis() - m_startTime;
+            step.m_done.countDown();
+        }
+        if ((step.m_error == null) && CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                step.m_background ? Messages.INIT_STARTUP_BACKGROUND_STEP_4 : Messages.INIT_STARTUP_STEP_4,
+                new Object[] {
+                    step.m_name,
+                    String.valueOf(step.m_end),
+                    String.valueOf(step.m_end - step.m_start),
+                    step.m_thread}));
+        }
+    }
+
+    /**
+     * Checks if there are background steps.<p>
+     *
+     * @return <code>true</code> if there are background steps
+     */
+    private boolean hasBackgroundSteps() {
+
+        for (Step step : m_steps.values()) {
+            if (step.m_background) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if all dependencies of a step have finished successfully.<p>
+     *
+     * @param step the step
+     *
+     * @return <code>true</code> if the step can be started
+     */
+    private boolean isReady(Step step) {
+
+        for (String dependency : step.m_dependencies) {
+            Step dependencyStep = m_steps.get(dependency);
+            if (!dependencyStep.isFinished() || (dependencyStep.m_error != null)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Throws the error of a failed step.<p>
+     *
+     * @param step the failed step
+     *
+     * @throws CmsException if the step failed with a {@link CmsException}
+     */
+    private void throwError(Step step) throws CmsException {
+
+        Throwable error = step.m_error;
+        if (error instanceof CmsException) {
+            throw (CmsException)error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException)error;
+        }
+        if (error instanceof Error) {
+            throw (Error)error;
+        }
+        throw new CmsInitException(Messages.get().container(Messages.ERR_STARTUP_STEP_FAILED_1, step.m_name), error);
+    }
+}
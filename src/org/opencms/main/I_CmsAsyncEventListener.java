@@ -0,0 +1,50 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+/**
+ * Marks an event listener that may be called asynchronously by the {@link CmsEventManager}.<p>
+ * 
+ * Listeners that keep caches consistent with the database must be called synchronously and 
+ * must not implement this interface. Listeners implementing this interface are called in a background
+ * thread if asynchronous event dispatch is enabled, in the order the events were fired. 
+ * Repeated modification events for the same resource which are still queued may be merged into one event,
+ * with the change flags of all merged events.<p>
+ * 
+ * If asynchronous event dispatch is disabled, these listeners are called synchronously like all 
+ * other listeners.<p>
+ * 
+ * @since 8.5.2
+ * 
+ * @see CmsEventManager#setAsyncDispatch(int, int)
+ */
+public interface I_CmsAsyncEventListener extends I_CmsEventListener {
+
+    // marker interface, no additional methods
+}
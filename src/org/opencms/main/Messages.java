@@ -141,6 +141,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_SHOW_ERR_HANDLER_RESOURCE_2 = "ERR_SHOW_ERR_HANDLER_RESOURCE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_STARTUP_STEP_FAILED_1 = "ERR_STARTUP_STEP_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_STARTUP_STEP_UNKNOWN_DEPENDENCY_2 = "ERR_STARTUP_STEP_UNKNOWN_DEPENDENCY_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_UNKNOWN_MODULE_1 = "ERR_UNKNOWN_MODULE_1";
 
@@ -273,6 +279,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ETHERNET_ADDRESS_1 = "INIT_ETHERNET_ADDRESS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_EVENT_MANAGER_SHUTDOWN_0 = "INIT_EVENT_MANAGER_SHUTDOWN_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_FILE_ENCODING_1 = "INIT_FILE_ENCODING_1";
 
@@ -330,9 +339,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SHUTDOWN_TIME_1 = "INIT_SHUTDOWN_TIME_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STARTUP_BACKGROUND_STEP_4 = "INIT_STARTUP_BACKGROUND_STEP_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STARTUP_STEP_4 = "INIT_STARTUP_STEP_4";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_STARTUP_TIME_1 = "INIT_STARTUP_TIME_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_STARTUP_THREADS_2 = "INIT_STARTUP_THREADS_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SYSTEM_RUNNING_1 = "INIT_SYSTEM_RUNNING_1";
 
@@ -342,6 +360,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_WEBINF_PATH_1 = "INIT_WEBINF_PATH_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_LISTENER_FAILED_2 = "LOG_ASYNC_EVENT_LISTENER_FAILED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ASYNC_EVENT_QUEUE_FULL_2 = "LOG_ASYNC_EVENT_QUEUE_FULL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CONSOLE_TOTAL_RUNTIME_1 = "LOG_CONSOLE_TOTAL_RUNTIME_1";
 
@@ -360,6 +384,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEBUG_EVENT_NO_LISTENER_1 = "LOG_DEBUG_EVENT_NO_LISTENER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_DEBUG_EVENT_QUEUE_LISTENER_3 = "LOG_DEBUG_EVENT_QUEUE_LISTENER_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_DEBUG_EVENT_START_LISTENER_3 = "LOG_DEBUG_EVENT_START_LISTENER_3";
 
@@ -375,9 +402,21 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_ADE_MANAGER_SHUTDOWN_1 = "LOG_ERROR_ADE_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_CLUSTER_BUS_SHUTDOWN_1 = "LOG_ERROR_CLUSTER_BUS_SHUTDOWN_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_CLUSTER_BUS_START_1 = "LOG_ERROR_CLUSTER_BUS_START_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_CONTENT_PREFETCH_SHUTDOWN_1 = "LOG_ERROR_CONTENT_PREFETCH_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1 = "LOG_ERROR_DERIGISTERING_JDBC_DRIVER_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1 = "LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_EXPORT_1 = "LOG_ERROR_EXPORT_1";
 
@@ -420,6 +459,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_SITEMAP_MANAGER_SHUTDOWN_1 = "LOG_ERROR_SITEMAP_MANAGER_SHUTDOWN_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_ERROR_SUBSCRIPTION_MANAGER_SHUTDOWN_1 = "LOG_ERROR_SUBSCRIPTION_MANAGER_SHUTDOWN_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERROR_THREAD_SHUTDOWN_1 = "LOG_ERROR_THREAD_SHUTDOWN_1";
 
@@ -465,6 +507,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_STARTUP_CONSOLE_NOTE_2 = "LOG_STARTUP_CONSOLE_NOTE_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_STARTUP_BACKGROUND_STEP_FAILED_1 = "LOG_STARTUP_BACKGROUND_STEP_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_THREADSTORE_CHECK_PUBLISH_THREAD_ERROR_0 = "LOG_THREADSTORE_CHECK_PUBLISH_THREAD_ERROR_0";
 
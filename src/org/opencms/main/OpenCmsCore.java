@@ -28,6 +28,9 @@
 package org.opencms.main;
 
 import org.opencms.ade.configuration.CmsADEManager;
+import org.opencms.ade.galleries.CmsGalleryIndex;
+import org.opencms.cluster.CmsClusterBus;
+import org.opencms.cluster.I_CmsClusterTransport;
 import org.opencms.configuration.CmsConfigurationException;
 import org.opencms.configuration.CmsConfigurationManager;
 import org.opencms.configuration.CmsImportExportConfiguration;
@@ -64,7 +67,9 @@ import org.opencms.i18n.CmsI18nInfo;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.importexport.CmsImportExportManager;
+import org.opencms.jsp.CmsJspNavCache;
 import org.opencms.jsp.util.CmsErrorBean;
+import org.opencms.jsp.util.CmsJspContentPrefetch;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.loader.CmsTemplateContextManager;
 import org.opencms.loader.I_CmsFlexCacheEnabledLoader;
@@ -113,6 +118,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
@@ -154,6 +160,57 @@ public final class OpenCmsCore {
     /** The static log object for this class. */
     private static final Log LOG = CmsLog.getLog(OpenCmsCore.class);
 
+    /** Parameter for the startup steps which are run in the background after the startup. */
+    private static final String PARAM_STARTUP_BACKGROUND = "startup.background";
+
+    /** Parameter for the number of threads used to initialize the managers. */
+    private static final String PARAM_STARTUP_THREADS = "startup.threads";
+
+    /** Name of the startup step which initializes the ADE, formatter, template context and workflow managers. */
+    private static final String STEP_ADE = "ade";
+
+    /** Name of the startup step which initializes the gallery index. */
+    private static final String STEP_GALLERYINDEX = "galleryindex";
+
+    /** Name of the startup step which initializes the locale manager. */
+    private static final String STEP_LOCALE = "locale";
+
+    /** Name of the startup step which initializes the module manager. */
+    private static final String STEP_MODULES = "modules";
+
+    /** Name of the startup step which initializes the navigation cache. */
+    private static final String STEP_NAVCACHE = "navcache";
+
+    /** Name of the startup step which initializes the publish manager. */
+    private static final String STEP_PUBLISH = "publish";
+
+    /** Name of the startup step which initializes the resource manager. */
+    private static final String STEP_RESOURCES = "resources";
+
+    /** Name of the startup step which initializes the scheduler. */
+    private static final String STEP_SCHEDULER = "scheduler";
+
+    /** Name of the startup step which initializes the search manager. */
+    private static final String STEP_SEARCH = "search";
+
+    /** Name of the startup step which initializes the session manager. */
+    private static final String STEP_SESSION = "session";
+
+    /** Name of the startup step which initializes the site manager. */
+    private static final String STEP_SITE = "site";
+
+    /** Name of the startup step which initializes the static export manager. */
+    private static final String STEP_STATICEXPORT = "staticexport";
+
+    /** Name of the startup step which initializes the subscription manager. */
+    private static final String STEP_SUBSCRIPTION = "subscription";
+
+    /** Name of the startup step which initializes the workplace manager. */
+    private static final String STEP_WORKPLACE = "workplace";
+
+    /** Name of the startup step which initializes the XML content type manager. */
+    private static final String STEP_XMLCONTENTTYPES = "xmlcontenttypes";
+
     /** Indicates if the configuration was successfully finished or not. */
     private static CmsMessageContainer m_errorCondition;
 
@@ -169,6 +226,9 @@ public final class OpenCmsCore {
     /** The configured authorization handler. */
     private I_CmsAuthorizationHandler m_authorizationHandler;
 
+    /** The cluster bus, <code>null</code> if no cluster transport is configured. */
+    private CmsClusterBus m_clusterBus;
+
     /** The configuration manager that contains the information from the XML configuration. */
     private CmsConfigurationManager m_configurationManager;
 
@@ -253,6 +313,9 @@ public final class OpenCmsCore {
     /** The site manager contains information about all configured sites. */
     private CmsSiteManagerImpl m_siteManager;
 
+    /** Runs the initialization of the managers. */
+    private CmsStartupOrchestrator m_startupOrchestrator;
+
     /** The static export manager. */
     private CmsStaticExportManager m_staticExportManager;
 
@@ -383,6 +446,9 @@ public final class OpenCmsCore {
      */
     protected CmsADEManager getADEManager() {
 
+        if (m_startupOrchestrator != null) {
+            m_startupOrchestrator.waitFor(STEP_ADE);
+        }
         m_adeManager.initialize();
         return m_adeManager;
     }
@@ -684,6 +750,9 @@ public final class OpenCmsCore {
      */
     protected CmsSearchManager getSearchManager() {
 
+        if (m_startupOrchestrator != null) {
+            m_startupOrchestrator.waitFor(STEP_SEARCH);
+        }
         return m_searchManager;
     }
 
@@ -765,6 +834,9 @@ public final class OpenCmsCore {
      */
     protected CmsTemplateContextManager getTemplateContextManager() {
 
+        if (m_startupOrchestrator != null) {
+            m_startupOrchestrator.waitFor(STEP_ADE);
+        }
         return m_templateContextManager;
 
     }
@@ -796,6 +868,9 @@ public final class OpenCmsCore {
      */
     protected I_CmsWorkflowManager getWorkflowManager() {
 
+        if (m_startupOrchestrator != null) {
+            m_startupOrchestrator.waitFor(STEP_ADE);
+        }
         return m_workflowManager;
     }
 
@@ -1048,7 +1123,7 @@ public final class OpenCmsCore {
         }
 
         // get the system configuration
-        CmsSystemConfiguration systemConfiguration = (CmsSystemConfiguration)m_configurationManager.getConfiguration(CmsSystemConfiguration.class);
+        final CmsSystemConfiguration systemConfiguration = (CmsSystemConfiguration)m_configurationManager.getConfiguration(CmsSystemConfiguration.class);
 
         // initialize the memory monitor
         CmsMemoryMonitorConfiguration memoryMonitorConfiguration = systemConfiguration.getCmsMemoryMonitorConfiguration();
@@ -1226,11 +1301,23 @@ public final class OpenCmsCore {
         // store the runtime properties
         m_runtimeProperties.putAll(systemConfiguration.getRuntimeProperties());
 
+        // start the threads for unmarshalling prefetched contents in parallel
+        Object prefetchThreads = m_runtimeProperties.get(CmsJspContentPrefetch.PARAM_THREADS);
+        if (prefetchThreads != null) {
+            CmsJspContentPrefetch.initialize(CmsStringUtil.getIntValue(
+                prefetchThreads.toString().trim(),
+                1,
+                CmsJspContentPrefetch.PARAM_THREADS));
+        }
+
+        // the cluster transport is started after all managers have been initialized
+        I_CmsClusterTransport clusterTransport = systemConfiguration.getClusterTransport();
+
         // initialize the session storage provider
-        I_CmsSessionStorageProvider sessionStorageProvider = systemConfiguration.getSessionStorageProvider();
+        final I_CmsSessionStorageProvider sessionStorageProvider = systemConfiguration.getSessionStorageProvider();
 
         // get an Admin cms context object with site root set to "/"
-        CmsObject adminCms;
+        final CmsObject adminCms;
         try {
             adminCms = initCmsObject(null, null, getDefaultUsers().getUserAdmin(), (String)null, (String)null);
         } catch (CmsException e) {
@@ -1238,63 +1325,243 @@ public final class OpenCmsCore {
         }
 
         m_repositoryManager.initializeCms(adminCms);
-        // now initialize the other managers
-        try {
-            // initialize the scheduler
-            m_scheduleManager.initialize(initCmsObject(adminCms));
 
-            // initialize the locale manager
-            m_localeManager = systemConfiguration.getLocaleManager();
-            m_localeManager.initialize(initCmsObject(adminCms));
+        // now initialize the other managers, independent managers are only initialized concurrently if configured
+        List<String> background = new ArrayList<String>();
+        for (String step : configuration.getList(PARAM_STARTUP_BACKGROUND, Collections.<String> emptyList())) {
+            if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(step)) {
+                background.add(step.trim());
+            }
+        }
+        m_startupOrchestrator = new CmsStartupOrchestrator(configuration.getInteger(PARAM_STARTUP_THREADS, 1));
+        if (CmsLog.INIT.isInfoEnabled()) {
+            CmsLog.INIT.info(Messages.get().getBundle().key(
+                Messages.INIT_STARTUP_THREADS_2,
+                String.valueOf(m_startupOrchestrator.getThreads()),
+                background.isEmpty() ? "-" : CmsStringUtil.collectionAsString(background, ", ")));
+        }
+        m_startupOrchestrator.addStep(STEP_SCHEDULER, null, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the scheduler
+                m_scheduleManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_LOCALE, null, new Callable<Void>() {
 
-            // initialize the site manager
-            m_siteManager.initialize(initCmsObject(adminCms));
+            public Void call() throws CmsException {
 
-            // initialize the static export manager
-            m_staticExportManager.initialize(initCmsObject(adminCms));
+                // initialize the locale manager
+                m_localeManager = systemConfiguration.getLocaleManager();
+                m_localeManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_SITE, new String[] {STEP_LOCALE}, new Callable<Void>() {
 
-            // initialize the XML content type manager
-            m_xmlContentTypeManager.initialize(initCmsObject(adminCms));
+            public Void call() throws CmsException {
 
-            // initialize the module manager
-            m_moduleManager.initialize(initCmsObject(adminCms), m_configurationManager);
+                // initialize the site manager
+                m_siteManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_STATICEXPORT, new String[] {STEP_SITE}, new Callable<Void>() {
 
-            // initialize the resource manager
-            m_resourceManager.initialize(initCmsObject(adminCms));
+            public Void call() throws CmsException {
 
-            // initialize the publish manager
-            m_publishManager.setPublishEngine(m_publishEngine);
-            m_publishManager.setSecurityManager(m_securityManager);
-            m_publishManager.initialize(initCmsObject(adminCms));
+                // initialize the static export manager
+                m_staticExportManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_XMLCONTENTTYPES, new String[] {STEP_LOCALE}, new Callable<Void>() {
 
-            // initialize the search manager
-            m_searchManager.initialize(initCmsObject(adminCms));
+            public Void call() throws CmsException {
 
-            // initialize the workplace manager
-            m_workplaceManager.initialize(initCmsObject(adminCms));
+                // initialize the XML content type manager
+                m_xmlContentTypeManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_MODULES, new String[] {
+            STEP_SCHEDULER,
+            STEP_STATICEXPORT,
+            STEP_XMLCONTENTTYPES}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
 
-            // initialize the session manager
-            m_sessionManager.initialize(sessionStorageProvider);
+                // initialize the module manager
+                m_moduleManager.initialize(initCmsObject(adminCms), m_configurationManager);
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_RESOURCES, new String[] {STEP_MODULES}, new Callable<Void>() {
 
-            // initialize the subscription manager
-            m_subscriptionManager.setSecurityManager(m_securityManager);
-            m_subscriptionManager.initialize(adminCms);
+            public Void call() throws CmsException {
 
-            // initialize ade manager
-            // initialize the formatter configuration
-            CmsFormatterConfiguration.initialize(adminCms);
-            //m_adeManager = new CmsADEManager(initCmsObject(adminCms), m_memoryMonitor, systemConfiguration);
-            m_adeManager = new CmsADEManager(adminCms, m_memoryMonitor, systemConfiguration);
-            m_templateContextManager = new CmsTemplateContextManager(adminCms);
-            m_workflowManager = systemConfiguration.getWorkflowManager();
-            if (m_workflowManager == null) {
-                m_workflowManager = new CmsDefaultWorkflowManager();
-                m_workflowManager.setParameters(new HashMap<String, String>());
+                // initialize the resource manager
+                m_resourceManager.initialize(initCmsObject(adminCms));
+                return null;
             }
-            m_workflowManager.initialize(adminCms);
+        });
+        m_startupOrchestrator.addStep(STEP_PUBLISH, new String[] {STEP_RESOURCES}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the publish manager
+                m_publishManager.setPublishEngine(m_publishEngine);
+                m_publishManager.setSecurityManager(m_securityManager);
+                m_publishManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        Callable<Void> searchStep;
+        if (background.contains(STEP_SEARCH)) {
+            // until the search manager has been initialized, forward its events to it
+            final I_CmsEventListener searchEventForwarder = new I_CmsEventListener() {
+
+                public void cmsEvent(CmsEvent event) {
+
+                    if (!m_startupOrchestrator.isFinished(STEP_SEARCH) && m_startupOrchestrator.waitFor(STEP_SEARCH)) {
+                        m_searchManager.cmsEvent(event);
+                    }
+                }
+            };
+            OpenCms.addCmsEventListener(searchEventForwarder, new int[] {
+                I_CmsEventListener.EVENT_CLEAR_CACHES,
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                I_CmsEventListener.EVENT_REBUILD_SEARCHINDEXES});
+            searchStep = new Callable<Void>() {
+
+                public Void call() throws CmsException {
+
+                    try {
+                        // initialize the search manager
+                        m_searchManager.initialize(initCmsObject(adminCms));
+                    } finally {
+                        OpenCms.removeCmsEventListener(searchEventForwarder);
+                    }
+                    return null;
+                }
+            };
+            m_startupOrchestrator.addBackgroundStep(STEP_SEARCH, new String[] {STEP_PUBLISH}, searchStep);
+        } else {
+            searchStep = new Callable<Void>() {
+
+                public Void call() throws CmsException {
+
+                    // initialize the search manager
+                    m_searchManager.initialize(initCmsObject(adminCms));
+                    return null;
+                }
+            };
+            m_startupOrchestrator.addStep(STEP_SEARCH, new String[] {STEP_PUBLISH}, searchStep);
+        }
+        // the workplace manager has always been initialized after the search manager, keep that order
+        String[] workplaceDependencies = background.contains(STEP_SEARCH)
+        ? new String[] {STEP_PUBLISH}
+        : new String[] {STEP_SEARCH};
+        m_startupOrchestrator.addStep(STEP_WORKPLACE, workplaceDependencies, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the workplace manager
+                m_workplaceManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        // the remaining managers may read resources of all types, so they wait for the workplace manager
+        m_startupOrchestrator.addStep(STEP_SESSION, new String[] {STEP_WORKPLACE}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the session manager
+                m_sessionManager.initialize(sessionStorageProvider);
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_SUBSCRIPTION, new String[] {STEP_WORKPLACE}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the subscription manager
+                m_subscriptionManager.setSecurityManager(m_securityManager);
+                m_subscriptionManager.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_NAVCACHE, new String[] {STEP_WORKPLACE}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the navigation cache
+                CmsJspNavCache.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        m_startupOrchestrator.addStep(STEP_GALLERYINDEX, new String[] {STEP_WORKPLACE}, new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the gallery index
+                CmsGalleryIndex.initialize(initCmsObject(adminCms));
+                return null;
+            }
+        });
+        final boolean adeInBackground = background.contains(STEP_ADE);
+        Callable<Void> adeStep = new Callable<Void>() {
+
+            public Void call() throws CmsException {
+
+                // initialize the formatter configuration
+                CmsFormatterConfiguration.initialize(adminCms);
+                // initialize ade manager
+                CmsADEManager adeManager = new CmsADEManager(adminCms, m_memoryMonitor, systemConfiguration);
+                m_templateContextManager = new CmsTemplateContextManager(adminCms);
+                I_CmsWorkflowManager workflowManager = systemConfiguration.getWorkflowManager();
+                if (workflowManager == null) {
+                    workflowManager = new CmsDefaultWorkflowManager();
+                    workflowManager.setParameters(new HashMap<String, String>());
+                }
+                workflowManager.initialize(adminCms);
+                m_workflowManager = workflowManager;
+                if (adeInBackground) {
+                    // read the ADE configuration now instead of on the first request
+                    adeManager.initialize();
+                }
+                m_adeManager = adeManager;
+                return null;
+            }
+        };
+        String[] adeDependencies = new String[] {STEP_NAVCACHE, STEP_SUBSCRIPTION};
+        if (adeInBackground) {
+            m_startupOrchestrator.addBackgroundStep(STEP_ADE, adeDependencies, adeStep);
+        } else {
+            m_startupOrchestrator.addStep(STEP_ADE, adeDependencies, adeStep);
+        }
+        try {
+            m_startupOrchestrator.run();
         } catch (CmsException e) {
             throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
         }
+        m_startupOrchestrator.startBackgroundSteps();
+
+        if (clusterTransport != null) {
+            // forward the events of this node to the other nodes of the cluster, and receive their events
+            try {
+                CmsClusterBus clusterBus = new CmsClusterBus(m_eventManager, clusterTransport, initCmsObject(adminCms));
+                clusterBus.start();
+                m_clusterBus = clusterBus;
+            } catch (Exception e) {
+                CmsLog.INIT.error(
+                    Messages.get().getBundle().key(Messages.LOG_ERROR_CLUSTER_BUS_START_1, e.getMessage()),
+                    e);
+                clusterTransport.shutDown();
+            }
+        }
     }
 
     /**
@@ -1729,6 +1996,26 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_PUBLISH_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // process the events still queued for asynchronous listeners before the managers are stopped
+                    if (m_eventManager != null) {
+                        m_eventManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_EVENT_MANAGER_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
+                try {
+                    // the cluster bus has sent the remaining events, stop receiving events from the other nodes
+                    if (m_clusterBus != null) {
+                        m_clusterBus.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_CLUSTER_BUS_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // search manager must be shut down early since there may be background indexing still ongoing
                     if (m_searchManager != null) {
@@ -1775,6 +2062,26 @@ public final class OpenCmsCore {
                         Messages.get().getBundle().key(Messages.LOG_ERROR_RESOURCE_SHUTDOWN_1, e.getMessage()),
                         e);
                 }
+                try {
+                    // has to be stopped before the security manager, since the queued visits are written with it
+                    if (m_subscriptionManager != null) {
+                        m_subscriptionManager.shutDown();
+                    }
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(
+                            Messages.LOG_ERROR_SUBSCRIPTION_MANAGER_SHUTDOWN_1,
+                            e.getMessage()),
+                        e);
+                }
+                try {
+                    // has to be stopped before the security manager, since these threads use it
+                    CmsJspContentPrefetch.shutDown();
+                } catch (Throwable e) {
+                    CmsLog.INIT.error(
+                        Messages.get().getBundle().key(Messages.LOG_ERROR_CONTENT_PREFETCH_SHUTDOWN_1, e.getMessage()),
+                        e);
+                }
                 try {
                     // has to be stopped before the security manager, since this thread uses it
                     if (m_threadStore != null) {
@@ -69,6 +69,8 @@ import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 import org.opencms.util.PrintfFormat;
 import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlContentDefinitionCache;
+import org.opencms.xml.CmsXmlContentDefinitionCache.CmsSchemaStatistics;
 import org.opencms.xml.CmsXmlEntityResolver;
 
 import java.util.ArrayList;
@@ -167,7 +169,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     private Map<String, CmsAccessControlList> m_cacheAccessControlList;
 
     /** A temporary cache for XML content definitions. */
-    private Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
+    private CmsXmlContentDefinitionCache m_cacheContentDefinitions;
 
     /** Cache for groups. */
     private Map<String, CmsGroup> m_cacheGroup;
@@ -294,7 +296,40 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      */
     public CmsMemoryMonitor() {
 
-        m_monitoredObjects = new HashMap<String, Object>();
+        m_monitoredObjects = Collections.synchronizedMap(new HashMap<String, Object>());
+    }
+
+    /**
+     * Returns the estimated size of a cache entry.<p>
+     * 
+     * The size of a String key is added to the size of the value. The sizes of map and list values
+     * are calculated from their elements, up to the maximum recursion depth.<p>
+     * 
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * 
+     * @return the estimated size of the entry
+     */
+    public static long getEntrySize(Object key, Object value) {
+
+        long size = 0;
+        if (key instanceof String) {
+            size += ((String)key).length() * 2;
+        }
+        Object obj = value;
+        if (obj instanceof CmsAccessControlList) {
+            obj = ((CmsAccessControlList)obj).getPermissionMap();
+        }
+        if (obj instanceof CmsFlexCacheVariation) {
+            obj = ((CmsFlexCacheVariation)obj).m_map;
+        }
+        if (obj instanceof Map) {
+            return size + getValueSize((Map<?, ?>)obj, 1);
+        }
+        if (obj instanceof List) {
+            return size + getValueSize((List<?>)obj, 1);
+        }
+        return size + getMemorySize(obj);
     }
 
     /**
@@ -547,7 +582,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (m_disabled.get(CacheType.CONTENT_DEFINITION) != null) {
             return;
         }
-        m_cacheContentDefinitions.put(key, contentDefinition);
+        m_cacheContentDefinitions.put(key, contentDefinition, Collections.<String> emptyList());
     }
 
     /**
@@ -1715,6 +1750,19 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return m_configuration;
     }
 
+    /**
+     * Returns the cache for XML content definitions.<p>
+     * 
+     * The cache is shared with the {@link CmsXmlEntityResolver}, which records the schemas 
+     * included by the cached definitions.<p>
+     * 
+     * @return the cache for XML content definitions
+     */
+    public CmsXmlContentDefinitionCache getContentDefinitionCache() {
+
+        return m_cacheContentDefinitions;
+    }
+
     /**
      * Returns the next publish job from the publish job queue.<p>
      * 
@@ -1744,11 +1792,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Returns the current memory status.<p>
      * 
+     * The status includes the estimated sizes of the monitored caches, which are read 
+     * from the caches without iterating over their entries.<p>
+     * 
      * @return the memory status
      */
     public CmsMemoryStatus getMemoryStatus() {
 
         m_memoryCurrent.update();
+        m_memoryCurrent.updateCaches(getWeightedCaches());
         return m_memoryCurrent;
     }
 
@@ -1820,10 +1872,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             }
         }
 
-        // create and register all system caches
+        // create and register all system caches, the caches with an entry limit may also be bounded by bytes
+        long maxBytes = cacheSettings.getMaxCacheBytes();
 
         // temporary xml entities cache
-        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createLRUMap(128);
+        Map<String, byte[]> xmlTemporaryCache = CmsCollectionsGenericWrapper.createWeightedLRUMap(128, maxBytes);
         m_cacheXmlTemporaryEntity = Collections.synchronizedMap(xmlTemporaryCache);
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_cacheXmlTemporaryEntity);
 
@@ -1833,8 +1886,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsXmlEntityResolver.class.getName() + ".xmlEntityPermanentCache", m_cacheXmlPermanentEntity);
 
         // xml content definitions cache
-        Map<String, CmsXmlContentDefinition> contentDefinitionsCache = CmsCollectionsGenericWrapper.createLRUMap(64);
-        m_cacheContentDefinitions = Collections.synchronizedMap(contentDefinitionsCache);
+        m_cacheContentDefinitions = new CmsXmlContentDefinitionCache(cacheSettings.getContentDefinitionCacheSize());
         register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_cacheContentDefinitions);
 
         // lock cache
@@ -1848,42 +1900,42 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsLocaleManager.class.getName(), map);
 
         // permissions cache
-        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPermissionCacheSize());
+        Map<String, I_CmsPermissionHandler.CmsPermissionCheckResult> lruPermissions = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getPermissionCacheSize(), maxBytes);
         m_cachePermission = Collections.synchronizedMap(lruPermissions);
         register(CmsSecurityManager.class.getName(), lruPermissions);
 
         // user cache
-        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
+        Map<String, CmsUser> lruUsers = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getUserCacheSize(), maxBytes);
         m_cacheUser = Collections.synchronizedMap(lruUsers);
         register(CmsDriverManager.class.getName() + ".userCache", lruUsers);
 
         // user list cache
-        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserCacheSize());
+        Map<String, List<CmsUser>> lruUserList = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getUserCacheSize(), maxBytes);
         m_cacheUserList = Collections.synchronizedMap(lruUserList);
         register(CmsDriverManager.class.getName() + ".userListCache", lruUserList);
 
         // group cache
-        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getGroupCacheSize());
+        Map<String, CmsGroup> lruGroup = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getGroupCacheSize(), maxBytes);
         m_cacheGroup = Collections.synchronizedMap(lruGroup);
         register(CmsDriverManager.class.getName() + ".groupCache", lruGroup);
 
         // organizational unit cache
-        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getOrgUnitCacheSize());
+        Map<String, CmsOrganizationalUnit> lruOrgUnit = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getOrgUnitCacheSize(), maxBytes);
         m_cacheOrgUnit = Collections.synchronizedMap(lruOrgUnit);
         register(CmsDriverManager.class.getName() + ".orgUnitCache", lruOrgUnit);
 
         // user groups list cache
-        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getUserGroupsCacheSize());
+        Map<String, List<CmsGroup>> lruUserGroups = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getUserGroupsCacheSize(), maxBytes);
         m_cacheUserGroups = Collections.synchronizedMap(lruUserGroups);
         register(CmsDriverManager.class.getName() + ".userGroupsCache", lruUserGroups);
 
         // project cache
-        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectCacheSize());
+        Map<String, CmsProject> lruProjects = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getProjectCacheSize(), maxBytes);
         m_cacheProject = Collections.synchronizedMap(lruProjects);
         register(CmsDriverManager.class.getName() + ".projectCache", lruProjects);
 
         // project resources cache cache
-        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getProjectResourcesCacheSize());
+        Map<String, List<CmsResource>> lruProjectResources = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getProjectResourcesCacheSize(), maxBytes);
         m_cacheProjectResources = Collections.synchronizedMap(lruProjectResources);
         register(CmsDriverManager.class.getName() + ".projectResourcesCache", lruProjectResources);
 
@@ -1899,42 +1951,42 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsPublishQueue.class.getName() + ".publishQueue", buffer);
 
         // resource cache
-        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourceCacheSize());
+        Map<String, CmsResource> lruResources = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getResourceCacheSize(), maxBytes);
         m_cacheResource = Collections.synchronizedMap(lruResources);
         register(CmsDriverManager.class.getName() + ".resourceCache", lruResources);
 
         // roles cache
-        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
+        Map<String, Boolean> lruHasRoles = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getRolesCacheSize(), maxBytes);
         m_cacheHasRoles = Collections.synchronizedMap(lruHasRoles);
         register(CmsDriverManager.class.getName() + ".rolesCache", lruHasRoles);
 
         // role lists cache
-        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getRolesCacheSize());
+        Map<String, List<CmsRole>> lruRoleLists = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getRolesCacheSize(), maxBytes);
         m_cacheRoleLists = Collections.synchronizedMap(lruRoleLists);
         register(CmsDriverManager.class.getName() + ".roleListsCache", lruRoleLists);
 
         // resource list cache
-        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getResourcelistCacheSize());
+        Map<String, List<CmsResource>> lruResourceList = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getResourcelistCacheSize(), maxBytes);
         m_cacheResourceList = Collections.synchronizedMap(lruResourceList);
         register(CmsDriverManager.class.getName() + ".resourceListCache", lruResourceList);
 
         // property cache
-        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyCacheSize());
+        Map<String, CmsProperty> lruProperty = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getPropertyCacheSize(), maxBytes);
         m_cacheProperty = Collections.synchronizedMap(lruProperty);
         register(CmsDriverManager.class.getName() + ".propertyCache", lruProperty);
 
         // property list cache
-        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getPropertyListsCacheSize());
+        Map<String, List<CmsProperty>> lruPropertyList = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getPropertyListsCacheSize(), maxBytes);
         m_cachePropertyList = Collections.synchronizedMap(lruPropertyList);
         register(CmsDriverManager.class.getName() + ".propertyListCache", lruPropertyList);
 
         // published resources list cache
-        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createLRUMap(5);
+        Map<String, List<CmsPublishedResource>> lruPublishedResources = CmsCollectionsGenericWrapper.createWeightedLRUMap(5, maxBytes);
         m_cachePublishedResources = Collections.synchronizedMap(lruPublishedResources);
         register(CmsDriverManager.class.getName() + ".publishedResourcesCache", lruPublishedResources);
 
         // acl cache
-        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createLRUMap(cacheSettings.getAclCacheSize());
+        Map<String, CmsAccessControlList> lruAcl = CmsCollectionsGenericWrapper.createWeightedLRUMap(cacheSettings.getAclCacheSize(), maxBytes);
         m_cacheAccessControlList = Collections.synchronizedMap(lruAcl);
         register(CmsDriverManager.class.getName() + ".accessControlListCache", lruAcl);
 
@@ -2324,6 +2376,24 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         System.gc();
     }
 
+    /**
+     * Returns the estimated size of a monitored object in bytes.<p>
+     * 
+     * The size of a {@link CmsWeightedLruMap} is maintained incrementally by the map, 
+     * the size of all other objects is calculated from their content.<p>
+     * 
+     * @param obj the object
+     * 
+     * @return the estimated size of the object in bytes
+     */
+    protected long getCacheSize(Object obj) {
+
+        if (obj instanceof CmsWeightedLruMap) {
+            return ((CmsWeightedLruMap)obj).getWeight();
+        }
+        return getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+    }
+
     /**
      * Returns the cache costs of a monitored object.<p>
      * 
@@ -2360,6 +2430,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof CmsLruCache) {
             return Integer.toString(((CmsLruCache)obj).size());
         }
+        if (obj instanceof CmsXmlContentDefinitionCache) {
+            return Integer.toString(((CmsXmlContentDefinitionCache)obj).size());
+        }
         if (obj instanceof Map) {
             return Integer.toString(((Map<?, ?>)obj).size());
         }
@@ -2449,6 +2522,9 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (obj instanceof LRUMap) {
             return Integer.toString(((LRUMap)obj).maxSize());
         }
+        if (obj instanceof CmsXmlContentDefinitionCache) {
+            return Integer.toString(((CmsXmlContentDefinitionCache)obj).getMaxSize());
+        }
 
         return "-";
     }
@@ -2545,7 +2621,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
             PrintfFormat form = new PrintfFormat("%9s");
             Object obj = m_monitoredObjects.get(key);
 
-            long size = getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+            long size = getCacheSize(obj);
             totalSize += size;
 
             content += new PrintfFormat("%-42.42s").sprintf(shortKey)
@@ -2649,7 +2725,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 String key = keys.next();
                 Object obj = m_monitoredObjects.get(key);
 
-                long size = getKeySize(obj) + getValueSize(obj) + getCosts(obj);
+                long size = getCacheSize(obj);
                 totalSize += size;
 
                 PrintfFormat name1 = new PrintfFormat("%-80s");
@@ -2665,6 +2741,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                         form.sprintf(Long.toString(size))}));
             }
 
+            if (LOG.isDebugEnabled() && (m_cacheContentDefinitions != null)) {
+                // the hit rates show which schemas are removed from the content definition cache too often
+                PrintfFormat name = new PrintfFormat("%-80s");
+                PrintfFormat form = new PrintfFormat("%9s");
+                for (CmsSchemaStatistics statistics : m_cacheContentDefinitions.getStatistics()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_MM_CONTENT_DEFINITION_STAT_4,
+                        new Object[] {
+                            name.sprintf(statistics.getKey()),
+                            form.sprintf(Long.toString(statistics.getHits())),
+                            form.sprintf(Long.toString(statistics.getMisses())),
+                            form.sprintf(Integer.toString(statistics.getHitRate()))}));
+                }
+            }
+
             LOG.info(Messages.get().getBundle().key(
                 Messages.LOG_MM_WARNING_MEM_STATUS_6,
                 new Object[] {
@@ -2729,6 +2820,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     protected void updateStatus() {
 
         m_memoryCurrent.update();
+        m_memoryCurrent.updateCaches(getWeightedCaches());
         m_memoryAverage.calculateAverage(m_memoryCurrent);
     }
+
+    /**
+     * Returns the monitored caches that maintain the size of their entries.<p>
+     * 
+     * @return the monitored caches that maintain the size of their entries, by name
+     */
+    private Map<String, CmsWeightedLruMap> getWeightedCaches() {
+
+        Map<String, CmsWeightedLruMap> caches = new HashMap<String, CmsWeightedLruMap>();
+        synchronized (m_monitoredObjects) {
+            for (Map.Entry<String, Object> entry : m_monitoredObjects.entrySet()) {
+                if (entry.getValue() instanceof CmsWeightedLruMap) {
+                    caches.put(entry.getKey(), (CmsWeightedLruMap)entry.getValue());
+                }
+            }
+        }
+        return caches;
+    }
 }
@@ -27,6 +27,10 @@
 
 package org.opencms.monitor;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Data structure for dealing with memory status information.<p>
  * 
@@ -34,6 +38,15 @@ package org.opencms.monitor;
  */
 public class CmsMemoryStatus {
 
+    /** The histograms of the entry sizes of the monitored caches, by cache name. */
+    private Map<String, long[]> m_cacheHistograms;
+
+    /** The estimated total size of the monitored caches, in bytes. */
+    private long m_cacheSize;
+
+    /** The estimated sizes of the monitored caches in bytes, by cache name. */
+    private Map<String, Long> m_cacheSizes;
+
     /** The count used to calculate the average. */
     private int m_count;
 
@@ -57,6 +70,8 @@ public class CmsMemoryStatus {
      */
     public CmsMemoryStatus() {
 
+        m_cacheHistograms = Collections.emptyMap();
+        m_cacheSizes = Collections.emptyMap();
         update();
     }
 
@@ -75,6 +90,42 @@ public class CmsMemoryStatus {
         m_freeMemory = ((m_count * m_freeMemory) + currentStatus.getFreeMemory()) / newCount;
         m_usage = (m_usedMemory * 100) / m_maxMemory;
         m_count = newCount;
+        m_cacheSize = currentStatus.getCacheSize();
+        m_cacheSizes = currentStatus.getCacheSizes();
+        m_cacheHistograms = currentStatus.getCacheHistograms();
+    }
+
+    /**
+     * Returns the histograms of the entry sizes of the monitored caches, by cache name.<p>
+     * 
+     * Bucket <code>i</code> of a histogram counts the entries with an estimated size of at least 
+     * <code>2^i</code> and below <code>2^(i+1)</code> bytes, see {@link CmsWeightedLruMap#getHistogram()}.<p>
+     * 
+     * @return the histograms of the entry sizes of the monitored caches
+     */
+    public Map<String, long[]> getCacheHistograms() {
+
+        return m_cacheHistograms;
+    }
+
+    /**
+     * Returns the estimated total size of the monitored caches, in bytes.<p>
+     * 
+     * @return the estimated total size of the monitored caches, in bytes
+     */
+    public long getCacheSize() {
+
+        return m_cacheSize;
+    }
+
+    /**
+     * Returns the estimated sizes of the monitored caches in bytes, by cache name.<p>
+     * 
+     * @return the estimated sizes of the monitored caches in bytes
+     */
+    public Map<String, Long> getCacheSizes() {
+
+        return m_cacheSizes;
     }
 
     /**
@@ -148,4 +199,27 @@ public class CmsMemoryStatus {
         m_freeMemory = m_maxMemory - m_usedMemory;
         m_usage = (m_usedMemory * 100) / m_maxMemory;
     }
+
+    /**
+     * Updates the cache information of this memory status.<p>
+     * 
+     * The sizes are read from the totals maintained by the caches, so the cache entries are not iterated.<p>
+     * 
+     * @param caches the monitored caches, by cache name
+     */
+    public void updateCaches(Map<String, CmsWeightedLruMap> caches) {
+
+        Map<String, Long> sizes = new HashMap<String, Long>();
+        Map<String, long[]> histograms = new HashMap<String, long[]>();
+        long total = 0;
+        for (Map.Entry<String, CmsWeightedLruMap> entry : caches.entrySet()) {
+            long size = entry.getValue().getWeight();
+            sizes.put(entry.getKey(), Long.valueOf(size));
+            histograms.put(entry.getKey(), entry.getValue().getHistogram());
+            total += size;
+        }
+        m_cacheSize = total;
+        m_cacheSizes = Collections.unmodifiableMap(sizes);
+        m_cacheHistograms = Collections.unmodifiableMap(histograms);
+    }
 }
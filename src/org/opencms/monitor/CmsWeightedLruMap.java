@@ -0,0 +1,307 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * A {@link LRUMap} that keeps track of the estimated memory size of its entries.<p>
+ * 
+ * The size of an entry is estimated once when the entry is added or its value is replaced, 
+ * using {@link CmsMemoryMonitor#getEntrySize(Object, Object)}, and the total size as well as 
+ * a histogram of the entry sizes are updated incrementally. This way the size of the map 
+ * is available at any time without iterating over the entries.<p>
+ * 
+ * Besides the maximum number of entries, the map can be bounded by its total size in bytes.
+ * If the size exceeds the limit, the least recently used entries are removed.<p>
+ * 
+ * Like {@link LRUMap}, this map is not synchronized. Reading the total size and the histogram 
+ * does not require a lock, the values may be slightly outdated in this case.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsWeightedLruMap extends LRUMap {
+
+    /** The number of buckets of the size histogram. */
+    public static final int HISTOGRAM_BUCKETS = 32;
+
+    /** The serial version id. */
+    private static final long serialVersionUID = -4530227934163545231L;
+
+    /** The number of entries by size, bucket <code>i</code> counts the sizes below <code>2^(i+1)</code>. */
+    private transient long[] m_histogram;
+
+    /** The maximum total size of the entries in bytes, <code>0</code> for no limit. */
+    private long m_maxWeight;
+
+    /** The total size of the entries in bytes. */
+    private transient volatile long m_weight;
+
+    /**
+     * Creates a new map with the default maximum number of entries and no size limit.<p>
+     */
+    public CmsWeightedLruMap() {
+
+        this(DEFAULT_MAX_SIZE, 0);
+    }
+
+    /**
+     * Creates a new map with the given maximum number of entries and no size limit.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     */
+    public CmsWeightedLruMap(int maxSize) {
+
+        this(maxSize, 0);
+    }
+
+    /**
+     * Creates a new map with the given maximum number of entries and maximum total size.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total size of the entries in bytes, <code>0</code> for no limit
+     */
+    public CmsWeightedLruMap(int maxSize, long maxWeight) {
+
+        super(maxSize);
+        m_maxWeight = Math.max(0, maxWeight);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#clear()
+     */
+    @Override
+    public void clear() {
+
+        // the entries are not removed one by one, so the size is reset here
+        super.clear();
+        m_histogram = new long[HISTOGRAM_BUCKETS];
+        m_weight = 0;
+    }
+
+    /**
+     * Returns a copy of the histogram of the entry sizes.<p>
+     * 
+     * The value at index <code>i</code> is the number of entries with a size of at least <code>2^i</code>
+     * and below <code>2^(i+1)</code> bytes. The first bucket also counts the entries of size 0, and the last 
+     * bucket counts all larger entries.<p>
+     * 
+     * @return a copy of the histogram of the entry sizes
+     */
+    public long[] getHistogram() {
+
+        return m_histogram.clone();
+    }
+
+    /**
+     * Returns the maximum total size of the entries in bytes, <code>0</code> if there is no limit.<p>
+     * 
+     * @return the maximum total size of the entries in bytes
+     */
+    public long getMaxWeight() {
+
+        return m_maxWeight;
+    }
+
+    /**
+     * Returns the estimated total size of the entries in bytes.<p>
+     * 
+     * @return the estimated total size of the entries in bytes
+     */
+    public long getWeight() {
+
+        return m_weight;
+    }
+
+    /**
+     * Sets the maximum total size of the entries in bytes, <code>0</code> for no limit.<p>
+     * 
+     * If the current size exceeds the new limit, the least recently used entries are removed.<p>
+     * 
+     * @param maxWeight the maximum total size of the entries in bytes
+     */
+    public void setMaxWeight(long maxWeight) {
+
+        m_maxWeight = Math.max(0, maxWeight);
+        trim();
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#addMapping(int, int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected void addMapping(int hashIndex, int hashCode, Object key, Object value) {
+
+        super.addMapping(hashIndex, hashCode, key, value);
+        // the new entry is always the most recently used one, also if an old entry was reused
+        addWeight((CmsWeightedEntry)entryBefore(header));
+        trim();
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#createEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected HashEntry createEntry(HashEntry next, int hashCode, Object key, Object value) {
+
+        // the size is added in addMapping, since this is also used for the header entry of the map
+        return new CmsWeightedEntry(next, hashCode, key, value);
+    }
+
+    /**
+     * Returns the estimated size of an entry in bytes.<p>
+     * 
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * 
+     * @return the estimated size of the entry in bytes
+     */
+    protected long getEntryWeight(Object key, Object value) {
+
+        return CmsMemoryMonitor.getEntrySize(key, value);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractLinkedMap#init()
+     */
+    @Override
+    protected void init() {
+
+        // also called when the map is cloned or deserialized, the entries are added again afterwards
+        super.init();
+        m_histogram = new long[HISTOGRAM_BUCKETS];
+        m_weight = 0;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#removeMapping(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, org.apache.commons.collections.map.AbstractHashedMap.HashEntry)
+     */
+    @Override
+    protected void removeMapping(HashEntry entry, int hashIndex, HashEntry previous) {
+
+        removeWeight((CmsWeightedEntry)entry);
+        super.removeMapping(entry, hashIndex, previous);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#reuseMapping(org.apache.commons.collections.map.AbstractLinkedMap.LinkEntry, int, int, java.lang.Object, java.lang.Object)
+     */
+    @Override
+    protected void reuseMapping(LinkEntry entry, int hashIndex, int hashCode, Object key, Object value) {
+
+        // the least recently used entry is reused for the new mapping, the new size is added in addMapping
+        removeWeight((CmsWeightedEntry)entry);
+        super.reuseMapping(entry, hashIndex, hashCode, key, value);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#updateEntry(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, java.lang.Object)
+     */
+    @Override
+    protected void updateEntry(HashEntry entry, Object newValue) {
+
+        CmsWeightedEntry weightedEntry = (CmsWeightedEntry)entry;
+        removeWeight(weightedEntry);
+        super.updateEntry(entry, newValue);
+        addWeight(weightedEntry);
+        trim();
+    }
+
+    /**
+     * Calculates the size of an entry and adds it to the total size and the histogram.<p>
+     * 
+     * @param entry the entry
+     */
+    private void addWeight(CmsWeightedEntry entry) {
+
+        entry.m_weight = getEntryWeight(entry.getKey(), entry.getValue());
+        m_weight += entry.m_weight;
+        m_histogram[getBucket(entry.m_weight)]++;
+    }
+
+    /**
+     * Returns the histogram bucket for an entry size.<p>
+     * 
+     * @param weight the size of an entry in bytes
+     * 
+     * @return the histogram bucket
+     */
+    private static int getBucket(long weight) {
+
+        if (weight <= 1) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(weight));
+    }
+
+    /**
+     * Subtracts the size of an entry from the total size and the histogram.<p>
+     * 
+     * @param entry the entry
+     */
+    private void removeWeight(CmsWeightedEntry entry) {
+
+        m_weight -= entry.m_weight;
+        m_histogram[getBucket(entry.m_weight)]--;
+    }
+
+    /**
+     * Removes the least recently used entries until the total size is within the limit.<p>
+     * 
+     * The most recently used entry is always kept, even if it exceeds the limit alone.<p>
+     */
+    private void trim() {
+
+        while ((m_maxWeight > 0) && (m_weight > m_maxWeight) && (size() > 1)) {
+            remove(firstKey());
+        }
+    }
+
+    /**
+     * A map entry with its estimated size.<p>
+     */
+    private static class CmsWeightedEntry extends LinkEntry {
+
+        /** The estimated size of the entry in bytes. */
+        protected long m_weight;
+
+        /**
+         * Creates a new entry.<p>
+         * 
+         * @param next the next entry in the hash bucket
+         * @param hashCode the hash code of the key
+         * @param key the key
+         * @param value the value
+         */
+        protected CmsWeightedEntry(HashEntry next, int hashCode, Object key, Object value) {
+
+            super(next, hashCode, key, value);
+        }
+    }
+}
@@ -28,28 +28,175 @@
 package org.opencms.publish;
 
 import org.opencms.i18n.CmsMessageContainer;
+import org.opencms.main.CmsLog;
 import org.opencms.report.CmsHtmlReport;
 import org.opencms.report.CmsPrintStreamReport;
 import org.opencms.report.I_CmsReport;
+import org.opencms.util.CmsFileUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.util.List;
 import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
 
 /**
  * Report class used for the publish operations.<p>
  * 
- * It stores nothing. It just prints everything to a temporary file.<p>
+ * It stores nothing. It just prints everything GZIP compressed to a temporary spool file.
+ * If no spool file can be created, the compressed output is kept in memory.<p>
  * 
  * @since 6.5.5 
  */
 public class CmsPublishReport extends CmsPrintStreamReport {
 
+    /**
+     * Output stream that writes GZIP compressed data to a temporary spool file.<p>
+     */
+    protected static class CmsPublishReportSpool extends OutputStream {
+
+        /** The compressed data, if no spool file could be created. */
+        private ByteArrayOutputStream m_buffer;
+
+        /** The compressing output stream. */
+        private GZIPOutputStream m_output;
+
+        /** The spool file. */
+        private File m_spoolFile;
+
+        /**
+         * Creates a new spool.<p>
+         */
+        protected CmsPublishReportSpool() {
+
+            OutputStream target = null;
+            try {
+                m_spoolFile = File.createTempFile(SPOOL_FILE_PREFIX, SPOOL_FILE_SUFFIX);
+                target = new BufferedOutputStream(new FileOutputStream(m_spoolFile));
+            } catch (IOException e) {
+                LOG.warn(e.getLocalizedMessage(), e);
+                if (m_spoolFile != null) {
+                    m_spoolFile.delete();
+                    m_spoolFile = null;
+                }
+                m_buffer = new ByteArrayOutputStream();
+                target = m_buffer;
+            }
+            try {
+                m_output = new GZIPOutputStream(target);
+            } catch (IOException e) {
+                // writing the GZIP header failed, nothing will be written at all 
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+        }
+
+        /**
+         * @see java.io.OutputStream#close()
+         */
+        @Override
+        public synchronized void close() throws IOException {
+
+            if (m_output != null) {
+                m_output.close();
+                m_output = null;
+            }
+        }
+
+        /**
+         * Deletes the spool file.<p>
+         */
+        public synchronized void delete() {
+
+            try {
+                close();
+            } catch (IOException e) {
+                LOG.error(e.getLocalizedMessage(), e);
+            }
+            if ((m_spoolFile != null) && m_spoolFile.exists() && !m_spoolFile.delete()) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_PUBLISH_REPORT_DELETE_FAILED_1,
+                    m_spoolFile.getAbsolutePath()));
+            }
+            m_spoolFile = null;
+            m_buffer = null;
+        }
+
+        /**
+         * @see java.io.OutputStream#flush()
+         */
+        @Override
+        public synchronized void flush() throws IOException {
+
+            if (m_output != null) {
+                m_output.flush();
+            }
+        }
+
+        /**
+         * Returns the GZIP compressed data written to this spool.<p>
+         * 
+         * This closes the spool.<p>
+         * 
+         * @return the GZIP compressed data written to this spool
+         * 
+         * @throws IOException if reading the spool file fails
+         */
+        public synchronized byte[] getCompressedContents() throws IOException {
+
+            close();
+            if (m_spoolFile != null) {
+                return CmsFileUtil.readFile(m_spoolFile);
+            }
+            if (m_buffer != null) {
+                return m_buffer.toByteArray();
+            }
+            return new byte[0];
+        }
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+
+            if (m_output != null) {
+                m_output.write(b, off, len);
+            }
+        }
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        @Override
+        public synchronized void write(int b) throws IOException {
+
+            if (m_output != null) {
+                m_output.write(b);
+            }
+        }
+    }
+
+    /** The prefix of the spool files. */
+    public static final String SPOOL_FILE_PREFIX = "opencms-publish-report";
+
+    /** The suffix of the spool files. */
+    public static final String SPOOL_FILE_SUFFIX = ".gz";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsPublishReport.class);
+
     /** The output stream. */
-    protected ByteArrayOutputStream m_outputStream;
+    protected CmsPublishReportSpool m_outputStream;
 
     /** The busy flag to prevent duplicated output. */
     private boolean m_busy;
@@ -65,17 +212,17 @@ public class CmsPublishReport extends CmsPrintStreamReport {
      */
     protected CmsPublishReport(Locale locale) {
 
-        this(new ByteArrayOutputStream(), locale);
+        this(new CmsPublishReportSpool(), locale);
     }
 
     /**
      * Constructs a new publish report using the provided locale for the output language.<p>
      *  
-     * @param outputStream the underlying byte array output stream
+     * @param outputStream the underlying spool output stream
      * @param locale the locale to use for the output language
      * 
      */
-    private CmsPublishReport(ByteArrayOutputStream outputStream, Locale locale) {
+    private CmsPublishReport(CmsPublishReportSpool outputStream, Locale locale) {
 
         super(new PrintStream(outputStream), locale, true);
         init(locale, null);
@@ -90,7 +237,7 @@ public class CmsPublishReport extends CmsPrintStreamReport {
      */
     private CmsPublishReport(I_CmsReport report) {
 
-        this(new ByteArrayOutputStream(), report.getLocale());
+        this(new CmsPublishReportSpool(), report.getLocale());
         m_report = report;
         if (report instanceof CmsHtmlReport) {
             if (((CmsHtmlReport)report).isWriteHtml()) {
@@ -103,6 +250,29 @@ public class CmsPublishReport extends CmsPrintStreamReport {
         }
     }
 
+    /**
+     * Decompresses the given report contents if they are GZIP compressed.<p>
+     * 
+     * Publish reports written by older versions are not compressed, 
+     * these are returned unchanged.<p>
+     * 
+     * @param contents the report contents as stored in the database
+     * 
+     * @return the uncompressed report contents
+     * 
+     * @throws IOException if decompressing the contents fails
+     */
+    public static byte[] uncompress(byte[] contents) throws IOException {
+
+        if ((contents == null)
+            || (contents.length < 2)
+            || ((contents[0] & 0xff) != (GZIPInputStream.GZIP_MAGIC & 0xff))
+            || ((contents[1] & 0xff) != ((GZIPInputStream.GZIP_MAGIC >> 8) & 0xff))) {
+            return contents;
+        }
+        return CmsFileUtil.readFully(new GZIPInputStream(new ByteArrayInputStream(contents)));
+    }
+
     /**
      * Returns a publish report instance that writes to the given report as well as 
      * to the given temporary file.<p> 
@@ -144,14 +314,47 @@ public class CmsPublishReport extends CmsPrintStreamReport {
         m_busy = false;
     }
 
+    /**
+     * Deletes the spool file of this report.<p>
+     * 
+     * Has to be called after the report contents have been persisted.<p>
+     */
+    public void dispose() {
+
+        close();
+        m_outputStream.delete();
+    }
+
+    /**
+     * Returns the GZIP compressed contents of the publish report as byte array.<p>
+     * 
+     * This closes the report.<p>
+     * 
+     * @return the compressed contents of the publish report
+     * 
+     * @throws IOException if reading the spool file fails
+     */
+    public byte[] getCompressedContents() throws IOException {
+
+        close();
+        return m_outputStream.getCompressedContents();
+    }
+
     /**
      * Returns the contents of the publish report as byte array.<p>
      * 
+     * This closes the report.<p>
+     * 
      * @return the contents of the publish report
      */
     public byte[] getContents() {
 
-        return m_outputStream.toByteArray();
+        try {
+            return uncompress(getCompressedContents());
+        } catch (IOException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            return new byte[0];
+        }
     }
 
     /**
@@ -30,6 +30,7 @@ package org.opencms.relations;
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDriverManager;
 import org.opencms.db.CmsPublishList;
+import org.opencms.db.I_CmsDbContextFactory;
 import org.opencms.file.CmsProject;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsResourceFilter;
@@ -41,14 +42,23 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsStringUtil;
+import org.opencms.util.CmsUUID;
 import org.opencms.workplace.commons.CmsProgressThread;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 
@@ -64,16 +74,74 @@ import com.google.common.collect.HashMultimap;
  * 
  * Objects using this class are responsible to handle detected broken links.<p>
  * 
+ * In bulk validation mode, the relations of all resources to validate are read with a few set based 
+ * queries, and the link targets are checked with one existence query per project instead of reading 
+ * every target resource individually. The set based queries can optionally be executed in parallel chunks.<p>
+ * 
  * @since 6.3.0 
  */
 public class CmsRelationSystemValidator {
 
+    /**
+     * A set based query executed for a chunk of parameters during bulk validation.<p>
+     * 
+     * @param <P> the parameter type
+     * @param <R> the result type
+     */
+    protected interface I_CmsBulkQuery<P, R> {
+
+        /**
+         * Executes the query for the given chunk of parameters.<p>
+         * 
+         * @param dbc the database context to use 
+         * @param chunk the chunk of parameters
+         * 
+         * @return the query result for the chunk
+         * 
+         * @throws CmsException if something goes wrong
+         */
+        R execute(CmsDbContext dbc, List<P> chunk) throws CmsException;
+    }
+
+    /**
+     * The relations and link target information read in advance for a bulk validation.<p>
+     */
+    protected static class CmsBulkValidationData {
+
+        /** The online (or current project) root paths of the existing relation targets, keyed by structure id. */
+        protected Map<CmsUUID, String> m_existingTargetIds = new HashMap<CmsUUID, String>();
+
+        /** The relation target paths which exist in the online (or current) project. */
+        protected Set<String> m_existingTargetPaths = new HashSet<String>();
+
+        /** The incoming online relations of the deleted resources, keyed by structure id. */
+        protected Map<CmsUUID, List<CmsRelation>> m_incomingRelations = new HashMap<CmsUUID, List<CmsRelation>>();
+
+        /** The outgoing offline relations of the new or changed resources, keyed by structure id. */
+        protected Map<CmsUUID, List<CmsRelation>> m_outgoingRelations = new HashMap<CmsUUID, List<CmsRelation>>();
+    }
+
+    /** The minimum number of parameters processed by a single set based query chunk. */
+    public static final int BULK_CHUNK_MIN_SIZE = 500;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsRelationSystemValidator.class);
 
+    /** Flag to indicate if the set based bulk validation should be used. */
+    protected boolean m_bulkValidation;
+
+    /** The db context factory used to create database contexts for the parallel bulk queries. */
+    protected I_CmsDbContextFactory m_dbContextFactory;
+
     /** The driver manager. */
     protected CmsDriverManager m_driverManager;
 
+    /** The executor shared by all bulk validations to execute the set based bulk queries in parallel. */
+    protected ExecutorService m_executor;
+
+    /** The number of threads used to execute the set based bulk queries. */
+    protected int m_threads = 1;
+
     /**
      * Default constructor.<p>
      * 
@@ -84,6 +152,84 @@ public class CmsRelationSystemValidator {
         m_driverManager = driverManager;
     }
 
+    /**
+     * Returns the number of threads used to execute the set based bulk queries.<p>
+     * 
+     * @return the number of threads used to execute the set based bulk queries
+     */
+    public int getThreads() {
+
+        return m_threads;
+    }
+
+    /**
+     * Returns <code>true</code> if the set based bulk validation is used.<p>
+     * 
+     * @return <code>true</code> if the set based bulk validation is used
+     */
+    public boolean isBulkValidation() {
+
+        return m_bulkValidation;
+    }
+
+    /**
+     * Enables or disables the set based bulk validation.<p>
+     * 
+     * @param bulkValidation <code>true</code> to enable the bulk validation
+     */
+    public void setBulkValidation(boolean bulkValidation) {
+
+        m_bulkValidation = bulkValidation;
+    }
+
+    /**
+     * Sets the db context factory used to create database contexts for the parallel bulk queries.<p>
+     * 
+     * Without a db context factory, the bulk queries are always executed sequentially.<p>
+     * 
+     * @param dbContextFactory the db context factory
+     */
+    public void setDbContextFactory(I_CmsDbContextFactory dbContextFactory) {
+
+        m_dbContextFactory = dbContextFactory;
+    }
+
+    /**
+     * Sets the number of threads used to execute the set based bulk queries.<p>
+     * 
+     * @param threads the number of threads, values lower than 1 are treated as 1
+     */
+    public void setThreads(int threads) {
+
+        shutDown();
+        m_threads = Math.max(1, threads);
+        if (m_threads > 1) {
+            m_executor = Executors.newFixedThreadPool(m_threads, new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "OpenCms: relation validation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the threads used to execute the set based bulk queries in parallel.<p>
+     * 
+     * Afterwards, the bulk queries are executed sequentially.<p>
+     */
+    public void shutDown() {
+
+        ExecutorService executor = m_executor;
+        m_executor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Validates the relations against the online project.<p>
      * 
@@ -192,6 +338,11 @@ public class CmsRelationSystemValidator {
             }
         }
 
+        CmsBulkValidationData bulkData = null;
+        if (m_bulkValidation) {
+            bulkData = prepareBulkValidation(dbc, resources, project);
+        }
+
         boolean foundBrokenLinks = false;
         for (int index = 0, size = resources.size(); index < size; index++) {
 
@@ -221,7 +372,22 @@ public class CmsRelationSystemValidator {
                     dbc.removeSiteRoot(resourceName)));
                 report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
             }
-            List<CmsRelation> brokenLinks = validateLinks(dbc, resource, offlineFilesLookup, project, report);
+            List<CmsRelation> brokenLinks;
+            if (bulkData != null) {
+                List<CmsRelation> incoming = bulkData.m_incomingRelations.get(resource.getStructureId());
+                List<CmsRelation> outgoing = bulkData.m_outgoingRelations.get(resource.getStructureId());
+                brokenLinks = validateRelations(
+                    dbc,
+                    resource,
+                    incoming != null ? incoming : Collections.<CmsRelation> emptyList(),
+                    outgoing != null ? outgoing : Collections.<CmsRelation> emptyList(),
+                    offlineFilesLookup,
+                    project,
+                    bulkData,
+                    report);
+            } else {
+                brokenLinks = validateLinks(dbc, resource, offlineFilesLookup, project, report);
+            }
             if (brokenLinks.size() > 0) {
                 // the resource contains broken links
                 invalidResources.put(resourceName, brokenLinks);
@@ -350,6 +516,248 @@ public class CmsRelationSystemValidator {
         return isValidLink;
     }
 
+    /**
+     * Checks a link from a resource which has changed against the link targets read in advance.<p>
+     * 
+     * This is the bulk validation counterpart of 
+     * {@link #checkLinkForNewOrChangedLinkSource(CmsDbContext, CmsResource, CmsRelation, String, CmsProject, Map)}.<p>
+     * 
+     * @param relation the relation 
+     * @param link the link target 
+     * @param bulkData the link target information read in advance 
+     * @param fileLookup a lookup table which contains the files which are going to be published 
+     *   
+     * @return true if the link will be valid after publishing 
+     */
+    protected boolean checkLinkForNewOrChangedLinkSource(
+        CmsRelation relation,
+        String link,
+        CmsBulkValidationData bulkData,
+        Map<String, CmsResource> fileLookup) {
+
+        boolean isValidLink = true;
+        // the link is valid if the linked resource exists in the online project...
+        String existingPath = bulkData.m_existingTargetIds.get(relation.getTargetId());
+        if (existingPath != null) {
+            link = existingPath;
+        } else if (!bulkData.m_existingTargetPaths.contains(relation.getTargetPath())) {
+            // ... or if the linked resource is a resource that gets actually published
+            if (!fileLookup.containsKey(link)) {
+                isValidLink = false;
+            }
+        }
+        // ... and if the linked resource to be published get deleted
+        if (fileLookup.containsKey(link)) {
+            CmsResource offlineResource = fileLookup.get(link);
+            if (offlineResource.getState().isDeleted()) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_LINK_VALIDATION_RESOURCEDELETED_1, link));
+                }
+                isValidLink = false;
+            }
+        }
+        return isValidLink;
+    }
+
+    /**
+     * Executes the given set based query for the given parameters in chunks.<p>
+     * 
+     * If more than one thread is configured, the chunks are executed in parallel, 
+     * each with its own database context.<p>
+     * 
+     * @param <P> the parameter type
+     * @param <R> the result type
+     * 
+     * @param dbc the current database context
+     * @param params the parameters to split in chunks
+     * @param query the query to execute for every chunk
+     * 
+     * @return the results of the single chunks
+     * 
+     * @throws CmsException if something goes wrong
+     */
+    protected <P, R> List<R> executeBulkQuery(
+        final CmsDbContext dbc,
+        List<P> params,
+        final I_CmsBulkQuery<P, R> query) throws CmsException {
+
+        List<R> results = new ArrayList<R>();
+        if (params.isEmpty()) {
+            return results;
+        }
+        int threads = Math.min(m_threads, ((params.size() - 1) / BULK_CHUNK_MIN_SIZE) + 1);
+        ExecutorService executor = m_executor;
+        if ((threads <= 1) || (executor == null) || (m_dbContextFactory == null)) {
+            results.add(query.execute(dbc, params));
+            return results;
+        }
+        int chunkSize = ((params.size() - 1) / threads) + 1;
+        List<Future<R>> futures = new ArrayList<Future<R>>(threads);
+        try {
+            for (int i = 0; i < params.size(); i += chunkSize) {
+                final List<P> chunk = new ArrayList<P>(params.subList(i, Math.min(params.size(), i + chunkSize)));
+                futures.add(executor.submit(new Callable<R>() {
+
+                    public R call() throws Exception {
+
+                        CmsDbContext chunkDbc = m_dbContextFactory.getDbContext(dbc.getRequestContext());
+                        try {
+                            return query.execute(chunkDbc, chunk);
+                        } finally {
+                            chunkDbc.clear();
+                        }
+                    }
+                }));
+            }
+            for (Future<R> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    throw new CmsIllegalStateException(org.opencms.workplace.commons.Messages.get().container(
+                        org.opencms.workplace.commons.Messages.ERR_PROGRESS_INTERRUPTED_0), e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof CmsException) {
+                        throw (CmsException)cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error)cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    }
+                    throw new RuntimeException(cause);
+                }
+            }
+        } finally {
+            // stop the chunks still running if one of the chunks failed
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Reads the relations and checks the existence of all link targets for the given resources in advance.<p>
+     * 
+     * @param dbc the current database context
+     * @param resources the resources to validate
+     * @param project the project to validate the link targets against
+     * 
+     * @return the relations and link target information
+     *  
+     * @throws CmsException if something goes wrong
+     */
+    protected CmsBulkValidationData prepareBulkValidation(
+        CmsDbContext dbc,
+        List<CmsResource> resources,
+        CmsProject project) throws CmsException {
+
+        long start = System.currentTimeMillis();
+        CmsBulkValidationData bulkData = new CmsBulkValidationData();
+
+        // use the same projects as getRelationsForResource in the single resource validation 
+        CmsUUID offlineProjectId = dbc.getProjectId();
+        CmsUUID onlineProjectId = dbc.getProjectId();
+        if (dbc.getProjectId().isNullUUID()) {
+            offlineProjectId = dbc.currentProject().getUuid();
+            onlineProjectId = project.getUuid();
+        }
+
+        List<CmsUUID> changedIds = new ArrayList<CmsUUID>();
+        List<CmsUUID> deletedIds = new ArrayList<CmsUUID>();
+        for (CmsResource resource : resources) {
+            if (resource.getState().isDeleted()) {
+                deletedIds.add(resource.getStructureId());
+            } else {
+                changedIds.add(resource.getStructureId());
+            }
+        }
+
+        // read the outgoing relations of all new or changed resources in the offline project
+        for (List<CmsRelation> chunk : executeBulkQuery(
+            dbc,
+            changedIds,
+            createReadRelationsQuery(offlineProjectId, CmsRelationFilter.TARGETS))) {
+            for (CmsRelation relation : chunk) {
+                addRelation(bulkData.m_outgoingRelations, relation.getSourceId(), relation);
+            }
+        }
+        // read the incoming relations of all deleted resources in the online project
+        for (List<CmsRelation> chunk : executeBulkQuery(
+            dbc,
+            deletedIds,
+            createReadRelationsQuery(onlineProjectId, CmsRelationFilter.SOURCES))) {
+            for (CmsRelation relation : chunk) {
+                addRelation(bulkData.m_incomingRelations, relation.getTargetId(), relation);
+            }
+        }
+
+        // check all distinct link targets by id
+        final CmsUUID targetProjectId = project.getUuid();
+        Set<CmsUUID> targetIds = new HashSet<CmsUUID>();
+        for (List<CmsRelation> relations : bulkData.m_outgoingRelations.values()) {
+            for (CmsRelation relation : relations) {
+                targetIds.add(relation.getTargetId());
+            }
+        }
+        for (Map<CmsUUID, String> chunk : executeBulkQuery(
+            dbc,
+            new ArrayList<CmsUUID>(targetIds),
+            new I_CmsBulkQuery<CmsUUID, Map<CmsUUID, String>>() {
+
+                public Map<CmsUUID, String> execute(CmsDbContext chunkDbc, List<CmsUUID> ids) throws CmsException {
+
+                    return m_driverManager.getVfsDriver(chunkDbc).readRootPaths(chunkDbc, targetProjectId, ids);
+                }
+            })) {
+            bulkData.m_existingTargetIds.putAll(chunk);
+        }
+
+        // check the paths of all link targets which could not be found by id
+        Set<String> targetPaths = new HashSet<String>();
+        for (List<CmsRelation> relations : bulkData.m_outgoingRelations.values()) {
+            for (CmsRelation relation : relations) {
+                if (!bulkData.m_existingTargetIds.containsKey(relation.getTargetId())
+                    && CmsStringUtil.isNotEmptyOrWhitespaceOnly(relation.getTargetPath())) {
+                    targetPaths.add(relation.getTargetPath());
+                }
+            }
+        }
+        for (Set<String> chunk : executeBulkQuery(
+            dbc,
+            new ArrayList<String>(targetPaths),
+            new I_CmsBulkQuery<String, Set<String>>() {
+
+                public Set<String> execute(CmsDbContext chunkDbc, List<String> paths) throws CmsException {
+
+                    return m_driverManager.getVfsDriver(chunkDbc).validateRootPathsExist(
+                        chunkDbc,
+                        targetProjectId,
+                        paths);
+                }
+            })) {
+            bulkData.m_existingTargetPaths.addAll(chunk);
+        }
+
+        // restore the order of the single resource validation
+        for (List<CmsRelation> relations : bulkData.m_outgoingRelations.values()) {
+            Collections.sort(relations, CmsRelation.COMPARATOR);
+        }
+        for (List<CmsRelation> relations : bulkData.m_incomingRelations.values()) {
+            Collections.sort(relations, CmsRelation.COMPARATOR);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Prepared bulk link validation for "
+                + resources.size()
+                + " resources with "
+                + targetIds.size()
+                + " distinct link targets in "
+                + (System.currentTimeMillis() - start)
+                + " ms");
+        }
+        return bulkData;
+    }
+
     /**
      * Validates the links for the specified resource.<p>
      * 
@@ -369,9 +777,6 @@ public class CmsRelationSystemValidator {
         CmsProject project,
         I_CmsReport report) {
 
-        List<CmsRelation> brokenRelations = new ArrayList<CmsRelation>();
-        Map<String, Boolean> validatedLinks = new HashMap<String, Boolean>();
-
         // get the relations
         List<CmsRelation> incomingRelationsOnline = new ArrayList<CmsRelation>();
         List<CmsRelation> outgoingRelationsOffline = new ArrayList<CmsRelation>();
@@ -402,9 +807,49 @@ public class CmsRelationSystemValidator {
                     Messages.get().container(Messages.LOG_LINK_SEARCH_1, dbc.removeSiteRoot(resource.getRootPath())),
                     I_CmsReport.FORMAT_ERROR);
             }
-            return brokenRelations;
+            return new ArrayList<CmsRelation>();
         }
 
+        return validateRelations(
+            dbc,
+            resource,
+            incomingRelationsOnline,
+            outgoingRelationsOffline,
+            fileLookup,
+            project,
+            null,
+            report);
+    }
+
+    /**
+     * Validates the given relations of the specified resource.<p>
+     * 
+     * @param dbc the database context
+     * @param resource the resource that will be validated
+     * @param incomingRelationsOnline the online relations pointing to the resource, used if the resource is deleted
+     * @param outgoingRelationsOffline the offline relations of the resource, used if the resource is new or changed
+     * @param fileLookup a map for faster lookup with all resources keyed by their rootpath
+     * @param project the project to validate
+     * @param bulkData the link target information read in advance, 
+     *          or <code>null</code> to read the link targets one by one
+     * @param report the report to write to
+     * 
+     * @return a list with the broken links as {@link CmsRelation} objects for the specified resource, 
+     *          or an empty list if no broken links were found
+     */
+    protected List<CmsRelation> validateRelations(
+        CmsDbContext dbc,
+        CmsResource resource,
+        List<CmsRelation> incomingRelationsOnline,
+        List<CmsRelation> outgoingRelationsOffline,
+        Map<String, CmsResource> fileLookup,
+        CmsProject project,
+        CmsBulkValidationData bulkData,
+        I_CmsReport report) {
+
+        List<CmsRelation> brokenRelations = new ArrayList<CmsRelation>();
+        Map<String, Boolean> validatedLinks = new HashMap<String, Boolean>();
+
         List<CmsRelation> relations = new ArrayList<CmsRelation>();
         relations.addAll(incomingRelationsOnline);
         relations.addAll(outgoingRelationsOffline);
@@ -443,7 +888,11 @@ public class CmsRelationSystemValidator {
             if (resource.getState().isDeleted()) {
                 result = checkLinkForDeletedLinkTarget(relation, link, fileLookup, outgoingRelationTargets);
             } else {
-                result = checkLinkForNewOrChangedLinkSource(dbc, resource, relation, link, project, fileLookup);
+                if (bulkData != null) {
+                    result = checkLinkForNewOrChangedLinkSource(relation, link, bulkData, fileLookup);
+                } else {
+                    result = checkLinkForNewOrChangedLinkSource(dbc, resource, relation, link, project, fileLookup);
+                }
 
             }
             boolean isValidLink = result;
@@ -480,4 +929,41 @@ public class CmsRelationSystemValidator {
         return brokenRelations;
     }
 
+    /**
+     * Adds a relation to the relation list stored for the given structure id.<p>
+     * 
+     * @param relations the relation lists keyed by structure id
+     * @param structureId the structure id 
+     * @param relation the relation to add
+     */
+    private void addRelation(Map<CmsUUID, List<CmsRelation>> relations, CmsUUID structureId, CmsRelation relation) {
+
+        List<CmsRelation> list = relations.get(structureId);
+        if (list == null) {
+            list = new ArrayList<CmsRelation>();
+            relations.put(structureId, list);
+        }
+        list.add(relation);
+    }
+
+    /**
+     * Creates a set based query reading the relations of a chunk of resources.<p>
+     * 
+     * @param projectId the id of the project to read the relations in
+     * @param filter the relation filter
+     * 
+     * @return the query
+     */
+    private I_CmsBulkQuery<CmsUUID, List<CmsRelation>> createReadRelationsQuery(
+        final CmsUUID projectId,
+        final CmsRelationFilter filter) {
+
+        return new I_CmsBulkQuery<CmsUUID, List<CmsRelation>>() {
+
+            public List<CmsRelation> execute(CmsDbContext dbc, List<CmsUUID> ids) throws CmsException {
+
+                return m_driverManager.getVfsDriver(dbc).readRelationsForResources(dbc, projectId, ids, filter);
+            }
+        };
+    }
 }
\ No newline at end of file
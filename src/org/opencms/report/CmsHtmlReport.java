@@ -107,16 +107,16 @@ public class CmsHtmlReport extends A_CmsReport {
         StringBuffer result = new StringBuffer();
         int indexEnd = m_content.size();
         for (int i = m_indexNext; i < indexEnd; i++) {
-            int pos = m_transient ? 0 : i;
-            Object obj = m_content.get(pos);
+            Object obj = m_content.get(i);
             if ((obj instanceof String) || (obj instanceof StringBuffer)) {
                 result.append(obj);
             } else if (obj instanceof Throwable) {
                 result.append(getExceptionElement((Throwable)obj));
             }
-            if (m_transient) {
-                m_content.remove(m_indexNext);
-            }
+        }
+        if (m_transient) {
+            // remove all reported entries at once, removing them one by one is quadratic
+            m_content.subList(0, indexEnd).clear();
         }
         m_indexNext = m_transient ? 0 : indexEnd;
         return result.toString();
@@ -188,7 +188,7 @@ public class CmsHtmlReport extends A_CmsReport {
             if (value.trim().endsWith(getLineBreak())) {
                 buf.append("aB(); ");
             }
-            m_content.add(buf.toString());
+            addContent(buf.toString());
         } else {
             switch (format) {
                 case FORMAT_HEADLINE:
@@ -230,7 +230,7 @@ public class CmsHtmlReport extends A_CmsReport {
             if (value.trim().endsWith(getLineBreak())) {
                 buf.append("\n");
             }
-            m_content.add(buf.toString());
+            addContent(buf.toString());
         }
         setLastEntryTime(System.currentTimeMillis());
     }
@@ -249,18 +249,21 @@ public class CmsHtmlReport extends A_CmsReport {
     public synchronized void println(Throwable t) {
 
         addError(t.getMessage());
-        m_content.add(t);
+        addContent(t);
         setLastEntryTime(System.currentTimeMillis());
     }
 
     /**
-     * Returns the correct line break notation depending on the output style of this report.
+     * Adds an entry to the content of this report.<p>
      * 
-     * @return the correct line break notation
+     * The entry is either an already formatted <code>String</code> or a 
+     * {@link Throwable} that is formatted when the report is updated.<p>
+     * 
+     * @param entry the entry to add
      */
-    protected String getLineBreak() {
+    protected void addContent(Object entry) {
 
-        return m_writeHtml ? LINEBREAK_TRADITIONAL : LINEBREAK;
+        m_content.add(entry);
     }
 
     /**
@@ -277,7 +280,7 @@ public class CmsHtmlReport extends A_CmsReport {
      * 
      * @return the formatted StringBuffer
      */
-    private StringBuffer getExceptionElement(Throwable throwable) {
+    protected StringBuffer getExceptionElement(Throwable throwable) {
 
         StringBuffer buf = new StringBuffer(256);
 
@@ -300,7 +303,6 @@ public class CmsHtmlReport extends A_CmsReport {
                 buf.append(CmsStringUtil.escapeJavaScript(throwable.toString()));
                 buf.append("'); ");
             }
-            m_content.add(buf);
         } else {
             if (m_showExceptionStackTrace) {
                 buf.append("<span class='throw'>");
@@ -324,4 +326,14 @@ public class CmsHtmlReport extends A_CmsReport {
         }
         return buf;
     }
+
+    /**
+     * Returns the correct line break notation depending on the output style of this report.
+     * 
+     * @return the correct line break notation
+     */
+    protected String getLineBreak() {
+
+        return m_writeHtml ? LINEBREAK_TRADITIONAL : LINEBREAK;
+    }
 }
\ No newline at end of file
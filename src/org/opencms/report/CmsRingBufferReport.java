@@ -0,0 +1,150 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.report;
+
+import java.util.Locale;
+
+/**
+ * HTML report that keeps only the most recent entries in a fixed size ring buffer.<p>
+ * 
+ * This report is intended for long running operations like publishing many thousand
+ * resources, where a {@link CmsHtmlReport} would keep the complete output in memory
+ * until the report is discarded. Every entry is formatted when it is added, so 
+ * no reported exception objects are kept either.<p>
+ * 
+ * Entries are numbered with a continuously increasing offset. A report viewer can request 
+ * all entries starting from a given offset with {@link #appendReportUpdate(long, StringBuffer)},
+ * so every update only costs the number of new entries. If a viewer falls behind more than 
+ * the capacity of the buffer, the oldest entries are skipped.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsRingBufferReport extends CmsHtmlReport {
+
+    /** The default number of entries kept in the buffer. */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /** The ring buffer with the formatted entries. */
+    private String[] m_entries;
+
+    /** The offset of the next entry to add, this is also the total number of entries added. */
+    private long m_offset;
+
+    /** The offset of the next entry returned by {@link #getReportUpdate()}. */
+    private long m_readOffset;
+
+    /**
+     * Constructs a new ring buffer report with the default capacity.<p>
+     * 
+     * @param locale the locale to use for the output language
+     * @param siteRoot the site root of the user who started this report (may be <code>null</code>)
+     */
+    public CmsRingBufferReport(Locale locale, String siteRoot) {
+
+        this(locale, siteRoot, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new ring buffer report.<p>
+     * 
+     * @param locale the locale to use for the output language
+     * @param siteRoot the site root of the user who started this report (may be <code>null</code>)
+     * @param capacity the maximum number of entries to keep in memory
+     */
+    public CmsRingBufferReport(Locale locale, String siteRoot, int capacity) {
+
+        super(locale, siteRoot, false, false);
+        m_entries = new String[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends all entries starting at the given offset to the given buffer.<p>
+     * 
+     * Entries that have already been removed from the ring buffer are skipped.<p>
+     * 
+     * @param offset the offset of the first entry to append
+     * @param result the buffer to append the entries to
+     * 
+     * @return the offset to use for the next update
+     */
+    public synchronized long appendReportUpdate(long offset, StringBuffer result) {
+
+        long start = Math.max(offset, m_offset - m_entries.length);
+        for (long i = start; i < m_offset; i++) {
+            result.append(m_entries[(int)(i % m_entries.length)]);
+        }
+        return m_offset;
+    }
+
+    /**
+     * Returns the maximum number of entries kept in memory.<p>
+     * 
+     * @return the maximum number of entries kept in memory
+     */
+    public int getCapacity() {
+
+        return m_entries.length;
+    }
+
+    /**
+     * Returns the offset of the next entry added to this report.<p>
+     * 
+     * @return the offset of the next entry added to this report
+     */
+    public synchronized long getOffset() {
+
+        return m_offset;
+    }
+
+    /**
+     * @see org.opencms.report.CmsHtmlReport#getReportUpdate()
+     */
+    @Override
+    public synchronized String getReportUpdate() {
+
+        StringBuffer result = new StringBuffer();
+        m_readOffset = appendReportUpdate(m_readOffset, result);
+        return result.toString();
+    }
+
+    /**
+     * @see org.opencms.report.CmsHtmlReport#addContent(java.lang.Object)
+     */
+    @Override
+    protected synchronized void addContent(Object entry) {
+
+        String content;
+        if (entry instanceof Throwable) {
+            content = getExceptionElement((Throwable)entry).toString();
+        } else {
+            content = String.valueOf(entry);
+        }
+        m_entries[(int)(m_offset % m_entries.length)] = content;
+        m_offset++;
+    }
+}
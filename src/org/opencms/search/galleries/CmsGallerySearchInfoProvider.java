@@ -29,7 +29,9 @@ package org.opencms.search.galleries;
 
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
+import org.opencms.file.types.CmsResourceTypeImage;
 import org.opencms.search.extractors.I_CmsExtractionResult;
 
 import java.util.List;
@@ -52,6 +54,9 @@ public final class CmsGallerySearchInfoProvider {
     /**
      * Provides additional information to be stored in the gallery search index.<p>
      * 
+     * For images, this is the value of the image size property, so the gallery dialog does not have to read 
+     * the property for every image in the search result.<p>
+     * 
      * @param cms the OpenCms context used for building the search index
      * @param res the resource that is indexed
      * @param extractionResult the plain text extraction result from the resource
@@ -67,7 +72,10 @@ public final class CmsGallerySearchInfoProvider {
         List<CmsProperty> properties,
         List<CmsProperty> propertiesSearched) {
 
-        return "Not yet implemented!";
+        if ((res.getTypeId() == CmsResourceTypeImage.getStaticTypeId()) && (properties != null)) {
+            return CmsProperty.get(CmsPropertyDefinition.PROPERTY_IMAGE_SIZE, properties).getValue();
+        }
+        return null;
     }
 
     /**
@@ -79,6 +79,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_LOGIN_FAILED_DISABLED_2 = "ERR_LOGIN_FAILED_DISABLED_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_LOGIN_FAILED_LIMIT_ADDRESS_3 = "ERR_LOGIN_FAILED_LIMIT_ADDRESS_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_LOGIN_FAILED_LIMIT_USER_3 = "ERR_LOGIN_FAILED_LIMIT_USER_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_LOGIN_FAILED_NO_USER_2 = "ERR_LOGIN_FAILED_NO_USER_2";
 
@@ -208,6 +214,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_INIT_CONFIG_CALLED_1 = "LOG_INIT_CONFIG_CALLED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_LOGIN_STORAGE_FULL_2 = "LOG_LOGIN_STORAGE_FULL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_PERMISSION_RESOURCE_USER_4 = "LOG_NO_PERMISSION_RESOURCE_USER_4";
 
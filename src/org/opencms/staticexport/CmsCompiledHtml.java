@@ -0,0 +1,215 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.relations.CmsLink;
+import org.opencms.util.CmsMacroResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of an HTML value with link macros, as processed by the {@link CmsLinkProcessor}.<p>
+ *
+ * The HTML is split into static text segments and link slots. Rendering the HTML only has to
+ * resolve the link macros of the slots against the link table and to concatenate the segments,
+ * the HTML parser is not needed anymore.<p>
+ *
+ * Instances are immutable and may be shared between threads.<p>
+ *
+ * @since 8.5.2
+ */
+public final class CmsCompiledHtml {
+
+    /** Marker for HTML which can not be compiled, always rendered with the HTML parser. */
+    static final CmsCompiledHtml NOT_COMPILABLE = new CmsCompiledHtml(null, null, null, null);
+
+    /** The character used to mark the link slots in the HTML created by the parser. */
+    static final char SLOT_MARKER = '\uE000';
+
+    /** The flags indicating if the slots are parameters of an object tag. */
+    private final boolean[] m_params;
+
+    /** The quote characters of the attribute values of the slots, <code>0</code> if not quoted. */
+    private final char[] m_quotes;
+
+    /** The static text segments, there is one more segment than slots. */
+    private final String[] m_segments;
+
+    /** The original attribute values (the link macros) of the slots. */
+    private final String[] m_values;
+
+    /**
+     * Creates a new compiled HTML value.<p>
+     *
+     * @param segments the static text segments
+     * @param values the original attribute values of the slots
+     * @param params the flags indicating if the slots are parameters of an object tag
+     * @param quotes the quote characters of the attribute values of the slots
+     */
+    private CmsCompiledHtml(String[] segments, String[] values, boolean[] params, char[] quotes) {
+
+        m_segments = segments;
+        m_values = values;
+        m_params = params;
+        m_quotes = quotes;
+    }
+
+    /**
+     * Creates the compiled form from the HTML written by the parser with numbered slot markers
+     * in place of the link attribute values.<p>
+     *
+     * @param html the HTML with the slot markers
+     * @param values the original attribute values of the slots, by slot number
+     * @param params the flags indicating if the slots are parameters of an object tag, by slot number
+     * @param quotes the quote characters of the attribute values of the slots, by slot number
+     *
+     * @return the compiled form, or {@link #NOT_COMPILABLE} if the markers do not match the slots
+     */
+    static CmsCompiledHtml create(String html, List<String> values, List<Boolean> params, List<Character> quotes) {
+
+        int count = values.size();
+        List<String> segments = new ArrayList<String>(count + 1);
+        String[] slotValues = new String[count];
+        boolean[] slotParams = new boolean[count];
+        char[] slotQuotes = new char[count];
+        boolean[] used = new boolean[count];
+        int pos = 0;
+        int start = html.indexOf(SLOT_MARKER);
+        while (start >= 0) {
+            int end = html.indexOf(SLOT_MARKER, start + 1);
+            if (end < 0) {
+                return NOT_COMPILABLE;
+            }
+            int slot;
+            try {
+                slot = Integer.parseInt(html.substring(start + 1, end));
+            } catch (NumberFormatException e) {
+                return NOT_COMPILABLE;
+            }
+            if ((slot < 0) || (slot >= count) || used[slot]) {
+                return NOT_COMPILABLE;
+            }
+            used[slot] = true;
+            int index = segments.size();
+            slotValues[index] = values.get(slot);
+            slotParams[index] = params.get(slot).booleanValue();
+            slotQuotes[index] = quotes.get(slot).charValue();
+            segments.add(html.substring(pos, start));
+            pos = end + 1;
+            start = html.indexOf(SLOT_MARKER, pos);
+        }
+        if (segments.size() != count) {
+            // some slots were not written by the parser
+            return NOT_COMPILABLE;
+        }
+        segments.add(html.substring(pos));
+        return new CmsCompiledHtml(segments.toArray(new String[count + 1]), slotValues, slotParams, slotQuotes);
+    }
+
+    /**
+     * Returns the number of link slots.<p>
+     *
+     * @return the number of link slots
+     */
+    public int getSlotCount() {
+
+        return (m_values != null) ? m_values.length : 0;
+    }
+
+    /**
+     * Returns if the HTML could be compiled.<p>
+     *
+     * @return <code>true</code> if the HTML could be compiled
+     */
+    public boolean isCompiled() {
+
+        return m_segments != null;
+    }
+
+    /**
+     * Renders the HTML, replacing the link macros with the links from the given link table.<p>
+     *
+     * The result is the same as the result of {@link CmsLinkProcessor#processLinks(String)}.
+     * If a resolved link would change the quoting of its attribute, <code>null</code> is returned
+     * and the HTML has to be processed with the HTML parser.<p>
+     *
+     * @param cms the current users OpenCms context
+     * @param linkTable the link table to resolve the link macros with
+     *
+     * @return the rendered HTML, or <code>null</code> if it has to be processed with the HTML parser
+     */
+    public String resolve(CmsObject cms, CmsLinkTable linkTable) {
+
+        if (m_segments == null) {
+            return null;
+        }
+        String[] resolved = new String[m_values.length];
+        int length = 0;
+        for (int i = 0; i < m_values.length; i++) {
+            String value = m_values[i];
+            CmsLink link = linkTable.getLink(CmsMacroResolver.stripMacro(value));
+            if (link != null) {
+                value = CmsEncoder.escapeXml(CmsLinkProcessor.getLinkValue(cms, link, m_params[i]));
+                if ((m_quotes[i] != '"') && containsWhitespace(value)) {
+                    // the HTML parser would change the quotes of the attribute
+                    return null;
+                }
+            }
+            resolved[i] = value;
+            length += value.length() + m_segments[i].length();
+        }
+        StringBuilder result = new StringBuilder(length + m_segments[m_values.length].length());
+        for (int i = 0; i < resolved.length; i++) {
+            result.append(m_segments[i]);
+            result.append(resolved[i]);
+        }
+        result.append(m_segments[m_values.length]);
+        return result.toString();
+    }
+
+    /**
+     * Checks if the given value contains a whitespace character.<p>
+     *
+     * @param value the value to check
+     *
+     * @return <code>true</code> if the given value contains a whitespace character
+     */
+    private boolean containsWhitespace(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
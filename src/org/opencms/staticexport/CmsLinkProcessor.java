@@ -33,13 +33,19 @@ import org.opencms.file.wrapper.CmsObjectWrapper;
 import org.opencms.i18n.CmsEncoder;
 import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.relations.CmsLink;
 import org.opencms.relations.CmsRelationType;
+import org.opencms.util.CmsCollectionsGenericWrapper;
 import org.opencms.util.CmsHtmlParser;
 import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import org.htmlparser.Attribute;
@@ -68,6 +74,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Constant for the attribute name. */
     public static final String ATTRIBUTE_VALUE = "value";
 
+    /** The maximum number of compiled HTML values cached for the online project. */
+    public static final int COMPILED_CACHE_SIZE = 2048;
+
     /** HTML end. */
     public static final String HTML_END = "</body></html>";
 
@@ -83,6 +92,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Constant for the tag name. */
     public static final String TAG_PARAM = "PARAM";
 
+    /** Processing mode "compile links". */
+    private static final int COMPILE_LINKS = 2;
+
     /** List of attributes that may contain links for the embed tag. */
     private static final String[] EMBED_TAG_LINKED_ATTRIBS = new String[] {ATTRIBUTE_SRC, "pluginurl", "pluginspage"};
 
@@ -95,6 +107,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Processing mode "replace links". */
     private static final int REPLACE_LINKS = 0;
 
+    /** The compiled HTML values of the online project, by HTML content, <code>null</code> if not used yet. */
+    private static Map<String, CmsCompiledHtml> m_compiledCache;
+
     /** The current users OpenCms context, containing the users permission and site root context. */
     private CmsObject m_cms;
 
@@ -113,6 +128,15 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Another OpenCms context based on the current users OpenCms context, but with the site root set to '/'. */
     private CmsObject m_rootCms;
 
+    /** The flags indicating if the link slots are parameters of an object tag (only used in "compile" mode). */
+    private List<Boolean> m_slotParams;
+
+    /** The quote characters of the link slots (only used in "compile" mode). */
+    private List<Character> m_slotQuotes;
+
+    /** The original attribute values of the link slots (only used in "compile" mode). */
+    private List<String> m_slotValues;
+
     /**
      * Creates a new link processor.<p>
      * 
@@ -193,6 +217,67 @@ public class CmsLinkProcessor extends CmsHtmlParser {
 
     }
 
+    /**
+     * Returns the link to write for the given link table entry.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param link the link table entry
+     * @param param <code>true</code> if the link is the value of a parameter of an object tag
+     * 
+     * @return the link to write
+     */
+    static String getLinkValue(CmsObject cms, CmsLink link, boolean param) {
+
+        // link management check
+        String l = link.getLink(cms);
+        if (param) {
+            // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
+            // another solution should be a kind of macro...
+            if (!l.endsWith(CmsRequestUtil.URL_DELIMITER) && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
+                if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
+                    l += CmsRequestUtil.PARAMETER_DELIMITER;
+                } else {
+                    l += CmsRequestUtil.URL_DELIMITER;
+                }
+            }
+        }
+        return l;
+    }
+
+    /**
+     * Compiles the given content with link macros into static text segments and link slots.<p>
+     * 
+     * The compiled form renders the same result as {@link #processLinks(String)}, 
+     * but without parsing the content again.<p>
+     * 
+     * @param content the content to compile
+     * 
+     * @return the compiled content, not compiled if the content can not be compiled
+     * 
+     * @throws ParserException if something goes wrong
+     * 
+     * @see CmsCompiledHtml#isCompiled()
+     */
+    public CmsCompiledHtml compileLinks(String content) throws ParserException {
+
+        if (content.indexOf(CmsCompiledHtml.SLOT_MARKER) >= 0) {
+            // the marker can not be used for this content
+            return CmsCompiledHtml.NOT_COMPILABLE;
+        }
+        m_mode = COMPILE_LINKS;
+        m_slotValues = new ArrayList<String>();
+        m_slotParams = new ArrayList<Boolean>();
+        m_slotQuotes = new ArrayList<Character>();
+        try {
+            String html = process(content, m_encoding);
+            return CmsCompiledHtml.create(html, m_slotValues, m_slotParams, m_slotQuotes);
+        } finally {
+            m_slotValues = null;
+            m_slotParams = null;
+            m_slotQuotes = null;
+        }
+    }
+
     /**
      * Returns the link table this link processor was initialized with.<p>
      * 
@@ -208,13 +293,33 @@ public class CmsLinkProcessor extends CmsHtmlParser {
      * 
      * Macros are replaced by links.<p>
      * 
+     * In the online project, the compiled form of the content is cached, so the content
+     * is parsed only once.<p>
+     * 
      * @param content the content to process
      * @return the processed content with replaced macros
      * 
      * @throws ParserException if something goes wrong
+     * 
+     * @see #compileLinks(String)
      */
     public String processLinks(String content) throws ParserException {
 
+        if ((m_cms != null)
+            && m_cms.getRequestContext().getCurrentProject().isOnlineProject()
+            && (getClass() == CmsLinkProcessor.class)) {
+            // subclasses may change the processing, so only use the compiled form for this class
+            Map<String, CmsCompiledHtml> cache = getCompiledCache();
+            CmsCompiledHtml compiled = cache.get(content);
+            if (compiled == null) {
+                compiled = compileLinks(content);
+                cache.put(content, compiled);
+            }
+            String result = compiled.resolve(m_cms, m_linkTable);
+            if (result != null) {
+                return result;
+            }
+        }
         m_mode = PROCESS_LINKS;
         return process(content, m_encoding);
     }
@@ -312,24 +417,23 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                 // macros are replaced with links
                 link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
                 if (link != null) {
-                    // link management check
-                    String l = link.getLink(m_cms);
-                    if (TAG_PARAM.equals(tag.getTagName())) {
-                        // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
-                        // another solution should be a kind of macro...
-                        if (!l.endsWith(CmsRequestUtil.URL_DELIMITER)
-                            && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
-                            if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
-                                l += CmsRequestUtil.PARAMETER_DELIMITER;
-                            } else {
-                                l += CmsRequestUtil.URL_DELIMITER;
-                            }
-                        }
-                    }
                     // set the real target
+                    String l = getLinkValue(m_cms, link, TAG_PARAM.equals(tag.getTagName()));
                     tag.setAttribute(attr, CmsEncoder.escapeXml(l));
                 }
                 break;
+            case COMPILE_LINKS:
+                // macros are replaced with slot markers, the links are resolved when rendering
+                String value = tag.getAttribute(attr);
+                if (CmsMacroResolver.isMacro(value)) {
+                    int slot = m_slotValues.size();
+                    m_slotValues.add(value);
+                    m_slotParams.add(Boolean.valueOf(TAG_PARAM.equals(tag.getTagName())));
+                    m_slotQuotes.add(Character.valueOf(tag.getAttributeEx(attr).getQuote()));
+                    tag.setAttribute(attr, CmsCompiledHtml.SLOT_MARKER + String.valueOf(slot)
+                        + CmsCompiledHtml.SLOT_MARKER);
+                }
+                break;
             case REPLACE_LINKS:
                 // links are replaced with macros
                 String targetUri = tag.getAttribute(attr);
@@ -439,6 +543,25 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         }
     }
 
+    /**
+     * Returns the compiled HTML cache, creating it if required.<p>
+     * 
+     * @return the compiled HTML cache
+     */
+    private static synchronized Map<String, CmsCompiledHtml> getCompiledCache() {
+
+        if (m_compiledCache == null) {
+            Map<String, CmsCompiledHtml> lruMap = CmsCollectionsGenericWrapper.createLRUMap(COMPILED_CACHE_SIZE);
+            CmsMemoryMonitor monitor = OpenCms.getMemoryMonitor();
+            if (monitor != null) {
+                // map must be of type "LRUMap" so that memory monitor can access all information
+                monitor.register(CmsLinkProcessor.class.getName() + ".compiledCache", lruMap);
+            }
+            m_compiledCache = Collections.synchronizedMap(lruMap);
+        }
+        return m_compiledCache;
+    }
+
     /**
      * Use the {@link org.opencms.file.wrapper.CmsObjectWrapper} to restore the link in the VFS.<p>
      * 
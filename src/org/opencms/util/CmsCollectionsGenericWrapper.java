@@ -27,6 +27,8 @@
 
 package org.opencms.util;
 
+import org.opencms.monitor.CmsWeightedLruMap;
+
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
@@ -95,6 +97,25 @@ public final class CmsCollectionsGenericWrapper {
         return new LRUMap(size);
     }
 
+    /**
+     * Provides a wrapper to create a {@link LRUMap} with the given size that is also bounded by 
+     * the estimated memory size of its entries, avoiding warnings with Java 1.5 generic code.<p> 
+     * 
+     * @param <K> the type of keys maintained by the returned map
+     * @param <V> the type of mapped values
+     * @param size the maximum number of entries of the created Map
+     * @param maxBytes the maximum estimated memory size of the entries in bytes, <code>0</code> for no limit
+     * 
+     * @return a {@link LRUMap} with the given limits of the required generic type
+     * 
+     * @see CmsWeightedLruMap
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Map<K, V> createWeightedLRUMap(int size, long maxBytes) {
+
+        return new CmsWeightedLruMap(size, maxBytes);
+    }
+
     /**
      * Provides a wrapper to convert an enumeration that avoids warnings with Java 1.5 generic code.<p> 
      * 
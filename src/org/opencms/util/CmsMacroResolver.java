@@ -172,6 +172,35 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
     /** The "magic" commands wrapped in a List. */
     public static final List<String> VALUE_NAMES = Collections.unmodifiableList(Arrays.asList(VALUE_NAMES_ARRAY));
 
+    /** The names of the macros that are resolved using the OpenCms user context. */
+    private static final String[] CMS_MACRO_NAMES_ARRAY = {KEY_CURRENT_USER_NAME, // 0
+        KEY_CURRENT_USER_FIRSTNAME, // 1
+        KEY_CURRENT_USER_LASTNAME, // 2
+        KEY_CURRENT_USER_DISPLAYNAME, // 3
+        KEY_CURRENT_ORGUNIT_FQN, // 4
+        KEY_CURRENT_ORGUNIT_DESCRIPTION, // 5
+        KEY_CURRENT_USER_FULLNAME, // 6
+        KEY_CURRENT_USER_EMAIL, // 7
+        KEY_CURRENT_USER_STREET, // 8
+        KEY_CURRENT_USER_ZIP, // 9
+        KEY_CURRENT_USER_COUNTRY, // 10
+        KEY_CURRENT_USER_CITY, // 11
+        KEY_CURRENT_USER_LASTLOGIN, // 12
+        KEY_REQUEST_SITEROOT, // 13
+        KEY_REQUEST_URI, // 14
+        KEY_REQUEST_FOLDER, // 15
+        KEY_REQUEST_ENCODING, // 16
+        KEY_REQUEST_LOCALE, // 17
+        KEY_CONTEXT_PATH, // 18
+        KEY_CURRENT_USER_INSTITUTION // 19
+    };
+
+    /** The indexes of the macros that are resolved using the OpenCms user context, used to dispatch the macros. */
+    private static final Map<String, Integer> CMS_MACRO_INDEXES = createIndexes(CMS_MACRO_NAMES_ARRAY);
+
+    /** The indexes of the "magic" commands, used to dispatch the commands. */
+    private static final Map<String, Integer> VALUE_NAME_INDEXES = createIndexes(VALUE_NAMES_ARRAY);
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsMacroResolver.class);
 
@@ -321,6 +350,9 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
      * <code>{@link I_CmsMacroResolver#isKeepEmptyMacros()}</code> controls if the macro is replaced by
      * an empty String, or is left untouched in the input.<p>
      * 
+     * The input is parsed into a {@link CmsMacroTemplate}, which is cached, 
+     * so that inputs used repeatedly are scanned for macros only once.<p>
+     * 
      * @param input the input in which to resolve the macros
      * @param resolver the macro resolver to use
      * 
@@ -333,109 +365,14 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
             return input;
         }
 
-        int pn = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER);
-        int po = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD);
-
-        if ((po == -1) && (pn == -1)) {
+        if ((input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER) == -1)
+            && (input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD) == -1)) {
             // no macro delimiter found in input
             return input;
         }
 
-        int len = input.length();
-        StringBuffer result = new StringBuffer(len << 1);
-        int np, pp1, pp2, e;
-        String macro, value;
-        boolean keep = resolver.isKeepEmptyMacros();
-        boolean resolvedNone = true;
-        char ds, de;
-        int p;
-
-        if ((po == -1) || ((pn > -1) && (pn < po))) {
-            p = pn;
-            ds = I_CmsMacroResolver.MACRO_START;
-            de = I_CmsMacroResolver.MACRO_END;
-        } else {
-            p = po;
-            ds = I_CmsMacroResolver.MACRO_START_OLD;
-            de = I_CmsMacroResolver.MACRO_END_OLD;
-        }
-
-        // append chars before the first delimiter found
-        result.append(input.substring(0, p));
-        do {
-            pp1 = p + 1;
-            pp2 = pp1 + 1;
-            if (pp2 >= len) {
-                // remaining chars can't be a macro (minimum size is 3)
-                result.append(input.substring(p, len));
-                break;
-            }
-            // get the next macro delimiter
-            if ((pn > -1) && (pn < pp1)) {
-                pn = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER, pp1);
-            }
-            if ((po > -1) && (po < pp1)) {
-                po = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD, pp1);
-            }
-            if ((po == -1) && (pn == -1)) {
-                // none found, make sure remaining chars in this segment are appended
-                np = len;
-            } else {
-                // check if the next delimiter is old or new style
-                if ((po == -1) || ((pn > -1) && (pn < po))) {
-                    np = pn;
-                } else {
-                    np = po;
-                }
-            }
-            // check if the next char is a "macro start"
-            char st = input.charAt(pp1);
-            if (st == ds) {
-                // we have a starting macro sequence "${" or "%(", now check if this segment contains a "}" or ")"
-                e = input.indexOf(de, p);
-                if ((e > 0) && (e < np)) {
-                    // this segment contains a closing macro delimiter "}" or "]", so we may have found a macro
-                    macro = input.substring(pp2, e);
-                    // resolve macro
-                    value = resolver.getMacroValue(macro);
-                    e++;
-                    if (value != null) {
-                        // macro was successfully resolved
-                        result.append(value);
-                        resolvedNone = false;
-                    } else if (keep) {
-                        // macro was unknown, but should be kept
-                        result.append(input.substring(p, e));
-                    }
-                } else {
-                    // no complete macro "${...}" or "%(...)" in this segment
-                    e = p;
-                }
-            } else {
-                // no macro start char after the "$" or "%"
-                e = p;
-            }
-            // set macro style for next delimiter found
-            if (np == pn) {
-                ds = I_CmsMacroResolver.MACRO_START;
-                de = I_CmsMacroResolver.MACRO_END;
-            } else {
-                ds = I_CmsMacroResolver.MACRO_START_OLD;
-                de = I_CmsMacroResolver.MACRO_END_OLD;
-            }
-            // append the remaining chars after the macro to the start of the next macro
-            result.append(input.substring(e, np));
-            // this is a nerdy joke ;-)
-            p = np;
-        } while (p < len);
-
-        if (resolvedNone && keep) {
-            // nothing was resolved and macros should be kept, return original input
-            return input;
-        }
-
-        // input was changed during resolving of macros
-        return result.toString();
+        // the input is parsed only once and then resolved from the cached template
+        return CmsMacroTemplate.compile(input).resolve(resolver);
     }
 
     /**
@@ -593,10 +530,10 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
 
                 String originalKey = macro;
                 macro = macro.substring(CmsMacroResolver.KEY_OPENCMS.length());
-                int index = VALUE_NAMES.indexOf(macro);
+                Integer index = VALUE_NAME_INDEXES.get(macro);
                 String value = null;
 
-                switch (index) {
+                switch ((index != null) ? index.intValue() : -1) {
                     case 0:
                         // "uri"
                         value = m_cms.getRequestContext().getUri();
@@ -638,127 +575,100 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
                 return value;
             }
 
-            if (CmsMacroResolver.KEY_CURRENT_USER_NAME.equals(macro)) {
-                // the key is the current users login name
-                return m_cms.getRequestContext().getCurrentUser().getName();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_FIRSTNAME.equals(macro)) {
-                // the key is the current users first name
-                return m_cms.getRequestContext().getCurrentUser().getFirstname();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_LASTNAME.equals(macro)) {
-                // the key is the current users last name
-                return m_cms.getRequestContext().getCurrentUser().getLastname();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_DISPLAYNAME.equals(macro)) {
-                // the key is the current users display name
-                try {
-                    if (m_messages != null) {
-                        return m_cms.getRequestContext().getCurrentUser().getDisplayName(m_cms, m_messages.getLocale());
-                    } else {
-                        return m_cms.getRequestContext().getCurrentUser().getDisplayName(
+            Integer index = CMS_MACRO_INDEXES.get(macro);
+            switch ((index != null) ? index.intValue() : -1) {
+                case 0:
+                    // the key is the current users login name
+                    return m_cms.getRequestContext().getCurrentUser().getName();
+                case 1:
+                    // the key is the current users first name
+                    return m_cms.getRequestContext().getCurrentUser().getFirstname();
+                case 2:
+                    // the key is the current users last name
+                    return m_cms.getRequestContext().getCurrentUser().getLastname();
+                case 3:
+                    // the key is the current users display name
+                    try {
+                        if (m_messages != null) {
+                            return m_cms.getRequestContext().getCurrentUser().getDisplayName(
+                                m_cms,
+                                m_messages.getLocale());
+                        } else {
+                            return m_cms.getRequestContext().getCurrentUser().getDisplayName(
+                                m_cms,
+                                m_cms.getRequestContext().getLocale());
+                        }
+                    } catch (CmsException e) {
+                        // ignore, macro can not be resolved
+                    }
+                    break;
+                case 4:
+                    // the key is the current organizational unit fully qualified name
+                    return m_cms.getRequestContext().getOuFqn();
+                case 5:
+                    // the key is the current organizational unit description
+                    try {
+                        CmsOrganizationalUnit ou = OpenCms.getOrgUnitManager().readOrganizationalUnit(
                             m_cms,
-                            m_cms.getRequestContext().getLocale());
+                            m_cms.getRequestContext().getOuFqn());
+                        if (m_messages != null) {
+                            return ou.getDescription(m_messages.getLocale());
+                        } else {
+                            return ou.getDescription(m_cms.getRequestContext().getLocale());
+                        }
+                    } catch (CmsException e) {
+                        // ignore, macro can not be resolved
                     }
-                } catch (CmsException e) {
-                    // ignore, macro can not be resolved
-                }
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_ORGUNIT_FQN.equals(macro)) {
-                // the key is the current organizational unit fully qualified name
-                return m_cms.getRequestContext().getOuFqn();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_ORGUNIT_DESCRIPTION.equals(macro)) {
-                // the key is the current organizational unit description
-                try {
-                    CmsOrganizationalUnit ou = OpenCms.getOrgUnitManager().readOrganizationalUnit(
-                        m_cms,
-                        m_cms.getRequestContext().getOuFqn());
+                    break;
+                case 6:
+                    // the key is the current users full name
+                    return m_cms.getRequestContext().getCurrentUser().getFullName();
+                case 7:
+                    // the key is the current users email address
+                    return m_cms.getRequestContext().getCurrentUser().getEmail();
+                case 8:
+                    // the key is the current users address
+                    return m_cms.getRequestContext().getCurrentUser().getAddress();
+                case 9:
+                    // the key is the current users zip code
+                    return m_cms.getRequestContext().getCurrentUser().getZipcode();
+                case 10:
+                    // the key is the current users country
+                    return m_cms.getRequestContext().getCurrentUser().getCountry();
+                case 11:
+                    // the key is the current users city
+                    return m_cms.getRequestContext().getCurrentUser().getCity();
+                case 12:
                     if (m_messages != null) {
-                        return ou.getDescription(m_messages.getLocale());
-                    } else {
-                        return ou.getDescription(m_cms.getRequestContext().getLocale());
+                        // the key is the current users last login timestamp
+                        return m_messages.getDateTime(m_cms.getRequestContext().getCurrentUser().getLastlogin());
                     }
-                } catch (CmsException e) {
-                    // ignore, macro can not be resolved
-                }
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_FULLNAME.equals(macro)) {
-                // the key is the current users full name
-                return m_cms.getRequestContext().getCurrentUser().getFullName();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_EMAIL.equals(macro)) {
-                // the key is the current users email address
-                return m_cms.getRequestContext().getCurrentUser().getEmail();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_STREET.equals(macro)) {
-                // the key is the current users address
-                return m_cms.getRequestContext().getCurrentUser().getAddress();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_ZIP.equals(macro)) {
-                // the key is the current users zip code
-                return m_cms.getRequestContext().getCurrentUser().getZipcode();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_COUNTRY.equals(macro)) {
-                // the key is the current users country
-                return m_cms.getRequestContext().getCurrentUser().getCountry();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_CITY.equals(macro)) {
-                // the key is the current users city
-                return m_cms.getRequestContext().getCurrentUser().getCity();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_LASTLOGIN.equals(macro) && (m_messages != null)) {
-                // the key is the current users last login timestamp
-                return m_messages.getDateTime(m_cms.getRequestContext().getCurrentUser().getLastlogin());
-            }
-
-            if (CmsMacroResolver.KEY_REQUEST_SITEROOT.equals(macro)) {
-                // the key is the currently requested site root
-                return m_cms.getRequestContext().getSiteRoot();
-            }
-
-            if (CmsMacroResolver.KEY_REQUEST_URI.equals(macro)) {
-                // the key is the currently requested uri
-                return m_cms.getRequestContext().getUri();
-            }
-
-            if (CmsMacroResolver.KEY_REQUEST_FOLDER.equals(macro)) {
-                // the key is the currently requested folder
-                return CmsResource.getParentFolder(m_cms.getRequestContext().getUri());
-            }
-
-            if (CmsMacroResolver.KEY_REQUEST_ENCODING.equals(macro)) {
-                // the key is the current encoding of the request
-                return m_cms.getRequestContext().getEncoding();
-            }
-
-            if (CmsMacroResolver.KEY_REQUEST_LOCALE.equals(macro)) {
-                // the key is the current locale of the request
-                return m_cms.getRequestContext().getLocale().toString();
-            }
-
-            if (CmsMacroResolver.KEY_CONTEXT_PATH.equals(macro)) {
-                // the key is the OpenCms context path
-                return OpenCms.getSystemInfo().getContextPath();
-            }
-
-            if (CmsMacroResolver.KEY_CURRENT_USER_INSTITUTION.equals(macro)) {
-                // the key is the current users institution
-                return m_cms.getRequestContext().getCurrentUser().getInstitution();
+                    break;
+                case 13:
+                    // the key is the currently requested site root
+                    return m_cms.getRequestContext().getSiteRoot();
+                case 14:
+                    // the key is the currently requested uri
+                    return m_cms.getRequestContext().getUri();
+                case 15:
+                    // the key is the currently requested folder
+                    return CmsResource.getParentFolder(m_cms.getRequestContext().getUri());
+                case 16:
+                    // the key is the current encoding of the request
+                    return m_cms.getRequestContext().getEncoding();
+                case 17:
+                    // the key is the current locale of the request
+                    return m_cms.getRequestContext().getLocale().toString();
+                case 18:
+                    // the key is the OpenCms context path
+                    return OpenCms.getSystemInfo().getContextPath();
+                case 19:
+                    // the key is the current users institution
+                    return m_cms.getRequestContext().getCurrentUser().getInstitution();
+                default:
+                    // no macro resolved using the OpenCms user context
+                    break;
             }
-
         }
 
         if (CmsMacroResolver.KEY_CURRENT_TIME.equals(macro)) {
@@ -916,4 +826,20 @@ public class CmsMacroResolver implements I_CmsMacroResolver {
         m_resourceName = resourceName;
         return this;
     }
+
+    /**
+     * Creates a map from the given names to their index in the given array.<p>
+     * 
+     * @param names the names to create the map for
+     * 
+     * @return a map from the given names to their index in the given array
+     */
+    private static Map<String, Integer> createIndexes(String[] names) {
+
+        Map<String, Integer> result = new HashMap<String, Integer>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            result.put(names[i], Integer.valueOf(i));
+        }
+        return Collections.unmodifiableMap(result);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,356 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A template with macros in the form of <code>%(key)</code> or <code>${key}</code> that has been parsed 
+ * into literal text and macro segments.<p>
+ * 
+ * The macros of a compiled template can be resolved any number of times without scanning the template 
+ * for macro delimiters again. The result is the same as the result of 
+ * {@link CmsMacroResolver#resolveMacros(String, I_CmsMacroResolver)} for the template String.<p>
+ * 
+ * Use {@link #compile(String)} to obtain the compiled form of a template, which caches the compiled templates 
+ * by their template String.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsMacroTemplate {
+
+    /** The maximum number of compiled templates in the cache. */
+    public static final int MAX_CACHE_SIZE = 2048;
+
+    /** The maximum length of a template that is cached. */
+    public static final int MAX_CACHED_LENGTH = 1024;
+
+    /** The cache of compiled templates. */
+    private static final Map<String, CmsMacroTemplate> CACHE = new ConcurrentHashMap<String, CmsMacroTemplate>();
+
+    /** The literal text before each macro, and after the last macro. */
+    private final String[] m_literals;
+
+    /** The names of the macros. */
+    private final String[] m_macros;
+
+    /** The macros as they appear in the template, including the delimiters. */
+    private final String[] m_macroTexts;
+
+    /** The template String. */
+    private final String m_template;
+
+    /**
+     * Creates a new compiled template by parsing the given template String.<p>
+     * 
+     * @param template the template String to parse
+     */
+    public CmsMacroTemplate(String template) {
+
+        m_template = template;
+        List<String> literals = new ArrayList<String>();
+        List<String> macros = new ArrayList<String>();
+        List<String> macroTexts = new ArrayList<String>();
+        parse(template, literals, macros, macroTexts);
+        m_literals = literals.toArray(new String[literals.size()]);
+        m_macros = macros.toArray(new String[macros.size()]);
+        m_macroTexts = macroTexts.toArray(new String[macroTexts.size()]);
+    }
+
+    /**
+     * Removes all compiled templates from the cache.<p>
+     */
+    public static void clearCache() {
+
+        CACHE.clear();
+    }
+
+    /**
+     * Returns the compiled form of the given template String.<p>
+     * 
+     * Templates up to {@link #MAX_CACHED_LENGTH} characters are cached. The cache holds up to 
+     * {@link #MAX_CACHE_SIZE} templates and is cleared when it is full.<p>
+     * 
+     * @param template the template String
+     * 
+     * @return the compiled template
+     */
+    public static CmsMacroTemplate compile(String template) {
+
+        if ((template == null) || (template.length() > MAX_CACHED_LENGTH)) {
+            return new CmsMacroTemplate(template);
+        }
+        CmsMacroTemplate result = CACHE.get(template);
+        if (result == null) {
+            result = new CmsMacroTemplate(template);
+            if (CACHE.size() >= MAX_CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(template, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of compiled templates in the cache.<p>
+     * 
+     * @return the number of compiled templates in the cache
+     */
+    public static int getCacheSize() {
+
+        return CACHE.size();
+    }
+
+    /**
+     * Returns the names of the macros in this template, in the order they appear.<p>
+     * 
+     * @return the names of the macros in this template
+     */
+    public List<String> getMacros() {
+
+        List<String> result = new ArrayList<String>(m_macros.length);
+        for (String macro : m_macros) {
+            result.add(macro);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the template String.<p>
+     * 
+     * @return the template String
+     */
+    public String getTemplate() {
+
+        return m_template;
+    }
+
+    /**
+     * Returns <code>true</code> if this template contains macros.<p>
+     * 
+     * @return <code>true</code> if this template contains macros
+     */
+    public boolean hasMacros() {
+
+        return m_macros.length > 0;
+    }
+
+    /**
+     * Resolves the macros of this template using the given macro resolver.<p>
+     * 
+     * Unlike {@link CmsMacroResolver#resolveMacros(String)}, this resolves the macros only once, 
+     * so macros contained in the macro values are not resolved.<p>
+     * 
+     * @param resolver the macro resolver to use
+     * 
+     * @return the template with the macros resolved
+     */
+    public String resolve(I_CmsMacroResolver resolver) {
+
+        if (m_macros.length == 0) {
+            return m_template;
+        }
+        StringBuilder result = new StringBuilder(m_template.length() << 1);
+        boolean resolvedNone = true;
+        try {
+            resolvedNone = write(resolver, result);
+        } catch (IOException e) {
+            // can not happen for a String builder
+        }
+        if (resolvedNone && resolver.isKeepEmptyMacros()) {
+            // nothing was resolved and macros should be kept, return original template
+            return m_template;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Resolves the macros of this template using the given macro resolver 
+     * and writes the result to the given output.<p>
+     * 
+     * @param resolver the macro resolver to use
+     * @param out the output to write the result to
+     * 
+     * @throws IOException if writing to the output fails
+     */
+    public void resolve(I_CmsMacroResolver resolver, Appendable out) throws IOException {
+
+        if (m_macros.length == 0) {
+            if (m_template != null) {
+                out.append(m_template);
+            }
+            return;
+        }
+        write(resolver, out);
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+
+        return m_template;
+    }
+
+    /**
+     * Parses a template String into literal text and macro segments.<p>
+     * 
+     * This uses the same rules as {@link CmsMacroResolver#resolveMacros(String, I_CmsMacroResolver)}
+     * for finding the macros in the input.<p>
+     * 
+     * @param input the template String to parse
+     * @param literals the list to add the literal text before each macro and after the last macro to
+     * @param macros the list to add the names of the macros to
+     * @param macroTexts the list to add the macros including the delimiters to
+     */
+    private static void parse(String input, List<String> literals, List<String> macros, List<String> macroTexts) {
+
+        if ((input == null) || (input.length() < 3)) {
+            // macro must have at last 3 chars "${}" or "%()"
+            literals.add(input);
+            return;
+        }
+
+        int pn = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER);
+        int po = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD);
+
+        if ((po == -1) && (pn == -1)) {
+            // no macro delimiter found in input
+            literals.add(input);
+            return;
+        }
+
+        int len = input.length();
+        StringBuffer literal = new StringBuffer(len);
+        int np, pp1, pp2, e;
+        char ds, de;
+        int p;
+
+        if ((po == -1) || ((pn > -1) && (pn < po))) {
+            p = pn;
+            ds = I_CmsMacroResolver.MACRO_START;
+            de = I_CmsMacroResolver.MACRO_END;
+        } else {
+            p = po;
+            ds = I_CmsMacroResolver.MACRO_START_OLD;
+            de = I_CmsMacroResolver.MACRO_END_OLD;
+        }
+
+        // append chars before the first delimiter found
+        literal.append(input, 0, p);
+        do {
+            pp1 = p + 1;
+            pp2 = pp1 + 1;
+            if (pp2 >= len) {
+                // remaining chars can't be a macro (minimum size is 3)
+                literal.append(input, p, len);
+                break;
+            }
+            // get the next macro delimiter
+            if ((pn > -1) && (pn < pp1)) {
+                pn = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER, pp1);
+            }
+            if ((po > -1) && (po < pp1)) {
+                po = input.indexOf(I_CmsMacroResolver.MACRO_DELIMITER_OLD, pp1);
+            }
+            if ((po == -1) && (pn == -1)) {
+                // none found, make sure remaining chars in this segment are appended
+                np = len;
+            } else {
+                // check if the next delimiter is old or new style
+                if ((po == -1) || ((pn > -1) && (pn < po))) {
+                    np = pn;
+                } else {
+                    np = po;
+                }
+            }
+            // check if the next char is a "macro start"
+            e = p;
+            if (input.charAt(pp1) == ds) {
+                // we have a starting macro sequence "${" or "%(", now check if this segment contains a "}" or ")"
+                int end = input.indexOf(de, p);
+                if ((end > 0) && (end < np)) {
+                    // this segment contains a closing macro delimiter "}" or ")", so we have found a macro
+                    e = end + 1;
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    macros.add(input.substring(pp2, end));
+                    macroTexts.add(input.substring(p, e));
+                }
+            }
+            // set macro style for next delimiter found
+            if (np == pn) {
+                ds = I_CmsMacroResolver.MACRO_START;
+                de = I_CmsMacroResolver.MACRO_END;
+            } else {
+                ds = I_CmsMacroResolver.MACRO_START_OLD;
+                de = I_CmsMacroResolver.MACRO_END_OLD;
+            }
+            // append the remaining chars after the macro to the start of the next macro
+            literal.append(input, e, np);
+            p = np;
+        } while (p < len);
+        literals.add(literal.toString());
+    }
+
+    /**
+     * Writes the literal text and the resolved macros of this template to the given output.<p>
+     * 
+     * @param resolver the macro resolver to use
+     * @param out the output to write to
+     * 
+     * @return <code>true</code> if none of the macros was resolved
+     * 
+     * @throws IOException if writing to the output fails
+     */
+    private boolean write(I_CmsMacroResolver resolver, Appendable out) throws IOException {
+
+        boolean keep = resolver.isKeepEmptyMacros();
+        boolean resolvedNone = true;
+        for (int i = 0; i < m_macros.length; i++) {
+            out.append(m_literals[i]);
+            String value = resolver.getMacroValue(m_macros[i]);
+            if (value != null) {
+                // macro was successfully resolved
+                out.append(value);
+                resolvedNone = false;
+            } else if (keep) {
+                // macro was unknown, but should be kept
+                out.append(m_macroTexts[i]);
+            }
+        }
+        out.append(m_literals[m_macros.length]);
+        return resolvedNone;
+    }
+}
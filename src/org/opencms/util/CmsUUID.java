@@ -35,6 +35,9 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 
@@ -56,7 +59,13 @@ import org.safehaus.uuid.UUIDGenerator;
  * (without using JNI), the MAC address has to be provided first 
  * by using the static {@link #init(String)} method.<p>
  * 
- * This class is just a facade wrapper for the "real" UUID implementation.<p> 
+ * The time based UUIDs are generated without locking: all UUIDs of a JVM use the same random clock sequence
+ * and a shared timestamp which is increased with a compare and set operation for every UUID generated.
+ * If more UUIDs are generated than the clock resolution allows, the timestamp runs ahead of the clock
+ * for a short time, so the UUIDs of a JVM are always unique. 
+ * The UUID is stored as two <code>long</code> values, the String representation is cached.
+ * Name based UUIDs are generated with the JUG UUID implementation, the ordering and the hash codes 
+ * of the UUIDs are the same as with the JUG implementation.<p> 
  * 
  * @since 6.0.0 
  */
@@ -65,25 +74,58 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     /** A regular expression for matching UUIDs. */
     public static final String UUID_REGEX = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
 
+    /** The clock sequence used for all UUIDs generated by this JVM. */
+    private static final long CLOCK_SEQUENCE = new SecureRandom().nextInt(0x4000);
+
+    /** The characters used for the String representation. */
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    /** The values of the hexadecimal digits by character, -1 for characters which are no hexadecimal digits. */
+    private static final byte[] HEX_VALUES = createHexValues();
+
+    /** The last timestamp used for a time based UUID. */
+    private static final AtomicLong LAST_TIMESTAMP = new AtomicLong();
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsUUID.class);
 
+    /** The length of the String representation. */
+    private static final int STRING_LENGTH = 36;
+
+    /** The byte order used to compare time based UUIDs, same as in the JUG implementation. */
+    private static final int[] TIME_COMPARE_ORDER = {6, 7, 4, 5, 0, 1, 2, 3};
+
+    /** The offset between the UUID epoch (1582-10-15) and the Java epoch in 100 nanosecond intervals. */
+    private static final long UUID_EPOCH_OFFSET = 0x01B21DD213814000L;
+
     /** Ethernet address of the server machine. */
     private static EthernetAddress m_ethernetAddress;
 
+    /** The ethernet address of the server machine, as used in the node field of the UUIDs. */
+    private static volatile long m_node;
+
     /** OpenCms UUID (name based uuid of "www.opencms.org" in the dns name space). */
     private static UUID m_opencmsUUID = UUIDGenerator.getInstance().generateNameBasedUUID(
         new UUID(UUID.NAMESPACE_DNS),
         "www.opencms.org");
 
     /** Constant for the null UUID. */
-    private static final CmsUUID NULL_UUID = new CmsUUID(UUID.getNullUUID());
+    private static final CmsUUID NULL_UUID = new CmsUUID(0L, 0L);
 
     /** Serial version UID required for safe serialization. */
     private static final long serialVersionUID = 1736324454709298676L;
 
-    /** Internal UUID implementation. */
-    private transient UUID m_uuid;
+    /** The cached hash code, 0 if not yet calculated. */
+    private transient int m_hashCode;
+
+    /** The least significant 64 bits of the UUID. */
+    private transient long m_leastSigBits;
+
+    /** The most significant 64 bits of the UUID. */
+    private transient long m_mostSigBits;
+
+    /** The cached String representation. */
+    private transient String m_string;
 
     /**
      * Creates a new UUID.<p>
@@ -99,7 +141,23 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             // since the empty constructor is called when the de-serialization takes place
             init(getDummyEthernetAddress());
         }
-        m_uuid = UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress);
+        long timestamp = (System.currentTimeMillis() * 10000L) + UUID_EPOCH_OFFSET;
+        while (true) {
+            long last = LAST_TIMESTAMP.get();
+            long next = (timestamp > last) ? timestamp : last + 1;
+            if (LAST_TIMESTAMP.compareAndSet(last, next)) {
+                timestamp = next;
+                break;
+            }
+        }
+
+        // time_low, time_mid and time_hi_and_version with version 1
+        m_mostSigBits = (timestamp << 32)
+            | ((timestamp >>> 16) & 0xFFFF0000L)
+            | ((timestamp >>> 48) & 0x0FFFL)
+            | 0x1000L;
+        // clock_seq_hi_and_reserved with the variant, clock_seq_low and node
+        m_leastSigBits = ((CLOCK_SEQUENCE | 0x8000L) << 48) | m_node;
     }
 
     /**
@@ -109,7 +167,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public CmsUUID(byte[] data) {
 
-        m_uuid = new UUID(data);
+        this(data, 0);
     }
 
     /**
@@ -121,17 +179,55 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     public CmsUUID(String uuid)
     throws NumberFormatException {
 
-        m_uuid = new UUID(uuid);
+        if ((uuid.length() != STRING_LENGTH)
+            || (uuid.charAt(8) != '-')
+            || (uuid.charAt(13) != '-')
+            || (uuid.charAt(18) != '-')
+            || (uuid.charAt(23) != '-')) {
+            throw new NumberFormatException(Messages.get().getBundle().key(Messages.ERR_INVALID_UUID_1, uuid));
+        }
+        long timeLow = parseHex(uuid, 0, 8);
+        long timeMid = parseHex(uuid, 9, 13);
+        long timeHi = parseHex(uuid, 14, 18);
+        long clockSeq = parseHex(uuid, 19, 23);
+        long node = parseHex(uuid, 24, 36);
+        if ((timeLow | timeMid | timeHi | clockSeq | node) < 0) {
+            throw new NumberFormatException(Messages.get().getBundle().key(Messages.ERR_INVALID_UUID_1, uuid));
+        }
+        m_mostSigBits = (timeLow << 32) | (timeMid << 16) | timeHi;
+        m_leastSigBits = (clockSeq << 48) | node;
+    }
+
+    /**
+     * Create a UUID based on 16 bytes of a binary data array.<p>
+     * 
+     * @param data a binary data array containing a UUID
+     * @param offset the position of the UUID in the array
+     */
+    private CmsUUID(byte[] data, int offset) {
+
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSigBits = (mostSigBits << 8) | (data[offset + i] & 0xff);
+        }
+        for (int i = 8; i < 16; i++) {
+            leastSigBits = (leastSigBits << 8) | (data[offset + i] & 0xff);
+        }
+        m_mostSigBits = mostSigBits;
+        m_leastSigBits = leastSigBits;
     }
 
     /**
-     * Create a new UUID based on another one (used internal for cloning).<p>
+     * Create a new UUID from the given bits.<p>
      * 
-     * @param uuid the UUID to clone
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * @param leastSigBits the least significant 64 bits of the UUID
      */
-    private CmsUUID(UUID uuid) {
+    private CmsUUID(long mostSigBits, long leastSigBits) {
 
-        m_uuid = uuid;
+        m_mostSigBits = mostSigBits;
+        m_leastSigBits = leastSigBits;
     }
 
     /**
@@ -161,7 +257,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID getConstantUUID(String name) {
 
-        return new CmsUUID(UUIDGenerator.getInstance().generateNameBasedUUID(m_opencmsUUID, name));
+        return new CmsUUID(UUIDGenerator.getInstance().generateNameBasedUUID(m_opencmsUUID, name).asByteArray());
     }
 
     /**
@@ -193,7 +289,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID getOpenCmsUUID() {
 
-        return new CmsUUID(m_opencmsUUID);
+        return new CmsUUID(m_opencmsUUID.asByteArray());
     }
 
     /**
@@ -208,7 +304,9 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     public static void init(String ethernetAddress) throws CmsInitException {
 
         try {
-            m_ethernetAddress = new EthernetAddress(ethernetAddress);
+            EthernetAddress address = new EthernetAddress(ethernetAddress);
+            m_node = address.toLong() & 0xFFFFFFFFFFFFL;
+            m_ethernetAddress = address;
         } catch (Exception e) {
             throw new CmsInitException(Messages.get().container(
                 Messages.ERR_INVALID_ETHERNET_ADDRESS_1,
@@ -225,12 +323,71 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static boolean isValidUUID(String uuid) {
 
-        try {
-            return (null != uuid) && (null != UUID.valueOf(uuid));
-        } catch (NumberFormatException e) {
-            // return false
+        if ((uuid == null) || (uuid.length() != STRING_LENGTH)) {
+            return false;
         }
-        return false;
+        for (int i = 0; i < STRING_LENGTH; i++) {
+            char c = uuid.charAt(i);
+            if ((i == 8) || (i == 13) || (i == 18) || (i == 23)) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (hexValue(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a UUID read from 16 bytes of the given binary data array.<p>
+     * 
+     * @param data a binary data array containing a UUID in the network byte order
+     * @param offset the position of the UUID in the array
+     * 
+     * @return the UUID
+     * 
+     * @see #toByteArray(byte[], int)
+     */
+    public static CmsUUID valueOf(byte[] data, int offset) {
+
+        return new CmsUUID(data, offset);
+    }
+
+    /**
+     * Returns a UUID read from 36 characters of the given character array.<p>
+     * 
+     * @param chars a character array containing the String representation of a UUID
+     * @param offset the position of the UUID in the array
+     * 
+     * @return the UUID
+     * 
+     * @throws NumberFormatException in case the characters are no valid UUID
+     * 
+     * @see #toCharArray(char[], int)
+     */
+    public static CmsUUID valueOf(char[] chars, int offset) throws NumberFormatException {
+
+        if ((offset < 0) || ((chars.length - offset) < STRING_LENGTH)) {
+            throw new NumberFormatException(Messages.get().getBundle().key(
+                Messages.ERR_INVALID_UUID_1,
+                new String(chars, Math.max(0, offset), Math.max(0, chars.length - Math.max(0, offset)))));
+        }
+        long timeLow = parseHex(chars, offset, offset + 8);
+        long timeMid = parseHex(chars, offset + 9, offset + 13);
+        long timeHi = parseHex(chars, offset + 14, offset + 18);
+        long clockSeq = parseHex(chars, offset + 19, offset + 23);
+        long node = parseHex(chars, offset + 24, offset + 36);
+        if ((chars[offset + 8] != '-')
+            || (chars[offset + 13] != '-')
+            || (chars[offset + 18] != '-')
+            || (chars[offset + 23] != '-')
+            || ((timeLow | timeMid | timeHi | clockSeq | node) < 0)) {
+            throw new NumberFormatException(Messages.get().getBundle().key(
+                Messages.ERR_INVALID_UUID_1,
+                new String(chars, offset, STRING_LENGTH)));
+        }
+        return new CmsUUID((timeLow << 32) | (timeMid << 16) | timeHi, (clockSeq << 48) | node);
     }
 
     /**
@@ -244,7 +401,99 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public static CmsUUID valueOf(String uuid) throws NumberFormatException {
 
-        return new CmsUUID(UUID.valueOf(uuid));
+        return new CmsUUID(uuid);
+    }
+
+    /**
+     * Creates the table of the values of the hexadecimal digits.<p>
+     * 
+     * @return the table of the values of the hexadecimal digits
+     */
+    private static byte[] createHexValues() {
+
+        byte[] values = new byte[128];
+        Arrays.fill(values, (byte)-1);
+        for (int i = 0; i < 10; i++) {
+            values['0' + i] = (byte)i;
+        }
+        for (int i = 0; i < 6; i++) {
+            values['a' + i] = (byte)(10 + i);
+            values['A' + i] = (byte)(10 + i);
+        }
+        return values;
+    }
+
+    /**
+     * Writes the given number of hexadecimal digits of a value to a character array.<p>
+     * 
+     * @param value the value to write, only the lowest <code>4 * digits</code> bits are used
+     * @param digits the number of digits to write
+     * @param buffer the array to write the digits to
+     * @param offset the position in the array to write the digits to
+     */
+    private static void formatHex(long value, int digits, char[] buffer, int offset) {
+
+        long remaining = value;
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = HEX_CHARS[(int)remaining & 0x0f];
+            remaining >>>= 4;
+        }
+    }
+
+    /**
+     * Returns the value of the given hexadecimal digit.<p>
+     * 
+     * @param c the digit
+     * 
+     * @return the value of the digit, or <code>-1</code> if the character is no hexadecimal digit
+     */
+    private static int hexValue(char c) {
+
+        return (c < 128) ? HEX_VALUES[c] : -1;
+    }
+
+    /**
+     * Parses the hexadecimal digits in the given range of a character array.<p>
+     * 
+     * @param chars the character array
+     * @param start the position of the first digit
+     * @param end the position after the last digit, at most 15 digits are allowed
+     * 
+     * @return the parsed value, or <code>-1</code> if a character is no hexadecimal digit
+     */
+    private static long parseHex(char[] chars, int start, int end) {
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int value = hexValue(chars[i]);
+            if (value < 0) {
+                return -1;
+            }
+            result = (result << 4) | value;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the hexadecimal digits in the given range of a String.<p>
+     * 
+     * @param s the String
+     * @param start the position of the first digit
+     * @param end the position after the last digit, at most 15 digits are allowed
+     * 
+     * @return the parsed value, or <code>-1</code> if a character is no hexadecimal digit
+     */
+    private static long parseHex(String s, int start, int end) {
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int value = hexValue(s.charAt(i));
+            if (value < 0) {
+                return -1;
+            }
+            result = (result << 4) | value;
+        }
+        return result;
     }
 
     /**
@@ -258,15 +507,43 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         if (this == NULL_UUID) {
             return NULL_UUID;
         }
-        return new CmsUUID((UUID)m_uuid.clone());
+        return new CmsUUID(m_mostSigBits, m_leastSigBits);
     }
 
     /**
+     * Compares this UUID with the given one, in the same order as the JUG UUID implementation.<p>
+     * 
+     * UUIDs are ordered by their version first. Time based UUIDs of the same version are ordered 
+     * by their timestamp, other UUIDs by their bytes.<p>
+     * 
      * @see java.lang.Comparable#compareTo(Object)
      */
     public int compareTo(CmsUUID obj) {
 
-        return m_uuid.compareTo(obj.m_uuid);
+        int type = getByte(6) >> 4;
+        int otherType = obj.getByte(6) >> 4;
+        if (type > otherType) {
+            return 1;
+        } else if (type < otherType) {
+            return -1;
+        }
+        int i = 0;
+        if (type == 1) {
+            for (; i < 8; i++) {
+                int index = TIME_COMPARE_ORDER[i];
+                int diff = getByte(index) - obj.getByte(index);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+        }
+        for (; i < 16; i++) {
+            int diff = getByte(i) - obj.getByte(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
     }
 
     /**
@@ -279,11 +556,32 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             return true;
         }
         if (obj instanceof CmsUUID) {
-            return ((CmsUUID)obj).m_uuid.equals(m_uuid);
+            CmsUUID other = (CmsUUID)obj;
+            return (other.m_leastSigBits == m_leastSigBits) && (other.m_mostSigBits == m_mostSigBits);
         }
         return false;
     }
 
+    /**
+     * Returns the least significant 64 bits of this UUID.<p>
+     * 
+     * @return the least significant 64 bits of this UUID
+     */
+    public long getLeastSignificantBits() {
+
+        return m_leastSigBits;
+    }
+
+    /**
+     * Returns the most significant 64 bits of this UUID.<p>
+     * 
+     * @return the most significant 64 bits of this UUID
+     */
+    public long getMostSignificantBits() {
+
+        return m_mostSigBits;
+    }
+
     /**
      * Returns the String representation of this UUID, same as {@link #toString()}.<p>
      * 
@@ -299,12 +597,40 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     /**
      * Optimized hashCode implementation for UUID's.<p>
      * 
+     * The hash code is calculated the same way as in the JUG UUID implementation, 
+     * so the iteration order of hashed collections does not change.<p>
+     * 
      * @see java.lang.Object#hashCode()
      */
     @Override
     public int hashCode() {
 
-        return m_uuid.hashCode();
+        int hash = m_hashCode;
+        if (hash == 0) {
+            long msb = m_mostSigBits;
+            long lsb = m_leastSigBits;
+            // same as the JUG implementation: the first byte is repeated, the following pairs of bytes
+            // are rotated by 3, 7, 17, 21, 29, 4 and 9 bits, the last byte is shifted by 3, 13 and 27 bits
+            hash = (int)(msb >>> 56);
+            hash |= (hash << 16);
+            hash |= (hash << 8);
+            hash ^= ((int)(msb >>> 40) & 0xffff) << 3;
+            hash ^= ((int)(msb >>> 24) & 0xffff) << 7;
+            hash ^= Integer.rotateLeft((int)(msb >>> 8) & 0xffff, 17);
+            hash ^= Integer.rotateLeft((((int)msb & 0xff) << 8) | (int)(lsb >>> 56), 21);
+            hash ^= Integer.rotateLeft((int)(lsb >>> 40) & 0xffff, 29);
+            hash ^= ((int)(lsb >>> 24) & 0xffff) << 4;
+            hash ^= ((int)(lsb >>> 8) & 0xffff) << 9;
+            int last = (int)lsb & 0xff;
+            hash ^= (last << 3);
+            hash ^= (last << 13);
+            hash ^= (last << 27);
+            if (hash == 0) {
+                hash = -1;
+            }
+            m_hashCode = hash;
+        }
+        return hash;
     }
 
     /**
@@ -317,7 +643,7 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         if (this == NULL_UUID) {
             return true;
         }
-        return m_uuid.equals(UUID.getNullUUID());
+        return (m_mostSigBits == 0) && (m_leastSigBits == 0);
     }
 
     /**
@@ -342,16 +668,22 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
             }
         }
 
+        boolean read = false;
         if (o instanceof String) {
             // this UUID has been serialized using the new method
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_READ_UUID_1, o));
             }
-            m_uuid = new UUID((String)o);
+            CmsUUID uuid = new CmsUUID((String)o);
+            m_mostSigBits = uuid.m_mostSigBits;
+            m_leastSigBits = uuid.m_leastSigBits;
+            m_hashCode = 0;
+            m_string = null;
+            read = true;
         }
 
         // log an error if the uuid could not be deserialized
-        if (m_uuid == null) {
+        if (!read) {
             // UUID cannot be deserialized
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_READ_UUID_0));
@@ -366,7 +698,46 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
      */
     public byte[] toByteArray() {
 
-        return m_uuid.toByteArray();
+        byte[] result = new byte[16];
+        toByteArray(result, 0);
+        return result;
+    }
+
+    /**
+     * Writes the 16 bytes of this UUID to the given array.<p>
+     * 
+     * @param buffer the array to write the UUID's bytes to, in the network byte order 
+     * @param offset the position in the array to write the bytes to
+     * 
+     * @see #valueOf(byte[], int)
+     */
+    public void toByteArray(byte[] buffer, int offset) {
+
+        for (int i = 0; i < 8; i++) {
+            buffer[offset + i] = (byte)(m_mostSigBits >>> (56 - (i << 3)));
+            buffer[offset + 8 + i] = (byte)(m_leastSigBits >>> (56 - (i << 3)));
+        }
+    }
+
+    /**
+     * Writes the 36 characters of the String representation of this UUID to the given array.<p>
+     * 
+     * @param buffer the array to write the characters to 
+     * @param offset the position in the array to write the characters to
+     * 
+     * @see #valueOf(char[], int)
+     */
+    public void toCharArray(char[] buffer, int offset) {
+
+        formatHex(m_mostSigBits >>> 32, 8, buffer, offset);
+        buffer[offset + 8] = '-';
+        formatHex(m_mostSigBits >>> 16, 4, buffer, offset + 9);
+        buffer[offset + 13] = '-';
+        formatHex(m_mostSigBits, 4, buffer, offset + 14);
+        buffer[offset + 18] = '-';
+        formatHex(m_leastSigBits >>> 48, 4, buffer, offset + 19);
+        buffer[offset + 23] = '-';
+        formatHex(m_leastSigBits, 12, buffer, offset + 24);
     }
 
     /**
@@ -375,7 +746,14 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
     @Override
     public String toString() {
 
-        return m_uuid.toString();
+        String result = m_string;
+        if (result == null) {
+            char[] chars = new char[STRING_LENGTH];
+            toCharArray(chars, 0);
+            result = new String(chars);
+            m_string = result;
+        }
+        return result;
     }
 
     /**
@@ -389,4 +767,19 @@ public final class CmsUUID extends Object implements Cloneable, Comparable<CmsUU
         }
         out.writeObject(toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the byte of this UUID at the given position, as an unsigned value.<p>
+     * 
+     * @param index the position of the byte, from 0 to 15
+     * 
+     * @return the byte at the given position
+     */
+    private int getByte(int index) {
+
+        if (index < 8) {
+            return (int)(m_mostSigBits >>> (56 - (index << 3))) & 0xff;
+        }
+        return (int)(m_leastSigBits >>> (120 - (index << 3))) & 0xff;
+    }
+}
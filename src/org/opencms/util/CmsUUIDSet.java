@@ -0,0 +1,272 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.Collection;
+
+/**
+ * A compact hash set of UUIDs.<p>
+ * 
+ * The UUIDs are stored as pairs of primitive <code>long</code> values in open addressing tables, 
+ * so no entry objects are created and no references to the added <code>{@link CmsUUID}</code>
+ * instances are kept. This is useful to de-duplicate large numbers of structure or 
+ * resource ids, e.g. when building a publish list.<p>
+ * 
+ * This class is not thread safe.<p>
+ * 
+ * @since 8.5.2 
+ */
+public class CmsUUIDSet {
+
+    /** The default initial capacity. */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** The most significant bits of the contained UUIDs. */
+    private long[] m_high;
+
+    /** The least significant bits of the contained UUIDs. */
+    private long[] m_low;
+
+    /** The number of UUIDs in this set. */
+    private int m_size;
+
+    /** Flags for the used slots of the tables. */
+    private boolean[] m_used;
+
+    /**
+     * Creates a new, empty UUID set.<p>
+     */
+    public CmsUUIDSet() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty UUID set for the given expected number of UUIDs.<p>
+     * 
+     * @param expectedSize the expected number of UUIDs
+     */
+    public CmsUUIDSet(int expectedSize) {
+
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < (expectedSize * 2)) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Adds a UUID to this set.<p>
+     * 
+     * @param uuid the UUID to add
+     * 
+     * @return <code>true</code> if the UUID was not already contained in this set
+     */
+    public boolean add(CmsUUID uuid) {
+
+        long high = uuid.getMostSignificantBits();
+        long low = uuid.getLeastSignificantBits();
+        int slot = findSlot(high, low);
+        if (m_used[slot]) {
+            return false;
+        }
+        m_used[slot] = true;
+        m_high[slot] = high;
+        m_low[slot] = low;
+        m_size++;
+        if ((m_size * 2) > m_used.length) {
+            rehash(m_used.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Adds all given UUIDs to this set.<p>
+     * 
+     * @param uuids the UUIDs to add
+     * 
+     * @return <code>true</code> if at least one of the UUIDs was not already contained in this set
+     */
+    public boolean addAll(Collection<CmsUUID> uuids) {
+
+        boolean changed = false;
+        for (CmsUUID uuid : uuids) {
+            changed |= add(uuid);
+        }
+        return changed;
+    }
+
+    /**
+     * Removes all UUIDs from this set.<p>
+     */
+    public void clear() {
+
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Checks if the given UUID is contained in this set.<p>
+     * 
+     * @param uuid the UUID to check
+     * 
+     * @return <code>true</code> if the given UUID is contained in this set
+     */
+    public boolean contains(CmsUUID uuid) {
+
+        if (uuid == null) {
+            return false;
+        }
+        return m_used[findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())];
+    }
+
+    /**
+     * Checks if this set is empty.<p>
+     * 
+     * @return <code>true</code> if this set is empty
+     */
+    public boolean isEmpty() {
+
+        return m_size == 0;
+    }
+
+    /**
+     * Removes a UUID from this set.<p>
+     * 
+     * @param uuid the UUID to remove
+     * 
+     * @return <code>true</code> if the UUID was contained in this set
+     */
+    public boolean remove(CmsUUID uuid) {
+
+        if (uuid == null) {
+            return false;
+        }
+        int slot = findSlot(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        if (!m_used[slot]) {
+            return false;
+        }
+        // shift back the following entries of the probe sequence to close the gap
+        int mask = m_used.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (m_used[next]) {
+            int home = hash(m_high[next], m_low[next]) & mask;
+            // move the entry if its home slot is not cyclically between the gap and its position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                m_high[gap] = m_high[next];
+                m_low[gap] = m_low[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        m_used[gap] = false;
+        m_size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of UUIDs in this set.<p>
+     * 
+     * @return the number of UUIDs in this set
+     */
+    public int size() {
+
+        return m_size;
+    }
+
+    /**
+     * Allocates empty tables with the given capacity.<p>
+     * 
+     * @param capacity the capacity, must be a power of 2
+     */
+    private void allocate(int capacity) {
+
+        m_high = new long[capacity];
+        m_low = new long[capacity];
+        m_used = new boolean[capacity];
+        m_size = 0;
+    }
+
+    /**
+     * Returns the slot containing the given UUID, or the free slot where it has to be inserted.<p>
+     * 
+     * @param high the most significant bits of the UUID
+     * @param low the least significant bits of the UUID
+     * 
+     * @return the slot for the UUID
+     */
+    private int findSlot(long high, long low) {
+
+        int mask = m_used.length - 1;
+        int slot = hash(high, low) & mask;
+        while (m_used[slot] && ((m_high[slot] != high) || (m_low[slot] != low))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Calculates the hash code of a UUID given by its bits.<p>
+     * 
+     * @param high the most significant bits
+     * @param low the least significant bits
+     * 
+     * @return the hash code
+     */
+    private int hash(long high, long low) {
+
+        long bits = high ^ low;
+        int h = (int)(bits ^ (bits >>> 32));
+        // spread the bits, time based UUIDs only differ in some of the bits
+        h ^= (h >>> 20) ^ (h >>> 12);
+        return h ^ (h >>> 7) ^ (h >>> 4);
+    }
+
+    /**
+     * Moves all UUIDs to new tables with the given capacity.<p>
+     * 
+     * @param capacity the new capacity, must be a power of 2
+     */
+    private void rehash(int capacity) {
+
+        long[] high = m_high;
+        long[] low = m_low;
+        boolean[] used = m_used;
+        int size = m_size;
+        allocate(capacity);
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                int slot = findSlot(high[i], low[i]);
+                m_used[slot] = true;
+                m_high[slot] = high[i];
+                m_low[slot] = low[i];
+            }
+        }
+        m_size = size;
+    }
+}
@@ -1741,11 +1741,14 @@ public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsEvent
     /**
      * Returns true if lazy user lists should be used.<p>
      * 
+     * Lazy user lists only read the users of the current page from the database, they are used
+     * unless a different user list mode is configured.<p>
+     * 
      * @return true if lazy user lists should be used 
      */
     public boolean supportsLazyUserLists() {
 
-        return "lazy".equalsIgnoreCase(m_userListMode);
+        return (m_userListMode == null) || "lazy".equalsIgnoreCase(m_userListMode);
     }
 
     /**
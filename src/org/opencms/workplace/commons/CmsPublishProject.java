@@ -37,7 +37,7 @@ import org.opencms.lock.CmsLockFilter;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
-import org.opencms.report.CmsHtmlReport;
+import org.opencms.report.CmsRingBufferReport;
 import org.opencms.security.CmsPermissionSet;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsStringUtil;
@@ -852,7 +852,7 @@ public class CmsPublishProject extends CmsMultiDialog {
         }
         OpenCms.getPublishManager().publishProject(
             getCms(),
-            new CmsHtmlReport(getLocale(), getCms().getRequestContext().getSiteRoot()),
+            new CmsRingBufferReport(getLocale(), getCms().getRequestContext().getSiteRoot()),
             publishList);
         // wait 2 seconds, may be it finishes fast
         OpenCms.getPublishManager().waitWhileRunning(1500);
@@ -29,7 +29,6 @@ package org.opencms.xml;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
-import org.opencms.file.CmsResource;
 import org.opencms.i18n.CmsLocaleManager;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsRuntimeException;
@@ -84,8 +83,11 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     /** Set of locales contained in this document. */
     protected Set<Locale> m_locales;
 
-    /** Reference for named elements in the document. */
-    private Map<String, I_CmsXmlContentValue> m_bookmarks;
+    /** The cached bookmark names, by locale. */
+    private Map<Locale, Set<String>> m_bookmarkNames;
+
+    /** The index of the values in the document, by locale. */
+    private Map<Locale, CmsXmlValueIndex> m_valueIndex;
 
     /**
      * Default constructor for a XML document
@@ -93,7 +95,8 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected A_CmsXmlDocument() {
 
-        m_bookmarks = new HashMap<String, I_CmsXmlContentValue>();
+        m_valueIndex = new HashMap<Locale, CmsXmlValueIndex>();
+        m_bookmarkNames = new HashMap<Locale, Set<String>>();
         m_locales = new HashSet<Locale>();
     }
 
@@ -476,22 +479,13 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     public List<I_CmsXmlContentValue> getSubValues(String path, Locale locale) {
 
-        List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
-        String bookmark = getBookmarkName(CmsXmlUtils.createXpath(path, 1), locale);
-        I_CmsXmlContentValue value = getBookmark(bookmark);
+        String bookmark = CmsXmlUtils.createXpath(path, 1);
+        I_CmsXmlContentValue value = getBookmark(bookmark, locale);
         if ((value != null) && !value.isSimpleType()) {
-            // calculate level of current bookmark
-            int depth = CmsResource.getPathLevel(bookmark) + 1;
-            Iterator<String> i = getBookmarks().iterator();
-            while (i.hasNext()) {
-                String bm = i.next();
-                if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
-                    // add only values directly below the value
-                    result.add(getBookmark(bm));
-                }
-            }
+            // add only values directly below the value
+            return getBookmarkChildren(bookmark, locale);
         }
-        return result;
+        return new ArrayList<I_CmsXmlContentValue>();
     }
 
     /**
@@ -516,17 +510,9 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     public List<I_CmsXmlContentValue> getValues(Locale locale) {
 
         List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
-
-        // bookmarks are stored with the locale as first prefix
-        String prefix = '/' + locale.toString() + '/';
-
-        // it's better for performance to iterate through the list of bookmarks directly
-        Iterator<Map.Entry<String, I_CmsXmlContentValue>> i = m_bookmarks.entrySet().iterator();
-        while (i.hasNext()) {
-            Map.Entry<String, I_CmsXmlContentValue> entry = i.next();
-            if (entry.getKey().startsWith(prefix)) {
-                result.add(entry.getValue());
-            }
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        if (index != null) {
+            result.addAll(index.getValues());
         }
 
         // sort the result
@@ -541,30 +527,20 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
     public List<I_CmsXmlContentValue> getValues(String path, Locale locale) {
 
         List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
-        String bookmark = getBookmarkName(CmsXmlUtils.createXpath(CmsXmlUtils.removeXpathIndex(path), 1), locale);
-        I_CmsXmlContentValue value = getBookmark(bookmark);
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        if (index == null) {
+            return result;
+        }
+        String bookmark = CmsXmlUtils.createXpath(CmsXmlUtils.removeXpathIndex(path), 1);
+        I_CmsXmlContentValue value = index.get(bookmark);
         if (value != null) {
             if (value.getContentDefinition().getChoiceMaxOccurs() > 1) {
-                // selected value belongs to a xsd:choice
-                String parent = CmsXmlUtils.removeLastXpathElement(bookmark);
-                int depth = CmsResource.getPathLevel(bookmark);
-                Iterator<String> i = getBookmarks().iterator();
-                while (i.hasNext()) {
-                    String bm = i.next();
-                    if (bm.startsWith(parent) && (CmsResource.getPathLevel(bm) == depth)) {
-                        result.add(getBookmark(bm));
-                    }
-                }
+                // selected value belongs to a xsd:choice, these are all values directly below the parent
+                int pos = bookmark.lastIndexOf('/');
+                result.addAll(index.getChildren((pos < 0) ? "" : bookmark.substring(0, pos)));
             } else {
                 // selected value belongs to a xsd:sequence
-                int index = 1;
-                String bm = CmsXmlUtils.removeXpathIndex(bookmark);
-                while (value != null) {
-                    result.add(value);
-                    index++;
-                    String subpath = CmsXmlUtils.createXpathElement(bm, index);
-                    value = getBookmark(subpath);
-                }
+                result.addAll(index.getSequence(CmsXmlUtils.removeXpathIndex(bookmark)));
             }
         }
         return result;
@@ -727,7 +703,14 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
         addLocale(locale);
 
         // add a bookmark to the provided value 
-        m_bookmarks.put(getBookmarkName(path, locale), value);
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        if (index == null) {
+            index = new CmsXmlValueIndex();
+            m_valueIndex.put(locale, index);
+        }
+        if (index.add(path, value) == null) {
+            m_bookmarkNames.remove(locale);
+        }
 
         Set<Locale> sl;
         // update mapping of element name to locale
@@ -767,7 +750,8 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected void clearBookmarks() {
 
-        m_bookmarks.clear();
+        m_valueIndex.clear();
+        m_bookmarkNames.clear();
     }
 
     /**
@@ -795,7 +779,19 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected I_CmsXmlContentValue getBookmark(String bookmark) {
 
-        return m_bookmarks.get(bookmark);
+        // bookmark names have the form "/locale/path"
+        int pos = bookmark.indexOf('/', 1);
+        if ((pos < 0) || (bookmark.charAt(0) != '/')) {
+            return null;
+        }
+        // compare with the locales of the bookmarks instead of parsing the locale
+        for (Map.Entry<Locale, CmsXmlValueIndex> entry : m_valueIndex.entrySet()) {
+            String locale = entry.getKey().toString();
+            if ((locale.length() == (pos - 1)) && bookmark.regionMatches(1, locale, 0, locale.length())) {
+                return entry.getValue().get(bookmark.substring(pos + 1));
+            }
+        }
+        return null;
     }
 
     /**
@@ -807,17 +803,76 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
      */
     protected I_CmsXmlContentValue getBookmark(String path, Locale locale) {
 
-        return m_bookmarks.get(getBookmarkName(path, locale));
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        return (index != null) ? index.get(path) : null;
+    }
+
+    /**
+     * Returns the bookmarked values directly below the given path, in the order they were bookmarked.<p>
+     * 
+     * @param path the lookup path of the parent value
+     * @param locale the locale to get the bookmarks for
+     * 
+     * @return the bookmarked values directly below the given path
+     */
+    protected List<I_CmsXmlContentValue> getBookmarkChildren(String path, Locale locale) {
+
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        if (index == null) {
+            return new ArrayList<I_CmsXmlContentValue>();
+        }
+        return new ArrayList<I_CmsXmlContentValue>(index.getChildren(path));
+    }
+
+    /**
+     * Returns the locales that have bookmarked elements.<p>
+     * 
+     * @return the locales that have bookmarked elements
+     */
+    protected Set<Locale> getBookmarkLocales() {
+
+        return Collections.unmodifiableSet(m_valueIndex.keySet());
+    }
+
+    /**
+     * Returns the lookup paths of all bookmarked elements of the given locale.<p>
+     * 
+     * @param locale the locale to get the lookup paths for
+     * 
+     * @return the lookup paths of all bookmarked elements of the given locale
+     */
+    protected Set<String> getBookmarkPaths(Locale locale) {
+
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        if (index == null) {
+            return Collections.emptySet();
+        }
+        return index.getPaths();
     }
 
     /**
      * Returns the names of all bookmarked elements.<p>
      * 
+     * The bookmark names of a locale are cached until a bookmark of the locale is added or removed.
+     * Use {@link #getBookmark(String, Locale)} or {@link #getBookmarkPaths(Locale)} to look up values.<p>
+     * 
      * @return the names of all bookmarked elements
      */
     protected Set<String> getBookmarks() {
 
-        return m_bookmarks.keySet();
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<Locale, CmsXmlValueIndex> entry : m_valueIndex.entrySet()) {
+            Set<String> names = m_bookmarkNames.get(entry.getKey());
+            if (names == null) {
+                names = new HashSet<String>();
+                for (String path : entry.getValue().getPaths()) {
+                    names.add(getBookmarkName(path, entry.getKey()));
+                }
+                m_bookmarkNames.put(entry.getKey(), names);
+            }
+            result.addAll(names);
+        }
+        return result;
     }
 
     /**
@@ -892,7 +947,12 @@ public abstract class A_CmsXmlDocument implements I_CmsXmlDocument {
             sn.remove(path);
         }
         // remove the bookmark and return the removed element
-        return m_bookmarks.remove(getBookmarkName(path, locale));
+        CmsXmlValueIndex index = m_valueIndex.get(locale);
+        I_CmsXmlContentValue result = (index != null) ? index.remove(path) : null;
+        if (result != null) {
+            m_bookmarkNames.remove(locale);
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,393 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache for XML content definitions which knows the schemas included by each cached definition.<p>
+ * 
+ * The cache is read without locks. If it grows beyond its maximum size, the least recently used 
+ * definitions are removed in one batch. The definitions are not removed when a schema they include
+ * is removed from the cache for lack of space, but when a definition is removed because its schema 
+ * has changed, all definitions which include that schema, directly or through other schemas, are removed too.<p>
+ * 
+ * For every cache key, the number of cache hits and misses is counted, so thrashing schemas can be found.
+ * The counts are kept when the cache is cleared.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsXmlContentDefinitionCache {
+
+    /**
+     * The number of cache hits and misses for one cache key.<p>
+     */
+    public static class CmsSchemaStatistics {
+
+        /** The number of cache hits. */
+        private final AtomicLong m_hits;
+
+        /** The cache key. */
+        private final String m_key;
+
+        /** The number of cache misses. */
+        private final AtomicLong m_misses;
+
+        /**
+         * Creates new statistics for the given cache key.<p>
+         * 
+         * @param key the cache key
+         */
+        CmsSchemaStatistics(String key) {
+
+            m_key = key;
+            m_hits = new AtomicLong();
+            m_misses = new AtomicLong();
+        }
+
+        /**
+         * Returns the number of cache hits.<p>
+         * 
+         * @return the number of cache hits
+         */
+        public long getHits() {
+
+            return m_hits.get();
+        }
+
+        /**
+         * Returns the percentage of the lookups which were cache hits.<p>
+         * 
+         * @return the percentage of the lookups which were cache hits, or 0 if there was no lookup
+         */
+        public int getHitRate() {
+
+            long hits = m_hits.get();
+            long lookups = hits + m_misses.get();
+            return (lookups > 0) ? (int)((hits * 100) / lookups) : 0;
+        }
+
+        /**
+         * Returns the cache key.<p>
+         * 
+         * @return the cache key
+         */
+        public String getKey() {
+
+            return m_key;
+        }
+
+        /**
+         * Returns the number of cache misses.<p>
+         * 
+         * @return the number of cache misses
+         */
+        public long getMisses() {
+
+            return m_misses.get();
+        }
+    }
+
+    /**
+     * A cached XML content definition.<p>
+     */
+    private static class CmsCacheEntry {
+
+        /** The cached content definition. */
+        final CmsXmlContentDefinition m_definition;
+
+        /** The cache key. */
+        final String m_key;
+
+        /** The time of the last access, as value of the clock of the cache. */
+        volatile long m_lastAccess;
+
+        /**
+         * Creates a new cache entry.<p>
+         * 
+         * @param key the cache key
+         * @param definition the cached content definition
+         * @param time the time of the creation, as value of the clock of the cache
+         */
+        CmsCacheEntry(String key, CmsXmlContentDefinition definition, long time) {
+
+            m_key = key;
+            m_definition = definition;
+            m_lastAccess = time;
+        }
+    }
+
+    /** Sorts the cache entries with the least recently used first. */
+    private static final Comparator<CmsCacheEntry> LEAST_RECENTLY_USED = new Comparator<CmsCacheEntry>() {
+
+        public int compare(CmsCacheEntry entry1, CmsCacheEntry entry2) {
+
+            long access1 = entry1.m_lastAccess;
+            long access2 = entry2.m_lastAccess;
+            return (access1 < access2) ? -1 : ((access1 == access2) ? 0 : 1);
+        }
+    };
+
+    /** The clock used to order the accesses to the cache entries. */
+    private final AtomicLong m_clock;
+
+    /** The keys of the definitions which directly include a schema, by the key of the schema. */
+    private final ConcurrentHashMap<String, Set<String>> m_dependents;
+
+    /** The cached definitions. */
+    private final ConcurrentHashMap<String, CmsCacheEntry> m_entries;
+
+    /** The lock for removing the least recently used definitions. */
+    private final Object m_evictionLock;
+
+    /** The maximum number of cached definitions. */
+    private final int m_maxSize;
+
+    /** The number of cache hits and misses, by cache key. */
+    private final ConcurrentHashMap<String, CmsSchemaStatistics> m_statistics;
+
+    /**
+     * Creates a new content definition cache.<p>
+     * 
+     * @param maxSize the maximum number of cached definitions
+     */
+    public CmsXmlContentDefinitionCache(int maxSize) {
+
+        m_maxSize = Math.max(1, maxSize);
+        m_clock = new AtomicLong();
+        m_dependents = new ConcurrentHashMap<String, Set<String>>();
+        m_entries = new ConcurrentHashMap<String, CmsCacheEntry>();
+        m_evictionLock = new Object();
+        m_statistics = new ConcurrentHashMap<String, CmsSchemaStatistics>();
+    }
+
+    /**
+     * Removes all definitions and the recorded includes from the cache.<p>
+     * 
+     * The numbers of cache hits and misses are kept.<p>
+     */
+    public void clear() {
+
+        m_entries.clear();
+        m_dependents.clear();
+    }
+
+    /**
+     * Returns the definition cached with the given key, or <code>null</code> if no definition is cached.<p>
+     * 
+     * The lookup is counted as cache hit or miss for the key.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return the definition cached with the given key
+     */
+    public CmsXmlContentDefinition get(String key) {
+
+        CmsCacheEntry entry = m_entries.get(key);
+        CmsSchemaStatistics statistics = getStatistics(key);
+        if (entry == null) {
+            statistics.m_misses.incrementAndGet();
+            return null;
+        }
+        statistics.m_hits.incrementAndGet();
+        entry.m_lastAccess = m_clock.incrementAndGet();
+        return entry.m_definition;
+    }
+
+    /**
+     * Returns the keys of the definitions which directly include the schema with the given key.<p>
+     * 
+     * @param key the cache key of the schema
+     * 
+     * @return the keys of the definitions which directly include the schema
+     */
+    public Set<String> getDependents(String key) {
+
+        Set<String> dependents = m_dependents.get(key);
+        if (dependents == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(dependents);
+    }
+
+    /**
+     * Returns the maximum number of cached definitions.<p>
+     * 
+     * @return the maximum number of cached definitions
+     */
+    public int getMaxSize() {
+
+        return m_maxSize;
+    }
+
+    /**
+     * Returns the numbers of cache hits and misses for all keys looked up so far, sorted by key.<p>
+     * 
+     * @return the numbers of cache hits and misses
+     */
+    public List<CmsSchemaStatistics> getStatistics() {
+
+        return new ArrayList<CmsSchemaStatistics>(new TreeMap<String, CmsSchemaStatistics>(m_statistics).values());
+    }
+
+    /**
+     * Returns the numbers of cache hits and misses for the given key.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return the numbers of cache hits and misses
+     */
+    public CmsSchemaStatistics getStatistics(String key) {
+
+        CmsSchemaStatistics statistics = m_statistics.get(key);
+        if (statistics == null) {
+            statistics = new CmsSchemaStatistics(key);
+            CmsSchemaStatistics existing = m_statistics.putIfAbsent(key, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Caches a definition together with the keys of the schemas it includes.<p>
+     * 
+     * If the cache grows beyond its maximum size, the least recently used definitions are removed.<p>
+     * 
+     * @param key the cache key
+     * @param definition the definition to cache
+     * @param includes the cache keys of the schemas directly included by the definition
+     */
+    public void put(String key, CmsXmlContentDefinition definition, Collection<String> includes) {
+
+        for (String include : includes) {
+            if (key.equals(include)) {
+                // a recursive definition does not depend on itself
+                continue;
+            }
+            Set<String> dependents = m_dependents.get(include);
+            if (dependents == null) {
+                dependents = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                Set<String> existing = m_dependents.putIfAbsent(include, dependents);
+                if (existing != null) {
+                    dependents = existing;
+                }
+            }
+            dependents.add(key);
+        }
+        m_entries.put(key, new CmsCacheEntry(key, definition, m_clock.incrementAndGet()));
+        if (m_entries.size() > m_maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes the definition with the given key and all definitions which include it, 
+     * directly or through other schemas.<p>
+     * 
+     * This must be called if the schema with the given key has changed.<p>
+     * 
+     * @param key the cache key of the changed schema
+     * 
+     * @return the keys of the removed definitions
+     */
+    public List<String> remove(String key) {
+
+        List<String> removed = new ArrayList<String>();
+        Set<String> visited = new HashSet<String>();
+        LinkedList<String> keys = new LinkedList<String>();
+        keys.add(key);
+        while (!keys.isEmpty()) {
+            String current = keys.removeFirst();
+            if (!visited.add(current)) {
+                continue;
+            }
+            if (m_entries.remove(current) != null) {
+                removed.add(current);
+            }
+            Set<String> dependents = m_dependents.get(current);
+            if (dependents != null) {
+                keys.addAll(dependents);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Resets the numbers of cache hits and misses for all keys.<p>
+     */
+    public void resetStatistics() {
+
+        m_statistics.clear();
+    }
+
+    /**
+     * Returns the number of cached definitions.<p>
+     * 
+     * @return the number of cached definitions
+     */
+    public int size() {
+
+        return m_entries.size();
+    }
+
+    /**
+     * Removes the least recently used definitions until the cache is smaller than its maximum size.<p>
+     * 
+     * To avoid sorting the entries on every new definition, an eighth of the maximum size is freed at once.<p>
+     */
+    private void evict() {
+
+        synchronized (m_evictionLock) {
+            int size = m_entries.size();
+            if (size <= m_maxSize) {
+                // another thread has already removed the definitions
+                return;
+            }
+            List<CmsCacheEntry> entries = new ArrayList<CmsCacheEntry>(m_entries.values());
+            Collections.sort(entries, LEAST_RECENTLY_USED);
+            int count = Math.min(entries.size(), (entries.size() - m_maxSize) + Math.max(1, m_maxSize / 8));
+            for (int i = 0; i < count; i++) {
+                CmsCacheEntry entry = entries.get(i);
+                m_entries.remove(entry.m_key, entry);
+            }
+        }
+    }
+}
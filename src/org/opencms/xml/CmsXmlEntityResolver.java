@@ -46,6 +46,7 @@ import org.opencms.xml.page.CmsXmlPage;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -65,7 +66,7 @@ import org.xml.sax.InputSource;
  */
 public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener {
 
-    /** Maximum size of the content definition cache. */
+    /** Default maximum size of the content definition cache. */
     public static final int CONTENT_DEFINITION_CACHE_SIZE = 2048;
 
     /** Scheme for files which should be retrieved from the classpath. */
@@ -74,6 +75,15 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /** The scheme to identify a file in the OpenCms VFS. */
     public static final String OPENCMS_SCHEME = "opencms://";
 
+    /** The compiled XML schemas resolved without a cms context. */
+    private static final CmsXmlGrammarPool GRAMMAR_POOL_NO_CMS = new CmsXmlGrammarPool();
+
+    /** The compiled XML schemas resolved in an offline project. */
+    private static final CmsXmlGrammarPool GRAMMAR_POOL_OFFLINE = new CmsXmlGrammarPool();
+
+    /** The compiled XML schemas resolved in the online project. */
+    private static final CmsXmlGrammarPool GRAMMAR_POOL_ONLINE = new CmsXmlGrammarPool();
+
     /**
      * A list of string pairs used to translate legacy system ids to a new form. The first component of each pair
      * is the prefix which should be replaced by the second component of that pair. 
@@ -86,7 +96,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     private static final Log LOG = CmsLog.getLog(CmsXmlEntityResolver.class);
 
     /** A temporary cache for XML content definitions. */
-    private static Map<String, CmsXmlContentDefinition> m_cacheContentDefinitions;
+    private static CmsXmlContentDefinitionCache m_cacheContentDefinitions;
 
     /** A permanent cache to avoid multiple readings of often used files from the VFS. */
     private static Map<String, byte[]> m_cachePermanent;
@@ -136,6 +146,10 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
 
         initCaches();
         m_cachePermanent.put(systemId, content);
+        // the compiled schemas may include the previous content of the system id
+        GRAMMAR_POOL_NO_CMS.removeGrammars(systemId);
+        GRAMMAR_POOL_OFFLINE.removeGrammars(systemId);
+        GRAMMAR_POOL_ONLINE.removeGrammars(systemId);
     }
 
     /**
@@ -207,8 +221,7 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
             Map<String, byte[]> cachePermanent = new HashMap<String, byte[]>(32);
             m_cachePermanent = Collections.synchronizedMap(cachePermanent);
 
-            Map<String, CmsXmlContentDefinition> cacheContentDefinitions = CmsCollectionsGenericWrapper.createLRUMap(CONTENT_DEFINITION_CACHE_SIZE);
-            m_cacheContentDefinitions = Collections.synchronizedMap(cacheContentDefinitions);
+            m_cacheContentDefinitions = new CmsXmlContentDefinitionCache(CONTENT_DEFINITION_CACHE_SIZE);
         }
         if (OpenCms.getRunLevel() > OpenCms.RUNLEVEL_1_CORE_OBJECT) {
             if ((OpenCms.getMemoryMonitor() != null)
@@ -230,13 +243,10 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                     CmsXmlEntityResolver.class.getName() + ".cachePermanent",
                     cachePermanent);
 
-                Map<String, CmsXmlContentDefinition> cacheContentDefinitions = CmsCollectionsGenericWrapper.createLRUMap(CONTENT_DEFINITION_CACHE_SIZE);
-                cacheContentDefinitions.putAll(m_cacheContentDefinitions);
-                m_cacheContentDefinitions = Collections.synchronizedMap(cacheContentDefinitions);
-                // map must be of type "LRUMap" so that memory monitor can access all information
-                OpenCms.getMemoryMonitor().register(
-                    CmsXmlEntityResolver.class.getName() + ".cacheContentDefinitions",
-                    cacheContentDefinitions);
+                // use the content definition cache of the memory monitor, which is sized by the configuration
+                if (OpenCms.getMemoryMonitor().getContentDefinitionCache() != null) {
+                    m_cacheContentDefinitions = OpenCms.getMemoryMonitor().getContentDefinitionCache();
+                }
             }
         }
     }
@@ -267,13 +277,28 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
      * Caches an XML content definition based on the given system id and the online / offline status
      * of this entity resolver instance.<p>
      * 
+     * The schemas included by the content definition are recorded, so the definition is removed 
+     * from the cache if one of the included schemas changes.<p>
+     * 
      * @param systemId the system id to use as cache key
      * @param contentDefinition the content definition to cache
      */
     public void cacheContentDefinition(String systemId, CmsXmlContentDefinition contentDefinition) {
 
         String cacheKey = getCacheKeyForCurrentProject(systemId);
-        m_cacheContentDefinitions.put(cacheKey, contentDefinition);
+        List<String> includes = new ArrayList<String>();
+        if (contentDefinition.getIncludes() != null) {
+            for (CmsXmlContentDefinition include : contentDefinition.getIncludes()) {
+                String location = include.getSchemaLocation();
+                includes.add(getCacheKeyForCurrentProject(location));
+                String translatedLocation = translateLegacySystemId(location);
+                if (!translatedLocation.equals(location)) {
+                    // the changed schema is uncached with the location it was read from
+                    includes.add(getCacheKeyForCurrentProject(translatedLocation));
+                }
+            }
+        }
+        m_cacheContentDefinitions.put(cacheKey, contentDefinition, includes);
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_CACHED_SYSTEM_ID_1, cacheKey));
         }
@@ -292,6 +317,8 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 if (isSchemaDefinitionInPublishList(publishHistoryId)) {
                     m_cacheTemporary.clear();
                     m_cacheContentDefinitions.clear();
+                    GRAMMAR_POOL_OFFLINE.clear();
+                    GRAMMAR_POOL_ONLINE.clear();
                     if (LOG.isDebugEnabled()) {
                         LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                     }
@@ -301,6 +328,9 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
                 // flush cache   
                 m_cacheTemporary.clear();
                 m_cacheContentDefinitions.clear();
+                GRAMMAR_POOL_NO_CMS.clear();
+                GRAMMAR_POOL_OFFLINE.clear();
+                GRAMMAR_POOL_ONLINE.clear();
                 if (LOG.isDebugEnabled()) {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_FLUSHED_CACHES_0));
                 }
@@ -345,6 +375,25 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
         return result;
     }
 
+    /**
+     * Returns the pool for the compiled XML schemas resolved by this entity resolver.<p>
+     * 
+     * The pool depends on the project of the cms context, since the online and offline versions 
+     * of a schema may differ. The pools are cleared together with the caches of the resolver.<p>
+     * 
+     * @return the pool for the compiled XML schemas resolved by this entity resolver
+     */
+    public CmsXmlGrammarPool getGrammarPool() {
+
+        if (m_cms == null) {
+            return GRAMMAR_POOL_NO_CMS;
+        }
+        if (m_cms.getRequestContext().getCurrentProject().isOnlineProject()) {
+            return GRAMMAR_POOL_ONLINE;
+        }
+        return GRAMMAR_POOL_OFFLINE;
+    }
+
     /**
      * @see org.xml.sax.EntityResolver#resolveEntity(java.lang.String, java.lang.String)
      */
@@ -448,30 +497,25 @@ public class CmsXmlEntityResolver implements EntityResolver, I_CmsEventListener
     /**
      * Removes a cached entry for a system id (filename) from the internal offline temporary and content definition caches.<p>
      * 
+     * All cached content definitions which include the system id, directly or as nested schema, are removed too.
      * The online resources cached for the online project are only flushed when a project is published.<p>
      * 
      * @param systemId the system id (filename) to remove from the cache
      */
     public void uncacheSystemId(String systemId) {
 
-        Object o;
-        o = m_cacheTemporary.remove(getCacheKey(systemId, false));
-        if (null != o) {
-            // if an object was removed from the temporary cache, all XML content definitions must be cleared
-            // because this may be a nested subschema 
-            m_cacheContentDefinitions.clear();
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(
-                    Messages.LOG_ERR_UNCACHED_SYS_ID_1,
-                    getCacheKey(systemId, false)));
-            }
-        } else {
-            // check if a cached content definition has to be removed based on the system id
-            o = m_cacheContentDefinitions.remove(getCacheKey(systemId, false));
-            if ((null != o) && LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(
-                    Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1,
-                    getCacheKey(systemId, false)));
+        // the offline schemas compiled from the system id may also be nested in other schemas
+        GRAMMAR_POOL_OFFLINE.removeGrammars(OPENCMS_SCHEME.substring(0, OPENCMS_SCHEME.length() - 1) + systemId);
+        String cacheKey = getCacheKey(systemId, false);
+        Object o = m_cacheTemporary.remove(cacheKey);
+        if ((null != o) && LOG.isDebugEnabled()) {
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_SYS_ID_1, cacheKey));
+        }
+        // the system id may be a nested schema, so the definitions including it are removed as well
+        List<String> removed = m_cacheContentDefinitions.remove(cacheKey);
+        if (LOG.isDebugEnabled()) {
+            for (String key : removed) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_UNCACHED_CONTENT_DEF_1, key));
             }
         }
     }
@@ -0,0 +1,159 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import org.apache.xerces.impl.xs.SchemaGrammar;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.grammars.Grammar;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+
+/**
+ * A Xerces grammar pool for the compiled XML schemas used to validate XML documents.<p>
+ * 
+ * The XML content definitions of OpenCms have no target namespace, so the schema grammars are stored 
+ * by their system ID instead of their namespace. DTD grammars are stored like in the default Xerces pool.<p>
+ * 
+ * Since the entity resolver may return different schemas for the same system ID, e.g. depending on the project, 
+ * a pool must only be used together with the resolver it belongs to, 
+ * see {@link CmsXmlEntityResolver#getGrammarPool()}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsXmlGrammarPool extends XMLGrammarPoolImpl {
+
+    /** Flags the threads that are about to validate a new document. */
+    private static final ThreadLocal<Boolean> NEW_DOCUMENT = new ThreadLocal<Boolean>();
+
+    /**
+     * Prepares the pool for the validation of a new document in the current thread.<p>
+     * 
+     * This must be called before a document is validated by a reused parser, because the Xerces schema validator 
+     * looks up the first schema grammar of a document with the description of the previous document.
+     * This lookup is ignored, the schema is looked up again by its actual system ID afterwards.<p>
+     */
+    public static void startDocument() {
+
+        NEW_DOCUMENT.set(Boolean.TRUE);
+    }
+
+    /**
+     * @see org.apache.xerces.util.XMLGrammarPoolImpl#equals(org.apache.xerces.xni.grammars.XMLGrammarDescription, org.apache.xerces.xni.grammars.XMLGrammarDescription)
+     */
+    @Override
+    public boolean equals(XMLGrammarDescription desc1, XMLGrammarDescription desc2) {
+
+        if (isSchema(desc1) || isSchema(desc2)) {
+            return isSchema(desc1) && isSchema(desc2) && getKey(desc1).equals(getKey(desc2));
+        }
+        return super.equals(desc1, desc2);
+    }
+
+    /**
+     * @see org.apache.xerces.util.XMLGrammarPoolImpl#hashCode(org.apache.xerces.xni.grammars.XMLGrammarDescription)
+     */
+    @Override
+    public int hashCode(XMLGrammarDescription desc) {
+
+        if (isSchema(desc)) {
+            return getKey(desc).hashCode();
+        }
+        return super.hashCode(desc);
+    }
+
+    /**
+     * Removes all schema grammars which were compiled from the given system ID, 
+     * either as main schema or as included or imported schema.<p>
+     * 
+     * @param systemId the system ID
+     */
+    public void removeGrammars(String systemId) {
+
+        for (Grammar grammar : super.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA)) {
+            if ((grammar instanceof SchemaGrammar)
+                && ((SchemaGrammar)grammar).getDocumentLocations().contains(systemId)) {
+                removeGrammar(grammar.getGrammarDescription());
+            }
+        }
+    }
+
+    /**
+     * @see org.apache.xerces.util.XMLGrammarPoolImpl#retrieveGrammar(org.apache.xerces.xni.grammars.XMLGrammarDescription)
+     */
+    @Override
+    public Grammar retrieveGrammar(XMLGrammarDescription desc) {
+
+        if (isSchema(desc) && (NEW_DOCUMENT.get() != null)) {
+            // the first lookup of a document may use the system ID of the previous document, see startDocument()
+            NEW_DOCUMENT.remove();
+            return null;
+        }
+        return super.retrieveGrammar(desc);
+    }
+
+    /**
+     * @see org.apache.xerces.util.XMLGrammarPoolImpl#retrieveInitialGrammarSet(java.lang.String)
+     */
+    @Override
+    public Grammar[] retrieveInitialGrammarSet(String grammarType) {
+
+        if (XMLGrammarDescription.XML_SCHEMA.equals(grammarType)) {
+            // the validator stores the initial grammars by namespace, which is not unique for the schemas
+            return new Grammar[0];
+        }
+        return super.retrieveInitialGrammarSet(grammarType);
+    }
+
+    /**
+     * Returns the key of a schema grammar description, which consists of the namespace and the system ID.<p>
+     * 
+     * @param desc the schema grammar description
+     * 
+     * @return the key of the schema grammar description
+     */
+    private String getKey(XMLGrammarDescription desc) {
+
+        String systemId = desc.getLiteralSystemId();
+        if (systemId == null) {
+            systemId = desc.getExpandedSystemId();
+        }
+        return String.valueOf(desc.getNamespace()) + "|" + String.valueOf(systemId);
+    }
+
+    /**
+     * Checks if a grammar description describes a XML schema.<p>
+     * 
+     * @param desc the grammar description
+     * 
+     * @return <code>true</code> if the grammar description describes a XML schema
+     */
+    private boolean isSchema(XMLGrammarDescription desc) {
+
+        return XMLGrammarDescription.XML_SCHEMA.equals(desc.getGrammarType());
+    }
+}
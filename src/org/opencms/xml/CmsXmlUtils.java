@@ -64,9 +64,31 @@ import org.xml.sax.helpers.XMLReaderFactory;
  */
 public final class CmsXmlUtils {
 
+    /** The Xerces property for the grammar pool. */
+    private static final String GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+
+    /** The SAX property for the lexical handler. */
+    private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsXmlUtils.class);
 
+    /** The SAX readers used for unmarshalling by the current thread, the non validating reader first. */
+    private static final ThreadLocal<XMLReader[]> UNMARSHAL_READERS = new ThreadLocal<XMLReader[]>() {
+
+        /**
+         * @see java.lang.ThreadLocal#initialValue()
+         */
+        @Override
+        protected XMLReader[] initialValue() {
+
+            return new XMLReader[2];
+        }
+    };
+
+    /** The Xerces reader used for validation by the current thread. */
+    private static final ThreadLocal<XMLReader> VALIDATION_READER = new ThreadLocal<XMLReader>();
+
     /**
      * Prevents instances of this class from being generated.<p> 
      */
@@ -678,8 +700,14 @@ public final class CmsXmlUtils {
     public static Document unmarshalHelper(InputSource source, EntityResolver resolver, boolean validate)
     throws CmsXmlException {
 
+        // the parser is reused by the thread, it is removed while in use in case the entity resolver parses a document
+        XMLReader[] readers = UNMARSHAL_READERS.get();
+        int index = validate ? 1 : 0;
+        XMLReader xmlReader = readers[index];
+        readers[index] = null;
         try {
-            SAXReader reader = new SAXReader();
+            SAXReader reader = (xmlReader != null) ? new SAXReader(xmlReader) : new SAXReader();
+            xmlReader = reader.getXMLReader();
             if (resolver != null) {
                 reader.setEntityResolver(resolver);
             }
@@ -689,7 +717,9 @@ public final class CmsXmlUtils {
                 reader.setValidation(false);
                 reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
             }
-            return reader.read(source);
+            Document document = reader.read(source);
+            readers[index] = releaseReader(xmlReader);
+            return document;
         } catch (DocumentException e) {
             throw new CmsXmlException(Messages.get().container(
                 Messages.ERR_UNMARSHALLING_XML_DOC_1,
@@ -760,51 +790,34 @@ public final class CmsXmlUtils {
      */
     public static void validateXmlStructure(InputStream xmlStream, EntityResolver resolver) throws CmsXmlException {
 
-        XMLReader reader;
-        try {
-            reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
-        } catch (SAXException e) {
-            // xerces parser not available - no schema validation possible
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0), e);
+        // the parser is reused by the thread, it is removed while in use in case the resolver validates a document
+        XMLReader reader = VALIDATION_READER.get();
+        VALIDATION_READER.remove();
+        if (reader == null) {
+            reader = createValidationReader();
+            if (reader == null) {
+                // no validation of the content is possible
+                return;
             }
-            // no validation of the content is possible
-            return;
-        }
-        // turn on validation
-        try {
-            reader.setFeature("http://xml.org/sax/features/validation", true);
-            // turn on schema validation
-            reader.setFeature("http://apache.org/xml/features/validation/schema", true);
-            // configure namespace support
-            reader.setFeature("http://xml.org/sax/features/namespaces", true);
-            reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
-        } catch (SAXNotRecognizedException e) {
-            // should not happen as Xerces 2 support this feature
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_SAX_READER_FEATURE_NOT_RECOGNIZED_0), e);
-            }
-            // no validation of the content is possible
-            return;
-        } catch (SAXNotSupportedException e) {
-            // should not happen as Xerces 2 support this feature
-            if (LOG.isWarnEnabled()) {
-                LOG.warn(Messages.get().getBundle().key(Messages.LOG_SAX_READER_FEATURE_NOT_SUPPORTED_0), e);
-            }
-            // no validation of the content is possible
-            return;
         }
 
         // add an error handler which turns any errors into XML
         CmsXmlValidationErrorHandler errorHandler = new CmsXmlValidationErrorHandler();
         reader.setErrorHandler(errorHandler);
 
+        CmsXmlGrammarPool grammarPool = null;
         if (resolver != null) {
             // set the resolver for the "opencms://" URIs
             reader.setEntityResolver(resolver);
+            if (resolver instanceof CmsXmlEntityResolver) {
+                // reuse the schemas compiled for the same resolver state
+                grammarPool = ((CmsXmlEntityResolver)resolver).getGrammarPool();
+                CmsXmlGrammarPool.startDocument();
+            }
         }
 
         try {
+            reader.setProperty(GRAMMAR_POOL, grammarPool);
             reader.parse(new InputSource(xmlStream));
         } catch (IOException e) {
             // should not happen since we read form a byte array
@@ -818,6 +831,8 @@ public final class CmsXmlUtils {
                 LOG.error(Messages.get().getBundle().key(Messages.LOG_PARSE_SAX_EXC_0), e);
             }
             return;
+        } finally {
+            VALIDATION_READER.set(releaseReader(reader));
         }
 
         if (errorHandler.getErrors().elements().size() > 0) {
@@ -839,4 +854,69 @@ public final class CmsXmlUtils {
             throw new CmsXmlException(Messages.get().container(Messages.ERR_XML_VALIDATION_1, out.toString()));
         }
     }
+
+    /**
+     * Creates a Xerces reader configured for the validation of XML documents.<p>
+     * 
+     * @return the Xerces reader, or <code>null</code> if no validation is possible
+     */
+    private static XMLReader createValidationReader() {
+
+        XMLReader reader;
+        try {
+            reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+        } catch (SAXException e) {
+            // xerces parser not available - no schema validation possible
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_VALIDATION_INIT_XERXES_SAX_READER_FAILED_0), e);
+            }
+            return null;
+        }
+        // turn on validation
+        try {
+            reader.setFeature("http://xml.org/sax/features/validation", true);
+            // turn on schema validation
+            reader.setFeature("http://apache.org/xml/features/validation/schema", true);
+            // configure namespace support
+            reader.setFeature("http://xml.org/sax/features/namespaces", true);
+            reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+        } catch (SAXNotRecognizedException e) {
+            // should not happen as Xerces 2 support this feature
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_SAX_READER_FEATURE_NOT_RECOGNIZED_0), e);
+            }
+            return null;
+        } catch (SAXNotSupportedException e) {
+            // should not happen as Xerces 2 support this feature
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_SAX_READER_FEATURE_NOT_SUPPORTED_0), e);
+            }
+            return null;
+        }
+        return reader;
+    }
+
+    /**
+     * Removes the handlers of the last parsed document from a reader, so that the reader can be reused
+     * without keeping the document in memory.<p>
+     * 
+     * @param reader the reader
+     * 
+     * @return the reader, or <code>null</code> if the reader does not support the removal of the handlers
+     */
+    private static XMLReader releaseReader(XMLReader reader) {
+
+        try {
+            reader.setContentHandler(null);
+            reader.setDTDHandler(null);
+            reader.setEntityResolver(null);
+            reader.setErrorHandler(null);
+            reader.setProperty(LEXICAL_HANDLER, null);
+            return reader;
+        } catch (Exception e) {
+            // the reader can not be reused
+            LOG.debug(e.getLocalizedMessage(), e);
+            return null;
+        }
+    }
 }
\ No newline at end of file
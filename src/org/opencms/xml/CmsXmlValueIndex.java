@@ -0,0 +1,270 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the values of one locale of a XML document.<p>
+ * 
+ * The values are stored by their full Xpath (like <code>Title[1]</code> or <code>Teaser[2]/Link[1]</code>).
+ * In addition, the values directly below a value, and the values of a sequence with the same element name,
+ * are kept in lists. This gives constant time access to a single value and linear time access
+ * to the values below a value, in the number of values returned.<p>
+ * 
+ * @since 8.5.2
+ */
+public class CmsXmlValueIndex {
+
+    /** The path used as parent path of the top level values. */
+    private static final String ROOT_PATH = "";
+
+    /** The values directly below a value, by the path of the parent value, in the order they were added. */
+    private Map<String, List<I_CmsXmlContentValue>> m_children;
+
+    /** The values with the same element name below a value, by path without the last index, ordered by index. */
+    private Map<String, List<I_CmsXmlContentValue>> m_sequences;
+
+    /** The values by path. */
+    private Map<String, I_CmsXmlContentValue> m_values;
+
+    /**
+     * Creates a new empty value index.<p>
+     */
+    public CmsXmlValueIndex() {
+
+        m_values = new HashMap<String, I_CmsXmlContentValue>();
+        m_children = new HashMap<String, List<I_CmsXmlContentValue>>();
+        m_sequences = new HashMap<String, List<I_CmsXmlContentValue>>();
+    }
+
+    /**
+     * Adds a value to this index, replacing the value previously stored for the given path.<p>
+     * 
+     * @param path the path of the value, with the index for every element
+     * @param value the value to add
+     * 
+     * @return the value previously stored for the given path, or <code>null</code>
+     */
+    public I_CmsXmlContentValue add(String path, I_CmsXmlContentValue value) {
+
+        I_CmsXmlContentValue previous = m_values.put(path, value);
+        String parentPath = getParentPath(path);
+        List<I_CmsXmlContentValue> children = m_children.get(parentPath);
+        if (children == null) {
+            children = new ArrayList<I_CmsXmlContentValue>();
+            m_children.put(parentPath, children);
+        }
+        int pos = (previous != null) ? indexOf(children, previous) : -1;
+        if (pos < 0) {
+            children.add(value);
+        } else {
+            // keep the position of the replaced value
+            children.set(pos, value);
+        }
+
+        int index = CmsXmlUtils.getXpathIndexInt(path);
+        if (index < 1) {
+            // not a valid Xpath index, the value can not be part of a sequence
+            return previous;
+        }
+        String sequencePath = CmsXmlUtils.removeXpathIndex(path);
+        List<I_CmsXmlContentValue> sequence = m_sequences.get(sequencePath);
+        if (sequence == null) {
+            sequence = new ArrayList<I_CmsXmlContentValue>();
+            m_sequences.put(sequencePath, sequence);
+        }
+        while (sequence.size() < index) {
+            sequence.add(null);
+        }
+        sequence.set(index - 1, value);
+        return previous;
+    }
+
+    /**
+     * Returns the value for the given path, or <code>null</code> if no such value exists.<p>
+     * 
+     * @param path the path of the value, with the index for every element
+     * 
+     * @return the value for the given path
+     */
+    public I_CmsXmlContentValue get(String path) {
+
+        return m_values.get(path);
+    }
+
+    /**
+     * Returns the values directly below the value with the given path, in the order they were added.<p>
+     * 
+     * Use the empty String to get the top level values.<p>
+     * 
+     * @param path the path of the parent value, with the index for every element
+     * 
+     * @return the values directly below the given path, never <code>null</code>
+     */
+    public List<I_CmsXmlContentValue> getChildren(String path) {
+
+        List<I_CmsXmlContentValue> children = m_children.get(path);
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Returns the paths of all values in this index.<p>
+     * 
+     * @return the paths of all values in this index
+     */
+    public Set<String> getPaths() {
+
+        return Collections.unmodifiableSet(m_values.keySet());
+    }
+
+    /**
+     * Returns the values of a sequence, starting with index 1 and ending before the first missing index.<p>
+     * 
+     * @param path the path of the sequence, with the index for every element except the last
+     * 
+     * @return the values of the sequence, never <code>null</code>
+     */
+    public List<I_CmsXmlContentValue> getSequence(String path) {
+
+        List<I_CmsXmlContentValue> sequence = m_sequences.get(path);
+        if (sequence == null) {
+            return Collections.emptyList();
+        }
+        int size = sequence.indexOf(null);
+        return Collections.unmodifiableList((size < 0) ? sequence : sequence.subList(0, size));
+    }
+
+    /**
+     * Returns all values in this index.<p>
+     * 
+     * @return all values in this index
+     */
+    public Collection<I_CmsXmlContentValue> getValues() {
+
+        return Collections.unmodifiableCollection(m_values.values());
+    }
+
+    /**
+     * Returns <code>true</code> if this index contains no values.<p>
+     * 
+     * @return <code>true</code> if this index contains no values
+     */
+    public boolean isEmpty() {
+
+        return m_values.isEmpty();
+    }
+
+    /**
+     * Removes the value with the given path from this index.<p>
+     * 
+     * The values below the removed value are not removed.<p>
+     * 
+     * @param path the path of the value, with the index for every element
+     * 
+     * @return the removed value, or <code>null</code> if no value was stored for the given path
+     */
+    public I_CmsXmlContentValue remove(String path) {
+
+        I_CmsXmlContentValue value = m_values.remove(path);
+        if (value == null) {
+            return null;
+        }
+        String parentPath = getParentPath(path);
+        List<I_CmsXmlContentValue> children = m_children.get(parentPath);
+        int pos = indexOf(children, value);
+        if (pos >= 0) {
+            children.remove(pos);
+            if (children.isEmpty()) {
+                m_children.remove(parentPath);
+            }
+        }
+        String sequencePath = CmsXmlUtils.removeXpathIndex(path);
+        List<I_CmsXmlContentValue> sequence = m_sequences.get(sequencePath);
+        int index = CmsXmlUtils.getXpathIndexInt(path);
+        if ((sequence != null) && (sequence.size() >= index) && (sequence.get(index - 1) == value)) {
+            sequence.set(index - 1, null);
+            // remove the trailing gaps
+            while (!sequence.isEmpty() && (sequence.get(sequence.size() - 1) == null)) {
+                sequence.remove(sequence.size() - 1);
+            }
+            if (sequence.isEmpty()) {
+                m_sequences.remove(sequencePath);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns the path of the parent value of the given path, 
+     * or the empty String for a top level path.<p>
+     * 
+     * @param path the path to get the parent path for
+     * 
+     * @return the path of the parent value
+     */
+    private static String getParentPath(String path) {
+
+        int pos = path.lastIndexOf('/');
+        return (pos < 0) ? ROOT_PATH : path.substring(0, pos);
+    }
+
+    /**
+     * Returns the position of the given value in the list, comparing by identity.<p>
+     * 
+     * The values are not compared with <code>equals</code> since this compares the schema types only.<p>
+     * 
+     * @param values the list to search, may be <code>null</code>
+     * @param value the value to search
+     * 
+     * @return the position of the value, or <code>-1</code> if the value is not in the list
+     */
+    private int indexOf(List<I_CmsXmlContentValue> values, I_CmsXmlContentValue value) {
+
+        if (values != null) {
+            for (int i = values.size() - 1; i >= 0; i--) {
+                if (values.get(i) == value) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -43,6 +43,12 @@ public class CmsADECacheSettings {
     /** The size of the container page online cache. */
     private int m_containerPageOnlineSize;
 
+    /** The number of threads used for rendering container elements in the page editor. */
+    private int m_elementRenderThreads;
+
+    /** The maximum number of rendered element contents cached per editor session. */
+    private int m_elementSessionCacheSize;
+
     /** Default size for group container caches. */
     private static final int DEFAULT_GROUP_CONTAINER_SIZE = 128;
 
@@ -106,6 +112,26 @@ public class CmsADECacheSettings {
         m_containerPageOnlineSize = getIntValue(size, DEFAULT_CONTAINER_PAGE_SIZE);
     }
 
+    /**
+     * Returns the number of threads used for rendering container elements in the page editor.<p>
+     * 
+     * @return the number of threads, <code>0</code> if the elements are rendered sequentially
+     */
+    public int getElementRenderThreads() {
+
+        return m_elementRenderThreads;
+    }
+
+    /**
+     * Returns the maximum number of rendered element contents cached per editor session.<p>
+     * 
+     * @return the maximum number of cached element contents, <code>0</code> if the cache is disabled
+     */
+    public int getElementSessionCacheSize() {
+
+        return m_elementSessionCacheSize;
+    }
+
     /**
      * Returns the size of the group container offline cache.<p>
      * 
@@ -132,6 +158,26 @@ public class CmsADECacheSettings {
         return m_groupContainerOnlineSize;
     }
 
+    /**
+     * Sets the number of threads used for rendering container elements in the page editor.<p>
+     *
+     * @param threads the number of threads, <code>0</code> to render the elements sequentially
+     */
+    public void setElementRenderThreads(String threads) {
+
+        m_elementRenderThreads = getIntValue(threads, 0);
+    }
+
+    /**
+     * Sets the maximum number of rendered element contents cached per editor session.<p>
+     *
+     * @param size the maximum number of cached element contents, <code>0</code> to disable the cache
+     */
+    public void setElementSessionCacheSize(String size) {
+
+        m_elementSessionCacheSize = getIntValue(size, 0);
+    }
+
     /**
      * Sets the size of the cache for offline group containers.<p>
      *
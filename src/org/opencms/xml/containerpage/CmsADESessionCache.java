@@ -54,6 +54,9 @@ public final class CmsADESessionCache {
     /** The container elements. */
     private Map<String, CmsContainerElementBean> m_containerElements;
 
+    /** The rendered element contents, <code>null</code> if not cached. */
+    private Map<String, String> m_elementContents;
+
     /** The show editor help flag. */
     private boolean m_isShowEditorHelp;
 
@@ -83,6 +86,13 @@ public final class CmsADESessionCache {
         List<CmsContainerElementBean> adeRecentList = CmsCollectionsGenericWrapper.list(new NodeCachingLinkedList(
             maxElems));
         m_recentLists = Collections.synchronizedList(adeRecentList);
+
+        // rendered element contents
+        int contentsSize = OpenCms.getADEManager().getElementSessionCacheSize();
+        if (contentsSize > 0) {
+            Map<String, String> lruMapContents = CmsCollectionsGenericWrapper.createLRUMap(contentsSize);
+            m_elementContents = Collections.synchronizedMap(lruMapContents);
+        }
         m_isShowEditorHelp = true;
     }
 
@@ -117,6 +127,21 @@ public final class CmsADESessionCache {
         return m_containerElements.get(key);
     }
 
+    /**
+     * Returns the cached rendered content of a container element.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return the rendered content or <code>null</code> if not found
+     */
+    public String getCacheElementContent(String key) {
+
+        if (m_elementContents == null) {
+            return null;
+        }
+        return m_elementContents.get(key);
+    }
+
     /**
      * Returns the cached recent list.<p>
      * 
@@ -175,6 +200,21 @@ public final class CmsADESessionCache {
         m_containerElements.put(key, containerElement);
     }
 
+    /**
+     * Caches the rendered content of a container element under the given key.<p>
+     * 
+     * The content is not cached if the element content cache is disabled.<p>
+     * 
+     * @param key the cache key
+     * @param content the rendered content
+     */
+    public void setCacheElementContent(String key, String content) {
+
+        if (m_elementContents != null) {
+            m_elementContents.put(key, content);
+        }
+    }
+
     /**
      * Caches the given recent list.<p>
      * 
@@ -59,6 +59,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -362,7 +363,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
 
         // return the value instance that was stored in the bookmarks 
         // just returning "newValue" isn't enough since this instance is NOT stored in the bookmarks
-        return getBookmark(getBookmarkName(newValue.getPath(), locale));
+        return getBookmark(newValue.getPath(), locale);
     }
 
     /**
@@ -521,16 +522,7 @@ public class CmsXmlContent extends A_CmsXmlDocument {
     @Override
     public List<I_CmsXmlContentValue> getSubValues(String path, Locale locale) {
 
-        List<I_CmsXmlContentValue> result = new ArrayList<I_CmsXmlContentValue>();
-        String bookmark = getBookmarkName(CmsXmlUtils.createXpath(path, 1), locale);
-        int depth = CmsResource.getPathLevel(bookmark) + 1;
-        Iterator<String> i = getBookmarks().iterator();
-        while (i.hasNext()) {
-            String bm = i.next();
-            if (bm.startsWith(bookmark) && (CmsResource.getPathLevel(bm) == depth)) {
-                result.add(getBookmark(bm));
-            }
-        }
+        List<I_CmsXmlContentValue> result = getBookmarkChildren(CmsXmlUtils.createXpath(path, 1), locale);
         if (result.size() > 0) {
             Collections.sort(result, COMPARE_INDEX);
         }
@@ -663,14 +655,25 @@ public class CmsXmlContent extends A_CmsXmlDocument {
      */
     public void visitAllValuesWith(I_CmsXmlContentValueVisitor visitor) {
 
-        List<String> bookmarks = new ArrayList<String>(getBookmarks());
-        Collections.sort(bookmarks);
+        // visit the locales in the order of their names, and the values of a locale in the order of their paths
+        List<Locale> locales = new ArrayList<Locale>(getBookmarkLocales());
+        Collections.sort(locales, new Comparator<Locale>() {
 
-        for (int i = 0; i < bookmarks.size(); i++) {
+            public int compare(Locale l1, Locale l2) {
+
+                return l1.toString().compareTo(l2.toString());
+            }
+        });
 
-            String key = bookmarks.get(i);
-            I_CmsXmlContentValue value = getBookmark(key);
-            visitor.visit(value);
+        for (Locale locale : locales) {
+            List<String> paths = new ArrayList<String>(getBookmarkPaths(locale));
+            Collections.sort(paths);
+
+            for (int i = 0; i < paths.size(); i++) {
+
+                I_CmsXmlContentValue value = getBookmark(paths.get(i), locale);
+                visitor.visit(value);
+            }
         }
     }
 
@@ -872,45 +875,53 @@ public class CmsXmlContent extends A_CmsXmlDocument {
             if (!(node instanceof Element)) {
                 // this node is not an element, so it must be a white space text node, remove it
                 node.detach();
+            }
+        }
+        // count the elements by name to calculate the Xpath index in document order
+        Map<String, int[]> indexes = new HashMap<String, int[]>();
+        for (int i = 0; i < content.size(); i++) {
+            // node must be an element 
+            Element element = (Element)content.get(i);
+            String name = element.getName();
+            int[] count = indexes.get(name);
+            if (count == null) {
+                count = new int[1];
+                indexes.put(name, count);
+            }
+            int xpathIndex = ++count[0];
+
+            // build the Xpath expression for the current node
+            String path;
+            if (rootPath != null) {
+                StringBuffer b = new StringBuffer(rootPath.length() + name.length() + 6);
+                b.append(rootPath);
+                b.append('/');
+                b.append(CmsXmlUtils.createXpathElement(name, xpathIndex));
+                path = b.toString();
             } else {
-                // node must be an element 
-                Element element = (Element)node;
-                String name = element.getName();
-                int xpathIndex = CmsXmlUtils.getXpathIndexInt(element.getUniquePath(root));
-
-                // build the Xpath expression for the current node
-                String path;
-                if (rootPath != null) {
-                    StringBuffer b = new StringBuffer(rootPath.length() + name.length() + 6);
-                    b.append(rootPath);
-                    b.append('/');
-                    b.append(CmsXmlUtils.createXpathElement(name, xpathIndex));
-                    path = b.toString();
-                } else {
-                    path = CmsXmlUtils.createXpathElement(name, xpathIndex);
-                }
+                path = CmsXmlUtils.createXpathElement(name, xpathIndex);
+            }
 
-                // create a XML content value element
-                I_CmsXmlSchemaType schemaType = definition.getSchemaType(name);
+            // create a XML content value element
+            I_CmsXmlSchemaType schemaType = definition.getSchemaType(name);
 
-                if (schemaType != null) {
-                    // directly add simple type to schema
-                    I_CmsXmlContentValue value = schemaType.createValue(this, element, locale);
-                    addBookmark(path, locale, true, value);
+            if (schemaType != null) {
+                // directly add simple type to schema
+                I_CmsXmlContentValue value = schemaType.createValue(this, element, locale);
+                addBookmark(path, locale, true, value);
 
-                    if (!schemaType.isSimpleType()) {
-                        // recurse for nested schema
-                        CmsXmlNestedContentDefinition nestedSchema = (CmsXmlNestedContentDefinition)schemaType;
-                        processSchemaNode(element, path, locale, nestedSchema.getNestedContentDefinition());
-                    }
-                } else {
-                    // unknown XML node name according to schema
-                    if (LOG.isWarnEnabled()) {
-                        LOG.warn(Messages.get().getBundle().key(
-                            Messages.LOG_XMLCONTENT_INVALID_ELEM_2,
-                            name,
-                            definition.getSchemaLocation()));
-                    }
+                if (!schemaType.isSimpleType()) {
+                    // recurse for nested schema
+                    CmsXmlNestedContentDefinition nestedSchema = (CmsXmlNestedContentDefinition)schemaType;
+                    processSchemaNode(element, path, locale, nestedSchema.getNestedContentDefinition());
+                }
+            } else {
+                // unknown XML node name according to schema
+                if (LOG.isWarnEnabled()) {
+                    LOG.warn(Messages.get().getBundle().key(
+                        Messages.LOG_XMLCONTENT_INVALID_ELEM_2,
+                        name,
+                        definition.getSchemaLocation()));
                 }
             }
         }
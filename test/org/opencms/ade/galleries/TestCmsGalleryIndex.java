@@ -0,0 +1,246 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.galleries;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the gallery index.<p>
+ */
+public class TestCmsGalleryIndex extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsGalleryIndex(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsGalleryIndex.class.getName());
+
+        suite.addTest(new TestCmsGalleryIndex("testGalleriesFromIndex"));
+        suite.addTest(new TestCmsGalleryIndex("testOfflineChanges"));
+        suite.addTest(new TestCmsGalleryIndex("testPublishUpdatesIndex"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the galleries, sub folders and titles read from the index are the same as read from the VFS.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testGalleriesFromIndex() throws Throwable {
+
+        echo("Testing the galleries read from the index");
+        CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+        assertNotNull(index);
+
+        CmsObject cms = getCmsObject();
+        int typeId = getGalleryTypeId();
+        createGallery(cms, "/gallery1/", "Gallery 1");
+        createGallery(cms, "/folder1/gallery2/", null);
+
+        // read twice, the second time from the index
+        for (int i = 0; i < 2; i++) {
+            assertSameResources(readGalleries(cms, typeId, "/"), index.getGalleries(cms, typeId, "/"));
+            assertSameResources(readGalleries(cms, typeId, "/folder1/"), index.getGalleries(cms, typeId, "/folder1/"));
+            CmsResource root = cms.readResource("/");
+            assertSameResources(
+                cms.getSubFolders("/", CmsResourceFilter.ONLY_VISIBLE_NO_DELETED),
+                index.getSubFolders(cms, root, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED));
+        }
+        assertEquals(2, index.getGalleries(cms, typeId, "/").size());
+        assertEquals("Gallery 1", index.getTitle(cms, cms.readResource("/gallery1/")));
+        assertNull(index.getTitle(cms, cms.readResource("/folder1/gallery2/")));
+    }
+
+    /**
+     * Tests that the offline index is updated for changes in the offline project.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testOfflineChanges() throws Throwable {
+
+        echo("Testing the update of the offline gallery index");
+        CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+        CmsObject cms = getCmsObject();
+        int typeId = getGalleryTypeId();
+        int count = index.getGalleries(cms, typeId, "/").size();
+
+        createGallery(cms, "/gallery3/", "Gallery 3");
+        assertEquals(count + 1, index.getGalleries(cms, typeId, "/").size());
+        assertSameResources(
+            cms.getSubFolders("/", CmsResourceFilter.ONLY_VISIBLE_NO_DELETED),
+            index.getSubFolders(cms, cms.readResource("/"), CmsResourceFilter.ONLY_VISIBLE_NO_DELETED));
+
+        cms.lockResource("/gallery3/");
+        cms.writePropertyObject("/gallery3/", new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "Changed", null));
+        assertEquals("Changed", index.getTitle(cms, cms.readResource("/gallery3/")));
+
+        cms.moveResource("/gallery3/", "/folder1/gallery3/");
+        assertSameResources(readGalleries(cms, typeId, "/folder1/"), index.getGalleries(cms, typeId, "/folder1/"));
+
+        cms.deleteResource("/folder1/gallery3/", CmsResource.DELETE_PRESERVE_SIBLINGS);
+        assertEquals(count, index.getGalleries(cms, typeId, "/").size());
+        assertSameResources(readGalleries(cms, typeId, "/"), index.getGalleries(cms, typeId, "/"));
+    }
+
+    /**
+     * Tests that the online index is updated after publishing.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishUpdatesIndex() throws Throwable {
+
+        echo("Testing the update of the online gallery index after publishing");
+        CmsGalleryIndex index = CmsGalleryIndex.getInstance();
+        CmsObject cms = getCmsObject();
+        CmsObject onlineCms = OpenCms.initCmsObject(cms);
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        int typeId = getGalleryTypeId();
+
+        assertTrue(index.getGalleries(onlineCms, typeId, "/").isEmpty());
+        OpenCms.getPublishManager().publishResource(cms, "/gallery1/");
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertSameResources(readGalleries(onlineCms, typeId, "/"), index.getGalleries(onlineCms, typeId, "/"));
+        assertEquals(1, index.getGalleries(onlineCms, typeId, "/").size());
+        assertEquals("Gallery 1", index.getTitle(onlineCms, onlineCms.readResource("/gallery1/")));
+        assertSameResources(
+            onlineCms.getSubFolders("/", CmsResourceFilter.ONLY_VISIBLE_NO_DELETED),
+            index.getSubFolders(onlineCms, onlineCms.readResource("/"), CmsResourceFilter.ONLY_VISIBLE_NO_DELETED));
+    }
+
+    /**
+     * Asserts that two lists contain resources with the same root paths.<p>
+     * 
+     * @param expected the expected resources
+     * @param resources the resources to check
+     */
+    private void assertSameResources(List<CmsResource> expected, List<CmsResource> resources) {
+
+        assertEquals(expected.size(), resources.size());
+        Set<String> paths = new HashSet<String>();
+        for (CmsResource resource : resources) {
+            paths.add(resource.getRootPath());
+        }
+        for (CmsResource resource : expected) {
+            assertTrue(resource.getRootPath(), paths.contains(resource.getRootPath()));
+        }
+    }
+
+    /**
+     * Creates an image gallery.<p>
+     * 
+     * @param cms the current CMS context
+     * @param path the path of the gallery
+     * @param title the title of the gallery, or <code>null</code>
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void createGallery(CmsObject cms, String path, String title) throws Exception {
+
+        cms.createResource(path, getGalleryTypeId());
+        if (title != null) {
+            cms.writePropertyObject(path, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, title, null));
+        }
+        cms.unlockResource(path);
+    }
+
+    /**
+     * Returns the type id of the image galleries.<p>
+     * 
+     * @return the type id of the image galleries
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private int getGalleryTypeId() throws Exception {
+
+        return OpenCms.getResourceManager().getResourceType("imagegallery").getTypeId();
+    }
+
+    /**
+     * Reads the visible galleries of the given type from the VFS.<p>
+     * 
+     * @param cms the current CMS context
+     * @param typeId the gallery type id
+     * @param folder the folder to read the galleries from
+     * 
+     * @return the galleries
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private List<CmsResource> readGalleries(CmsObject cms, int typeId, String folder) throws Exception {
+
+        return cms.readResources(folder, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(typeId));
+    }
+}
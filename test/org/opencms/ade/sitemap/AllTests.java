@@ -56,6 +56,7 @@ public class AllTests {
         OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
         //$JUnit-BEGIN$
         suite.addTest(new TestSuite(TestNavPosCalculator.class));
+        suite.addTest(TestSitemapTreeCache.suite());
         //$JUnit-END$
         return suite;
     }
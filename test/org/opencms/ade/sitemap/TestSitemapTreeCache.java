@@ -0,0 +1,182 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.ade.sitemap;
+
+import org.opencms.ade.sitemap.shared.CmsClientSitemapEntry;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the windowed and cached loading of the sitemap tree.<p>
+ */
+public class TestSitemapTreeCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestSitemapTreeCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestSitemapTreeCache.class.getName());
+
+        suite.addTest(new TestSitemapTreeCache("testChildrenWindow"));
+        suite.addTest(new TestSitemapTreeCache("testChangeUpdatesCache"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that property changes and locks are visible when the sitemap tree is read again.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testChangeUpdatesCache() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsVfsSitemapService service = createService(cms);
+        CmsResource folder = cms.readResource("/folder1/");
+        CmsClientSitemapEntry entry = findChild(service.getChildren("/", cms.readResource("/").getStructureId(), 1), folder);
+        assertNotNull(entry);
+        assertFalse(entry.getLock().isOwnedByUser());
+
+        cms.lockResource("/folder1/");
+        cms.writePropertyObject("/folder1/", new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Changed", null));
+
+        entry = findChild(service.getChildren("/", cms.readResource("/").getStructureId(), 1), folder);
+        assertEquals("Changed", entry.getOwnProperties().get(CmsPropertyDefinition.PROPERTY_NAVTEXT).getStructureValue());
+
+        cms.unlockResource("/folder1/");
+        entry = findChild(service.getChildren("/", cms.readResource("/").getStructureId(), 1), folder);
+        assertEquals("Changed", entry.getOwnProperties().get(CmsPropertyDefinition.PROPERTY_NAVTEXT).getStructureValue());
+        assertFalse(entry.hasForeignFolderLock());
+        cms.lockResource("/folder1/index.html");
+        entry = findChild(service.getChildren("/", cms.readResource("/").getStructureId(), 1), folder);
+        assertTrue(entry.getLock().isOwnedByUser());
+        cms.unlockResource("/folder1/index.html");
+    }
+
+    /**
+     * Tests reading a window of the children of an entry.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testChildrenWindow() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        CmsVfsSitemapService service = createService(cms);
+        CmsResource root = cms.readResource("/folder1/");
+        List<CmsClientSitemapEntry> all = service.getChildren("/", root.getStructureId(), 1).getSubEntries();
+        assertTrue(all.size() > 3);
+
+        List<CmsClientSitemapEntry> window = service.getChildrenWindow("/", root.getStructureId(), 1, 2).getSubEntries();
+        assertEquals(2, window.size());
+        for (int i = 0; i < window.size(); i++) {
+            assertEquals(all.get(i + 1).getId(), window.get(i).getId());
+            assertEquals(i + 1, window.get(i).getPosition());
+            assertEquals(all.get(i + 1).getSitePath(), window.get(i).getSitePath());
+        }
+
+        window = service.getChildrenWindow("/", root.getStructureId(), all.size() - 1, 10).getSubEntries();
+        assertEquals(1, window.size());
+        assertEquals(all.get(all.size() - 1).getId(), window.get(0).getId());
+
+        window = service.getChildrenWindow("/", root.getStructureId(), all.size(), 10).getSubEntries();
+        assertTrue(window.isEmpty());
+    }
+
+    /**
+     * Creates a sitemap service for the given context.<p>
+     *
+     * @param cms the CMS context
+     *
+     * @return the sitemap service
+     */
+    private CmsVfsSitemapService createService(CmsObject cms) {
+
+        CmsVfsSitemapService service = new CmsVfsSitemapService();
+        service.setCms(cms);
+        return service;
+    }
+
+    /**
+     * Finds the entry for the given resource in a sitemap entry's children.<p>
+     *
+     * @param entry the sitemap entry
+     * @param resource the resource
+     *
+     * @return the child entry, or <code>null</code>
+     */
+    private CmsClientSitemapEntry findChild(CmsClientSitemapEntry entry, CmsResource resource) {
+
+        for (CmsClientSitemapEntry child : entry.getSubEntries()) {
+            if (child.getId().equals(resource.getStructureId())) {
+                return child;
+            }
+        }
+        return null;
+    }
+}
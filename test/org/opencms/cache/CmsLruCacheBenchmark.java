@@ -0,0 +1,154 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micro benchmark for the cache hit throughput of the LRU caches used by the Flex cache.<p>
+ * 
+ * For 1 to 64 threads, all threads read random objects of a filled cache for a fixed time.
+ * For the {@link CmsLruCache} every hit touches the object, which is what keeping the LRU order 
+ * up to date costs with a single lock. For the {@link CmsConcurrentLruCache} every hit is 
+ * recorded with {@link CmsConcurrentLruCache#recordHit(I_CmsLruCacheObject)}.<p>
+ * 
+ * Run this class with <code>java org.opencms.cache.CmsLruCacheBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsLruCacheBenchmark {
+
+    /** The number of cached objects. */
+    private static final int OBJECT_COUNT = 10000;
+
+    /** The thread counts to measure. */
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsLruCacheBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        System.out.println("threads\tCmsLruCache [hits/s]\tCmsConcurrentLruCache [hits/s]");
+        for (int threads : THREAD_COUNTS) {
+            long locked = run(new CmsLruCache(Long.MAX_VALUE, Long.MAX_VALUE, -1), false, threads, millis);
+            long concurrent = run(
+                new CmsConcurrentLruCache(Long.MAX_VALUE, Long.MAX_VALUE, -1),
+                true,
+                threads,
+                millis);
+            System.out.println(threads + "\t" + locked + "\t" + concurrent);
+        }
+    }
+
+    /**
+     * Measures the cache hit throughput of the given cache.<p>
+     * 
+     * @param cache the cache to measure
+     * @param recordHits if <code>true</code> hits are recorded, otherwise the objects are touched
+     * @param threadCount the number of threads
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of cache hits per second
+     * 
+     * @throws InterruptedException if the run is interrupted
+     */
+    private static long run(
+        final CmsLruCache cache,
+        final boolean recordHits,
+        int threadCount,
+        long millis) throws InterruptedException {
+
+        final List<CmsDummyLruCacheObject> objects = new ArrayList<CmsDummyLruCacheObject>(OBJECT_COUNT);
+        for (int i = 0; i < OBJECT_COUNT; i++) {
+            CmsDummyLruCacheObject o = new CmsDummyLruCacheObject("o" + i, 1);
+            objects.add(o);
+            cache.add(o);
+        }
+        final AtomicLong hits = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] end = new long[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int offset = t * 7919;
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long count = 0;
+                    int index = offset;
+                    while (true) {
+                        for (int i = 0; i < 1000; i++) {
+                            index = (index * 1103515245 + 12345) & Integer.MAX_VALUE;
+                            I_CmsLruCacheObject o = objects.get(index % OBJECT_COUNT);
+                            if (recordHits) {
+                                cache.recordHit(o);
+                            } else {
+                                cache.touch(o);
+                            }
+                        }
+                        count += 1000;
+                        if (System.currentTimeMillis() > end[0]) {
+                            break;
+                        }
+                    }
+                    hits.addAndGet(count);
+                }
+            };
+            threads[t].start();
+        }
+        end[0] = System.currentTimeMillis() + millis;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (hits.get() * 1000) / millis;
+    }
+}
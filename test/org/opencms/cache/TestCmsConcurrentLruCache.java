@@ -0,0 +1,182 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package org.opencms.cache;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for the concurrent LRU cache.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsConcurrentLruCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsConcurrentLruCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests adding, touching and removing objects.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAddRemove() throws Exception {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(10000, 8000, 100, 3);
+        assertEquals(4, cache.getStripeCount());
+
+        List<CmsDummyLruCacheObject> objects = new ArrayList<CmsDummyLruCacheObject>();
+        for (int i = 0; i < 20; i++) {
+            CmsDummyLruCacheObject o = new CmsDummyLruCacheObject("o" + i, 10);
+            objects.add(o);
+            assertTrue(cache.add(o));
+            assertTrue(o.isInCache());
+        }
+        assertEquals(20, cache.size());
+        assertEquals(200, cache.getObjectCosts());
+        assertTrue(cache.touch(objects.get(0)));
+
+        // objects with too high costs are rejected
+        CmsDummyLruCacheObject big = new CmsDummyLruCacheObject("big", 101);
+        assertFalse(cache.add(big));
+        assertFalse(big.isInCache());
+
+        assertSame(objects.get(5), cache.remove(objects.get(5)));
+        assertFalse(objects.get(5).isInCache());
+        assertNull(cache.remove(objects.get(5)));
+        assertFalse(cache.touch(objects.get(5)));
+        assertEquals(19, cache.size());
+        assertEquals(190, cache.getObjectCosts());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getObjectCosts());
+        for (CmsDummyLruCacheObject o : objects) {
+            assertFalse(o.isInCache());
+        }
+    }
+
+    /**
+     * Tests that the costs are bounded per stripe and that recorded hits keep objects in the cache.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCostsBounded() throws Exception {
+
+        CmsConcurrentLruCache cache = new CmsConcurrentLruCache(1000, 800, -1, 1);
+        CmsDummyLruCacheObject hot = new CmsDummyLruCacheObject("hot", 10);
+        cache.add(hot);
+        for (int i = 0; i < 500; i++) {
+            cache.add(new CmsDummyLruCacheObject("o" + i, 10));
+            for (int j = 0; j < CmsConcurrentLruCache.HIT_BUFFER_SIZE; j++) {
+                // fill the hit buffer so it is drained
+                cache.recordHit(hot);
+            }
+            assertTrue(cache.getObjectCosts() <= 1000);
+        }
+        assertTrue(hot.isInCache());
+
+        // without recorded hits the oldest objects are evicted 
+        CmsDummyLruCacheObject cold = new CmsDummyLruCacheObject("cold", 10);
+        cache.add(cold);
+        for (int i = 0; i < 500; i++) {
+            cache.add(new CmsDummyLruCacheObject("p" + i, 10));
+        }
+        assertFalse(cold.isInCache());
+    }
+
+    /**
+     * Tests concurrent access from multiple threads.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentAccess() throws Exception {
+
+        final CmsConcurrentLruCache cache = new CmsConcurrentLruCache(50000, 40000, -1, 8);
+        final List<CmsDummyLruCacheObject> objects = new ArrayList<CmsDummyLruCacheObject>();
+        for (int i = 0; i < 2000; i++) {
+            objects.add(new CmsDummyLruCacheObject("o" + i, 50));
+        }
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    Random random = new Random(seed);
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            CmsDummyLruCacheObject o = objects.get(random.nextInt(objects.size()));
+                            switch (random.nextInt(4)) {
+                                case 0:
+                                    cache.add(o);
+                                    break;
+                                case 1:
+                                    cache.remove(o);
+                                    break;
+                                default:
+                                    cache.recordHit(o);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        error.set(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(error.get());
+
+        // the statistics must match the objects which are actually in the cache
+        int count = 0;
+        for (CmsDummyLruCacheObject o : objects) {
+            if (o.isInCache()) {
+                count++;
+            }
+        }
+        assertEquals(count, cache.size());
+        assertEquals(count * 50, cache.getObjectCosts());
+        assertTrue(cache.getObjectCosts() <= 50000);
+    }
+}
@@ -0,0 +1,719 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.cluster;
+
+import org.opencms.configuration.CmsConfigurationException;
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsEventManager;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.report.CmsLogReport;
+import org.opencms.util.CmsUUID;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Unit tests for the {@link CmsClusterBus} and the cluster transports.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestCmsClusterBus extends TestCase {
+
+    /** The secret shared by the test nodes. */
+    private static final String SECRET = "test-secret";
+
+    /**
+     * Event listener which records the received events.<p>
+     */
+    private static class CmsRecordingListener implements I_CmsEventListener {
+
+        /** The received events. */
+        private final List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The latch counted down for every received event. */
+        private final CountDownLatch m_received;
+
+        /**
+         * Creates a new listener.<p>
+         *
+         * @param expected the number of expected events
+         */
+        protected CmsRecordingListener(int expected) {
+
+            m_received = new CountDownLatch(expected);
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            m_events.add(event);
+            m_received.countDown();
+        }
+
+        /**
+         * Waits until the expected number of events has been received.<p>
+         *
+         * @throws InterruptedException if interrupted
+         */
+        protected void await() throws InterruptedException {
+
+            assertTrue(m_received.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Transport which records the sent messages.<p>
+     */
+    private static class CmsRecordingTransport implements I_CmsClusterTransport {
+
+        /** If set, sending waits until this latch is released. */
+        protected CountDownLatch m_blocked;
+
+        /** The configuration. */
+        private CmsParameterConfiguration m_configuration = new CmsParameterConfiguration();
+
+        /** The sent messages. */
+        private final List<CmsClusterMessage> m_messages = new ArrayList<CmsClusterMessage>();
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#addConfigurationParameter(java.lang.String, java.lang.String)
+         */
+        public void addConfigurationParameter(String paramName, String paramValue) {
+
+            m_configuration.add(paramName, paramValue);
+        }
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#getConfiguration()
+         */
+        public CmsParameterConfiguration getConfiguration() {
+
+            return m_configuration;
+        }
+
+        /**
+         * @see org.opencms.configuration.I_CmsConfigurationParameterHandler#initConfiguration()
+         */
+        public void initConfiguration() {
+
+            // nothing to initialize
+        }
+
+        /**
+         * @see org.opencms.cluster.I_CmsClusterTransport#send(org.opencms.cluster.CmsClusterMessage)
+         */
+        public void send(CmsClusterMessage message) throws Exception {
+
+            if (m_blocked != null) {
+                assertTrue(m_blocked.await(10, TimeUnit.SECONDS));
+            }
+            // make sure every message can be transferred
+            m_messages.add(CmsClusterMessage.decode(message.encode(SECRET), SECRET));
+        }
+
+        /**
+         * @see org.opencms.cluster.I_CmsClusterTransport#shutDown()
+         */
+        public void shutDown() {
+
+            // nothing to shut down
+        }
+
+        /**
+         * @see org.opencms.cluster.I_CmsClusterTransport#start(org.opencms.cluster.CmsClusterBus)
+         */
+        public void start(CmsClusterBus bus) {
+
+            // messages are never received
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsClusterBus(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that repeated messages and publish events with an already received publish tag are ignored.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDuplicateSuppression() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CmsClusterBus bus = new CmsClusterBus(manager, new CmsRecordingTransport(), null);
+        bus.start();
+        CmsRecordingListener listener = new CmsRecordingListener(0);
+        manager.addCmsEventListener(listener);
+
+        bus.receive(new CmsClusterMessage("a@1", 1, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        bus.receive(new CmsClusterMessage("a@1", 2, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        // repeated and older messages of the same node
+        bus.receive(new CmsClusterMessage("a@1", 2, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        bus.receive(new CmsClusterMessage("a@1", 1, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        // a restarted node uses a new id
+        bus.receive(new CmsClusterMessage("a@2", 1, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        // messages of this node are ignored
+        bus.receive(new CmsClusterMessage(bus.getNodeId(), 1, I_CmsEventListener.EVENT_CLEAR_CACHES, null));
+        assertEquals(3, listener.m_events.size());
+
+        // the same publish tag forwarded by two nodes
+        CmsClusterMessage publish = createPublishMessage("a@2", 2, 42);
+        CmsClusterMessage other = createPublishMessage("b@1", 1, 42);
+        bus.receive(publish);
+        bus.receive(other);
+        bus.receive(createPublishMessage("b@1", 2, 43));
+        assertEquals(5, listener.m_events.size());
+        CmsEvent event = listener.m_events.get(3);
+        assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, event.getType());
+        assertEquals("a@2", event.getData().get(CmsClusterBus.KEY_CLUSTER_NODE));
+        assertEquals(publish.getPublishedResources(), event.getData().get(CmsClusterBus.KEY_PUBLISHED_RESOURCES));
+        assertNotNull(event.getData().get(I_CmsEventListener.KEY_REPORT));
+        assertEquals(3, bus.getDuplicateCount());
+        assertEquals(8, bus.getReceivedCount());
+        // received events are not forwarded again
+        assertEquals(0, bus.getSentCount());
+        bus.shutDown();
+    }
+
+    /**
+     * Tests that the events of the local node are forwarded in the order they were fired.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testForwarding() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CmsRecordingTransport transport = new CmsRecordingTransport();
+        transport.addConfigurationParameter(CmsClusterBus.PARAM_NODE, "backend");
+        CmsClusterBus bus = new CmsClusterBus(manager, transport, null);
+        assertTrue(bus.getNodeId().startsWith("backend@"));
+        bus.start();
+
+        CmsResource resource = createResource("/sites/default/index.html");
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.CHANGED_CONTENT));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+        // lock changes are not forwarded
+        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.NOTHING_CHANGED));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+        // events which are not cache relevant are not forwarded
+        manager.fireEvent(I_CmsEventListener.EVENT_LOGIN_USER);
+        manager.fireEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR);
+        // shutting down waits until the queued messages have been sent
+        bus.shutDown();
+
+        assertEquals(2, transport.m_messages.size());
+        CmsClusterMessage message = transport.m_messages.get(0);
+        assertEquals(bus.getNodeId(), message.getNode());
+        assertEquals(1, message.getSequence());
+        assertEquals(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, message.getType());
+        assertEquals(resource, message.getData().get(I_CmsEventListener.KEY_RESOURCE));
+        assertEquals(2, transport.m_messages.get(1).getSequence());
+        assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, transport.m_messages.get(1).getType());
+        assertEquals(2, bus.getSentCount());
+    }
+
+    /**
+     * Tests encoding and decoding messages.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testMessageEncoding() throws Exception {
+
+        CmsResource resource = createResource("/sites/default/index.html");
+        CmsFile file = new CmsFile(createResource("/sites/default/file.txt"));
+        file.setContents("content".getBytes());
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_RESOURCE, file);
+        data.put(I_CmsEventListener.KEY_RESOURCES, Collections.singletonList(resource));
+        data.put(I_CmsEventListener.KEY_CHANGE, new Integer(CmsDriverManager.CHANGED_CONTENT));
+        data.put(I_CmsEventListener.KEY_REPORT, new CmsLogReport(Locale.ENGLISH, getClass()));
+        data.put("other", new Object());
+
+        CmsClusterMessage message = new CmsClusterMessage(
+            "node@1",
+            7,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            data);
+        String encoded = message.encode(SECRET);
+        assertEquals(-1, encoded.indexOf('\n'));
+        CmsClusterMessage decoded = CmsClusterMessage.decode(encoded, SECRET);
+        assertEquals("node@1", decoded.getNode());
+        assertEquals(7, decoded.getSequence());
+        assertEquals(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, decoded.getType());
+        assertEquals(message.getDate(), decoded.getDate());
+        assertEquals(-1, decoded.getPublishTag());
+        // reports and values of other types are not transferred
+        assertEquals(3, decoded.getData().size());
+        // files are transferred without their content
+        Object transferred = decoded.getData().get(I_CmsEventListener.KEY_RESOURCE);
+        assertEquals(CmsResource.class, transferred.getClass());
+        assertEquals(file.getRootPath(), ((CmsResource)transferred).getRootPath());
+        assertEquals(Collections.singletonList(resource), decoded.getData().get(I_CmsEventListener.KEY_RESOURCES));
+
+        CmsClusterMessage publishMessage = createPublishMessage("node@1", 8, 12);
+        CmsClusterMessage publish = CmsClusterMessage.decode(publishMessage.encode(SECRET), SECRET);
+        assertEquals(12, publish.getPublishTag());
+        assertEquals(publishMessage.getPublishedResources(), publish.getPublishedResources());
+        CmsPublishedResource published = publish.getPublishedResources().get(0);
+        assertEquals("/sites/default/pub lished\u00e4.html", published.getRootPath());
+        assertEquals(CmsResource.STATE_CHANGED, published.getState());
+
+        // messages which are not authentic or not complete are rejected
+        assertNotDecoded("invalid");
+        assertNotDecoded(message.encode("other-secret"));
+        assertNotDecoded(encoded.replace(" 7 ", " 8 "));
+        String payload = encoded.substring(encoded.indexOf(' ') + 1);
+        assertNotDecoded(createMac(payload + " 1") + " " + payload + " 1");
+        assertNotDecoded(createMac("1 =node 1 2 3 -1 1000000 0 0") + " 1 =node 1 2 3 -1 1000000 0 0");
+    }
+
+    /**
+     * Tests that firing events does not wait for the transport, and that events are dropped if the queue is full.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSendQueue() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CmsRecordingTransport transport = new CmsRecordingTransport();
+        transport.m_blocked = new CountDownLatch(1);
+        CmsClusterBus bus = new CmsClusterBus(manager, transport, null);
+        bus.start();
+        int count = CmsClusterBus.MAX_QUEUED_MESSAGES + 2;
+        try {
+            // the transport is blocked, so the sender can take at most one message from the queue
+            for (int i = 0; i < count; i++) {
+                manager.fireEvent(I_CmsEventListener.EVENT_CLEAR_CACHES);
+            }
+            assertTrue(bus.getDroppedCount() >= 1);
+            assertEquals(0, bus.getSentCount());
+        } finally {
+            transport.m_blocked.countDown();
+            bus.shutDown();
+        }
+        assertEquals(count, bus.getSentCount() + bus.getDroppedCount());
+        assertEquals(bus.getSentCount(), transport.m_messages.size());
+        long sequence = 0;
+        for (CmsClusterMessage message : transport.m_messages) {
+            assertTrue(message.getSequence() > sequence);
+            sequence = message.getSequence();
+        }
+    }
+
+    /**
+     * Tests forwarding events between two nodes with the socket transport on localhost.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSocketTransport() throws Exception {
+
+        int portA = getFreePort();
+        int portB = getFreePort();
+        CmsEventManager managerA = new CmsEventManager();
+        CmsEventManager managerB = new CmsEventManager();
+        CmsClusterBus busA = new CmsClusterBus(managerA, createSocketTransport("a", portA, portB), null);
+        CmsClusterBus busB = new CmsClusterBus(managerB, createSocketTransport("b", portB, portA), null);
+        busA.start();
+        busB.start();
+        CmsRecordingListener listenerA = new CmsRecordingListener(3);
+        CmsRecordingListener listenerB = new CmsRecordingListener(3);
+        managerA.addCmsEventListener(listenerA);
+        managerB.addCmsEventListener(listenerB);
+        try {
+            Map<String, Object> data = new HashMap<String, Object>();
+            data.put(I_CmsEventListener.KEY_PUBLISHID, new CmsUUID().toString());
+            managerA.fireEvent(I_CmsEventListener.EVENT_PUBLISH_PROJECT, data);
+            managerA.fireEvent(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR);
+            managerB.fireEvent(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES);
+
+            // every node got its own events and the events of the other node
+            listenerA.await();
+            listenerB.await();
+            List<CmsEvent> receivedB = getReceivedEvents(listenerB);
+            assertEquals(2, receivedB.size());
+            assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, receivedB.get(0).getType());
+            assertEquals(
+                data.get(I_CmsEventListener.KEY_PUBLISHID),
+                receivedB.get(0).getData().get(I_CmsEventListener.KEY_PUBLISHID));
+            assertEquals(busA.getNodeId(), receivedB.get(0).getData().get(CmsClusterBus.KEY_CLUSTER_NODE));
+            assertEquals(I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR, receivedB.get(1).getType());
+            List<CmsEvent> receivedA = getReceivedEvents(listenerA);
+            assertEquals(1, receivedA.size());
+            assertEquals(I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES, receivedA.get(0).getType());
+            assertEquals(busB.getNodeId(), receivedA.get(0).getData().get(CmsClusterBus.KEY_CLUSTER_NODE));
+            assertEquals(1, busA.getReceivedCount());
+            assertEquals(2, busB.getReceivedCount());
+        } finally {
+            busA.shutDown();
+            busB.shutDown();
+        }
+        assertEquals(2, busA.getSentCount());
+        assertEquals(1, busB.getSentCount());
+    }
+
+    /**
+     * Tests the required parameters of the socket transport.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSocketTransportConfiguration() throws Exception {
+
+        CmsClusterSocketTransport transport = new CmsClusterSocketTransport();
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_PORT, "4000");
+        transport.addConfigurationParameter(CmsClusterBus.PARAM_SECRET, SECRET);
+        try {
+            transport.initConfiguration();
+            fail("transport without listen address initialized");
+        } catch (CmsConfigurationException e) {
+            // expected
+        }
+
+        transport = new CmsClusterSocketTransport();
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_HOST, "127.0.0.1");
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_PORT, "4000");
+        try {
+            transport.initConfiguration();
+            fail("transport without secret initialized");
+        } catch (CmsConfigurationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that the socket transport closes incoming connections exceeding the maximum number of connections.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSocketTransportMaxConnections() throws Exception {
+
+        int port = getFreePort();
+        CmsEventManager manager = new CmsEventManager();
+        CmsClusterSocketTransport transport = createSocketTransport("a", port, getFreePort());
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_MAXCONNECTIONS, "1");
+        transport.initConfiguration();
+        CmsClusterBus bus = new CmsClusterBus(manager, transport, null);
+        bus.start();
+        CmsRecordingListener listener = new CmsRecordingListener(1);
+        manager.addCmsEventListener(listener);
+        Socket first = new Socket("127.0.0.1", port);
+        try {
+            Socket second = new Socket("127.0.0.1", port);
+            try {
+                second.setSoTimeout(10000);
+                // the second connection is closed without reading from it
+                assertEquals(-1, second.getInputStream().read());
+            } finally {
+                second.close();
+            }
+            // the first connection is still served
+            CmsClusterMessage message = new CmsClusterMessage(
+                "b@1",
+                1,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+                null);
+            Writer writer = new OutputStreamWriter(first.getOutputStream(), "US-ASCII");
+            writer.write(message.encode(SECRET) + "\n");
+            writer.flush();
+            listener.await();
+            assertEquals(1, bus.getReceivedCount());
+        } finally {
+            first.close();
+            bus.shutDown();
+        }
+    }
+
+    /**
+     * Tests that a publish event which is too large for the socket transport is sent without the published resources,
+     * and that the receiving node clears all caches instead.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSocketTransportOversizePublish() throws Exception {
+
+        int portA = getFreePort();
+        int portB = getFreePort();
+        CmsEventManager managerB = new CmsEventManager();
+        CmsClusterBus busA = new CmsClusterBus(new CmsEventManager(), createSocketTransport("a", portA, portB), null);
+        CmsClusterBus busB = new CmsClusterBus(managerB, createSocketTransport("b", portB, portA), null);
+        busA.start();
+        busB.start();
+        CmsRecordingListener listener = new CmsRecordingListener(2);
+        managerB.addCmsEventListener(listener);
+        try {
+            List<CmsPublishedResource> resources = new ArrayList<CmsPublishedResource>();
+            for (int i = 0; i < 20000; i++) {
+                resources.add(new CmsPublishedResource(createResource("/sites/default/folder/file" + i + ".html"), 7));
+            }
+            Map<String, Object> data = new HashMap<String, Object>();
+            data.put(I_CmsEventListener.KEY_PUBLISHID, new CmsUUID().toString());
+            CmsClusterMessage message = new CmsClusterMessage(
+                busA.getNodeId(),
+                1,
+                I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+                data);
+            message.setPublishedResources(resources);
+            assertTrue(message.encode(SECRET).length() > CmsClusterSocketTransport.MAX_MESSAGE_LENGTH);
+            busA.getTransport().send(message);
+
+            listener.await();
+            List<CmsEvent> received = getReceivedEvents(listener);
+            assertEquals(2, received.size());
+            CmsEvent publish = received.get(0);
+            assertEquals(I_CmsEventListener.EVENT_PUBLISH_PROJECT, publish.getType());
+            assertEquals(
+                data.get(I_CmsEventListener.KEY_PUBLISHID),
+                publish.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+            assertEquals(Boolean.TRUE, publish.getData().get(CmsClusterBus.KEY_PUBLISHED_RESOURCES_OMITTED));
+            assertEquals(Collections.emptyList(), publish.getData().get(CmsClusterBus.KEY_PUBLISHED_RESOURCES));
+            CmsEvent clear = received.get(1);
+            assertEquals(I_CmsEventListener.EVENT_CLEAR_CACHES, clear.getType());
+            assertEquals(busA.getNodeId(), clear.getData().get(CmsClusterBus.KEY_CLUSTER_NODE));
+            assertEquals(1, busB.getReceivedCount());
+
+            // the publish tag is still sent, so the same publish forwarded by another node is ignored
+            CmsClusterMessage other = createPublishMessage("c@1", 1, 7);
+            busB.receive(other);
+            assertEquals(1, busB.getDuplicateCount());
+        } finally {
+            busA.shutDown();
+            busB.shutDown();
+        }
+    }
+
+    /**
+     * Tests that the socket transport ignores messages which were not authenticated with the shared secret.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testSocketTransportRejectsForeignMessages() throws Exception {
+
+        int port = getFreePort();
+        CmsEventManager manager = new CmsEventManager();
+        CmsClusterBus bus = new CmsClusterBus(manager, createSocketTransport("a", port, getFreePort()), null);
+        bus.start();
+        try {
+            CmsClusterMessage foreign = new CmsClusterMessage(
+                "foreign@1",
+                1,
+                I_CmsEventListener.EVENT_CLEAR_ONLINE_CACHES,
+                null);
+            Socket socket = new Socket("127.0.0.1", port);
+            try {
+                socket.setSoTimeout(10000);
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), "US-ASCII");
+                writer.write(foreign.encode("other-secret") + "\n");
+                writer.flush();
+                // the connection is closed after the first message which is not authentic
+                assertEquals(-1, socket.getInputStream().read());
+            } finally {
+                socket.close();
+            }
+            assertEquals(0, bus.getReceivedCount());
+        } finally {
+            bus.shutDown();
+        }
+    }
+
+    /**
+     * Asserts that an encoded message is rejected.<p>
+     *
+     * @param encoded the encoded message
+     */
+    private void assertNotDecoded(String encoded) {
+
+        try {
+            CmsClusterMessage.decode(encoded, SECRET);
+            fail("invalid message decoded: " + encoded);
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Calculates the HMAC of a payload with the test secret, to create authentic but invalid messages.<p>
+     *
+     * @param payload the payload
+     *
+     * @return the HMAC as hex string
+     *
+     * @throws Exception if the HMAC can not be calculated
+     */
+    private String createMac(String payload) throws Exception {
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes("UTF-8"), "HmacSHA256"));
+        return new String(Hex.encodeHex(mac.doFinal(payload.getBytes("UTF-8"))));
+    }
+
+    /**
+     * Creates a message for a publish event.<p>
+     *
+     * @param node the node id
+     * @param sequence the sequence number
+     * @param publishTag the publish tag
+     *
+     * @return the message
+     */
+    private CmsClusterMessage createPublishMessage(String node, long sequence, int publishTag) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_PUBLISHID, new CmsUUID().toString());
+        CmsClusterMessage message = new CmsClusterMessage(
+            node,
+            sequence,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            data);
+        message.setPublishedResources(Collections.singletonList(new CmsPublishedResource(
+            createResource("/sites/default/pub lished\u00e4.html"),
+            publishTag)));
+        return message;
+    }
+
+    /**
+     * Creates a resource for the events.<p>
+     *
+     * @param rootPath the root path
+     *
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath) {
+
+        return new CmsResource(
+            new CmsUUID(),
+            new CmsUUID(),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_CHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Creates a socket transport listening on localhost.<p>
+     *
+     * @param node the node name
+     * @param port the port to listen on
+     * @param peerPort the port of the peer node
+     *
+     * @return the transport
+     *
+     * @throws Exception if the configuration is invalid
+     */
+    private CmsClusterSocketTransport createSocketTransport(String node, int port, int peerPort) throws Exception {
+
+        CmsClusterSocketTransport transport = new CmsClusterSocketTransport();
+        transport.addConfigurationParameter(CmsClusterBus.PARAM_NODE, node);
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_HOST, "127.0.0.1");
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_PORT, String.valueOf(port));
+        transport.addConfigurationParameter(CmsClusterSocketTransport.PARAM_PEERS, "127.0.0.1:" + peerPort);
+        transport.addConfigurationParameter(CmsClusterBus.PARAM_SECRET, SECRET);
+        transport.initConfiguration();
+        return transport;
+    }
+
+    /**
+     * Returns the events a listener has received from another node.<p>
+     *
+     * @param listener the listener
+     *
+     * @return the events received from another node
+     */
+    private List<CmsEvent> getReceivedEvents(CmsRecordingListener listener) {
+
+        List<CmsEvent> result = new ArrayList<CmsEvent>();
+        synchronized (listener.m_events) {
+            for (CmsEvent event : listener.m_events) {
+                if (event.getData().containsKey(CmsClusterBus.KEY_CLUSTER_NODE)) {
+                    result.add(event);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a free port on localhost.<p>
+     *
+     * @return a free port
+     *
+     * @throws Exception if no port is available
+     */
+    private int getFreePort() throws Exception {
+
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+}
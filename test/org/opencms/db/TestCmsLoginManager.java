@@ -0,0 +1,235 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.security.CmsUserDisabledException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the storage of invalid login attempts in the login manager.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsLoginManager extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLoginManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests concurrent invalid logins for the same user and remote IP.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testConcurrentInvalidLogins() throws Exception {
+
+        final CmsLoginManager manager = new CmsLoginManager(15, 1000, false);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        for (int i = 0; i < 124; i++) {
+                            manager.addInvalidLogin("Admin", "1.2.3.4");
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        assertTrue(errors.isEmpty());
+        // 992 invalid logins are counted, the threshold is not reached
+        manager.checkInvalidLogins("Admin", "1.2.3.4");
+        for (int i = 0; i < 8; i++) {
+            manager.addInvalidLogin("Admin", "1.2.3.4");
+        }
+        assertBlocked(manager, "Admin", "1.2.3.4");
+    }
+
+    /**
+     * Tests that the invalid login storage can be disabled.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testDisabledStorage() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, -1, false, 1, 1, 10);
+        for (int i = 0; i < 10; i++) {
+            manager.addInvalidLogin("Admin", "1.2.3.4");
+        }
+        manager.checkInvalidLogins("Admin", "1.2.3.4");
+        assertEquals(0, manager.getStorageSize());
+        assertEquals(-1, manager.getMaxBadAttemptsUser());
+    }
+
+    /**
+     * Tests that a user is disabled for one remote IP after the configured number of invalid logins.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testDisableUserForAddress() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, 3, false);
+        manager.addInvalidLogin("Admin", "1.2.3.4");
+        manager.addInvalidLogin("Admin", "1.2.3.4");
+        manager.checkInvalidLogins("Admin", "1.2.3.4");
+        manager.addInvalidLogin("Admin", "1.2.3.4");
+        assertBlocked(manager, "Admin", "1.2.3.4");
+        assertEquals(1, manager.getBlockedByUserAndAddressCount());
+
+        // other IPs and other users are not affected
+        manager.checkInvalidLogins("Admin", "5.6.7.8");
+        manager.checkInvalidLogins("Guest", "1.2.3.4");
+
+        manager.removeInvalidLogins("Admin", "1.2.3.4");
+        manager.checkInvalidLogins("Admin", "1.2.3.4");
+        assertEquals(0, manager.getStorageSize());
+    }
+
+    /**
+     * Tests the limit of invalid logins from one remote IP for all users.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testLimitPerAddress() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, 3, false, -1, 5, 100);
+        for (int i = 0; i < 4; i++) {
+            manager.addInvalidLogin("user" + i, "1.2.3.4");
+        }
+        manager.checkInvalidLogins("other", "1.2.3.4");
+        manager.addInvalidLogin("user4", "1.2.3.4");
+        assertBlocked(manager, "other", "1.2.3.4");
+        assertEquals(1, manager.getBlockedByAddressCount());
+        // other IPs are not affected
+        manager.checkInvalidLogins("other", "5.6.7.8");
+    }
+
+    /**
+     * Tests the limit of invalid logins for one user from all remote IPs.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testLimitPerUser() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, 3, false, 5, -1, 100);
+        for (int i = 0; i < 4; i++) {
+            manager.addInvalidLogin("Admin", "10.0.0." + i);
+        }
+        manager.checkInvalidLogins("Admin", "10.0.1.1");
+        manager.addInvalidLogin("Admin", "10.0.0.4");
+        assertBlocked(manager, "Admin", "10.0.1.1");
+        assertEquals(1, manager.getBlockedByUserCount());
+        // other users are not affected
+        manager.checkInvalidLogins("Guest", "10.0.0.1");
+    }
+
+    /**
+     * Tests that the storage does not grow beyond the configured size, 
+     * and that disabled users are kept as long as possible.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testStorageSize() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, 2, false, -1, 1000, 100);
+        manager.addInvalidLogin("Admin", "1.2.3.4");
+        manager.addInvalidLogin("Admin", "1.2.3.4");
+        for (int i = 0; i < 1000; i++) {
+            manager.addInvalidLogin("user" + i, "10.0." + (i / 256) + "." + (i % 256));
+            assertTrue(manager.getStorageSize() <= 100);
+        }
+        assertBlocked(manager, "Admin", "1.2.3.4");
+    }
+
+    /**
+     * Tests that entries which block a login are kept even if the storage exceeds the configured size.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testStorageSizeBlocked() throws Exception {
+
+        CmsLoginManager manager = new CmsLoginManager(15, 2, false, -1, -1, 10);
+        for (int i = 0; i < 30; i++) {
+            manager.addInvalidLogin("user" + i, "1.2.3.4");
+            manager.addInvalidLogin("user" + i, "1.2.3.4");
+        }
+        assertEquals(30, manager.getStorageSize());
+        for (int i = 0; i < 30; i++) {
+            assertBlocked(manager, "user" + i, "1.2.3.4");
+        }
+
+        // entries which do not block a login are removed first
+        for (int i = 0; i < 30; i++) {
+            manager.addInvalidLogin("other" + i, "1.2.3.4");
+        }
+        assertTrue(manager.getStorageSize() <= 31);
+        for (int i = 0; i < 30; i++) {
+            assertBlocked(manager, "user" + i, "1.2.3.4");
+        }
+    }
+
+    /**
+     * Asserts that the given user can not log in from the given remote IP.<p>
+     * 
+     * @param manager the login manager
+     * @param userName the user name
+     * @param remoteAddress the remote IP
+     * 
+     * @throws Exception if the check fails with an unexpected exception
+     */
+    private void assertBlocked(CmsLoginManager manager, String userName, String remoteAddress) throws Exception {
+
+        try {
+            manager.checkInvalidLogins(userName, remoteAddress);
+            fail("Login of " + userName + " from " + remoteAddress + " not blocked");
+        } catch (CmsUserDisabledException e) {
+            // expected
+        }
+    }
+}
@@ -76,6 +76,7 @@ public class TestSubscriptionManager extends OpenCmsTestCase {
         suite.addTest(new TestSubscriptionManager("testVisitResources"));
         suite.addTest(new TestSubscriptionManager("testSubscribeResources"));
         suite.addTest(new TestSubscriptionManager("testReadSubscribedResources"));
+        suite.addTest(new TestSubscriptionManager("testVisitQueue"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -204,6 +205,51 @@ public class TestSubscriptionManager extends OpenCmsTestCase {
         assertEquals(0, subscribedUserResources.size());
     }
 
+    /**
+     * Test writing visits with the write-behind visit queue.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testVisitQueue() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        CmsUser user = cms.getRequestContext().getCurrentUser();
+        echo("Testing the visit queue");
+
+        CmsSubscriptionManager subMan = OpenCms.getSubscriptionManager();
+        CmsResource res1 = cms.readResource("/folder1/subfolder12/index.html");
+        CmsResource res2 = cms.readResource("/folder1/subfolder12/page1.html");
+        CmsResource res3 = cms.readResource("/folder1/subfolder12/page2.html");
+        assertEquals(0, subMan.getDateLastVisitedBy(cms, user, res1));
+
+        CmsVisitQueue queue = new CmsVisitQueue(subMan, cms, 2);
+        queue.add(new CmsVisitEntry(user.getId(), 1000, res1.getStructureId()));
+        queue.add(new CmsVisitEntry(user.getId(), 2000, res2.getStructureId()));
+        // repeated visits are merged
+        queue.add(new CmsVisitEntry(user.getId(), 3000, res1.getStructureId()));
+        assertEquals(2, queue.size());
+        assertEquals(3000, queue.getQueuedDate(user.getId(), res1.getStructureId()));
+        assertEquals(0, queue.getDroppedCount());
+
+        // the oldest visit is dropped if the queue is full
+        queue.add(new CmsVisitEntry(user.getId(), 4000, res3.getStructureId()));
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+        assertEquals(-1, queue.getQueuedDate(user.getId(), res2.getStructureId()));
+
+        queue.flush();
+        assertEquals(0, queue.size());
+        assertEquals(1, queue.getFlushCount());
+        assertEquals(3000, subMan.getDateLastVisitedBy(cms, user, res1));
+        assertEquals(0, subMan.getDateLastVisitedBy(cms, user, res2));
+        assertEquals(4000, subMan.getDateLastVisitedBy(cms, user, res3));
+
+        // existing visits are replaced
+        queue.add(new CmsVisitEntry(user.getId(), 5000, res1.getStructureId()));
+        queue.flush();
+        assertEquals(5000, subMan.getDateLastVisitedBy(cms, user, res1));
+    }
+
     /**
      * Test subscription of resources.<p>
      * 
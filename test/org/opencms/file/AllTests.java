@@ -71,7 +71,9 @@ public final class AllTests {
         suite.addTest(TestExists.suite());
         suite.addTest(TestGroupOperations.suite());
         suite.addTest(TestHistory.suite());
+        suite.addTest(TestHistoryAsyncPrune.suite());
         suite.addTest(TestLinkValidation.suite());
+        suite.addTest(TestLinkValidationBulk.suite());
         suite.addTest(TestLock.suite());
         suite.addTest(TestMoveRename.suite());
         suite.addTest(TestMoveRename2.suite());
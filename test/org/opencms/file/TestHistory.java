@@ -40,8 +40,13 @@ import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.test.OpenCmsTestResourceConfigurableFilter;
+import org.opencms.util.CmsUUID;
 
 import java.io.UnsupportedEncodingException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -95,6 +100,9 @@ public class TestHistory extends OpenCmsTestCase {
         suite.addTest(new TestHistory("testFileHistoryFileWithSibling"));
         suite.addTest(new TestHistory("testFileVersions"));
         suite.addTest(new TestHistory("testVersioningLimit"));
+        suite.addTest(new TestHistory("testVersioningLimitProject"));
+        suite.addTest(new TestHistory("testPropertyHistory"));
+        suite.addTest(new TestHistory("testContentDeduplication"));
         suite.addTest(new TestHistory("testSiblingsV7HistoryIssue"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -115,6 +123,56 @@ public class TestHistory extends OpenCmsTestCase {
         return wrapper;
     }
 
+    /**
+     * Tests that publishing a file whose content was written again without changes 
+     * keeps the existing content record instead of storing a copy of it.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testContentDeduplication() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing that unchanged contents are not stored again");
+
+        String resName = "/contentDeduplication.txt";
+        byte[] content = "deduplicated content".getBytes();
+
+        cms.createResource(resName, CmsResourceTypePlain.getStaticTypeId(), content, null);
+        cms.unlockResource(resName);
+        OpenCms.getPublishManager().publishResource(cms, resName);
+        OpenCms.getPublishManager().waitWhileRunning();
+        CmsUUID resourceId = cms.readResource(resName).getResourceId();
+        assertEquals(1, countContentRecords(resourceId));
+
+        // write the same content again, this changes the date of the content
+        cms.lockResource(resName);
+        CmsFile file = cms.readFile(resName);
+        file.setContents(content);
+        cms.writeFile(file);
+        cms.unlockResource(resName);
+        OpenCms.getPublishManager().publishResource(cms, resName);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(1, countContentRecords(resourceId));
+
+        // a changed content of the same length must be stored
+        byte[] changed = "deduplicated CONTENT".getBytes();
+        cms.lockResource(resName);
+        file = cms.readFile(resName);
+        file.setContents(changed);
+        cms.writeFile(file);
+        cms.unlockResource(resName);
+        OpenCms.getPublishManager().publishResource(cms, resName);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals(2, countContentRecords(resourceId));
+
+        List<I_CmsHistoryResource> versions = cms.readAllAvailableVersions(resName);
+        assertEquals(3, versions.size());
+        assertEquals(new String(changed), new String(cms.readFile((CmsResource)versions.get(0)).getContents()));
+        for (int i = 1; i < versions.size(); i++) {
+            assertEquals(new String(content), new String(cms.readFile((CmsResource)versions.get(i)).getContents()));
+        }
+    }
+
     /**
      * Creates and deletes a file n-times and tests if the historical data
      * are correct and if the content can be properly restored.<p>
@@ -1142,6 +1200,56 @@ public class TestHistory extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Tests that the historical properties of a resource with more property values
+     * than fit into a single write batch are stored and read correctly.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPropertyHistory() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the history of a resource with many properties");
+
+        String resName = "/propertyHistory.txt";
+        int count = 260;
+
+        cms.createResource(resName, CmsResourceTypePlain.getStaticTypeId());
+        List<CmsProperty> properties = new ArrayList<CmsProperty>();
+        for (int i = 0; i < count; i++) {
+            String name = "historyProperty" + i;
+            cms.createPropertyDefinition(name);
+            properties.add(new CmsProperty(name, "structure" + i, "resource" + i));
+        }
+        cms.writePropertyObjects(resName, properties);
+        cms.unlockResource(resName);
+        OpenCms.getPublishManager().publishResource(cms, resName);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.lockResource(resName);
+        cms.writePropertyObject(resName, new CmsProperty("historyProperty0", "changed", null));
+        cms.unlockResource(resName);
+        OpenCms.getPublishManager().publishResource(cms, resName);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        List<I_CmsHistoryResource> versions = cms.readAllAvailableVersions(resName);
+        assertEquals(2, versions.size());
+        for (I_CmsHistoryResource version : versions) {
+            List<CmsProperty> historyProperties = cms.readHistoryPropertyObjects(version);
+            assertEquals(count, historyProperties.size());
+            for (int i = 0; i < count; i++) {
+                CmsProperty property = CmsProperty.get("historyProperty" + i, historyProperties);
+                assertNotNull(property);
+                if ((i == 0) && (version.getVersion() == 2)) {
+                    assertEquals("changed", property.getStructureValue());
+                } else {
+                    assertEquals("structure" + i, property.getStructureValue());
+                }
+                assertEquals("resource" + i, property.getResourceValue());
+            }
+        }
+    }
+
     /**
      * Tests the retrieval of deleted resources by name in a folder.<p>
      * 
@@ -2351,6 +2459,100 @@ public class TestHistory extends OpenCmsTestCase {
         }
     }
 
+    /**
+     * Test that the versions of all resources published together in a project 
+     * are properly pruned after reaching the limit of stored versions.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testVersioningLimitProject() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing versioning limit for a project publish");
+
+        String folder = "/versioningLimitProject/";
+        int count = 4;
+
+        int vers = OpenCms.getSystemInfo().getHistoryVersions();
+        int delVers = OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion();
+        try {
+            OpenCms.getSystemInfo().setVersionHistorySettings(true, 2, 1);
+
+            cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+            for (int i = 0; i < count; i++) {
+                cms.createResource(folder + "file" + i + ".txt", CmsResourceTypePlain.getStaticTypeId());
+            }
+            cms.unlockResource(folder);
+            OpenCms.getPublishManager().publishProject(cms);
+            OpenCms.getPublishManager().waitWhileRunning();
+
+            // make 3 more versions of each file, published together with one project publish each
+            for (int j = 0; j < 3; j++) {
+                for (int i = 0; i < count; i++) {
+                    String resName = folder + "file" + i + ".txt";
+                    cms.lockResource(resName);
+                    CmsFile file = cms.readFile(resName);
+                    file.setContents(("content version " + j).getBytes());
+                    cms.writeFile(file);
+                    cms.unlockResource(resName);
+                }
+                OpenCms.getPublishManager().publishProject(cms);
+                OpenCms.getPublishManager().waitWhileRunning();
+            }
+            for (int i = 0; i < count; i++) {
+                String resName = folder + "file" + i + ".txt";
+                List<I_CmsHistoryResource> versions = cms.readAllAvailableVersions(resName);
+                assertEquals(2, versions.size());
+                assertEquals(4, versions.get(0).getVersion());
+                assertEquals(3, versions.get(1).getVersion());
+            }
+            assertEquals(1, cms.readAllAvailableVersions(folder).size());
+
+            // delete a file, only the configured number of versions must be kept for it
+            String deleted = folder + "file0.txt";
+            CmsResource res = cms.readResource(deleted);
+            cms.lockResource(deleted);
+            cms.deleteResource(deleted, CmsResource.DELETE_PRESERVE_SIBLINGS);
+            cms.unlockResource(deleted);
+            OpenCms.getPublishManager().publishProject(cms);
+            OpenCms.getPublishManager().waitWhileRunning();
+            cms.restoreDeletedResource(res.getStructureId());
+            assertEquals(1, cms.readAllAvailableVersions(deleted).size());
+            for (int i = 1; i < count; i++) {
+                assertEquals(2, cms.readAllAvailableVersions(folder + "file" + i + ".txt").size());
+            }
+        } finally {
+            OpenCms.getSystemInfo().setVersionHistorySettings(true, vers, delVers);
+        }
+    }
+
+    /**
+     * Counts the online and historical content records of a resource.<p>
+     * 
+     * @param resourceId the resource id
+     * 
+     * @return the number of content records
+     * 
+     * @throws Exception if something goes wrong
+     */
+    protected int countContentRecords(CmsUUID resourceId) throws Exception {
+
+        Connection conn = OpenCms.getSqlManager().getConnection(OpenCms.getSqlManager().getDefaultDbPoolName());
+        try {
+            PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM CMS_CONTENTS WHERE RESOURCE_ID = ?");
+            try {
+                stmt.setString(1, resourceId.toString());
+                ResultSet res = stmt.executeQuery();
+                res.next();
+                return res.getInt(1);
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            conn.close();
+        }
+    }
+
     /**
      * Turns the byte content of a resource into a string.<p>
      * 
@@ -0,0 +1,152 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.file;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.generic.CmsHistoryDriver;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the history clean up running in the background after a publish.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestHistoryAsyncPrune extends OpenCmsTestCase {
+
+    /** The maximum time to wait for the background clean up in milliseconds. */
+    private static final long PRUNE_TIMEOUT = 30000;
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestHistoryAsyncPrune(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestHistoryAsyncPrune.class.getName());
+
+        suite.addTest(new TestHistoryAsyncPrune("testAsyncPrune"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            private File m_configFolder;
+
+            @Override
+            protected void setUp() throws Exception {
+
+                m_configFolder = createConfigurationFolder(CmsHistoryDriver.CONFIGURATION_PRUNE_ASYNC + "=true");
+                setupOpenCms(
+                    "simpletest",
+                    "/",
+                    getTestDataPath("WEB-INF/config." + getDbProduct() + "/"),
+                    m_configFolder.getAbsolutePath() + File.separator,
+                    true);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+                CmsFileUtil.purgeDirectory(m_configFolder);
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the versions exceeding the limit are removed in the background after publishing.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testAsyncPrune() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the history clean up in the background");
+
+        CmsParameterConfiguration configuration = new CmsParameterConfiguration(
+            OpenCms.getSystemInfo().getConfigurationFileRfsPath());
+        assertTrue(configuration.getBoolean(CmsHistoryDriver.CONFIGURATION_PRUNE_ASYNC, false));
+
+        String resName = "/asyncPrune.txt";
+        int vers = OpenCms.getSystemInfo().getHistoryVersions();
+        int delVers = OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion();
+        try {
+            OpenCms.getSystemInfo().setVersionHistorySettings(true, 2, 2);
+
+            cms.createResource(resName, CmsResourceTypePlain.getStaticTypeId());
+            cms.unlockResource(resName);
+            OpenCms.getPublishManager().publishResource(cms, resName);
+            OpenCms.getPublishManager().waitWhileRunning();
+
+            for (int i = 0; i < 4; i++) {
+                cms.lockResource(resName);
+                CmsFile file = cms.readFile(resName);
+                file.setContents(("content version " + i).getBytes());
+                cms.writeFile(file);
+                cms.unlockResource(resName);
+                OpenCms.getPublishManager().publishResource(cms, resName);
+                OpenCms.getPublishManager().waitWhileRunning();
+            }
+
+            long timeout = System.currentTimeMillis() + PRUNE_TIMEOUT;
+            int count = cms.readAllAvailableVersions(resName).size();
+            while ((count > 2) && (System.currentTimeMillis() < timeout)) {
+                Thread.sleep(100);
+                count = cms.readAllAvailableVersions(resName).size();
+            }
+            assertEquals(2, count);
+            assertEquals(5, cms.readAllAvailableVersions(resName).get(0).getVersion());
+        } finally {
+            OpenCms.getSystemInfo().setVersionHistorySettings(true, vers, delVers);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.file;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.db.CmsDriverManager;
+import org.opencms.file.types.CmsResourceTypeFolder;
+import org.opencms.file.types.CmsResourceTypeImage;
+import org.opencms.file.types.CmsResourceTypePlain;
+import org.opencms.file.types.CmsResourceTypeXmlPage;
+import org.opencms.main.OpenCms;
+import org.opencms.relations.CmsRelation;
+import org.opencms.relations.CmsRelationSystemValidator;
+import org.opencms.report.CmsShellReport;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for OpenCms link validation with the set based bulk validation.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestLinkValidationBulk extends TestLinkValidation {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestLinkValidationBulk(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestLinkValidationBulk.class.getName());
+
+        suite.addTest(new TestLinkValidationBulk("testBulkValidationConfiguration"));
+        suite.addTest(new TestLinkValidationBulk("testLinkValidationXmlPages"));
+        suite.addTest(new TestLinkValidationBulk("testLinkValidationXmlContents"));
+        suite.addTest(new TestLinkValidationBulk("testLinkValidationXmlContentsHtml"));
+        suite.addTest(new TestLinkValidationBulk("testLinkValidationXmlContentsFileRef"));
+        suite.addTest(new TestLinkValidationBulk("testBulkValidationParallel"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            private File m_configFolder;
+
+            @Override
+            protected void setUp() throws Exception {
+
+                m_configFolder = createConfigurationFolder(CmsDriverManager.CONFIGURATION_RELATION_VALIDATION
+                    + ".bulk=true\n"
+                    + CmsDriverManager.CONFIGURATION_RELATION_VALIDATION
+                    + ".threads=2");
+                setupOpenCms(
+                    "simpletest",
+                    "/",
+                    getTestDataPath("WEB-INF/config." + getDbProduct() + "/"),
+                    m_configFolder.getAbsolutePath() + File.separator,
+                    true);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+                CmsFileUtil.purgeDirectory(m_configFolder);
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the bulk validation is enabled for this test.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testBulkValidationConfiguration() throws Throwable {
+
+        echo("Testing the bulk link validation configuration");
+
+        CmsParameterConfiguration configuration = new CmsParameterConfiguration(
+            OpenCms.getSystemInfo().getConfigurationFileRfsPath());
+        assertTrue(configuration.getBoolean(CmsDriverManager.CONFIGURATION_RELATION_VALIDATION + ".bulk", false));
+        assertEquals(2, configuration.getInteger(CmsDriverManager.CONFIGURATION_RELATION_VALIDATION + ".threads", 1));
+    }
+
+    /**
+     * Tests the bulk link validation of a publish list large enough to be validated in parallel chunks.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testBulkValidationParallel() throws Throwable {
+
+        echo("Testing the bulk link validation with parallel chunks");
+
+        CmsObject cms = getCmsObject();
+        String folder = "/bulkValidation/";
+        String pageName = folder + "page.html";
+        String targetName = folder + "target.gif";
+        String missingName = folder + "missing.gif";
+
+        CmsResource folderRes = cms.createResource(folder, CmsResourceTypeFolder.getStaticTypeId());
+        for (int i = 0; i < (2 * CmsRelationSystemValidator.BULK_CHUNK_MIN_SIZE); i++) {
+            cms.createResource(folder + "file" + i + ".txt", CmsResourceTypePlain.getStaticTypeId());
+        }
+        cms.createResource(targetName, CmsResourceTypeImage.getStaticTypeId());
+        CmsResource page = cms.createResource(pageName, CmsResourceTypeXmlPage.getStaticTypeId());
+        setContent(cms, pageName, "<img src='target.gif' ><img src='missing.gif' >");
+        cms.unlockResource(folder);
+
+        CmsShellReport report = new CmsShellReport(cms.getRequestContext().getLocale());
+        Map<String, List<CmsRelation>> validation = OpenCms.getPublishManager().validateRelations(
+            cms,
+            OpenCms.getPublishManager().getPublishList(cms, folderRes, false),
+            report);
+        assertEquals(1, validation.size());
+        List<CmsRelation> brokenLinks = validation.get(page.getRootPath());
+        assertNotNull(brokenLinks);
+        assertEquals(1, brokenLinks.size());
+        assertEquals(cms.getRequestContext().addSiteRoot(missingName), brokenLinks.get(0).getTargetPath());
+
+        // once the link target exists, no broken link is left
+        cms.lockResource(folder);
+        cms.createResource(missingName, CmsResourceTypeImage.getStaticTypeId());
+        cms.unlockResource(folder);
+        validation = OpenCms.getPublishManager().validateRelations(
+            cms,
+            OpenCms.getPublishManager().getPublishList(cms, folderRes, false),
+            report);
+        assertTrue(validation.isEmpty());
+    }
+}
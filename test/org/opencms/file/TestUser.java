@@ -30,14 +30,20 @@ package org.opencms.file;
 import org.opencms.importexport.CmsExport;
 import org.opencms.importexport.CmsExportParameters;
 import org.opencms.importexport.CmsImportParameters;
+import org.opencms.file.CmsUserSearchParameters.SortKey;
+import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -76,6 +82,9 @@ public class TestUser extends OpenCmsTestCase {
         suite.addTest(new TestUser("testUserInfo"));
         suite.addTest(new TestUser("testUserExport"));
         suite.addTest(new TestUser("testUserSelfManagement"));
+        suite.addTest(new TestUser("testUserSearch"));
+        suite.addTest(new TestUser("testUserCount"));
+        suite.addTest(new TestUser("testUserCountMove"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -114,6 +123,109 @@ public class TestUser extends OpenCmsTestCase {
         assertEquals("my description", user.getDescription());
     }
 
+    /**
+     * Test that the cached user counts are updated when users and group memberships change.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testUserCount() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cached user counts");
+
+        CmsUserSearchParameters ouParams = new CmsUserSearchParameters();
+        ouParams.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, ""));
+        ouParams.setFilterCore(true);
+        ouParams.setPaging(1000, 1);
+        long ouCount = OpenCms.getOrgUnitManager().countUsers(cms, ouParams);
+        assertEquals(OpenCms.getOrgUnitManager().searchUsers(cms, ouParams).size(), ouCount);
+
+        CmsGroup group = cms.createGroup("countgroup", "count group", 0, null);
+        CmsUserSearchParameters groupParams = new CmsUserSearchParameters();
+        groupParams.setGroup(group);
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+
+        CmsUser user = cms.createUser("countuser", "countuser", "count user", null);
+        assertEquals(ouCount + 1, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+
+        cms.addUserToGroup(user.getName(), group.getName());
+        assertEquals(1, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        cms.removeUserFromGroup(user.getName(), group.getName());
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        cms.addUserToGroup(user.getName(), group.getName());
+        assertEquals(1, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+
+        cms.deleteUser(user.getName());
+        assertEquals(ouCount, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+
+        // the counts must match the database after clearing the caches
+        OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>());
+        assertEquals(ouCount, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+    }
+
+    /**
+     * Test that the cached user counts are updated when a user is moved to another organizational unit.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testUserCountMove() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the cached user counts after moving a user");
+
+        OpenCms.getOrgUnitManager().createOrganizationalUnit(cms, "countou", "count ou", 0, "/");
+        CmsGroup group = cms.createGroup("countou/countmovegroup", "count move group", 0, null);
+        CmsUser user = cms.createUser("countmoveuser", "countmoveuser", "count move user", null);
+
+        CmsUserSearchParameters rootParams = new CmsUserSearchParameters();
+        rootParams.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, ""));
+        rootParams.setPaging(1000, 1);
+        CmsUserSearchParameters ouParams = new CmsUserSearchParameters();
+        ouParams.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, "countou"));
+        ouParams.setPaging(1000, 1);
+        CmsUserSearchParameters groupParams = new CmsUserSearchParameters();
+        groupParams.setGroup(group);
+        groupParams.setPaging(1000, 1);
+        CmsUserSearchParameters groupOuParams = new CmsUserSearchParameters();
+        groupOuParams.setGroup(group);
+        groupOuParams.setFilterByGroupOu(true);
+        groupOuParams.setPaging(1000, 1);
+
+        long rootCount = OpenCms.getOrgUnitManager().countUsers(cms, rootParams);
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupOuParams));
+
+        // users can only be moved without group memberships
+        OpenCms.getOrgUnitManager().setUsersOrganizationalUnit(cms, "countou", user.getName());
+        assertEquals(rootCount - 1, OpenCms.getOrgUnitManager().countUsers(cms, rootParams));
+        assertEquals(1, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupOuParams));
+
+        // the moved user now counts for the group counts filtered by the OU of the group
+        user = cms.readUser(user.getId());
+        cms.addUserToGroup(user.getName(), group.getName());
+        assertEquals(1, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        assertEquals(1, OpenCms.getOrgUnitManager().countUsers(cms, groupOuParams));
+        cms.removeUserFromGroup(user.getName(), group.getName());
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupOuParams));
+
+        OpenCms.getOrgUnitManager().setUsersOrganizationalUnit(cms, "", user.getName());
+        assertEquals(rootCount, OpenCms.getOrgUnitManager().countUsers(cms, rootParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+
+        // the counts must match the database after clearing the caches
+        OpenCms.fireCmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, new HashMap<String, Object>());
+        assertEquals(rootCount, OpenCms.getOrgUnitManager().countUsers(cms, rootParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, ouParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupParams));
+        assertEquals(0, OpenCms.getOrgUnitManager().countUsers(cms, groupOuParams));
+    }
+
     /**
      * Test import/export of additional user info.<p>
      * 
@@ -192,6 +304,56 @@ public class TestUser extends OpenCmsTestCase {
         assertEquals(new Double(45.23), user.getAdditionalInfo("double"));
     }
 
+    /**
+     * Test user search with keyset paging and bulk loading of the additional infos.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testUserSearch() throws Throwable {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing user search with keyset paging");
+
+        List<String> names = new ArrayList<String>();
+        for (int i = 0; i < 12; i++) {
+            String name = "searchuser" + (i < 10 ? "0" : "") + i;
+            Map<String, Object> infos = new HashMap<String, Object>();
+            infos.put("index", new Integer(i));
+            cms.createUser(name, name, "search user " + i, infos);
+            names.add(name);
+        }
+
+        CmsUserSearchParameters params = new CmsUserSearchParameters();
+        params.setOrganizationalUnit(OpenCms.getOrgUnitManager().readOrganizationalUnit(cms, ""));
+        params.setSearchFilter("searchuser");
+        params.setSorting(SortKey.loginName, true);
+        assertEquals(names, readAllPages(cms, params, 5));
+
+        params.setSorting(SortKey.loginName, false);
+        List<String> reversed = new ArrayList<String>(names);
+        Collections.reverse(reversed);
+        assertEquals(reversed, readAllPages(cms, params, 5));
+
+        // all users have the same email address, so the user id decides the order
+        params.setSorting(SortKey.email, true);
+        List<String> byEmail = readAllPages(cms, params, 5);
+        assertEquals(12, byEmail.size());
+        assertEquals(12, new HashSet<String>(byEmail).size());
+
+        params.setPaging(5, 1);
+        params.setSorting(SortKey.loginName, true);
+        List<CmsUser> users = OpenCms.getOrgUnitManager().searchUsers(cms, params);
+        assertEquals(5, users.size());
+        for (int i = 0; i < users.size(); i++) {
+            assertEquals(new Integer(i), users.get(i).getAdditionalInfo("index"));
+            assertEquals("search user " + i, users.get(i).getDescription());
+        }
+        params.setLoadAdditionalInfos(false);
+        users = OpenCms.getOrgUnitManager().searchUsers(cms, params);
+        assertEquals(5, users.size());
+        assertNull(users.get(0).getAdditionalInfo("index"));
+    }
+
     /**
      * Test user creation.<p>
      * 
@@ -230,4 +392,33 @@ public class TestUser extends OpenCmsTestCase {
             // ignore, ok
         }
     }
+
+    /**
+     * Reads all pages of a user search with keyset paging and returns the user names.<p>
+     * 
+     * @param cms the CMS context
+     * @param params the search parameters
+     * @param pageSize the page size
+     * 
+     * @return the simple names of the users found
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private List<String> readAllPages(CmsObject cms, CmsUserSearchParameters params, int pageSize)
+    throws Exception {
+
+        List<String> result = new ArrayList<String>();
+        CmsUUID lastUserId = null;
+        while (true) {
+            params.setKeysetPaging(pageSize, lastUserId);
+            List<CmsUser> page = OpenCms.getOrgUnitManager().searchUsers(cms, params);
+            for (CmsUser user : page) {
+                result.add(user.getSimpleName());
+            }
+            if (page.size() < pageSize) {
+                return result;
+            }
+            lastUserId = page.get(page.size() - 1).getId();
+        }
+    }
 }
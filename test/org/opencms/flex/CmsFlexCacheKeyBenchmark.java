@@ -0,0 +1,204 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Micro benchmark for the lookup of cached variations in the Flex cache.<p>
+ * 
+ * For a number of typical cache directives, the variations of many requests are stored in a map like the 
+ * one used by the Flex cache. The lookup with the variation String built by 
+ * {@link CmsFlexCacheKey#matchRequestKey(CmsFlexRequestKey)} is compared with the lookup by the 
+ * {@link CmsFlexCacheKeyMatcher}, which is used by {@link CmsFlexCache#get(CmsFlexRequestKey)} for every 
+ * include of a cached element. Besides the throughput, the number of bytes allocated per lookup is reported
+ * if the JVM supports measuring it.<p>
+ * 
+ * Run this class with <code>java org.opencms.flex.CmsFlexCacheKeyBenchmark [seconds per run]</code> and the 
+ * same system properties as the test cases, since it needs an OpenCms instance to create the request keys.
+ * It is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsFlexCacheKeyBenchmark {
+
+    /** The cache directives measured. */
+    private static final String[] DIRECTIVES = {
+        "always",
+        "uri;locale",
+        "uri;user;site;locale;encoding",
+        "uri;params=(id,page);no-params=(__clearcache)",
+        "uri;params;timeout=60"};
+
+    /** The number of different requests. */
+    private static final int REQUESTS = 500;
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsFlexCacheKeyBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     */
+    public static void main(String[] args) {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+        // creating a test case reads the database configuration of the tests
+        new TestCmsFlexCacheKey("testLookupVariation");
+        CmsObject cms = OpenCmsTestCase.setupOpenCms("simpletest", "/");
+        try {
+            final CmsFlexRequestKey[] requests = new CmsFlexRequestKey[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                Map<String, String[]> params = new LinkedHashMap<String, String[]>();
+                params.put("id", new String[] {String.valueOf(i)});
+                params.put("page", new String[] {String.valueOf(i % 10)});
+                requests[i] = TestCmsFlexCacheKey.createRequestKey(
+                    cms,
+                    params,
+                    new LinkedHashMap<String, Object>(),
+                    null);
+            }
+
+            System.out.println("directives\tvariations\tstring [lookups/s]\tstring [bytes/lookup]"
+                + "\tmatcher [lookups/s]\tmatcher [bytes/lookup]");
+            for (String directives : DIRECTIVES) {
+                final CmsFlexCacheKey key = new CmsFlexCacheKey(
+                    cms.getRequestContext().addSiteRoot("/index.html"),
+                    directives,
+                    false);
+                final CmsFlexCacheVariationMap<CmsFlexCacheEntry> variations;
+                variations = new CmsFlexCacheVariationMap<CmsFlexCacheEntry>(8);
+                for (CmsFlexRequestKey request : requests) {
+                    variations.put(key.matchRequestKey(request), new CmsFlexCacheEntry());
+                }
+                long[] string = runLoop(new Operation() {
+
+                    public Object lookup(CmsFlexRequestKey request) {
+
+                        return variations.get(key.matchRequestKey(request));
+                    }
+                }, requests, millis);
+                long[] matcher = runLoop(new Operation() {
+
+                    public Object lookup(CmsFlexRequestKey request) {
+
+                        return CmsFlexCacheKeyMatcher.lookup(key, request, variations);
+                    }
+                }, requests, millis);
+                System.out.println(directives
+                    + "\t"
+                    + variations.size()
+                    + "\t"
+                    + string[0]
+                    + "\t"
+                    + string[1]
+                    + "\t"
+                    + matcher[0]
+                    + "\t"
+                    + matcher[1]);
+            }
+        } finally {
+            OpenCmsTestCase.removeOpenCms();
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread, or <code>-1</code> if not supported.<p>
+     * 
+     * @return the number of bytes allocated by the current thread
+     */
+    private static long getAllocatedBytes() {
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Measures how many lookups can be done per second by the given operation.<p>
+     * 
+     * @param operation the lookup operation
+     * @param requests the requests to look up
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of lookups per second and the number of bytes allocated per lookup
+     */
+    private static long[] runLoop(Operation operation, CmsFlexRequestKey[] requests, long millis) {
+
+        long count = 0;
+        int misses = 0;
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        long allocated = getAllocatedBytes();
+        do {
+            for (CmsFlexRequestKey request : requests) {
+                if (operation.lookup(request) == null) {
+                    misses++;
+                }
+            }
+            count += requests.length;
+        } while (System.currentTimeMillis() < end);
+        long bytes = (allocated < 0) ? -1 : (getAllocatedBytes() - allocated) / count;
+        if (misses > 0) {
+            throw new IllegalStateException("cached variation not found");
+        }
+        return new long[] {(count * 1000) / Math.max(1, System.currentTimeMillis() - start), bytes};
+    }
+
+    /**
+     * A lookup operation measured by the benchmark.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Looks up the cached variation for a request.<p>
+         * 
+         * @param request the request to look up
+         * 
+         * @return the cached entry
+         */
+        Object lookup(CmsFlexRequestKey request);
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.test.OpenCmsTestServletResponse;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpSession;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the matching of Flex cache keys with request keys.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsFlexCacheKey extends OpenCmsTestCase {
+
+    /** The cache directives tested. */
+    private static final String[] DIRECTIVES = {
+        "never",
+        "always",
+        "uri",
+        "uri;user;site;locale;encoding;ip;element;container-element",
+        "params",
+        "params=(a,c);timeout=10",
+        "no-params",
+        "no-params=(b);uri",
+        "attrs=(x,z)",
+        "no-attrs=(y);session=(s,t)",
+        "session=(missing)",
+        "schemes=(http);ports=(8080)",
+        "schemes=(https)",
+        "ports=(80)",
+        "ports=(80,8080);timeout=5"};
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsFlexCacheKey(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsFlexCacheKey.class.getName());
+
+        suite.addTest(new TestCmsFlexCacheKey("testLookupVariation"));
+        suite.addTest(new TestCmsFlexCacheKey("testCacheGet"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Creates a request key for a request with the given parameters, attributes and session attributes.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param params the request parameters
+     * @param attrs the request attributes
+     * @param sessionAttrs the session attributes, or <code>null</code> for a request without session
+     * 
+     * @return the request key
+     */
+    static CmsFlexRequestKey createRequestKey(
+        CmsObject cms,
+        final Map<String, String[]> params,
+        final Map<String, Object> attrs,
+        final Map<String, Object> sessionAttrs) {
+
+        final HttpSession session = (sessionAttrs == null) ? null : (HttpSession)Proxy.newProxyInstance(
+            TestCmsFlexCacheKey.class.getClassLoader(),
+            new Class[] {HttpSession.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    return "getAttribute".equals(method.getName()) ? sessionAttrs.get(args[0]) : null;
+                }
+            });
+        OpenCmsTestServletRequest req = new OpenCmsTestServletRequest() {
+
+            @Override
+            public Object getAttribute(String name) {
+
+                return attrs.get(name);
+            }
+
+            @Override
+            public Enumeration getAttributeNames() {
+
+                return Collections.enumeration(attrs.keySet());
+            }
+
+            @Override
+            public String getParameter(String name) {
+
+                String[] values = params.get(name);
+                return (values == null) ? null : values[0];
+            }
+
+            @Override
+            public Map getParameterMap() {
+
+                return params;
+            }
+
+            @Override
+            public String getScheme() {
+
+                return "HTTP";
+            }
+
+            @Override
+            public int getServerPort() {
+
+                return 8080;
+            }
+
+            @Override
+            public HttpSession getSession(boolean create) {
+
+                return session;
+            }
+
+            @Override
+            public void setAttribute(String name, Object value) {
+
+                attrs.put(name, value);
+            }
+        };
+        CmsFlexController controller = new CmsFlexController(
+            cms,
+            null,
+            null,
+            req,
+            new OpenCmsTestServletResponse(),
+            false,
+            true);
+        CmsFlexController.setController(req, controller);
+        return new CmsFlexRequestKey(req, "/index.html", false);
+    }
+
+    /**
+     * Tests that the Flex cache finds entries with the variation matcher.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCacheGet() throws Exception {
+
+        CmsFlexCacheConfiguration configuration = new CmsFlexCacheConfiguration();
+        configuration.initialize("true", "true", "1000000", "500000", "100000", "100");
+        CmsFlexCache cache = new CmsFlexCache(configuration);
+        CmsFlexRequestKey requestKey = createRequestKey(
+            getCmsObject(),
+            createMap("a", new String[] {"1"}),
+            new LinkedHashMap<String, Object>(),
+            null);
+        CmsFlexCacheKey key = new CmsFlexCacheKey(
+            getCmsObject().getRequestContext().addSiteRoot("/index.html"),
+            "uri;params",
+            false);
+        assertEquals(requestKey.getResource(), key.getResource());
+        String variation = key.matchRequestKey(requestKey);
+        assertNotNull(variation);
+        assertNull(cache.get(requestKey));
+
+        cache.putKey(key);
+        CmsFlexCacheEntry entry = new CmsFlexCacheEntry();
+        assertTrue(cache.put(key, entry, variation));
+        assertSame(entry, cache.get(requestKey));
+
+        CmsFlexRequestKey otherKey = createRequestKey(
+            getCmsObject(),
+            createMap("a", new String[] {"2"}),
+            new LinkedHashMap<String, Object>(),
+            null);
+        assertNull(cache.get(otherKey));
+        cache.remove(key);
+        assertNull(cache.get(requestKey));
+    }
+
+    /**
+     * Tests that the variation matcher finds the same variations as the variation Strings.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testLookupVariation() throws Exception {
+
+        Map<String, String[]> params = createMap("a", new String[] {"1"});
+        params.put("b", new String[] {"2", "3"});
+        Map<String, Object> attrs = new LinkedHashMap<String, Object>();
+        attrs.put("x", "X");
+        attrs.put("z", Integer.valueOf(42));
+        Map<String, Object> sessionAttrs = new HashMap<String, Object>();
+        sessionAttrs.put("t", Long.valueOf(-7));
+
+        CmsFlexRequestKey[] requestKeys = {
+            createRequestKey(getCmsObject(), params, attrs, sessionAttrs),
+            createRequestKey(
+                getCmsObject(),
+                new LinkedHashMap<String, String[]>(),
+                new LinkedHashMap<String, Object>(),
+                null)};
+
+        for (CmsFlexRequestKey requestKey : requestKeys) {
+            for (String directives : DIRECTIVES) {
+                CmsFlexCacheKey key = new CmsFlexCacheKey(requestKey.getResource(), directives, false);
+                String variation = key.matchRequestKey(requestKey);
+                CmsFlexCacheVariationMap<String> variations = new CmsFlexCacheVariationMap<String>(8);
+                variations.put("always;", "other");
+                variations.put("uri=(/sites/default/index.html);", "other");
+                if (variation == null) {
+                    assertNull(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                    continue;
+                }
+                // variations that differ only at the end are not matched
+                variations.put(variation.substring(0, variation.length() - 1), "shorter");
+                variations.put(variation + ";", "longer");
+                variations.put(variation.substring(0, variation.length() - 1) + "x", "different");
+                // a variation with the same hash code is not matched
+                String collision = (char)(variation.charAt(0) + 1)
+                    + String.valueOf((char)(variation.charAt(1) - 31))
+                    + variation.substring(2);
+                assertEquals(variation.hashCode(), collision.hashCode());
+                variations.put(collision, "collision");
+                assertNull(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                variations.put(variation, directives);
+                assertEquals(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                // a removed variation is no longer found
+                variations.remove(variation);
+                assertNull(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                variations.put(variation, directives);
+                Iterator<String> i = variations.keySet().iterator();
+                while (i.hasNext()) {
+                    if (i.next().equals(variation)) {
+                        i.remove();
+                    }
+                }
+                assertNull(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                // the variation is still found after the index has grown
+                variations.put(variation, directives);
+                for (int j = 0; j < 100; j++) {
+                    variations.put(variation + j, "grown");
+                }
+                assertEquals(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+                variations.clear();
+                assertNull(directives, CmsFlexCacheKeyMatcher.lookup(key, requestKey, variations));
+            }
+        }
+    }
+
+    /**
+     * Creates a modifiable map with the given entry.<p>
+     * 
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * 
+     * @return the map
+     */
+    private static Map<String, String[]> createMap(String key, String[] value) {
+
+        Map<String, String[]> result = new LinkedHashMap<String, String[]>();
+        result.put(key, value);
+        return result;
+    }
+}
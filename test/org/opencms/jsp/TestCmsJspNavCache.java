@@ -0,0 +1,248 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.main.OpenCms;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the navigation cache.<p>
+ */
+public class TestCmsJspNavCache extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsJspNavCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     * 
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsJspNavCache.class.getName());
+
+        suite.addTest(new TestCmsJspNavCache("testNavigationFromCache"));
+        suite.addTest(new TestCmsJspNavCache("testPublishUpdatesCache"));
+        suite.addTest(new TestCmsJspNavCache("testReleaseDate"));
+        suite.addTest(new TestCmsJspNavCache("testResourcesNotShared"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            @Override
+            protected void setUp() {
+
+                setupOpenCms("simpletest", "/");
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that the navigation read from the cache is the same as the navigation read from the VFS.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testNavigationFromCache() throws Throwable {
+
+        echo("Testing the navigation read from the cache");
+        assertNotNull(CmsJspNavCache.getInstance());
+
+        CmsObject cms = getCmsObject();
+        CmsObject onlineCms = getOnlineCmsObject();
+        assertFalse(CmsJspNavCache.getInstance().isCacheable(cms));
+        assertTrue(CmsJspNavCache.getInstance().isCacheable(onlineCms));
+
+        List<CmsJspNavElement> expected = new CmsJspNavBuilder(cms).getNavigationForFolder("/folder1/");
+        // read twice, the second time from the cache
+        for (int i = 0; i < 2; i++) {
+            List<CmsJspNavElement> navigation = new CmsJspNavBuilder(onlineCms).getNavigationForFolder("/folder1/");
+            assertNavigation(expected, navigation);
+        }
+        CmsJspNavElement element = new CmsJspNavBuilder(onlineCms).getNavigationForResource("/folder1/page1.html");
+        assertEquals("Page1", element.getNavText());
+    }
+
+    /**
+     * Tests that the cached navigation is updated after publishing.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testPublishUpdatesCache() throws Throwable {
+
+        echo("Testing the update of the navigation cache after publishing");
+
+        CmsObject cms = getCmsObject();
+        CmsObject onlineCms = getOnlineCmsObject();
+        String path = "/folder1/page2.html";
+        assertEquals("Page2", new CmsJspNavBuilder(onlineCms).getNavigationForResource(path).getNavText());
+
+        cms.lockResource(path);
+        cms.writePropertyObject(path, new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "Changed", null));
+        cms.unlockResource(path);
+        // the online navigation must not change before publishing
+        assertEquals("Page2", new CmsJspNavBuilder(onlineCms).getNavigationForResource(path).getNavText());
+
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertEquals("Changed", new CmsJspNavBuilder(onlineCms).getNavigationForResource(path).getNavText());
+
+        String newPath = "/folder1/newpage.html";
+        cms.createResource(newPath, OpenCms.getResourceManager().getResourceType("plain").getTypeId());
+        cms.writePropertyObject(newPath, new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVPOS, "10", null));
+        cms.writePropertyObject(newPath, new CmsProperty(CmsPropertyDefinition.PROPERTY_NAVTEXT, "New", null));
+        cms.unlockResource(newPath);
+        OpenCms.getPublishManager().publishResource(cms, newPath);
+        OpenCms.getPublishManager().waitWhileRunning();
+        assertNavigation(
+            new CmsJspNavBuilder(cms).getNavigationForFolder("/folder1/"),
+            new CmsJspNavBuilder(onlineCms).getNavigationForFolder("/folder1/"));
+    }
+
+    /**
+     * Tests that the release date is checked for every request.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testReleaseDate() throws Throwable {
+
+        echo("Testing the release date of cached navigation resources");
+
+        CmsObject cms = getCmsObject();
+        CmsObject onlineCms = getOnlineCmsObject();
+        String path = "/folder1/page3.html";
+        int size = new CmsJspNavBuilder(onlineCms).getNavigationForFolder("/folder1/").size();
+
+        cms.lockResource(path);
+        cms.setDateReleased(path, System.currentTimeMillis() + 3600000, false);
+        cms.unlockResource(path);
+        OpenCms.getPublishManager().publishResource(cms, path);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        List<CmsJspNavElement> navigation = new CmsJspNavBuilder(onlineCms).getNavigationForFolder("/folder1/");
+        assertEquals(size - 1, navigation.size());
+        for (CmsJspNavElement element : navigation) {
+            assertFalse(path.equals(element.getResourceName()));
+        }
+        navigation = new CmsJspNavBuilder(onlineCms).getNavigationForFolder(
+            "/folder1/",
+            CmsJspNavBuilder.Visibility.navigation,
+            CmsResourceFilter.IGNORE_EXPIRATION);
+        assertEquals(size, navigation.size());
+    }
+
+    /**
+     * Tests that changes to the returned resources do not change the cached resources.<p>
+     * 
+     * @throws Throwable if something goes wrong
+     */
+    public void testResourcesNotShared() throws Throwable {
+
+        echo("Testing that the cached navigation resources are not shared");
+
+        CmsObject onlineCms = getOnlineCmsObject();
+        CmsJspNavCache cache = CmsJspNavCache.getInstance();
+        String folder = "/folder1/";
+        String path = "/folder1/page1.html";
+
+        CmsResource resource = cache.readResource(onlineCms, path, CmsResourceFilter.DEFAULT);
+        long dateLastModified = resource.getDateLastModified();
+        resource.setDateLastModified(dateLastModified + 1000);
+        resource = cache.readResource(onlineCms, path, CmsResourceFilter.DEFAULT);
+        assertEquals(dateLastModified, resource.getDateLastModified());
+
+        List<CmsResource> children = cache.getResourcesInFolder(onlineCms, folder, CmsResourceFilter.DEFAULT);
+        CmsResource child = children.get(0);
+        dateLastModified = child.getDateLastModified();
+        child.setDateLastModified(dateLastModified + 1000);
+        children = cache.getResourcesInFolder(onlineCms, folder, CmsResourceFilter.DEFAULT);
+        assertEquals(child.getStructureId(), children.get(0).getStructureId());
+        assertEquals(dateLastModified, children.get(0).getDateLastModified());
+    }
+
+    /**
+     * Asserts that two navigation lists contain the same elements.<p>
+     * 
+     * @param expected the expected navigation
+     * @param navigation the navigation to check
+     */
+    private void assertNavigation(List<CmsJspNavElement> expected, List<CmsJspNavElement> navigation) {
+
+        assertEquals(expected.size(), navigation.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getResourceName(), navigation.get(i).getResourceName());
+            assertEquals(expected.get(i).getNavText(), navigation.get(i).getNavText());
+            assertEquals(expected.get(i).getNavPosition(), navigation.get(i).getNavPosition(), 0);
+        }
+    }
+
+    /**
+     * Returns a context for the online project.<p>
+     * 
+     * @return a context for the online project
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private CmsObject getOnlineCmsObject() throws Exception {
+
+        CmsObject onlineCms = OpenCms.initCmsObject(getCmsObject());
+        onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        return onlineCms;
+    }
+}
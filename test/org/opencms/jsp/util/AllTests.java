@@ -59,6 +59,7 @@ public final class AllTests {
         //$JUnit-BEGIN$
         suite.addTest(TestCmsJspContentAccessBean.suite());
         suite.addTest(TestCmsJspVfsAccessBean.suite());
+        suite.addTest(new TestSuite(TestCmsUserAgentCache.class));
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,184 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp.util;
+
+import org.opencms.util.CmsRequestUtil;
+
+import java.util.Random;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Micro benchmark for the device detection with and without the user agent cache.<p>
+ * 
+ * The requests use a corpus of real User-Agent headers of desktop browsers, smart phones, tablets and crawlers.
+ * The headers are picked with a skewed distribution, so that a few browsers send most of the requests 
+ * like on a typical web site. The throughput of the detection without the cache is compared with 
+ * {@link CmsJspDeviceSelector#getDeviceType(HttpServletRequest)}, and the hit rate of the cache is reported.<p>
+ * 
+ * Run this class with <code>java org.opencms.jsp.util.CmsUserAgentBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsUserAgentBenchmark {
+
+    /** The number of requests in the generated request sequence. */
+    private static final int REQUESTS = 100000;
+
+    /** The corpus of User-Agent headers. */
+    private static final String[] USER_AGENTS = {
+        "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/30.0.1599.101 Safari/537.36",
+        "Mozilla/5.0 (Windows NT 6.1; WOW64; rv:24.0) Gecko/20100101 Firefox/24.0",
+        "Mozilla/5.0 (compatible; MSIE 10.0; Windows NT 6.1; WOW64; Trident/6.0)",
+        "Mozilla/5.0 (Windows NT 6.1; WOW64; Trident/7.0; rv:11.0) like Gecko",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_8_5) AppleWebKit/536.30.1 (KHTML, like Gecko) "
+            + "Version/6.0.5 Safari/536.30.1",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 7_0_2 like Mac OS X) AppleWebKit/537.51.1 (KHTML, like Gecko) "
+            + "Version/7.0 Mobile/11A501 Safari/9537.53",
+        "Mozilla/5.0 (iPad; CPU OS 6_1_3 like Mac OS X) AppleWebKit/536.26 (KHTML, like Gecko) Version/6.0 "
+            + "Mobile/10B329 Safari/8536.25",
+        "Mozilla/5.0 (Linux; Android 4.3; Nexus 7 Build/JSS15Q) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/29.0.1547.72 Safari/537.36",
+        "Mozilla/5.0 (Linux; U; Android 4.1.2; de-de; GT-I9300 Build/JZO54K) AppleWebKit/534.30 (KHTML, like Gecko) "
+            + "Version/4.0 Mobile Safari/534.30",
+        "Mozilla/5.0 (Windows NT 6.2; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/30.0.1599.69 Safari/537.36",
+        "Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:24.0) Gecko/20100101 Firefox/24.0",
+        "Mozilla/4.0 (compatible; MSIE 8.0; Windows NT 5.1; Trident/4.0; .NET CLR 2.0.50727)",
+        "Mozilla/5.0 (compatible; MSIE 9.0; Windows Phone OS 7.5; Trident/5.0; IEMobile/9.0; NOKIA; Lumia 800)",
+        "Mozilla/5.0 (BlackBerry; U; BlackBerry 9900; en) AppleWebKit/534.11+ (KHTML, like Gecko) "
+            + "Version/7.1.0.346 Mobile Safari/534.11+",
+        "Opera/9.80 (Windows NT 6.1; WOW64) Presto/2.12.388 Version/12.16",
+        "Opera/9.80 (Android; Opera Mini/7.5.33361/31.1448; U; en) Presto/2.8.119 Version/11.1010",
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+        "Mozilla/5.0 (compatible; bingbot/2.0; +http://www.bing.com/bingbot.htm)",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 6_1_4 like Mac OS X) AppleWebKit/536.26 (KHTML, like Gecko) "
+            + "Version/6.0 Mobile/10B350 Safari/8536.25",
+        "Mozilla/5.0 (Linux; Android 4.2.2; GT-I9505 Build/JDQ39) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/30.0.1599.82 Mobile Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10.8; rv:24.0) Gecko/20100101 Firefox/24.0",
+        "Mozilla/5.0 (Linux; U; en-us; KFTT Build/IML74K) AppleWebKit/535.19 (KHTML, like Gecko) Silk/3.4 "
+            + "Safari/535.19 Silk-Accelerated=true",
+        "Mozilla/5.0 (PlayBook; U; RIM Tablet OS 2.1.0; en-US) AppleWebKit/536.2+ (KHTML like Gecko) "
+            + "Version/7.2.1.0 Safari/536.2+",
+        "Mozilla/5.0 (SymbianOS/9.4; Series60/5.0 NokiaN97-1/12.0.024; Profile/MIDP-2.1 Configuration/CLDC-1.1; "
+            + "en-us) AppleWebKit/525 (KHTML, like Gecko) BrowserNG/7.1.18124",
+        "Mozilla/5.0 (Windows NT 5.1; rv:24.0) Gecko/20100101 Firefox/24.0"};
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsUserAgentBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     */
+    public static void main(String[] args) {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+
+        // the n-th most used user agent is picked with a probability proportional to 1/n
+        double[] limits = new double[USER_AGENTS.length];
+        double sum = 0;
+        for (int i = 0; i < USER_AGENTS.length; i++) {
+            sum += 1.0 / (i + 1);
+            limits[i] = sum;
+        }
+        Random random = new Random(42);
+        final HttpServletRequest[] requests = new HttpServletRequest[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            double value = random.nextDouble() * sum;
+            int index = 0;
+            while ((index < (USER_AGENTS.length - 1)) && (limits[index] < value)) {
+                index++;
+            }
+            requests[i] = TestCmsUserAgentCache.createRequest(USER_AGENTS[index]);
+        }
+
+        System.out.println("user agents\trequests\tuncached [requests/s]\tcached [requests/s]\thit rate [%]");
+        long uncached = runLoop(requests, new CmsJspDeviceSelector() {
+
+            /**
+             * @see org.opencms.jsp.util.CmsJspDeviceSelector#getDeviceType(javax.servlet.http.HttpServletRequest)
+             */
+            @Override
+            public String getDeviceType(HttpServletRequest req) {
+
+                UAgentInfo info = new UAgentInfo(
+                    req.getHeader(CmsRequestUtil.HEADER_USER_AGENT),
+                    req.getHeader(CmsRequestUtil.HEADER_ACCEPT));
+                return info.detectMobileQuick() ? C_MOBILE : C_DESKTOP;
+            }
+        }, millis);
+        CmsJspDeviceSelector selector = new CmsJspDeviceSelector();
+        long cached = runLoop(requests, selector, millis);
+        System.out.println(USER_AGENTS.length
+            + "\t"
+            + REQUESTS
+            + "\t"
+            + uncached
+            + "\t"
+            + cached
+            + "\t"
+            + selector.getUserAgentCache().getHitRate());
+    }
+
+    /**
+     * Measures how many requests can be classified per second by the given device selector.<p>
+     * 
+     * @param requests the requests to classify
+     * @param selector the device selector
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of requests per second
+     */
+    private static long runLoop(HttpServletRequest[] requests, I_CmsJspDeviceSelector selector, long millis) {
+
+        long count = 0;
+        int sink = 0;
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        do {
+            for (HttpServletRequest request : requests) {
+                sink += selector.getDeviceType(request).length();
+            }
+            count += requests.length;
+        } while (System.currentTimeMillis() < end);
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / Math.max(1, System.currentTimeMillis() - start);
+    }
+}
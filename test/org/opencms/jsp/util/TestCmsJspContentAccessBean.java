@@ -29,11 +29,18 @@ package org.opencms.jsp.util;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsUUID;
+import org.opencms.xml.I_CmsXmlDocument;
 import org.opencms.xml.content.CmsXmlContent;
 import org.opencms.xml.content.CmsXmlContentFactory;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -72,6 +79,7 @@ public class TestCmsJspContentAccessBean extends OpenCmsTestCase {
         suite.setName(TestCmsJspContentAccessBean.class.getName());
 
         suite.addTest(new TestCmsJspContentAccessBean("testContentAccess"));
+        suite.addTest(new TestCmsJspContentAccessBean("testContentPrefetch"));
 
         TestSetup wrapper = new TestSetup(suite) {
 
@@ -176,4 +184,78 @@ public class TestCmsJspContentAccessBean extends OpenCmsTestCase {
         assertEquals(2, ((List)frValues.get("Teaser")).size());
         assertEquals("This is teaser 2 in sample article 2.", String.valueOf(((List)enValues.get("Teaser")).get(1)));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests reading the contents of a list of resources in bulk.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testContentPrefetch() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the bulk prefetch of XML contents");
+
+        List<CmsResource> resources = cms.readResources("/xmlcontent/", CmsResourceFilter.DEFAULT_FILES, false);
+        assertTrue(resources.size() > 4);
+
+        // the files must have the same contents as when read one by one
+        List<CmsFile> files = cms.readFiles(resources);
+        assertEquals(resources.size(), files.size());
+        for (int i = 0; i < resources.size(); i++) {
+            CmsResource resource = resources.get(i);
+            assertEquals(resource.getStructureId(), files.get(i).getStructureId());
+            assertTrue(Arrays.equals(cms.readFile(resource).getContents(), files.get(i).getContents()));
+        }
+
+        // the properties must be the same as when read one by one
+        Map<CmsUUID, List<CmsProperty>> properties = cms.readPropertyObjects(resources);
+        assertEquals(resources.size(), properties.size());
+        for (CmsResource resource : resources) {
+            assertEquals(
+                new HashSet<CmsProperty>(cms.readPropertyObjects(resource, false)),
+                new HashSet<CmsProperty>(properties.get(resource.getStructureId())));
+        }
+
+        // the content load bean must provide the same contents
+        CmsJspContentLoadBean loadBean = new CmsJspContentLoadBean(cms, Locale.ENGLISH, resources);
+        for (int i = 0; i < resources.size(); i++) {
+            CmsResource resource = resources.get(i);
+            if (!resource.getName().endsWith(".html")) {
+                // the schema is no XML content
+                continue;
+            }
+            CmsJspContentAccessBean bean = loadBean.getContent().get(i);
+            assertEquals(resource.getStructureId(), bean.getFile().getStructureId());
+            CmsXmlContent content = CmsXmlContentFactory.unmarshal(cms, cms.readFile(resource));
+            assertEquals(
+                content.getStringValue(cms, "Title", Locale.ENGLISH),
+                bean.getRawContent().getStringValue(cms, "Title", Locale.ENGLISH));
+        }
+
+        // unmarshal the contents in parallel, using small batches
+        CmsJspContentPrefetch.initialize(4);
+        try {
+            CmsJspContentPrefetch prefetch = new CmsJspContentPrefetch(cms, resources, 2);
+            for (CmsResource resource : resources) {
+                I_CmsXmlDocument document = prefetch.getContent(resource);
+                if (resource.getName().endsWith(".html")) {
+                    assertNotNull(document);
+                    assertEquals(resource.getStructureId(), document.getFile().getStructureId());
+                } else {
+                    // the schema is no XML content
+                    assertNull(document);
+                }
+            }
+        } finally {
+            CmsJspContentPrefetch.shutDown();
+        }
+
+        // after the threads have been stopped, the contents are unmarshalled sequentially
+        CmsJspContentPrefetch prefetch = new CmsJspContentPrefetch(cms, resources, 2);
+        for (CmsResource resource : resources) {
+            if (resource.getName().endsWith(".html")) {
+                assertNotNull(prefetch.getContent(resource));
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.jsp.util;
+
+import org.opencms.test.OpenCmsTestServletRequest;
+import org.opencms.util.CmsRequestUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the cache for the device types detected by the device selectors.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsUserAgentCache extends TestCase {
+
+    /** User agent of a desktop browser. */
+    private static final String UA_DESKTOP = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 "
+        + "(KHTML, like Gecko) Chrome/30.0.1599.101 Safari/537.36";
+
+    /** User agent of a tablet. */
+    private static final String UA_IPAD = "Mozilla/5.0 (iPad; CPU OS 6_1_3 like Mac OS X) AppleWebKit/536.26 "
+        + "(KHTML, like Gecko) Version/6.0 Mobile/10B329 Safari/8536.25";
+
+    /** User agent of a smart phone. */
+    private static final String UA_IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 7_0_2 like Mac OS X) "
+        + "AppleWebKit/537.51.1 (KHTML, like Gecko) Version/7.0 Mobile/11A501 Safari/9537.53";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsUserAgentCache(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a request with the given User-Agent header.<p>
+     * 
+     * @param userAgent the User-Agent header
+     * 
+     * @return the request
+     */
+    static OpenCmsTestServletRequest createRequest(final String userAgent) {
+
+        return new OpenCmsTestServletRequest() {
+
+            /**
+             * @see org.opencms.test.OpenCmsTestServletRequest#getHeader(java.lang.String)
+             */
+            @Override
+            public String getHeader(String name) {
+
+                if (CmsRequestUtil.HEADER_USER_AGENT.equals(name)) {
+                    return userAgent;
+                }
+                return CmsRequestUtil.HEADER_ACCEPT.equals(name) ? "text/html,*/*" : null;
+            }
+        };
+    }
+
+    /**
+     * Tests the lookups, the statistics and the size limit of the cache.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCache() throws Exception {
+
+        CmsUserAgentCache cache = new CmsUserAgentCache(2);
+        assertNull(cache.get(UA_DESKTOP, null));
+        cache.put(UA_DESKTOP, null, CmsJspDeviceSelector.C_DESKTOP);
+        assertEquals(CmsJspDeviceSelector.C_DESKTOP, cache.get(UA_DESKTOP, null));
+        // the headers are normalized
+        assertEquals(CmsJspDeviceSelector.C_DESKTOP, cache.get(" " + UA_DESKTOP.toUpperCase(), null));
+        assertNull(cache.get(UA_DESKTOP, "text/html"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(50, cache.getHitRate());
+
+        // the cache is cleared if it is full
+        cache.put(UA_IPHONE, null, CmsJspDeviceSelector.C_MOBILE);
+        assertEquals(2, cache.getSize());
+        cache.put(UA_IPAD, null, CmsJspDeviceSelector.C_DESKTOP);
+        assertEquals(1, cache.getSize());
+        assertEquals(CmsJspDeviceSelector.C_DESKTOP, cache.get(UA_IPAD, null));
+
+        // very long headers are not cached
+        StringBuffer userAgent = new StringBuffer(UA_IPHONE);
+        while (userAgent.length() <= CmsUserAgentCache.MAX_HEADER_LENGTH) {
+            userAgent.append(" x");
+        }
+        cache.put(userAgent.toString(), null, CmsJspDeviceSelector.C_MOBILE);
+        assertNull(cache.get(userAgent.toString(), null));
+        assertEquals(1, cache.getSize());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getHitRate());
+    }
+
+    /**
+     * Tests that the device selectors detect the same device types with the cache.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testDeviceSelectors() throws Exception {
+
+        CmsJspDeviceSelector selector = new CmsJspDeviceSelector();
+        CmsJspDeviceSelectorTablet tabletSelector = new CmsJspDeviceSelectorTablet();
+        for (int i = 0; i < 2; i++) {
+            assertEquals(CmsJspDeviceSelector.C_DESKTOP, selector.getDeviceType(createRequest(UA_DESKTOP)));
+            assertEquals(CmsJspDeviceSelector.C_MOBILE, selector.getDeviceType(createRequest(UA_IPHONE)));
+            assertEquals(CmsJspDeviceSelector.C_DESKTOP, selector.getDeviceType(createRequest(UA_IPAD)));
+            assertEquals(CmsJspDeviceSelector.C_DESKTOP, selector.getDeviceType(createRequest(null)));
+            assertEquals(CmsJspDeviceSelector.C_MOBILE, tabletSelector.getDeviceType(createRequest(UA_IPAD)));
+        }
+        assertEquals(4, selector.getUserAgentCache().getSize());
+        assertEquals(4, selector.getUserAgentCache().getHits());
+        assertEquals(1, tabletSelector.getUserAgentCache().getHits());
+    }
+}
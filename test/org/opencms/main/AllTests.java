@@ -64,7 +64,10 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestCmsShell.class));
         suite.addTest(TestOpenCmsSingleton.suite());
         suite.addTest(TestCmsEvents.suite());
+        suite.addTestSuite(TestCmsEventManager.class);
         suite.addTest(TestCmsSystemInfo.suite());
+        suite.addTest(new TestSuite(TestCmsStartupOrchestrator.class));
+        suite.addTest(TestCmsParallelStartup.suite());
         // $JUnit-END$
         return suite;
     }
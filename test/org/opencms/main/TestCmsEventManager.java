@@ -0,0 +1,306 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.main;
+
+import org.opencms.file.CmsResource;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the asynchronous event dispatch of the {@link CmsEventManager}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsEventManager extends TestCase {
+
+    /**
+     * Asynchronous event listener which records the events and the threads, and may be blocked.<p>
+     */
+    private static class CmsAsyncTestListener implements I_CmsAsyncEventListener {
+
+        /** The latch to wait for before processing an event, <code>null</code> if not blocked. */
+        private volatile CountDownLatch m_block;
+
+        /** The received events. */
+        private final List<CmsEvent> m_events = Collections.synchronizedList(new ArrayList<CmsEvent>());
+
+        /** The latch counted down for every processed event. */
+        private volatile CountDownLatch m_processed;
+
+        /** The threads which delivered the events. */
+        private final List<Thread> m_threads = Collections.synchronizedList(new ArrayList<Thread>());
+
+        /**
+         * Creates a new listener.<p>
+         * 
+         * @param block the latch to wait for before processing an event, <code>null</code> if not blocked
+         * @param expected the number of expected events
+         */
+        protected CmsAsyncTestListener(CountDownLatch block, int expected) {
+
+            m_block = block;
+            m_processed = new CountDownLatch(expected);
+        }
+
+        /**
+         * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+         */
+        public void cmsEvent(CmsEvent event) {
+
+            if (m_block != null) {
+                try {
+                    m_block.await();
+                } catch (InterruptedException e) {
+                    // continue
+                }
+            }
+            m_events.add(event);
+            m_threads.add(Thread.currentThread());
+            m_processed.countDown();
+        }
+
+        /**
+         * Waits until the expected number of events has been processed.<p>
+         * 
+         * @throws InterruptedException if interrupted
+         */
+        protected void await() throws InterruptedException {
+
+            assertTrue(m_processed.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsEventManager(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that asynchronous listeners are called in a background thread in the order of the events.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAsyncDispatch() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        manager.setAsyncDispatch(2, 100);
+        CmsAsyncTestListener async = new CmsAsyncTestListener(null, 50);
+        CmsTestEventListener sync = new CmsTestEventListener();
+        manager.addCmsEventListener(async);
+        manager.addCmsEventListener(sync);
+        for (int i = 0; i < 50; i++) {
+            manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED, Collections.<String, Object> singletonMap(
+                "index",
+                Integer.valueOf(i)));
+            // the synchronous listener has already got the event
+            assertEquals(i + 1, sync.getEvents().size());
+        }
+        async.await();
+        assertEquals(50, async.m_events.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.valueOf(i), async.m_events.get(i).getData().get("index"));
+            assertNotSame(Thread.currentThread(), async.m_threads.get(i));
+        }
+
+        boolean asyncMetrics = false;
+        boolean syncMetrics = false;
+        for (CmsEventListenerMetrics metrics : manager.getListenerMetrics()) {
+            assertEquals(50, metrics.getEventCount());
+            asyncMetrics |= metrics.isAsync();
+            syncMetrics |= !metrics.isAsync();
+        }
+        assertTrue(asyncMetrics);
+        assertTrue(syncMetrics);
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that the firing thread waits if the queue of an asynchronous listener is full.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testBackPressure() throws Exception {
+
+        final CmsEventManager manager = new CmsEventManager();
+        manager.setAsyncDispatch(1, 2);
+        CountDownLatch block = new CountDownLatch(1);
+        CmsAsyncTestListener async = new CmsAsyncTestListener(block, 4);
+        manager.addCmsEventListener(async);
+
+        // the first event is processed (and blocked), the next two are queued
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+
+        final CountDownLatch fired = new CountDownLatch(1);
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+                fired.countDown();
+            }
+        };
+        thread.start();
+        // the firing thread must wait, since the queue is full
+        assertFalse(fired.await(500, TimeUnit.MILLISECONDS));
+        block.countDown();
+        assertTrue(fired.await(10, TimeUnit.SECONDS));
+        async.await();
+        assertEquals(4, async.m_events.size());
+        assertEquals(0, manager.getListenerMetrics().get(0).getOverflowCount());
+        manager.shutDown();
+    }
+
+    /**
+     * Tests that repeated modification events for the same resource are merged while they are queued.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCoalescing() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        manager.setAsyncDispatch(1, 100);
+        CountDownLatch block = new CountDownLatch(1);
+        CmsAsyncTestListener async = new CmsAsyncTestListener(block, 4);
+        manager.addCmsEventListener(async);
+
+        CmsResource resource = createResource("/sites/default/index.html", "11111111-1111-1111-1111-111111111111");
+        CmsResource other = createResource("/sites/default/other.html", "22222222-2222-2222-2222-222222222222");
+        // the first event is processed (and blocked)
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        fireModified(manager, resource, 1);
+        fireModified(manager, other, 1);
+        fireModified(manager, resource, 2);
+        fireModified(manager, resource, 4);
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        block.countDown();
+        async.await();
+        manager.shutDown();
+
+        assertEquals(4, async.m_events.size());
+        CmsEvent merged = async.m_events.get(1);
+        assertEquals(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, merged.getType());
+        assertSame(resource, merged.getData().get(I_CmsEventListener.KEY_RESOURCE));
+        assertEquals(Integer.valueOf(1 | 2 | 4), merged.getData().get(I_CmsEventListener.KEY_CHANGE));
+        assertSame(other, async.m_events.get(2).getData().get(I_CmsEventListener.KEY_RESOURCE));
+        assertEquals(I_CmsEventListener.EVENT_PROJECT_MODIFIED, async.m_events.get(3).getType());
+        assertEquals(2, manager.getListenerMetrics().get(0).getCoalescedCount());
+    }
+
+    /**
+     * Tests that asynchronous listeners are called synchronously if asynchronous dispatch is disabled,
+     * and after the event manager has been shut down.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSyncDispatch() throws Exception {
+
+        CmsEventManager manager = new CmsEventManager();
+        CmsAsyncTestListener async = new CmsAsyncTestListener(null, 1);
+        manager.addCmsEventListener(async);
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        assertEquals(1, async.m_events.size());
+        assertSame(Thread.currentThread(), async.m_threads.get(0));
+        assertFalse(manager.getListenerMetrics().get(0).isAsync());
+
+        manager = new CmsEventManager();
+        manager.setAsyncDispatch(1, 10);
+        async = new CmsAsyncTestListener(null, 1);
+        manager.addCmsEventListener(async);
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        async.await();
+        manager.shutDown();
+        assertFalse(manager.isAsyncDispatch());
+        manager.fireEvent(I_CmsEventListener.EVENT_PROJECT_MODIFIED);
+        assertEquals(2, async.m_events.size());
+        assertSame(Thread.currentThread(), async.m_threads.get(1));
+    }
+
+    /**
+     * Creates a resource for the events.<p>
+     * 
+     * @param rootPath the root path
+     * @param id the structure id
+     * 
+     * @return the resource
+     */
+    private CmsResource createResource(String rootPath, String id) {
+
+        return new CmsResource(
+            new CmsUUID(id),
+            new CmsUUID(id),
+            rootPath,
+            1,
+            false,
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.STATE_CHANGED,
+            0,
+            CmsUUID.getNullUUID(),
+            0,
+            CmsUUID.getNullUUID(),
+            CmsResource.DATE_RELEASED_DEFAULT,
+            CmsResource.DATE_EXPIRED_DEFAULT,
+            1,
+            0,
+            0,
+            0);
+    }
+
+    /**
+     * Fires a resource modified event.<p>
+     * 
+     * @param manager the event manager
+     * @param resource the modified resource
+     * @param change the change flags
+     */
+    private void fireModified(CmsEventManager manager, CmsResource resource, int change) {
+
+        Map<String, Object> data = new HashMap<String, Object>();
+        data.put(I_CmsEventListener.KEY_RESOURCE, resource);
+        data.put(I_CmsEventListener.KEY_CHANGE, Integer.valueOf(change));
+        manager.fireEvent(I_CmsEventListener.EVENT_RESOURCE_MODIFIED, data);
+    }
+}
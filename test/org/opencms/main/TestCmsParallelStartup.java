@@ -0,0 +1,144 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.configuration.CmsParameterConfiguration;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.test.OpenCmsTestCase;
+import org.opencms.test.OpenCmsTestProperties;
+import org.opencms.util.CmsFileUtil;
+
+import java.io.File;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * Tests the startup of OpenCms with the managers initialized concurrently and in the background.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestCmsParallelStartup extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsParallelStartup(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Test suite for this test class.<p>
+     *
+     * @return the test suite
+     */
+    public static Test suite() {
+
+        OpenCmsTestProperties.initialize(org.opencms.test.AllTests.TEST_PROPERTIES_PATH);
+
+        TestSuite suite = new TestSuite();
+        suite.setName(TestCmsParallelStartup.class.getName());
+
+        suite.addTest(new TestCmsParallelStartup("testManagersInitialized"));
+        suite.addTest(new TestCmsParallelStartup("testPublish"));
+
+        TestSetup wrapper = new TestSetup(suite) {
+
+            private File m_configFolder;
+
+            @Override
+            protected void setUp() throws Exception {
+
+                m_configFolder = createConfigurationFolder("startup.threads=4\nstartup.background=search, ade");
+                setupOpenCms(
+                    "simpletest",
+                    "/",
+                    getTestDataPath("WEB-INF/config." + getDbProduct() + "/"),
+                    m_configFolder.getAbsolutePath() + File.separator,
+                    true);
+            }
+
+            @Override
+            protected void tearDown() {
+
+                removeOpenCms();
+                CmsFileUtil.purgeDirectory(m_configFolder);
+            }
+        };
+
+        return wrapper;
+    }
+
+    /**
+     * Tests that all managers are available, including the managers initialized in the background.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testManagersInitialized() throws Exception {
+
+        echo("Testing the managers after a parallel startup");
+        CmsParameterConfiguration configuration = new CmsParameterConfiguration(
+            OpenCms.getSystemInfo().getConfigurationFileRfsPath());
+        assertEquals(4, configuration.getInteger("startup.threads", 1));
+        assertNotNull(OpenCms.getSearchManager());
+        assertFalse(OpenCms.getSearchManager().getIndexNames().isEmpty());
+        assertNotNull(OpenCms.getADEManager());
+        assertTrue(OpenCms.getADEManager().isInitialized());
+        assertNotNull(OpenCms.getWorkplaceManager().getExplorerTypeSettings());
+        assertNotNull(OpenCms.getSubscriptionManager());
+        assertNotNull(OpenCms.getWorkflowManager());
+    }
+
+    /**
+     * Tests that resources can be changed and published after a parallel startup.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testPublish() throws Exception {
+
+        echo("Testing publishing after a parallel startup");
+        CmsObject cms = getCmsObject();
+        String resource = "/index.html";
+        cms.lockResource(resource);
+        cms.writePropertyObject(resource, new CmsProperty(CmsPropertyDefinition.PROPERTY_TITLE, "parallel", null));
+        cms.unlockResource(resource);
+        OpenCms.getPublishManager().publishResource(cms, resource);
+        OpenCms.getPublishManager().waitWhileRunning();
+
+        cms.getRequestContext().setCurrentProject(cms.readProject(CmsProject.ONLINE_PROJECT_ID));
+        assertEquals("parallel", cms.readPropertyObject(resource, CmsPropertyDefinition.PROPERTY_TITLE, false)
+            .getValue());
+    }
+}
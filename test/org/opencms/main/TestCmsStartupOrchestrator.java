@@ -0,0 +1,194 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.main;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test case for {@link CmsStartupOrchestrator}.<p>
+ *
+ * @since 8.5.2
+ */
+public class TestCmsStartupOrchestrator extends OpenCmsTestCase {
+
+    /**
+     * Step which records its name when it is run.<p>
+     */
+    private static class RecordingStep implements Callable<Void> {
+
+        /** The name of the step. */
+        private String m_name;
+
+        /** The list to record the name in. */
+        private List<String> m_order;
+
+        /**
+         * Creates a new recording step.<p>
+         *
+         * @param order the list to record the name in
+         * @param name the name of the step
+         */
+        RecordingStep(List<String> order, String name) {
+
+            m_order = order;
+            m_name = name;
+        }
+
+        /**
+         * @see java.util.concurrent.Callable#call()
+         */
+        public Void call() throws Exception {
+
+            Thread.sleep(5);
+            m_order.add(m_name);
+            return null;
+        }
+    }
+
+    /**
+     * Default JUnit constructor.<p>
+     *
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsStartupOrchestrator(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that background steps run after the other steps and can be waited for.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testBackgroundSteps() throws Exception {
+
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch release = new CountDownLatch(1);
+        CmsStartupOrchestrator orchestrator = new CmsStartupOrchestrator(2);
+        orchestrator.addStep("a", null, new RecordingStep(order, "a"));
+        orchestrator.addBackgroundStep("b", new String[] {"a"}, new Callable<Void>() {
+
+            public Void call() throws Exception {
+
+                release.await(10, TimeUnit.SECONDS);
+                order.add("b");
+                return null;
+            }
+        });
+        orchestrator.run();
+        assertEquals(Collections.singletonList("a"), order);
+        assertFalse(orchestrator.isFinished("b"));
+        orchestrator.startBackgroundSteps();
+        release.countDown();
+        assertTrue(orchestrator.waitFor("b"));
+        assertTrue(orchestrator.isFinished("b"));
+        assertEquals(2, order.size());
+        assertEquals("b", order.get(1));
+    }
+
+    /**
+     * Tests that steps are started only after their dependencies have finished.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testDependencies() throws Exception {
+
+        for (int threads = 1; threads <= 4; threads++) {
+            List<String> order = Collections.synchronizedList(new ArrayList<String>());
+            CmsStartupOrchestrator orchestrator = new CmsStartupOrchestrator(threads);
+            orchestrator.addStep("a", null, new RecordingStep(order, "a"));
+            orchestrator.addStep("b", null, new RecordingStep(order, "b"));
+            orchestrator.addStep("c", new String[] {"a", "b"}, new RecordingStep(order, "c"));
+            orchestrator.addStep("d", new String[] {"c"}, new RecordingStep(order, "d"));
+            orchestrator.addStep("e", new String[] {"a"}, new RecordingStep(order, "e"));
+            orchestrator.run();
+            assertEquals(5, order.size());
+            assertTrue(order.indexOf("c") > order.indexOf("a"));
+            assertTrue(order.indexOf("c") > order.indexOf("b"));
+            assertTrue(order.indexOf("d") > order.indexOf("c"));
+            assertTrue(order.indexOf("e") > order.indexOf("a"));
+            assertTrue(orchestrator.isFinished());
+        }
+    }
+
+    /**
+     * Tests that the error of a failed step is thrown and the dependent steps are not run.<p>
+     *
+     * @throws Exception if the test fails
+     */
+    public void testFailedStep() throws Exception {
+
+        for (int threads = 1; threads <= 2; threads++) {
+            List<String> order = Collections.synchronizedList(new ArrayList<String>());
+            CmsStartupOrchestrator orchestrator = new CmsStartupOrchestrator(threads);
+            orchestrator.addStep("a", null, new Callable<Void>() {
+
+                public Void call() throws CmsException {
+
+                    throw new CmsException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0));
+                }
+            });
+            orchestrator.addStep("b", new String[] {"a"}, new RecordingStep(order, "b"));
+            try {
+                orchestrator.run();
+                fail("the error of the failed step was not thrown");
+            } catch (CmsException e) {
+                assertEquals(Messages.ERR_CRITICAL_INIT_MANAGERS_0, e.getMessageContainer().getKey());
+            }
+            assertTrue(order.isEmpty());
+        }
+    }
+
+    /**
+     * Tests that unknown dependencies are rejected.<p>
+     */
+    public void testUnknownDependency() {
+
+        CmsStartupOrchestrator orchestrator = new CmsStartupOrchestrator(1);
+        orchestrator.addBackgroundStep("a", null, new RecordingStep(new ArrayList<String>(), "a"));
+        try {
+            orchestrator.addStep("b", new String[] {"c"}, new RecordingStep(new ArrayList<String>(), "b"));
+            fail("unknown dependency was accepted");
+        } catch (CmsIllegalArgumentException e) {
+            // expected
+        }
+        try {
+            orchestrator.addStep("b", new String[] {"a"}, new RecordingStep(new ArrayList<String>(), "b"));
+            fail("dependency on a background step was accepted");
+        } catch (CmsIllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.monitor;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the size bookkeeping of the {@link CmsWeightedLruMap}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsWeightedLruMap extends TestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsWeightedLruMap(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the map is bounded by the total size of its entries.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testMaxWeight() throws Exception {
+
+        CmsWeightedLruMap map = createMap(10, 10);
+        map.put("a", "aaaa");
+        map.put("b", "bbbb");
+        map.get("a");
+        map.put("c", "cccc");
+        // "b" is the least recently used entry
+        assertEquals(2, map.size());
+        assertFalse(map.containsKey("b"));
+        assertEquals(8, map.getWeight());
+
+        // a single entry larger than the limit is kept
+        map.put("d", "dddddddddddd");
+        assertEquals(1, map.size());
+        assertEquals(12, map.getWeight());
+
+        map.setMaxWeight(0);
+        map.put("e", "eeee");
+        assertEquals(2, map.size());
+        assertEquals(16, map.getWeight());
+        map.setMaxWeight(5);
+        assertEquals(1, map.size());
+        assertTrue(map.containsKey("e"));
+        assertEquals(4, map.getWeight());
+    }
+
+    /**
+     * Tests that the total size and the histogram follow puts, replacements, removals and evictions.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testWeight() throws Exception {
+
+        CmsWeightedLruMap map = createMap(3, 0);
+        assertEquals(0, map.getWeight());
+        map.put("a", "a");
+        map.put("b", "bbb");
+        map.put("c", "cccccccc");
+        assertEquals(12, map.getWeight());
+        long[] histogram = map.getHistogram();
+        assertEquals(CmsWeightedLruMap.HISTOGRAM_BUCKETS, histogram.length);
+        assertEquals(1, histogram[0]);
+        assertEquals(1, histogram[1]);
+        assertEquals(1, histogram[3]);
+
+        // replace a value
+        map.put("b", "bbbbb");
+        assertEquals(14, map.getWeight());
+        histogram = map.getHistogram();
+        assertEquals(0, histogram[1]);
+        assertEquals(1, histogram[2]);
+
+        // evict the least recently used entry "a"
+        map.put("d", "dd");
+        assertEquals(3, map.size());
+        assertEquals(15, map.getWeight());
+        assertEquals(0, map.getHistogram()[0]);
+
+        map.remove("c");
+        assertEquals(7, map.getWeight());
+        assertEquals(0, map.getHistogram()[3]);
+
+        CmsWeightedLruMap clone = (CmsWeightedLruMap)map.clone();
+        assertEquals(7, clone.getWeight());
+        clone.clear();
+        assertEquals(0, clone.getWeight());
+        assertEquals(7, map.getWeight());
+
+        // the default size estimation counts the key and the value
+        CmsWeightedLruMap defaultMap = new CmsWeightedLruMap(10);
+        defaultMap.put("key", "value");
+        assertEquals(CmsMemoryMonitor.getEntrySize("key", "value"), defaultMap.getWeight());
+        assertTrue(defaultMap.getWeight() > 0);
+    }
+
+    /**
+     * Creates a map that uses the length of the String values as entry size.<p>
+     * 
+     * @param maxSize the maximum number of entries
+     * @param maxWeight the maximum total size
+     * 
+     * @return the map
+     */
+    private CmsWeightedLruMap createMap(int maxSize, long maxWeight) {
+
+        return new CmsWeightedLruMap(maxSize, maxWeight) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected long getEntryWeight(Object key, Object value) {
+
+                return ((String)value).length();
+            }
+        };
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.publish;
+
+import org.opencms.report.CmsRingBufferReport;
+import org.opencms.report.I_CmsReport;
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.Locale;
+
+/** 
+ * Tests the reports used while publishing, this does not require a running OpenCms instance.<p>
+ */
+public class TestPublishReport extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestPublishReport(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests that the publish report is written compressed and can be read back.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCompressedContents() throws Exception {
+
+        CmsRingBufferReport htmlReport = new CmsRingBufferReport(Locale.ENGLISH, null, 10);
+        CmsPublishReport report = (CmsPublishReport)CmsPublishReport.decorate(htmlReport);
+        for (int i = 0; i < 1000; i++) {
+            report.println(org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                "/sites/default/resource" + i + ".html"), I_CmsReport.FORMAT_OK);
+        }
+        report.finish();
+
+        byte[] compressed = report.getCompressedContents();
+        byte[] contents = CmsPublishReport.uncompress(compressed);
+        String text = new String(contents);
+        assertTrue(compressed.length < contents.length);
+        assertTrue(text.indexOf("/sites/default/resource0.html") > -1);
+        assertTrue(text.indexOf("/sites/default/resource999.html") > -1);
+        assertEquals(text, new String(report.getContents()));
+
+        // uncompressed contents as written by older versions are returned unchanged
+        assertSame(contents, CmsPublishReport.uncompress(contents));
+        report.dispose();
+    }
+
+    /**
+     * Tests that the ring buffer report only keeps the latest entries and serves updates by offset.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testRingBufferReport() throws Exception {
+
+        CmsRingBufferReport report = new CmsRingBufferReport(Locale.ENGLISH, null, 5);
+        assertEquals(5, report.getCapacity());
+        assertEquals("", report.getReportUpdate());
+
+        report.println(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0));
+        // one entry for the text, one for the line break
+        assertEquals(2, report.getOffset());
+        String update = report.getReportUpdate();
+        assertTrue(update.startsWith("a('"));
+        assertEquals("", report.getReportUpdate());
+
+        for (int i = 0; i < 10; i++) {
+            report.print(org.opencms.report.Messages.get().container(
+                org.opencms.report.Messages.RPT_ARGUMENT_1,
+                "entry" + i));
+        }
+        assertEquals(12, report.getOffset());
+        // only the last 5 entries are still available
+        update = report.getReportUpdate();
+        assertTrue(update.indexOf("entry4") == -1);
+        assertTrue(update.indexOf("entry5") > -1);
+        assertTrue(update.indexOf("entry9") > -1);
+
+        // a viewer with its own offset only gets the new entries
+        StringBuffer buffer = new StringBuffer();
+        long offset = report.appendReportUpdate(10, buffer);
+        assertEquals(12, offset);
+        assertTrue(buffer.indexOf("entry7") == -1);
+        assertTrue(buffer.indexOf("entry8") > -1);
+        assertTrue(buffer.indexOf("entry9") > -1);
+
+        // exceptions are formatted when they are added
+        report.println(new RuntimeException("test exception"));
+        assertTrue(report.hasError());
+        assertTrue(report.getReportUpdate().indexOf("test exception") > -1);
+    }
+}
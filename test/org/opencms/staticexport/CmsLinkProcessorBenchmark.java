@@ -0,0 +1,147 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+/**
+ * Micro benchmark for rendering HTML values with link macros, comparing the HTML parser
+ * with the compiled form created by {@link CmsLinkProcessor#compileLinks(String)}.<p>
+ * 
+ * The rich text used is created by {@link TestCmsLinkProcessor#createHtml(int, CmsLinkTable)}, with three 
+ * links per paragraph. The links are resolved without an OpenCms context, so only the costs of 
+ * processing the HTML are measured, not the costs of the link substitution.<p>
+ * 
+ * Run this class with <code>java org.opencms.staticexport.CmsLinkProcessorBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsLinkProcessorBenchmark {
+
+    /** The paragraph counts of the measured HTML values. */
+    private static final int[] PARAGRAPH_COUNTS = {1, 5, 20, 100};
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsLinkProcessorBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        System.out.println("paragraphs\tchars\tparser [values/s]\tcompile [values/s]\tcompiled [values/s]");
+        for (int paragraphs : PARAGRAPH_COUNTS) {
+            final CmsLinkTable linkTable = new CmsLinkTable();
+            final String html = TestCmsLinkProcessor.createHtml(paragraphs, linkTable);
+            final CmsCompiledHtml compiled = new CmsLinkProcessor(null, linkTable, "UTF-8", null).compileLinks(html);
+            if (!compiled.isCompiled()
+                || !compiled.resolve(null, linkTable).equals(
+                    new CmsLinkProcessor(null, linkTable, "UTF-8", null).processLinks(html))) {
+                throw new IllegalStateException("Compiled HTML differs from the parser result");
+            }
+            long parser = run(new Operation() {
+
+                public int run() throws Exception {
+
+                    return new CmsLinkProcessor(null, linkTable, "UTF-8", null).processLinks(html).length();
+                }
+            }, millis);
+            long compile = run(new Operation() {
+
+                public int run() throws Exception {
+
+                    return new CmsLinkProcessor(null, linkTable, "UTF-8", null).compileLinks(html).getSlotCount();
+                }
+            }, millis);
+            long resolve = run(new Operation() {
+
+                public int run() {
+
+                    return compiled.resolve(null, linkTable).length();
+                }
+            }, millis);
+            System.out.println(paragraphs + "\t" + html.length() + "\t" + parser + "\t" + compile + "\t" + resolve);
+        }
+    }
+
+    /**
+     * Measures the single threaded throughput of the given operation.<p>
+     * 
+     * @param operation the operation to measure
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of operations per second
+     * 
+     * @throws Exception if the operation fails
+     */
+    private static long run(Operation operation, long millis) throws Exception {
+
+        // warm up
+        long end = System.currentTimeMillis() + (millis / 4);
+        while (System.currentTimeMillis() < end) {
+            operation.run();
+        }
+        long count = 0;
+        int sink = 0;
+        end = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < end) {
+            sink += operation.run();
+            count++;
+        }
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / millis;
+    }
+
+    /**
+     * An operation rendering one HTML value.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Runs the operation.<p>
+         * 
+         * @return a value depending on the result, to prevent the JIT from removing the operation
+         * 
+         * @throws Exception if the operation fails
+         */
+        int run() throws Exception;
+    }
+}
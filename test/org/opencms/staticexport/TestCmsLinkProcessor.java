@@ -0,0 +1,177 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.staticexport;
+
+import org.opencms.relations.CmsLink;
+import org.opencms.relations.CmsRelationType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the compiled form of HTML values created by the {@link CmsLinkProcessor}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsLinkProcessor extends TestCase {
+
+    /** The encoding used for the tests. */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsLinkProcessor(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Creates a rich text HTML value with link macros, and adds the links to the given link table.<p>
+     * 
+     * @param paragraphs the number of paragraphs to create
+     * @param linkTable the link table to add the links to
+     * 
+     * @return the HTML with link macros
+     */
+    static String createHtml(int paragraphs, CmsLinkTable linkTable) {
+
+        StringBuffer html = new StringBuffer(paragraphs * 512);
+        html.append("<h1 class=\"headline\">A headline with &auml;&ouml;&uuml; entities</h1>\n");
+        for (int i = 0; i < paragraphs; i++) {
+            CmsLink link = linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/page" + i + ".html", true);
+            CmsLink image = linkTable.addLink(CmsRelationType.valueOf("IMG"), "/sites/default/img" + i + ".png", true);
+            CmsLink external = linkTable.addLink(
+                CmsRelationType.HYPERLINK,
+                "http://www.example.org/search?q=" + i + "&lang=en",
+                false);
+            html.append("<p style=\"margin: 0 0 10px 0;\">Lorem ipsum dolor sit amet, <strong>consectetur</strong> ");
+            html.append("adipisicing elit, sed do <a href=\"%(").append(link.getName());
+            html.append(")\" target=\"_blank\">");
+            html.append("eiusmod tempor</a> incididunt ut labore et dolore magna aliqua.<br />\n");
+            html.append("<img src=\"%(").append(image.getName()).append(")\" alt=\"Image ").append(i);
+            html.append("\" width=\"200\" height=\"100\" /> Ut enim ad minim veniam, quis nostrud ");
+            html.append("<a href='%(").append(external.getName()).append(")'>exercitation</a> ullamco ");
+            html.append("<a href=\"#anchor").append(i).append("\">laboris</a> nisi ut aliquip ex ea commodo.</p>\n");
+            if ((i % 5) == 0) {
+                html.append("<table border=\"1\"><tr><td>Cell</td><td><a href=%(").append(link.getName());
+                html.append(")>unquoted</a></td></tr></table>\n");
+            }
+        }
+        return html.toString();
+    }
+
+    /**
+     * Tests that the compiled form renders the same HTML as the HTML parser.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCompiledLinks() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        String html = createHtml(20, linkTable);
+        assertCompiled(html, linkTable, 20 * 3 + 4);
+
+        // object tags with parameters, embed and area tags
+        linkTable = new CmsLinkTable();
+        CmsLink flash = linkTable.addLink(CmsRelationType.valueOf("OBJECT"), "/sites/default/movie.swf", true);
+        CmsLink param = linkTable.addLink(CmsRelationType.valueOf("OBJECT"), "/sites/default/movie.swf?a=b", true);
+        CmsLink area = linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/area.html", true);
+        html = "<object data=\"%("
+            + flash.getName()
+            + ")\"><param name=\"movie\" value=\"%("
+            + param.getName()
+            + ")\" /></object><embed src=\"%("
+            + flash.getName()
+            + ")\"></embed><map><area href=\"%("
+            + area.getName()
+            + ")\" /></map>";
+        assertCompiled(html, linkTable, 4);
+
+        // macros without link table entry are left unchanged
+        html = "<p><a href=\"%(link99)\">missing</a> <a href=\"http://www.opencms.org/\">external</a></p>";
+        assertCompiled(html, linkTable, 1);
+
+        // no links at all
+        assertCompiled("<p>Only text</p>", linkTable, 0);
+    }
+
+    /**
+     * Tests that HTML containing the slot marker is not compiled.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCompiledLinksNotCompilable() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        CmsLink link = linkTable.addLink(CmsRelationType.HYPERLINK, "/sites/default/index.html", true);
+        String html = "<p><a href=\"%(" + link.getName() + ")\">link</a> " + CmsCompiledHtml.SLOT_MARKER + "</p>";
+        CmsCompiledHtml compiled = new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(html);
+        assertFalse(compiled.isCompiled());
+        assertNull(compiled.resolve(null, linkTable));
+    }
+
+    /**
+     * Tests links with whitespace, which change the quoting of the attribute in the HTML parser.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testCompiledLinksWithWhitespace() throws Exception {
+
+        CmsLinkTable linkTable = new CmsLinkTable();
+        CmsLink link = linkTable.addLink(CmsRelationType.HYPERLINK, "http://www.example.org/a b.html", false);
+        String html = "<p><a href=\"%(" + link.getName() + ")\">link</a></p>";
+        assertCompiled(html, linkTable, 1);
+
+        // the HTML parser changes the quotes, so the compiled form can not be used
+        html = "<p><a href='%(" + link.getName() + ")'>link</a></p>";
+        CmsCompiledHtml compiled = new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(html);
+        assertTrue(compiled.isCompiled());
+        assertNull(compiled.resolve(null, linkTable));
+    }
+
+    /**
+     * Asserts that the compiled form of the given HTML renders the same result as the HTML parser.<p>
+     * 
+     * @param html the HTML with link macros
+     * @param linkTable the link table
+     * @param slots the expected number of link slots
+     * 
+     * @throws Exception if something goes wrong
+     */
+    private void assertCompiled(String html, CmsLinkTable linkTable, int slots) throws Exception {
+
+        String expected = new CmsLinkProcessor(null, linkTable, ENCODING, null).processLinks(html);
+        CmsCompiledHtml compiled = new CmsLinkProcessor(null, linkTable, ENCODING, null).compileLinks(html);
+        assertTrue(compiled.isCompiled());
+        assertEquals(slots, compiled.getSlotCount());
+        assertEquals(expected, compiled.resolve(null, linkTable));
+    }
+}
@@ -69,7 +69,9 @@ import org.opencms.util.CmsUUID;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -266,6 +268,37 @@ public class OpenCmsTestCase extends TestCase {
         }
     }
 
+    /**
+     * Creates a temporary configuration folder for the special configuration of a test,
+     * containing the database configuration of the tests extended with the given properties.<p>
+     * 
+     * The folder can be used as special configuration folder with 
+     * {@link #setupOpenCms(String, String, String, String, boolean)}.<p>
+     * 
+     * @param additionalProperties the properties to append to the <code>opencms.properties</code>
+     * 
+     * @return the configuration folder
+     * 
+     * @throws IOException if something goes wrong
+     */
+    public static File createConfigurationFolder(String additionalProperties) throws IOException {
+
+        File folder = File.createTempFile("opencms-config", "");
+        folder.delete();
+        folder.mkdirs();
+        byte[] properties = CmsFileUtil.readFile(new File(getTestDataPath("WEB-INF/config."
+            + getDbProduct()
+            + "/opencms.properties")));
+        OutputStream out = new FileOutputStream(new File(folder, "opencms.properties"));
+        try {
+            out.write(properties);
+            out.write(("\n" + additionalProperties + "\n").getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+        return folder;
+    }
+
     /**
      * Generates a sub tree of folders with files.<p>
      * 
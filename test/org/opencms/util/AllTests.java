@@ -72,6 +72,7 @@ public final class AllTests {
         suite.addTest(new TestSuite(TestCmsStringUtil.class));
         suite.addTest(new TestSuite(TestCmsUriSplitter.class));
         suite.addTest(new TestSuite(TestCmsUUID.class));
+        suite.addTest(new TestSuite(TestCmsUUIDSet.class));
         suite.addTest(new TestSuite(TestCmsXmlSaxWriter.class));
         suite.addTest(new TestSuite(TestValidFilename.class));
         //$JUnit-END$
@@ -0,0 +1,192 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.util;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsUser;
+import org.opencms.security.I_CmsPrincipal;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Locale;
+
+/**
+ * Micro benchmark for the resolution of macros with and without compiled templates.<p>
+ * 
+ * The templates are typical property values, XML content default values, formatter settings, 
+ * mail templates and link macros. For every template, parsing the template on each call
+ * is compared with resolving the cached {@link CmsMacroTemplate}, 
+ * and with streaming the resolved template into a reused buffer.<p>
+ * 
+ * Run this class with <code>java org.opencms.util.CmsMacroResolverBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsMacroResolverBenchmark {
+
+    /** The templates measured. */
+    private static final String[] TEMPLATES = {
+        "%(opencms.uri)",
+        "%(currentuser.name)",
+        "/sites/default/%(request.locale)/news/",
+        "<a href=\"%(link.weak:/system/modules/org.opencms.base/resources/css/style.css)\">%(title)</a>",
+        "Dear %(currentuser.firstname) %(currentuser.lastname),\n\n"
+            + "the resource %(resource) in the project %(project) has been changed by %(user) on %(date).\n"
+            + "Please review the changes at %(link) within the next %(days) days.\n\n"
+            + "This message was generated automatically by OpenCms %(opencms.version), please do not answer."};
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsMacroResolverBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+
+        CmsUser user = new CmsUser(
+            null,
+            "Editor",
+            "",
+            "Donald",
+            "Duck",
+            "donald@example.org",
+            0,
+            I_CmsPrincipal.FLAG_ENABLED,
+            0,
+            Collections.<String, Object> emptyMap());
+        CmsObject cms = new CmsObject(null, new CmsRequestContext(
+            user,
+            new CmsProject(),
+            "/news/index.html",
+            "/sites/default",
+            Locale.ENGLISH,
+            "UTF-8",
+            "127.0.0.1",
+            0,
+            null,
+            null,
+            ""));
+        final CmsMacroResolver resolver = CmsMacroResolver.newInstance().setCmsObject(cms).setKeepEmptyMacros(true);
+        resolver.addMacro("title", "Stylesheet");
+        resolver.addMacro("resource", "/news/index.html");
+        resolver.addMacro("project", "Offline");
+        resolver.addMacro("user", "Admin");
+        resolver.addMacro("date", "10/19/2026");
+        resolver.addMacro("link", "http://localhost:8080/opencms/opencms/news/index.html");
+        resolver.addMacro("days", "7");
+
+        System.out.println("template\tparsed [templates/s]\tcompiled [templates/s]\tstreamed [templates/s]");
+        for (final String template : TEMPLATES) {
+            long parsed = runLoop(new Operation() {
+
+                public int resolve() {
+
+                    return new CmsMacroTemplate(template).resolve(resolver).length();
+                }
+            }, millis);
+            long compiled = runLoop(new Operation() {
+
+                public int resolve() {
+
+                    return CmsMacroResolver.resolveMacros(template, resolver).length();
+                }
+            }, millis);
+            final StringBuilder buffer = new StringBuilder(1024);
+            long streamed = runLoop(new Operation() {
+
+                public int resolve() throws IOException {
+
+                    buffer.setLength(0);
+                    CmsMacroTemplate.compile(template).resolve(resolver, buffer);
+                    return buffer.length();
+                }
+            }, millis);
+            String name = template.length() > 40 ? template.substring(0, 37) + "..." : template;
+            System.out.println(name.replace('\n', ' ') + "\t" + parsed + "\t" + compiled + "\t" + streamed);
+        }
+    }
+
+    /**
+     * Measures how many templates can be resolved per second by the given operation.<p>
+     * 
+     * @param operation the operation resolving a template
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of resolved templates per second
+     * 
+     * @throws IOException if the operation fails
+     */
+    private static long runLoop(Operation operation, long millis) throws IOException {
+
+        long count = 0;
+        int sink = 0;
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        do {
+            for (int i = 0; i < 1000; i++) {
+                sink += operation.resolve();
+            }
+            count += 1000;
+        } while (System.currentTimeMillis() < end);
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / Math.max(1, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * An operation measured by the benchmark.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Resolves the macros of a template.<p>
+         * 
+         * @return the length of the result
+         * 
+         * @throws IOException if writing the result fails
+         */
+        int resolve() throws IOException;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.safehaus.uuid.EthernetAddress;
+import org.safehaus.uuid.UUID;
+import org.safehaus.uuid.UUIDGenerator;
+
+/**
+ * Micro benchmark for the generation, parsing, formatting and hashing of {@link CmsUUID} objects.<p>
+ * 
+ * The generation throughput is measured for 1 to 64 threads, compared with the synchronized 
+ * JUG generator that was used before. Parsing, formatting and hashing are measured with a single thread,
+ * compared with the JUG UUID implementation.<p>
+ * 
+ * Run this class with <code>java org.opencms.util.CmsUUIDBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsUUIDBenchmark {
+
+    /** The number of UUIDs used to measure parsing, formatting and hashing. */
+    private static final int SAMPLE_SIZE = 10000;
+
+    /** The thread counts to measure. */
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsUUIDBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        final EthernetAddress address = new EthernetAddress(CmsUUID.getDummyEthernetAddress());
+
+        System.out.println("threads\tCmsUUID [ids/s]\tJUG generator [ids/s]");
+        for (int threads : THREAD_COUNTS) {
+            long cms = runGeneration(new Runnable() {
+
+                public void run() {
+
+                    new CmsUUID();
+                }
+            }, threads, millis);
+            long jug = runGeneration(new Runnable() {
+
+                public void run() {
+
+                    UUIDGenerator.getInstance().generateTimeBasedUUID(address);
+                }
+            }, threads, millis);
+            System.out.println(threads + "\t" + cms + "\t" + jug);
+        }
+
+        final String[] strings = new String[SAMPLE_SIZE];
+        final CmsUUID[] ids = new CmsUUID[SAMPLE_SIZE];
+        final UUID[] jugIds = new UUID[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            strings[i] = new CmsUUID().toString();
+            ids[i] = new CmsUUID(strings[i]);
+            jugIds[i] = new UUID(strings[i]);
+        }
+        final char[] chars = new char[36];
+        final byte[] bytes = new byte[16];
+
+        System.out.println();
+        System.out.println("operation\tCmsUUID [ops/s]\tJUG UUID [ops/s]");
+        print("parse String", runSample(new Operation() {
+
+            public int run(int i) {
+
+                return new CmsUUID(strings[i]).hashCode();
+            }
+        }, millis), runSample(new Operation() {
+
+            public int run(int i) {
+
+                return new UUID(strings[i]).hashCode();
+            }
+        }, millis));
+        print("format String", runSample(new Operation() {
+
+            public int run(int i) {
+
+                return ids[i].toString().length();
+            }
+        }, millis), runSample(new Operation() {
+
+            public int run(int i) {
+
+                return jugIds[i].toString().length();
+            }
+        }, millis));
+        print("format char[]", runSample(new Operation() {
+
+            public int run(int i) {
+
+                ids[i].toCharArray(chars, 0);
+                return chars[0];
+            }
+        }, millis), -1);
+        print("to byte[]", runSample(new Operation() {
+
+            public int run(int i) {
+
+                ids[i].toByteArray(bytes, 0);
+                return bytes[0];
+            }
+        }, millis), runSample(new Operation() {
+
+            public int run(int i) {
+
+                jugIds[i].toByteArray(bytes, 0);
+                return bytes[0];
+            }
+        }, millis));
+        print("hash new object", runSample(new Operation() {
+
+            public int run(int i) {
+
+                return CmsUUID.valueOf(bytes, 0).hashCode();
+            }
+        }, millis), runSample(new Operation() {
+
+            public int run(int i) {
+
+                return UUID.valueOf(bytes, 0).hashCode();
+            }
+        }, millis));
+        print("equals", runSample(new Operation() {
+
+            public int run(int i) {
+
+                return ids[i].equals(ids[(i + 1) % SAMPLE_SIZE]) ? 1 : 0;
+            }
+        }, millis), runSample(new Operation() {
+
+            public int run(int i) {
+
+                return jugIds[i].equals(jugIds[(i + 1) % SAMPLE_SIZE]) ? 1 : 0;
+            }
+        }, millis));
+    }
+
+    /**
+     * Prints a result line.<p>
+     * 
+     * @param name the name of the operation
+     * @param cms the operations per second with CmsUUID
+     * @param jug the operations per second with the JUG UUID, or -1 if not available
+     */
+    private static void print(String name, long cms, long jug) {
+
+        System.out.println(name + "\t" + cms + "\t" + ((jug < 0) ? "-" : String.valueOf(jug)));
+    }
+
+    /**
+     * Measures the throughput of the given generation with the given number of threads.<p>
+     * 
+     * @param generation generates one UUID
+     * @param threadCount the number of threads
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of generated UUIDs per second
+     * 
+     * @throws InterruptedException if the run is interrupted
+     */
+    private static long runGeneration(final Runnable generation, int threadCount, long millis)
+    throws InterruptedException {
+
+        final AtomicLong generated = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] end = new long[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long count = 0;
+                    while (true) {
+                        for (int i = 0; i < 1000; i++) {
+                            generation.run();
+                        }
+                        count += 1000;
+                        if (System.currentTimeMillis() > end[0]) {
+                            break;
+                        }
+                    }
+                    generated.addAndGet(count);
+                }
+            };
+            threads[t].start();
+        }
+        end[0] = System.currentTimeMillis() + millis;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (generated.get() * 1000) / millis;
+    }
+
+    /**
+     * Measures the single threaded throughput of the given operation on the sample UUIDs.<p>
+     * 
+     * @param operation the operation to measure
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of operations per second
+     */
+    private static long runSample(Operation operation, long millis) {
+
+        long count = 0;
+        int sink = 0;
+        long end = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < end) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                sink += operation.run(i);
+            }
+            count += SAMPLE_SIZE;
+        }
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / millis;
+    }
+
+    /**
+     * An operation on one of the sample UUIDs.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Runs the operation.<p>
+         * 
+         * @param i the index of the sample UUID
+         * 
+         * @return a value depending on the result, to prevent the JIT from removing the operation
+         */
+        int run(int i);
+    }
+}
@@ -29,6 +29,7 @@ package org.opencms.util;
 
 import org.opencms.i18n.CmsMessages;
 
+import java.util.Arrays;
 import java.util.Locale;
 
 import junit.framework.TestCase;
@@ -636,4 +637,57 @@ public class TestCmsMacroResolver extends TestCase {
         assertTrue(CmsMacroResolver.isMacro(CmsMacroResolver.formatMacro("macroName")));
         assertTrue(CmsMacroResolver.isMacro(CmsMacroResolver.formatMacro("macroName"), "macroName"));
     }
+
+    /**
+     * Tests the compiled macro templates.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testMacroTemplate() throws Exception {
+
+        String content = "Dear %(firstname) ${lastname}, % $ %(unknown) ${key}%(firstname";
+        CmsMacroTemplate template = CmsMacroTemplate.compile(content);
+        assertSame(template, CmsMacroTemplate.compile(new String(content)));
+        assertEquals(content, template.getTemplate());
+        assertTrue(template.hasMacros());
+        assertEquals(Arrays.asList(new String[] {"firstname", "lastname", "unknown", "key"}), template.getMacros());
+
+        CmsMacroResolver resolver = CmsMacroResolver.newInstance();
+        resolver.addMacro("firstname", "Donald");
+        resolver.addMacro("lastname", "Duck");
+        resolver.addMacro("key", "%(firstname)");
+        String expected = "Dear Donald Duck, % $ %(unknown) %(firstname)%(firstname";
+        resolver.setKeepEmptyMacros(true);
+        assertEquals(expected, template.resolve(resolver));
+        StringBuilder out = new StringBuilder("> ");
+        template.resolve(resolver, out);
+        assertEquals("> " + expected, out.toString());
+        assertEquals(CmsMacroResolver.resolveMacros(content, resolver), template.resolve(resolver));
+
+        // unknown macros are removed
+        resolver.setKeepEmptyMacros(false);
+        expected = "Dear Donald Duck, % $  %(firstname)%(firstname";
+        assertEquals(expected, template.resolve(resolver));
+        out = new StringBuilder();
+        template.resolve(resolver, out);
+        assertEquals(expected, out.toString());
+
+        // the original template is returned if nothing is resolved
+        resolver = CmsMacroResolver.newInstance();
+        resolver.setKeepEmptyMacros(true);
+        assertSame(content, template.resolve(resolver));
+
+        // templates without macros
+        template = CmsMacroTemplate.compile("100% $ {no} (macros}");
+        assertFalse(template.hasMacros());
+        assertEquals("100% $ {no} (macros}", template.resolve(resolver));
+        assertNull(new CmsMacroTemplate(null).resolve(resolver));
+
+        // the cache is cleared when full
+        CmsMacroTemplate.clearCache();
+        for (int i = 0; i <= CmsMacroTemplate.MAX_CACHE_SIZE; i++) {
+            CmsMacroTemplate.compile("%(" + i + ")");
+        }
+        assertEquals(1, CmsMacroTemplate.getCacheSize());
+    }
 }
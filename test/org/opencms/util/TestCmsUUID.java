@@ -36,9 +36,14 @@ import java.io.FileOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.safehaus.uuid.UUID;
 
@@ -207,6 +212,216 @@ public class TestCmsUUID extends OpenCmsTestCase {
         assertFalse(CmsUUID.isValidUUID("kaputt"));
     }
 
+    /**
+     * Tests that generated and parsed UUIDs are formatted, hashed and ordered exactly like the JUG UUIDs.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUUIDJugCompatibility() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        Random random = new Random(4711);
+        CmsUUID[] ids = new CmsUUID[200];
+        for (int i = 0; i < ids.length; i++) {
+            if ((i % 2) == 0) {
+                ids[i] = new CmsUUID();
+            } else {
+                byte[] bytes = new byte[16];
+                random.nextBytes(bytes);
+                ids[i] = new CmsUUID(bytes);
+            }
+        }
+        ids[0] = CmsUUID.getNullUUID();
+        for (int i = 0; i < ids.length; i++) {
+            UUID jug = new UUID(ids[i].toString());
+            assertEquals(jug.toString(), ids[i].toString());
+            assertEquals(jug.hashCode(), ids[i].hashCode());
+            assertTrue(Arrays.equals(jug.asByteArray(), ids[i].toByteArray()));
+            assertEquals(jug, new UUID(ids[i].toByteArray()));
+            assertEquals(ids[i], new CmsUUID(jug.toString().toUpperCase()));
+            for (int j = 0; j < ids.length; j++) {
+                int expected = jug.compareTo(new UUID(ids[j].toString()));
+                int result = ids[i].compareTo(ids[j]);
+                assertEquals(Integer.signum(expected), Integer.signum(result));
+            }
+        }
+    }
+
+    /**
+     * Tests parsing and formatting UUIDs from and to byte and char buffers.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUUIDBuffers() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        CmsUUID id = new CmsUUID();
+
+        char[] chars = new char[40];
+        id.toCharArray(chars, 2);
+        assertEquals(id.toString(), new String(chars, 2, 36));
+        assertEquals(id, CmsUUID.valueOf(chars, 2));
+
+        byte[] bytes = new byte[20];
+        id.toByteArray(bytes, 3);
+        byte[] expected = id.toByteArray();
+        for (int i = 0; i < 16; i++) {
+            assertEquals(expected[i], bytes[i + 3]);
+        }
+        assertEquals(id, CmsUUID.valueOf(bytes, 3));
+
+        String[] invalid = {
+            "",
+            "kaputt",
+            id.toString().substring(1),
+            id.toString().replace('-', '0'),
+            id.toString().substring(0, 35) + "g",
+            id.toString().substring(0, 8) + "+" + id.toString().substring(9)};
+        for (int i = 0; i < invalid.length; i++) {
+            assertFalse(invalid[i], CmsUUID.isValidUUID(invalid[i]));
+            try {
+                new CmsUUID(invalid[i]);
+                fail("Invalid UUID parsed: " + invalid[i]);
+            } catch (NumberFormatException e) {
+                // expected
+            }
+        }
+        try {
+            CmsUUID.valueOf(chars, 10);
+            fail("UUID parsed beyond the end of the buffer");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that UUIDs generated concurrently by several threads are unique, time based version 1 UUIDs.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUUIDConcurrentGeneration() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        final int count = 20000;
+        final CmsUUID[][] results = new CmsUUID[8][count];
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final CmsUUID[] result = results[t];
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    for (int i = 0; i < count; i++) {
+                        result[i] = new CmsUUID();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        Set<CmsUUID> ids = new HashSet<CmsUUID>();
+        for (int t = 0; t < results.length; t++) {
+            CmsUUID previous = null;
+            for (int i = 0; i < count; i++) {
+                CmsUUID id = results[t][i];
+                assertTrue(ids.add(id));
+                UUID jug = new UUID(id.toString());
+                assertEquals(UUID.TYPE_TIME_BASED, jug.getType());
+                assertEquals(0x80, id.toByteArray()[8] & 0xC0);
+                if (previous != null) {
+                    // the UUIDs of one thread are ordered by their time stamp
+                    assertTrue(previous.compareTo(id) < 0);
+                }
+                previous = id;
+            }
+        }
+        assertEquals(results.length * count, ids.size());
+    }
+
+    /**
+     * Tests that UUIDs generated by many threads started at the same time are unique, 
+     * share one clock sequence and have increasing timestamps in every thread.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUUIDManyThreads() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        final int count = 2000;
+        final CmsUUID[][] results = new CmsUUID[16][count];
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch stop = new CountDownLatch(1);
+        final Set<CmsUUID> background = Collections.synchronizedSet(new HashSet<CmsUUID>());
+        // another thread keeps generating UUIDs while the others are running
+        Thread generator = new Thread() {
+
+            @Override
+            public void run() {
+
+                while (stop.getCount() > 0) {
+                    background.add(new CmsUUID());
+                }
+            }
+        };
+        Thread[] threads = new Thread[results.length];
+        for (int t = 0; t < threads.length; t++) {
+            final CmsUUID[] result = results[t];
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < count; i++) {
+                        result[i] = new CmsUUID();
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        generator.start();
+        start.countDown();
+        try {
+            for (int t = 0; t < threads.length; t++) {
+                threads[t].join();
+            }
+        } finally {
+            stop.countDown();
+            generator.join();
+        }
+
+        Set<CmsUUID> ids = new HashSet<CmsUUID>(background);
+        Set<Long> timestamps = new HashSet<Long>();
+        for (CmsUUID id : background) {
+            assertTrue(timestamps.add(Long.valueOf(getTimestamp(id))));
+        }
+        Set<Integer> clockSequences = new HashSet<Integer>();
+        for (int t = 0; t < results.length; t++) {
+            long previous = -1;
+            for (int i = 0; i < count; i++) {
+                CmsUUID id = results[t][i];
+                assertNotNull(id);
+                assertTrue(ids.add(id));
+                long timestamp = getTimestamp(id);
+                // the timestamps are taken from one counter, so they are unique and increase in every thread
+                assertTrue(timestamps.add(Long.valueOf(timestamp)));
+                assertTrue(previous < timestamp);
+                previous = timestamp;
+                byte[] bytes = id.toByteArray();
+                clockSequences.add(Integer.valueOf(((bytes[8] & 0x3F) << 8) | (bytes[9] & 0xFF)));
+            }
+        }
+        // all UUIDs of the JVM share the same clock sequence
+        assertEquals(1, clockSequences.size());
+    }
+
     /**
      * De-Serializes an object with the given name from the internal Map.<p>
      * 
@@ -273,4 +488,24 @@ public class TestCmsUUID extends OpenCmsTestCase {
         oout.writeObject(o);
         oout.close();
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the 60 bit timestamp of a time based UUID.<p>
+     * 
+     * @param id the UUID
+     * 
+     * @return the timestamp
+     */
+    private long getTimestamp(CmsUUID id) {
+
+        byte[] bytes = id.toByteArray();
+        long timestamp = bytes[6] & 0x0FL;
+        timestamp = (timestamp << 8) | (bytes[7] & 0xFFL);
+        timestamp = (timestamp << 8) | (bytes[4] & 0xFFL);
+        timestamp = (timestamp << 8) | (bytes[5] & 0xFFL);
+        for (int i = 0; i < 4; i++) {
+            timestamp = (timestamp << 8) | (bytes[i] & 0xFFL);
+        }
+        return timestamp;
+    }
+}
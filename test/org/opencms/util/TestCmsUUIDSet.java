@@ -0,0 +1,117 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.util;
+
+import org.opencms.test.OpenCmsTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** 
+ * Test case for the UUID set.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsUUIDSet extends OpenCmsTestCase {
+
+    /**
+     * Default JUnit constructor.<p>
+     * 
+     * @param arg0 JUnit parameters
+     */
+    public TestCmsUUIDSet(String arg0) {
+
+        super(arg0);
+    }
+
+    /**
+     * Tests adding, finding and removing UUIDs, including growing the set.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testAddContainsRemove() throws Exception {
+
+        CmsUUID.init(CmsUUID.getDummyEthernetAddress());
+        CmsUUIDSet set = new CmsUUIDSet(4);
+        assertTrue(set.isEmpty());
+
+        List<CmsUUID> ids = new ArrayList<CmsUUID>();
+        for (int i = 0; i < 1000; i++) {
+            CmsUUID id = new CmsUUID();
+            ids.add(id);
+            assertTrue(set.add(id));
+            // adding an equal UUID again must not change the set
+            assertFalse(set.add(new CmsUUID(id.toString())));
+        }
+        assertEquals(ids.size(), set.size());
+        for (CmsUUID id : ids) {
+            assertTrue(set.contains(new CmsUUID(id.toString())));
+        }
+        assertFalse(set.contains(new CmsUUID()));
+        assertFalse(set.contains(null));
+
+        // remove every second id and check the remaining ones are still found
+        Set<CmsUUID> removed = new HashSet<CmsUUID>();
+        for (int i = 0; i < ids.size(); i += 2) {
+            assertTrue(set.remove(ids.get(i)));
+            assertFalse(set.remove(ids.get(i)));
+            removed.add(ids.get(i));
+        }
+        assertEquals(ids.size() / 2, set.size());
+        for (CmsUUID id : ids) {
+            assertEquals(!removed.contains(id), set.contains(id));
+        }
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(ids.get(1)));
+    }
+
+    /**
+     * Tests the null UUID and UUIDs which only differ in one half.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testSpecialIds() throws Exception {
+
+        CmsUUIDSet set = new CmsUUIDSet();
+        assertTrue(set.add(CmsUUID.getNullUUID()));
+        assertTrue(set.contains(CmsUUID.getNullUUID()));
+        CmsUUID a = new CmsUUID("00000000-0000-0000-0000-000000000001");
+        CmsUUID b = new CmsUUID("00000000-0000-0001-0000-000000000000");
+        assertTrue(set.add(a));
+        assertTrue(set.add(b));
+        assertEquals(3, set.size());
+        assertEquals(1L, a.getLeastSignificantBits());
+        assertEquals(0L, a.getMostSignificantBits());
+        assertEquals(1L, b.getMostSignificantBits());
+        assertEquals(0L, b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import org.opencms.i18n.CmsEncoder;
+
+import java.io.ByteArrayInputStream;
+
+import org.dom4j.io.SAXReader;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+/**
+ * Micro benchmark for the parsers used to unmarshal and validate XML documents.<p>
+ * 
+ * Documents with a growing number of products are unmarshalled and validated against a schema 
+ * which includes a second schema. The throughput of {@link CmsXmlUtils#unmarshalHelper(InputSource, 
+ * org.xml.sax.EntityResolver, boolean)} and {@link CmsXmlUtils#validateXmlStructure(byte[], 
+ * org.xml.sax.EntityResolver)} is compared with a new parser for every document, 
+ * where the schemas are compiled for every validation.<p>
+ * 
+ * Run this class with <code>java org.opencms.xml.CmsXmlParserBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsXmlParserBenchmark {
+
+    /** The schema of the generated documents. */
+    private static final String CATALOG_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "<xsd:include schemaLocation=\"opencms://system/benchmark/product.xsd\"/>\n"
+        + "<xsd:element name=\"Catalog\"><xsd:complexType><xsd:sequence>\n"
+        + "<xsd:element name=\"Product\" type=\"Product\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence>\n"
+        + "<xsd:attribute name=\"language\" type=\"xsd:language\" use=\"required\"/>\n"
+        + "</xsd:complexType></xsd:element>\n"
+        + "</xsd:schema>";
+
+    /** The system id of the schema of the generated documents. */
+    private static final String CATALOG_SYSTEM_ID = "opencms://system/benchmark/catalog.xsd";
+
+    /** The product counts to measure. */
+    private static final int[] PRODUCT_COUNTS = {1, 10, 100};
+
+    /** The schema of the products. */
+    private static final String PRODUCT_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "<xsd:complexType name=\"Product\"><xsd:sequence>\n"
+        + "<xsd:element name=\"Title\" type=\"xsd:string\"/>\n"
+        + "<xsd:element name=\"Price\" type=\"Price\"/>\n"
+        + "<xsd:element name=\"Feature\" type=\"xsd:string\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence>\n"
+        + "<xsd:attribute name=\"id\" type=\"xsd:positiveInteger\" use=\"required\"/>\n"
+        + "</xsd:complexType>\n"
+        + "<xsd:simpleType name=\"Price\"><xsd:restriction base=\"xsd:decimal\">\n"
+        + "<xsd:minInclusive value=\"0\"/><xsd:fractionDigits value=\"2\"/>\n"
+        + "</xsd:restriction></xsd:simpleType>\n"
+        + "</xsd:schema>";
+
+    /** The system id of the schema of the products. */
+    private static final String PRODUCT_SYSTEM_ID = "opencms://system/benchmark/product.xsd";
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsXmlParserBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        CmsXmlEntityResolver.cacheSystemId(CATALOG_SYSTEM_ID, CATALOG_SCHEMA.getBytes(CmsEncoder.ENCODING_UTF_8));
+        CmsXmlEntityResolver.cacheSystemId(PRODUCT_SYSTEM_ID, PRODUCT_SCHEMA.getBytes(CmsEncoder.ENCODING_UTF_8));
+        final CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+
+        System.out.println("products\tunmarshal new [docs/s]\tunmarshal pooled [docs/s]"
+            + "\tvalidate new [docs/s]\tvalidate pooled [docs/s]");
+        for (int products : PRODUCT_COUNTS) {
+            final byte[] xml = generateDocument(products).getBytes(CmsEncoder.ENCODING_UTF_8);
+            // make sure the generated document is valid
+            CmsXmlUtils.validateXmlStructure(xml, resolver);
+
+            long unmarshalNew = runLoop(new Operation() {
+
+                public int run() throws Exception {
+
+                    SAXReader reader = new SAXReader();
+                    reader.setEntityResolver(resolver);
+                    reader.setMergeAdjacentText(true);
+                    reader.setStripWhitespaceText(true);
+                    reader.setValidation(false);
+                    reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                    return reader.read(new InputSource(new ByteArrayInputStream(xml))).getRootElement().nodeCount();
+                }
+            }, millis);
+            long unmarshalPooled = runLoop(new Operation() {
+
+                public int run() throws Exception {
+
+                    return CmsXmlUtils.unmarshalHelper(xml, resolver).getRootElement().nodeCount();
+                }
+            }, millis);
+            long validateNew = runLoop(new Operation() {
+
+                public int run() throws Exception {
+
+                    XMLReader reader = XMLReaderFactory.createXMLReader("org.apache.xerces.parsers.SAXParser");
+                    reader.setFeature("http://xml.org/sax/features/validation", true);
+                    reader.setFeature("http://apache.org/xml/features/validation/schema", true);
+                    reader.setFeature("http://xml.org/sax/features/namespaces", true);
+                    reader.setFeature("http://xml.org/sax/features/namespace-prefixes", false);
+                    reader.setErrorHandler(new DefaultHandler());
+                    reader.setEntityResolver(resolver);
+                    reader.parse(new InputSource(new ByteArrayInputStream(xml)));
+                    return xml.length;
+                }
+            }, millis);
+            long validatePooled = runLoop(new Operation() {
+
+                public int run() throws Exception {
+
+                    CmsXmlUtils.validateXmlStructure(xml, resolver);
+                    return xml.length;
+                }
+            }, millis);
+            System.out.println(products
+                + "\t"
+                + unmarshalNew
+                + "\t"
+                + unmarshalPooled
+                + "\t"
+                + validateNew
+                + "\t"
+                + validatePooled);
+        }
+    }
+
+    /**
+     * Generates a catalog document with the given number of products.<p>
+     * 
+     * @param products the number of products
+     * 
+     * @return the generated document
+     */
+    private static String generateDocument(int products) {
+
+        StringBuffer result = new StringBuffer(products * 200);
+        result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        result.append("<Catalog xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" ");
+        result.append("xsi:noNamespaceSchemaLocation=\"").append(CATALOG_SYSTEM_ID).append("\" language=\"en\">\n");
+        for (int i = 0; i < products; i++) {
+            result.append("<Product id=\"").append(i + 1).append("\">\n");
+            result.append("<Title><![CDATA[Product ").append(i).append("]]></Title>\n");
+            result.append("<Price>").append(i * 10).append(".50</Price>\n");
+            for (int j = 0; j < 3; j++) {
+                result.append("<Feature><![CDATA[Feature ").append(j).append("]]></Feature>\n");
+            }
+            result.append("</Product>\n");
+        }
+        result.append("</Catalog>");
+        return result.toString();
+    }
+
+    /**
+     * Measures how often the given operation can be run per second.<p>
+     * 
+     * @param operation the operation to measure
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of operations per second
+     * 
+     * @throws Exception if the operation fails
+     */
+    private static long runLoop(Operation operation, long millis) throws Exception {
+
+        long count = 0;
+        int sink = 0;
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        do {
+            sink += operation.run();
+            count++;
+        } while (System.currentTimeMillis() < end);
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / Math.max(1, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * An operation on the generated document.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Runs the operation.<p>
+         * 
+         * @return a value depending on the result, to prevent the JIT from removing the operation
+         * 
+         * @throws Exception if the operation fails
+         */
+        int run() throws Exception;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsXmlContentDefinitionCache}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsXmlContentDefinitionCache extends TestCase {
+
+    /**
+     * Tests that the least recently used definitions are removed if the cache is full.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testEviction() throws Exception {
+
+        CmsXmlContentDefinitionCache cache = new CmsXmlContentDefinitionCache(8);
+        for (int i = 0; i < 8; i++) {
+            cache.put("schema" + i, createDefinition("schema" + i), Collections.<String> emptyList());
+        }
+        assertEquals(8, cache.size());
+        // use the first schema, so the second and third are the least recently used
+        assertNotNull(cache.get("schema0"));
+        cache.put("schema8", createDefinition("schema8"), Collections.<String> emptyList());
+
+        assertEquals(7, cache.size());
+        assertNotNull(cache.get("schema0"));
+        assertNull(cache.get("schema1"));
+        assertNull(cache.get("schema2"));
+        assertNotNull(cache.get("schema3"));
+        assertNotNull(cache.get("schema8"));
+    }
+
+    /**
+     * Tests that removing a schema removes all definitions including it, but no other definitions.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testRemoveDependents() throws Exception {
+
+        CmsXmlContentDefinitionCache cache = new CmsXmlContentDefinitionCache(16);
+        // "article" includes "teaser", which includes "link" and itself, "page" includes "article"
+        cache.put("link", createDefinition("link"), Collections.<String> emptyList());
+        cache.put("teaser", createDefinition("teaser"), Arrays.asList("link", "teaser"));
+        cache.put("article", createDefinition("article"), Collections.singletonList("teaser"));
+        cache.put("page", createDefinition("page"), Collections.singletonList("article"));
+        cache.put("news", createDefinition("news"), Collections.singletonList("other"));
+        assertEquals(Collections.singleton("teaser"), cache.getDependents("link"));
+        assertEquals(Collections.singleton("article"), cache.getDependents("teaser"));
+
+        assertEquals(Collections.singletonList("news"), cache.remove("other"));
+        assertEquals(4, cache.size());
+        assertEquals(Collections.singletonList("page"), cache.remove("page"));
+
+        // the includes are kept if a definition is removed, so a changed "link" removes "page" through "article"
+        cache.put("page", createDefinition("page"), Collections.singletonList("article"));
+        assertEquals(
+            new HashSet<String>(Arrays.asList("teaser", "article", "page")),
+            new HashSet<String>(cache.remove("teaser")));
+        assertEquals(1, cache.size());
+        cache.put("page", createDefinition("page"), Collections.singletonList("article"));
+        assertEquals(new HashSet<String>(Arrays.asList("link", "page")), new HashSet<String>(cache.remove("link")));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests the numbers of cache hits and misses for each schema.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testStatistics() throws Exception {
+
+        CmsXmlContentDefinitionCache cache = new CmsXmlContentDefinitionCache(16);
+        CmsXmlContentDefinition article = createDefinition("article");
+        assertNull(cache.get("article"));
+        cache.put("article", article, Collections.<String> emptyList());
+        assertSame(article, cache.get("article"));
+        assertSame(article, cache.get("article"));
+        assertSame(article, cache.get("article"));
+        assertNull(cache.get("news"));
+
+        assertEquals(3, cache.getStatistics("article").getHits());
+        assertEquals(1, cache.getStatistics("article").getMisses());
+        assertEquals(75, cache.getStatistics("article").getHitRate());
+        assertEquals(0, cache.getStatistics("news").getHitRate());
+        assertEquals(2, cache.getStatistics().size());
+        assertEquals("article", cache.getStatistics().get(0).getKey());
+
+        // the statistics are kept if the cache is cleared
+        cache.clear();
+        assertNull(cache.get("article"));
+        assertEquals(2, cache.getStatistics("article").getMisses());
+        cache.resetStatistics();
+        assertTrue(cache.getStatistics().isEmpty());
+    }
+
+    /**
+     * Creates a content definition for the given schema.<p>
+     * 
+     * @param schema the name of the schema
+     * 
+     * @return the content definition
+     */
+    private CmsXmlContentDefinition createDefinition(String schema) {
+
+        return new CmsXmlContentDefinition("Test", "opencms://" + schema + ".xsd");
+    }
+}
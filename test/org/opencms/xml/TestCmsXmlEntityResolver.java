@@ -29,7 +29,9 @@ package org.opencms.xml;
 
 import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
+import org.opencms.file.types.CmsResourceTypePlain;
 import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.OpenCms;
 import org.opencms.test.OpenCmsTestCase;
 import org.opencms.test.OpenCmsTestProperties;
 import org.opencms.util.CmsFileUtil;
@@ -68,6 +70,7 @@ public class TestCmsXmlEntityResolver extends OpenCmsTestCase {
         TestSuite suite = new TestSuite();
         suite.setName(TestCmsXmlEntityResolver.class.getName());
 
+        suite.addTest(new TestCmsXmlEntityResolver("testUncacheIncludingDefinitions"));
         suite.addTest(new TestCmsXmlEntityResolver("testRemoveNestedSubschemaFromCacheIssue"));
 
         TestSetup wrapper = new TestSetup(suite) {
@@ -159,4 +162,54 @@ public class TestCmsXmlEntityResolver extends OpenCmsTestCase {
             fail("Content of XML files must not be equal after schema change");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that changing a nested schema only removes the content definitions including it from the cache.<p>
+     * 
+     * @throws Exception if the test fails
+     */
+    public void testUncacheIncludingDefinitions() throws Exception {
+
+        CmsObject cms = getCmsObject();
+        echo("Testing the removal of the content definitions including a changed schema");
+
+        String nestedSchema = "/sites/default/xmlcontent/nested.xsd";
+        String outerSchema = "/sites/default/xmlcontent/outer.xsd";
+        String otherSchema = "/sites/default/xmlcontent/other.xsd";
+        cms.getRequestContext().setSiteRoot("/");
+        try {
+            cms.copyResource("/sites/default/xmlcontent/article.xsd", nestedSchema);
+            cms.copyResource("/sites/default/xmlcontent/article.xsd", otherSchema);
+            String content = CmsFileUtil.readFile(
+                "org/opencms/xml/xmlcontent-definition-1.xsd",
+                CmsEncoder.ENCODING_ISO_8859_1).replace("subarticle.xsd", "nested.xsd");
+            cms.createResource(
+                outerSchema,
+                CmsResourceTypePlain.getStaticTypeId(),
+                content.getBytes(CmsEncoder.ENCODING_UTF_8),
+                null);
+
+            CmsXmlContentDefinition outer = CmsXmlContentDefinition.unmarshal(cms, outerSchema);
+            CmsXmlContentDefinition other = CmsXmlContentDefinition.unmarshal(cms, otherSchema);
+            assertSame(outer, CmsXmlContentDefinition.unmarshal(cms, outerSchema));
+            CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(cms);
+            assertNotNull(resolver.getCachedContentDefinition(nestedSchema));
+
+            // writing the nested schema must remove the outer definition, but not the other definition
+            cms.lockResource(nestedSchema);
+            cms.writeFile(cms.readFile(nestedSchema));
+            assertNull(resolver.getCachedContentDefinition(nestedSchema));
+            assertNull(resolver.getCachedContentDefinition(outerSchema));
+            assertSame(other, CmsXmlContentDefinition.unmarshal(cms, otherSchema));
+            assertNotSame(outer, CmsXmlContentDefinition.unmarshal(cms, outerSchema));
+
+            // the lookups are counted for each schema
+            CmsXmlContentDefinitionCache cache = OpenCms.getMemoryMonitor().getContentDefinitionCache();
+            CmsXmlContentDefinitionCache.CmsSchemaStatistics statistics = cache.getStatistics("offline_" + outerSchema);
+            assertTrue(statistics.getHits() > 0);
+            assertTrue(statistics.getMisses() > 1);
+        } finally {
+            cms.getRequestContext().setSiteRoot("/sites/default/");
+        }
+    }
+}
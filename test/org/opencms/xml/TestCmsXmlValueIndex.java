@@ -0,0 +1,129 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml;
+
+import org.opencms.xml.types.CmsXmlStringValue;
+import org.opencms.xml.types.I_CmsXmlContentValue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link CmsXmlValueIndex}.<p>
+ * 
+ * @since 8.5.2
+ */
+public class TestCmsXmlValueIndex extends TestCase {
+
+    /**
+     * Tests looking up the values below a value and the values of a sequence.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testChildrenAndSequences() throws Exception {
+
+        CmsXmlValueIndex index = new CmsXmlValueIndex();
+        I_CmsXmlContentValue title = createValue("Title");
+        I_CmsXmlContentValue teaser1 = createValue("Teaser");
+        I_CmsXmlContentValue teaser2 = createValue("Teaser");
+        I_CmsXmlContentValue link = createValue("Link");
+        I_CmsXmlContentValue text = createValue("Text");
+        index.add("Title[1]", title);
+        index.add("Teaser[1]", teaser1);
+        index.add("Teaser[1]/Link[1]", link);
+        index.add("Teaser[1]/Text[1]", text);
+        index.add("Teaser[2]", teaser2);
+
+        assertSame(link, index.get("Teaser[1]/Link[1]"));
+        assertNull(index.get("Teaser[2]/Link[1]"));
+        assertEquals(Arrays.asList(title, teaser1, teaser2), index.getChildren(""));
+        assertEquals(Arrays.asList(link, text), index.getChildren("Teaser[1]"));
+        assertTrue(index.getChildren("Teaser[2]").isEmpty());
+        assertEquals(Arrays.asList(teaser1, teaser2), index.getSequence("Teaser"));
+        assertEquals(Collections.singletonList(text), index.getSequence("Teaser[1]/Text"));
+        assertTrue(index.getSequence("Teaser[2]/Text").isEmpty());
+        assertEquals(new HashSet<String>(Arrays.asList(
+            "Title[1]",
+            "Teaser[1]",
+            "Teaser[1]/Link[1]",
+            "Teaser[1]/Text[1]",
+            "Teaser[2]")), index.getPaths());
+        assertEquals(5, index.getValues().size());
+    }
+
+    /**
+     * Tests removing and replacing values.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testRemoveAndReplace() throws Exception {
+
+        CmsXmlValueIndex index = new CmsXmlValueIndex();
+        I_CmsXmlContentValue teaser1 = createValue("Teaser");
+        I_CmsXmlContentValue teaser2 = createValue("Teaser");
+        I_CmsXmlContentValue teaser3 = createValue("Teaser");
+        index.add("Teaser[1]", teaser1);
+        index.add("Teaser[2]", teaser2);
+        index.add("Teaser[3]", teaser3);
+
+        // the values are equal by schema type, but must be replaced by identity
+        I_CmsXmlContentValue replacement = createValue("Teaser");
+        assertSame(teaser2, index.add("Teaser[2]", replacement));
+        assertEquals(3, index.getChildren("").size());
+        assertSame(replacement, index.getChildren("").get(1));
+        assertSame(replacement, index.getSequence("Teaser").get(1));
+
+        // a gap ends the sequence
+        assertSame(replacement, index.remove("Teaser[2]"));
+        assertNull(index.remove("Teaser[2]"));
+        assertEquals(Collections.singletonList(teaser1), index.getSequence("Teaser"));
+        assertEquals(Arrays.asList(teaser1, teaser3), index.getChildren(""));
+
+        assertSame(teaser1, index.remove("Teaser[1]"));
+        assertSame(teaser3, index.remove("Teaser[3]"));
+        assertTrue(index.isEmpty());
+        assertTrue(index.getChildren("").isEmpty());
+        assertTrue(index.getSequence("Teaser").isEmpty());
+    }
+
+    /**
+     * Creates a value for the test.<p>
+     * 
+     * @param name the name of the value
+     * 
+     * @return the created value
+     */
+    private I_CmsXmlContentValue createValue(String name) {
+
+        return new CmsXmlStringValue(name, "0", "10");
+    }
+}
@@ -27,6 +27,8 @@
 
 package org.opencms.xml;
 
+import org.dom4j.Document;
+
 import junit.framework.TestCase;
 
 /**
@@ -78,6 +80,60 @@ public class TestXmlUtils extends TestCase {
         assertEquals("Title/Test/Toast/Toll", CmsXmlUtils.removeXpath("Title[1]/Test[1]/Toast[1]/Toll[5]"));
     }
 
+    /**
+     * Test case for the reuse of the parsers when unmarshalling documents.
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testUnmarshalHelper() throws Exception {
+
+        Document document = CmsXmlUtils.unmarshalHelper("<A><B>1</B></A>", null);
+        assertEquals("1", document.getRootElement().elementText("B"));
+        try {
+            CmsXmlUtils.unmarshalHelper("<A><B>1</A>", null);
+            fail("Malformed document unmarshalled");
+        } catch (CmsXmlException e) {
+            // expected
+        }
+        document = CmsXmlUtils.unmarshalHelper("<C><D>2</D></C>", null);
+        assertEquals("2", document.getRootElement().elementText("D"));
+    }
+
+    /**
+     * Test case for the validation with the cached schemas.
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testValidateXmlStructure() throws Exception {
+
+        String schemaA = "opencms://system/tests/xmlutils/a.xsd";
+        String schemaB = "opencms://system/tests/xmlutils/b.xsd";
+        String include = "opencms://system/tests/xmlutils/include.xsd";
+        CmsXmlEntityResolver.cacheSystemId(include, getSchema(
+            "<xsd:simpleType name=\"Number\"><xsd:restriction base=\"xsd:int\"/></xsd:simpleType>").getBytes());
+        CmsXmlEntityResolver.cacheSystemId(schemaA, getSchema("<xsd:include schemaLocation=\""
+            + include
+            + "\"/><xsd:element name=\"A\" type=\"Number\"/>").getBytes());
+        CmsXmlEntityResolver.cacheSystemId(
+            schemaB,
+            getSchema("<xsd:element name=\"B\" type=\"xsd:string\"/>").getBytes());
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+
+        // both schemas have no namespace, so the compiled schemas must be stored by system id
+        for (int i = 0; i < 3; i++) {
+            validate(getDocument("A", "1", schemaA), resolver, true);
+            validate(getDocument("A", "x", schemaA), resolver, false);
+            validate(getDocument("B", "x", schemaB), resolver, true);
+            validate(getDocument("A", "1", schemaB), resolver, false);
+        }
+
+        // changing an included schema removes the compiled schema
+        CmsXmlEntityResolver.cacheSystemId(include, getSchema(
+            "<xsd:simpleType name=\"Number\"><xsd:restriction base=\"xsd:string\"/></xsd:simpleType>").getBytes());
+        validate(getDocument("A", "x", schemaA), resolver, true);
+        validate(getDocument("B", "x", schemaB), resolver, true);
+    }
+
     /**
      * Test case for the Xpath simplification.
      * 
@@ -93,4 +149,57 @@ public class TestXmlUtils extends TestCase {
         assertEquals("Title", CmsXmlUtils.simplifyXpath("Title/"));
         assertEquals("Title", CmsXmlUtils.simplifyXpath("/Title/"));
     }
+
+    /**
+     * Returns a XML document with a single element that refers to the given schema.<p>
+     * 
+     * @param name the name of the element
+     * @param value the value of the element
+     * @param schema the system id of the schema
+     * 
+     * @return the XML document
+     */
+    private String getDocument(String name, String value, String schema) {
+
+        return "<"
+            + name
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:noNamespaceSchemaLocation=\""
+            + schema
+            + "\">"
+            + value
+            + "</"
+            + name
+            + ">";
+    }
+
+    /**
+     * Returns a XML schema with the given definitions.<p>
+     * 
+     * @param definitions the definitions
+     * 
+     * @return the XML schema
+     */
+    private String getSchema(String definitions) {
+
+        return "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">"
+            + definitions
+            + "</xsd:schema>";
+    }
+
+    /**
+     * Validates a document and checks the result.<p>
+     * 
+     * @param document the document
+     * @param resolver the entity resolver
+     * @param valid if the document should be valid
+     */
+    private void validate(String document, CmsXmlEntityResolver resolver, boolean valid) {
+
+        try {
+            CmsXmlUtils.validateXmlStructure(document.getBytes(), resolver);
+            assertTrue("Invalid document accepted: " + document, valid);
+        } catch (CmsXmlException e) {
+            assertFalse("Valid document rejected: " + document, valid);
+        }
+    }
 }
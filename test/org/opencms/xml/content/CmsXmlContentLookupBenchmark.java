@@ -0,0 +1,258 @@
+/*
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+
+package org.opencms.xml.content;
+
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.xml.CmsXmlContentDefinition;
+import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlUtils;
+
+import java.util.Locale;
+
+/**
+ * Micro benchmark for the value lookups of large XML contents.<p>
+ * 
+ * A catalog content with a growing number of products, each with a title, a price and a list of features,
+ * is generated in two locales. For every size, the time to unmarshal the content and the throughput of
+ * the lookups used by content loops (<code>getValues</code>, <code>getSubValues</code> and <code>getValue</code>)
+ * are measured. The paths of the products are created in advance, so that only the lookups 
+ * of the XML content are measured.<p>
+ * 
+ * Run this class with <code>java org.opencms.xml.content.CmsXmlContentLookupBenchmark [seconds per run]</code>, 
+ * it is not part of the test suites.<p>
+ * 
+ * @since 8.5.2
+ */
+public final class CmsXmlContentLookupBenchmark {
+
+    /** The schema of the generated contents. */
+    private static final String CATALOG_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "<xsd:include schemaLocation=\"opencms://opencms-xmlcontent.xsd\"/>\n"
+        + "<xsd:include schemaLocation=\"http://www.opencms.org/benchmark-product.xsd\"/>\n"
+        + "<xsd:element name=\"Catalogs\" type=\"OpenCmsCatalogs\"/>\n"
+        + "<xsd:complexType name=\"OpenCmsCatalogs\"><xsd:sequence>\n"
+        + "<xsd:element name=\"Catalog\" type=\"OpenCmsCatalog\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence></xsd:complexType>\n"
+        + "<xsd:complexType name=\"OpenCmsCatalog\"><xsd:sequence>\n"
+        + "<xsd:element name=\"Product\" type=\"OpenCmsProduct\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence>\n"
+        + "<xsd:attribute name=\"language\" type=\"OpenCmsLocale\" use=\"required\"/>\n"
+        + "</xsd:complexType>\n"
+        + "</xsd:schema>";
+
+    /** The system id of the schema of the generated contents. */
+    private static final String CATALOG_SYSTEM_ID = "http://www.opencms.org/benchmark-catalog.xsd";
+
+    /** The number of features per product. */
+    private static final int FEATURES = 5;
+
+    /** The product counts to measure. */
+    private static final int[] PRODUCT_COUNTS = {10, 100, 1000, 5000};
+
+    /** The schema of the nested products. */
+    private static final String PRODUCT_SCHEMA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" elementFormDefault=\"qualified\">\n"
+        + "<xsd:include schemaLocation=\"opencms://opencms-xmlcontent.xsd\"/>\n"
+        + "<xsd:element name=\"Products\" type=\"OpenCmsProducts\"/>\n"
+        + "<xsd:complexType name=\"OpenCmsProducts\"><xsd:sequence>\n"
+        + "<xsd:element name=\"Product\" type=\"OpenCmsProduct\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence></xsd:complexType>\n"
+        + "<xsd:complexType name=\"OpenCmsProduct\"><xsd:sequence>\n"
+        + "<xsd:element name=\"Title\" type=\"OpenCmsString\"/>\n"
+        + "<xsd:element name=\"Price\" type=\"OpenCmsString\"/>\n"
+        + "<xsd:element name=\"Feature\" type=\"OpenCmsString\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n"
+        + "</xsd:sequence>\n"
+        + "<xsd:attribute name=\"language\" type=\"OpenCmsLocale\" use=\"optional\"/>\n"
+        + "</xsd:complexType>\n"
+        + "</xsd:schema>";
+
+    /** The system id of the schema of the nested products. */
+    private static final String PRODUCT_SYSTEM_ID = "http://www.opencms.org/benchmark-product.xsd";
+
+    /**
+     * Hide constructor to prevent generation of class instances.<p>
+     */
+    private CmsXmlContentLookupBenchmark() {
+
+        // empty
+    }
+
+    /**
+     * Runs the benchmark.<p>
+     * 
+     * @param args the optional duration of each run in seconds
+     * 
+     * @throws Exception if something goes wrong
+     */
+    public static void main(String[] args) throws Exception {
+
+        long millis = ((args.length > 0) ? Long.parseLong(args[0]) : 2) * 1000;
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+        CmsXmlEntityResolver.cacheSystemId(PRODUCT_SYSTEM_ID, PRODUCT_SCHEMA.getBytes(CmsEncoder.ENCODING_UTF_8));
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(
+            CATALOG_SCHEMA,
+            CATALOG_SYSTEM_ID,
+            resolver);
+        CmsXmlEntityResolver.cacheSystemId(
+            CATALOG_SYSTEM_ID,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+
+        System.out.println("products\tvalues\tunmarshal [ms]\tgetValues [loops/s]\tgetSubValues [loops/s]"
+            + "\tgetValue [lookups/s]");
+        for (int products : PRODUCT_COUNTS) {
+            String xml = generateContent(products);
+            long start = System.nanoTime();
+            CmsXmlContent content = CmsXmlContentFactory.unmarshal(xml, CmsEncoder.ENCODING_UTF_8, resolver);
+            long unmarshal = (System.nanoTime() - start) / 1000000;
+
+            final CmsXmlContent xmlContent = content;
+            final String[] paths = new String[products];
+            for (int i = 0; i < products; i++) {
+                paths[i] = CmsXmlUtils.createXpathElement("Product", i + 1);
+            }
+            long values = runLoop(new Operation() {
+
+                public int run() {
+
+                    // the typical content loop: all products, then all features of each product
+                    int result = xmlContent.getValues("Product", Locale.ENGLISH).size();
+                    for (String path : paths) {
+                        result += xmlContent.getValues(path + "/Feature", Locale.ENGLISH).size();
+                    }
+                    return result;
+                }
+            }, millis);
+            long subValues = runLoop(new Operation() {
+
+                public int run() {
+
+                    int result = 0;
+                    for (String path : paths) {
+                        result += xmlContent.getSubValues(path, Locale.ENGLISH).size();
+                    }
+                    return result;
+                }
+            }, millis);
+            final int count = products;
+            long lookups = runLoop(new Operation() {
+
+                public int run() {
+
+                    int result = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (xmlContent.getValue("Product/Title", Locale.ENGLISH, i) != null) {
+                            result++;
+                        }
+                    }
+                    return result;
+                }
+            }, millis) * products;
+            System.out.println(products
+                + "\t"
+                + content.getValues(Locale.ENGLISH).size()
+                + "\t"
+                + unmarshal
+                + "\t"
+                + values
+                + "\t"
+                + subValues
+                + "\t"
+                + lookups);
+        }
+    }
+
+    /**
+     * Generates a catalog content with the given number of products in English and German.<p>
+     * 
+     * @param products the number of products
+     * 
+     * @return the generated content
+     */
+    private static String generateContent(int products) {
+
+        StringBuffer result = new StringBuffer(products * 400);
+        result.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        result.append("<Catalogs xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" ");
+        result.append("xsi:noNamespaceSchemaLocation=\"").append(CATALOG_SYSTEM_ID).append("\">\n");
+        for (String language : new String[] {"en", "de"}) {
+            result.append("<Catalog language=\"").append(language).append("\">\n");
+            for (int i = 0; i < products; i++) {
+                result.append("<Product>\n");
+                result.append("<Title><![CDATA[Product ").append(i).append("]]></Title>\n");
+                result.append("<Price><![CDATA[").append(i * 10).append("]]></Price>\n");
+                for (int j = 0; j < FEATURES; j++) {
+                    result.append("<Feature><![CDATA[Feature ").append(j).append("]]></Feature>\n");
+                }
+                result.append("</Product>\n");
+            }
+            result.append("</Catalog>\n");
+        }
+        result.append("</Catalogs>");
+        return result.toString();
+    }
+
+    /**
+     * Measures how often the given operation can be run per second.<p>
+     * 
+     * @param operation the operation to measure
+     * @param millis the duration of the run in milliseconds
+     * 
+     * @return the number of operations per second
+     */
+    private static long runLoop(Operation operation, long millis) {
+
+        long count = 0;
+        int sink = 0;
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        do {
+            sink += operation.run();
+            count++;
+        } while (System.currentTimeMillis() < end);
+        if (sink == 42) {
+            // prevent the JIT from removing the measured code
+            System.out.print("");
+        }
+        return (count * 1000) / Math.max(1, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * An operation on the generated content.<p>
+     */
+    private interface Operation {
+
+        /**
+         * Runs the operation.<p>
+         * 
+         * @return a value depending on the result, to prevent the JIT from removing the operation
+         */
+        int run();
+    }
+}
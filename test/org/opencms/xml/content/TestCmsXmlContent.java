@@ -31,12 +31,15 @@ import org.opencms.i18n.CmsEncoder;
 import org.opencms.util.CmsFileUtil;
 import org.opencms.xml.CmsXmlContentDefinition;
 import org.opencms.xml.CmsXmlEntityResolver;
+import org.opencms.xml.CmsXmlUtils;
 import org.opencms.xml.types.CmsXmlDateTimeValue;
 import org.opencms.xml.types.CmsXmlHtmlValue;
 import org.opencms.xml.types.CmsXmlLocaleValue;
 import org.opencms.xml.types.CmsXmlStringValue;
 import org.opencms.xml.types.I_CmsXmlContentValue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 import junit.framework.TestCase;
@@ -60,6 +63,62 @@ public class TestCmsXmlContent extends TestCase {
         super(arg0);
     }
 
+    /**
+     * Tests that the bookmark names follow the added and removed values.<p>
+     * 
+     * @throws Exception in case the test fails
+     */
+    public void testBookmarks() throws Exception {
+
+        CmsXmlEntityResolver resolver = new CmsXmlEntityResolver(null);
+
+        String content;
+        // unmarshal content definition
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-definition-1.xsd", CmsEncoder.ENCODING_UTF_8);
+        CmsXmlContentDefinition definition = CmsXmlContentDefinition.unmarshal(content, SCHEMA_SYSTEM_ID_1, resolver);
+        // store content definition in entitiy resolver
+        content = CmsFileUtil.readFile("org/opencms/xml/content/xmlcontent-1.xml", CmsEncoder.ENCODING_UTF_8);
+        CmsXmlEntityResolver.cacheSystemId(
+            SCHEMA_SYSTEM_ID_1,
+            definition.getSchema().asXML().getBytes(CmsEncoder.ENCODING_UTF_8));
+        // now create the XML content
+        CmsXmlContent xmlcontent = CmsXmlContentFactory.unmarshal(content, CmsEncoder.ENCODING_UTF_8, resolver);
+
+        I_CmsXmlContentValue first = xmlcontent.getValue("String", Locale.ENGLISH, 0);
+        assertTrue(xmlcontent.getBookmarks().contains("/en/String[1]"));
+        assertSame(first, xmlcontent.getBookmark("/en/String[1]"));
+        assertNull(xmlcontent.getBookmark("/de/String[1]"));
+        assertNull(xmlcontent.getBookmark("/e/String[1]"));
+        assertNull(xmlcontent.getBookmark("String[1]"));
+
+        // the cached bookmark names must contain an added value
+        int size = xmlcontent.getBookmarks().size();
+        I_CmsXmlContentValue value = xmlcontent.addValue(null, "String", Locale.ENGLISH, 1);
+        assertEquals(size + 1, xmlcontent.getBookmarks().size());
+        assertTrue(xmlcontent.getBookmarks().contains("/en/String[2]"));
+        assertSame(value, xmlcontent.getBookmark("/en/String[2]"));
+
+        // all bookmarked values are visited, each parent before the values it contains
+        final List<String> visited = new ArrayList<String>();
+        xmlcontent.visitAllValuesWith(new I_CmsXmlContentValueVisitor() {
+
+            public void visit(I_CmsXmlContentValue visitedValue) {
+
+                if (visitedValue.getPath().indexOf('/') > 0) {
+                    assertTrue(visited.contains(CmsXmlUtils.removeLastXpathElement(visitedValue.getPath())));
+                }
+                visited.add(visitedValue.getPath());
+            }
+        });
+        assertEquals(xmlcontent.getBookmarks().size(), visited.size());
+
+        // the cached bookmark names must not contain a removed value
+        xmlcontent.removeValue("String", Locale.ENGLISH, 1);
+        assertEquals(size, xmlcontent.getBookmarks().size());
+        assertFalse(xmlcontent.getBookmarks().contains("/en/String[2]"));
+        assertNull(xmlcontent.getBookmark("/en/String[2]"));
+    }
+
     /**
      * Test unmarshalling an XML content from a String.<p>
      * 
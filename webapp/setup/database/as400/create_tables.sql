@@ -713,4 +713,7 @@ CREATE INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE TABLE CMS_REWRITES (ID VARCHAR(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN VARCHAR(255) NOT NULL, REPLACEMENT VARCHAR(255) NOT NULL, SITE_ROOT VARCHAR(64) NOT NULL, PRIMARY KEY (ID));
 CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_CLUSTER_EVENTS (EVENT_NODE VARCHAR(128) NOT NULL, EVENT_SEQUENCE BIGINT NOT NULL, EVENT_PART INTEGER NOT NULL, EVENT_DATE BIGINT NOT NULL, EVENT_DATA VARCHAR(2000) NOT NULL, PRIMARY KEY (EVENT_NODE, EVENT_SEQUENCE, EVENT_PART));
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_DATE);
     
@@ -380,4 +380,7 @@ CREATE INDEX CMS_USERPUBLIST_IDX_01 ON CMS_USER_PUBLISH_LIST (USER_ID);
 CREATE INDEX CMS_USERPUBLIST_IDX_02 ON CMS_USER_PUBLISH_LIST (STRUCTURE_ID);
 
 CREATE TABLE CMS_REWRITES (ID CHARACTER(36) NOT NULL, ALIAS_MODE INTEGER NOT NULL, PATTERN CHARACTER(255) NOT NULL, REPLACEMENT CHARACTER(255) NOT NULL, SITE_ROOT CHARACTER(64) NOT NULL, PRIMARY KEY (ID));
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT);
+
+CREATE TABLE CMS_CLUSTER_EVENTS (EVENT_NODE CHARACTER(128) NOT NULL, EVENT_SEQUENCE DECIMAL(38) NOT NULL, EVENT_PART INTEGER NOT NULL, EVENT_DATE DECIMAL(38) NOT NULL, EVENT_DATA CHARACTER(2000) NOT NULL, PRIMARY KEY (EVENT_NODE, EVENT_SEQUENCE, EVENT_PART));
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_DATE);
\ No newline at end of file
@@ -524,4 +524,17 @@ CREATE TABLE CMS_REWRITES
   )
 ENGINE = MYISAM CHARACTER SET UTF8;
 
-CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
\ No newline at end of file
+CREATE INDEX CMS_REWRITES_IDX_01 ON CMS_REWRITES (SITE_ROOT); 
+
+CREATE TABLE CMS_CLUSTER_EVENTS
+  (
+     EVENT_NODE     VARCHAR(128) BINARY NOT NULL,
+     EVENT_SEQUENCE BIGINT NOT NULL,
+     EVENT_PART     INTEGER NOT NULL,
+     EVENT_DATE     BIGINT NOT NULL,
+     EVENT_DATA     VARCHAR(2000) BINARY NOT NULL,
+     PRIMARY KEY (EVENT_NODE, EVENT_SEQUENCE, EVENT_PART)
+  )
+ENGINE = INNODB CHARACTER SET UTF8;
+
+CREATE INDEX CMS_CLUSTER_EVENTS_IDX_01 ON CMS_CLUSTER_EVENTS (EVENT_DATE);
\ No newline at end of file
@@ -153,4 +153,5 @@ DROP TABLE CMS_ALIASES ;
 
 
 
+DROP TABLE CMS_CLUSTER_EVENTS;
 DROP TABLE CMS_REWRITES;
\ No newline at end of file